@@ -26,17 +26,29 @@ import com.linkedin.pinot.common.metrics.MetricsHelper;
 import com.linkedin.pinot.common.query.ReduceServiceRegistry;
 import com.linkedin.pinot.common.response.BrokerResponseFactory;
 import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.DataTableSerDeRegistry;
+import com.linkedin.pinot.core.common.datatable.DataTableCustomSerDe;
 import com.linkedin.pinot.core.query.reduce.BrokerReduceService;
 import com.linkedin.pinot.core.query.reduce.DefaultReduceService;
+import com.linkedin.pinot.core.query.reduce.StreamingBrokerReduceService;
 import com.linkedin.pinot.requestHandler.BrokerRequestHandler;
+import com.linkedin.pinot.requestHandler.BrokerResultCache;
+import com.linkedin.pinot.requestHandler.HedgingPolicy;
+import com.linkedin.pinot.requestHandler.ResponseCompressionPolicy;
 import com.linkedin.pinot.routing.CfgBasedRouting;
 import com.linkedin.pinot.routing.HelixExternalViewBasedRouting;
 import com.linkedin.pinot.routing.RoutingTable;
 import com.linkedin.pinot.routing.TimeBoundaryService;
+import com.linkedin.pinot.transport.common.LatencyAwareReplicaSelection;
+import com.linkedin.pinot.transport.common.RandomReplicaSelection;
+import com.linkedin.pinot.transport.common.ReplicaSelection;
+import com.linkedin.pinot.transport.common.RoundRobinReplicaSelection;
 import com.linkedin.pinot.transport.conf.TransportClientConf;
 import com.linkedin.pinot.transport.conf.TransportClientConf.RoutingMode;
 import com.linkedin.pinot.transport.config.ConnectionPoolConfig;
 import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
+import com.linkedin.pinot.transport.netty.CompressionCodec;
+import com.linkedin.pinot.transport.netty.MultiplexedConnectionPool;
 import com.linkedin.pinot.transport.netty.NettyClientConnection;
 import com.linkedin.pinot.transport.netty.PooledNettyClientResourceManager;
 import com.linkedin.pinot.transport.pool.KeyedPool;
@@ -47,6 +59,9 @@ import com.yammer.metrics.core.MetricsRegistry;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.util.HashedWheelTimer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -67,14 +82,45 @@ public class BrokerServerBuilder {
   private static final String CLIENT_CONFIG_PREFIX = "pinot.broker.client";
   private static final String METRICS_CONFIG_PREFIX = "pinot.broker.metrics";
   private static final String BROKER_TIME_OUT_CONFIG = "pinot.broker.timeoutMs";
+  private static final String STREAMING_REDUCE_CONFIG = "pinot.broker.reduce.streaming";
+  private static final String REDUCE_THREADS_CONFIG = "pinot.broker.reduce.numThreads";
+  private static final String REPLICA_SELECTION_CONFIG = "pinot.broker.replicaSelection";
+  private static final String HEDGING_CONFIG_PREFIX = "pinot.broker.hedging";
+  private static final String HEDGING_ENABLED = "enabled";
+  private static final String HEDGING_PERCENTILE = "percentile";
+  private static final String HEDGING_MIN_DELAY_MS = "minDelayMs";
+  private static final String HEDGING_NUM_SAMPLES = "numSamples";
+  // Per table percentile, with the raw table name appended to the key
+  private static final String HEDGING_TABLE_PERCENTILE_PREFIX = "tablePercentile";
+  private static final String COMPRESSION_CONFIG_PREFIX = "pinot.broker.compression";
+  // 'lz4', 'snappy' or 'none'
+  private static final String COMPRESSION_CODEC = "codec";
+  private static final String COMPRESSION_THRESHOLD_BYTES = "thresholdBytes";
+  // Per table codec overrides: 'pinot.broker.compression.tableCodec.<rawTableName>'
+  private static final String COMPRESSION_TABLE_CODEC_PREFIX = "tableCodec";
+  private static final String RESULT_CACHE_CONFIG_PREFIX = "pinot.broker.resultCache";
+  private static final String RESULT_CACHE_ENABLED = "enabled";
+  private static final String RESULT_CACHE_MAX_ENTRIES = "maxEntries";
+  private static final String RESULT_CACHE_MAX_BYTES = "maxBytes";
+  private static final String RESULT_CACHE_TTL_MS = "ttlMs";
+  // Per table TTL overrides: 'pinot.broker.resultCache.tableTtlMs.<rawTableName>'
+  private static final String RESULT_CACHE_TABLE_TTL_MS_PREFIX = "tableTtlMs";
+  private static final int DEFAULT_RESULT_CACHE_MAX_ENTRIES = 10000;
+  private static final long DEFAULT_RESULT_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+  private static final long DEFAULT_RESULT_CACHE_TTL_MS = 60 * 1000L;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BrokerServerBuilder.class);
+  private static final double DEFAULT_HEDGING_PERCENTILE = 95;
+  private static final long DEFAULT_HEDGING_MIN_DELAY_MS = 10L;
+  private static final int DEFAULT_HEDGING_NUM_SAMPLES = 1024;
+  private static final int DEFAULT_COMPRESSION_THRESHOLD_BYTES = 64 * 1024;
   private static final long DEFAULT_BROKER_TIME_OUT_MS = 10 * 1000L;
 
   // Connection Pool Related
   private KeyedPool<ServerInstance, NettyClientConnection> _connPool;
   private ScheduledThreadPoolExecutor _poolTimeoutExecutor;
   private ExecutorService _requestSenderPool;
+  private ExecutorService _reduceExecutor;
 
   // Netty Specific
   private EventLoopGroup _eventLoopGroup;
@@ -127,6 +173,7 @@ public class BrokerServerBuilder {
     _brokerMetrics = new BrokerMetrics(_registry);
     _brokerMetrics.initializeGlobalMeters();
     _state.set(State.INIT);
+    DataTableSerDeRegistry.getInstance().register(DataTableCustomSerDe.INSTANCE);
     _eventLoopGroup = new NioEventLoopGroup();
     /**
      * Some of the client metrics uses histogram which is doing synchronous operation.
@@ -135,6 +182,16 @@ public class BrokerServerBuilder {
      */
     final NettyClientMetrics clientMetrics = new NettyClientMetrics(_registry, "client_");
 
+    long brokerTimeOutMs = DEFAULT_BROKER_TIME_OUT_MS;
+    if (_config.containsKey(BROKER_TIME_OUT_CONFIG)) {
+      try {
+        brokerTimeOutMs = _config.getLong(BROKER_TIME_OUT_CONFIG);
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while reading broker timeout from config, using default value", e);
+      }
+    }
+    LOGGER.info("Broker timeout is - " + brokerTimeOutMs + " ms");
+
     // Setup Netty Connection Pool
     _resourceManager = new PooledNettyClientResourceManager(_eventLoopGroup, new HashedWheelTimer(), clientMetrics);
     _poolTimeoutExecutor = new ScheduledThreadPoolExecutor(50);
@@ -145,10 +202,17 @@ public class BrokerServerBuilder {
 
     ConnectionPoolConfig connPoolCfg = conf.getConnPool();
 
-    _connPool = new KeyedPoolImpl<ServerInstance, NettyClientConnection>(connPoolCfg.getMinConnectionsPerServer(),
-        connPoolCfg.getMaxConnectionsPerServer(), connPoolCfg.getIdleTimeoutMs(), connPoolCfg.getMaxBacklogPerServer(),
-        _resourceManager, _poolTimeoutExecutor, _requestSenderPool, _registry);
-    // MoreExecutors.sameThreadExecutor(), _registry);
+    if (connPoolCfg.isMultiplexed()) {
+      // Requests share a few connections per server, matched to responses by request id
+      // Connecting to a server does not take longer than a request may
+      _connPool = new MultiplexedConnectionPool(connPoolCfg.getMultiplexedConnectionsPerServer(),
+          (int) Math.min(brokerTimeOutMs, Integer.MAX_VALUE), _eventLoopGroup, new HashedWheelTimer(), clientMetrics);
+    } else {
+      _connPool = new KeyedPoolImpl<ServerInstance, NettyClientConnection>(connPoolCfg.getMinConnectionsPerServer(),
+          connPoolCfg.getMaxConnectionsPerServer(), connPoolCfg.getIdleTimeoutMs(), connPoolCfg.getMaxBacklogPerServer(),
+          _resourceManager, _poolTimeoutExecutor, _requestSenderPool, _registry);
+      // MoreExecutors.sameThreadExecutor(), _registry);
+    }
     _resourceManager.setPool(_connPool);
 
     // Setup Routing Table
@@ -161,22 +225,13 @@ public class BrokerServerBuilder {
     }
 
     // Setup ScatterGather
-    _scatterGather = new ScatterGatherImpl(_connPool, _requestSenderPool);
+    _scatterGather = new ScatterGatherImpl(_connPool, _requestSenderPool, _poolTimeoutExecutor);
 
     // Setup Broker Request Handler
-    long brokerTimeOutMs = DEFAULT_BROKER_TIME_OUT_MS;
-    if (_config.containsKey(BROKER_TIME_OUT_CONFIG)) {
-      try {
-        brokerTimeOutMs = _config.getLong(BROKER_TIME_OUT_CONFIG);
-      } catch (Exception e) {
-        LOGGER.warn("Caught exception while reading broker timeout from config, using default value", e);
-      }
-    }
-    LOGGER.info("Broker timeout is - " + brokerTimeOutMs + " ms");
-
     ReduceServiceRegistry reduceServiceRegistry = buildReduceServiceRegistry();
     _requestHandler = new BrokerRequestHandler(_routingTable, _timeBoundaryService, _scatterGather,
-        reduceServiceRegistry, _brokerMetrics, brokerTimeOutMs);
+        reduceServiceRegistry, _brokerMetrics, brokerTimeOutMs, buildResultCache(), buildReplicaSelection(),
+        buildHedgingPolicy(), buildCompressionPolicy());
 
     LOGGER.info("Network initialized !!");
   }
@@ -191,12 +246,131 @@ public class BrokerServerBuilder {
     reduceServiceRegistry.register(BrokerResponseFactory.ResponseType.BROKER_RESPONSE_TYPE_JSON,
         new DefaultReduceService());
     reduceServiceRegistry.register(BrokerResponseFactory.ResponseType.BROKER_RESPONSE_TYPE_NATIVE,
-        new BrokerReduceService());
+        buildBrokerReduceService());
 
     reduceServiceRegistry.registerDefault(defaultReduceService);
     return reduceServiceRegistry;
   }
 
+  /**
+   * Build the reduce service for native broker responses. When streaming reduce is enabled, server responses are
+   * merged as they arrive, and group-by results are merged on a shared pool of reduce threads.
+   */
+  private BrokerReduceService buildBrokerReduceService() {
+    if (!_config.getBoolean(STREAMING_REDUCE_CONFIG, false)) {
+      return new BrokerReduceService();
+    }
+    int numThreads = _config.getInt(REDUCE_THREADS_CONFIG, Runtime.getRuntime().availableProcessors());
+    LOGGER.info("Streaming reduce is enabled with {} reduce threads", numThreads);
+    _reduceExecutor = Executors.newFixedThreadPool(numThreads);
+    return new StreamingBrokerReduceService(_reduceExecutor, numThreads);
+  }
+
+  /**
+   * Build the replica selection policy from config, round-robin by default.
+   */
+  private ReplicaSelection buildReplicaSelection() {
+    String policyName =
+        _config.getString(REPLICA_SELECTION_CONFIG, ReplicaSelection.ReplicaSelectionPolicy.ROUND_ROBIN.name());
+    ReplicaSelection.ReplicaSelectionPolicy policy;
+    try {
+      policy = ReplicaSelection.ReplicaSelectionPolicy.valueOf(policyName.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      LOGGER.warn("Invalid replica selection policy: {}, using round-robin", policyName);
+      policy = ReplicaSelection.ReplicaSelectionPolicy.ROUND_ROBIN;
+    }
+    LOGGER.info("Replica selection policy is - " + policy);
+
+    switch (policy) {
+      case RANDOM:
+        return new RandomReplicaSelection(System.nanoTime());
+      case LATENCY_AWARE:
+        return new LatencyAwareReplicaSelection();
+      default:
+        return new RoundRobinReplicaSelection();
+    }
+  }
+
+  /**
+   * Build the policy for hedging slow server requests to other replicas if it is enabled, null otherwise.
+   */
+  private HedgingPolicy buildHedgingPolicy() {
+    Configuration hedgingConfig = _config.subset(HEDGING_CONFIG_PREFIX);
+    if (!hedgingConfig.getBoolean(HEDGING_ENABLED, false)) {
+      return null;
+    }
+    double percentile = hedgingConfig.getDouble(HEDGING_PERCENTILE, DEFAULT_HEDGING_PERCENTILE);
+    long minDelayMs = hedgingConfig.getLong(HEDGING_MIN_DELAY_MS, DEFAULT_HEDGING_MIN_DELAY_MS);
+    int numSamples = hedgingConfig.getInt(HEDGING_NUM_SAMPLES, DEFAULT_HEDGING_NUM_SAMPLES);
+    Map<String, Double> tablePercentileMap = new HashMap<>();
+    Configuration tablePercentileConfig = hedgingConfig.subset(HEDGING_TABLE_PERCENTILE_PREFIX);
+    Iterator<String> tableNames = tablePercentileConfig.getKeys();
+    while (tableNames.hasNext()) {
+      String tableName = tableNames.next();
+      tablePercentileMap.put(tableName, tablePercentileConfig.getDouble(tableName));
+    }
+    LOGGER.info("Hedging is enabled with percentile: {}, min delay: {} ms, samples: {}, table percentiles: {}",
+        percentile, minDelayMs, numSamples, tablePercentileMap);
+    return new HedgingPolicy(percentile, tablePercentileMap, minDelayMs, numSamples);
+  }
+
+  /**
+   * Build the policy for compressing large server responses if any table has a codec, null otherwise.
+   */
+  private ResponseCompressionPolicy buildCompressionPolicy() {
+    Configuration compressionConfig = _config.subset(COMPRESSION_CONFIG_PREFIX);
+    CompressionCodec codec = CompressionCodec.fromName(compressionConfig.getString(COMPRESSION_CODEC, null));
+    int thresholdBytes = compressionConfig.getInt(COMPRESSION_THRESHOLD_BYTES, DEFAULT_COMPRESSION_THRESHOLD_BYTES);
+    Map<String, CompressionCodec> tableCodecMap = new HashMap<>();
+    Configuration tableCodecConfig = compressionConfig.subset(COMPRESSION_TABLE_CODEC_PREFIX);
+    boolean enabled = (codec != null);
+    Iterator<String> tableNames = tableCodecConfig.getKeys();
+    while (tableNames.hasNext()) {
+      String tableName = tableNames.next();
+      CompressionCodec tableCodec = CompressionCodec.fromName(tableCodecConfig.getString(tableName));
+      tableCodecMap.put(tableName, tableCodec);
+      enabled |= (tableCodec != null);
+    }
+    if (!enabled) {
+      return null;
+    }
+    LOGGER.info("Response compression is enabled with codec: {}, threshold: {} bytes, table codecs: {}", codec,
+        thresholdBytes, tableCodecMap);
+    return new ResponseCompressionPolicy(codec, tableCodecMap, thresholdBytes);
+  }
+
+  /**
+   * Build the broker result cache if it is enabled, and register it for invalidation on routing changes.
+   * Returns null if the cache is disabled.
+   */
+  private BrokerResultCache buildResultCache() {
+    Configuration resultCacheConfig = _config.subset(RESULT_CACHE_CONFIG_PREFIX);
+    if (!resultCacheConfig.getBoolean(RESULT_CACHE_ENABLED, false)) {
+      return null;
+    }
+    int maxEntries = resultCacheConfig.getInt(RESULT_CACHE_MAX_ENTRIES, DEFAULT_RESULT_CACHE_MAX_ENTRIES);
+    long maxBytes = resultCacheConfig.getLong(RESULT_CACHE_MAX_BYTES, DEFAULT_RESULT_CACHE_MAX_BYTES);
+    long ttlMs = resultCacheConfig.getLong(RESULT_CACHE_TTL_MS, DEFAULT_RESULT_CACHE_TTL_MS);
+    Map<String, Long> tableTtlMsMap = new HashMap<>();
+    Configuration tableTtlMsConfig = resultCacheConfig.subset(RESULT_CACHE_TABLE_TTL_MS_PREFIX);
+    Iterator<String> tableNames = tableTtlMsConfig.getKeys();
+    while (tableNames.hasNext()) {
+      String tableName = tableNames.next();
+      tableTtlMsMap.put(tableName, tableTtlMsConfig.getLong(tableName));
+    }
+    LOGGER.info("Result cache is enabled with max entries: {}, max bytes: {}, ttl: {} ms, table ttls: {}", maxEntries,
+        maxBytes, ttlMs, tableTtlMsMap);
+
+    BrokerResultCache resultCache = new BrokerResultCache(maxEntries, maxBytes, ttlMs, tableTtlMsMap);
+    if (_routingTable instanceof HelixExternalViewBasedRouting) {
+      ((HelixExternalViewBasedRouting) _routingTable).addRoutingTableChangeListener(resultCache);
+    } else {
+      LOGGER.warn("Routing table {} does not notify routing changes, cached results only expire on TTL",
+          _routingTable.getClass().getSimpleName());
+    }
+    return resultCache;
+  }
+
   public void buildHTTP() {
     // build server which has servlet
     Configuration c = _config.subset(CLIENT_CONFIG_PREFIX);
@@ -251,6 +425,9 @@ public class BrokerServerBuilder {
     _routingTable.shutdown();
     _poolTimeoutExecutor.shutdown();
     _requestSenderPool.shutdown();
+    if (_reduceExecutor != null) {
+      _reduceExecutor.shutdown();
+    }
     _state.set(State.SHUTDOWN);
     LOGGER.info("Network shutdown!!");
 
@@ -30,11 +30,15 @@ public class IndexingConfig {
   private static final Logger LOGGER = LoggerFactory.getLogger(IndexingConfig.class);
 
   private List<String> invertedIndexColumns;
+  private List<String> noDictionaryColumns;
+  private List<String> rangeIndexColumns;
+  private List<String> bloomFilterColumns;
   private List<String> sortedColumn = new ArrayList<String>();
   private String loadMode;
   private String lazyLoad;
   private Map<String, String> streamConfigs = new HashMap<String, String>();
   private String segmentFormatVersion;
+  private boolean offHeapRealtimeDictionary;
 
   public IndexingConfig() {
 
@@ -64,6 +68,30 @@ public class IndexingConfig {
     this.invertedIndexColumns = invertedIndexColumns;
   }
 
+  public List<String> getNoDictionaryColumns() {
+    return noDictionaryColumns;
+  }
+
+  public void setNoDictionaryColumns(List<String> noDictionaryColumns) {
+    this.noDictionaryColumns = noDictionaryColumns;
+  }
+
+  public List<String> getRangeIndexColumns() {
+    return rangeIndexColumns;
+  }
+
+  public void setRangeIndexColumns(List<String> rangeIndexColumns) {
+    this.rangeIndexColumns = rangeIndexColumns;
+  }
+
+  public List<String> getBloomFilterColumns() {
+    return bloomFilterColumns;
+  }
+
+  public void setBloomFilterColumns(List<String> bloomFilterColumns) {
+    this.bloomFilterColumns = bloomFilterColumns;
+  }
+
   public String getLoadMode() {
     return loadMode;
   }
@@ -88,6 +116,14 @@ public class IndexingConfig {
     return segmentFormatVersion;
   }
 
+  public boolean isOffHeapRealtimeDictionary() {
+    return offHeapRealtimeDictionary;
+  }
+
+  public void setOffHeapRealtimeDictionary(boolean offHeapRealtimeDictionary) {
+    this.offHeapRealtimeDictionary = offHeapRealtimeDictionary;
+  }
+
   @Override
   public String toString() {
     final StringBuilder result = new StringBuilder();
@@ -26,6 +26,7 @@ public class QueryException {
   public static final int PQL_PARSING_ERROR_CODE = 150;
   public static final int QUERY_EXECUTION_ERROR_CODE = 200;
   public static final int EXECUTION_TIMEOUT_ERROR_CODE = 250;
+  public static final int QUERY_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE = 260;
   public static final int BROKER_GATHER_ERROR_CODE = 300;
   public static final int FUTURE_CALL_ERROR_CODE = 350;
   public static final int BROKER_TIMEOUT_ERROR_CODE = 400;
@@ -33,6 +34,7 @@ public class QueryException {
   public static final int BROKER_RESOURCE_MISSING_ERROR_CODE = 410;
   public static final int BROKER_INSTANCE_MISSING_ERROR_CODE = 420;
   public static final int INTERNAL_ERROR_CODE = 450;
+  public static final int SERVER_BUSY_ERROR_CODE = 460;
   public static final int MERGE_RESPONSE_ERROR_CODE = 500;
   public static final int FEDERATED_BROKER_UNAVAILABLE_ERROR_CODE = 550;
   public static final int COMBINE_GROUP_BY_EXCEPTION_ERROR_CODE = 600;
@@ -44,6 +46,8 @@ public class QueryException {
   public static final ProcessingException QUERY_EXECUTION_ERROR = new ProcessingException(QUERY_EXECUTION_ERROR_CODE);
   public static final ProcessingException EXECUTION_TIMEOUT_ERROR =
       new ProcessingException(EXECUTION_TIMEOUT_ERROR_CODE);
+  public static final ProcessingException QUERY_RESOURCE_LIMIT_EXCEEDED_ERROR =
+      new ProcessingException(QUERY_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE);
   public static final ProcessingException BROKER_GATHER_ERROR = new ProcessingException(BROKER_GATHER_ERROR_CODE);
   public static final ProcessingException FUTURE_CALL_ERROR = new ProcessingException(FUTURE_CALL_ERROR_CODE);
   public static final ProcessingException BROKER_TIMEOUT_ERROR = new ProcessingException(BROKER_TIMEOUT_ERROR_CODE);
@@ -54,6 +58,7 @@ public class QueryException {
   public static final ProcessingException BROKER_INSTANCE_MISSING_ERROR =
       new ProcessingException(BROKER_INSTANCE_MISSING_ERROR_CODE);
   public static final ProcessingException INTERNAL_ERROR = new ProcessingException(INTERNAL_ERROR_CODE);
+  public static final ProcessingException SERVER_BUSY_ERROR = new ProcessingException(SERVER_BUSY_ERROR_CODE);
   public static final ProcessingException MERGE_RESPONSE_ERROR = new ProcessingException(MERGE_RESPONSE_ERROR_CODE);
   public static final ProcessingException FEDERATED_BROKER_UNAVAILABLE_ERROR =
       new ProcessingException(FEDERATED_BROKER_UNAVAILABLE_ERROR_CODE);
@@ -68,6 +73,7 @@ public class QueryException {
     PQL_PARSING_ERROR.setMessage(" PQLParsingError");
     QUERY_EXECUTION_ERROR.setMessage("QueryExecutionError");
     EXECUTION_TIMEOUT_ERROR.setMessage("ExecutionTimeout");
+    QUERY_RESOURCE_LIMIT_EXCEEDED_ERROR.setMessage("QueryResourceLimitExceeded");
     BROKER_GATHER_ERROR.setMessage("BrokerGatherError");
     FUTURE_CALL_ERROR.setMessage("FutureCallError");
     BROKER_TIMEOUT_ERROR.setMessage("BrokerTimeout");
@@ -75,6 +81,7 @@ public class QueryException {
     BROKER_RESOURCE_MISSING_ERROR.setMessage("BrokerResourceMissingError");
     BROKER_INSTANCE_MISSING_ERROR.setMessage("BrokerInstanceMissingError");
     INTERNAL_ERROR.setMessage("InternalError");
+    SERVER_BUSY_ERROR.setMessage("ServerBusy");
     MERGE_RESPONSE_ERROR.setMessage("MergeResponseError");
     FEDERATED_BROKER_UNAVAILABLE_ERROR.setMessage("FederatedBrokerUnavailable");
     UNKNOWN_ERROR.setMessage("UnknownError");
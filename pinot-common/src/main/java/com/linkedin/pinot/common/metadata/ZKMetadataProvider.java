@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 public class ZKMetadataProvider {
   private static final Logger LOGGER = LoggerFactory.getLogger(ZKMetadataProvider.class);
   private static final String CLUSTER_TENANT_ISOLATION_ENABLED_KEY = "tenantIsolationEnabled";
+  private static final String LAST_REFRESHED_SEGMENT_KEY = "lastRefreshedSegment";
   private static String PROPERTYSTORE_SEGMENTS_PREFIX = "/SEGMENTS";
   private static String PROPERTYSTORE_SCHEMAS_PREFIX = "/SCHEMAS";
   private static String PROPERTYSTORE_TABLE_CONFIGS_PREFIX = "/CONFIGS/TABLE";
@@ -106,6 +107,19 @@ public class ZKMetadataProvider {
         offlineSegmentZKMetadata.toZNRecord(), AccessOption.PERSISTENT);
   }
 
+  /**
+   * Touch the segments path of the offline table after one of its segments got refreshed, so that the brokers watching
+   * the table reload the ZK metadata of the segments that changed. A refresh changes neither the ideal state nor the
+   * external view.
+   */
+  public static void notifyOfflineSegmentRefresh(ZkHelixPropertyStore<ZNRecord> propertyStore, String tableName,
+      String segmentName) {
+    String offlineTableName = TableNameBuilder.OFFLINE_TABLE_NAME_BUILDER.forTable(tableName);
+    ZNRecord znRecord = new ZNRecord(offlineTableName);
+    znRecord.setSimpleField(LAST_REFRESHED_SEGMENT_KEY, segmentName);
+    propertyStore.set(constructPropertyStorePathForResource(offlineTableName), znRecord, AccessOption.PERSISTENT);
+  }
+
   public static void setRealtimeSegmentZKMetadata(ZkHelixPropertyStore<ZNRecord> propertyStore, RealtimeSegmentZKMetadata realtimeSegmentZKMetadata) {
     propertyStore.set(constructPropertyStorePathForSegment(
         TableNameBuilder.REALTIME_TABLE_NAME_BUILDER.forTable(realtimeSegmentZKMetadata.getTableName()), realtimeSegmentZKMetadata.getSegmentName()),
@@ -30,8 +30,12 @@ import org.apache.commons.configuration.Configuration;
 public class IndexLoadingConfigMetadata {
 
   public static final String KEY_OF_LOADING_INVERTED_INDEX = "metadata.loading.inverted.index.columns";
+  public static final String KEY_OF_LOADING_RANGE_INDEX = "metadata.loading.range.index.columns";
+  public static final String KEY_OF_LOADING_BLOOM_FILTER = "metadata.loading.bloom.filter.columns";
   public static final String KEY_OF_SEGMENT_FORMAT_VERSION = "segment.format.version";
   private final Set<String> _loadingInvertedIndexColumnSet = new HashSet<String>();
+  private final Set<String> _loadingRangeIndexColumnSet = new HashSet<String>();
+  private final Set<String> _loadingBloomFilterColumnSet = new HashSet<String>();
   private final String DEFAULT_SEGMENT_FORMAT = "v1";
   private String segmentVersionToLoad;
 
@@ -40,6 +44,14 @@ public class IndexLoadingConfigMetadata {
     if ((valueOfLoadingInvertedIndexConfig != null) && (!valueOfLoadingInvertedIndexConfig.isEmpty())) {
       initLoadingInvertedIndexColumnSet(valueOfLoadingInvertedIndexConfig.toArray(new String[0]));
     }
+    List<String> valueOfLoadingRangeIndexConfig = tableDataManagerConfig.getList(KEY_OF_LOADING_RANGE_INDEX, null);
+    if ((valueOfLoadingRangeIndexConfig != null) && (!valueOfLoadingRangeIndexConfig.isEmpty())) {
+      initLoadingRangeIndexColumnSet(valueOfLoadingRangeIndexConfig.toArray(new String[0]));
+    }
+    List<String> valueOfLoadingBloomFilterConfig = tableDataManagerConfig.getList(KEY_OF_LOADING_BLOOM_FILTER, null);
+    if ((valueOfLoadingBloomFilterConfig != null) && (!valueOfLoadingBloomFilterConfig.isEmpty())) {
+      initLoadingBloomFilterColumnSet(valueOfLoadingBloomFilterConfig.toArray(new String[0]));
+    }
 
     segmentVersionToLoad = tableDataManagerConfig.getString(KEY_OF_SEGMENT_FORMAT_VERSION, DEFAULT_SEGMENT_FORMAT);
   }
@@ -56,6 +68,36 @@ public class IndexLoadingConfigMetadata {
     return _loadingInvertedIndexColumnSet.contains(columnName);
   }
 
+  public void initLoadingRangeIndexColumnSet(String[] columnCollections) {
+    _loadingRangeIndexColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  /**
+   * Columns to load (and create if missing) a range index for, used to evaluate range predicates.
+   */
+  public Set<String> getLoadingRangeIndexColumns() {
+    return _loadingRangeIndexColumnSet;
+  }
+
+  public boolean isLoadingRangeIndexForColumn(String columnName) {
+    return _loadingRangeIndexColumnSet.contains(columnName);
+  }
+
+  public void initLoadingBloomFilterColumnSet(String[] columnCollections) {
+    _loadingBloomFilterColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  /**
+   * Columns to load (and create if missing) a bloom filter for, used to prune segments on EQ and IN predicates.
+   */
+  public Set<String> getLoadingBloomFilterColumns() {
+    return _loadingBloomFilterColumnSet;
+  }
+
+  public boolean isLoadingBloomFilterForColumn(String columnName) {
+    return _loadingBloomFilterColumnSet.contains(columnName);
+  }
+
   public String segmentVersionToLoad() {
     return segmentVersionToLoad;
   }
@@ -63,4 +105,12 @@ public class IndexLoadingConfigMetadata {
   public static String getKeyOfLoadingInvertedIndex() {
     return KEY_OF_LOADING_INVERTED_INDEX;
   }
+
+  public static String getKeyOfLoadingRangeIndex() {
+    return KEY_OF_LOADING_RANGE_INDEX;
+  }
+
+  public static String getKeyOfLoadingBloomFilter() {
+    return KEY_OF_LOADING_BLOOM_FILTER;
+  }
 }
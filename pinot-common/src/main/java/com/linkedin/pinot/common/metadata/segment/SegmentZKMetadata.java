@@ -21,7 +21,9 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.helix.ZNRecord;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.metadata.ZKMetadata;
+import com.linkedin.pinot.common.segment.ColumnValueRange;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.SegmentType;
 import static com.linkedin.pinot.common.utils.EqualityUtils.isEqual;
@@ -44,6 +46,7 @@ public abstract class SegmentZKMetadata implements ZKMetadata {
   private long _totalRawDocs = -1;
   private long _crc = -1;
   private long _creationTime = -1;
+  private Map<String, ColumnValueRange> _columnValueRanges = new HashMap<String, ColumnValueRange>();
 
   public SegmentZKMetadata() {
   }
@@ -62,6 +65,28 @@ public abstract class SegmentZKMetadata implements ZKMetadata {
     _totalRawDocs = znRecord.getLongField(CommonConstants.Segment.TOTAL_DOCS, -1);
     _crc = znRecord.getLongField(CommonConstants.Segment.CRC, -1);
     _creationTime = znRecord.getLongField(CommonConstants.Segment.CREATION_TIME, -1);
+    for (Map.Entry<String, Map<String, String>> entry : znRecord.getMapFields().entrySet()) {
+      if (entry.getKey().startsWith(CommonConstants.Segment.COLUMN_VALUE_RANGE_PREFIX)) {
+        String column = entry.getKey().substring(CommonConstants.Segment.COLUMN_VALUE_RANGE_PREFIX.length());
+        ColumnValueRange valueRange = fromMapField(entry.getValue());
+        if (valueRange != null) {
+          _columnValueRanges.put(column, valueRange);
+        }
+      }
+    }
+  }
+
+  private static ColumnValueRange fromMapField(Map<String, String> mapField) {
+    String dataType = mapField.get(CommonConstants.Segment.COLUMN_DATA_TYPE);
+    if (dataType == null) {
+      return null;
+    }
+    try {
+      return ColumnValueRange.fromStrings(FieldSpec.DataType.valueOf(dataType),
+          mapField.get(CommonConstants.Segment.COLUMN_MIN_VALUE), mapField.get(CommonConstants.Segment.COLUMN_MAX_VALUE));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
   }
 
   public String getSegmentName() {
@@ -144,6 +169,17 @@ public abstract class SegmentZKMetadata implements ZKMetadata {
     _creationTime = creationTime;
   }
 
+  /**
+   * Returns the min and max value of the columns that have them, used by the broker to prune segments.
+   */
+  public Map<String, ColumnValueRange> getColumnValueRanges() {
+    return _columnValueRanges;
+  }
+
+  public void setColumnValueRanges(Map<String, ColumnValueRange> columnValueRanges) {
+    _columnValueRanges = new HashMap<String, ColumnValueRange>(columnValueRanges);
+  }
+
   @Override
   public boolean equals(Object segmentMetadata) {
     if (isSameReference(this, segmentMetadata)) {
@@ -164,7 +200,8 @@ public abstract class SegmentZKMetadata implements ZKMetadata {
         isEqual(_segmentType, metadata._segmentType) &&
         isEqual(_totalRawDocs, metadata._totalRawDocs) &&
         isEqual(_crc, metadata._crc) &&
-        isEqual(_creationTime, metadata._creationTime);
+        isEqual(_creationTime, metadata._creationTime) &&
+        isEqual(_columnValueRanges, metadata._columnValueRanges);
   }
 
   @Override
@@ -179,6 +216,7 @@ public abstract class SegmentZKMetadata implements ZKMetadata {
     result = hashCodeOf(result, _totalRawDocs);
     result = hashCodeOf(result, _crc);
     result = hashCodeOf(result, _creationTime);
+    result = hashCodeOf(result, _columnValueRanges);
     return result;
   }
 
@@ -200,6 +238,14 @@ public abstract class SegmentZKMetadata implements ZKMetadata {
     znRecord.setLongField(CommonConstants.Segment.TOTAL_DOCS, _totalRawDocs);
     znRecord.setLongField(CommonConstants.Segment.CRC, _crc);
     znRecord.setLongField(CommonConstants.Segment.CREATION_TIME, _creationTime);
+    for (Map.Entry<String, ColumnValueRange> entry : _columnValueRanges.entrySet()) {
+      ColumnValueRange valueRange = entry.getValue();
+      Map<String, String> mapField = new HashMap<String, String>();
+      mapField.put(CommonConstants.Segment.COLUMN_DATA_TYPE, valueRange.getDataType().toString());
+      mapField.put(CommonConstants.Segment.COLUMN_MIN_VALUE, valueRange.getMinValue());
+      mapField.put(CommonConstants.Segment.COLUMN_MAX_VALUE, valueRange.getMaxValue());
+      znRecord.setMapField(CommonConstants.Segment.COLUMN_VALUE_RANGE_PREFIX + entry.getKey(), mapField);
+    }
     return znRecord;
   }
 
@@ -220,6 +266,9 @@ public abstract class SegmentZKMetadata implements ZKMetadata {
     configMap.put(CommonConstants.Segment.TOTAL_DOCS, Long.toString(_totalRawDocs));
     configMap.put(CommonConstants.Segment.CRC, Long.toString(_crc));
     configMap.put(CommonConstants.Segment.CREATION_TIME, Long.toString(_creationTime));
+    for (Map.Entry<String, ColumnValueRange> entry : _columnValueRanges.entrySet()) {
+      configMap.put(CommonConstants.Segment.COLUMN_VALUE_RANGE_PREFIX + entry.getKey(), entry.getValue().toString());
+    }
     return configMap;
   }
 }
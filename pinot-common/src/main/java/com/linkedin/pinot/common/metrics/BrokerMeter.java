@@ -33,6 +33,13 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
   REQUEST_DESERIALIZATION_EXCEPTIONS("exceptions", false),
   DOCUMENTS_SCANNED("documents", false),
   HELIX_ZOOKEEPER_RECONNECTS("reconnects", true),
+  RESULT_CACHE_HITS("queries", false),
+  RESULT_CACHE_MISSES("queries", false),
+
+  // Hedged requests sent to another replica because the server had not responded within the hedge delay, and the
+  // number of those whose response arrived first.
+  HEDGED_REQUESTS_SENT("requests", false),
+  HEDGED_REQUESTS_WON("requests", false),
 
   // This metric tracks the number of requests dropped by the broker after we get a connection to the server.
   // Exceptions resulting when sending a request get counted in this metric. The metric is counted on a per-table
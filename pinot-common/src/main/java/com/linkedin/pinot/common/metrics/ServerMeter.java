@@ -27,6 +27,10 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   UNCAUGHT_EXCEPTIONS("exceptions", true),
   RESPONSE_SERIALIZATION_EXCEPTIONS("exceptions", true),
   QUERY_EXECUTION_EXCEPTIONS("exceptions", false),
+  QUERY_CPU_TIME_MS("milliseconds", false),
+  QUERY_ALLOCATED_BYTES("bytes", false),
+  QUERIES_KILLED("queries", false),
+  QUERIES_REJECTED("queries", false),
   HELIX_ZOOKEEPER_RECONNECTS("reconnects", true),
   DELETED_SEGMENT_COUNT("segments", false),
   REALTIME_ROWS_CONSUMED("rows", true),
@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.DataTable;
+
+
+/**
+ * Incrementally reduces the DataTables of one query, as they arrive from the servers.
+ * Instances are created per query by {@link StreamingReduceService#getDataTableReducer}.
+ *
+ * Calls to {@link #reduce} are made from a single thread, and {@link #getBrokerResponse()} is called once,
+ * after the last DataTable has been passed in.
+ *
+ * @param <T>
+ */
+public interface DataTableReducer<T extends BrokerResponse> {
+
+  /**
+   * Reduce the DataTable from the given server instance into the partial result of the query.
+   *
+   * @param serverInstance
+   * @param dataTable
+   */
+  void reduce(ServerInstance serverInstance, DataTable dataTable);
+
+  /**
+   * Finish the reduce, and return the final broker response.
+   *
+   * @return T extends BrokerResponse
+   */
+  T getBrokerResponse();
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.BrokerResponse;
+
+
+/**
+ * ReduceService that can merge the server responses as they arrive, instead of waiting for all of them.
+ *
+ * @param <T>
+ */
+public interface StreamingReduceService<T extends BrokerResponse> extends ReduceService<T> {
+
+  /**
+   * Returns a new reducer for the given broker request.
+   *
+   * @param brokerRequest
+   * @return DataTableReducer
+   */
+  DataTableReducer<T> getDataTableReducer(BrokerRequest brokerRequest);
+}
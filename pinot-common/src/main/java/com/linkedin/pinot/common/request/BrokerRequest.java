@@ -55,6 +55,7 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
   private static final org.apache.thrift.protocol.TField BUCKET_HASH_KEY_FIELD_DESC = new org.apache.thrift.protocol.TField("bucketHashKey", org.apache.thrift.protocol.TType.STRING, (short)10);
   private static final org.apache.thrift.protocol.TField ENABLE_TRACE_FIELD_DESC = new org.apache.thrift.protocol.TField("enableTrace", org.apache.thrift.protocol.TType.BOOL, (short)11);
   private static final org.apache.thrift.protocol.TField RESPONSE_FORMAT_FIELD_DESC = new org.apache.thrift.protocol.TField("responseFormat", org.apache.thrift.protocol.TType.STRING, (short)12);
+  private static final org.apache.thrift.protocol.TField QUERY_OPTIONS_FIELD_DESC = new org.apache.thrift.protocol.TField("queryOptions", org.apache.thrift.protocol.TType.MAP, (short)13);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -74,6 +75,7 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
   private String bucketHashKey; // optional
   private boolean enableTrace; // optional
   private String responseFormat; // optional
+  private Map<String,String> queryOptions; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -88,7 +90,8 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     FILTER_SUB_QUERY_MAP((short)9, "filterSubQueryMap"),
     BUCKET_HASH_KEY((short)10, "bucketHashKey"),
     ENABLE_TRACE((short)11, "enableTrace"),
-    RESPONSE_FORMAT((short)12, "responseFormat");
+    RESPONSE_FORMAT((short)12, "responseFormat"),
+    QUERY_OPTIONS((short)13, "queryOptions");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -127,6 +130,8 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
           return ENABLE_TRACE;
         case 12: // RESPONSE_FORMAT
           return RESPONSE_FORMAT;
+        case 13: // QUERY_OPTIONS
+          return QUERY_OPTIONS;
         default:
           return null;
       }
@@ -169,7 +174,7 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
   // isset id assignments
   private static final int __ENABLETRACE_ISSET_ID = 0;
   private byte __isset_bitfield = 0;
-  private static final _Fields optionals[] = {_Fields.QUERY_TYPE,_Fields.QUERY_SOURCE,_Fields.TIME_INTERVAL,_Fields.DURATION,_Fields.FILTER_QUERY,_Fields.AGGREGATIONS_INFO,_Fields.GROUP_BY,_Fields.SELECTIONS,_Fields.FILTER_SUB_QUERY_MAP,_Fields.BUCKET_HASH_KEY,_Fields.ENABLE_TRACE,_Fields.RESPONSE_FORMAT};
+  private static final _Fields optionals[] = {_Fields.QUERY_TYPE,_Fields.QUERY_SOURCE,_Fields.TIME_INTERVAL,_Fields.DURATION,_Fields.FILTER_QUERY,_Fields.AGGREGATIONS_INFO,_Fields.GROUP_BY,_Fields.SELECTIONS,_Fields.FILTER_SUB_QUERY_MAP,_Fields.BUCKET_HASH_KEY,_Fields.ENABLE_TRACE,_Fields.RESPONSE_FORMAT,_Fields.QUERY_OPTIONS};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -198,6 +203,10 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
     tmpMap.put(_Fields.RESPONSE_FORMAT, new org.apache.thrift.meta_data.FieldMetaData("responseFormat", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
+    tmpMap.put(_Fields.QUERY_OPTIONS, new org.apache.thrift.meta_data.FieldMetaData("queryOptions", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.MapMetaData(org.apache.thrift.protocol.TType.MAP, 
+            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING), 
+            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(BrokerRequest.class, metaDataMap);
   }
@@ -248,6 +257,10 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     if (other.isSetResponseFormat()) {
       this.responseFormat = other.responseFormat;
     }
+    if (other.isSetQueryOptions()) {
+      Map<String,String> __this__queryOptions = new HashMap<String,String>(other.queryOptions);
+      this.queryOptions = __this__queryOptions;
+    }
   }
 
   public BrokerRequest deepCopy() {
@@ -269,6 +282,7 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     setEnableTraceIsSet(false);
     this.enableTrace = false;
     this.responseFormat = null;
+    this.queryOptions = null;
   }
 
   public QueryType getQueryType() {
@@ -561,6 +575,40 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     }
   }
 
+  public int getQueryOptionsSize() {
+    return (this.queryOptions == null) ? 0 : this.queryOptions.size();
+  }
+
+  public void putToQueryOptions(String key, String val) {
+    if (this.queryOptions == null) {
+      this.queryOptions = new HashMap<String,String>();
+    }
+    this.queryOptions.put(key, val);
+  }
+
+  public Map<String,String> getQueryOptions() {
+    return this.queryOptions;
+  }
+
+  public void setQueryOptions(Map<String,String> queryOptions) {
+    this.queryOptions = queryOptions;
+  }
+
+  public void unsetQueryOptions() {
+    this.queryOptions = null;
+  }
+
+  /** Returns true if field queryOptions is set (has been assigned a value) and false otherwise */
+  public boolean isSetQueryOptions() {
+    return this.queryOptions != null;
+  }
+
+  public void setQueryOptionsIsSet(boolean value) {
+    if (!value) {
+      this.queryOptions = null;
+    }
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case QUERY_TYPE:
@@ -659,6 +707,14 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       }
       break;
 
+    case QUERY_OPTIONS:
+      if (value == null) {
+        unsetQueryOptions();
+      } else {
+        setQueryOptions((Map<String,String>)value);
+      }
+      break;
+
     }
   }
 
@@ -700,6 +756,9 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     case RESPONSE_FORMAT:
       return getResponseFormat();
 
+    case QUERY_OPTIONS:
+      return getQueryOptions();
+
     }
     throw new IllegalStateException();
   }
@@ -735,6 +794,8 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       return isSetEnableTrace();
     case RESPONSE_FORMAT:
       return isSetResponseFormat();
+    case QUERY_OPTIONS:
+      return isSetQueryOptions();
     }
     throw new IllegalStateException();
   }
@@ -860,6 +921,15 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
         return false;
     }
 
+    boolean this_present_queryOptions = true && this.isSetQueryOptions();
+    boolean that_present_queryOptions = true && that.isSetQueryOptions();
+    if (this_present_queryOptions || that_present_queryOptions) {
+      if (!(this_present_queryOptions && that_present_queryOptions))
+        return false;
+      if (!this.queryOptions.equals(that.queryOptions))
+        return false;
+    }
+
     return true;
   }
 
@@ -927,6 +997,11 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     if (present_responseFormat)
       list.add(responseFormat);
 
+    boolean present_queryOptions = true && (isSetQueryOptions());
+    list.add(present_queryOptions);
+    if (present_queryOptions)
+      list.add(queryOptions);
+
     return list.hashCode();
   }
 
@@ -1058,6 +1133,16 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetQueryOptions()).compareTo(other.isSetQueryOptions());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetQueryOptions()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.queryOptions, other.queryOptions);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -1193,6 +1278,16 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       }
       first = false;
     }
+    if (isSetQueryOptions()) {
+      if (!first) sb.append(", ");
+      sb.append("queryOptions:");
+      if (this.queryOptions == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.queryOptions);
+      }
+      first = false;
+    }
     sb.append(")");
     return sb.toString();
   }
@@ -1369,6 +1464,26 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 13: // QUERY_OPTIONS
+            if (schemeField.type == org.apache.thrift.protocol.TType.MAP) {
+              {
+                org.apache.thrift.protocol.TMap _map70 = iprot.readMapBegin();
+                struct.queryOptions = new HashMap<String,String>(2*_map70.size);
+                String _key71;
+                String _val72;
+                for (int _i73 = 0; _i73 < _map70.size; ++_i73)
+                {
+                  _key71 = iprot.readString();
+                  _val72 = iprot.readString();
+                  struct.queryOptions.put(_key71, _val72);
+                }
+                iprot.readMapEnd();
+              }
+              struct.setQueryOptionsIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -1471,6 +1586,21 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
           oprot.writeFieldEnd();
         }
       }
+      if (struct.queryOptions != null) {
+        if (struct.isSetQueryOptions()) {
+          oprot.writeFieldBegin(QUERY_OPTIONS_FIELD_DESC);
+          {
+            oprot.writeMapBegin(new org.apache.thrift.protocol.TMap(org.apache.thrift.protocol.TType.STRING, org.apache.thrift.protocol.TType.STRING, struct.queryOptions.size()));
+            for (Map.Entry<String, String> _iter74 : struct.queryOptions.entrySet())
+            {
+              oprot.writeString(_iter74.getKey());
+              oprot.writeString(_iter74.getValue());
+            }
+            oprot.writeMapEnd();
+          }
+          oprot.writeFieldEnd();
+        }
+      }
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -1525,7 +1655,10 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       if (struct.isSetResponseFormat()) {
         optionals.set(11);
       }
-      oprot.writeBitSet(optionals, 12);
+      if (struct.isSetQueryOptions()) {
+        optionals.set(12);
+      }
+      oprot.writeBitSet(optionals, 13);
       if (struct.isSetQueryType()) {
         struct.queryType.write(oprot);
       }
@@ -1568,12 +1701,22 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       if (struct.isSetResponseFormat()) {
         oprot.writeString(struct.responseFormat);
       }
+      if (struct.isSetQueryOptions()) {
+        {
+          oprot.writeI32(struct.queryOptions.size());
+          for (Map.Entry<String, String> _iter75 : struct.queryOptions.entrySet())
+          {
+            oprot.writeString(_iter75.getKey());
+            oprot.writeString(_iter75.getValue());
+          }
+        }
+      }
     }
 
     @Override
     public void read(org.apache.thrift.protocol.TProtocol prot, BrokerRequest struct) throws org.apache.thrift.TException {
       TTupleProtocol iprot = (TTupleProtocol) prot;
-      BitSet incoming = iprot.readBitSet(12);
+      BitSet incoming = iprot.readBitSet(13);
       if (incoming.get(0)) {
         struct.queryType = new QueryType();
         struct.queryType.read(iprot);
@@ -1638,6 +1781,21 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
         struct.responseFormat = iprot.readString();
         struct.setResponseFormatIsSet(true);
       }
+      if (incoming.get(12)) {
+        {
+          org.apache.thrift.protocol.TMap _map76 = new org.apache.thrift.protocol.TMap(org.apache.thrift.protocol.TType.STRING, org.apache.thrift.protocol.TType.STRING, iprot.readI32());
+          struct.queryOptions = new HashMap<String,String>(2*_map76.size);
+          String _key77;
+          String _val78;
+          for (int _i79 = 0; _i79 < _map76.size; ++_i79)
+          {
+            _key77 = iprot.readString();
+            _val78 = iprot.readString();
+            struct.queryOptions.put(_key77, _val78);
+          }
+        }
+        struct.setQueryOptionsIsSet(true);
+      }
     }
   }
 
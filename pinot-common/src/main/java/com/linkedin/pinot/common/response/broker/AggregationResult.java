@@ -33,6 +33,7 @@ public class AggregationResult {
 
   List<GroupByResult> _groupByResults;
   List<String> _groupByColumns;
+  private Double _maxError;
 
   /**
    * Default constructor, required by JSON de-serializer.
@@ -139,4 +140,23 @@ public class AggregationResult {
   public void setGroupByColumns(List<String> groupByColumns) {
     _groupByColumns = groupByColumns;
   }
+
+  /**
+   * Get the error bound of the approximate TOP N groupByResults, null if the results are not approximate.
+   * @return
+   */
+  @JsonProperty("maxError")
+  @JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+  public Double getMaxError() {
+    return _maxError;
+  }
+
+  /**
+   * Set the error bound of the approximate TOP N groupByResults.
+   * @param maxError
+   */
+  @JsonProperty("maxError")
+  public void setMaxError(Double maxError) {
+    _maxError = maxError;
+  }
 }
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.segment;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.utils.EqualityUtils;
+
+
+/**
+ * Min and max value of a column in a segment, used to prune segments that cannot match a filter.
+ * Values are kept in their string form for persistence, and compared in the column data type, the same
+ * way the dictionaries parse values from queries.
+ */
+public class ColumnValueRange {
+  public static final String UNBOUNDED = "*";
+
+  private final DataType _dataType;
+  private final String _minValue;
+  private final String _maxValue;
+  private final Comparable _min;
+  private final Comparable _max;
+
+  private ColumnValueRange(DataType dataType, String minValue, String maxValue, Comparable min, Comparable max) {
+    _dataType = dataType;
+    _minValue = minValue;
+    _maxValue = maxValue;
+    _min = min;
+    _max = max;
+  }
+
+  /**
+   * Returns the value range for the given data type and string values, or null if either value is missing
+   * or cannot be parsed, in which case nothing can be pruned on the column.
+   */
+  public static ColumnValueRange fromStrings(DataType dataType, String minValue, String maxValue) {
+    if (dataType == null || minValue == null || maxValue == null) {
+      return null;
+    }
+    Comparable min;
+    Comparable max;
+    try {
+      min = parse(dataType, minValue);
+      max = parse(dataType, maxValue);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    if (min == null || max == null || isNaN(min) || isNaN(max) || compare(min, max) > 0) {
+      return null;
+    }
+    return new ColumnValueRange(dataType, minValue, maxValue, min, max);
+  }
+
+  public DataType getDataType() {
+    return _dataType;
+  }
+
+  public String getMinValue() {
+    return _minValue;
+  }
+
+  public String getMaxValue() {
+    return _maxValue;
+  }
+
+  /**
+   * Returns false if the value is definitely outside of the range, true if it might be in it.
+   */
+  public boolean mightContain(String value) {
+    Comparable parsed = parseQueryValue(value);
+    if (parsed == null) {
+      return true;
+    }
+    return compare(parsed, _min) >= 0 && compare(parsed, _max) <= 0;
+  }
+
+  /**
+   * Returns false if no value between the given boundaries can be in the range, true otherwise.
+   * Boundaries equal to {@link #UNBOUNDED} are open ended.
+   */
+  public boolean mightOverlap(String lowerBoundary, boolean includeLower, String upperBoundary,
+      boolean includeUpper) {
+    // String range predicates are evaluated on the padded dictionary values, whose order can differ from the
+    // natural order of the min and max values, so never prune them
+    if (_dataType == DataType.STRING || _dataType == DataType.BOOLEAN) {
+      return true;
+    }
+    if (!UNBOUNDED.equals(lowerBoundary)) {
+      Comparable lower = parseQueryValue(lowerBoundary);
+      if (lower != null) {
+        int result = compare(lower, _max);
+        if (result > 0 || (result == 0 && !includeLower)) {
+          return false;
+        }
+      }
+    }
+    if (!UNBOUNDED.equals(upperBoundary)) {
+      Comparable upper = parseQueryValue(upperBoundary);
+      if (upper != null) {
+        int result = compare(upper, _min);
+        if (result < 0 || (result == 0 && !includeUpper)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses a value from a query, returns null if it does not match the data type, leaving it to the
+   * query to deal with.
+   */
+  private Comparable parseQueryValue(String value) {
+    try {
+      Comparable parsed = parse(_dataType, value);
+      if (parsed == null || isNaN(parsed)) {
+        return null;
+      }
+      return parsed;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Comparable parse(DataType dataType, String value) {
+    switch (dataType) {
+      case INT:
+        return Integer.parseInt(value);
+      case LONG:
+        return Long.parseLong(value);
+      case FLOAT:
+        return Float.parseFloat(value);
+      case DOUBLE:
+        return Double.parseDouble(value);
+      case STRING:
+      case BOOLEAN:
+        return value;
+      default:
+        return null;
+    }
+  }
+
+  private static boolean isNaN(Comparable value) {
+    return (value instanceof Float && ((Float) value).isNaN()) || (value instanceof Double && ((Double) value).isNaN());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Comparable left, Comparable right) {
+    return left.compareTo(right);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (EqualityUtils.isSameReference(this, o)) {
+      return true;
+    }
+    if (EqualityUtils.isNullOrNotSameClass(this, o)) {
+      return false;
+    }
+    ColumnValueRange that = (ColumnValueRange) o;
+    return EqualityUtils.isEqual(_dataType, that._dataType) && EqualityUtils.isEqual(_minValue, that._minValue)
+        && EqualityUtils.isEqual(_maxValue, that._maxValue);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = EqualityUtils.hashCodeOf(_dataType);
+    result = EqualityUtils.hashCodeOf(result, _minValue);
+    result = EqualityUtils.hashCodeOf(result, _maxValue);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return _dataType + "[" + _minValue + ", " + _maxValue + "]";
+  }
+}
@@ -121,6 +121,11 @@ public interface SegmentMetadata {
    */
   public StarTreeMetadata getStarTreeMetadata();
 
+  /**
+   * Returns the min and max value of the columns that have them, keyed by column name.
+   */
+  public Map<String, ColumnValueRange> getColumnValueRanges();
+
   /**
    * returns the forward Index file name with appropriate extension for a given version
    * @param column
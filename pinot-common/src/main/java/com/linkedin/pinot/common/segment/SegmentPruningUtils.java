@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.segment;
+
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Utility methods to decide from the column value ranges of a segment whether it can match a filter.
+ * Shared by the server side segment pruner and the broker, which prunes segments on their ZK metadata.
+ */
+public class SegmentPruningUtils {
+  private static final String VALUE_DELIMITER = "\t\t";
+
+  private SegmentPruningUtils() {
+  }
+
+  /**
+   * Returns true only if no document with column values within the given ranges can match the filter tree.
+   * EQUALITY, IN and RANGE leaves are evaluated, combined with AND/OR. Columns without a range never cause
+   * a segment to be pruned.
+   */
+  public static boolean cannotMatch(FilterQueryTree filterQueryTree, Map<String, ColumnValueRange> columnValueRanges) {
+    switch (filterQueryTree.getOperator()) {
+      case AND:
+        for (FilterQueryTree child : filterQueryTree.getChildren()) {
+          if (cannotMatch(child, columnValueRanges)) {
+            return true;
+          }
+        }
+        return false;
+      case OR:
+        for (FilterQueryTree child : filterQueryTree.getChildren()) {
+          if (!cannotMatch(child, columnValueRanges)) {
+            return false;
+          }
+        }
+        return true;
+      case EQUALITY:
+      case IN:
+      case RANGE:
+        ColumnValueRange valueRange = columnValueRanges.get(filterQueryTree.getColumn());
+        List<String> values = filterQueryTree.getValue();
+        if (valueRange == null || values == null || values.isEmpty()) {
+          return false;
+        }
+        return cannotMatch(filterQueryTree, values.get(0), valueRange);
+      default:
+        return false;
+    }
+  }
+
+  private static boolean cannotMatch(FilterQueryTree filterQueryTree, String value, ColumnValueRange valueRange) {
+    switch (filterQueryTree.getOperator()) {
+      case EQUALITY:
+        return !valueRange.mightContain(value);
+      case IN:
+        for (String inValue : value.split(VALUE_DELIMITER)) {
+          if (valueRange.mightContain(inValue)) {
+            return false;
+          }
+        }
+        return true;
+      case RANGE:
+        // Same format as parsed by the range predicate: [lower\t\tupper], with ( or ) for exclusive boundaries
+        String rangeString = value.trim();
+        String[] boundaries = rangeString.split(VALUE_DELIMITER);
+        if (boundaries.length != 2 || boundaries[0].isEmpty() || boundaries[1].isEmpty()) {
+          return false;
+        }
+        String lowerBoundary = boundaries[0].substring(1);
+        String upperBoundary = boundaries[1].substring(0, boundaries[1].length() - 1);
+        boolean includeLower = !rangeString.startsWith("(") || ColumnValueRange.UNBOUNDED.equals(lowerBoundary);
+        boolean includeUpper = !rangeString.endsWith(")") || ColumnValueRange.UNBOUNDED.equals(upperBoundary);
+        return !valueRange.mightOverlap(lowerBoundary, includeLower, upperBoundary, includeUpper);
+      default:
+        return false;
+    }
+  }
+}
@@ -230,6 +230,12 @@ public class CommonConstants {
     public static final String CRC = "segment.crc";
     public static final String CREATION_TIME = "segment.creation.time";
 
+    // One map field per column, holding the column data type and min/max values
+    public static final String COLUMN_VALUE_RANGE_PREFIX = "segment.column.value.range.";
+    public static final String COLUMN_DATA_TYPE = "dataType";
+    public static final String COLUMN_MIN_VALUE = "minValue";
+    public static final String COLUMN_MAX_VALUE = "maxValue";
+
     public static enum SegmentType {
       OFFLINE,
       REALTIME
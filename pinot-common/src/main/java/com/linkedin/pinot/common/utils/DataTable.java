@@ -15,15 +15,8 @@
  */
 package com.linkedin.pinot.common.utils;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.Closeable;
-import java.io.DataInputStream;
 import java.io.DataOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
@@ -31,11 +24,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
@@ -59,8 +50,16 @@ public class DataTable {
 
   DataSchema schema;
 
+  // Version 1 encodes OBJECT columns with java serialization.
   static int VERSION_1 = 1;
-  static int VERSION = VERSION_1;
+  // Version 2 encodes OBJECT columns with a DataTableSerDe, whose id is written into the header.
+  static int VERSION_2 = 2;
+  static int VERSION = VERSION_2;
+
+  private int version = VERSION;
+
+  // Id of the DataTableSerDe that encoded the OBJECT columns.
+  private int serDeId = DataTableJavaSerDe.ID;
 
   private Map<String, Map<Integer, String>> dictionary;
 
@@ -90,7 +89,25 @@ public class DataTable {
    */
   public DataTable(int numRows, Map<String, Map<Integer, String>> dictionary, Map<String, String> metadata,
       DataSchema schema, byte[] fixedSizeDataBytes, byte[] variableSizeDataBytes) throws Exception {
+    this(numRows, dictionary, metadata, schema, fixedSizeDataBytes, variableSizeDataBytes,
+        DataTableSerDeRegistry.getInstance().get().getId());
+  }
+
+  /**
+   *
+   * @param numRows
+   * @param dictionary
+   * @param metadata
+   * @param schema
+   * @param fixedSizeDataBytes
+   * @param variableSizeDataBytes
+   * @param serDeId Id of the DataTableSerDe that encoded the OBJECT values in variableSizeDataBytes
+   * @throws Exception
+   */
+  public DataTable(int numRows, Map<String, Map<Integer, String>> dictionary, Map<String, String> metadata,
+      DataSchema schema, byte[] fixedSizeDataBytes, byte[] variableSizeDataBytes, int serDeId) throws Exception {
     this.numRows = numRows;
+    this.serDeId = serDeId;
     this.dictionary = dictionary;
     this.metadata = metadata;
     this.schema = schema;
@@ -177,18 +194,38 @@ public class DataTable {
    * @param buffer
    */
   public DataTable(byte[] buffer) {
+    this(ByteBuffer.wrap(buffer));
+  }
 
-    final ByteBuffer input = ByteBuffer.wrap(buffer);
+  /**
+   * Decodes the data table from the remaining bytes of the buffer, which may be a direct buffer
+   * (e.g. the buffer of a network response). The sections are read straight into their final
+   * arrays, so the buffer may be reused once this returns.
+   *
+   * @param buffer
+   */
+  public DataTable(ByteBuffer buffer) {
+
+    final ByteBuffer input = buffer.slice();
 
     final int version = input.getInt();
-    if (version == VERSION_1) {
-      decodeV1(input);
-      return;
+    if (version != VERSION_1 && version != VERSION_2) {
+      throw new RuntimeException("Unknown version of DataTable encoding:" + version);
+    }
+    this.version = version;
+    if (version == VERSION_2) {
+      serDeId = input.getInt();
     }
-    throw new RuntimeException("Unknown version of DataTable encoding:" + version);
+    decode(input);
   }
 
-  private void decodeV1(ByteBuffer input) {
+  /**
+   * Decodes the sections of the data table, after the version specific start of the header. The
+   * section offsets are relative to the start of the data table in both versions.
+   *
+   * @param input
+   */
+  private void decode(ByteBuffer input) {
     numRows = input.getInt();
     numCols = input.getInt();
     // READ dictionary
@@ -205,23 +242,17 @@ public class DataTable {
 
     // READ DICTIONARY
 
-    byte[] dictionaryBytes = null;
     if (dictionaryLength != 0) {
-      dictionaryBytes = new byte[dictionaryLength];
       input.position(dictionaryStart);
-      input.get(dictionaryBytes);
-      dictionary = (Map<String, Map<Integer, String>>) deserializeDictionary(dictionaryBytes);
+      dictionary = deserializeDictionary(input);
     } else {
       dictionary = new HashMap<String, Map<Integer, String>>(1);
     }
 
     // READ METADATA
-    byte[] metadataBytes;
     if (metadataLength != 0) {
-      metadataBytes = new byte[metadataLength];
       input.position(metadataStart);
-      input.get(metadataBytes);
-      metadata = (Map<String, String>) deserializeMetadata(metadataBytes);
+      metadata = deserializeMetadata(input);
     } else {
       metadata = new HashMap<String, String>();
     }
@@ -268,72 +299,95 @@ public class DataTable {
    * @throws Exception
    */
   public  byte[] toBytes() throws Exception {
-    return toBytes(VERSION_1);
+    return toBytes(version);
   }
 
-  private byte[] toBytes(int version) throws Exception {
+  // Package private for the version 1 compatibility tests.
+  byte[] toBytes(int version) throws Exception {
+    final ByteBuffer[] buffers = toByteBuffers(version);
+    int size = 0;
+    for (ByteBuffer buffer : buffers) {
+      size += buffer.remaining();
+    }
+    final ByteBuffer out = ByteBuffer.allocate(size);
+    for (ByteBuffer buffer : buffers) {
+      out.put(buffer);
+    }
+    return out.array();
+  }
+
+  /**
+   * Returns the serialized data table as a list of buffers, whose concatenation is the same as
+   * {@link #toBytes()}. The fixed and variable size data are wrapped, not copied, so the caller can
+   * write the data table into its own output buffer with a single copy.
+   *
+   * @return
+   * @throws Exception
+   */
+  public ByteBuffer[] toByteBuffers() throws Exception {
+    return toByteBuffers(version);
+  }
+
+  private ByteBuffer[] toByteBuffers(int version) throws Exception {
     final byte[] dictionaryBytes = serializeDictionary();
     final byte[] metadataBytes = serializeMetadata();
     byte[] schemaBytes = new byte[0];
     if (schema != null) {
       schemaBytes = schema.toBytes();
     }
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    final DataOutputStream out = new DataOutputStream(baos);
     // TODO: convert this format into a proper class
     // VERSION|NUM_ROW|NUM_COL|(START|SIZE) -- START|SIZE 5 PAIRS FOR
     // DICTIONARY, METADATA,
     // SCHEMA, DATATABLE, VARIABLE DATA BUFFER --> 4 + 4 + 4 + 5*8 = 52
-    // bytes
-    out.writeInt(version);
-    out.writeInt(numRows);
-    out.writeInt(numCols);
+    // bytes. Version 2 adds the SERDE_ID after the VERSION --> 56 bytes.
+    final int headerSize = (version == VERSION_1) ? 52 : 56;
+    final ByteBuffer header = ByteBuffer.allocate(headerSize);
+    header.putInt(version);
+    if (version == VERSION_2) {
+      header.putInt(serDeId);
+    } else if (serDeId != DataTableJavaSerDe.ID) {
+      throw new IllegalStateException("Version 1 data table cannot hold objects encoded by serde: " + serDeId);
+    }
+    header.putInt(numRows);
+    header.putInt(numCols);
     // dictionary
-    int baseOffset = 52;
-    out.writeInt(baseOffset);
-    out.writeInt(dictionaryBytes.length);
+    int baseOffset = headerSize;
+    header.putInt(baseOffset);
+    header.putInt(dictionaryBytes.length);
     baseOffset += dictionaryBytes.length;
 
     // metadata
-    out.writeInt(baseOffset);
-    out.writeInt(metadataBytes.length);
+    header.putInt(baseOffset);
+    header.putInt(metadataBytes.length);
     baseOffset += metadataBytes.length;
 
     // schema
-    out.writeInt(baseOffset);
-    out.writeInt(schemaBytes.length);
+    header.putInt(baseOffset);
+    header.putInt(schemaBytes.length);
     baseOffset += schemaBytes.length;
 
     // datatable
-    out.writeInt(baseOffset);
+    header.putInt(baseOffset);
     if (fixedSizeDataBytes == null) {
-      out.writeInt(0);
+      header.putInt(0);
     } else {
-      out.writeInt(fixedSizeDataBytes.length);
+      header.putInt(fixedSizeDataBytes.length);
       baseOffset += fixedSizeDataBytes.length;
     }
 
     // variable data
-    out.writeInt(baseOffset);
+    header.putInt(baseOffset);
     if (variableSizeDataBytes == null) {
-      out.writeInt(0);
+      header.putInt(0);
     } else {
-      out.writeInt(variableSizeDataBytes.length);
+      header.putInt(variableSizeDataBytes.length);
     }
+    header.flip();
 
-    // write them
-    out.write(dictionaryBytes);
-    out.write(metadataBytes);
-    out.write(schemaBytes);
-    if (fixedSizeDataBytes != null) {
-      out.write(fixedSizeDataBytes);
-    }
-    if (variableSizeDataBytes != null) {
-      out.write(variableSizeDataBytes);
-    }
-    byte[] byteArray = baos.toByteArray();
-    long end = System.currentTimeMillis();
-    return byteArray;
+    return new ByteBuffer[]{header, ByteBuffer.wrap(dictionaryBytes), ByteBuffer.wrap(metadataBytes),
+        ByteBuffer.wrap(schemaBytes),
+        ByteBuffer.wrap(fixedSizeDataBytes == null ? new byte[0] : fixedSizeDataBytes),
+        ByteBuffer.wrap(variableSizeDataBytes == null ? new byte[0] : variableSizeDataBytes)};
   }
 
   private byte[] serializeMetadata() throws Exception {
@@ -354,23 +408,19 @@ public class DataTable {
     return new byte[0];
   }
 
-  private Map<String, String> deserializeMetadata(byte[] buffer) {
+  /**
+   * Reads the metadata map directly from the data table buffer, which is positioned
+   * at the start of the metadata section.
+   *
+   * @param input
+   * @return
+   */
+  private Map<String, String> deserializeMetadata(ByteBuffer input) {
+    final int size = input.getInt();
     Map<String, String> map = new HashMap<String, String>();
-    try {
-      final ByteArrayInputStream bais = new ByteArrayInputStream(buffer);
-      final DataInputStream in = new DataInputStream(bais);
-      int size = in.readInt();
-      for (int i = 0; i < size; i++) {
-        Integer keyLength = in.readInt();
-        byte[] keyBytes = new byte[keyLength];
-        in.read(keyBytes);
-        int valueLength = in.readInt();
-        byte[] valueBytes = new byte[valueLength];
-        in.read(valueBytes);
-        map.put(new String(keyBytes, UTF8), new String(valueBytes, UTF8));
-      }
-    } catch (Exception e) {
-      LOGGER.error("Exception while deserializing dictionary", e);
+    for (int i = 0; i < size; i++) {
+      String key = readString(input);
+      map.put(key, readString(input));
     }
     return map;
   }
@@ -398,86 +448,46 @@ public class DataTable {
     return new byte[0];
   }
 
-  private Map<String, Map<Integer, String>> deserializeDictionary(byte[] buffer) {
+  /**
+   * Reads the dictionary directly from the data table buffer, which is positioned
+   * at the start of the dictionary section.
+   *
+   * @param input
+   * @return
+   */
+  private Map<String, Map<Integer, String>> deserializeDictionary(ByteBuffer input) {
+    final int size = input.getInt();
     Map<String, Map<Integer, String>> map = new HashMap<String, Map<Integer, String>>();
-    try {
-      final ByteArrayInputStream bais = new ByteArrayInputStream(buffer);
-      final DataInputStream in = new DataInputStream(bais);
-      int size = in.readInt();
-      byte[] temp;
-      for (int i = 0; i < size; i++) {
-        int readLength = in.readInt();
-        temp = new byte[readLength];
-        in.read(temp);
-        Map<Integer, String> childMap = new HashMap<Integer, String>();
-        map.put(new String(temp, UTF8), childMap);
-        int childMapSize = in.readInt();
-        for (int j = 0; j < childMapSize; j++) {
-          Integer key = in.readInt();
-          int valueLength = in.readInt();
-          temp = new byte[valueLength];
-          in.read(temp);
-          childMap.put(key, new String(temp, UTF8));
-        }
+    for (int i = 0; i < size; i++) {
+      String column = readString(input);
+      int childMapSize = input.getInt();
+      Map<Integer, String> childMap = new HashMap<Integer, String>();
+      map.put(column, childMap);
+      for (int j = 0; j < childMapSize; j++) {
+        int key = input.getInt();
+        childMap.put(key, readString(input));
       }
-    } catch (Exception e) {
-      LOGGER.error("Exception while deserializing dictionary", e);
     }
     return map;
   }
 
   /**
+   * Reads a length prefixed UTF-8 string from the buffer, without copying the bytes of heap buffers.
    *
-   * @param value
+   * @param input
    * @return
    */
-  private byte[] serializeObject(Object value) {
-    long start = System.nanoTime();
-
-    byte[] bytes;
-    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
-    ObjectOutput out = null;
-
-    try {
-      try {
-        out = new ObjectOutputStream(bos);
-        out.writeObject(value);
-      } catch (final IOException e) {
-        LOGGER.error("Caught exception", e);
-        Utils.rethrowException(e);
-      }
-      bytes = bos.toByteArray();
-
-    } finally {
-      IOUtils.closeQuietly((Closeable) out);
-      IOUtils.closeQuietly(bos);
+  private static String readString(ByteBuffer input) {
+    final int length = input.getInt();
+    if (!input.hasArray()) {
+      byte[] bytes = new byte[length];
+      input.get(bytes);
+      return new String(bytes, UTF8);
     }
-    long end = System.nanoTime();
-    return bytes;
-  }
-
-  @SuppressWarnings("unchecked")
-  private <T extends Serializable> T deserialize(byte[] value) {
-    long start = System.nanoTime();
-    final ByteArrayInputStream bais = new ByteArrayInputStream(value);
-    ObjectInputStream out = null;
-    Object readObject;
-    try {
-      try {
-        out = new ObjectInputStream(bais);
-        readObject = out.readObject();
-
-      } catch (final Exception e) {
-        LOGGER.error("Caught exception while deserializing DataTable", e);
-        return null;
-      }
-    } finally {
-      IOUtils.closeQuietly(out);
-      IOUtils.closeQuietly(bais);
-    }
-    long end = System.nanoTime();
-    return (T) readObject;
-
+    final int position = input.position();
+    String value = new String(input.array(), input.arrayOffset() + position, length, UTF8);
+    input.position(position + length);
+    return value;
   }
 
   /**
@@ -738,7 +748,7 @@ public class DataTable {
     final int length = positionCursorInVariableBuffer(rowId, colId);
     final byte[] serData = new byte[length];
     variableSizeData.get(serData);
-    return (T) deserialize(serData);
+    return DataTableSerDeRegistry.getInstance().get(serDeId).deserialize(serData);
   }
 
   /**
@@ -15,22 +15,17 @@
  */
 package com.linkedin.pinot.common.utils;
 
-import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -131,8 +126,14 @@ public class DataTableBuilder {
 
   boolean isOpen = false;
 
+  /**
+   * Serde for OBJECT values, fixed at construction so that all values of the data table use the same one.
+   */
+  private final DataTableSerDe serDe;
+
   public DataTableBuilder(DataSchema schema) {
     this.schema = schema;
+    this.serDe = DataTableSerDeRegistry.getInstance().get();
     this.metadata = new HashMap<String, String>();
     columnOffsets = new int[schema.columnNames.length];
     fixedSizeDataHolder = new ByteHolder();
@@ -324,8 +325,7 @@ public class DataTableBuilder {
    */
   public void setColumn(int columnIndex, Object value) throws Exception {
 
-    byte[] bytes = new byte[0];
-    bytes = serializeObject(value);
+    byte[] bytes = serDe.serialize(value);
     currentRowData.position(columnOffsets[columnIndex]);
     currentRowData.putInt(variableSizeDataHolder.position());
     variableSizeDataHolder.add(bytes);
@@ -467,32 +467,6 @@ public class DataTableBuilder {
     currentRowData.putInt(values.length);
   }
 
-  /**
-   *
-   * @param value
-   * @return
-   */
-  private byte[] serializeObject(Object value) {
-    byte[] bytes;
-    ByteArrayOutputStream bos = new ByteArrayOutputStream();
-    ObjectOutput out = null;
-
-    try {
-      try {
-        out = new ObjectOutputStream(bos);
-        out.writeObject(value);
-      } catch (IOException e) {
-        LOGGER.error("Caught exception", e);
-        Utils.rethrowException(e);
-      }
-      bytes = bos.toByteArray();
-    } finally {
-      IOUtils.closeQuietly((Closeable) out);
-      IOUtils.closeQuietly(bos);
-    }
-    return bytes;
-  }
-
   /**
    *
    * @throws Exception
@@ -525,7 +499,7 @@ public class DataTableBuilder {
   public DataTable build() throws Exception {
 
     return new DataTable(currentRowId, reverseDictionary, metadata, schema, fixedSizeDataHolder.toBytes(),
-        variableSizeDataHolder.toBytes());
+        variableSizeDataHolder.toBytes(), serDe.getId());
   }
 
   /**
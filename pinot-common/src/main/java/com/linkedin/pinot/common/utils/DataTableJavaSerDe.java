@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.utils;
+
+import com.linkedin.pinot.common.Utils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * DataTableSerDe based on java serialization. This is the encoding of OBJECT columns in
+ * version 1 of the DataTable format, and the fall back for objects without a custom encoding.
+ */
+public class DataTableJavaSerDe implements DataTableSerDe {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DataTableJavaSerDe.class);
+
+  public static final int ID = 0;
+  public static final DataTableJavaSerDe INSTANCE = new DataTableJavaSerDe();
+
+  @Override
+  public int getId() {
+    return ID;
+  }
+
+  @Override
+  public byte[] serialize(Object object) {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectOutputStream out = null;
+
+    try {
+      out = new ObjectOutputStream(bos);
+      out.writeObject(object);
+      out.flush();
+    } catch (IOException e) {
+      LOGGER.error("Caught exception while serializing object", e);
+      Utils.rethrowException(e);
+    } finally {
+      IOUtils.closeQuietly(out);
+      IOUtils.closeQuietly(bos);
+    }
+    return bos.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T extends Serializable> T deserialize(byte[] bytes) {
+    ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
+    ObjectInputStream in = null;
+
+    try {
+      in = new ObjectInputStream(bais);
+      return (T) in.readObject();
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while de-serializing object", e);
+      return null;
+    } finally {
+      IOUtils.closeQuietly(in);
+      IOUtils.closeQuietly(bais);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.utils;
+
+import java.io.Serializable;
+
+
+/**
+ * Interface for serializing and de-serializing the values of OBJECT columns in a DataTable
+ * (intermediate aggregation results, group by result maps etc).
+ */
+public interface DataTableSerDe {
+
+  /**
+   * Returns the id of the serde, which is written into the DataTable header so that readers decode
+   * OBJECT columns with the same serde. Ids are part of the wire format and must never change.
+   *
+   * @return Id of the serde
+   */
+  int getId();
+
+  /**
+   * Serialize the given object into a byte array.
+   *
+   * @param object Object to serialize
+   * @return Serialized bytes
+   */
+  byte[] serialize(Object object);
+
+  /**
+   * De-serialize the given bytes, that were generated by {@link #serialize(Object)}.
+   *
+   * @param bytes Serialized bytes
+   * @param <T> Type of the de-serialized object
+   * @return De-serialized object
+   */
+  <T extends Serializable> T deserialize(byte[] bytes);
+}
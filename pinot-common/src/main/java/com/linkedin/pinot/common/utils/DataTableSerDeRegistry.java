@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.utils;
+
+import com.google.common.base.Preconditions;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Holds the DataTableSerDe used to encode OBJECT columns in DataTable version 2 and above, and
+ * all registered serdes by id, so that data tables are decoded with the serde recorded in their header.
+ *
+ * Servers and brokers register the custom serde on start up (the intermediate result classes
+ * live outside of pinot-common). Until then, java serialization is used.
+ */
+public class DataTableSerDeRegistry {
+  private static final DataTableSerDeRegistry INSTANCE = new DataTableSerDeRegistry();
+
+  private final Map<Integer, DataTableSerDe> _serDeMap = new ConcurrentHashMap<>();
+  private volatile DataTableSerDe _dataTableSerDe;
+
+  private DataTableSerDeRegistry() {
+    _dataTableSerDe = DataTableJavaSerDe.INSTANCE;
+    _serDeMap.put(DataTableJavaSerDe.ID, DataTableJavaSerDe.INSTANCE);
+  }
+
+  public static DataTableSerDeRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Register the serde to use for encoding OBJECT columns. It stays available for decoding by id
+   * even after another serde is registered.
+   *
+   * @param dataTableSerDe
+   */
+  public void register(DataTableSerDe dataTableSerDe) {
+    Preconditions.checkNotNull(dataTableSerDe);
+    _serDeMap.put(dataTableSerDe.getId(), dataTableSerDe);
+    _dataTableSerDe = dataTableSerDe;
+  }
+
+  /**
+   * Returns the registered serde, or java serialization based serde if none was registered.
+   *
+   * @return
+   */
+  public DataTableSerDe get() {
+    return _dataTableSerDe;
+  }
+
+  /**
+   * Returns the serde with the given id, to decode a data table encoded by it.
+   *
+   * @param id Id of the serde, as written in the data table header
+   * @return
+   * @throws IllegalStateException if no serde with the given id was registered
+   */
+  public DataTableSerDe get(int id) {
+    DataTableSerDe dataTableSerDe = _serDeMap.get(id);
+    if (dataTableSerDe == null) {
+      throw new IllegalStateException("No DataTableSerDe registered with id: " + id);
+    }
+    return dataTableSerDe;
+  }
+}
@@ -24,15 +24,78 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.request.FilterQuery;
 import com.linkedin.pinot.common.request.FilterQueryMap;
+import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TCompactProtocol;
 
 
 public class RequestUtils {
+  /**
+   * Returns a copy of the broker request without the fields that do not change the result (trace flag and response
+   * format), and with the filter query ids renumbered in depth first order, as ids are assigned arbitrarily by the
+   * compiler. Equal queries return equal normalized requests, which makes them suitable as cache keys.
+   *
+   * @param request Broker request
+   * @return Normalized copy of the broker request
+   */
+  public static BrokerRequest getNormalizedRequest(BrokerRequest request) {
+    BrokerRequest normalizedRequest = request.deepCopy();
+    normalizedRequest.unsetEnableTrace();
+    normalizedRequest.unsetResponseFormat();
+    if (normalizedRequest.isSetQueryOptions()) {
+      // Serialize the query options in a fixed order
+      normalizedRequest.setQueryOptions(new TreeMap<String, String>(normalizedRequest.getQueryOptions()));
+    }
+
+    FilterQuery filterQuery = normalizedRequest.getFilterQuery();
+    if (filterQuery != null && normalizedRequest.getFilterSubQueryMap() != null) {
+      Map<Integer, FilterQuery> filterQueryMap = normalizedRequest.getFilterSubQueryMap().getFilterQueryMap();
+      Map<Integer, FilterQuery> normalizedFilterQueryMap = new HashMap<Integer, FilterQuery>();
+      normalizedRequest.setFilterQuery(renumberFilterQuery(filterQuery, filterQueryMap, normalizedFilterQueryMap));
+      FilterQueryMap normalizedFilterSubQueryMap = new FilterQueryMap();
+      normalizedFilterSubQueryMap.setFilterQueryMap(normalizedFilterQueryMap);
+      normalizedRequest.setFilterSubQueryMap(normalizedFilterSubQueryMap);
+    }
+    return normalizedRequest;
+  }
+
+  /**
+   * Returns the serialized form of the normalized broker request, see {@link #getNormalizedRequest(BrokerRequest)}.
+   *
+   * @param request Broker request
+   * @return Serialized normalized broker request
+   * @throws TException
+   */
+  public static byte[] getNormalizedRequestBytes(BrokerRequest request) throws TException {
+    // TSerializer is not thread safe
+    return new TSerializer(new TCompactProtocol.Factory()).serialize(getNormalizedRequest(request));
+  }
+
+  private static FilterQuery renumberFilterQuery(FilterQuery filterQuery, Map<Integer, FilterQuery> filterQueryMap,
+      Map<Integer, FilterQuery> normalizedFilterQueryMap) {
+    int id = normalizedFilterQueryMap.size();
+    filterQuery.setId(id);
+    normalizedFilterQueryMap.put(id, filterQuery);
+    List<Integer> nestedFilterQueryIds = filterQuery.getNestedFilterQueryIds();
+    if (nestedFilterQueryIds != null) {
+      List<Integer> normalizedNestedFilterQueryIds = new ArrayList<Integer>(nestedFilterQueryIds.size());
+      for (Integer nestedFilterQueryId : nestedFilterQueryIds) {
+        FilterQuery nestedFilterQuery = filterQueryMap.get(nestedFilterQueryId);
+        normalizedNestedFilterQueryIds.add(
+            renumberFilterQuery(nestedFilterQuery, filterQueryMap, normalizedFilterQueryMap).getId());
+      }
+      filterQuery.setNestedFilterQueryIds(normalizedNestedFilterQueryIds);
+    }
+    return filterQuery;
+  }
+
   /**
    * Generates thrift compliant filterQuery and populate it in the broker request
    * @param filterQueryTree
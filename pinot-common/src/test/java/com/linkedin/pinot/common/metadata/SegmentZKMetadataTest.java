@@ -15,14 +15,19 @@
  */
 package com.linkedin.pinot.common.metadata;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.helix.ZNRecord;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import com.linkedin.pinot.common.segment.ColumnValueRange;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.Realtime.Status;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.SegmentType;
@@ -145,6 +150,11 @@ public class SegmentZKMetadataTest {
     record.setSimpleField(CommonConstants.Segment.Offline.DOWNLOAD_URL, "http://localhost:8000/testTable_O_3000_4000");
     record.setLongField(CommonConstants.Segment.Offline.PUSH_TIME, 4000);
     record.setLongField(CommonConstants.Segment.Offline.REFRESH_TIME, 8000);
+    Map<String, String> valueRange = new HashMap<String, String>();
+    valueRange.put(CommonConstants.Segment.COLUMN_DATA_TYPE, "LONG");
+    valueRange.put(CommonConstants.Segment.COLUMN_MIN_VALUE, "-5");
+    valueRange.put(CommonConstants.Segment.COLUMN_MAX_VALUE, "12345678901");
+    record.setMapField(CommonConstants.Segment.COLUMN_VALUE_RANGE_PREFIX + "memberId", valueRange);
     return record;
   }
 
@@ -163,6 +173,8 @@ public class SegmentZKMetadataTest {
     offlineSegmentMetadata.setDownloadUrl("http://localhost:8000/testTable_O_3000_4000");
     offlineSegmentMetadata.setPushTime(4000);
     offlineSegmentMetadata.setRefreshTime(8000);
+    offlineSegmentMetadata.setColumnValueRanges(Collections.singletonMap("memberId",
+        ColumnValueRange.fromStrings(FieldSpec.DataType.LONG, "-5", "12345678901")));
     return offlineSegmentMetadata;
   }
 }
@@ -21,6 +21,7 @@ import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -185,6 +186,59 @@ public class DataTableBuilderTest {
 
   }
 
+  @Test
+  public void testDirectBufferSerDe() throws Exception {
+    DataType[] columnTypes = new DataType[] { DataType.STRING, DataType.STRING_ARRAY, DataType.LONG };
+    String[] columnNames = new String[] { "col-0", "col-1", "col-2" };
+    DataSchema schema = new DataSchema(columnNames, columnTypes);
+    DataTableBuilder builder = new DataTableBuilder(schema);
+    builder.open();
+    Random r = new Random();
+    int NUM_ROWS = 100;
+    Object[] oStrings = new Object[NUM_ROWS];
+    Object[] oStringArrays = new Object[NUM_ROWS];
+    Object[] oLongs = new Object[NUM_ROWS];
+    for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+      builder.startRow();
+      oStrings[rowId] = new BigInteger(130, r).toString(32);
+      builder.setColumn(0, (String) oStrings[rowId]);
+      String[] arr = new String[r.nextInt(15)];
+      for (int j = 0; j < arr.length; j++) {
+        arr[j] = new BigInteger(130, r).toString(32);
+      }
+      oStringArrays[rowId] = arr;
+      builder.setColumn(1, arr);
+      long value = r.nextLong();
+      oLongs[rowId] = value;
+      builder.setColumn(2, value);
+      builder.finishRow();
+    }
+    builder.seal();
+    DataTable dataTable = builder.build();
+    dataTable.getMetadata().put("numDocsScanned", "100");
+
+    // Write the buffers into a direct buffer, after some unrelated bytes
+    byte[] bytes = dataTable.toBytes();
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+    direct.put(new byte[3]);
+    for (ByteBuffer buffer : dataTable.toByteBuffers()) {
+      direct.put(buffer);
+    }
+    direct.flip();
+    direct.position(3);
+    byte[] writtenBytes = new byte[bytes.length];
+    direct.duplicate().get(writtenBytes);
+    Assert.assertTrue(Arrays.equals(writtenBytes, bytes));
+
+    DataTable newDataTable = new DataTable(direct);
+    Assert.assertEquals(newDataTable.getMetadata().get("numDocsScanned"), "100");
+    for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+      validate(DataType.STRING, newDataTable, oStrings, rowId, 0);
+      validate(DataType.STRING_ARRAY, newDataTable, oStringArrays, rowId, 1);
+      validate(DataType.LONG, newDataTable, oLongs, rowId, 2);
+    }
+  }
+
   @Test
   public void testIntArray() throws Exception {
     DataType[] columnTypes = new DataType[] { DataType.INT_ARRAY };
@@ -329,6 +383,60 @@ public class DataTableBuilderTest {
     }
   }
 
+  /**
+   * Brokers must keep reading data tables in version 1 format (java serialized objects)
+   * from servers that have not been upgraded yet.
+   */
+  @Test
+  public void testVersion1Compatibility() throws Exception {
+    DataSchema schema = new DataSchema(new String[] { "functionName", "GroupByResultMap" },
+        new DataType[] { DataType.STRING, DataType.OBJECT });
+    DataTableBuilder builder = new DataTableBuilder(schema);
+    builder.open();
+    builder.startRow();
+    builder.setColumn(0, "sum_count");
+    HashMap<String, Serializable> map = new HashMap<String, Serializable>();
+    map.put("2358\tmember\t0", 4.0);
+    map.put("2359\tgroup\t3", new A(7));
+    builder.setColumn(1, map);
+    builder.finishRow();
+    builder.addMetaData("numDocsScanned", "25");
+    builder.seal();
+
+    // Without a registered custom serde, objects are java serialized, which is exactly the
+    // version 1 encoding.
+    byte[] bytes = builder.build().toBytes(DataTable.VERSION_1);
+
+    DataTable dataTable = new DataTable(bytes);
+    Assert.assertEquals("sum_count", dataTable.getString(0, 0));
+    Assert.assertEquals(map, dataTable.getObject(0, 1));
+    Assert.assertEquals("25", dataTable.getMetadata().get("numDocsScanned"));
+    Assert.assertTrue(Arrays.equals(bytes, dataTable.toBytes()));
+  }
+
+  @Test
+  public void testUnknownSerDeId() throws Exception {
+    DataSchema schema = new DataSchema(new String[] { "result" }, new DataType[] { DataType.OBJECT });
+    DataTableBuilder builder = new DataTableBuilder(schema);
+    builder.open();
+    builder.startRow();
+    builder.setColumn(0, (Object) 1.5);
+    builder.finishRow();
+    builder.seal();
+
+    // The serde id follows the version in the header.
+    byte[] bytes = builder.build().toBytes();
+    ByteBuffer.wrap(bytes).putInt(4, 42);
+
+    DataTable dataTable = new DataTable(bytes);
+    try {
+      dataTable.getObject(0, 0);
+      Assert.fail("Expected IllegalStateException for unknown serde id");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+  }
+
   @Test
   public void testSerDeserSpeed() throws Exception {
 
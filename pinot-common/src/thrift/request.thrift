@@ -125,6 +125,7 @@ struct BrokerRequest {
  10: optional string bucketHashKey;
  11: optional bool enableTrace;
  12: optional string responseFormat;
+ 13: optional map<string,string> queryOptions;
 }
 
 /**
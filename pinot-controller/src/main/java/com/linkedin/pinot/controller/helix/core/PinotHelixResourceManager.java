@@ -1141,6 +1141,7 @@ public class PinotHelixResourceManager {
           offlineSegmentZKMetadata.setDownloadUrl(downloadUrl);
           offlineSegmentZKMetadata.setRefreshTime(System.currentTimeMillis());
           ZKMetadataProvider.setOfflineSegmentZKMetadata(_propertyStore, offlineSegmentZKMetadata);
+          ZKMetadataProvider.notifyOfflineSegmentRefresh(_propertyStore, tableName, segmentName);
           LOGGER.info("Refresh segment {} of table {} to propertystore ", segmentName, tableName);
           boolean success = true;
           if (shouldSendMessage(offlineSegmentZKMetadata)) {
@@ -15,11 +15,13 @@
  */
 package com.linkedin.pinot.controller.helix.retention;
 
+import com.linkedin.pinot.common.segment.ColumnValueRange;
 import com.linkedin.pinot.common.segment.StarTreeMetadata;
 import com.linkedin.pinot.common.utils.time.TimeUtils;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -432,6 +434,11 @@ public class RetentionManagerTest {
         return null;
       }
 
+      @Override
+      public Map<String, ColumnValueRange> getColumnValueRanges() {
+        return Collections.emptyMap();
+      }
+
       @Override
       public boolean close() {
         return false;
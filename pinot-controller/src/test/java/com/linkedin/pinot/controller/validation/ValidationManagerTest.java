@@ -15,8 +15,10 @@
  */
 package com.linkedin.pinot.controller.validation;
 
+import com.linkedin.pinot.common.segment.ColumnValueRange;
 import com.linkedin.pinot.common.segment.StarTreeMetadata;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -441,6 +443,11 @@ public class ValidationManagerTest {
       return null;
     }
 
+    @Override
+    public Map<String, ColumnValueRange> getColumnValueRanges() {
+      return Collections.emptyMap();
+    }
+
     @Override
     public String getForwardIndexFileName(String column, String segmentVersion) {
       // TODO Auto-generated method stub
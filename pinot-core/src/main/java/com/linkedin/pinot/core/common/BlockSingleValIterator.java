@@ -46,5 +46,9 @@ public abstract class BlockSingleValIterator implements BlockValIterator {
     throw new UnsupportedOperationException();
   }
 
+  public String nextStringVal(){
+    throw new UnsupportedOperationException();
+  }
+
 
 }
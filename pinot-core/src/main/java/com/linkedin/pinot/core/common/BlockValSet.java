@@ -41,4 +41,16 @@ public interface BlockValSet {
    */
   void readIntValues(int[] inDocIds, int inStartPos, int inDocIdsSize, int[] outDictionaryIds, int outStartPos);
 
+  /**
+   * Copies the values for the input range DocIds as doubles, read through the dictionary if the column has one.
+   * For multi-value columns, the first value of each doc is read.
+   * Expects that the out array is properly sized
+   * @param inDocIds input set of doc ids for which to read values
+   * @param inStartPos start index in inDocIds
+   * @param inDocIdsSize size of inDocIds
+   * @param outValues out parameter giving the values corresponding to input docIds
+   * @param outStartPos starting index position in outValues
+   */
+  void readDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos);
+
 }
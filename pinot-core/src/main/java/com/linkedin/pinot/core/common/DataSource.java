@@ -16,6 +16,8 @@
 package com.linkedin.pinot.core.common;
 
 import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
@@ -28,4 +30,18 @@ public abstract class DataSource extends BaseOperator {
   public abstract InvertedIndexReader getInvertedIndex();
 
   public abstract Dictionary getDictionary();
+
+  /**
+   * @return range index for the column, null if there is none
+   */
+  public BitmapRangeIndexReader getRangeIndex() {
+    return null;
+  }
+
+  /**
+   * @return bloom filter for the column, null if there is none
+   */
+  public BloomFilterReader getBloomFilter() {
+    return null;
+  }
 }
@@ -0,0 +1,357 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common.datatable;
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.linkedin.pinot.common.Utils;
+import com.linkedin.pinot.common.utils.DataTableJavaSerDe;
+import com.linkedin.pinot.common.utils.DataTableSerDe;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction.AvgPair;
+import com.linkedin.pinot.core.query.aggregation.function.MinMaxRangeAggregationFunction.MinMaxRangePair;
+import com.linkedin.pinot.core.query.aggregation.function.quantile.digest.QuantileDigest;
+import com.linkedin.pinot.core.query.utils.Pair;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * DataTableSerDe with a compact binary encoding for the known intermediate results
+ * (aggregation results and group by result maps), so that the broker does not have to go through
+ * java serialization for each OBJECT value in the DataTable.
+ *
+ * Each value is encoded as a one byte {@link ObjectType} followed by the type specific payload.
+ * Objects of any other type are encoded with java serialization.
+ */
+public class DataTableCustomSerDe implements DataTableSerDe {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  public static final int ID = 1;
+  public static final DataTableCustomSerDe INSTANCE = new DataTableCustomSerDe();
+
+  /**
+   * Type of the encoded object. The values are part of the wire format and must never change.
+   */
+  enum ObjectType {
+    JAVA_SERIALIZED(0),
+    STRING(1),
+    INTEGER(2),
+    LONG(3),
+    DOUBLE(4),
+    AVG_PAIR(5),
+    MIN_MAX_RANGE_PAIR(6),
+    DOUBLE_LONG_PAIR(7),
+    DOUBLE_DOUBLE_PAIR(8),
+    HYPER_LOG_LOG(9),
+    QUANTILE_DIGEST(10),
+    INT_OPEN_HASH_SET(11),
+    DOUBLE_ARRAY_LIST(12),
+    MAP(13);
+
+    private static final ObjectType[] VALUES = values();
+
+    private final byte _value;
+
+    ObjectType(int value) {
+      _value = (byte) value;
+    }
+
+    static ObjectType fromValue(byte value) {
+      if (value < 0 || value >= VALUES.length) {
+        throw new IllegalArgumentException("Unsupported object type: " + value);
+      }
+      return VALUES[value];
+    }
+  }
+
+  @Override
+  public int getId() {
+    return ID;
+  }
+
+  @Override
+  public byte[] serialize(Object object) {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bos);
+    try {
+      writeObject(out, object);
+      out.flush();
+    } catch (IOException e) {
+      Utils.rethrowException(e);
+    }
+    return bos.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T extends Serializable> T deserialize(byte[] bytes) {
+    try {
+      return (T) readObject(ByteBuffer.wrap(bytes), bytes);
+    } catch (IOException e) {
+      Utils.rethrowException(e);
+      return null;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void writeObject(DataOutputStream out, Object object)
+      throws IOException {
+    ObjectType objectType = getObjectType(object);
+    out.writeByte(objectType._value);
+
+    switch (objectType) {
+      case STRING:
+        writeString(out, (String) object);
+        break;
+
+      case INTEGER:
+        out.writeInt((Integer) object);
+        break;
+
+      case LONG:
+        out.writeLong((Long) object);
+        break;
+
+      case DOUBLE:
+        out.writeDouble((Double) object);
+        break;
+
+      case AVG_PAIR:
+      case DOUBLE_LONG_PAIR:
+        Pair<Double, Long> doubleLongPair = (Pair<Double, Long>) object;
+        out.writeDouble(doubleLongPair.getFirst());
+        out.writeLong(doubleLongPair.getSecond());
+        break;
+
+      case MIN_MAX_RANGE_PAIR:
+      case DOUBLE_DOUBLE_PAIR:
+        Pair<Double, Double> doubleDoublePair = (Pair<Double, Double>) object;
+        out.writeDouble(doubleDoublePair.getFirst());
+        out.writeDouble(doubleDoublePair.getSecond());
+        break;
+
+      case HYPER_LOG_LOG:
+        byte[] hllBytes = ((HyperLogLog) object).getBytes();
+        out.writeInt(hllBytes.length);
+        out.write(hllBytes);
+        break;
+
+      case QUANTILE_DIGEST:
+        ((QuantileDigest) object).serialize(out);
+        break;
+
+      case INT_OPEN_HASH_SET:
+        IntOpenHashSet intSet = (IntOpenHashSet) object;
+        out.writeInt(intSet.size());
+        IntIterator intIterator = intSet.iterator();
+        while (intIterator.hasNext()) {
+          out.writeInt(intIterator.nextInt());
+        }
+        break;
+
+      case DOUBLE_ARRAY_LIST:
+        DoubleArrayList doubleList = (DoubleArrayList) object;
+        int size = doubleList.size();
+        double[] elements = doubleList.elements();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+          out.writeDouble(elements[i]);
+        }
+        break;
+
+      case MAP:
+        Map<String, Object> map = (Map<String, Object>) object;
+        out.writeInt(map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+          writeString(out, entry.getKey());
+          writeObject(out, entry.getValue());
+        }
+        break;
+
+      case JAVA_SERIALIZED:
+        byte[] javaBytes = DataTableJavaSerDe.INSTANCE.serialize(object);
+        out.writeInt(javaBytes.length);
+        out.write(javaBytes);
+        break;
+
+      default:
+        throw new IllegalStateException("Unsupported object type: " + objectType);
+    }
+  }
+
+  private Object readObject(ByteBuffer input, byte[] bytes)
+      throws IOException {
+    ObjectType objectType = ObjectType.fromValue(input.get());
+
+    switch (objectType) {
+      case STRING:
+        return readString(input, bytes);
+
+      case INTEGER:
+        return input.getInt();
+
+      case LONG:
+        return input.getLong();
+
+      case DOUBLE:
+        return input.getDouble();
+
+      case AVG_PAIR:
+        return new AvgPair(input.getDouble(), input.getLong());
+
+      case DOUBLE_LONG_PAIR:
+        return new Pair<>(input.getDouble(), input.getLong());
+
+      case MIN_MAX_RANGE_PAIR:
+        return new MinMaxRangePair(input.getDouble(), input.getDouble());
+
+      case DOUBLE_DOUBLE_PAIR:
+        return new Pair<>(input.getDouble(), input.getDouble());
+
+      case HYPER_LOG_LOG:
+        byte[] hllBytes = new byte[input.getInt()];
+        input.get(hllBytes);
+        return HyperLogLog.Builder.build(hllBytes);
+
+      case QUANTILE_DIGEST:
+        ByteArrayInputStream bais = new ByteArrayInputStream(bytes, input.position(), input.remaining());
+        QuantileDigest quantileDigest = QuantileDigest.deserialize(new DataInputStream(bais));
+        input.position(bytes.length - bais.available());
+        return quantileDigest;
+
+      case INT_OPEN_HASH_SET:
+        int numInts = input.getInt();
+        IntOpenHashSet intSet = new IntOpenHashSet(numInts);
+        for (int i = 0; i < numInts; i++) {
+          intSet.add(input.getInt());
+        }
+        return intSet;
+
+      case DOUBLE_ARRAY_LIST:
+        int numDoubles = input.getInt();
+        double[] elements = new double[numDoubles];
+        for (int i = 0; i < numDoubles; i++) {
+          elements[i] = input.getDouble();
+        }
+        return DoubleArrayList.wrap(elements);
+
+      case MAP:
+        int numEntries = input.getInt();
+        Map<String, Serializable> map = new HashMap<>(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+          String key = readString(input, bytes);
+          map.put(key, (Serializable) readObject(input, bytes));
+        }
+        return map;
+
+      case JAVA_SERIALIZED:
+        byte[] javaBytes = new byte[input.getInt()];
+        input.get(javaBytes);
+        return DataTableJavaSerDe.INSTANCE.deserialize(javaBytes);
+
+      default:
+        throw new IllegalStateException("Unsupported object type: " + objectType);
+    }
+  }
+
+  /**
+   * Returns the type to use for encoding the given object. Only exact class matches use the
+   * custom encoding, so that sub-classes are not silently converted into their parent class.
+   *
+   * @param object
+   * @return
+   */
+  private static ObjectType getObjectType(Object object) {
+    if (object == null) {
+      return ObjectType.JAVA_SERIALIZED;
+    }
+
+    Class<?> objectClass = object.getClass();
+    if (objectClass == String.class) {
+      return ObjectType.STRING;
+    } else if (objectClass == Integer.class) {
+      return ObjectType.INTEGER;
+    } else if (objectClass == Long.class) {
+      return ObjectType.LONG;
+    } else if (objectClass == Double.class) {
+      return ObjectType.DOUBLE;
+    } else if (objectClass == AvgPair.class) {
+      return isDoubleLongPair((Pair) object) ? ObjectType.AVG_PAIR : ObjectType.JAVA_SERIALIZED;
+    } else if (objectClass == MinMaxRangePair.class) {
+      return isDoubleDoublePair((Pair) object) ? ObjectType.MIN_MAX_RANGE_PAIR : ObjectType.JAVA_SERIALIZED;
+    } else if (objectClass == Pair.class) {
+      Pair pair = (Pair) object;
+      if (isDoubleLongPair(pair)) {
+        return ObjectType.DOUBLE_LONG_PAIR;
+      } else if (isDoubleDoublePair(pair)) {
+        return ObjectType.DOUBLE_DOUBLE_PAIR;
+      }
+      return ObjectType.JAVA_SERIALIZED;
+    } else if (objectClass == HyperLogLog.class) {
+      return ObjectType.HYPER_LOG_LOG;
+    } else if (objectClass == QuantileDigest.class) {
+      return ObjectType.QUANTILE_DIGEST;
+    } else if (objectClass == IntOpenHashSet.class) {
+      return ObjectType.INT_OPEN_HASH_SET;
+    } else if (objectClass == DoubleArrayList.class) {
+      return ObjectType.DOUBLE_ARRAY_LIST;
+    } else if (objectClass == HashMap.class && hasStringKeys((Map) object)) {
+      return ObjectType.MAP;
+    }
+    return ObjectType.JAVA_SERIALIZED;
+  }
+
+  private static boolean isDoubleLongPair(Pair pair) {
+    return pair.getFirst() instanceof Double && pair.getSecond() instanceof Long;
+  }
+
+  private static boolean isDoubleDoublePair(Pair pair) {
+    return pair.getFirst() instanceof Double && pair.getSecond() instanceof Double;
+  }
+
+  private static boolean hasStringKeys(Map<?, ?> map) {
+    for (Object key : map.keySet()) {
+      if (!(key instanceof String)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void writeString(DataOutputStream out, String value)
+      throws IOException {
+    byte[] bytes = value.getBytes(UTF8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer input, byte[] bytes) {
+    int length = input.getInt();
+    int position = input.position();
+    input.position(position + length);
+    return new String(bytes, position, length, UTF8);
+  }
+}
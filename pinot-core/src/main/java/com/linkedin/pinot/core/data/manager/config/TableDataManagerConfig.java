@@ -110,6 +110,10 @@ public class TableDataManagerConfig {
     _tableDataManagerConfig.setProperty(TABLE_DATA_MANAGER_NAME, tableConfig.getTableName());
     _tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.getKeyOfLoadingInvertedIndex(),
         tableConfig.getIndexingConfig().getInvertedIndexColumns());
+    _tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.getKeyOfLoadingRangeIndex(),
+        tableConfig.getIndexingConfig().getRangeIndexColumns());
+    _tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.getKeyOfLoadingBloomFilter(),
+        tableConfig.getIndexingConfig().getBloomFilterColumns());
     String segmentVersionKey = IndexLoadingConfigMetadata.KEY_OF_SEGMENT_FORMAT_VERSION;
     // Server configuration is always to DEFAULT or configured value
     // Apply table configuration only if the server configuration is set with table config
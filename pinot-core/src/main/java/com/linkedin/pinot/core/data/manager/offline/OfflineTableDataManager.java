@@ -24,6 +24,7 @@ import com.linkedin.pinot.common.metadata.segment.SegmentZKMetadata;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.query.executor.SegmentResultCache;
 
 
 /**
@@ -50,6 +51,21 @@ public class OfflineTableDataManager extends AbstractTableDataManager {
     addSegment(indexSegment);
   }
 
+  /**
+   * Adds or replaces the segment, and drops the cached results of the replaced segment.
+   */
+  @Override
+  public void addSegment(IndexSegment indexSegmentToAdd) {
+    super.addSegment(indexSegmentToAdd);
+    SegmentResultCache.getInstance().invalidate(indexSegmentToAdd.getSegmentName());
+  }
+
+  @Override
+  public void removeSegment(String segmentName) {
+    super.removeSegment(segmentName);
+    SegmentResultCache.getInstance().invalidate(segmentName);
+  }
+
   @Override
   public void addSegment(ZkHelixPropertyStore<ZNRecord> propertyStore, AbstractTableConfig tableConfig,
       InstanceZKMetadata instanceZKMetadata, SegmentZKMetadata segmentZKMetadata) throws Exception {
@@ -58,6 +58,7 @@ import com.linkedin.pinot.core.segment.index.loader.Loaders;
 public class RealtimeSegmentDataManager extends SegmentDataManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(RealtimeSegmentDataManager.class);
   private final static long ONE_MINUTE_IN_MILLSEC = 1000 * 60;
+  private final static long INDEXING_THREAD_JOIN_TIMEOUT_MILLIS = 10000L;
 
   private final String tableName;
   private final String segmentName;
@@ -84,9 +85,14 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
   private final ServerMetrics serverMetrics;
   private final RealtimeTableDataManager notifier;
   private Thread indexingThread;
+  // Guarded by lock. Once destroy() is called, the realtime segment is destroyed by whichever of destroy() and
+  // the exiting indexing thread comes last, so that it is never destroyed while the indexing thread writes into it.
+  private boolean indexingThreadExited = false;
+  private boolean destroySegmentOnIndexingThreadExit = false;
 
   private final String sortedColumn;
   private final List<String> invertedIndexColumns;
+  private final List<String> noDictionaryColumns;
   private Logger segmentLogger = LOGGER;
 
   // An instance of this class exists only for the duration of the realtime segment that is currently being consumed.
@@ -121,6 +127,7 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
     }
     //inverted index columns
     invertedIndexColumns = indexingConfig.getInvertedIndexColumns();
+    noDictionaryColumns = indexingConfig.getNoDictionaryColumns();
 
     this.segmentMetatdaZk = segmentMetadata;
 
@@ -152,7 +159,8 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
     // lets create a new realtime segment
     segmentLogger.info("Started kafka stream provider");
     realtimeSegment = new RealtimeSegmentImpl(schema, kafkaStreamProviderConfig.getSizeThresholdToFlushSegment(), tableName,
-        segmentMetadata.getSegmentName(), kafkaStreamProviderConfig.getStreamName(), serverMetrics);
+        segmentMetadata.getSegmentName(), kafkaStreamProviderConfig.getStreamName(), serverMetrics,
+        indexingConfig.isOffHeapRealtimeDictionary());
     realtimeSegment.setSegmentMetadata(segmentMetadata, this.schema);
     notifier = realtimeResourceManager;
 
@@ -164,7 +172,7 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
     };
 
     // start the indexing thread
-    indexingThread = new Thread(new Runnable() {
+    final Runnable indexingTask = new Runnable() {
       @Override
       public void run() {
         // continue indexing until criteria is met
@@ -237,7 +245,8 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
           // lets convert the segment now
           RealtimeSegmentConverter converter =
               new RealtimeSegmentConverter(realtimeSegment, tempSegmentFolder.getAbsolutePath(), schema,
-                  segmentMetadata.getTableName(), segmentMetadata.getSegmentName(), sortedColumn, invertedIndexColumns);
+                  segmentMetadata.getTableName(), segmentMetadata.getSegmentName(), sortedColumn, invertedIndexColumns,
+                  noDictionaryColumns);
 
           segmentLogger.info("Trying to build segment");
           final long buildStartTime = System.nanoTime();
@@ -346,6 +355,16 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
           segmentLogger.error("Caught exception in the realtime indexing thread", e);
         }
       }
+    };
+    indexingThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          indexingTask.run();
+        } finally {
+          onIndexingThreadExit();
+        }
+      }
     });
 
     indexingThread.start();
@@ -407,6 +426,34 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
     }
     keepIndexing = false;
     segmentStatusTask.cancel();
+
+    // The indexing thread calls destroy() itself when the committed segment replaces this one, otherwise it may
+    // still be writing into the realtime segment, so wait for it to exit before releasing the segment's memory.
+    if (Thread.currentThread() != indexingThread) {
+      try {
+        indexingThread.join(INDEXING_THREAD_JOIN_TIMEOUT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      synchronized (lock) {
+        if (!indexingThreadExited) {
+          LOGGER.warn("Indexing thread for segment {} is still running, it will destroy the segment on exit",
+              segmentName);
+          destroySegmentOnIndexingThreadExit = true;
+          return;
+        }
+      }
+    }
     realtimeSegment.destroy();
   }
+
+  private void onIndexingThreadExit() {
+    synchronized (lock) {
+      indexingThreadExited = true;
+      if (destroySegmentOnIndexingThreadExit) {
+        segmentLogger.info("Destroying realtime segment on indexing thread exit");
+        realtimeSegment.destroy();
+      }
+    }
+  }
 }
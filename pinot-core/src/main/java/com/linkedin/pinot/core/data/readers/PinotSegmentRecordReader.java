@@ -43,9 +43,9 @@ import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.FixedByteSingleValueMultiColReader;
 import com.linkedin.pinot.core.io.reader.impl.SortedForwardIndexReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitMultiValueReader;
-import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
@@ -113,8 +113,7 @@ public class PinotSegmentRecordReader extends BaseRecordReader {
       if (columnMetadataFor.isSingleValue() && !columnMetadataFor.isSorted()) {
         PinotDataBuffer fwdIndexBuffer = reader.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
         SingleColumnSingleValueReader fwdIndexReader =
-            new FixedBitSingleValueReader(fwdIndexBuffer, columnMetadataFor.getTotalDocs(),
-                columnMetadataFor.getBitsPerElement(), columnMetadataFor.hasNulls());
+            ColumnIndexContainer.loadUnsortedForwardIndex(columnMetadataFor, fwdIndexBuffer);
         singleValueReaderMap.put(column, fwdIndexReader);
 
       } else if (columnMetadataFor.isSingleValue() && columnMetadataFor.isSorted()) {
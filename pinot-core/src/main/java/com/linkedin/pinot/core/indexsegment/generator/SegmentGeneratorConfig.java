@@ -48,6 +48,10 @@ public class SegmentGeneratorConfig {
 
   private Map<String, String> _customProperties = new HashMap<>();
   private List<String> _invertedIndexCreationColumns = new ArrayList<>();
+  private List<String> _rawIndexCreationColumns = new ArrayList<>();
+  private List<String> _rangeIndexCreationColumns = new ArrayList<>();
+  private List<String> _bloomFilterCreationColumns = new ArrayList<>();
+  private List<String> _blockMinMaxColumns = new ArrayList<>();
   private String _dataDir = null;
   private String _inputFilePath = null;
   private FileFormat _format = FileFormat.AVRO;
@@ -77,6 +81,10 @@ public class SegmentGeneratorConfig {
     Preconditions.checkNotNull(config);
     _customProperties.putAll(config._customProperties);
     _invertedIndexCreationColumns.addAll(config._invertedIndexCreationColumns);
+    _rawIndexCreationColumns.addAll(config._rawIndexCreationColumns);
+    _rangeIndexCreationColumns.addAll(config._rangeIndexCreationColumns);
+    _bloomFilterCreationColumns.addAll(config._bloomFilterCreationColumns);
+    _blockMinMaxColumns.addAll(config._blockMinMaxColumns);
     _dataDir = config._dataDir;
     _inputFilePath = config._inputFilePath;
     _format = config._format;
@@ -149,6 +157,55 @@ public class SegmentGeneratorConfig {
     }
   }
 
+  /**
+   * Columns stored as raw values (fixed width for numbers, compressed chunks for strings), without a dictionary.
+   */
+  public List<String> getRawIndexCreationColumns() {
+    return _rawIndexCreationColumns;
+  }
+
+  public void setRawIndexCreationColumns(List<String> rawIndexCreationColumns) {
+    Preconditions.checkNotNull(rawIndexCreationColumns);
+    _rawIndexCreationColumns.addAll(rawIndexCreationColumns);
+  }
+
+  /**
+   * Columns to build a range index for. Only applies to unsorted single value columns with a dictionary.
+   */
+  public List<String> getRangeIndexCreationColumns() {
+    return _rangeIndexCreationColumns;
+  }
+
+  public void setRangeIndexCreationColumns(List<String> rangeIndexCreationColumns) {
+    Preconditions.checkNotNull(rangeIndexCreationColumns);
+    _rangeIndexCreationColumns.addAll(rangeIndexCreationColumns);
+  }
+
+  /**
+   * Columns to build a bloom filter for, used to prune segments on EQ and IN predicates.
+   */
+  public List<String> getBloomFilterCreationColumns() {
+    return _bloomFilterCreationColumns;
+  }
+
+  public void setBloomFilterCreationColumns(List<String> bloomFilterCreationColumns) {
+    Preconditions.checkNotNull(bloomFilterCreationColumns);
+    _bloomFilterCreationColumns.addAll(bloomFilterCreationColumns);
+  }
+
+  /**
+   * Columns to write the forward index in the v3 format for, which keeps the min and max dictionary id of each block
+   * of rows so that scans can skip blocks. Only applies to unsorted single value columns with a dictionary.
+   */
+  public List<String> getBlockMinMaxColumns() {
+    return _blockMinMaxColumns;
+  }
+
+  public void setBlockMinMaxColumns(List<String> blockMinMaxColumns) {
+    Preconditions.checkNotNull(blockMinMaxColumns);
+    _blockMinMaxColumns.addAll(blockMinMaxColumns);
+  }
+
   public String getDataDir() {
     return _dataDir;
   }
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import java.io.IOException;
+
+
+/**
+ * Compresses and decompresses chunks of a chunked forward index.
+ */
+public interface ChunkCompressor {
+
+  /**
+   * Compresses the first inputLength bytes of the input into the output.
+   *
+   * @param input Uncompressed data
+   * @param inputLength Number of bytes to compress
+   * @param output Array to write the compressed data into, must be at least maxCompressedLength(inputLength) long
+   * @return Size of the compressed data
+   * @throws IOException
+   */
+  int compress(byte[] input, int inputLength, byte[] output)
+      throws IOException;
+
+  /**
+   * Decompresses inputLength bytes of the input starting at inputOffset into the output.
+   *
+   * @param input Compressed data
+   * @param inputOffset Offset of the compressed data in the input
+   * @param inputLength Size of the compressed data
+   * @param output Array to write the uncompressed data into, must be large enough to hold the whole chunk
+   * @return Size of the uncompressed data
+   * @throws IOException
+   */
+  int decompress(byte[] input, int inputOffset, int inputLength, byte[] output)
+      throws IOException;
+
+  /**
+   * Returns the maximum size of the compressed data for the given uncompressed size.
+   *
+   * @param uncompressedLength
+   * @return
+   */
+  int maxCompressedLength(int uncompressedLength);
+}
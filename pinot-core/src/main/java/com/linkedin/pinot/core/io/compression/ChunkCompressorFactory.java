@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+/**
+ * Factory for chunk compressors. The compression type is stored in the header of chunked indexes, so the values of
+ * existing types must not change.
+ */
+public class ChunkCompressorFactory {
+
+  public enum CompressionType {
+    PASS_THROUGH(0),
+    SNAPPY(1);
+
+    private final int _value;
+
+    CompressionType(int value) {
+      _value = value;
+    }
+
+    public int getValue() {
+      return _value;
+    }
+
+    public static CompressionType fromValue(int value) {
+      for (CompressionType compressionType : values()) {
+        if (compressionType._value == value) {
+          return compressionType;
+        }
+      }
+      throw new IllegalArgumentException("Unknown compression type: " + value);
+    }
+  }
+
+  private ChunkCompressorFactory() {
+  }
+
+  public static ChunkCompressor getCompressor(CompressionType compressionType) {
+    switch (compressionType) {
+      case PASS_THROUGH:
+        return new PassThroughCompressor();
+      case SNAPPY:
+        return new SnappyCompressor();
+      default:
+        throw new IllegalArgumentException("Unsupported compression type: " + compressionType);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import java.io.IOException;
+import org.xerial.snappy.Snappy;
+
+
+/**
+ * Chunk compressor using Snappy.
+ */
+public class SnappyCompressor implements ChunkCompressor {
+
+  @Override
+  public int compress(byte[] input, int inputLength, byte[] output)
+      throws IOException {
+    return Snappy.compress(input, 0, inputLength, output, 0);
+  }
+
+  @Override
+  public int decompress(byte[] input, int inputOffset, int inputLength, byte[] output)
+      throws IOException {
+    return Snappy.uncompress(input, inputOffset, inputLength, output, 0);
+  }
+
+  @Override
+  public int maxCompressedLength(int uncompressedLength) {
+    return Snappy.maxCompressedLength(uncompressedLength);
+  }
+}
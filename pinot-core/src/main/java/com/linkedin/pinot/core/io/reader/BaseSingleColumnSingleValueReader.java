@@ -72,4 +72,8 @@ public abstract class BaseSingleColumnSingleValueReader<T extends ReaderContext>
     throw new UnsupportedOperationException();
   }
 
+  public String getString(int rowId, T context) {
+    throw new UnsupportedOperationException();
+  }
+
 }
@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.reader.impl.v1;
+
+import com.linkedin.pinot.core.io.reader.ReaderContext;
+
+
+/**
+ * Caches the last decompressed chunk of a chunked forward index, so that reading rows of the same chunk does not
+ * decompress it again. A context must not be shared between threads.
+ */
+public class ChunkReaderContext implements ReaderContext {
+  int chunkId = -1;
+  int chunkSize;
+  final byte[] chunk;
+  byte[] compressedChunk = new byte[0];
+
+  ChunkReaderContext(int maxChunkSize) {
+    chunk = new byte[maxChunkSize];
+  }
+}
@@ -56,6 +56,21 @@ public class FixedByteSingleValueReader extends BaseSingleColumnSingleValueReade
     return dataFileReader.getInt(row, 0);
   }
 
+  @Override
+  public long getLong(int row) {
+    return dataFileReader.getLong(row, 0);
+  }
+
+  @Override
+  public float getFloat(int row) {
+    return dataFileReader.getFloat(row, 0);
+  }
+
+  @Override
+  public double getDouble(int row) {
+    return dataFileReader.getDouble(row, 0);
+  }
+
   @Override
   public void readValues(int[] rows, int rowStartPos, int rowSize, int[] values, int valuesStartPos) {
     dataFileReader.readIntValues(rows, 0, rowStartPos, rowSize, values, valuesStartPos);
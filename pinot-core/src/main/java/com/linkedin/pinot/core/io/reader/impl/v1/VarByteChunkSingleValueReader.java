@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.reader.impl.v1;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.io.compression.ChunkCompressor;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.reader.BaseSingleColumnSingleValueReader;
+import com.linkedin.pinot.core.io.writer.impl.v1.VarByteChunkSingleValueWriter;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.IOException;
+
+
+/**
+ * Reader for the chunked, compressed string forward index written by {@link VarByteChunkSingleValueWriter}.
+ *
+ * Reading a value decompresses the chunk that contains it into the given {@link ChunkReaderContext}, and subsequent
+ * reads of rows in the same chunk are served from the context.
+ */
+public class VarByteChunkSingleValueReader extends BaseSingleColumnSingleValueReader<ChunkReaderContext> {
+  private final PinotDataBuffer _dataBuffer;
+  private final ChunkCompressor _compressor;
+  private final int _numChunks;
+  private final int _numRowsPerChunk;
+  private final int _maxChunkSize;
+  private final int[] _chunkOffsets;
+
+  public VarByteChunkSingleValueReader(PinotDataBuffer dataBuffer) {
+    _dataBuffer = dataBuffer;
+    int version = dataBuffer.getInt(0);
+    Preconditions.checkState(version == VarByteChunkSingleValueWriter.VERSION, "Unsupported version: %s", version);
+    _compressor =
+        ChunkCompressorFactory.getCompressor(ChunkCompressorFactory.CompressionType.fromValue(dataBuffer.getInt(4)));
+    _numChunks = dataBuffer.getInt(8);
+    _numRowsPerChunk = dataBuffer.getInt(12);
+    _maxChunkSize = dataBuffer.getInt(16);
+
+    // One more offset for the end of the last chunk, so that the compressed size of any chunk is the difference of two
+    // consecutive offsets.
+    _chunkOffsets = new int[_numChunks + 1];
+    for (int i = 0; i < _numChunks; i++) {
+      _chunkOffsets[i] = dataBuffer.getInt(VarByteChunkSingleValueWriter.HEADER_SIZE + i * 4);
+    }
+    _chunkOffsets[_numChunks] = (int) dataBuffer.size();
+  }
+
+  @Override
+  public ChunkReaderContext createContext() {
+    return new ChunkReaderContext(_maxChunkSize);
+  }
+
+  /**
+   * Reads the value without caching the decompressed chunk. Use {@link #getString(int, ChunkReaderContext)} when
+   * reading multiple rows.
+   */
+  @Override
+  public String getString(int row) {
+    return getString(row, createContext());
+  }
+
+  @Override
+  public String getString(int row, ChunkReaderContext context) {
+    int chunkId = row / _numRowsPerChunk;
+    if (context.chunkId != chunkId) {
+      decompressChunk(chunkId, context);
+    }
+
+    byte[] chunk = context.chunk;
+    int rowInChunk = row % _numRowsPerChunk;
+    int valueStart = getInt(chunk, rowInChunk * 4);
+    // Values start right after the value offsets, so the first value offset gives the number of rows in the chunk.
+    int numRowsInChunk = getInt(chunk, 0) / 4;
+    int valueEnd;
+    if (rowInChunk == numRowsInChunk - 1) {
+      valueEnd = context.chunkSize;
+    } else {
+      valueEnd = getInt(chunk, (rowInChunk + 1) * 4);
+    }
+    return new String(chunk, valueStart, valueEnd - valueStart, VarByteChunkSingleValueWriter.UTF_8);
+  }
+
+  private void decompressChunk(int chunkId, ChunkReaderContext context) {
+    int compressedSize = _chunkOffsets[chunkId + 1] - _chunkOffsets[chunkId];
+    if (compressedSize > context.compressedChunk.length) {
+      context.compressedChunk = new byte[compressedSize];
+    }
+    _dataBuffer.copyTo(_chunkOffsets[chunkId], context.compressedChunk, 0, compressedSize);
+    try {
+      context.chunkSize = _compressor.decompress(context.compressedChunk, 0, compressedSize, context.chunk);
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while decompressing chunk: " + chunkId, e);
+    }
+    context.chunkId = chunkId;
+  }
+
+  private static int getInt(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8)
+        | (bytes[offset + 3] & 0xFF);
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _dataBuffer.close();
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.reader.impl.v3;
+
+import com.linkedin.pinot.core.io.reader.BaseSingleColumnSingleValueReader;
+import com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.IOException;
+import java.util.Arrays;
+import me.lemire.integercompression.BitPacking;
+
+
+/**
+ * Reads integers written by {@link FixedBitSingleValueWriter}.
+ *
+ * Unlike the v2 reader, single values are extracted directly from the one or two words holding them (no ThreadLocal
+ * unpack buffer), and batch reads unpack whole groups of 32 values with the unrolled kernels straight into the
+ * caller's array. Per block min/max dictionary ids allow scans to skip blocks without decoding them.
+ */
+public class FixedBitSingleValueReader extends BaseSingleColumnSingleValueReader {
+  private static final int GROUP_SIZE = FixedBitSingleValueWriter.NUM_VALUES_PER_GROUP;
+  private static final int BLOCK_SIZE = FixedBitSingleValueWriter.BLOCK_SIZE;
+
+  private final PinotDataBuffer _indexDataBuffer;
+  private final int _numRows;
+  private final int _numBits;
+  private final int _mask;
+  private final int _numBlocks;
+  private final int _blockMinMaxOffset;
+  // Packed words of a group for batch reads, readers are shared across query threads
+  private final ThreadLocal<int[]> _packed;
+
+  public FixedBitSingleValueReader(PinotDataBuffer dataBuffer, int rows, int numBits) {
+    _indexDataBuffer = dataBuffer;
+    _numRows = rows;
+    _numBits = numBits;
+    _mask = (1 << numBits) - 1;
+    _numBlocks = FixedBitSingleValueWriter.getNumBlocks(rows);
+    _blockMinMaxOffset = (int) FixedBitSingleValueWriter.getPackedSize(rows, numBits);
+    _packed = new ThreadLocal<int[]>() {
+      @Override
+      protected int[] initialValue() {
+        return new int[_numBits];
+      }
+    };
+  }
+
+  @Override
+  public int getInt(int row) {
+    // Values are packed LSB first, numBits ints per group of 32 values.
+    int bitOffset = (row & 31) * _numBits;
+    int byteOffset = ((row >>> 5) * _numBits + (bitOffset >>> 5)) << 2;
+    int shift = bitOffset & 31;
+    int value = _indexDataBuffer.getInt(byteOffset) >>> shift;
+    if (shift + _numBits > 32) {
+      value |= _indexDataBuffer.getInt(byteOffset + 4) << (32 - shift);
+    }
+    return value & _mask;
+  }
+
+  /**
+   * Reads the values for rows [startRow, startRow + length) into values[valuesOffset, valuesOffset + length).
+   *
+   * @param startRow
+   * @param length
+   * @param values
+   * @param valuesOffset
+   */
+  public void getIntBatch(int startRow, int length, int[] values, int valuesOffset) {
+    int endRow = startRow + length;
+    int row = startRow;
+
+    // Head: rows up to the first group boundary
+    while (row < endRow && (row & 31) != 0) {
+      values[valuesOffset++] = getInt(row++);
+    }
+
+    // Full groups are unpacked directly into the output array
+    if (endRow - row >= GROUP_SIZE) {
+      int[] packed = _packed.get();
+      while (endRow - row >= GROUP_SIZE) {
+        int byteOffset = (row >>> 5) * _numBits * 4;
+        for (int i = 0; i < _numBits; i++) {
+          packed[i] = _indexDataBuffer.getInt(byteOffset + i * 4);
+        }
+        BitPacking.fastunpack(packed, 0, values, valuesOffset, _numBits);
+        row += GROUP_SIZE;
+        valuesOffset += GROUP_SIZE;
+      }
+    }
+
+    // Tail
+    while (row < endRow) {
+      values[valuesOffset++] = getInt(row++);
+    }
+  }
+
+  @Override
+  public void readValues(int[] rows, int rowStartPos, int rowSize, int[] values, int valuesStartPos) {
+    int endPos = rowStartPos + rowSize;
+    for (int i = rowStartPos; i < endPos; i++) {
+      values[valuesStartPos++] = getInt(rows[i]);
+    }
+  }
+
+  /**
+   * Returns the number of blocks of {@link FixedBitSingleValueWriter#BLOCK_SIZE} rows.
+   */
+  public int getNumBlocks() {
+    return _numBlocks;
+  }
+
+  public int getBlockMinDictId(int block) {
+    return _indexDataBuffer.getInt(_blockMinMaxOffset + block * 8);
+  }
+
+  public int getBlockMaxDictId(int block) {
+    return _indexDataBuffer.getInt(_blockMinMaxOffset + block * 8 + 4);
+  }
+
+  /**
+   * Returns the first row at or after startRow whose block may contain one of the given dictionary ids, or the number
+   * of rows if there is no such block. Rows within the returned block still need to be checked.
+   *
+   * @param startRow
+   * @param sortedDictIds Matching dictionary ids, sorted
+   * @return
+   */
+  public int skipToCandidateRow(int startRow, int[] sortedDictIds) {
+    if (sortedDictIds.length == 0) {
+      return _numRows;
+    }
+    for (int block = startRow / BLOCK_SIZE; block < _numBlocks; block++) {
+      int min = getBlockMinDictId(block);
+      int max = getBlockMaxDictId(block);
+      int index = Arrays.binarySearch(sortedDictIds, min);
+      if (index >= 0 || (-index - 1 < sortedDictIds.length && sortedDictIds[-index - 1] <= max)) {
+        return Math.max(startRow, block * BLOCK_SIZE);
+      }
+    }
+    return _numRows;
+  }
+
+  public int getNumberOfRows() {
+    return _numRows;
+  }
+
+  @Override
+  public void close() throws IOException {
+    _indexDataBuffer.close();
+  }
+
+  public boolean open() {
+    return true;
+  }
+}
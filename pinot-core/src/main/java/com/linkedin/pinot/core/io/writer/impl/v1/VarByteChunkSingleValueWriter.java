@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.writer.impl.v1;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.io.compression.ChunkCompressor;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.writer.SingleColumnSingleValueWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+
+/**
+ * Writes variable length string values in chunks of a fixed number of rows, and compresses each chunk separately, so
+ * that a value can be read by decompressing only the chunk that contains it.
+ *
+ * Layout of the file:
+ * - Header: version, compression type, number of chunks, number of rows per chunk, max uncompressed chunk size.
+ * - Chunk offsets: one int per chunk, offset of the compressed chunk from the start of the file.
+ * - Compressed chunks.
+ *
+ * Layout of an uncompressed chunk:
+ * - Value offsets: one int per row in the chunk, offset of the value from the start of the chunk.
+ * - Values: UTF-8 bytes of the values, back to back.
+ *
+ * Like the other forward indexes, the file is addressed with int offsets, so it is limited to 2GB.
+ */
+public class VarByteChunkSingleValueWriter implements SingleColumnSingleValueWriter {
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 5 * 4;
+  public static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final RandomAccessFile _file;
+  private final FileChannel _dataChannel;
+  private final ChunkCompressor _compressor;
+  private final ChunkCompressorFactory.CompressionType _compressionType;
+  private final int _numRows;
+  private final int _numRowsPerChunk;
+  private final int[] _chunkOffsets;
+
+  private byte[] _chunk;
+  private byte[] _compressedChunk = new byte[0];
+  private int _chunkSize;
+  private int _maxChunkSize;
+  private long _dataOffset;
+  private int _currentRow = -1;
+
+  public VarByteChunkSingleValueWriter(File file, ChunkCompressorFactory.CompressionType compressionType, int rows,
+      int numRowsPerChunk)
+      throws IOException {
+    Preconditions.checkArgument(numRowsPerChunk > 0, "Invalid number of rows per chunk: %s", numRowsPerChunk);
+    _numRows = rows;
+    _numRowsPerChunk = numRowsPerChunk;
+    _compressionType = compressionType;
+    _compressor = ChunkCompressorFactory.getCompressor(compressionType);
+    _chunkOffsets = new int[getNumChunks(rows, numRowsPerChunk)];
+    _chunk = new byte[numRowsPerChunk * 4];
+    _dataOffset = HEADER_SIZE + _chunkOffsets.length * 4;
+    _file = new RandomAccessFile(file, "rw");
+    _file.setLength(0);
+    _dataChannel = _file.getChannel();
+  }
+
+  /**
+   * Returns the number of chunks required to store the given number of rows.
+   */
+  public static int getNumChunks(int rows, int numRowsPerChunk) {
+    return (rows + numRowsPerChunk - 1) / numRowsPerChunk;
+  }
+
+  /**
+   * Rows must be set in order, starting from 0.
+   *
+   * @param row
+   * @param string
+   * @throws IOException
+   */
+  @Override
+  public void setString(int row, String string)
+      throws IOException {
+    Preconditions.checkArgument(row == _currentRow + 1, "Rows must be set in order, got %s after %s", row,
+        _currentRow);
+    int rowInChunk = row % _numRowsPerChunk;
+    if (rowInChunk == 0) {
+      // Values start after the value offsets of all the rows in the chunk.
+      _chunkSize = Math.min(_numRowsPerChunk, _numRows - row) * 4;
+    }
+
+    byte[] bytes = string.getBytes(UTF_8);
+    if (_chunkSize + bytes.length > _chunk.length) {
+      _chunk = Arrays.copyOf(_chunk, Math.max(_chunkSize + bytes.length, 2 * _chunk.length));
+    }
+    putInt(_chunk, rowInChunk * 4, _chunkSize);
+    System.arraycopy(bytes, 0, _chunk, _chunkSize, bytes.length);
+    _chunkSize += bytes.length;
+
+    if (rowInChunk == _numRowsPerChunk - 1 || row == _numRows - 1) {
+      writeChunk(row / _numRowsPerChunk);
+    }
+    _currentRow = row;
+  }
+
+  private void writeChunk(int chunkId)
+      throws IOException {
+    int maxCompressedLength = _compressor.maxCompressedLength(_chunkSize);
+    if (maxCompressedLength > _compressedChunk.length) {
+      _compressedChunk = new byte[maxCompressedLength];
+    }
+    int compressedSize = _compressor.compress(_chunk, _chunkSize, _compressedChunk);
+    Preconditions.checkState(_dataOffset + compressedSize <= Integer.MAX_VALUE,
+        "Forward index exceeds the maximum size of 2GB");
+
+    _dataChannel.write(ByteBuffer.wrap(_compressedChunk, 0, compressedSize), _dataOffset);
+    _chunkOffsets[chunkId] = (int) _dataOffset;
+    _dataOffset += compressedSize;
+    _maxChunkSize = Math.max(_maxChunkSize, _chunkSize);
+  }
+
+  private static void putInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    try {
+      Preconditions.checkState(_currentRow == _numRows - 1, "Only %s out of %s rows were set", _currentRow + 1,
+          _numRows);
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + _chunkOffsets.length * 4);
+      header.putInt(VERSION);
+      header.putInt(_compressionType.getValue());
+      header.putInt(_chunkOffsets.length);
+      header.putInt(_numRowsPerChunk);
+      header.putInt(_maxChunkSize);
+      for (int chunkOffset : _chunkOffsets) {
+        header.putInt(chunkOffset);
+      }
+      header.flip();
+      _dataChannel.write(header, 0);
+    } finally {
+      _dataChannel.close();
+      _file.close();
+    }
+  }
+
+  @Override
+  public void setChar(int row, char ch) {
+    throw new UnsupportedOperationException("Only string data type is supported in var byte chunk format");
+  }
+
+  @Override
+  public void setInt(int row, int i) {
+    throw new UnsupportedOperationException("Only string data type is supported in var byte chunk format");
+  }
+
+  @Override
+  public void setShort(int row, short s) {
+    throw new UnsupportedOperationException("Only string data type is supported in var byte chunk format");
+  }
+
+  @Override
+  public void setLong(int row, long l) {
+    throw new UnsupportedOperationException("Only string data type is supported in var byte chunk format");
+  }
+
+  @Override
+  public void setFloat(int row, float f) {
+    throw new UnsupportedOperationException("Only string data type is supported in var byte chunk format");
+  }
+
+  @Override
+  public void setDouble(int row, double d) {
+    throw new UnsupportedOperationException("Only string data type is supported in var byte chunk format");
+  }
+
+  @Override
+  public void setBytes(int row, byte[] bytes) {
+    throw new UnsupportedOperationException("Only string data type is supported in var byte chunk format");
+  }
+}
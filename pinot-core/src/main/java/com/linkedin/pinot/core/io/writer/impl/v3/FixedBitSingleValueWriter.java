@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.writer.impl.v3;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.io.writer.SingleColumnSingleValueWriter;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import me.lemire.integercompression.BitPacking;
+
+
+/**
+ * Writes dictionary ids bit packed in groups of 32 values, so that the reader can unpack whole groups with the
+ * unrolled kernels of the bit packing library directly into the caller's array.
+ *
+ * In addition, keeps the min and max dictionary id of each block of {@link #BLOCK_SIZE} rows, so that scans can skip
+ * the blocks that cannot match a predicate.
+ *
+ * Layout of the buffer:
+ * - Packed values: numBits ints for each group of 32 rows (the last group is padded with 0's).
+ * - Block min/max: 2 ints (min, max) for each block of BLOCK_SIZE rows.
+ *
+ * Like the other forward indexes, the buffer is addressed with int offsets, so it is limited to 2GB.
+ */
+public class FixedBitSingleValueWriter implements SingleColumnSingleValueWriter {
+  public static final int NUM_VALUES_PER_GROUP = 32;
+  // Must be a multiple of NUM_VALUES_PER_GROUP
+  public static final int BLOCK_SIZE = 1024;
+
+  private final int _numRows;
+  private final int _numBits;
+  private final int _maxValue;
+  private final int[] _unpacked = new int[NUM_VALUES_PER_GROUP];
+  private final int[] _packed;
+  private PinotDataBuffer _indexDataBuffer;
+  private int _currentRow = -1;
+  private int _packedOffset = 0;
+  private int _blockMin = Integer.MAX_VALUE;
+  private int _blockMax = Integer.MIN_VALUE;
+
+  public FixedBitSingleValueWriter(File file, int rows, int numBits)
+      throws IOException {
+    this(PinotDataBuffer.fromFile(file, 0, getBufferSize(rows, numBits), ReadMode.mmap,
+        FileChannel.MapMode.READ_WRITE, file.getAbsolutePath() + FixedBitSingleValueWriter.class.getSimpleName()),
+        rows, numBits);
+  }
+
+  public FixedBitSingleValueWriter(PinotDataBuffer dataBuffer, int rows, int numBits) {
+    Preconditions.checkArgument(numBits > 0 && numBits < 32, "Invalid number of bits: %s", numBits);
+    Preconditions.checkArgument(dataBuffer.size() >= getBufferSize(rows, numBits), "Buffer too small");
+    _indexDataBuffer = dataBuffer;
+    _numRows = rows;
+    _numBits = numBits;
+    _maxValue = (1 << numBits) - 1;
+    _packed = new int[numBits];
+  }
+
+  /**
+   * Returns the number of groups of 32 rows.
+   */
+  public static int getNumGroups(int rows) {
+    return (rows + NUM_VALUES_PER_GROUP - 1) / NUM_VALUES_PER_GROUP;
+  }
+
+  /**
+   * Returns the number of blocks of BLOCK_SIZE rows.
+   */
+  public static int getNumBlocks(int rows) {
+    return (rows + BLOCK_SIZE - 1) / BLOCK_SIZE;
+  }
+
+  /**
+   * Returns the size in bytes of the packed values, which is also the offset of the block min/max.
+   */
+  public static long getPackedSize(int rows, int numBits) {
+    return (long) getNumGroups(rows) * numBits * 4;
+  }
+
+  /**
+   * Returns the size in bytes of the buffer required to store the given number of rows.
+   */
+  public static long getBufferSize(int rows, int numBits) {
+    return getPackedSize(rows, numBits) + (long) getNumBlocks(rows) * 8;
+  }
+
+  public boolean open() {
+    return true;
+  }
+
+  /**
+   * Rows must be set in order, starting from 0.
+   *
+   * @param row
+   * @param val
+   */
+  @Override
+  public void setInt(int row, int val) {
+    Preconditions.checkArgument(row == _currentRow + 1, "Rows must be set in order, got %s after %s", row,
+        _currentRow);
+    Preconditions.checkArgument(val >= 0 && val <= _maxValue, "Value %s does not fit in %s bits", val, _numBits);
+
+    _unpacked[row % NUM_VALUES_PER_GROUP] = val;
+    _blockMin = Math.min(_blockMin, val);
+    _blockMax = Math.max(_blockMax, val);
+
+    boolean lastRow = (row == _numRows - 1);
+    if ((row + 1) % NUM_VALUES_PER_GROUP == 0 || lastRow) {
+      BitPacking.fastpack(_unpacked, 0, _packed, 0, _numBits);
+      for (int i = 0; i < _numBits; i++) {
+        _indexDataBuffer.putInt(_packedOffset, _packed[i]);
+        _packedOffset += 4;
+      }
+      Arrays.fill(_unpacked, 0);
+    }
+    if ((row + 1) % BLOCK_SIZE == 0 || lastRow) {
+      int blockOffset = (int) getPackedSize(_numRows, _numBits) + (row / BLOCK_SIZE) * 8;
+      _indexDataBuffer.putInt(blockOffset, _blockMin);
+      _indexDataBuffer.putInt(blockOffset + 4, _blockMax);
+      _blockMin = Integer.MAX_VALUE;
+      _blockMax = Integer.MIN_VALUE;
+    }
+    _currentRow = row;
+  }
+
+  @Override
+  public void close() {
+    Preconditions.checkState(_currentRow == _numRows - 1, "Only %s of %s rows were set", _currentRow + 1, _numRows);
+    _indexDataBuffer.close();
+    _indexDataBuffer = null;
+  }
+
+  @Override
+  public void setChar(int row, char ch) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setShort(int row, short s) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setLong(int row, long l) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setFloat(int row, float f) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setDouble(int row, double d) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setString(int row, String string) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setBytes(int row, byte[] bytes) {
+    throw new UnsupportedOperationException();
+  }
+}
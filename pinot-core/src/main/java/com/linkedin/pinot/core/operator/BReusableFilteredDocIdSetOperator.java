@@ -22,6 +22,7 @@ import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.docidsets.DocIdSetBlock;
 import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import com.linkedin.pinot.core.query.executor.QueryResourceTracker;
 
 /**
  * BReusableFilteredDocIdSetOperator will take a filter Operator and get the matched docId set.
@@ -68,6 +69,8 @@ public class BReusableFilteredDocIdSetOperator extends BaseOperator {
     if (_currentDoc == Constants.EOF) {
       return null;
     }
+    // Kill the query here (once per block) if it went over its resource limits
+    QueryResourceTracker.checkResourceUsage();
     int[] docIdArray = DOC_ID_ARRAY.get();
     if (!inited) {
       inited = true;
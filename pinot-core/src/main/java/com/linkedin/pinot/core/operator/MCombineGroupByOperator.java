@@ -30,6 +30,7 @@ import com.linkedin.pinot.core.operator.query.MAggregationGroupByOperator;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyTuple;
 import com.linkedin.pinot.core.util.trace.TraceRunnable;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -37,10 +38,12 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,26 +66,17 @@ import org.slf4j.LoggerFactory;
 public class MCombineGroupByOperator extends BaseOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(MCombineGroupByOperator.class);
 
-  // Choose a proper prime number for the number of locks.
-  // Use prime number to reduce the conflict rate of different hashcodes.
-  // Too small number of locks will cause high conflict rate.
-  // Too large number of locks will consume too much memory.
-  private static final int NUM_LOCKS = 10007;
-  private static final Object[] LOCKS = new Object[NUM_LOCKS];
-  static {
-    for (int i = 0; i < NUM_LOCKS; i++) {
-      LOCKS[i] = new Object();
-    }
-  }
+  // Maximum number of partitions of the group key space, each partition is merged by a single task.
+  private static final int MAX_NUM_PARTITIONS = Runtime.getRuntime().availableProcessors();
 
   private final List<Operator> _operators;
   private final ExecutorService _executorService;
   private final BrokerRequest _brokerRequest;
   private final long _timeOutMs;
+  private final boolean _typedGroupKeys;
 
   /**
    * Constructor for the class.
-   * - Initializes lock objects to synchronize updating aggregation group-by results.
    *
    * @param operators List of operators, whose result needs to be combined.
    * @param executorService Executor service to use for multi-threaded portions of combine.
@@ -91,12 +85,28 @@ public class MCombineGroupByOperator extends BaseOperator {
    */
   public MCombineGroupByOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
       BrokerRequest brokerRequest) {
+    this(operators, executorService, timeOutMs, brokerRequest, false);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param operators List of operators, whose result needs to be combined.
+   * @param executorService Executor service to use for multi-threaded portions of combine.
+   * @param timeOutMs Timeout for combine.
+   * @param brokerRequest BrokerRequest corresponding to the query.
+   * @param typedGroupKeys Merge on the typed values of the group-by columns instead of string group keys,
+   *                       and return the results as a {@link GroupKeyTuple} keyed result block.
+   */
+  public MCombineGroupByOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
+      BrokerRequest brokerRequest, boolean typedGroupKeys) {
     Preconditions.checkArgument(brokerRequest.isSetAggregationsInfo() && brokerRequest.isSetGroupBy());
 
     _operators = operators;
     _executorService = executorService;
     _brokerRequest = brokerRequest;
     _timeOutMs = timeOutMs;
+    _typedGroupKeys = typedGroupKeys;
   }
 
   /**
@@ -136,20 +146,24 @@ public class MCombineGroupByOperator extends BaseOperator {
   /**
    * This method combines the result blocks from underlying operators and builds a
    * merged, sorted and trimmed result block.
-   * 1. Result blocks from underlying operators are merged concurrently into a
-   *   HashMap, with appropriate synchronizations. Result blocks themselves are stored
+   * 1. Underlying operators are run concurrently. Each of them splits the group-by keys of its
+   *   result block into partitions by the hash of the key. Result blocks themselves are stored
    *   in the specified blocks[].
-   *   - The key in this concurrent map is the group-by key, and value is an array of
-   *     Serializables (one for each aggregation function).
-   *   - Synchronization is provided by locking the group-key that is to be modified.
    *
-   * 2. The result of the concurrent map is then translated into what is expected by
-   *    the broker (Map<String, Serializable>).
+   * 2. Partitions are then merged concurrently, one task per partition. As a group-by key always falls
+   *    into the same partition, each task owns the map it merges into, and no synchronization is needed.
+   *    - The key in these maps is the group-by key (string, or {@link GroupKeyTuple} for typed group keys),
+   *      and value is an array of Serializables (one for each aggregation function).
    *
-   * 3. This result is then sorted and then trimmed as per 'TOP N' in the brokerRequest.
+   * 3. The union of the partition maps is then sorted and then trimmed as per 'TOP N' in the brokerRequest.
+   *
+   * 4. For string group keys, the result is translated into what is expected by the broker
+   *    (Map<String, Serializable> per aggregation function). For typed group keys, the result is kept
+   *    as one array of Serializables per group-by key.
    *
    * @return IntermediateResultBlock containing the final results from combine operation.
    */
+  @SuppressWarnings("unchecked")
   private IntermediateResultsBlock combineBlocks()
       throws InterruptedException {
     final int numOperators = _operators.size();
@@ -162,7 +176,8 @@ public class MCombineGroupByOperator extends BaseOperator {
     final List<AggregationFunction> aggregationFunctions =
         AggregationFunctionFactory.getAggregationFunction(_brokerRequest);
 
-    final Map<String, Serializable[]> resultsMap = new ConcurrentHashMap<>();
+    final int numPartitions = Math.max(1, Math.min(numOperators, MAX_NUM_PARTITIONS));
+    final AtomicReferenceArray<GroupByPartitions> operatorPartitions = new AtomicReferenceArray<>(numOperators);
 
     for (int i = 0; i < numOperators; i++) {
       final int index = i;
@@ -170,79 +185,208 @@ public class MCombineGroupByOperator extends BaseOperator {
       _executorService.execute(new TraceRunnable() {
         @Override
         public void runJob() {
-          AggregationGroupByResult groupByResult;
-
-          // If block is null (unexpected error), or there's no group-by result, then return as there's nothing to do.
-          blocks[index] = (IntermediateResultsBlock) _operators.get(index).nextBlock();
-          if (blocks[index] != null) {
-            groupByResult = blocks[index].getAggregationGroupByResult();
-
-            if (groupByResult != null) {
-              // Iterate over the group-by keys, for each key, update the group-by result in the resultsMap.
-              Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = groupByResult.getGroupKeyIterator();
-
-              while (groupKeyIterator.hasNext()) {
-                GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-                String groupKeyString = groupKey.getStringKey();
-
-                // HashCode method might return negative value, make it non-negative
-                int lockIndex = (groupKeyString.hashCode() & Integer.MAX_VALUE) % NUM_LOCKS;
-                synchronized (LOCKS[lockIndex]) {
-                  Serializable[] results = resultsMap.get(groupKeyString);
-
-                  if (results == null) {
-                    results = new Serializable[numAggrFunctions];
-                    for (int j = 0; j < numAggrFunctions; j++) {
-                      results[j] = groupByResult.getResultForKey(groupKey, j);
-                    }
-
-                    resultsMap.put(groupKeyString, results);
-                  } else {
-                    for (int j = 0; j < numAggrFunctions; j++) {
-                      results[j] = aggregationFunctions.get(j)
-                          .combineTwoValues(results[j], groupByResult.getResultForKey(groupKey, j));
-                    }
+          try {
+            AggregationGroupByResult groupByResult;
+
+            // If block is null (unexpected error), or there's no group-by result, then return as there's nothing to do.
+            blocks[index] = (IntermediateResultsBlock) _operators.get(index).nextBlock();
+            if (blocks[index] != null) {
+              groupByResult = blocks[index].getAggregationGroupByResult();
+
+              if (groupByResult != null) {
+                GroupByPartitions partitions = new GroupByPartitions(numPartitions);
+
+                // Iterate over the group-by keys, for each key, add the group-by result to the partition of the key.
+                Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator =
+                    _typedGroupKeys ? groupByResult.getTypedGroupKeyIterator() : groupByResult.getGroupKeyIterator();
+
+                while (groupKeyIterator.hasNext()) {
+                  GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+                  Object key = _typedGroupKeys ? new GroupKeyTuple(groupKey.getValues().clone())
+                      : groupKey.getStringKey();
+
+                  Serializable[] results = new Serializable[numAggrFunctions];
+                  for (int j = 0; j < numAggrFunctions; j++) {
+                    results[j] = groupByResult.getResultForKey(groupKey, j);
                   }
+                  partitions.add(getPartition(key, numPartitions), key, results);
                 }
+
+                operatorPartitions.set(index, partitions);
               }
             }
+          } catch (Exception e) {
+            LOGGER.error("Caught exception while executing group-by operator {}", index, e);
+            blocks[index] = new IntermediateResultsBlock(e);
+          } finally {
+            operatorLatch.countDown();
           }
+        }
+      });
+    }
+
+    // Exceptions of the combine itself, reported along with the exceptions of the underlying blocks.
+    final List<ProcessingException> combineExceptions = new ArrayList<>();
+
+    if (!operatorLatch.await(_timeOutMs, TimeUnit.MILLISECONDS)) {
+      LOGGER.error("Timed out while executing group-by operators");
+      combineExceptions.add(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR,
+          new TimeoutException("Timed out while executing group-by operators")));
+    }
+
+    // Operators that finish after the timeout are left out of the merge.
+    final GroupByPartitions[] finishedPartitions = new GroupByPartitions[numOperators];
+    for (int i = 0; i < numOperators; i++) {
+      finishedPartitions[i] = operatorPartitions.get(i);
+    }
+
+    final AtomicReferenceArray<Map<Object, Serializable[]>> partitionResultsMaps =
+        new AtomicReferenceArray<>(numPartitions);
+    final AtomicReference<Exception> partitionException = new AtomicReference<>();
+    final CountDownLatch partitionLatch = new CountDownLatch(numPartitions);
+
+    for (int i = 0; i < numPartitions; i++) {
+      final int partition = i;
+
+      _executorService.execute(new TraceRunnable() {
+        @Override
+        public void runJob() {
+          try {
+            Map<Object, Serializable[]> resultsMap = new HashMap<>();
+
+            for (int j = 0; j < numOperators; j++) {
+              GroupByPartitions partitions = finishedPartitions[j];
+              if (partitions == null) {
+                continue;
+              }
+
+              List<Object> keys = partitions.getKeys(partition);
+              List<Serializable[]> values = partitions.getResults(partition);
+              int numKeys = keys.size();
 
-          operatorLatch.countDown();
+              for (int k = 0; k < numKeys; k++) {
+                Object key = keys.get(k);
+                Serializable[] newResults = values.get(k);
+                Serializable[] results = resultsMap.get(key);
+
+                if (results == null) {
+                  resultsMap.put(key, newResults);
+                } else {
+                  for (int l = 0; l < numAggrFunctions; l++) {
+                    results[l] = aggregationFunctions.get(l).combineTwoValues(results[l], newResults[l]);
+                  }
+                }
+              }
+            }
+
+            partitionResultsMaps.set(partition, resultsMap);
+          } catch (Exception e) {
+            LOGGER.error("Caught exception while merging group-by partition {}", partition, e);
+            partitionException.compareAndSet(null, e);
+          } finally {
+            partitionLatch.countDown();
+          }
         }
       });
     }
 
-    operatorLatch.await(_timeOutMs, TimeUnit.SECONDS);
+    if (!partitionLatch.await(_timeOutMs, TimeUnit.MILLISECONDS)) {
+      LOGGER.error("Timed out while merging group-by partitions");
+      combineExceptions.add(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR,
+          new TimeoutException("Timed out while merging group-by partitions")));
+    }
+    if (partitionException.get() != null) {
+      combineExceptions.add(QueryException.getException(QueryException.COMBINE_GROUP_BY_EXCEPTION_ERROR,
+          partitionException.get()));
+    }
+
+    // Partitions hold disjoint sets of group-by keys, so their union is the merged result.
+    int numGroups = 0;
+    for (int i = 0; i < numPartitions; i++) {
+      Map<Object, Serializable[]> partitionResultsMap = partitionResultsMaps.get(i);
+      if (partitionResultsMap != null) {
+        numGroups += partitionResultsMap.size();
+      }
+    }
+    Map<Object, Serializable[]> resultsMap = new HashMap<>(Math.max(16, (int) (numGroups / 0.75f) + 1));
+    for (int i = 0; i < numPartitions; i++) {
+      Map<Object, Serializable[]> partitionResultsMap = partitionResultsMaps.get(i);
+      if (partitionResultsMap != null) {
+        resultsMap.putAll(partitionResultsMap);
+      }
+    }
 
     // Use aggregationGroupByOperatorService to trim the resultsMap
     AggregationGroupByOperatorService aggregationGroupByOperatorService =
         new AggregationGroupByOperatorService(_brokerRequest.getAggregationsInfo(), _brokerRequest.getGroupBy());
-    List<Map<String, Serializable>> trimmedResults =
-        aggregationGroupByOperatorService.trimToSize(resultsMap, numAggrFunctions);
 
-    return buildResultBlock(aggregationFunctions, trimmedResults, blocks);
+    // For the approximate TOP N group-by, only the top candidates are sent along with the trim thresholds.
+    int numApproximateTopNCandidates =
+        AggregationGroupByOperatorService.getNumApproximateTopNCandidates(_brokerRequest);
+    double[] trimThresholds = (numApproximateTopNCandidates > 0) ? new double[numAggrFunctions] : null;
+
+    IntermediateResultsBlock resultBlock;
+    if (_typedGroupKeys) {
+      Map<GroupKeyTuple, Serializable[]> typedResultsMap;
+      if (trimThresholds != null) {
+        typedResultsMap = (Map) aggregationGroupByOperatorService.trimGroupKeysToApproximateTopN(resultsMap,
+            numAggrFunctions, numApproximateTopNCandidates, trimThresholds);
+      } else {
+        typedResultsMap = (Map) aggregationGroupByOperatorService.trimGroupKeys(resultsMap, numAggrFunctions);
+      }
+      resultBlock = new IntermediateResultsBlock(aggregationFunctions, _brokerRequest.getGroupBy().getColumns(),
+          typedResultsMap);
+    } else {
+      List<Map<String, Serializable>> trimmedResults;
+      if (trimThresholds != null) {
+        trimmedResults = (List) aggregationGroupByOperatorService.trimToApproximateTopN(resultsMap, numAggrFunctions,
+            numApproximateTopNCandidates, trimThresholds);
+      } else {
+        trimmedResults = (List) aggregationGroupByOperatorService.trimToSize(resultsMap, numAggrFunctions);
+      }
+      resultBlock = new IntermediateResultsBlock(aggregationFunctions, trimmedResults, true);
+    }
+    resultBlock.setGroupByTrimThresholds(trimThresholds);
+
+    return buildResultBlock(resultBlock, blocks, combineExceptions);
   }
 
   /**
-   * Helper method to builds and returns an IntermediateResultBlock containing the
-   * merged results from all underlying operators.
+   * Returns the partition of the given group-by key. The hash code of the key is mixed before
+   * taking the modulo, so that keys of one partition are still well spread over the buckets of the
+   * HashMap the partition is merged into.
    *
-   * @param aggregationFunctions List of aggregation functions.
-   * @param trimmedResults List of maps containing the trimmed results.
+   * @param key Group-by key.
+   * @param numPartitions Number of partitions.
+   * @return Partition of the group-by key, in [0, numPartitions).
+   */
+  static int getPartition(Object key, int numPartitions) {
+    int hash = key.hashCode() * 0x9E3779B9;
+    hash ^= hash >>> 16;
+    return (hash & Integer.MAX_VALUE) % numPartitions;
+  }
+
+  /**
+   * Helper method to fill in the stats and exceptions of all underlying operators into
+   * the IntermediateResultBlock containing the merged results.
+   *
+   * @param resultBlock Block containing the merged results.
    * @param blocks Array of blocks for which the results are being merged.
+   * @param combineExceptions Exceptions of the combine itself (e.g. timeouts).
    * @return IntermediateResultsBlock containing merged results.
    */
-  private IntermediateResultsBlock buildResultBlock(List<AggregationFunction> aggregationFunctions,
-      List<Map<String, Serializable>> trimmedResults, IntermediateResultsBlock[] blocks) {
-
-    IntermediateResultsBlock resultBlock = new IntermediateResultsBlock(aggregationFunctions, trimmedResults, true);
-    List<ProcessingException> exceptions = null;
+  private IntermediateResultsBlock buildResultBlock(IntermediateResultsBlock resultBlock,
+      IntermediateResultsBlock[] blocks, List<ProcessingException> combineExceptions) {
+    List<ProcessingException> exceptions = combineExceptions.isEmpty() ? null : combineExceptions;
 
     long numDocsScanned = 0;
     long totalRawDocs = 0;
 
     for (IntermediateResultsBlock block : blocks) {
+      // Null for operators that returned no block, or did not finish in time.
+      if (block == null) {
+        continue;
+      }
       numDocsScanned += block.getNumDocsScanned();
       totalRawDocs += block.getTotalRawDocs();
 
@@ -263,6 +407,37 @@ public class MCombineGroupByOperator extends BaseOperator {
     return resultBlock;
   }
 
+  /**
+   * Group-by keys and results of one operator, split by partition of the group key space.
+   * Each partition is only read by the task merging that partition.
+   */
+  private static final class GroupByPartitions {
+    private final List<List<Object>> _keys;
+    private final List<List<Serializable[]>> _results;
+
+    GroupByPartitions(int numPartitions) {
+      _keys = new ArrayList<>(numPartitions);
+      _results = new ArrayList<>(numPartitions);
+      for (int i = 0; i < numPartitions; i++) {
+        _keys.add(new ArrayList<Object>());
+        _results.add(new ArrayList<Serializable[]>());
+      }
+    }
+
+    void add(int partition, Object key, Serializable[] results) {
+      _keys.get(partition).add(key);
+      _results.get(partition).add(results);
+    }
+
+    List<Object> getKeys(int partition) {
+      return _keys.get(partition);
+    }
+
+    List<Serializable[]> getResults(int partition) {
+      return _results.get(partition);
+    }
+  }
+
   @Override
   public Block getNextBlock(BlockId BlockId) {
     throw new UnsupportedOperationException();
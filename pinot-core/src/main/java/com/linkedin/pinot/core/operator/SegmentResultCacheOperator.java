@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.executor.SegmentResultCache;
+
+
+/**
+ * Returns the results of a query on one segment from the {@link SegmentResultCache}, or computes them with the
+ * underlying operator and caches them.
+ */
+public class SegmentResultCacheOperator extends BaseOperator {
+  private final IntermediateResultsBlock _cachedBlock;
+  private final Operator _operator;
+  private final SegmentResultCache _segmentResultCache;
+  private final SegmentResultCache.Key _key;
+
+  /**
+   * Constructor for a cache hit.
+   *
+   * @param cachedBlock Copy of the cached results
+   */
+  public SegmentResultCacheOperator(IntermediateResultsBlock cachedBlock) {
+    _cachedBlock = cachedBlock;
+    _operator = null;
+    _segmentResultCache = null;
+    _key = null;
+  }
+
+  /**
+   * Constructor for a cache miss.
+   *
+   * @param operator Operator computing the results of the query on the segment
+   * @param segmentResultCache Cache to put the results into
+   * @param key Cache key
+   */
+  public SegmentResultCacheOperator(Operator operator, SegmentResultCache segmentResultCache,
+      SegmentResultCache.Key key) {
+    _cachedBlock = null;
+    _operator = operator;
+    _segmentResultCache = segmentResultCache;
+    _key = key;
+  }
+
+  @Override
+  public boolean open() {
+    if (_operator != null) {
+      _operator.open();
+    }
+    return true;
+  }
+
+  @Override
+  public Block getNextBlock() {
+    if (_cachedBlock != null) {
+      return _cachedBlock;
+    }
+    IntermediateResultsBlock block = (IntermediateResultsBlock) _operator.nextBlock();
+    _segmentResultCache.put(_key, block);
+    return block;
+  }
+
+  @Override
+  public Block getNextBlock(BlockId BlockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String getOperatorName() {
+    return "SegmentResultCacheOperator";
+  }
+
+  @Override
+  public boolean close() {
+    if (_operator != null) {
+      _operator.close();
+    }
+    return true;
+  }
+}
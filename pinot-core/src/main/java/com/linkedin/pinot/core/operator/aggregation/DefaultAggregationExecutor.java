@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.operator.aggregation;
 
 import com.clearspring.analytics.stream.cardinality.HyperLogLog;
 import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.utils.primitive.MutableLongValue;
 import com.linkedin.pinot.core.common.BlockValSet;
@@ -65,6 +66,10 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
   // Array of hash codes of the actual column values used for distinct count.
   private double[] _hashCodeArray;
 
+  // Value arrays passed to each aggregation function, built once in 'init' so that
+  // no varargs array needs to be allocated per block.
+  private double[][][] _aggrFuncValueArrays;
+
   // Array of result holders, one for each aggregation.
   private AggregationResultHolder[] _resultHolderArray;
 
@@ -112,6 +117,28 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
       AggregationFunction aggregationFunction = aggregationFunctionContext.getAggregationFunction();
       _resultHolderArray[i] = ResultHolderFactory.getAggregationResultHolder(aggregationFunction);
     }
+
+    _aggrFuncValueArrays = new double[_aggrFuncContextList.size()][][];
+    for (int i = 0; i < _aggrFuncContextList.size(); i++) {
+      AggregationFunctionContext aggregationFunctionContext = _aggrFuncContextList.get(i);
+      switch (aggregationFunctionContext.getFunctionName()) {
+        case AggregationFunctionFactory.COUNT_AGGREGATION_FUNCTION:
+          _aggrFuncValueArrays[i] = new double[0][];
+          break;
+
+        case AggregationFunctionFactory.DISTINCTCOUNT_AGGREGATION_FUNCTION:
+        case AggregationFunctionFactory.DISTINCTCOUNTHLL_AGGREGATION_FUNCTION:
+          if (_hashCodeArray == null) {
+            _hashCodeArray = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+          }
+          _aggrFuncValueArrays[i] = new double[][]{_hashCodeArray};
+          break;
+
+        default:
+          String aggrColumn = aggregationFunctionContext.getAggregationColumns()[0];
+          _aggrFuncValueArrays[i] = new double[][]{_columnToValueArrayMap.get(aggrColumn)};
+      }
+    }
     _inited = true;
   }
 
@@ -133,7 +160,7 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
     fetchColumnValues(startIndex, length);
 
     for (int i = 0; i < _aggrFuncContextList.size(); i++) {
-      aggregateColumn(_aggrFuncContextList.get(i), _resultHolderArray[i], length);
+      aggregateColumn(_aggrFuncContextList.get(i), _resultHolderArray[i], _aggrFuncValueArrays[i], length);
     }
   }
 
@@ -142,10 +169,11 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
    *
    * @param aggrFuncContext
    * @param resultHolder
+   * @param valueArrays Value arrays to pass to the aggregation function
    * @param length
    */
   private void aggregateColumn(AggregationFunctionContext aggrFuncContext, AggregationResultHolder resultHolder,
-      int length) {
+      double[][] valueArrays, int length) {
     AggregationFunction function = aggrFuncContext.getAggregationFunction();
     String aggrFuncName = aggrFuncContext.getFunctionName();
     String[] aggrColumns = aggrFuncContext.getAggregationColumns();
@@ -154,19 +182,20 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
     String aggrColumn = aggrColumns[0];
 
     switch (aggrFuncName) {
-      case AggregationFunctionFactory.COUNT_AGGREGATION_FUNCTION:
-        function.aggregate(length, resultHolder);
-        return;
-
       case AggregationFunctionFactory.DISTINCTCOUNT_AGGREGATION_FUNCTION:
       case AggregationFunctionFactory.DISTINCTCOUNTHLL_AGGREGATION_FUNCTION:
-        fetchColumnValueHashCodes(aggrColumn, aggrFuncContext.getDictionary(0), length);
-        function.aggregate(length, resultHolder, _hashCodeArray);
-        return;
+        Dictionary dictionary = aggrFuncContext.getDictionary(0);
+        if (dictionary != null) {
+          fetchColumnValueHashCodes(aggrColumn, dictionary, length);
+        } else {
+          fetchRawColumnValueHashCodes(aggrColumn, aggrFuncContext.getBlockValSet(0).getValueType(), length);
+        }
+        break;
 
       default:
-        function.aggregate(length, resultHolder, _columnToValueArrayMap.get(aggrColumn));
+        break;
     }
+    function.aggregate(length, resultHolder, valueArrays);
   }
 
   /**
@@ -274,6 +303,7 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
 
   /**
    * Fetch dictId's for the given docIdSet for all aggregation columns except count.
+   * Columns without dictionary have their values fetched directly instead.
    *
    * @param docIdSet
    * @param startIndex
@@ -289,9 +319,14 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
           String aggrColumn = aggrColumns[i];
 
           if (!_columnsLoaded.contains(aggrColumn)) {
-            int[] dictIdArray = _columnToDictArrayMap.get(aggrColumn);
             BlockValSet blockValSet = aggrFuncContext.getBlockValSet(i);
-            blockValSet.readIntValues(docIdSet, startIndex, length, dictIdArray, startIndex);
+            if (aggrFuncContext.getDictionary(i) == null) {
+              double[] valueArray = _columnToValueArrayMap.get(aggrColumn);
+              blockValSet.readDoubleValues(docIdSet, startIndex, length, valueArray, startIndex);
+            } else {
+              int[] dictIdArray = _columnToDictArrayMap.get(aggrColumn);
+              blockValSet.readIntValues(docIdSet, startIndex, length, dictIdArray, startIndex);
+            }
             _columnsLoaded.add(aggrColumn);
           }
         }
@@ -319,9 +354,12 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
 
           if (!_columnsLoaded.contains(aggrColumn)) {
             Dictionary dictionary = aggrFuncContext.getDictionary(i);
-            double[] valueArray = _columnToValueArrayMap.get(aggrColumn);
-            dictionary.readDoubleValues(_columnToDictArrayMap.get(aggrColumn), startIndex, length, valueArray,
-                startIndex);
+            // Values of columns without dictionary are already fetched in method fetchColumnDictIds
+            if (dictionary != null) {
+              double[] valueArray = _columnToValueArrayMap.get(aggrColumn);
+              dictionary.readDoubleValues(_columnToDictArrayMap.get(aggrColumn), startIndex, length, valueArray,
+                  startIndex);
+            }
             _columnsLoaded.add(aggrColumn);
           }
         }
@@ -339,10 +377,6 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
    */
   private void fetchColumnValueHashCodes(String aggrColumn, Dictionary dictionary, int length) {
     int[] dictIdArray = _columnToDictArrayMap.get(aggrColumn);
-    if (_hashCodeArray == null) {
-      _hashCodeArray = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-    }
-
     for (int i = 0; i < length; i++) {
       int dictId = dictIdArray[i];
       if (dictId == Dictionary.NULL_VALUE_INDEX) {
@@ -352,4 +386,33 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
       }
     }
   }
+
+  /**
+   * Fetch value hashcodes for the given aggregation column without dictionary, from the values fetched in method
+   * fetchColumnDictIds. The hashcodes match the ones of the dictionary values, so that results from segments with and
+   * without dictionary can be merged.
+   *
+   * @param aggrColumn
+   * @param dataType
+   * @param length
+   */
+  private void fetchRawColumnValueHashCodes(String aggrColumn, FieldSpec.DataType dataType, int length) {
+    double[] valueArray = _columnToValueArrayMap.get(aggrColumn);
+    for (int i = 0; i < length; i++) {
+      switch (dataType) {
+        case INT:
+          _hashCodeArray[i] = Integer.valueOf((int) valueArray[i]).hashCode();
+          break;
+        case LONG:
+          _hashCodeArray[i] = Long.valueOf((long) valueArray[i]).hashCode();
+          break;
+        case FLOAT:
+          _hashCodeArray[i] = Float.valueOf((float) valueArray[i]).hashCode();
+          break;
+        default:
+          _hashCodeArray[i] = Double.valueOf(valueArray[i]).hashCode();
+          break;
+      }
+    }
+  }
 }
@@ -47,10 +47,11 @@ public class AvgAggregationFunction implements AggregationFunction {
   public void aggregate(int length, AggregationResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     double sum = 0.0;
     for (int i = 0; i < length; ++i) {
-      sum += valueArray[0][i];
+      sum += values[i];
     }
     Pair<Double, Long> avgValue = resultHolder.getResult();
     if (avgValue == null) {
@@ -78,16 +79,17 @@ public class AvgAggregationFunction implements AggregationFunction {
       double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     for (int i = 0; i < length; ++i) {
       int groupKey = groupKeys[i];
-      double value = valueArray[0][i];
+      double value = values[i];
       Pair<Double, Long> avgValue = resultHolder.getResult(groupKey);
       if (avgValue == null) {
         avgValue = new Pair<>(value, 1L);
         resultHolder.setValueForKey(groupKey, avgValue);
       } else {
-        avgValue.setFirst(avgValue.getFirst() + valueArray[0][i]);
+        avgValue.setFirst(avgValue.getFirst() + values[i]);
         avgValue.setSecond(avgValue.getSecond() + 1);
       }
     }
@@ -106,16 +108,17 @@ public class AvgAggregationFunction implements AggregationFunction {
       double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     for (int i = 0; i < length; ++i) {
-      double value = valueArray[0][i];
+      double value = values[i];
       for (int groupKey : docIdToGroupKeys[i]) {
         Pair<Double, Long> avgValue = resultHolder.getResult(groupKey);
         if (avgValue == null) {
           avgValue = new Pair<>(value, 1L);
           resultHolder.setValueForKey(groupKey, avgValue);
         } else {
-          avgValue.setFirst(avgValue.getFirst() + valueArray[0][i]);
+          avgValue.setFirst(avgValue.getFirst() + values[i]);
           avgValue.setSecond(avgValue.getSecond() + 1);
         }
       }
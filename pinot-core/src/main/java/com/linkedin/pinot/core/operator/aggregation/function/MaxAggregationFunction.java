@@ -47,11 +47,12 @@ public class MaxAggregationFunction implements AggregationFunction {
   public void aggregate(int length, AggregationResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     double max = DEFAULT_VALUE;
     for (int i = 0; i < length; i++) {
-      if (valueArray[0][i] > max) {
-        max = valueArray[0][i];
+      if (values[i] > max) {
+        max = values[i];
       }
     }
 
@@ -77,12 +78,13 @@ public class MaxAggregationFunction implements AggregationFunction {
       double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     for (int i = 0; i < length; i++) {
       int groupKey = groupKeys[i];
       double oldValue = resultHolder.getDoubleResult(groupKey);
-      if (valueArray[0][i] > oldValue) {
-        resultHolder.setValueForKey(groupKey, valueArray[0][i]);
+      if (values[i] > oldValue) {
+        resultHolder.setValueForKey(groupKey, values[i]);
       }
     }
   }
@@ -100,12 +102,13 @@ public class MaxAggregationFunction implements AggregationFunction {
       double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     for (int i = 0; i < length; ++i) {
       for (int groupKey : docIdToGroupKey[i]) {
         double oldValue = resultHolder.getDoubleResult(groupKey);
-        if (valueArray[0][i] > oldValue) {
-          resultHolder.setValueForKey(groupKey, valueArray[0][i]);
+        if (values[i] > oldValue) {
+          resultHolder.setValueForKey(groupKey, values[i]);
         }
       }
     }
@@ -46,11 +46,12 @@ public class MinAggregationFunction implements AggregationFunction {
   public void aggregate(int length, AggregationResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     double min = DEFAULT_VALUE;
     for (int i = 0; i < length; i++) {
-      if (valueArray[0][i] < min) {
-        min = valueArray[0][i];
+      if (values[i] < min) {
+        min = values[i];
       }
     }
     double oldValue = resultHolder.getDoubleResult();
@@ -74,12 +75,13 @@ public class MinAggregationFunction implements AggregationFunction {
       double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     for (int i = 0; i < length; i++) {
       int groupKey = groupKeys[i];
       double oldValue = resultHolder.getDoubleResult(groupKey);
-      if (valueArray[0][i] < oldValue) {
-        resultHolder.setValueForKey(groupKey, valueArray[0][i]);
+      if (values[i] < oldValue) {
+        resultHolder.setValueForKey(groupKey, values[i]);
       }
     }
   }
@@ -97,12 +99,13 @@ public class MinAggregationFunction implements AggregationFunction {
       double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     for (int i = 0; i < length; ++i) {
       for (int groupKey : docIdToGroupKeys[i]) {
         double oldValue = resultHolder.getDoubleResult(groupKey);
-        if (valueArray[0][i] < oldValue) {
-          resultHolder.setValueForKey(groupKey, valueArray[0][i]);
+        if (values[i] < oldValue) {
+          resultHolder.setValueForKey(groupKey, values[i]);
         }
       }
     }
@@ -45,10 +45,11 @@ public class SumAggregationFunction implements AggregationFunction {
   public void aggregate(int length, AggregationResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     double sum = 0.0;
     for (int i = 0; i < length; i++) {
-      sum += valueArray[0][i];
+      sum += values[i];
     }
     resultHolder.setValue(resultHolder.getDoubleResult() + sum);
   }
@@ -69,11 +70,12 @@ public class SumAggregationFunction implements AggregationFunction {
       double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     for (int i = 0; i < length; i++) {
       int groupKey = groupKeys[i];
       double oldValue = resultHolder.getDoubleResult(groupKey);
-      resultHolder.setValueForKey(groupKey, (oldValue + valueArray[0][i]));
+      resultHolder.setValueForKey(groupKey, (oldValue + values[i]));
     }
   }
 
@@ -90,11 +92,12 @@ public class SumAggregationFunction implements AggregationFunction {
       double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
+    double[] values = valueArray[0];
 
     for (int i = 0; i < length; ++i) {
       for (int groupKey : docIdToGroupKey[i]) {
         double oldValue = resultHolder.getDoubleResult(groupKey);
-        double newValue = oldValue + valueArray[0][i];
+        double newValue = oldValue + values[i];
         resultHolder.setValueForKey(groupKey, newValue);
       }
     }
@@ -57,6 +57,14 @@ public class AggregationGroupByResult {
     return _groupKeyGenerator.getUniqueGroupKeys();
   }
 
+  /**
+   * Returns an iterator for group-by keys holding the actual values of the group-by columns.
+   * @return
+   */
+  public Iterator<GroupKeyGenerator.GroupKey> getTypedGroupKeyIterator() {
+    return _groupKeyGenerator.getUniqueTypedGroupKeys();
+  }
+
   /**
    *
    * Given a group-by key and an index into the result holder array, returns
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.operator.aggregation.groupby;
 
 import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.GroupBy;
 import com.linkedin.pinot.core.common.BlockValSet;
@@ -63,6 +64,10 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
   private Map<String, double[]> _columnToValueArrayMap;
   private double[] _hashCodeArray;
 
+  // Value arrays passed to each aggregation function, built once in 'init' so that
+  // no varargs array needs to be allocated per block.
+  private double[][][] _aggrFuncValueArrays;
+
   private GroupByResultHolder[] _resultHolderArray;
 
   private boolean _hasMultiValuedColumns = false;
@@ -129,7 +134,8 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     }
 
     _hasMultiValuedColumns = hasMultiValueGroupByColumns(_indexSegment, _groupByColumns);
-    _groupKeyGenerator = new DefaultGroupKeyGenerator(_indexSegment, _groupByColumns, _maxNumGroupKeys);
+    _groupKeyGenerator =
+        GroupByExecutorFactory.getGroupKeyGenerator(_indexSegment, _groupByColumns, _maxNumGroupKeys);
 
     _resultHolderArray = new GroupByResultHolder[_aggrFuncContextList.size()];
     for (int i = 0; i < _aggrFuncContextList.size(); i++) {
@@ -138,6 +144,28 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
       _resultHolderArray[i] = ResultHolderFactory.getGroupByResultHolder(aggregationFunction, _maxNumGroupKeys);
     }
 
+    _aggrFuncValueArrays = new double[_aggrFuncContextList.size()][][];
+    for (int i = 0; i < _aggrFuncContextList.size(); i++) {
+      AggregationFunctionContext aggregationFunctionContext = _aggrFuncContextList.get(i);
+      switch (aggregationFunctionContext.getFunctionName()) {
+        case AggregationFunctionFactory.COUNT_AGGREGATION_FUNCTION:
+          _aggrFuncValueArrays[i] = new double[0][];
+          break;
+
+        case AggregationFunctionFactory.DISTINCTCOUNT_AGGREGATION_FUNCTION:
+        case AggregationFunctionFactory.DISTINCTCOUNTHLL_AGGREGATION_FUNCTION:
+          if (_hashCodeArray == null) {
+            _hashCodeArray = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+          }
+          _aggrFuncValueArrays[i] = new double[][]{_hashCodeArray};
+          break;
+
+        default:
+          String aggrColumn = aggregationFunctionContext.getAggregationColumns()[0];
+          _aggrFuncValueArrays[i] = new double[][]{_columnToValueArrayMap.get(aggrColumn)};
+      }
+    }
+
     if (_hasMultiValuedColumns) {
       _docIdToMVGroupKey = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
     } else {
@@ -165,7 +193,7 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
 
     for (int i = 0; i < _aggrFuncContextList.size(); i++) {
       _resultHolderArray[i].ensureCapacity(numGroupKeys);
-      aggregateColumn(_aggrFuncContextList.get(i), _resultHolderArray[i], length);
+      aggregateColumn(_aggrFuncContextList.get(i), _resultHolderArray[i], _aggrFuncValueArrays[i], length);
     }
   }
 
@@ -174,10 +202,11 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
    *
    * @param aggrFuncContext
    * @param resultHolder
+   * @param valueArrays Value arrays to pass to the aggregation function
    * @param length
    */
   private void aggregateColumn(AggregationFunctionContext aggrFuncContext, GroupByResultHolder resultHolder,
-      int length) {
+      double[][] valueArrays, int length) {
     AggregationFunction function = aggrFuncContext.getAggregationFunction();
     String aggrFuncName = aggrFuncContext.getFunctionName();
     String[] aggrColumns = aggrFuncContext.getAggregationColumns();
@@ -186,32 +215,24 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     String aggrColumn = aggrColumns[0];
 
     switch (aggrFuncName) {
-      case AggregationFunctionFactory.COUNT_AGGREGATION_FUNCTION:
-        if (_hasMultiValuedColumns) {
-          function.aggregateGroupByMV(length, _docIdToMVGroupKey, resultHolder);
-        } else {
-          function.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder);
-        }
-        return;
-
       case AggregationFunctionFactory.DISTINCTCOUNT_AGGREGATION_FUNCTION:
       case AggregationFunctionFactory.DISTINCTCOUNTHLL_AGGREGATION_FUNCTION:
-        fetchColumnValueHashCodes(aggrColumn, aggrFuncContext.getDictionary(0), length);
-        if (_hasMultiValuedColumns) {
-          function.aggregateGroupByMV(length, _docIdToMVGroupKey, resultHolder, _hashCodeArray);
+        Dictionary dictionary = aggrFuncContext.getDictionary(0);
+        if (dictionary != null) {
+          fetchColumnValueHashCodes(aggrColumn, dictionary, length);
         } else {
-          function.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder, _hashCodeArray);
+          fetchRawColumnValueHashCodes(aggrColumn, aggrFuncContext.getBlockValSet(0).getValueType(), length);
         }
-        return;
+        break;
 
       default:
-        double[] valueArray = _columnToValueArrayMap.get(aggrColumn);
+        break;
+    }
 
-        if (_hasMultiValuedColumns) {
-          function.aggregateGroupByMV(length, _docIdToMVGroupKey, resultHolder, valueArray);
-        } else {
-          function.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder, valueArray);
-        }
+    if (_hasMultiValuedColumns) {
+      function.aggregateGroupByMV(length, _docIdToMVGroupKey, resultHolder, valueArrays);
+    } else {
+      function.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder, valueArrays);
     }
   }
 
@@ -246,6 +267,7 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
 
   /**
    * Fetch dictId's for the given docIdSet for all aggregation columns except count.
+   * Columns without dictionary have their values fetched directly instead.
    *
    * @param docIdSet
    * @param startIndex
@@ -261,9 +283,14 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
           String aggrColumn = aggrColumns[i];
 
           if (!_columnsLoaded.contains(aggrColumn)) {
-            int[] dictIdArray = _columnToDictArrayMap.get(aggrColumn);
             BlockValSet blockValSet = aggrFuncContext.getBlockValSet(i);
-            blockValSet.readIntValues(docIdSet, startIndex, length, dictIdArray, startIndex);
+            if (aggrFuncContext.getDictionary(i) == null) {
+              double[] valueArray = _columnToValueArrayMap.get(aggrColumn);
+              blockValSet.readDoubleValues(docIdSet, startIndex, length, valueArray, startIndex);
+            } else {
+              int[] dictIdArray = _columnToDictArrayMap.get(aggrColumn);
+              blockValSet.readIntValues(docIdSet, startIndex, length, dictIdArray, startIndex);
+            }
             _columnsLoaded.add(aggrColumn);
           }
         }
@@ -291,9 +318,12 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
 
           if (!_columnsLoaded.contains(aggrColumn)) {
             Dictionary dictionary = aggrFuncContext.getDictionary(i);
-            double[] valueArray = _columnToValueArrayMap.get(aggrColumn);
-            dictionary.readDoubleValues(_columnToDictArrayMap.get(aggrColumn), startIndex, length, valueArray,
-                startIndex);
+            // Values of columns without dictionary are already fetched in method fetchColumnDictIds
+            if (dictionary != null) {
+              double[] valueArray = _columnToValueArrayMap.get(aggrColumn);
+              dictionary.readDoubleValues(_columnToDictArrayMap.get(aggrColumn), startIndex, length, valueArray,
+                  startIndex);
+            }
             _columnsLoaded.add(aggrColumn);
           }
         }
@@ -311,10 +341,6 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
    */
   private void fetchColumnValueHashCodes(String aggrColumn, Dictionary dictionary, int length) {
     int[] dictIdArray = _columnToDictArrayMap.get(aggrColumn);
-    if (_hashCodeArray == null) {
-      _hashCodeArray = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-    }
-
     for (int i = 0; i < length; i++) {
       int dictId = dictIdArray[i];
       if (dictId == Dictionary.NULL_VALUE_INDEX) {
@@ -325,6 +351,35 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     }
   }
 
+  /**
+   * Fetch value hashcodes for the given aggregation column without dictionary, from the values fetched in method
+   * fetchColumnDictIds. The hashcodes match the ones of the dictionary values, so that results from segments with and
+   * without dictionary can be merged.
+   *
+   * @param aggrColumn
+   * @param dataType
+   * @param length
+   */
+  private void fetchRawColumnValueHashCodes(String aggrColumn, FieldSpec.DataType dataType, int length) {
+    double[] valueArray = _columnToValueArrayMap.get(aggrColumn);
+    for (int i = 0; i < length; i++) {
+      switch (dataType) {
+        case INT:
+          _hashCodeArray[i] = Integer.valueOf((int) valueArray[i]).hashCode();
+          break;
+        case LONG:
+          _hashCodeArray[i] = Long.valueOf((long) valueArray[i]).hashCode();
+          break;
+        case FLOAT:
+          _hashCodeArray[i] = Float.valueOf((float) valueArray[i]).hashCode();
+          break;
+        default:
+          _hashCodeArray[i] = Double.valueOf(valueArray[i]).hashCode();
+          break;
+      }
+    }
+  }
+
   /**
    * Returns true if any of the group-by columns are multi-valued, false otherwise.
    *
@@ -285,6 +285,24 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
+  /**
+   * Convert group key from dictId based to the actual values of the group by columns.
+   *
+   * @param groupKey
+   * @param values
+   */
+  private void dictIdToGroupKeyValues(long groupKey, Object[] values) {
+    // Special case one group by column for performance.
+    if (_groupByColumns.length == 1) {
+      values[0] = _dictionaries[0].get((int) groupKey);
+    } else {
+      decodeRawGroupKey(groupKey, _cardinalities, _reusableGroupByValuesArray);
+      for (int i = 0; i < _reusableGroupByValuesArray.length; i++) {
+        values[i] = _dictionaries[i].get(_reusableGroupByValuesArray[i]);
+      }
+    }
+  }
+
   /**
    * Returns an iterator of group by key (dictionary based) and the
    * corresponding string group by key based on the actual column values.
@@ -292,11 +310,25 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
    */
   @Override
   public Iterator<GroupKey> getUniqueGroupKeys() {
+    return getUniqueGroupKeys(false);
+  }
+
+  /**
+   * {@inheritDoc}
+   * @return
+   */
+  @Override
+  public Iterator<GroupKey> getUniqueTypedGroupKeys() {
+    return getUniqueGroupKeys(true);
+  }
+
+  private Iterator<GroupKey> getUniqueGroupKeys(boolean typed) {
+    Object[] values = typed ? new Object[_numGroupByColumns] : null;
     if (_storageType == STORAGE_TYPE.ARRAY_BASED) {
-      return new ArrayBasedGroupKeyIterator();
+      return new ArrayBasedGroupKeyIterator(values);
     } else {
       final ObjectIterator<Map.Entry<Long, Integer>> iterator = _groupKeyToId.entrySet().iterator();
-      return new MapBasedGroupKeyIterator(iterator);
+      return new MapBasedGroupKeyIterator(iterator, values);
     }
   }
 
@@ -351,6 +383,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   private class ArrayBasedGroupKeyIterator implements Iterator<GroupKey> {
     int index = 0;
     GroupKey _groupKey = new GroupKey(INVALID_ID, null);
+    private final Object[] _values;
+
+    public ArrayBasedGroupKeyIterator(Object[] values) {
+      _values = values;
+      _groupKey.setValues(values);
+    }
 
     @Override
     public boolean hasNext() {
@@ -365,9 +403,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
 
     @Override
     public GroupKey next() {
-      String stringGroupKey = dictIdToStringGroupKey(index);
+      if (_values != null) {
+        dictIdToGroupKeyValues(index, _values);
+      } else {
+        _groupKey.setSecond(dictIdToStringGroupKey(index));
+      }
       _groupKey.setFirst(index++);
-      _groupKey.setSecond(stringGroupKey);
       return _groupKey;
     }
 
@@ -382,11 +423,14 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
    */
   private class MapBasedGroupKeyIterator implements Iterator<GroupKey> {
     private final ObjectIterator<Map.Entry<Long, Integer>> _iterator;
+    private final Object[] _values;
     GroupKey _groupKey;
 
-    public MapBasedGroupKeyIterator(ObjectIterator<Map.Entry<Long, Integer>> iterator) {
+    public MapBasedGroupKeyIterator(ObjectIterator<Map.Entry<Long, Integer>> iterator, Object[] values) {
       _iterator = iterator;
+      _values = values;
       _groupKey = new GroupKey(INVALID_ID, null);
+      _groupKey.setValues(values);
     }
 
     @Override
@@ -401,9 +445,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
       long groupKey = entry.getKey().longValue();
       int groupId = entry.getValue().intValue();
 
-      String stringGroupKey = dictIdToStringGroupKey(groupKey);
+      if (_values != null) {
+        dictIdToGroupKeyValues(groupKey, _values);
+      } else {
+        _groupKey.setSecond(dictIdToStringGroupKey(groupKey));
+      }
       _groupKey.setFirst(groupId);
-      _groupKey.setSecond(stringGroupKey);
       return _groupKey;
     }
 
@@ -36,7 +36,8 @@ public class GroupByExecutorFactory {
    * pre-defined criteria.
    *
    * Returns DefaultGroupByExecutor currently. May return other implementations
-   * in future, if necessary.
+   * in future, if necessary. The group key generator used by the executor is picked
+   * by {@link #getGroupKeyGenerator}.
    *
    * @param indexSegment
    * @param aggregationInfoList
@@ -88,4 +89,51 @@ public class GroupByExecutorFactory {
 
     return maxGroupKeys;
   }
+
+  /**
+   * Returns the appropriate implementation of GroupKeyGenerator for the given group-by columns:
+   * - DefaultGroupKeyGenerator if the product of cardinalities fits into a long, as it can use
+   *   the array based storage for small products, and a single long raw key otherwise.
+   * - LongArrayGroupKeyGenerator otherwise, that packs the raw key into multiple longs.
+   *
+   * @param indexSegment
+   * @param groupByColumns
+   * @param maxNumGroupKeys
+   * @return
+   */
+  static GroupKeyGenerator getGroupKeyGenerator(IndexSegment indexSegment, String[] groupByColumns,
+      int maxNumGroupKeys) {
+    if (rawKeyFitsInLong(indexSegment, groupByColumns)) {
+      return new DefaultGroupKeyGenerator(indexSegment, groupByColumns, maxNumGroupKeys);
+    } else {
+      return new LongArrayGroupKeyGenerator(indexSegment, groupByColumns);
+    }
+  }
+
+  /**
+   * Returns true if the product of cardinality of all group-by columns (single or multi-valued)
+   * fits into a long, false otherwise.
+   *
+   * @param indexSegment
+   * @param groupByColumns
+   * @return
+   */
+  private static boolean rawKeyFitsInLong(IndexSegment indexSegment, String[] groupByColumns) {
+    long maxRawKey = 1;
+
+    for (String column : groupByColumns) {
+      int cardinality = indexSegment.getDataSource(column).getDataSourceMetadata().cardinality();
+      if (cardinality <= 0) {
+        cardinality = 1;
+      }
+
+      // Protecting against overflow.
+      if (maxRawKey > (Long.MAX_VALUE / cardinality)) {
+        return false;
+      }
+      maxRawKey *= cardinality;
+    }
+
+    return true;
+  }
 }
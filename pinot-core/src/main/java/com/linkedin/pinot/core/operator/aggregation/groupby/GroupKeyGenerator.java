@@ -52,6 +52,14 @@ public interface GroupKeyGenerator {
    */
   Iterator<GroupKey> getUniqueGroupKeys();
 
+  /**
+   * Returns an iterator of group keys holding the actual (typed) values of the group by columns,
+   * see {@link GroupKey#getValues()}, instead of the string group key. The values array is reused
+   * across calls to next().
+   * @return
+   */
+  Iterator<GroupKey> getUniqueTypedGroupKeys();
+
   /**
    * Return the maximum number of unique group keys.
    * @return
@@ -59,9 +67,10 @@ public interface GroupKeyGenerator {
   int getNumGroupKeys();
 
   /**
-   * This class encapsulates the group Id and the string group key.
+   * This class encapsulates the group Id and the string group key, or the values of the group by columns.
    */
   class GroupKey extends Pair<Integer, String> {
+    private Object[] _values;
 
     public GroupKey(Integer first, String second) {
       super(first, second);
@@ -70,5 +79,13 @@ public interface GroupKeyGenerator {
     public String getStringKey() {
       return getSecond();
     }
+
+    public Object[] getValues() {
+      return _values;
+    }
+
+    public void setValues(Object[] values) {
+      _values = values;
+    }
   }
 }
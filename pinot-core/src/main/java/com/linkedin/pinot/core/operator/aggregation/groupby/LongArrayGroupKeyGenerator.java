@@ -0,0 +1,366 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.aggregation.groupby;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockMultiValIterator;
+import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
+import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByConstants;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * Class for generating group-by keys when the product of cardinalities of the group-by columns
+ * does not fit into a long (and hence cannot be handled by {@link DefaultGroupKeyGenerator}).
+ *
+ * Dictionary id's of the group-by columns are bit-packed into a fixed number of longs, where each
+ * column takes ceil(log2(cardinality)) bits and never straddles two longs. The packed keys are mapped
+ * onto contiguous group id's using {@link LongArrayKeyToIdMap}.
+ */
+public class LongArrayGroupKeyGenerator implements GroupKeyGenerator {
+  private static final int INVALID_ID = -1;
+
+  private final String[] _groupByColumns;
+  private final int _numGroupByColumns;
+
+  private final BlockValSet[] _singleBlockValSets;
+  private final int[][] _singleDictIds;
+  private final BlockMultiValIterator[] _multiValIterators;
+
+  private final Dictionary[] _dictionaries;
+  private final boolean[] _isSingleValueGroupByColumn;
+
+  // Position of each group-by column inside the packed key.
+  private final int _numLongsPerKey;
+  private final int[] _longIndexes;
+  private final int[] _bitOffsets;
+  private final long[] _bitMasks;
+
+  // Reusable arrays, to avoid creating objects with each call.
+  private final long[] _reusableKey;
+  private final int[] _reusableGroupByValuesArray;
+  private final int[] _reusableMultiValDictIdArray;
+
+  private final LongArrayKeyToIdMap _groupKeyToId;
+
+  /**
+   * Constructor for the class. Initializes the key layout and data members (reusable arrays).
+   *
+   * @param indexSegment
+   * @param groupByColumns
+   */
+  LongArrayGroupKeyGenerator(IndexSegment indexSegment, String[] groupByColumns) {
+    _groupByColumns = groupByColumns;
+    _numGroupByColumns = groupByColumns.length;
+
+    _singleBlockValSets = new BlockValSet[_numGroupByColumns];
+    _singleDictIds = new int[_numGroupByColumns][];
+    _multiValIterators = new BlockMultiValIterator[_numGroupByColumns];
+
+    _dictionaries = new Dictionary[_numGroupByColumns];
+    _isSingleValueGroupByColumn = new boolean[_numGroupByColumns];
+    int[] cardinalities = new int[_numGroupByColumns];
+
+    int maxNumMultiValues = 0;
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      DataSource dataSource = indexSegment.getDataSource(_groupByColumns[i]);
+
+      _dictionaries[i] = dataSource.getDictionary();
+      cardinalities[i] = dataSource.getDataSourceMetadata().cardinality();
+      _isSingleValueGroupByColumn[i] = dataSource.getDataSourceMetadata().isSingleValue();
+
+      Block block = dataSource.nextBlock();
+
+      if (_isSingleValueGroupByColumn[i]) {
+        _singleBlockValSets[i] = block.getBlockValueSet();
+        _singleDictIds[i] = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+      } else {
+        maxNumMultiValues = Math.max(maxNumMultiValues, block.getMetadata().getMaxNumberOfMultiValues());
+        _multiValIterators[i] = (BlockMultiValIterator) block.getBlockValueSet().iterator();
+      }
+    }
+
+    _longIndexes = new int[_numGroupByColumns];
+    _bitOffsets = new int[_numGroupByColumns];
+    _numLongsPerKey = computeKeyLayout(cardinalities, _longIndexes, _bitOffsets);
+
+    _bitMasks = new long[_numGroupByColumns];
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      _bitMasks[i] = (1L << getNumBitsForCardinality(cardinalities[i])) - 1;
+    }
+
+    _reusableKey = new long[_numLongsPerKey];
+    _reusableGroupByValuesArray = new int[_numGroupByColumns];
+    _reusableMultiValDictIdArray = new int[maxNumMultiValues];
+
+    _groupKeyToId = new LongArrayKeyToIdMap(_numLongsPerKey, ResultHolderFactory.MAX_INITIAL_RESULT_HOLDER_CAPACITY);
+  }
+
+  /**
+   * Returns the number of bits required to store dictionary id's for the given cardinality.
+   * Zero/negative cardinality (bad segment) is treated as cardinality of 1.
+   *
+   * @param cardinality
+   * @return
+   */
+  public static int getNumBitsForCardinality(int cardinality) {
+    if (cardinality <= 1) {
+      return 1;
+    }
+    return Integer.SIZE - Integer.numberOfLeadingZeros(cardinality - 1);
+  }
+
+  /**
+   * Compute the position of each column inside the packed key. Columns are laid out in order,
+   * and a column that does not fit into the remaining bits of the current long starts a new long.
+   *
+   * @param cardinalities Cardinality of each group-by column
+   * @param longIndexes Output: index of the long that holds each column
+   * @param bitOffsets Output: offset of each column inside its long
+   * @return Number of longs per key
+   */
+  public static int computeKeyLayout(int[] cardinalities, int[] longIndexes, int[] bitOffsets) {
+    int longIndex = 0;
+    int bitOffset = 0;
+
+    for (int i = 0; i < cardinalities.length; i++) {
+      int numBits = getNumBitsForCardinality(cardinalities[i]);
+      if (bitOffset + numBits > Long.SIZE) {
+        longIndex++;
+        bitOffset = 0;
+      }
+      longIndexes[i] = longIndex;
+      bitOffsets[i] = bitOffset;
+      bitOffset += numBits;
+    }
+    return longIndex + 1;
+  }
+
+  /**
+   * {@inheritDoc}
+   * @param docIdSet
+   * @param startIndex
+   * @param length
+   * @param docIdToGroupKey
+   */
+  @Override
+  public void generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[] docIdToGroupKey) {
+    Preconditions.checkArgument(startIndex == 0);
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      _singleBlockValSets[i].readIntValues(docIdSet, 0, length, _singleDictIds[i], 0);
+    }
+    for (int i = 0; i < length; i++) {
+      Arrays.fill(_reusableKey, 0L);
+      for (int j = 0; j < _numGroupByColumns; j++) {
+        _reusableKey[_longIndexes[j]] |= ((long) _singleDictIds[j][i]) << _bitOffsets[j];
+      }
+      docIdToGroupKey[i] = _groupKeyToId.getOrCreateId(_reusableKey);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * @param docIdSet
+   * @param startIndex
+   * @param length
+   * @param docIdToGroupKeys
+   */
+  @Override
+  public void generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[][] docIdToGroupKeys) {
+    Preconditions.checkArgument(startIndex == 0);
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      if (_isSingleValueGroupByColumn[i]) {
+        _singleBlockValSets[i].readIntValues(docIdSet, 0, length, _singleDictIds[i], 0);
+      }
+    }
+    for (int i = 0; i < length; i++) {
+      docIdToGroupKeys[i] = generateKeysForDocId(i, docIdSet[i]);
+    }
+  }
+
+  /**
+   * Given an index and docId, generate and return an array of unique group by keys,
+   * based on the values of group by columns of the record of given docId.
+   *
+   * @param index
+   * @param docId
+   * @return
+   */
+  private int[] generateKeysForDocId(int index, int docId) {
+    List<long[]> groupByKeys = new ArrayList<>();
+    groupByKeys.add(new long[_numLongsPerKey]);
+
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      int longIndex = _longIndexes[i];
+      int bitOffset = _bitOffsets[i];
+
+      if (_isSingleValueGroupByColumn[i]) {
+        long dictId = _singleDictIds[i][index];
+
+        for (long[] groupByKey : groupByKeys) {
+          groupByKey[longIndex] |= dictId << bitOffset;
+        }
+      } else {
+        BlockMultiValIterator blockValIterator = _multiValIterators[i];
+        blockValIterator.skipTo(docId);
+        int numMultiValues = blockValIterator.nextIntVal(_reusableMultiValDictIdArray);
+
+        int originalSize = groupByKeys.size();
+        for (int j = 0; j < numMultiValues - 1; ++j) {
+          for (int k = 0; k < originalSize; k++) {
+            groupByKeys.add(groupByKeys.get(k).clone());
+          }
+        }
+
+        for (int j = 0; j < numMultiValues; j++) {
+          long dictId = _reusableMultiValDictIdArray[j];
+          for (int k = 0; k < originalSize; k++) {
+            groupByKeys.get(j * originalSize + k)[longIndex] |= dictId << bitOffset;
+          }
+        }
+      }
+    }
+
+    int numGroupKeys = groupByKeys.size();
+    int[] groupKeys = new int[numGroupKeys];
+    for (int i = 0; i < numGroupKeys; i++) {
+      groupKeys[i] = _groupKeyToId.getOrCreateId(groupByKeys.get(i));
+    }
+    return groupKeys;
+  }
+
+  /**
+   * Decode the individual column values (dictionary id's) from the given packed key.
+   *
+   * @param key
+   * @param decoded
+   */
+  private void decodeKey(long[] key, int[] decoded) {
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      decoded[i] = (int) ((key[_longIndexes[i]] >>> _bitOffsets[i]) & _bitMasks[i]);
+    }
+  }
+
+  /**
+   * Convert the given group id to string based group key, using actual values
+   * corresponding to dictionary id's.
+   *
+   * @param groupId
+   * @return
+   */
+  private String groupIdToStringGroupKey(int groupId) {
+    _groupKeyToId.getKey(groupId, _reusableKey);
+    decodeKey(_reusableKey, _reusableGroupByValuesArray);
+
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      if (i > 0) {
+        builder.append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString());
+      }
+      builder.append(_dictionaries[i].get(_reusableGroupByValuesArray[i]).toString());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Convert the given group id to the actual values of the group by columns.
+   *
+   * @param groupId
+   * @param values
+   */
+  private void groupIdToGroupKeyValues(int groupId, Object[] values) {
+    _groupKeyToId.getKey(groupId, _reusableKey);
+    decodeKey(_reusableKey, _reusableGroupByValuesArray);
+
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      values[i] = _dictionaries[i].get(_reusableGroupByValuesArray[i]);
+    }
+  }
+
+  /**
+   * Returns an iterator of group id and the corresponding string group by key
+   * based on the actual column values.
+   * @return
+   */
+  @Override
+  public Iterator<GroupKey> getUniqueGroupKeys() {
+    return new GroupKeyIterator(false);
+  }
+
+  /**
+   * {@inheritDoc}
+   * @return
+   */
+  @Override
+  public Iterator<GroupKey> getUniqueTypedGroupKeys() {
+    return new GroupKeyIterator(true);
+  }
+
+  /**
+   * {@inheritDoc}
+   * @return
+   */
+  @Override
+  public int getNumGroupKeys() {
+    return _groupKeyToId.size();
+  }
+
+  /**
+   * Inner class to implement group by keys iterator. Group id's are contiguous,
+   * so this simply walks from 0 to the number of unique keys.
+   */
+  private class GroupKeyIterator implements Iterator<GroupKey> {
+    private final int _numGroupKeys = _groupKeyToId.size();
+    private int _index = 0;
+    private final GroupKey _groupKey = new GroupKey(INVALID_ID, null);
+    private final Object[] _values;
+
+    GroupKeyIterator(boolean typed) {
+      _values = typed ? new Object[_numGroupByColumns] : null;
+      _groupKey.setValues(_values);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return _index < _numGroupKeys;
+    }
+
+    @Override
+    public GroupKey next() {
+      if (_values != null) {
+        groupIdToGroupKeyValues(_index, _values);
+      } else {
+        _groupKey.setSecond(groupIdToStringGroupKey(_index));
+      }
+      _groupKey.setFirst(_index++);
+      return _groupKey;
+    }
+
+    @Override
+    public void remove() {
+      throw new RuntimeException("Unsupported remove method.");
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.aggregation.groupby;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+
+
+/**
+ * Open addressing hash map from fixed length long[] keys to contiguous int id's.
+ *
+ * Keys are copied into one flat long[] (key of id 'i' lives at [i * numLongsPerKey, (i + 1) * numLongsPerKey)),
+ * and the hash table itself is an int[] of (id + 1) with linear probing, so no objects are allocated per key.
+ * Id's are assigned in insertion order starting from 0, which allows them to be used directly as indices
+ * into the group by result holders.
+ */
+public class LongArrayKeyToIdMap {
+  public static final int INVALID_ID = -1;
+
+  private static final int EMPTY_SLOT = 0;
+  private static final int MAX_NUM_SLOTS = 1 << 30;
+  private static final double LOAD_FACTOR = 0.5;
+
+  private final int _numLongsPerKey;
+
+  private long[] _keys;
+  private int[] _slots;
+  private int _slotMask;
+  private int _resizeThreshold;
+  private int _size;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param numLongsPerKey Number of longs in each key
+   * @param initialCapacity Expected number of keys
+   */
+  public LongArrayKeyToIdMap(int numLongsPerKey, int initialCapacity) {
+    Preconditions.checkArgument(numLongsPerKey > 0);
+    Preconditions.checkArgument(initialCapacity > 0);
+
+    _numLongsPerKey = numLongsPerKey;
+
+    int numSlots = Integer.highestOneBit((int) Math.min(MAX_NUM_SLOTS, (long) (initialCapacity / LOAD_FACTOR)));
+    numSlots = Math.max(numSlots, 16);
+    initSlots(numSlots);
+    _keys = new long[(_resizeThreshold + 1) * _numLongsPerKey];
+    _size = 0;
+  }
+
+  /**
+   * Returns the id for the given key, or INVALID_ID if the key does not exist in the map.
+   *
+   * @param key
+   * @return
+   */
+  public int get(long[] key) {
+    int slot = hash(key) & _slotMask;
+    while (true) {
+      int value = _slots[slot];
+      if (value == EMPTY_SLOT) {
+        return INVALID_ID;
+      }
+      if (keyEquals(value - 1, key)) {
+        return value - 1;
+      }
+      slot = (slot + 1) & _slotMask;
+    }
+  }
+
+  /**
+   * Returns the id for the given key. If the key does not exist in the map, it is copied
+   * into the map and assigned the next available id (which is the size of the map before insertion).
+   *
+   * @param key
+   * @return
+   */
+  public int getOrCreateId(long[] key) {
+    int slot = hash(key) & _slotMask;
+    while (true) {
+      int value = _slots[slot];
+      if (value == EMPTY_SLOT) {
+        break;
+      }
+      if (keyEquals(value - 1, key)) {
+        return value - 1;
+      }
+      slot = (slot + 1) & _slotMask;
+    }
+
+    int id = _size++;
+    ensureKeyCapacity(_size);
+    System.arraycopy(key, 0, _keys, id * _numLongsPerKey, _numLongsPerKey);
+    _slots[slot] = id + 1;
+
+    if (_size > _resizeThreshold) {
+      rehash();
+    }
+    return id;
+  }
+
+  /**
+   * Copies the key for the given id into the passed in array.
+   *
+   * @param id
+   * @param key
+   */
+  public void getKey(int id, long[] key) {
+    Preconditions.checkElementIndex(id, _size);
+    System.arraycopy(_keys, id * _numLongsPerKey, key, 0, _numLongsPerKey);
+  }
+
+  /**
+   * Returns the number of keys in the map.
+   *
+   * @return
+   */
+  public int size() {
+    return _size;
+  }
+
+  private boolean keyEquals(int id, long[] key) {
+    int offset = id * _numLongsPerKey;
+    for (int i = 0; i < _numLongsPerKey; i++) {
+      if (_keys[offset + i] != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int hashAt(int id) {
+    int offset = id * _numLongsPerKey;
+    long hash = 0;
+    for (int i = 0; i < _numLongsPerKey; i++) {
+      hash = mix(hash + _keys[offset + i]);
+    }
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  private int hash(long[] key) {
+    long hash = 0;
+    for (int i = 0; i < _numLongsPerKey; i++) {
+      hash = mix(hash + key[i]);
+    }
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  /**
+   * 64 bit finalizer from MurmurHash3, spreads the dictionary id bits over the whole long.
+   */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  private void initSlots(int numSlots) {
+    _slots = new int[numSlots];
+    _slotMask = numSlots - 1;
+    _resizeThreshold = (int) (numSlots * LOAD_FACTOR);
+  }
+
+  private void ensureKeyCapacity(int numKeys) {
+    long required = (long) numKeys * _numLongsPerKey;
+    if (required > _keys.length) {
+      long newLength = Math.max(required, 2L * _keys.length);
+      if (newLength > Integer.MAX_VALUE - 8) {
+        if (required > Integer.MAX_VALUE - 8) {
+          throw new IllegalStateException("Too many group keys: " + numKeys);
+        }
+        newLength = Integer.MAX_VALUE - 8;
+      }
+      _keys = Arrays.copyOf(_keys, (int) newLength);
+    }
+  }
+
+  private void rehash() {
+    if (_slots.length == MAX_NUM_SLOTS) {
+      throw new IllegalStateException("Too many group keys: " + _size);
+    }
+    initSlots(_slots.length << 1);
+    for (int id = 0; id < _size; id++) {
+      int slot = hashAt(id) & _slotMask;
+      while (_slots[slot] != EMPTY_SLOT) {
+        slot = (slot + 1) & _slotMask;
+      }
+      _slots[slot] = id + 1;
+    }
+  }
+}
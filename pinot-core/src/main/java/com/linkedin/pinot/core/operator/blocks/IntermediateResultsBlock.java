@@ -32,6 +32,9 @@ import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.operator.aggregation.groupby.AggregationGroupByResult;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyTuple;
+import com.linkedin.pinot.core.query.executor.QueryResourceLimitExceededException;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -56,6 +59,9 @@ public class IntermediateResultsBlock implements Block {
   private long _totalRawDocs;
   private List<Map<String, Serializable>> _aggregationGroupByOperatorResult;
   private AggregationGroupByResult _aggregationGroupByResult;
+  private List<String> _groupByColumns;
+  private Map<GroupKeyTuple, Serializable[]> _typedAggregationGroupByResult;
+  private double[] _groupByTrimThresholds;
   private DataSchema _dataSchema;
   private Collection<Serializable[]> _selectionResult;
 
@@ -98,8 +104,24 @@ public class IntermediateResultsBlock implements Block {
     _aggregationGroupByOperatorResult = null;
   }
 
+  /**
+   * Constructor of the class when group-by results are provided as a map from typed group-by keys
+   * to the results of all aggregation functions.
+   *
+   * @param aggregationFunctions List of aggregation functions in the query
+   * @param groupByColumns List of group-by columns in the query
+   * @param typedAggregationGroupByResult Result of aggregation group-by.
+   */
+  public IntermediateResultsBlock(List<AggregationFunction> aggregationFunctions, List<String> groupByColumns,
+      Map<GroupKeyTuple, Serializable[]> typedAggregationGroupByResult) {
+    _aggregationFunctionList = aggregationFunctions;
+    _groupByColumns = groupByColumns;
+    _typedAggregationGroupByResult = typedAggregationGroupByResult;
+  }
+
   public IntermediateResultsBlock(Exception e) {
-    this(QueryException.QUERY_EXECUTION_ERROR, e);
+    this(e instanceof QueryResourceLimitExceededException ? QueryException.QUERY_RESOURCE_LIMIT_EXCEEDED_ERROR
+        : QueryException.QUERY_EXECUTION_ERROR, e);
   }
 
   public IntermediateResultsBlock(ProcessingException processingException, Exception e) {
@@ -153,6 +175,9 @@ public class IntermediateResultsBlock implements Block {
     if (_aggregationGroupByOperatorResult != null) {
       return getAggregationGroupByResultDataTable();
     }
+    if (_typedAggregationGroupByResult != null) {
+      return getTypedAggregationGroupByResultDataTable();
+    }
     if (_selectionResult != null) {
       return getSelectionResultDataTable();
     }
@@ -167,6 +192,17 @@ public class IntermediateResultsBlock implements Block {
     dataTable.getMetadata().put(NUM_DOCS_SCANNED, _numDocsScanned + "");
     dataTable.getMetadata().put(TIME_USED_MS, _timeUsedMs + "");
     dataTable.getMetadata().put(TOTAL_DOCS, _totalRawDocs + "");
+    if (_groupByTrimThresholds != null) {
+      StringBuilder trimThresholds = new StringBuilder();
+      for (int i = 0; i < _groupByTrimThresholds.length; i++) {
+        if (i > 0) {
+          trimThresholds.append(',');
+        }
+        trimThresholds.append(_groupByTrimThresholds[i]);
+      }
+      dataTable.getMetadata()
+          .put(AggregationGroupByOperatorService.GROUP_BY_TRIM_THRESHOLDS_METADATA_KEY, trimThresholds.toString());
+    }
     if (_processingExceptions != null && _processingExceptions.size() > 0) {
       for (int i = 0; i < _processingExceptions.size(); ++i) {
         dataTable.addException(_processingExceptions.get(i));
@@ -234,6 +270,74 @@ public class IntermediateResultsBlock implements Block {
     return attachMetadataToDataTable(dataTableBuilder.build());
   }
 
+  public Map<GroupKeyTuple, Serializable[]> getTypedAggregationGroupByResult() {
+    return _typedAggregationGroupByResult;
+  }
+
+  /**
+   * Builds a DataTable with one row per group-by key, holding the typed values of the group-by columns
+   * followed by the results of all aggregation functions.
+   *
+   * @return
+   * @throws Exception
+   */
+  public DataTable getTypedAggregationGroupByResultDataTable() throws Exception {
+    DataSchema dataSchema = AggregationGroupByOperatorService.getTypedGroupByResultDataSchema(_groupByColumns,
+        _aggregationFunctionList, _typedAggregationGroupByResult.keySet());
+    int numGroupByColumns = _groupByColumns.size();
+    int numAggregationFunctions = _aggregationFunctionList.size();
+
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    dataTableBuilder.open();
+    for (Map.Entry<GroupKeyTuple, Serializable[]> entry : _typedAggregationGroupByResult.entrySet()) {
+      dataTableBuilder.startRow();
+
+      Object[] values = entry.getKey().getValues();
+      for (int i = 0; i < numGroupByColumns; i++) {
+        switch (dataSchema.getColumnType(i)) {
+          case INT:
+            dataTableBuilder.setColumn(i, ((Number) values[i]).intValue());
+            break;
+          case LONG:
+            dataTableBuilder.setColumn(i, ((Number) values[i]).longValue());
+            break;
+          case FLOAT:
+            dataTableBuilder.setColumn(i, ((Number) values[i]).floatValue());
+            break;
+          case DOUBLE:
+            dataTableBuilder.setColumn(i, ((Number) values[i]).doubleValue());
+            break;
+          default:
+            dataTableBuilder.setColumn(i, values[i].toString());
+            break;
+        }
+      }
+
+      Serializable[] results = entry.getValue();
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        int columnIndex = numGroupByColumns + i;
+        switch (dataSchema.getColumnType(columnIndex)) {
+          case LONG:
+            dataTableBuilder.setColumn(columnIndex, ((Number) results[i]).longValue());
+            break;
+          case DOUBLE:
+            dataTableBuilder.setColumn(columnIndex, ((Number) results[i]).doubleValue());
+            break;
+          default:
+            dataTableBuilder.setColumn(columnIndex, (Object) results[i]);
+            break;
+        }
+      }
+
+      dataTableBuilder.finishRow();
+    }
+    dataTableBuilder.seal();
+    DataTable dataTable = attachMetadataToDataTable(dataTableBuilder.build());
+    dataTable.getMetadata()
+        .put(AggregationGroupByOperatorService.NUM_GROUP_BY_COLUMNS_METADATA_KEY, Integer.toString(numGroupByColumns));
+    return dataTable;
+  }
+
   public List<ProcessingException> getExceptions() {
     return _processingExceptions;
   }
@@ -282,6 +386,15 @@ public class IntermediateResultsBlock implements Block {
     _totalRawDocs = totalRawDocs;
   }
 
+  /**
+   * Sets the trim thresholds of the approximate TOP N group-by, one for each aggregation function.
+   *
+   * @param groupByTrimThresholds
+   */
+  public void setGroupByTrimThresholds(double[] groupByTrimThresholds) {
+    _groupByTrimThresholds = groupByTrimThresholds;
+  }
+
   public void setAggregationFunctions(List<AggregationFunction> aggregationFunctions) {
     _aggregationFunctionList = aggregationFunctions;
   }
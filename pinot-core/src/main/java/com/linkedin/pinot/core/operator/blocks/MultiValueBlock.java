@@ -89,7 +89,7 @@ public class MultiValueBlock implements Block {
 
   @Override
   public BlockValSet getBlockValueSet() {
-    return new MultiValueSet(mVReader, columnMetadata);
+    return new MultiValueSet(mVReader, columnMetadata, dictionary);
   }
 
   @Override
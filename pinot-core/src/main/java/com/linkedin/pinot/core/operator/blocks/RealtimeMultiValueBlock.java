@@ -74,7 +74,8 @@ public class RealtimeMultiValueBlock implements Block {
 
   @Override
   public BlockValSet getBlockValueSet() {
-    return new RealtimeMultiValueSet(reader, docIdSearchableOffset + 1, spec.getDataType());
+    return new RealtimeMultiValueSet(reader, docIdSearchableOffset + 1, spec.getDataType(), dictionary,
+        maxNumberOfMultiValues);
   }
 
   @Override
@@ -71,7 +71,7 @@ public class RealtimeSingleValueBlock implements Block {
 
   @Override
   public BlockValSet getBlockValueSet() {
-    return new RealtimeSingleValueSet(reader, docIdSearchableOffset + 1, spec.getDataType());
+    return new RealtimeSingleValueSet(reader, docIdSearchableOffset + 1, spec.getDataType(), dictionary);
   }
 
   @Override
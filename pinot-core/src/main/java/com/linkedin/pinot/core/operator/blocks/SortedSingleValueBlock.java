@@ -35,12 +35,14 @@ public class SortedSingleValueBlock implements Block {
 
   final SortedForwardIndexReader sVReader;
   private final BlockId id;
+  private final ImmutableDictionaryReader dictionary;
   private final BlockMetadata blockMetadata;
 
   public SortedSingleValueBlock(BlockId id, SortedForwardIndexReader singleValueReader,
       ImmutableDictionaryReader dictionaryReader, ColumnMetadata columnMetadata) {
     sVReader = singleValueReader;
     this.id = id;
+    this.dictionary = dictionaryReader;
     this.blockMetadata = new BlockMetadataImpl(columnMetadata, dictionaryReader);
   }
 
@@ -61,7 +63,7 @@ public class SortedSingleValueBlock implements Block {
 
   @Override
   public BlockValSet getBlockValueSet() {
-    return new SortedSingleValueSet(sVReader);
+    return new SortedSingleValueSet(sVReader, dictionary);
   }
 
   @Override
@@ -71,7 +71,7 @@ public class UnSortedSingleValueBlock implements Block {
 
   @Override
   public BlockValSet getBlockValueSet() {
-    return new UnSortedSingleValueSet(sVReader, columnMetadata);
+    return new UnSortedSingleValueSet(sVReader, columnMetadata, dictionary);
   }
 
   @Override
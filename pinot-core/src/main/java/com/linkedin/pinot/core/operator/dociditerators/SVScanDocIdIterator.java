@@ -22,20 +22,41 @@ import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.BlockSingleValIterator;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader;
+import com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 
 
 public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
+  private static final int BLOCK_SIZE = FixedBitSingleValueWriter.BLOCK_SIZE;
+
   int currentDocId = -1;
   BlockSingleValIterator valueIterator;
   private int startDocId;
   private int endDocId;
   private PredicateEvaluator evaluator;
   private String datasourceName;
+  // Forward index with block min/max to skip the blocks that cannot match, or null to scan all the docs
+  private FixedBitSingleValueReader blockMinMaxReader;
+  private int[] sortedMatchingDictIds;
+  private int nextBlockStartDocId;
+  private int numSkippedBlocks;
 
   public SVScanDocIdIterator(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
       PredicateEvaluator evaluator) {
+    this(datasourceName, blockValSet, blockMetadata, evaluator, null, null);
+  }
+
+  /**
+   * @param blockMinMaxReader Forward index of the column, used to skip the blocks of docs whose dictionary ids cannot
+   *                          match, or null to scan all the docs
+   * @param sortedMatchingDictIds Sorted dictionary ids matching the predicate, if blockMinMaxReader is not null
+   */
+  public SVScanDocIdIterator(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
+      PredicateEvaluator evaluator, FixedBitSingleValueReader blockMinMaxReader, int[] sortedMatchingDictIds) {
     this.datasourceName = datasourceName;
+    this.blockMinMaxReader = blockMinMaxReader;
+    this.sortedMatchingDictIds = sortedMatchingDictIds;
     this.evaluator = evaluator;
     valueIterator = (BlockSingleValIterator) blockValSet.iterator();
     if (evaluator.alwaysFalse()) {
@@ -54,6 +75,7 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
    */
   public void setStartDocId(int startDocId) {
     currentDocId = startDocId - 1;
+    nextBlockStartDocId = 0;
     valueIterator.skipTo(startDocId);
     this.startDocId = startDocId;
   }
@@ -101,7 +123,13 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     if (currentDocId == Constants.EOF) {
       return currentDocId;
     }
-    while (valueIterator.hasNext() && currentDocId < endDocId) {
+    while (currentDocId < endDocId) {
+      if (blockMinMaxReader != null && currentDocId + 1 >= nextBlockStartDocId && !skipToCandidateBlock()) {
+        break;
+      }
+      if (!valueIterator.hasNext()) {
+        break;
+      }
       currentDocId = currentDocId + 1;
       int dictIdForCurrentDoc = valueIterator.nextIntVal();
       if (evaluator.apply(dictIdForCurrentDoc)) {
@@ -114,6 +142,36 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     return Constants.EOF;
   }
 
+  /**
+   * Called when the next doc is in a block that has not been checked yet. Moves to the first block from there that
+   * may contain a matching doc.
+   *
+   * @return false if no block up to the end doc may contain a matching doc
+   */
+  private boolean skipToCandidateBlock() {
+    int docId = currentDocId + 1;
+    int candidateDocId = blockMinMaxReader.skipToCandidateRow(docId, sortedMatchingDictIds);
+    if (candidateDocId > endDocId) {
+      numSkippedBlocks += endDocId / BLOCK_SIZE - docId / BLOCK_SIZE + 1;
+      return false;
+    }
+    numSkippedBlocks += candidateDocId / BLOCK_SIZE - docId / BLOCK_SIZE;
+    nextBlockStartDocId = (candidateDocId / BLOCK_SIZE + 1) * BLOCK_SIZE;
+    if (candidateDocId > docId) {
+      currentDocId = candidateDocId - 1;
+      valueIterator.skipTo(candidateDocId);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of blocks of docs skipped without reading their values, thanks to the block min/max of the
+   * forward index.
+   */
+  public int getNumSkippedBlocks() {
+    return numSkippedBlocks;
+  }
+
   @Override
   public int currentDocId() {
     return currentDocId;
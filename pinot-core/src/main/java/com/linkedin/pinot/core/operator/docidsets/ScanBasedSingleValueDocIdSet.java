@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.operator.docidsets;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader;
 import com.linkedin.pinot.core.operator.dociditerators.SVScanDocIdIterator;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 
@@ -31,9 +32,19 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
   int endDocId;
 
   public ScanBasedSingleValueDocIdSet(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata, PredicateEvaluator evaluator) {
+    this(datasourceName, blockValSet, blockMetadata, evaluator, null, null);
+  }
+
+  /**
+   * @param blockMinMaxReader Forward index used to skip the blocks of docs that cannot match, or null to scan all docs
+   * @param sortedMatchingDictIds Sorted dictionary ids matching the predicate, if blockMinMaxReader is not null
+   */
+  public ScanBasedSingleValueDocIdSet(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
+      PredicateEvaluator evaluator, FixedBitSingleValueReader blockMinMaxReader, int[] sortedMatchingDictIds) {
     this.datasourceName = datasourceName;
     this.blockValSet = blockValSet;
-    blockValSetBlockDocIdIterator = new SVScanDocIdIterator(datasourceName, blockValSet, blockMetadata, evaluator);
+    blockValSetBlockDocIdIterator = new SVScanDocIdIterator(datasourceName, blockValSet, blockMetadata, evaluator,
+        blockMinMaxReader, sortedMatchingDictIds);
     setStartDocId(blockMetadata.getStartDocId());
     setEndDocId(blockMetadata.getEndDocId());
   }
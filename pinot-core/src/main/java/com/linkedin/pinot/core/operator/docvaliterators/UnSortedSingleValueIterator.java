@@ -19,6 +19,8 @@ import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.core.common.BlockSingleValIterator;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkReaderContext;
+import com.linkedin.pinot.core.io.reader.impl.v1.VarByteChunkSingleValueReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 
 public final class UnSortedSingleValueIterator extends BlockSingleValIterator {
@@ -26,6 +28,8 @@ public final class UnSortedSingleValueIterator extends BlockSingleValIterator {
   private int counter = 0;
   private ColumnMetadata columnMetadata;
   private SingleColumnSingleValueReader sVReader;
+  // Caches the last decompressed chunk for raw string columns
+  private ChunkReaderContext chunkReaderContext;
 
   
   public UnSortedSingleValueIterator(SingleColumnSingleValueReader sVReader,
@@ -33,6 +37,9 @@ public final class UnSortedSingleValueIterator extends BlockSingleValIterator {
     super();
     this.sVReader = sVReader;
     this.columnMetadata = columnMetadata;
+    if (sVReader instanceof VarByteChunkSingleValueReader) {
+      chunkReaderContext = ((VarByteChunkSingleValueReader) sVReader).createContext();
+    }
   }
 
   @Override
@@ -60,6 +67,45 @@ public final class UnSortedSingleValueIterator extends BlockSingleValIterator {
     return sVReader.getInt(counter++);
   }
 
+  @Override
+  public long nextLongVal() {
+    if (counter >= columnMetadata.getTotalDocs()) {
+      return Constants.EOF;
+    }
+
+    return sVReader.getLong(counter++);
+  }
+
+  @Override
+  public float nextFloatVal() {
+    if (counter >= columnMetadata.getTotalDocs()) {
+      return Constants.EOF;
+    }
+
+    return sVReader.getFloat(counter++);
+  }
+
+  @Override
+  public double nextDoubleVal() {
+    if (counter >= columnMetadata.getTotalDocs()) {
+      return Constants.EOF;
+    }
+
+    return sVReader.getDouble(counter++);
+  }
+
+  @Override
+  public String nextStringVal() {
+    if (counter >= columnMetadata.getTotalDocs()) {
+      return null;
+    }
+
+    if (chunkReaderContext != null) {
+      return ((VarByteChunkSingleValueReader) sVReader).getString(counter++, chunkReaderContext);
+    }
+    return sVReader.getString(counter++);
+  }
+
   @Override
   public boolean reset() {
     counter = 0;
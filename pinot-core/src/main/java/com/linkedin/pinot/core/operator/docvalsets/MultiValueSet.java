@@ -21,15 +21,18 @@ import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.io.reader.SingleColumnMultiValueReader;
 import com.linkedin.pinot.core.operator.docvaliterators.MultiValueIterator;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 public final class MultiValueSet implements BlockValSet {
   private ColumnMetadata columnMetadata;
   private SingleColumnMultiValueReader mVReader;
+  private Dictionary dictionary;
 
-  public MultiValueSet(SingleColumnMultiValueReader mVReader, ColumnMetadata columnMetadata) {
+  public MultiValueSet(SingleColumnMultiValueReader mVReader, ColumnMetadata columnMetadata, Dictionary dictionary) {
     super();
     this.mVReader = mVReader;
     this.columnMetadata = columnMetadata;
+    this.dictionary = dictionary;
   }
 
   @Override
@@ -47,4 +50,15 @@ public final class MultiValueSet implements BlockValSet {
     throw new UnsupportedOperationException("Reading a batch of values is not supported for multi-value BlockValSet");
   }
 
+  @Override
+  public void readDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
+    // A multi-value doc has no single value, the first value of the doc is read
+    int[] dictionaryIds = new int[columnMetadata.getMaxNumberOfMultiValues()];
+    int inEndPos = inStartPos + inDocIdsSize;
+    for (int i = inStartPos; i < inEndPos; i++) {
+      int numValues = mVReader.getIntArray(inDocIds[i], dictionaryIds);
+      outValues[outStartPos++] = (numValues > 0) ? dictionary.getDoubleValue(dictionaryIds[0]) : Double.NaN;
+    }
+  }
+
 }
@@ -20,6 +20,7 @@ import com.linkedin.pinot.core.common.BlockValIterator;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.io.reader.SingleColumnMultiValueReader;
 import com.linkedin.pinot.core.operator.docvaliterators.RealtimeMultiValueIterator;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 public final class RealtimeMultiValueSet implements BlockValSet {
   /**
@@ -28,12 +29,17 @@ public final class RealtimeMultiValueSet implements BlockValSet {
   private SingleColumnMultiValueReader reader;
   private int length;
   private DataType dataType;
+  private Dictionary dictionary;
+  private int maxNumberOfMultiValues;
 
-  public RealtimeMultiValueSet(SingleColumnMultiValueReader reader, int length, DataType dataType) {
+  public RealtimeMultiValueSet(SingleColumnMultiValueReader reader, int length, DataType dataType,
+      Dictionary dictionary, int maxNumberOfMultiValues) {
     super();
     this.reader = reader;
     this.length = length;
     this.dataType = dataType;
+    this.dictionary = dictionary;
+    this.maxNumberOfMultiValues = maxNumberOfMultiValues;
   }
 
   @Override
@@ -50,4 +56,15 @@ public final class RealtimeMultiValueSet implements BlockValSet {
   public void readIntValues(int[] inDocIds, int inStartPos, int inDocIdsSize, int[] outDictionaryIds, int outStartPos) {
     throw new UnsupportedOperationException("Reading batch of multi-values in not implemented for realtime multivalue set");
   }
+
+  @Override
+  public void readDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
+    // A multi-value doc has no single value, the first value of the doc is read
+    int[] dictionaryIds = new int[maxNumberOfMultiValues];
+    int inEndPos = inStartPos + inDocIdsSize;
+    for (int i = inStartPos; i < inEndPos; i++) {
+      int numValues = reader.getIntArray(inDocIds[i], dictionaryIds);
+      outValues[outStartPos++] = (numValues > 0) ? dictionary.getDoubleValue(dictionaryIds[0]) : Double.NaN;
+    }
+  }
 }
@@ -20,19 +20,22 @@ import com.linkedin.pinot.core.common.BlockValIterator;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.operator.docvaliterators.RealtimeSingleValueIterator;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 public final class RealtimeSingleValueSet implements BlockValSet {
 
   private SingleColumnSingleValueReader reader;
   private int length;
   private DataType dataType;
+  private Dictionary dictionary;
 
   public RealtimeSingleValueSet(SingleColumnSingleValueReader reader, int length,
-      DataType dataType) {
+      DataType dataType, Dictionary dictionary) {
     super();
     this.reader = reader;
     this.length = length;
     this.dataType = dataType;
+    this.dictionary = dictionary;
   }
 
   @Override
@@ -53,4 +56,11 @@ public final class RealtimeSingleValueSet implements BlockValSet {
       outDictionaryIds[outStartPos++] = reader.getInt(row);
     }
   }
+
+  @Override
+  public void readDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
+    int[] dictionaryIds = new int[inDocIdsSize];
+    readIntValues(inDocIds, inStartPos, inDocIdsSize, dictionaryIds, 0);
+    dictionary.readDoubleValues(dictionaryIds, 0, inDocIdsSize, outValues, outStartPos);
+  }
 }
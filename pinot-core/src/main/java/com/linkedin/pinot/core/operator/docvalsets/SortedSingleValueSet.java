@@ -21,13 +21,16 @@ import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.io.reader.impl.SortedForwardIndexReader;
 import com.linkedin.pinot.core.io.reader.impl.SortedValueReaderContext;
 import com.linkedin.pinot.core.operator.docvaliterators.SortedSingleValueIterator;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 public final class SortedSingleValueSet implements BlockValSet {
  
   private SortedForwardIndexReader sVReader;
+  private Dictionary dictionary;
 
-  public SortedSingleValueSet(SortedForwardIndexReader sVReader) {
+  public SortedSingleValueSet(SortedForwardIndexReader sVReader, Dictionary dictionary) {
     this.sVReader = sVReader;
+    this.dictionary = dictionary;
   }
 
   @Override
@@ -50,4 +53,11 @@ public final class SortedSingleValueSet implements BlockValSet {
       outDictionaryIds[outStartPos++] = sVReader.getInt(row, readerContext);
     }
   }
+
+  @Override
+  public void readDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
+    int[] dictionaryIds = new int[inDocIdsSize];
+    readIntValues(inDocIds, inStartPos, inDocIdsSize, dictionaryIds, 0);
+    dictionary.readDoubleValues(dictionaryIds, 0, inDocIdsSize, outValues, outStartPos);
+  }
 }
\ No newline at end of file
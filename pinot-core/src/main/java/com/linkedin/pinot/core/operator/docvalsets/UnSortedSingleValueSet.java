@@ -21,16 +21,24 @@ import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.operator.docvaliterators.UnSortedSingleValueIterator;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 public final class UnSortedSingleValueSet implements BlockValSet {
   final SingleColumnSingleValueReader sVReader;
   final ColumnMetadata columnMetadata;
+  final Dictionary dictionary;
 
   public UnSortedSingleValueSet(SingleColumnSingleValueReader sVReader,
       ColumnMetadata columnMetadata) {
+    this(sVReader, columnMetadata, null);
+  }
+
+  public UnSortedSingleValueSet(SingleColumnSingleValueReader sVReader, ColumnMetadata columnMetadata,
+      Dictionary dictionary) {
     super();
     this.sVReader = sVReader;
     this.columnMetadata = columnMetadata;
+    this.dictionary = dictionary;
   }
 
   @Override
@@ -47,4 +55,40 @@ public final class UnSortedSingleValueSet implements BlockValSet {
   public void readIntValues(int[] inDocIds, int inStartPos, int inDocIdsSize, int[] outDictionaryIds, int outStartPos) {
     sVReader.readValues(inDocIds, inStartPos, inDocIdsSize, outDictionaryIds, outStartPos);
   }
+
+  @Override
+  public void readDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
+    if (columnMetadata.hasDictionary()) {
+      int[] dictionaryIds = new int[inDocIdsSize];
+      sVReader.readValues(inDocIds, inStartPos, inDocIdsSize, dictionaryIds, 0);
+      dictionary.readDoubleValues(dictionaryIds, 0, inDocIdsSize, outValues, outStartPos);
+      return;
+    }
+    int inEndPos = inStartPos + inDocIdsSize;
+    switch (columnMetadata.getDataType()) {
+      case INT:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = sVReader.getInt(inDocIds[i]);
+        }
+        break;
+      case LONG:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = sVReader.getLong(inDocIds[i]);
+        }
+        break;
+      case FLOAT:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = sVReader.getFloat(inDocIds[i]);
+        }
+        break;
+      case DOUBLE:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = sVReader.getDouble(inDocIds[i]);
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Reading raw values is not supported for data type: "
+            + columnMetadata.getDataType());
+    }
+  }
 }
\ No newline at end of file
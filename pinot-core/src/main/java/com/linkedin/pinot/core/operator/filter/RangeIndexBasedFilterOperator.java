@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
+import com.linkedin.pinot.core.operator.blocks.BitmapBlock;
+import com.linkedin.pinot.core.operator.filter.predicate.RangeOfflineDictionaryPredicateEvaluator;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Evaluates a range predicate on an unsorted single value column using its range index.
+ * Buckets fully inside the range are used as is, and the documents of the partially covered buckets at the
+ * edges of the range are checked against the forward index.
+ */
+public class RangeIndexBasedFilterOperator extends BaseFilterOperator {
+  private final DataSource dataSource;
+  private final int startDocId;
+  private final int endDocId;
+
+  /**
+   * @param dataSource
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   */
+  public RangeIndexBasedFilterOperator(DataSource dataSource, int startDocId, int endDocId) {
+    this.dataSource = dataSource;
+    this.startDocId = startDocId;
+    this.endDocId = endDocId;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId blockId) {
+    BitmapRangeIndexReader rangeIndex = dataSource.getRangeIndex();
+    Block dataSourceBlock = dataSource.nextBlock();
+    RangeOfflineDictionaryPredicateEvaluator evaluator =
+        new RangeOfflineDictionaryPredicateEvaluator((RangePredicate) getPredicate(),
+            (ImmutableDictionaryReader) dataSource.getDictionary());
+    int rangeStart = evaluator.getRangeStartIndex();
+    int rangeEnd = evaluator.getRangeEndIndex();
+
+    List<ImmutableRoaringBitmap> bitmaps = new ArrayList<>();
+    BlockSingleValIterator valueIterator = null;
+    for (int bucket = 0; bucket < rangeIndex.getNumBuckets() && rangeStart <= rangeEnd; bucket++) {
+      int bucketStart = rangeIndex.getBucketStartDictId(bucket);
+      int bucketEnd = rangeIndex.getBucketEndDictId(bucket);
+      if (bucketEnd < rangeStart || bucketStart > rangeEnd) {
+        continue;
+      }
+      if (bucketStart >= rangeStart && bucketEnd <= rangeEnd) {
+        bitmaps.add(rangeIndex.getBitmap(bucket));
+        continue;
+      }
+
+      // Partially covered bucket, keep the documents whose value is in range
+      if (valueIterator == null) {
+        valueIterator = (BlockSingleValIterator) dataSourceBlock.getBlockValueSet().iterator();
+      }
+      MutableRoaringBitmap matchingDocIds = new MutableRoaringBitmap();
+      IntIterator docIdIterator = rangeIndex.getBitmap(bucket).getIntIterator();
+      while (docIdIterator.hasNext()) {
+        int docId = docIdIterator.next();
+        valueIterator.skipTo(docId);
+        int dictId = valueIterator.nextIntVal();
+        if (dictId >= rangeStart && dictId <= rangeEnd) {
+          matchingDocIds.add(docId);
+        }
+      }
+      bitmaps.add(matchingDocIds);
+    }
+
+    return new BitmapBlock(dataSource.getOperatorName(), dataSourceBlock.getMetadata(), startDocId, endDocId,
+        bitmaps.toArray(new ImmutableRoaringBitmap[bitmaps.size()]));
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.operator.filter;
 
+import java.util.Arrays;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +27,8 @@ import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.DataSource;
 import com.linkedin.pinot.core.common.DataSourceMetadata;
 import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader;
+import com.linkedin.pinot.core.operator.blocks.UnSortedSingleValueBlock;
 import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
 import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
 import com.linkedin.pinot.core.operator.docidsets.ScanBasedMultiValueDocIdSet;
@@ -72,8 +75,14 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     BlockMetadata blockMetadata = nextBlock.getMetadata();
     PredicateEvaluator evaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary);
     if (dataSourceMetadata.isSingleValue()) {
-      docIdSet =
-          new ScanBasedSingleValueDocIdSet(dataSource.getOperatorName(), blockValueSet, blockMetadata, evaluator);
+      FixedBitSingleValueReader blockMinMaxReader = getBlockMinMaxReader(nextBlock, predicate, evaluator);
+      int[] sortedMatchingDictIds = null;
+      if (blockMinMaxReader != null) {
+        sortedMatchingDictIds = evaluator.getMatchingDictionaryIds().clone();
+        Arrays.sort(sortedMatchingDictIds);
+      }
+      docIdSet = new ScanBasedSingleValueDocIdSet(dataSource.getOperatorName(), blockValueSet, blockMetadata,
+          evaluator, blockMinMaxReader, sortedMatchingDictIds);
     } else {
       docIdSet = new ScanBasedMultiValueDocIdSet(dataSource.getOperatorName(), blockValueSet, blockMetadata, evaluator);
     }
@@ -88,6 +97,28 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     return new ScanBlock(docIdSet);
   }
 
+  /**
+   * Returns the forward index of the block if it keeps the min/max dictionary id of each block of docs, and the
+   * predicate matches few enough dictionary ids for the blocks to be worth skipping, or null otherwise.
+   */
+  private static FixedBitSingleValueReader getBlockMinMaxReader(Block block, Predicate predicate,
+      PredicateEvaluator evaluator) {
+    if (!(block instanceof UnSortedSingleValueBlock) || evaluator.alwaysFalse()) {
+      return null;
+    }
+    // The matching dictionary ids of the negative predicates are expensive to get, and rarely allow skipping blocks
+    switch (predicate.getType()) {
+      case EQ:
+      case IN:
+      case RANGE:
+        break;
+      default:
+        return null;
+    }
+    Object reader = ((UnSortedSingleValueBlock) block).getSVReader();
+    return (reader instanceof FixedBitSingleValueReader) ? (FixedBitSingleValueReader) reader : null;
+  }
+
   @Override
   public boolean close() {
     dataSource.close();
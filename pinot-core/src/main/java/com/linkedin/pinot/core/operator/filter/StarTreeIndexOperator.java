@@ -46,6 +46,7 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
 import com.linkedin.pinot.core.operator.dociditerators.BitmapDocIdIterator;
 import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
+import com.linkedin.pinot.core.startree.OffHeapStarTree;
 import com.linkedin.pinot.core.startree.StarTreeIndexNode;
 
 public class StarTreeIndexOperator extends BaseFilterOperator {
@@ -164,16 +165,18 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
     List<Operator> matchingLeafOperators = new ArrayList<>();
     for (SearchEntry matchedEntry : matchedEntries) {
       Operator matchingLeafOperator = null;
-      StarTreeIndexNode matchedLeafNode = matchedEntry.starTreeIndexnode;
+      OffHeapStarTree starTree = segment.getStarTree();
+      int matchedLeafNodeId = matchedEntry.starTreeNodeId;
 
-      int startDocId = matchedLeafNode.getStartDocumentId();
-      int endDocId = matchedLeafNode.getEndDocumentId();
+      int startDocId = starTree.getStartDocumentId(matchedLeafNodeId);
+      int endDocId = starTree.getEndDocumentId(matchedLeafNodeId);
 
       if (matchedEntry.remainingPredicateColumns.isEmpty()) {
         // No more filters to apply
         // Use aggregated doc for this leaf node if possible
-        if (matchedLeafNode.getAggregatedDocumentId() != -1 && matchedEntry.remainingGroupByColumns.isEmpty()) {
-          exactlyMatchedDocsBitmap.add(matchedLeafNode.getAggregatedDocumentId());
+        int aggregatedDocId = starTree.getAggregatedDocumentId(matchedLeafNodeId);
+        if (aggregatedDocId != -1 && matchedEntry.remainingGroupByColumns.isEmpty()) {
+          exactlyMatchedDocsBitmap.add(aggregatedDocId);
           numExactlyMatched = numExactlyMatched + 1;
         } else {
           // Have to scan all the documents under this leaf node
@@ -201,7 +204,9 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
       }
 
       totalDocsToScan += (endDocId - startDocId);
-      LOGGER.debug("{}", matchedLeafNode);
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{}", starTree.toString(matchedLeafNodeId));
+      }
     }
 
     // Add an operator for exactlyMatchedDocs
@@ -245,8 +250,9 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
    */
   private List<Operator> createFilterOperatorsForRemainingPredicates(SearchEntry matchedEntry,
       Map<String, PredicateEntry> remainingPredicatesMap) {
-    int startDocId = matchedEntry.starTreeIndexnode.getStartDocumentId();
-    int endDocId = matchedEntry.starTreeIndexnode.getEndDocumentId();
+    OffHeapStarTree starTree = segment.getStarTree();
+    int startDocId = starTree.getStartDocumentId(matchedEntry.starTreeNodeId);
+    int endDocId = starTree.getEndDocumentId(matchedEntry.starTreeNodeId);
 
     List<Operator> childOperators = new ArrayList<>();
     for (String column : remainingPredicatesMap.keySet()) {
@@ -345,36 +351,36 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
   private Queue<SearchEntry> findMatchingLeafNodes() {
     Queue<SearchEntry> matchedEntries = new LinkedList<>();
     Queue<SearchEntry> searchQueue = new LinkedList<>();
-    HashBiMap<String, Integer> dimensionIndexToNameMapping =
-        segment.getStarTree().getDimensionNameToIndexMap();
+    OffHeapStarTree starTree = segment.getStarTree();
+    HashBiMap<String, Integer> dimensionIndexToNameMapping = starTree.getDimensionNameToIndexMap();
 
     SearchEntry startEntry = new SearchEntry();
-    startEntry.starTreeIndexnode = segment.getStarTree().getRoot();
+    startEntry.starTreeNodeId = starTree.getRootId();
     startEntry.remainingPredicateColumns = new HashSet<>(predicatesMap.keySet());
     startEntry.remainingGroupByColumns = new HashSet<>(groupByColumns);
     searchQueue.add(startEntry);
 
     while (!searchQueue.isEmpty()) {
       SearchEntry searchEntry = searchQueue.remove();
-      StarTreeIndexNode current = searchEntry.starTreeIndexnode;
+      int current = searchEntry.starTreeNodeId;
       HashSet<String> remainingPredicateColumns = searchEntry.remainingPredicateColumns;
       HashSet<String> remainingGroupByColumns = searchEntry.remainingGroupByColumns;
       // Check if its leaf
-      if (current.isLeaf() || (remainingPredicateColumns.isEmpty() && remainingGroupByColumns.isEmpty())) {
+      if (starTree.isLeaf(current) || (remainingPredicateColumns.isEmpty() && remainingGroupByColumns.isEmpty())) {
         // reached leaf
         matchedEntries.add(searchEntry);
         continue;
       }
       // Find next set of nodes to search
       String nextDimension =
-          dimensionIndexToNameMapping.inverse().get(current.getChildDimensionName());
+          dimensionIndexToNameMapping.inverse().get(starTree.getChildDimensionName(current));
 
       HashSet<String> newRemainingPredicateColumns = new HashSet<>();
       newRemainingPredicateColumns.addAll(remainingPredicateColumns);
       HashSet<String> newRemainingGroupByColumns = new HashSet<>();
       newRemainingGroupByColumns.addAll(remainingGroupByColumns);
 
-      addMatchingChildrenToQueue(searchQueue, current, nextDimension, newRemainingPredicateColumns,
+      addMatchingChildrenToQueue(searchQueue, starTree, current, nextDimension, newRemainingPredicateColumns,
           newRemainingGroupByColumns);
     }
     return matchedEntries;
@@ -387,16 +393,17 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
    * - If predicate cannot be applied (either inEligible or nonEquality), add all children to the
    * queue.
    * - If no predicate on the column, add the star-child to the queue
+   * The children of the node are looked up with a binary search on the star tree buffer.
    * @param searchQueue
-   * @param node
+   * @param starTree
+   * @param nodeId
    * @param column
    * @param remainingPredicateColumns
    * @param remainingGroupByColumns
    */
-  private void addMatchingChildrenToQueue(Queue<SearchEntry> searchQueue, StarTreeIndexNode node,
+  private void addMatchingChildrenToQueue(Queue<SearchEntry> searchQueue, OffHeapStarTree starTree, int nodeId,
       String column, HashSet<String> remainingPredicateColumns,
       HashSet<String> remainingGroupByColumns) {
-    Map<Integer, StarTreeIndexNode> children = node.getChildren();
 
     if (predicateColumns.contains(column)) {
       // Check if there is exact match filter on this column
@@ -407,29 +414,27 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
 
       int[] matchingDictionaryIds = predicateEntry.predicateEvaluator.getMatchingDictionaryIds();
       for (int matchingDictionaryId : matchingDictionaryIds) {
-        if (children.containsKey(matchingDictionaryId)) {
-          addNodeToSearchQueue(searchQueue, children.get(matchingDictionaryId), remainingPredicateColumns,
-              remainingGroupByColumns);
+        int childId = starTree.getChildId(nodeId, matchingDictionaryId);
+        if (childId != -1) {
+          addNodeToSearchQueue(searchQueue, childId, remainingPredicateColumns, remainingGroupByColumns);
         }
       }
     } else {
-      int nextValueId;
-      if (groupByColumns.contains(column) || predicatesMap.containsKey(column)
-          || !children.containsKey(StarTreeIndexNode.all())) {
-        for (StarTreeIndexNode indexNode : children.values()) {
-          if (indexNode.getDimensionValue() != StarTreeIndexNode.all()) {
+      int starChildId = starTree.getChildId(nodeId, StarTreeIndexNode.all());
+      if (groupByColumns.contains(column) || predicatesMap.containsKey(column) || starChildId == -1) {
+        int firstChildId = starTree.getFirstChildId(nodeId);
+        int endChildId = firstChildId + starTree.getNumChildren(nodeId);
+        for (int childId = firstChildId; childId < endChildId; childId++) {
+          if (childId != starChildId) {
             remainingPredicateColumns.remove(column);
             remainingGroupByColumns.remove(column);
-            addNodeToSearchQueue(searchQueue, indexNode, remainingPredicateColumns,
-                remainingGroupByColumns);
+            addNodeToSearchQueue(searchQueue, childId, remainingPredicateColumns, remainingGroupByColumns);
           }
         }
       } else {
         // Since we have a star node and no group by on this column we can take lose this dimension
         // by taking star node path
-        nextValueId = StarTreeIndexNode.all();
-        addNodeToSearchQueue(searchQueue, children.get(nextValueId), remainingPredicateColumns,
-            remainingGroupByColumns);
+        addNodeToSearchQueue(searchQueue, starChildId, remainingPredicateColumns, remainingGroupByColumns);
       }
     }
   }
@@ -437,28 +442,28 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
   /**
    * Helper method to add the given node the the provided queue.
    * @param searchQueue
-   * @param node
+   * @param nodeId
    * @param predicateColumns
    * @param groupByColumns
    */
-  private void addNodeToSearchQueue(Queue<SearchEntry> searchQueue, StarTreeIndexNode node,
+  private void addNodeToSearchQueue(Queue<SearchEntry> searchQueue, int nodeId,
       HashSet<String> predicateColumns, HashSet<String> groupByColumns) {
     SearchEntry newEntry = new SearchEntry();
-    newEntry.starTreeIndexnode = node;
+    newEntry.starTreeNodeId = nodeId;
     newEntry.remainingPredicateColumns = predicateColumns;
     newEntry.remainingGroupByColumns = groupByColumns;
     searchQueue.add(newEntry);
   }
 
   class SearchEntry {
-    StarTreeIndexNode starTreeIndexnode;
+    int starTreeNodeId;
     HashSet<String> remainingPredicateColumns;
     HashSet<String> remainingGroupByColumns;
 
     @Override
     public String toString() {
       StringBuilder sb = new StringBuilder();
-      sb.append(starTreeIndexnode);
+      sb.append(starTreeNodeId);
       sb.append("\t").append(remainingPredicateColumns);
       return sb.toString();
     }
@@ -110,6 +110,20 @@ public class RangeOfflineDictionaryPredicateEvaluator implements PredicateEvalua
     return false;
   }
 
+  /**
+   * @return first matching dictionary id (inclusive)
+   */
+  public int getRangeStartIndex() {
+    return rangeStartIndex;
+  }
+
+  /**
+   * @return last matching dictionary id (inclusive)
+   */
+  public int getRangeEndIndex() {
+    return rangeEndIndex;
+  }
+
   @Override
   public boolean alwaysFalse() {
     return ((rangeEndIndex - rangeStartIndex) + 1) <= 0;
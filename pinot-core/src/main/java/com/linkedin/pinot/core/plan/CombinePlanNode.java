@@ -43,13 +43,29 @@ public class CombinePlanNode implements PlanNode {
   private final ExecutorService _executorService;
   private final long _timeOutMs;
   private final boolean _enableNewAggreagationGroupBy;
+  private final boolean _typedGroupKeys;
 
   public CombinePlanNode(BrokerRequest brokerRequest, ExecutorService executorService, long timeOutMs,
       boolean enableNewAggreagationGroupBy) {
+    this(brokerRequest, executorService, timeOutMs, enableNewAggreagationGroupBy, false);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param brokerRequest
+   * @param executorService
+   * @param timeOutMs
+   * @param enableNewAggreagationGroupBy
+   * @param typedGroupKeys Combine group-by results of the new implementation on typed group-by keys.
+   */
+  public CombinePlanNode(BrokerRequest brokerRequest, ExecutorService executorService, long timeOutMs,
+      boolean enableNewAggreagationGroupBy, boolean typedGroupKeys) {
     _brokerRequest = brokerRequest;
     _executorService = executorService;
     _timeOutMs = timeOutMs;
     _enableNewAggreagationGroupBy = enableNewAggreagationGroupBy;
+    _typedGroupKeys = typedGroupKeys;
   }
 
   public void addPlanNode(PlanNode planNode) {
@@ -115,7 +131,7 @@ public class CombinePlanNode implements PlanNode {
   private Operator getCombineOperator(List<Operator> retOperators) {
     if (_enableNewAggreagationGroupBy && _brokerRequest.isSetAggregationsInfo()
         && _brokerRequest.getGroupBy() != null) {
-      return new MCombineGroupByOperator(retOperators, _executorService, _timeOutMs, _brokerRequest);
+      return new MCombineGroupByOperator(retOperators, _executorService, _timeOutMs, _brokerRequest, _typedGroupKeys);
     }
     return new MCombineOperator(retOperators, _executorService, _timeOutMs, _brokerRequest);
   }
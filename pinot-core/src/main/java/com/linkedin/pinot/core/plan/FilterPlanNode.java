@@ -40,6 +40,7 @@ import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.MatchEntireSegmentOperator;
 import com.linkedin.pinot.core.operator.filter.OrOperator;
+import com.linkedin.pinot.core.operator.filter.RangeIndexBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.ScanBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.SortedInvertedIndexBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.StarTreeIndexOperator;
@@ -112,10 +113,18 @@ public class FilterPlanNode implements PlanNode {
       DataSource ds;
       ds = _segment.getDataSource(column);
       DataSourceMetadata dataSourceMetadata = ds.getDataSourceMetadata();
+      if (!dataSourceMetadata.hasDictionary()) {
+        // The filter operators evaluate the predicates on dictionary ids
+        throw new UnsupportedOperationException("Filtering on no-dictionary column " + column + " is not supported");
+      }
       BaseFilterOperator baseFilterOperator;
       int startDocId = 0;
       int endDocId = _segment.getSegmentMetadata().getTotalRawDocs() - 1; //end is inclusive
-      if (dataSourceMetadata.hasInvertedIndex()) {
+      if (filterType.equals(FilterOperator.RANGE) && ds.getRangeIndex() != null
+          && !(_segment instanceof RealtimeSegment)) {
+        // range index answers the range with a few bucket bitmaps instead of one bitmap per value, or a full scan
+        baseFilterOperator = new RangeIndexBasedFilterOperator(ds, startDocId, endDocId);
+      } else if (dataSourceMetadata.hasInvertedIndex()) {
         // jfim: ScanBasedFilterOperator is broken for realtime segments for now
         // range evaluation based on inv index is inefficient, so do this only if is NOT range.
         if (!filterType.equals(FilterOperator.RANGE) || _segment instanceof RealtimeSegment) {
@@ -151,7 +160,7 @@ public class FilterPlanNode implements PlanNode {
         priority = 0;
       } else if (operator instanceof AndOperator) {
         priority = 1;
-      } else if (operator instanceof BitmapBasedFilterOperator) {
+      } else if (operator instanceof BitmapBasedFilterOperator || operator instanceof RangeIndexBasedFilterOperator) {
         priority = 2;
       } else if (operator instanceof ScanBasedFilterOperator) {
         priority = 3;
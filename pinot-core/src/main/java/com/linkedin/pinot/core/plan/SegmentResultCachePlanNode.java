@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.SegmentResultCacheOperator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.query.executor.SegmentResultCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Plan node for one segment of a query whose results are cached in the {@link SegmentResultCache}. The inner segment
+ * plan is only made on a cache miss.
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger("QueryPlanLog");
+
+  private final InstancePlanMakerImplV2 _planMaker;
+  private final IndexSegment _indexSegment;
+  private final BrokerRequest _brokerRequest;
+  private final boolean _enableNewAggregationGroupBy;
+  private final SegmentResultCache _segmentResultCache;
+  private final SegmentResultCache.Key _key;
+
+  public SegmentResultCachePlanNode(InstancePlanMakerImplV2 planMaker, IndexSegment indexSegment,
+      BrokerRequest brokerRequest, boolean enableNewAggregationGroupBy, SegmentResultCache segmentResultCache,
+      SegmentResultCache.Key key) {
+    _planMaker = planMaker;
+    _indexSegment = indexSegment;
+    _brokerRequest = brokerRequest;
+    _enableNewAggregationGroupBy = enableNewAggregationGroupBy;
+    _segmentResultCache = segmentResultCache;
+    _key = key;
+  }
+
+  @Override
+  public Operator run() {
+    IntermediateResultsBlock cachedBlock = _segmentResultCache.get(_key, _brokerRequest.getAggregationsInfo());
+    if (cachedBlock != null) {
+      return new SegmentResultCacheOperator(cachedBlock);
+    }
+    PlanNode planNode = _planMaker.makeInnerSegmentPlan(_indexSegment, _brokerRequest, _enableNewAggregationGroupBy);
+    return new SegmentResultCacheOperator(planNode.run(), _segmentResultCache, _key);
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Segment Result Cache Plan Node :");
+    LOGGER.debug(prefix + "Operator: SegmentResultCacheOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+  }
+}
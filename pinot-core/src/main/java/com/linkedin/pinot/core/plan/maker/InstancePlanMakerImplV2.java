@@ -15,7 +15,9 @@
  */
 package com.linkedin.pinot.core.plan.maker;
 
+import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.AggregationGroupByImplementationType;
@@ -28,9 +30,12 @@ import com.linkedin.pinot.core.plan.GlobalPlanImplV0;
 import com.linkedin.pinot.core.plan.InstanceResponsePlanNode;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.plan.SegmentResultCachePlanNode;
 import com.linkedin.pinot.core.plan.SelectionPlanNode;
 import com.linkedin.pinot.core.query.aggregation.groupby.BitHacks;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+import com.linkedin.pinot.core.query.executor.SegmentResultCache;
+import com.linkedin.pinot.core.realtime.RealtimeSegment;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.util.ArrayList;
 import java.util.List;
@@ -48,7 +53,13 @@ import org.slf4j.LoggerFactory;
 public class InstancePlanMakerImplV2 implements PlanMaker {
   private static final Logger LOGGER = LoggerFactory.getLogger(InstancePlanMakerImplV2.class);
   private static final String NEW_AGGREGATION_GROUPBY_STRING = "new.aggregation.groupby";
+  private static final String TYPED_GROUPBY_KEYS_STRING = "typed.groupby.keys";
+  private static final String SEGMENT_RESULT_CACHE_MAX_ENTRIES = "segmentResultCache.maxEntries";
+  private static final String SEGMENT_RESULT_CACHE_MAX_BYTES = "segmentResultCache.maxBytes";
+  private static final long DEFAULT_SEGMENT_RESULT_CACHE_MAX_BYTES = 128L * 1024 * 1024;
   private boolean _enableNewAggregationGroupByCfg = false;
+  private boolean _typedGroupByKeysCfg = false;
+  private SegmentResultCache _segmentResultCache = null;
 
   /**
    * Default constructor.
@@ -66,11 +77,25 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig) {
     _enableNewAggregationGroupByCfg = queryExecutorConfig.getConfig().getBoolean(NEW_AGGREGATION_GROUPBY_STRING, false);
     LOGGER.info("New AggregationGroupBy operator: {}", (_enableNewAggregationGroupByCfg) ? "Enabled" : "Disabled");
+
+    // Typed group-by keys only apply to the new implementation of AggregationGroupBy operator.
+    _typedGroupByKeysCfg = queryExecutorConfig.getConfig().getBoolean(TYPED_GROUPBY_KEYS_STRING, false);
+    LOGGER.info("Typed group-by keys: {}", (_typedGroupByKeysCfg) ? "Enabled" : "Disabled");
+
+    int segmentResultCacheMaxEntries = queryExecutorConfig.getConfig().getInt(SEGMENT_RESULT_CACHE_MAX_ENTRIES, 0);
+    if (segmentResultCacheMaxEntries > 0) {
+      long segmentResultCacheMaxBytes = queryExecutorConfig.getConfig()
+          .getLong(SEGMENT_RESULT_CACHE_MAX_BYTES, DEFAULT_SEGMENT_RESULT_CACHE_MAX_BYTES);
+      _segmentResultCache = SegmentResultCache.getInstance();
+      _segmentResultCache.configure(segmentResultCacheMaxEntries, segmentResultCacheMaxBytes);
+    }
+    LOGGER.info("Segment result cache: {}", (_segmentResultCache != null) ? "Enabled" : "Disabled");
   }
 
   @Override
   public PlanNode makeInnerSegmentPlan(IndexSegment indexSegment, BrokerRequest brokerRequest) {
-    return makeInnerSegmentPlan(indexSegment, brokerRequest, false);
+    return makeInnerSegmentPlan(indexSegment, brokerRequest,
+        hasAggregationColumnWithoutDictionary(indexSegment, brokerRequest));
   }
 
   public PlanNode makeInnerSegmentPlan(IndexSegment indexSegment, BrokerRequest brokerRequest,
@@ -88,16 +113,14 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         // Aggregation GroupBy
         PlanNode aggregationGroupByPlanNode;
 
-        if (isGroupKeyFitForLong(indexSegment, brokerRequest)) {
-          // AggregationGroupByPlanNode is the new implementation of group-by aggregations, and is currently turned OFF.
-          // Once all feature and perf testing is performed, the code will be turned ON, and this 'if' check will
-          // be removed.
-          if (enableNewAggregationGroupBy) {
-            aggregationGroupByPlanNode = new AggregationGroupByPlanNode(indexSegment, brokerRequest);
-          } else {
-            aggregationGroupByPlanNode = new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest,
-                AggregationGroupByImplementationType.Dictionary);
-          }
+        // AggregationGroupByPlanNode is the new implementation of group-by aggregations, and is currently turned OFF
+        // unless the query aggregates on columns without dictionary. Once all feature and perf testing is performed,
+        // the code will be turned ON, and this 'if' check will be removed.
+        if (enableNewAggregationGroupBy) {
+          aggregationGroupByPlanNode = new AggregationGroupByPlanNode(indexSegment, brokerRequest);
+        } else if (isGroupKeyFitForLong(indexSegment, brokerRequest)) {
+          aggregationGroupByPlanNode = new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest,
+              AggregationGroupByImplementationType.Dictionary);
         } else {
           aggregationGroupByPlanNode = new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest,
               AggregationGroupByImplementationType.DictionaryAndTrie);
@@ -123,24 +146,83 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     boolean enableNewAggregationGroupBy = _enableNewAggregationGroupByCfg;
     boolean isGroupByQuery = (brokerRequest.getAggregationsInfo() != null) && brokerRequest.isSetGroupBy();
 
+    boolean hasAggregationColumnWithoutDictionary = false;
     for (SegmentDataManager segmentDataManager : segmentDataManagers) {
       IndexSegment segment = segmentDataManager.getSegment();
       if (isGroupByQuery && !isGroupKeyFitForLong(segment, brokerRequest)) {
         enableNewAggregationGroupBy = false;
       }
+      if (hasAggregationColumnWithoutDictionary(segment, brokerRequest)) {
+        hasAggregationColumnWithoutDictionary = true;
+      }
       segments.add(segment);
     }
+    // Only the new implementation can read columns without dictionary, its group key generator also handles group keys
+    // that do not fit in a long.
+    if (hasAggregationColumnWithoutDictionary) {
+      enableNewAggregationGroupBy = true;
+    }
 
     final CombinePlanNode combinePlanNode = new CombinePlanNode(brokerRequest, executorService, timeOutMs,
-        enableNewAggregationGroupBy);
+        enableNewAggregationGroupBy, _typedGroupByKeysCfg);
     rootNode.setPlanNode(combinePlanNode);
 
+    byte[] normalizedRequestBytes = null;
+    if (isSegmentResultCacheable(brokerRequest, enableNewAggregationGroupBy)) {
+      try {
+        normalizedRequestBytes = RequestUtils.getNormalizedRequestBytes(brokerRequest);
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while normalizing broker request, skipping segment result cache", e);
+      }
+    }
+
     for (IndexSegment segment : segments) {
-      combinePlanNode.addPlanNode(makeInnerSegmentPlan(segment, brokerRequest, enableNewAggregationGroupBy));
+      SegmentResultCache.Key key = null;
+      if (normalizedRequestBytes != null && !(segment instanceof RealtimeSegment)) {
+        key = _segmentResultCache.getKey(segment, normalizedRequestBytes);
+      }
+      if (key != null) {
+        combinePlanNode.addPlanNode(new SegmentResultCachePlanNode(this, segment, brokerRequest,
+            enableNewAggregationGroupBy, _segmentResultCache, key));
+      } else {
+        combinePlanNode.addPlanNode(makeInnerSegmentPlan(segment, brokerRequest, enableNewAggregationGroupBy));
+      }
     }
     return new GlobalPlanImplV0(rootNode);
   }
 
+  /**
+   * Only results of the old aggregation and aggregation group-by operators are cached, selection results and results
+   * of the new group-by implementation are not.
+   */
+  private boolean isSegmentResultCacheable(BrokerRequest brokerRequest, boolean enableNewAggregationGroupBy) {
+    if (_segmentResultCache == null || !brokerRequest.isSetAggregationsInfo()) {
+      return false;
+    }
+    return !enableNewAggregationGroupBy;
+  }
+
+  /**
+   * Returns true if any of the aggregation columns is stored without dictionary in the given segment.
+   */
+  private static boolean hasAggregationColumnWithoutDictionary(IndexSegment indexSegment,
+      BrokerRequest brokerRequest) {
+    if (!brokerRequest.isSetAggregationsInfo()) {
+      return false;
+    }
+    for (AggregationInfo aggregationInfo : brokerRequest.getAggregationsInfo()) {
+      for (String column : aggregationInfo.getAggregationParams().get("column").trim().split(",")) {
+        if (column.equals("*")) {
+          continue;
+        }
+        if (indexSegment.getDataSource(column).getDictionary() == null) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   private boolean isGroupKeyFitForLong(IndexSegment indexSegment, BrokerRequest brokerRequest) {
     int totalBitSet = 0;
     for (final String column : brokerRequest.getGroupBy().getColumns()) {
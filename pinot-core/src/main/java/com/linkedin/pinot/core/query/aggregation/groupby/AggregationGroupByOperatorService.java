@@ -19,16 +19,22 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.MinMaxPriorityQueue;
 import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.GroupBy;
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.common.response.broker.AggregationResult;
 import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
+import com.linkedin.pinot.common.utils.primitive.MutableLongValue;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -50,6 +56,15 @@ import org.slf4j.LoggerFactory;
 public class AggregationGroupByOperatorService {
   private static final Logger LOGGER = LoggerFactory.getLogger(AggregationGroupByOperatorService.class);
   private static final String MIN_PREFIX = "min_";
+  private static final String COUNT_PREFIX = "count_";
+  private static final String SUM_PREFIX = "sum_";
+  public static final String NUM_GROUP_BY_COLUMNS_METADATA_KEY = "numGroupByColumns";
+  public static final String GROUP_BY_TRIM_THRESHOLDS_METADATA_KEY = "groupByTrimThresholds";
+
+  // Query options for the approximate TOP N group-by.
+  public static final String APPROXIMATE_TOP_N_QUERY_OPTION = "approximateTopN";
+  public static final String APPROXIMATE_TOP_N_CANDIDATES_QUERY_OPTION = "approximateTopNCandidates";
+  private static final int DEFAULT_NUM_CANDIDATES_PER_TOP_N = 2;
   private final List<String> _groupByColumns;
   private final int _groupByTopN;
   private final int _trimThreshold;
@@ -76,7 +91,73 @@ public class AggregationGroupByOperatorService {
     _trimSize = overFlow ? Integer.MAX_VALUE : (minTrimSize * 5);
   }
 
+  /**
+   * Returns the number of candidate groups each server should send for the approximate TOP N group-by, or 0 if the
+   * query does not ask for the approximate TOP N group-by.
+   *
+   * With the approximate TOP N group-by, servers send only the top candidates for each aggregation function, along
+   * with the largest value of the groups that were not sent (see {@link #GROUP_BY_TRIM_THRESHOLDS_METADATA_KEY}), and
+   * the broker reports the error bound of the results, see {@link #getApproximateTopNErrors(Map, List)}.
+   *
+   * @param brokerRequest
+   * @return
+   */
+  public static int getNumApproximateTopNCandidates(BrokerRequest brokerRequest) {
+    Map<String, String> queryOptions = brokerRequest.getQueryOptions();
+    if (queryOptions == null || !Boolean.parseBoolean(queryOptions.get(APPROXIMATE_TOP_N_QUERY_OPTION))) {
+      return 0;
+    }
+    int topN = (int) brokerRequest.getGroupBy().getTopN();
+    String numCandidates = queryOptions.get(APPROXIMATE_TOP_N_CANDIDATES_QUERY_OPTION);
+    if (numCandidates != null) {
+      try {
+        return Math.max(Integer.parseInt(numCandidates), topN);
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid value {} for query option {}", numCandidates, APPROXIMATE_TOP_N_CANDIDATES_QUERY_OPTION);
+      }
+    }
+    return (Integer.MAX_VALUE / DEFAULT_NUM_CANDIDATES_PER_TOP_N) <= topN ? Integer.MAX_VALUE
+        : topN * DEFAULT_NUM_CANDIDATES_PER_TOP_N;
+  }
+
+  /**
+   * Returns true if the error of the approximate TOP N group-by can be bounded for the given aggregation function.
+   * This holds for functions whose result is the sum of non-negative per server results, which are count, and sum
+   * over non-negative values. The servers check the values before trimming, see
+   * {@link #hasNonNegativeValues(Map, int)}, and send a NaN trim threshold otherwise.
+   *
+   * @param aggregationFunction
+   * @return
+   */
+  private static boolean isErrorBounded(AggregationFunction aggregationFunction) {
+    String functionName = aggregationFunction.getFunctionName();
+    return functionName.startsWith(COUNT_PREFIX) || functionName.startsWith(SUM_PREFIX);
+  }
+
+  /**
+   * Returns true if the results of the given aggregation function are non-negative numbers for all groups. Otherwise
+   * the partial value of a group sent by some servers is not a lower bound of its reduced value, and the error of the
+   * approximate TOP N sum cannot be bounded.
+   *
+   * @param aggrGroupByResults Map from group by keys to result arrays.
+   * @param index Index of the aggregation function.
+   * @return
+   */
+  private static <K> boolean hasNonNegativeValues(Map<K, Serializable[]> aggrGroupByResults, int index) {
+    for (Serializable[] results : aggrGroupByResults.values()) {
+      Serializable value = results[index];
+      if (!(value instanceof Number) || ((Number) value).doubleValue() < 0.0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public static List<Map<String, Serializable>> transformDataTableToGroupByResult(DataTable dataTable) {
+    if (isTypedGroupByResult(dataTable)) {
+      return transformTypedDataTableToGroupByResult(dataTable);
+    }
+
     List<Map<String, Serializable>> aggregationGroupByResults = new ArrayList<Map<String, Serializable>>();
     for (int i = 0; i < dataTable.getNumberOfRows(); i++) {
       String key = dataTable.getString(i, 0);
@@ -86,6 +167,173 @@ public class AggregationGroupByOperatorService {
     return aggregationGroupByResults;
   }
 
+  /**
+   * Returns the schema of a DataTable holding group-by results with typed group-by keys: one column per group-by
+   * column, typed after the values of the keys, followed by one column per aggregation function.
+   * Group-by columns whose values are not all of the same numeric type are sent as strings.
+   *
+   * @param groupByColumns List of group-by columns.
+   * @param aggregationFunctions List of aggregation functions.
+   * @param groupKeys Group-by keys to be sent.
+   * @return
+   */
+  public static DataSchema getTypedGroupByResultDataSchema(List<String> groupByColumns,
+      List<AggregationFunction> aggregationFunctions, Collection<GroupKeyTuple> groupKeys) {
+    int numGroupByColumns = groupByColumns.size();
+    int numAggregationFunctions = aggregationFunctions.size();
+    String[] columnNames = new String[numGroupByColumns + numAggregationFunctions];
+    DataType[] columnTypes = new DataType[numGroupByColumns + numAggregationFunctions];
+
+    Class<?>[] valueClasses = new Class<?>[numGroupByColumns];
+    for (GroupKeyTuple groupKey : groupKeys) {
+      Object[] values = groupKey.getValues();
+      for (int i = 0; i < numGroupByColumns; i++) {
+        if (valueClasses[i] == null) {
+          valueClasses[i] = values[i].getClass();
+        } else if (valueClasses[i] != values[i].getClass()) {
+          valueClasses[i] = String.class;
+        }
+      }
+    }
+
+    for (int i = 0; i < numGroupByColumns; i++) {
+      columnNames[i] = groupByColumns.get(i);
+      if (valueClasses[i] == Integer.class) {
+        columnTypes[i] = DataType.INT;
+      } else if (valueClasses[i] == Long.class) {
+        columnTypes[i] = DataType.LONG;
+      } else if (valueClasses[i] == Float.class) {
+        columnTypes[i] = DataType.FLOAT;
+      } else if (valueClasses[i] == Double.class) {
+        columnTypes[i] = DataType.DOUBLE;
+      } else {
+        columnTypes[i] = DataType.STRING;
+      }
+    }
+
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      AggregationFunction aggregationFunction = aggregationFunctions.get(i);
+      columnNames[numGroupByColumns + i] = aggregationFunction.getFunctionName();
+      DataType dataType = aggregationFunction.aggregateResultDataType();
+      columnTypes[numGroupByColumns + i] =
+          (dataType == DataType.LONG || dataType == DataType.DOUBLE) ? dataType : DataType.OBJECT;
+    }
+
+    return new DataSchema(columnNames, columnTypes);
+  }
+
+  /**
+   * Returns true if the given DataTable holds group-by results with typed group-by keys (one row per group-by key),
+   * false if it holds one map from string group-by key to result per aggregation function.
+   *
+   * @param dataTable
+   * @return
+   */
+  public static boolean isTypedGroupByResult(DataTable dataTable) {
+    return dataTable.getDataSchema() != null && dataTable.getMetadata() != null && dataTable.getMetadata()
+        .containsKey(NUM_GROUP_BY_COLUMNS_METADATA_KEY);
+  }
+
+  /**
+   * Returns true if all the DataTables holding results have typed group-by keys, with the same group-by column types,
+   * so that they can be reduced by {@link #reduceTypedGroupByOperators(Map)} without converting keys to strings.
+   *
+   * @param instanceResponseMap
+   * @return
+   */
+  public static boolean canReduceTypedGroupByOperators(Map<ServerInstance, DataTable> instanceResponseMap) {
+    if ((instanceResponseMap == null) || instanceResponseMap.isEmpty()) {
+      return false;
+    }
+
+    DataSchema typedDataSchema = null;
+    for (DataTable dataTable : instanceResponseMap.values()) {
+      if (dataTable == null || dataTable.getDataSchema() == null || dataTable.getNumberOfRows() == 0) {
+        continue;
+      }
+      if (!isTypedGroupByResult(dataTable)) {
+        return false;
+      }
+      if (typedDataSchema == null) {
+        typedDataSchema = dataTable.getDataSchema();
+      } else if (!hasSameColumnTypes(typedDataSchema, dataTable.getDataSchema())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean hasSameColumnTypes(DataSchema dataSchema1, DataSchema dataSchema2) {
+    if (dataSchema1.size() != dataSchema2.size()) {
+      return false;
+    }
+    for (int i = 0; i < dataSchema1.size(); i++) {
+      if (dataSchema1.getColumnType(i) != dataSchema2.getColumnType(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int getNumGroupByColumns(DataTable dataTable) {
+    return Integer.parseInt(dataTable.getMetadata().get(NUM_GROUP_BY_COLUMNS_METADATA_KEY));
+  }
+
+  private static List<Map<String, Serializable>> transformTypedDataTableToGroupByResult(DataTable dataTable) {
+    int numGroupByColumns = getNumGroupByColumns(dataTable);
+    int numAggregationFunctions = dataTable.getDataSchema().size() - numGroupByColumns;
+
+    List<Map<String, Serializable>> aggregationGroupByResults = new ArrayList<>(numAggregationFunctions);
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      aggregationGroupByResults.add(new HashMap<String, Serializable>());
+    }
+
+    int numRows = dataTable.getNumberOfRows();
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      String groupKey = getGroupKeyTuple(dataTable, rowId, numGroupByColumns).getStringKey();
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        aggregationGroupByResults.get(i).put(groupKey, getResult(dataTable, rowId, numGroupByColumns + i));
+      }
+    }
+    return aggregationGroupByResults;
+  }
+
+  private static GroupKeyTuple getGroupKeyTuple(DataTable dataTable, int rowId, int numGroupByColumns) {
+    DataSchema dataSchema = dataTable.getDataSchema();
+    Object[] values = new Object[numGroupByColumns];
+    for (int i = 0; i < numGroupByColumns; i++) {
+      switch (dataSchema.getColumnType(i)) {
+        case INT:
+          values[i] = dataTable.getInt(rowId, i);
+          break;
+        case LONG:
+          values[i] = dataTable.getLong(rowId, i);
+          break;
+        case FLOAT:
+          values[i] = dataTable.getFloat(rowId, i);
+          break;
+        case DOUBLE:
+          values[i] = dataTable.getDouble(rowId, i);
+          break;
+        default:
+          values[i] = dataTable.getString(rowId, i);
+          break;
+      }
+    }
+    return new GroupKeyTuple(values);
+  }
+
+  private static Serializable getResult(DataTable dataTable, int rowId, int colId) {
+    switch (dataTable.getDataSchema().getColumnType(colId)) {
+      case LONG:
+        return new MutableLongValue(dataTable.getLong(rowId, colId));
+      case DOUBLE:
+        return dataTable.getDouble(rowId, colId);
+      default:
+        return dataTable.getObject(rowId, colId);
+    }
+  }
+
   public List<AggregationFunction> getAggregationFunctionList() {
     return _aggregationFunctionList;
   }
@@ -129,6 +377,202 @@ public class AggregationGroupByOperatorService {
     return reducedResult;
   }
 
+  /**
+   * Reduce the group-by results with typed group-by keys from all servers, see
+   * {@link #canReduceTypedGroupByOperators(Map)}. Group-by keys are kept typed, and are only converted to strings
+   * by {@link #renderAggregationGroupByResult(List)}.
+   *
+   * @param instanceResponseMap
+   * @return List of maps from group-by key to reduced result, one for each aggregation function.
+   */
+  public List<Map<GroupKeyTuple, Serializable>> reduceTypedGroupByOperators(
+      Map<ServerInstance, DataTable> instanceResponseMap) {
+    if ((instanceResponseMap == null) || instanceResponseMap.isEmpty()) {
+      return null;
+    }
+
+    int numAggregationFunctions = _aggregationFunctionList.size();
+    List<Map<GroupKeyTuple, Serializable>> reducedResult = new ArrayList<>(numAggregationFunctions);
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      reducedResult.add(new HashMap<GroupKeyTuple, Serializable>());
+    }
+
+    for (DataTable dataTable : instanceResponseMap.values()) {
+      if (dataTable == null || !isTypedGroupByResult(dataTable)) {
+        continue;
+      }
+
+      int numGroupByColumns = getNumGroupByColumns(dataTable);
+      int numRows = dataTable.getNumberOfRows();
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        GroupKeyTuple groupKey = getGroupKeyTuple(dataTable, rowId, numGroupByColumns);
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          Map<GroupKeyTuple, Serializable> functionLevelReducedResult = reducedResult.get(i);
+          Serializable result = getResult(dataTable, rowId, numGroupByColumns + i);
+          Serializable reducedValue = functionLevelReducedResult.get(groupKey);
+          if (reducedValue == null) {
+            functionLevelReducedResult.put(groupKey, result);
+          } else {
+            functionLevelReducedResult.put(groupKey,
+                _aggregationFunctionList.get(i).combineTwoValues(reducedValue, result));
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      Map<GroupKeyTuple, Serializable> functionLevelReducedResult = reducedResult.get(i);
+      for (Map.Entry<GroupKeyTuple, Serializable> entry : functionLevelReducedResult.entrySet()) {
+        if (entry.getValue() != null) {
+          entry.setValue(_aggregationFunctionList.get(i).reduce(Arrays.asList(entry.getValue())));
+        }
+      }
+    }
+    return reducedResult;
+  }
+
+  /**
+   * Returns the error bound of the reduced results of the approximate TOP N group-by for each aggregation function,
+   * or null if not all servers sent trim thresholds, see {@link #trimToApproximateTopN(Map, int, int, double[])}.
+   *
+   * A server that did not send a group has a value no larger than its trim threshold for that group, so the reduced
+   * value of a group is under-estimated by at most the sum of the trim thresholds of the servers that did not send it,
+   * and a group that no server sent has a value no larger than the sum of all trim thresholds (the bounds of the first
+   * round of the TPUT algorithm). The error bound is the largest amount by which a TOP N value may be under-estimated,
+   * or by which any other group may exceed the N-th value. It is null for aggregation functions whose error cannot be
+   * bounded.
+   *
+   * @param instanceResponseMap
+   * @param reducedGroupByResults Output of {@link #reduceGroupByOperators(Map)} or
+   *                              {@link #reduceTypedGroupByOperators(Map)} for the same responses.
+   * @return
+   */
+  public <K> List<Double> getApproximateTopNErrors(Map<ServerInstance, DataTable> instanceResponseMap,
+      List<Map<K, Serializable>> reducedGroupByResults) {
+    if ((instanceResponseMap == null) || (reducedGroupByResults == null)) {
+      return null;
+    }
+
+    int numAggregationFunctions = _aggregationFunctionList.size();
+    boolean typedGroupKeys = canReduceTypedGroupByOperators(instanceResponseMap);
+    List<double[]> serverTrimThresholds = new ArrayList<>();
+    List<List<Collection<?>>> serverGroupKeys = new ArrayList<>();
+    for (DataTable dataTable : instanceResponseMap.values()) {
+      if (dataTable == null || dataTable.getDataSchema() == null) {
+        continue;
+      }
+      String trimThresholdsString = dataTable.getMetadata().get(GROUP_BY_TRIM_THRESHOLDS_METADATA_KEY);
+      if (trimThresholdsString == null) {
+        return null;
+      }
+      String[] trimThresholdStrings = trimThresholdsString.split(",");
+      if (trimThresholdStrings.length != numAggregationFunctions) {
+        return null;
+      }
+      double[] trimThresholds = new double[numAggregationFunctions];
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        trimThresholds[i] = Double.parseDouble(trimThresholdStrings[i]);
+      }
+      serverTrimThresholds.add(trimThresholds);
+      serverGroupKeys.add(getGroupKeys(dataTable, numAggregationFunctions, typedGroupKeys));
+    }
+
+    int numServers = serverTrimThresholds.size();
+    List<Double> errors = new ArrayList<>(numAggregationFunctions);
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      double sumTrimThresholds = 0.0;
+      for (double[] trimThresholds : serverTrimThresholds) {
+        sumTrimThresholds += trimThresholds[i];
+      }
+      if (!isErrorBounded(_aggregationFunctionList.get(i)) || Double.isNaN(sumTrimThresholds)) {
+        errors.add(null);
+        continue;
+      }
+
+      // Sum of the trim thresholds of the servers that sent each group.
+      Map<Object, Double> sentTrimThresholds = new HashMap<>();
+      for (int j = 0; j < numServers; j++) {
+        double trimThreshold = serverTrimThresholds.get(j)[i];
+        if (trimThreshold == 0.0) {
+          continue;
+        }
+        for (Object groupKey : serverGroupKeys.get(j).get(i)) {
+          Double sentTrimThreshold = sentTrimThresholds.get(groupKey);
+          sentTrimThresholds.put(groupKey, (sentTrimThreshold == null) ? trimThreshold
+              : sentTrimThreshold + trimThreshold);
+        }
+      }
+
+      Map<K, Serializable> reducedGroupByResult = reducedGroupByResults.get(i);
+      int numGroups = reducedGroupByResult.size();
+      double[] values = new double[numGroups];
+      double[] groupErrors = new double[numGroups];
+      boolean numeric = true;
+      int index = 0;
+      for (Map.Entry<K, Serializable> entry : reducedGroupByResult.entrySet()) {
+        if (!(entry.getValue() instanceof Number)) {
+          numeric = false;
+          break;
+        }
+        values[index] = ((Number) entry.getValue()).doubleValue();
+        Double sentTrimThreshold = sentTrimThresholds.get(entry.getKey());
+        groupErrors[index] = sumTrimThresholds - ((sentTrimThreshold == null) ? 0.0 : sentTrimThreshold);
+        index++;
+      }
+      if (!numeric) {
+        errors.add(null);
+        continue;
+      }
+
+      // Value of the N-th group, groups with a value no smaller than it are in the TOP N.
+      double nthValue = 0.0;
+      if (_groupByTopN > 0 && numGroups >= _groupByTopN) {
+        double[] sortedValues = Arrays.copyOf(values, numGroups);
+        Arrays.sort(sortedValues);
+        nthValue = sortedValues[numGroups - _groupByTopN];
+      }
+
+      // Groups that no server sent may exceed the N-th value.
+      double error = Math.max(sumTrimThresholds - nthValue, 0.0);
+      for (int j = 0; j < numGroups; j++) {
+        if (values[j] >= nthValue) {
+          error = Math.max(error, groupErrors[j]);
+        } else {
+          error = Math.max(error, values[j] + groupErrors[j] - nthValue);
+        }
+      }
+      errors.add(error);
+    }
+    return errors;
+  }
+
+  /**
+   * Returns the group-by keys of the given DataTable for each aggregation function, typed if typedGroupKeys is true.
+   */
+  private static List<Collection<?>> getGroupKeys(DataTable dataTable, int numAggregationFunctions,
+      boolean typedGroupKeys) {
+    List<Collection<?>> groupKeys = new ArrayList<>(numAggregationFunctions);
+    if (typedGroupKeys) {
+      List<GroupKeyTuple> typedKeys = new ArrayList<>();
+      if (isTypedGroupByResult(dataTable)) {
+        int numGroupByColumns = getNumGroupByColumns(dataTable);
+        int numRows = dataTable.getNumberOfRows();
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          typedKeys.add(getGroupKeyTuple(dataTable, rowId, numGroupByColumns));
+        }
+      }
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        groupKeys.add(typedKeys);
+      }
+    } else {
+      List<Map<String, Serializable>> groupByResults = transformDataTableToGroupByResult(dataTable);
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        groupKeys.add((i < groupByResults.size()) ? groupByResults.get(i).keySet() : Collections.<String>emptySet());
+      }
+    }
+    return groupKeys;
+  }
+
   public List<JSONObject> renderGroupByOperators(List<Map<String, Serializable>> finalAggregationResult) {
     try {
       if (finalAggregationResult == null || finalAggregationResult.size() != _aggregationFunctionList.size()) {
@@ -187,12 +631,12 @@ public class AggregationGroupByOperatorService {
 
   /**
    * Translate the reducedGroupByResults (output of broker's reduce) to AggregationResult object
-   * to be used to build the BrokerResponse.
+   * to be used to build the BrokerResponse. Group-by keys are either string keys, or {@link GroupKeyTuple}s.
    *
    * @param reducedGroupByResults
    * @return
    */
-  public List<AggregationResult> renderAggregationGroupByResult(List<Map<String, Serializable>> reducedGroupByResults) {
+  public <K> List<AggregationResult> renderAggregationGroupByResult(List<Map<K, Serializable>> reducedGroupByResults) {
     if (reducedGroupByResults == null || reducedGroupByResults.size() != _aggregationFunctionList.size()) {
       return null;
     }
@@ -201,7 +645,7 @@ public class AggregationGroupByOperatorService {
     for (int i = 0; i < _aggregationFunctionList.size(); ++i) {
       int groupSize = _groupByColumns.size();
 
-      Map<String, Serializable> reducedGroupByResult = reducedGroupByResults.get(i);
+      Map<K, Serializable> reducedGroupByResult = reducedGroupByResults.get(i);
       AggregationFunction aggregationFunction = _aggregationFunctionList.get(i);
 
       String functionName = aggregationFunction.getFunctionName();
@@ -212,19 +656,24 @@ public class AggregationGroupByOperatorService {
         boolean reverseOrder = aggregationFunction.getFunctionName().startsWith(MIN_PREFIX);
 
         // The MinMaxPriorityQueue will only add TOP N
-        MinMaxPriorityQueue<ImmutablePair<Serializable, String>> minMaxPriorityQueue =
+        MinMaxPriorityQueue<ImmutablePair<Serializable, K>> minMaxPriorityQueue =
             getMinMaxPriorityQueue(reducedGroupByResult.values().iterator().next(), _groupByTopN, reverseOrder);
 
         if (minMaxPriorityQueue != null) {
-          for (String groupedKey : reducedGroupByResult.keySet()) {
+          for (K groupedKey : reducedGroupByResult.keySet()) {
             minMaxPriorityQueue.add(new ImmutablePair(reducedGroupByResult.get(groupedKey), groupedKey));
           }
 
           ImmutablePair res;
           while ((res = (ImmutablePair) minMaxPriorityQueue.pollFirst()) != null) {
-            String groupByColumnsString = (String) res.getRight();
-            List<String> groupByColumns = Arrays.asList(groupByColumnsString
-                .split(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString(), groupSize));
+            List<String> groupByColumns;
+            if (res.getRight() instanceof GroupKeyTuple) {
+              groupByColumns = ((GroupKeyTuple) res.getRight()).getStringValues();
+            } else {
+              String groupByColumnsString = (String) res.getRight();
+              groupByColumns = Arrays.asList(groupByColumnsString
+                  .split(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString(), groupSize));
+            }
 
             Serializable value = (Serializable) res.getLeft();
             GroupByResult groupValue = new GroupByResult();
@@ -272,6 +721,23 @@ public class AggregationGroupByOperatorService {
     return trimmedResults;
   }
 
+  /**
+   * Trim the reduced group by result of the given aggregation function to the TOP N of the query.
+   * When the reduced result is partitioned by group key, the TOP N of the union of the trimmed partitions
+   * is the TOP N of the whole result, as each group key belongs to exactly one partition.
+   *
+   * @param aggregationFunctionIndex Index of the aggregation function.
+   * @param reducedGroupByResult Reduced group by result of the aggregation function.
+   * @return
+   */
+  public Map<String, Serializable> trimToTopN(int aggregationFunctionIndex,
+      Map<String, Serializable> reducedGroupByResult) {
+    if (reducedGroupByResult.size() <= _groupByTopN) {
+      return reducedGroupByResult;
+    }
+    return trimToSize(_aggregationFunctionList.get(aggregationFunctionIndex), reducedGroupByResult, _groupByTopN);
+  }
+
   /**
    * Given a map from group by keys to results for multiple aggregation functions, trim the results to desired size and
    * put them into a list of group by results. This will make it compatible to the old group by code for the upper
@@ -281,13 +747,12 @@ public class AggregationGroupByOperatorService {
    * @param numAggrFunctions Number of aggregation functions.
    * @return Trimmed list of maps containing group by results.
    */
-  public List<Map<String, Serializable>> trimToSize(Map<String, Serializable[]> aggrGroupByResults,
-      int numAggrFunctions) {
+  public <K> List<Map<K, Serializable>> trimToSize(Map<K, Serializable[]> aggrGroupByResults, int numAggrFunctions) {
     Preconditions.checkNotNull(aggrGroupByResults);
 
-    List<Map<String, Serializable>> trimmedResults = new ArrayList<>(numAggrFunctions);
+    List<Map<K, Serializable>> trimmedResults = new ArrayList<>(numAggrFunctions);
     for (int i = 0; i < numAggrFunctions; i++) {
-      trimmedResults.add(new HashMap<String, Serializable>());
+      trimmedResults.add(new HashMap<K, Serializable>());
     }
 
     if (aggrGroupByResults.size() > _trimThreshold) {
@@ -299,6 +764,113 @@ public class AggregationGroupByOperatorService {
     return trimmedResults;
   }
 
+  /**
+   * Given a map from group by keys to results for multiple aggregation functions, trim the group by keys to desired
+   * size, keeping the results of all aggregation functions for each remaining key. A group by key is kept if it is
+   * kept by the trimming for any of the aggregation functions.
+   *
+   * @param aggrGroupByResults Map from group by keys to result arrays.
+   * @param numAggrFunctions Number of aggregation functions.
+   * @return Trimmed map from group by keys to result arrays.
+   */
+  public <K> Map<K, Serializable[]> trimGroupKeys(Map<K, Serializable[]> aggrGroupByResults, int numAggrFunctions) {
+    Preconditions.checkNotNull(aggrGroupByResults);
+
+    if (aggrGroupByResults.size() <= _trimThreshold) {
+      return aggrGroupByResults;
+    }
+
+    return getGroupKeyUnion(aggrGroupByResults, trimToSize(aggrGroupByResults, numAggrFunctions));
+  }
+
+  /**
+   * Given a map from group by keys to results for multiple aggregation functions, trim the results for the approximate
+   * TOP N group-by, see {@link #getNumApproximateTopNCandidates(BrokerRequest)}.
+   * For the aggregation functions with bounded error, only the top candidates are kept, and the largest value of the
+   * trimmed groups is returned as the trim threshold (0 if no group was trimmed). Any group that was not kept has a
+   * value that is no larger than the trim threshold. The other aggregation functions, including sum over negative
+   * values, are trimmed as usual, and their trim threshold is NaN.
+   *
+   * @param aggrGroupByResults Map from group by keys to result arrays.
+   * @param numAggrFunctions Number of aggregation functions.
+   * @param numCandidates Number of candidate groups to keep for the aggregation functions with bounded error.
+   * @param trimThresholds Trim threshold for each aggregation function returned.
+   * @return Trimmed list of maps containing group by results.
+   */
+  @SuppressWarnings("unchecked")
+  public <K> List<Map<K, Serializable>> trimToApproximateTopN(Map<K, Serializable[]> aggrGroupByResults,
+      int numAggrFunctions, int numCandidates, double[] trimThresholds) {
+    Preconditions.checkNotNull(aggrGroupByResults);
+
+    int numGroups = aggrGroupByResults.size();
+    List<Map<K, Serializable>> trimmedResults = new ArrayList<>(numAggrFunctions);
+    for (int i = 0; i < numAggrFunctions; i++) {
+      AggregationFunction aggregationFunction = _aggregationFunctionList.get(i);
+      boolean errorBounded = isErrorBounded(aggregationFunction) && hasNonNegativeValues(aggrGroupByResults, i);
+      int trimSize = errorBounded ? numCandidates : ((numGroups > _trimThreshold) ? _trimSize : numGroups);
+      trimThresholds[i] = errorBounded ? 0.0 : Double.NaN;
+
+      MinMaxPriorityQueue<ImmutablePair<Serializable, K>> heap = null;
+      if (numGroups > trimSize) {
+        boolean reverseOrder = aggregationFunction.getFunctionName().startsWith(MIN_PREFIX);
+        // Keep one extra group for the aggregation functions with bounded error, its value is the trim threshold.
+        heap = getMinMaxPriorityQueue(aggrGroupByResults.values().iterator().next()[i],
+            errorBounded ? trimSize + 1 : trimSize, reverseOrder);
+      }
+
+      Map<K, Serializable> trimmedResult = new HashMap<>();
+      if (heap == null) {
+        for (Map.Entry<K, Serializable[]> entry : aggrGroupByResults.entrySet()) {
+          trimmedResult.put(entry.getKey(), entry.getValue()[i]);
+        }
+        if (numGroups > trimSize) {
+          trimThresholds[i] = Double.NaN;
+        }
+      } else {
+        for (Map.Entry<K, Serializable[]> entry : aggrGroupByResults.entrySet()) {
+          heap.add(new ImmutablePair(entry.getValue()[i], entry.getKey()));
+        }
+        if (errorBounded) {
+          Serializable threshold = heap.pollLast().getLeft();
+          trimThresholds[i] = (threshold instanceof Number) ? ((Number) threshold).doubleValue() : Double.NaN;
+        }
+        ImmutablePair<Serializable, K> pair;
+        while ((pair = heap.pollFirst()) != null) {
+          trimmedResult.put(pair.getRight(), pair.getLeft());
+        }
+      }
+      trimmedResults.add(trimmedResult);
+    }
+    return trimmedResults;
+  }
+
+  /**
+   * Same as {@link #trimToApproximateTopN(Map, int, int, double[])}, but keeps the results of all aggregation functions
+   * for each remaining group by key, see {@link #trimGroupKeys(Map, int)}.
+   *
+   * @param aggrGroupByResults Map from group by keys to result arrays.
+   * @param numAggrFunctions Number of aggregation functions.
+   * @param numCandidates Number of candidate groups to keep for the aggregation functions with bounded error.
+   * @param trimThresholds Trim threshold for each aggregation function returned.
+   * @return Trimmed map from group by keys to result arrays.
+   */
+  public <K> Map<K, Serializable[]> trimGroupKeysToApproximateTopN(Map<K, Serializable[]> aggrGroupByResults,
+      int numAggrFunctions, int numCandidates, double[] trimThresholds) {
+    return getGroupKeyUnion(aggrGroupByResults,
+        trimToApproximateTopN(aggrGroupByResults, numAggrFunctions, numCandidates, trimThresholds));
+  }
+
+  private static <K> Map<K, Serializable[]> getGroupKeyUnion(Map<K, Serializable[]> aggrGroupByResults,
+      List<Map<K, Serializable>> trimmedResultList) {
+    Map<K, Serializable[]> trimmedResults = new HashMap<>();
+    for (Map<K, Serializable> trimmedResult : trimmedResultList) {
+      for (K key : trimmedResult.keySet()) {
+        trimmedResults.put(key, aggrGroupByResults.get(key));
+      }
+    }
+    return trimmedResults;
+  }
+
   /**
    * Given a map from group by keys to results for multiple aggregation functions, convert it to a list of group by
    * results, each of them according to one aggregation function.
@@ -307,9 +879,9 @@ public class AggregationGroupByOperatorService {
    * @param aggrGroupByResultList List of maps containing group by results returned.
    * @param numAggrFunctions Number of aggregation functions.
    */
-  private static void convertGroupByResultsFromMapToList(Map<String, Serializable[]> aggrGroupByResults,
-      List<Map<String, Serializable>> aggrGroupByResultList, int numAggrFunctions) {
-    for (String key : aggrGroupByResults.keySet()) {
+  private static <K> void convertGroupByResultsFromMapToList(Map<K, Serializable[]> aggrGroupByResults,
+      List<Map<K, Serializable>> aggrGroupByResultList, int numAggrFunctions) {
+    for (K key : aggrGroupByResults.keySet()) {
       Serializable[] results = aggrGroupByResults.get(key);
       for (int i = 0; i < numAggrFunctions; i++) {
         aggrGroupByResultList.get(i).put(key, results[i]);
@@ -328,19 +900,19 @@ public class AggregationGroupByOperatorService {
    * @param trimSize Desired trim size.
    */
   @SuppressWarnings("unchecked")
-  private static void trimToSize(List<AggregationFunction> aggrFuncList, Map<String, Serializable[]> aggrGroupByResults,
-      List<Map<String, Serializable>> trimmedGroupByResultList, int numAggrFunctions, int trimSize) {
-    MinMaxPriorityQueue<ImmutablePair<Serializable, String>>[] heaps = new MinMaxPriorityQueue[numAggrFunctions];
+  private static <K> void trimToSize(List<AggregationFunction> aggrFuncList, Map<K, Serializable[]> aggrGroupByResults,
+      List<Map<K, Serializable>> trimmedGroupByResultList, int numAggrFunctions, int trimSize) {
+    MinMaxPriorityQueue<ImmutablePair<Serializable, K>>[] heaps = new MinMaxPriorityQueue[numAggrFunctions];
     for (int i = 0; i < numAggrFunctions; i++) {
       boolean reverseOrder = aggrFuncList.get(i).getFunctionName().startsWith(MIN_PREFIX);
       heaps[i] = getMinMaxPriorityQueue(aggrGroupByResults.values().iterator().next()[i], trimSize, reverseOrder);
     }
 
-    for (String key : aggrGroupByResults.keySet()) {
+    for (K key : aggrGroupByResults.keySet()) {
       Serializable[] results = aggrGroupByResults.get(key);
       for (int i = 0; i < numAggrFunctions; i++) {
         Serializable result = results[i];
-        MinMaxPriorityQueue<ImmutablePair<Serializable, String>> heap = heaps[i];
+        MinMaxPriorityQueue<ImmutablePair<Serializable, K>> heap = heaps[i];
         if (heap == null) {
           trimmedGroupByResultList.get(i).put(key, result);
         } else {
@@ -350,8 +922,8 @@ public class AggregationGroupByOperatorService {
     }
 
     for (int i = 0; i < numAggrFunctions; i++) {
-      MinMaxPriorityQueue<ImmutablePair<Serializable, String>> heap = heaps[i];
-      ImmutablePair<Serializable, String> pair;
+      MinMaxPriorityQueue<ImmutablePair<Serializable, K>> heap = heaps[i];
+      ImmutablePair<Serializable, K> pair;
       if (heap != null) {
         while ((pair = heap.pollFirst()) != null) {
           trimmedGroupByResultList.get(i).put(pair.getRight(), pair.getLeft());
@@ -402,16 +974,16 @@ public class AggregationGroupByOperatorService {
    * @param reverseOrder True if sorting order to be reversed.
    * @return
    */
-  private static MinMaxPriorityQueue<ImmutablePair<Serializable, String>> getMinMaxPriorityQueue(Serializable sampleObject,
-      int maxSize, boolean reverseOrder) {
+  private static <K> MinMaxPriorityQueue<ImmutablePair<Serializable, K>> getMinMaxPriorityQueue(
+      Serializable sampleObject, int maxSize, boolean reverseOrder) {
     if (!(sampleObject instanceof Comparable)) {
       return null;
     }
 
-    Comparator<ImmutablePair<Serializable, String>> comparator =
-        new GroupByResultComparator<ImmutablePair<Serializable, String>>().newComparator(reverseOrder);
+    Comparator<ImmutablePair<Serializable, K>> comparator =
+        new GroupByResultComparator<ImmutablePair<Serializable, K>>().newComparator(reverseOrder);
 
-    MinMaxPriorityQueue.Builder<ImmutablePair<Serializable, String>> minMaxPriorityQueueBuilder =
+    MinMaxPriorityQueue.Builder<ImmutablePair<Serializable, K>> minMaxPriorityQueueBuilder =
         MinMaxPriorityQueue.orderedBy(comparator).maximumSize(maxSize);
 
     return minMaxPriorityQueueBuilder.create();
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Group by key held as a tuple of the actual (typed) values of the group by columns.
+ *
+ * Unlike the string group key, where values are joined with {@link GroupByConstants.GroupByDelimiter},
+ * building this key does not format the values, and it is only converted to strings when the final
+ * result is rendered.
+ */
+public final class GroupKeyTuple {
+  private final Object[] _values;
+  private final int _hashCode;
+
+  /**
+   * Constructor for the class, the values array is not copied.
+   *
+   * @param values Values of the group by columns.
+   */
+  public GroupKeyTuple(Object[] values) {
+    _values = values;
+    _hashCode = Arrays.hashCode(values);
+  }
+
+  public Object[] getValues() {
+    return _values;
+  }
+
+  /**
+   * Returns the string values of the group by columns.
+   *
+   * @return
+   */
+  public List<String> getStringValues() {
+    List<String> stringValues = new ArrayList<>(_values.length);
+    for (Object value : _values) {
+      stringValues.add(value.toString());
+    }
+    return stringValues;
+  }
+
+  /**
+   * Returns the string group key, in the same format as the string group keys generated on the servers.
+   *
+   * @return
+   */
+  public String getStringKey() {
+    if (_values.length == 1) {
+      return _values[0].toString();
+    }
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < _values.length; i++) {
+      if (i > 0) {
+        builder.append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString());
+      }
+      builder.append(_values[i].toString());
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof GroupKeyTuple)) {
+      return false;
+    }
+    GroupKeyTuple that = (GroupKeyTuple) o;
+    return _hashCode == that._hashCode && Arrays.equals(_values, that._values);
+  }
+
+  @Override
+  public int hashCode() {
+    return _hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(_values);
+  }
+}
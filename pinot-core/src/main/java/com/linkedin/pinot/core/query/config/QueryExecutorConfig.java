@@ -32,12 +32,17 @@ public class QueryExecutorConfig {
   public static final String QUERY_PLANNER = "queryPlanner";
   // Prefix key of TimeOut
   public static final String TIME_OUT = "timeout";
+  // Prefix key of per query resource limits, which can be overridden per table with 'resourceLimits.<tableName>.<key>'
+  public static final String RESOURCE_LIMITS = "resourceLimits";
+  public static final String MAX_CPU_TIME_MS = "maxCpuTimeMs";
+  public static final String MAX_ALLOCATED_BYTES = "maxAllocatedBytes";
 
   private static final String[] REQUIRED_KEYS = {};
 
   private Configuration _queryExecutorConfig = null;
   private SegmentPrunerConfig _segmentPrunerConfig;
   private QueryPlannerConfig _queryPlannerConfig;
+  private Configuration _resourceLimitsConfig;
   private final long _timeOutMs;
 
   public QueryExecutorConfig(Configuration config) throws ConfigurationException {
@@ -46,6 +51,7 @@ public class QueryExecutorConfig {
     _segmentPrunerConfig = new SegmentPrunerConfig(_queryExecutorConfig.subset(QUERY_PRUNER));
     _queryPlannerConfig = new QueryPlannerConfig(_queryExecutorConfig.subset(QUERY_PLANNER));
     _timeOutMs = _queryExecutorConfig.getLong(TIME_OUT, -1);
+    _resourceLimitsConfig = _queryExecutorConfig.subset(RESOURCE_LIMITS);
   }
 
   private void checkRequiredKeys() throws ConfigurationException {
@@ -71,4 +77,23 @@ public class QueryExecutorConfig {
   public long getTimeOut() {
     return _timeOutMs;
   }
+
+  /**
+   * Returns the maximum CPU time in milliseconds for one query on the given table, non-positive for no limit.
+   */
+  public long getMaxCpuTimeMs(String tableName) {
+    return getResourceLimit(tableName, MAX_CPU_TIME_MS);
+  }
+
+  /**
+   * Returns the maximum bytes allocated by one query on the given table, non-positive for no limit.
+   */
+  public long getMaxAllocatedBytes(String tableName) {
+    return getResourceLimit(tableName, MAX_ALLOCATED_BYTES);
+  }
+
+  private long getResourceLimit(String tableName, String key) {
+    long serverLimit = _resourceLimitsConfig.getLong(key, -1);
+    return _resourceLimitsConfig.getLong(tableName + "." + key, serverLimit);
+  }
 }
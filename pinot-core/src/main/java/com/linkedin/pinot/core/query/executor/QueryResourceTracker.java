@@ -0,0 +1,226 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.executor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Accounts the CPU time and the (approximate) bytes allocated by all the threads working on one query, and enforces
+ * the per table limits on them.
+ *
+ * The tracker is registered to the thread that processes the query, and is carried over to the worker threads by
+ * {@link com.linkedin.pinot.core.util.trace.TraceRunnable} and
+ * {@link com.linkedin.pinot.core.util.trace.TraceCallable}, the same way as the trace context. Usage is sampled from the thread MXBean whenever a thread calls
+ * {@link #checkResourceUsage()} (once per block of documents) and when it is unregistered.
+ *
+ * Allocated bytes are only tracked on JVMs that support thread allocation accounting (HotSpot).
+ */
+public class QueryResourceTracker {
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryResourceTracker.class);
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+  private static final boolean CPU_TIME_SUPPORTED;
+  private static final boolean ALLOCATED_BYTES_SUPPORTED;
+
+  static {
+    boolean cpuTimeSupported = false;
+    boolean allocatedBytesSupported = false;
+    try {
+      cpuTimeSupported = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+      if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+        allocatedBytesSupported =
+            threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled();
+      }
+    } catch (Throwable t) {
+      LOGGER.warn("Caught exception while checking thread resource accounting support", t);
+    }
+    CPU_TIME_SUPPORTED = cpuTimeSupported;
+    ALLOCATED_BYTES_SUPPORTED = allocatedBytesSupported;
+    LOGGER.info("Query resource accounting: cpu time supported: {}, allocated bytes supported: {}", CPU_TIME_SUPPORTED,
+        ALLOCATED_BYTES_SUPPORTED);
+  }
+
+  private static final ThreadLocal<ThreadState> THREAD_STATE = new ThreadLocal<>();
+
+  private final long _maxCpuTimeNs;
+  private final long _maxAllocatedBytes;
+  private final AtomicLong _cpuTimeNs = new AtomicLong();
+  private final AtomicLong _allocatedBytes = new AtomicLong();
+  private volatile boolean _limitExceeded = false;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param maxCpuTimeMs Maximum CPU time across all threads, non-positive for no limit
+   * @param maxAllocatedBytes Maximum allocated bytes across all threads, non-positive for no limit
+   */
+  public QueryResourceTracker(long maxCpuTimeMs, long maxAllocatedBytes) {
+    _maxCpuTimeNs = maxCpuTimeMs > 0 ? TimeUnit.MILLISECONDS.toNanos(maxCpuTimeMs) : Long.MAX_VALUE;
+    _maxAllocatedBytes = maxAllocatedBytes > 0 ? maxAllocatedBytes : Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the CPU time (in nanoseconds) used by the query so far.
+   */
+  public long getCpuTimeNs() {
+    return _cpuTimeNs.get();
+  }
+
+  /**
+   * Returns the bytes allocated by the query so far.
+   */
+  public long getAllocatedBytes() {
+    return _allocatedBytes.get();
+  }
+
+  /**
+   * Returns true if the query went over one of its limits.
+   */
+  public boolean isLimitExceeded() {
+    return _limitExceeded;
+  }
+
+  private void checkLimits() {
+    long cpuTimeNs = _cpuTimeNs.get();
+    if (cpuTimeNs > _maxCpuTimeNs) {
+      _limitExceeded = true;
+      throw new QueryResourceLimitExceededException(
+          "Query used " + TimeUnit.NANOSECONDS.toMillis(cpuTimeNs) + " ms of CPU time, limit is "
+              + TimeUnit.NANOSECONDS.toMillis(_maxCpuTimeNs) + " ms");
+    }
+    long allocatedBytes = _allocatedBytes.get();
+    if (allocatedBytes > _maxAllocatedBytes) {
+      _limitExceeded = true;
+      throw new QueryResourceLimitExceededException(
+          "Query allocated " + allocatedBytes + " bytes, limit is " + _maxAllocatedBytes + " bytes");
+    }
+  }
+
+  /**
+   * Starts accounting the resources used by the current thread to the given tracker (no-op for null). Registrations
+   * can be nested (e.g. when a task runs on the calling thread), each one must be matched by {@link #unregister()}.
+   */
+  public static void register(QueryResourceTracker tracker) {
+    ThreadState parent = THREAD_STATE.get();
+    if (parent != null) {
+      parent.update();
+    }
+    if (tracker != null || parent != null) {
+      THREAD_STATE.set(new ThreadState(tracker, parent));
+    }
+  }
+
+  /**
+   * Accounts the resources used by the current thread since the last sample, and stops accounting to the tracker
+   * registered last.
+   */
+  public static void unregister() {
+    ThreadState state = THREAD_STATE.get();
+    if (state == null) {
+      return;
+    }
+    state.update();
+    ThreadState parent = state._parent;
+    if (parent != null) {
+      // Usage of the nested registration must not be accounted again by the parent
+      parent.reset();
+      THREAD_STATE.set(parent);
+    } else {
+      THREAD_STATE.remove();
+    }
+  }
+
+  /**
+   * Returns the tracker registered to the current thread, or null if there is none.
+   */
+  public static QueryResourceTracker getTrackerForCurrentThread() {
+    ThreadState state = THREAD_STATE.get();
+    return state != null ? state._tracker : null;
+  }
+
+  /**
+   * Accounts the resources used by the current thread since the last sample.
+   */
+  public static void updateResourceUsage() {
+    ThreadState state = THREAD_STATE.get();
+    if (state != null) {
+      state.update();
+    }
+  }
+
+  /**
+   * Accounts the resources used by the current thread since the last sample, and throws
+   * {@link QueryResourceLimitExceededException} if the query went over one of its limits.
+   */
+  public static void checkResourceUsage() {
+    ThreadState state = THREAD_STATE.get();
+    if (state != null && state._tracker != null) {
+      state.update();
+      state._tracker.checkLimits();
+    }
+  }
+
+  private static long getCurrentThreadCpuTimeNs() {
+    return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0L;
+  }
+
+  private static long getCurrentThreadAllocatedBytes() {
+    if (ALLOCATED_BYTES_SUPPORTED) {
+      return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(
+          Thread.currentThread().getId());
+    }
+    return 0L;
+  }
+
+  /**
+   * Resource usage of one thread for one registration.
+   */
+  private static final class ThreadState {
+    private final QueryResourceTracker _tracker;
+    private final ThreadState _parent;
+    private long _lastCpuTimeNs;
+    private long _lastAllocatedBytes;
+
+    private ThreadState(QueryResourceTracker tracker, ThreadState parent) {
+      _tracker = tracker;
+      _parent = parent;
+      reset();
+    }
+
+    private void reset() {
+      _lastCpuTimeNs = getCurrentThreadCpuTimeNs();
+      _lastAllocatedBytes = getCurrentThreadAllocatedBytes();
+    }
+
+    private void update() {
+      long cpuTimeNs = getCurrentThreadCpuTimeNs();
+      long allocatedBytes = getCurrentThreadAllocatedBytes();
+      if (_tracker != null) {
+        _tracker._cpuTimeNs.addAndGet(cpuTimeNs - _lastCpuTimeNs);
+        _tracker._allocatedBytes.addAndGet(allocatedBytes - _lastAllocatedBytes);
+      }
+      _lastCpuTimeNs = cpuTimeNs;
+      _lastAllocatedBytes = allocatedBytes;
+    }
+  }
+}
@@ -0,0 +1,261 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.executor;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Server wide LRU cache of the per segment intermediate results of aggregation and group-by queries, for immutable
+ * (offline) segments.
+ *
+ * Entries are keyed on the segment name, the segment CRC and the normalized broker request, so a reloaded segment
+ * never hits the results of its previous version. The table data managers still invalidate the entries of a segment
+ * when it is replaced or removed, so that they do not hold on to memory.
+ *
+ * Results are stored java serialized: the combine operators merge into the blocks they are given, so each hit has
+ * to return a fresh copy anyway, and the serialized size is what bounds the cache.
+ *
+ * Only blocks holding aggregation results or group-by results as maps are cached. Selection results and group-by
+ * results held in {@link com.linkedin.pinot.core.operator.aggregation.groupby.AggregationGroupByResult} are not.
+ */
+public class SegmentResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+  private static final SegmentResultCache INSTANCE = new SegmentResultCache();
+
+  // Rough per entry overhead of the map entry, key and value objects
+  private static final long ENTRY_OVERHEAD_BYTES = 128L;
+
+  // Access ordered for LRU eviction, guarded by 'this'
+  private final LinkedHashMap<Key, byte[]> _entries = new LinkedHashMap<>(16, 0.75f, true);
+  private int _maxEntries = 0;
+  private long _maxBytes = 0L;
+  private long _sizeInBytes = 0L;
+
+  private SegmentResultCache() {
+  }
+
+  public static SegmentResultCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Sets the limits of the cache, evicting entries as needed. The cache is disabled until it is configured.
+   *
+   * @param maxEntries Maximum number of cached segment results
+   * @param maxBytes Maximum total serialized size of the cached segment results
+   */
+  public synchronized void configure(int maxEntries, long maxBytes) {
+    Preconditions.checkArgument(maxEntries > 0);
+    Preconditions.checkArgument(maxBytes > 0);
+    _maxEntries = maxEntries;
+    _maxBytes = maxBytes;
+    evict();
+    LOGGER.info("Configured segment result cache with max entries: {}, max bytes: {}", maxEntries, maxBytes);
+  }
+
+  /**
+   * Returns the cache key of the results of the given query on the given segment, or null if they cannot be cached.
+   *
+   * @param indexSegment Index segment, must be immutable
+   * @param normalizedRequestBytes Serialized normalized broker request
+   */
+  public Key getKey(IndexSegment indexSegment, byte[] normalizedRequestBytes) {
+    String crc = indexSegment.getSegmentMetadata().getCrc();
+    if (crc == null) {
+      return null;
+    }
+    return new Key(indexSegment.getSegmentName(), crc, normalizedRequestBytes);
+  }
+
+  /**
+   * Returns a copy of the cached results for the given key, or null if there are none.
+   *
+   * @param key Cache key
+   * @param aggregationsInfo Aggregations of the query
+   */
+  public IntermediateResultsBlock get(Key key, List<AggregationInfo> aggregationsInfo) {
+    byte[] bytes;
+    synchronized (this) {
+      bytes = _entries.get(key);
+    }
+    if (bytes == null) {
+      return null;
+    }
+
+    CachedResults cachedResults;
+    try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      cachedResults = (CachedResults) objectInputStream.readObject();
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while deserializing cached results of segment {}", key._segmentName, e);
+      return null;
+    }
+    IntermediateResultsBlock block;
+    if (cachedResults._aggregationGroupByResults != null) {
+      block = new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(aggregationsInfo),
+          cachedResults._aggregationGroupByResults, true);
+    } else {
+      block = new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(aggregationsInfo),
+          cachedResults._aggregationResults);
+    }
+    block.setNumDocsScanned(cachedResults._numDocsScanned);
+    block.setTotalRawDocs(cachedResults._totalRawDocs);
+    return block;
+  }
+
+  /**
+   * Caches the given results if they are cacheable (see class comment). Must be called before the block is handed
+   * to the combine operator.
+   *
+   * @param key Cache key
+   * @param block Results of the query on the segment
+   */
+  public void put(Key key, IntermediateResultsBlock block) {
+    if (block == null || (block.getExceptions() != null && !block.getExceptions().isEmpty())
+        || block.getSelectionResult() != null || block.getAggregationGroupByResult() != null) {
+      return;
+    }
+    CachedResults cachedResults = new CachedResults(block);
+    if (cachedResults._aggregationResults == null && cachedResults._aggregationGroupByResults == null) {
+      return;
+    }
+
+    byte[] bytes;
+    try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+      objectOutputStream.writeObject(cachedResults);
+      objectOutputStream.flush();
+      bytes = byteArrayOutputStream.toByteArray();
+    } catch (Exception e) {
+      LOGGER.debug("Caught exception while serializing results of segment {}, not caching them", key._segmentName, e);
+      return;
+    }
+
+    synchronized (this) {
+      if (getEntrySize(key, bytes) > _maxBytes) {
+        return;
+      }
+      byte[] previousBytes = _entries.put(key, bytes);
+      if (previousBytes != null) {
+        _sizeInBytes -= getEntrySize(key, previousBytes);
+      }
+      _sizeInBytes += getEntrySize(key, bytes);
+      evict();
+    }
+  }
+
+  /**
+   * Drops the cached results of all the versions of the given segment.
+   *
+   * @param segmentName Segment name
+   */
+  public synchronized void invalidate(String segmentName) {
+    Iterator<Map.Entry<Key, byte[]>> iterator = _entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Key, byte[]> entry = iterator.next();
+      if (entry.getKey()._segmentName.equals(segmentName)) {
+        _sizeInBytes -= getEntrySize(entry.getKey(), entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized int size() {
+    return _entries.size();
+  }
+
+  public synchronized long getSizeInBytes() {
+    return _sizeInBytes;
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<Key, byte[]>> iterator = _entries.entrySet().iterator();
+    while (_entries.size() > _maxEntries || _sizeInBytes > _maxBytes) {
+      Map.Entry<Key, byte[]> eldest = iterator.next();
+      _sizeInBytes -= getEntrySize(eldest.getKey(), eldest.getValue());
+      iterator.remove();
+    }
+  }
+
+  private static long getEntrySize(Key key, byte[] bytes) {
+    return ENTRY_OVERHEAD_BYTES + key._requestBytes.length + bytes.length;
+  }
+
+  /**
+   * Cache key: segment name and CRC along with the serialized normalized broker request.
+   */
+  public static final class Key {
+    private final String _segmentName;
+    private final String _crc;
+    private final byte[] _requestBytes;
+    private final int _hashCode;
+
+    private Key(String segmentName, String crc, byte[] requestBytes) {
+      _segmentName = segmentName;
+      _crc = crc;
+      _requestBytes = requestBytes;
+      _hashCode = 31 * (31 * segmentName.hashCode() + crc.hashCode()) + Arrays.hashCode(requestBytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _hashCode == that._hashCode && _segmentName.equals(that._segmentName) && _crc.equals(that._crc)
+          && Arrays.equals(_requestBytes, that._requestBytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  private static final class CachedResults implements Serializable {
+    private final List<Serializable> _aggregationResults;
+    private final List<Map<String, Serializable>> _aggregationGroupByResults;
+    private final long _numDocsScanned;
+    private final long _totalRawDocs;
+
+    private CachedResults(IntermediateResultsBlock block) {
+      _aggregationResults = block.getAggregationResult();
+      _aggregationGroupByResults = block.getAggregationGroupByOperatorResult();
+      _numDocsScanned = block.getNumDocsScanned();
+      _totalRawDocs = block.getTotalRawDocs();
+    }
+  }
+}
@@ -93,8 +93,12 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     final long requestId = instanceRequest.getRequestId();
     final long nSegmentsInQuery = instanceRequest.getSearchSegmentsSize();
     long nPrunedSegments = -1;
+    final String tableName = instanceRequest.getQuery().getQuerySource().getTableName();
+    final QueryResourceTracker resourceTracker = new QueryResourceTracker(
+        _queryExecutorConfig.getMaxCpuTimeMs(tableName), _queryExecutorConfig.getMaxAllocatedBytes(tableName));
     try {
       TraceContext.register(instanceRequest);
+      QueryResourceTracker.register(resourceTracker);
       final BrokerRequest brokerRequest = instanceRequest.getQuery();
       LOGGER.debug("Incoming query is : {}", brokerRequest);
       long startPruningTime = System.nanoTime();
@@ -134,6 +138,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       instanceResponse.getMetadata().put("timeUsedMs", Long.toString((end - start)));
       instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
       instanceResponse.getMetadata().put("traceInfo", TraceContext.getTraceInfoOfRequestId(instanceRequest.getRequestId()));
+      addResourceUsage(instanceResponse, resourceTracker);
       LOGGER.info("Processed requestId {},reqSegments={},prunedSegments={},planTime={},timeUsed={},executeTime={}",
           requestId, nSegmentsInQuery, nPrunedSegments, TimeUnit.MILLISECONDS.convert(planTime, TimeUnit.NANOSECONDS),
           (end-start), TimeUnit.MILLISECONDS.convert(executeTime, TimeUnit.NANOSECONDS));
@@ -142,7 +147,12 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       _serverMetrics.addMeteredQueryValue(instanceRequest.getQuery(), ServerMeter.QUERY_EXECUTION_EXCEPTIONS, 1);
       LOGGER.error("Exception processing requestId {}", requestId, e);
       instanceResponse = new DataTable();
-      instanceResponse.addException(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
+      if (e instanceof QueryResourceLimitExceededException) {
+        instanceResponse.addException(
+            QueryException.getException(QueryException.QUERY_RESOURCE_LIMIT_EXCEEDED_ERROR, e));
+      } else {
+        instanceResponse.addException(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
+      }
       TraceContext.logException("ServerQueryExecutorV1Impl", "Exception occurs in processQuery");
       long end = System.currentTimeMillis();
       LOGGER.info("Searching Instance for Request Id - {}, browse took: {}", requestId, requestId, (end - start));
@@ -150,6 +160,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       instanceResponse.getMetadata().put("timeUsedMs", Long.toString((end - start)));
       instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
       instanceResponse.getMetadata().put("traceInfo", TraceContext.getTraceInfoOfRequestId(instanceRequest.getRequestId()));
+      addResourceUsage(instanceResponse, resourceTracker);
       return instanceResponse;
     } finally {
       if (_instanceDataManager.getTableDataManager(instanceRequest.getQuery().getQuerySource().getTableName()) != null) {
@@ -160,10 +171,28 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
           }
         }
       }
+      QueryResourceTracker.unregister();
       TraceContext.unregister(instanceRequest);
+      _serverMetrics.addMeteredQueryValue(instanceRequest.getQuery(), ServerMeter.QUERY_CPU_TIME_MS,
+          TimeUnit.NANOSECONDS.toMillis(resourceTracker.getCpuTimeNs()));
+      _serverMetrics.addMeteredQueryValue(instanceRequest.getQuery(), ServerMeter.QUERY_ALLOCATED_BYTES,
+          resourceTracker.getAllocatedBytes());
+      if (resourceTracker.isLimitExceeded()) {
+        _serverMetrics.addMeteredQueryValue(instanceRequest.getQuery(), ServerMeter.QUERIES_KILLED, 1);
+        LOGGER.warn("Killed requestId {} on table {} for going over its resource limits", requestId, tableName);
+      }
     }
   }
 
+  /**
+   * Adds the CPU time and bytes allocated so far by all the threads working on the query to the response metadata.
+   */
+  private static void addResourceUsage(DataTable instanceResponse, QueryResourceTracker resourceTracker) {
+    QueryResourceTracker.updateResourceUsage();
+    instanceResponse.getMetadata().put("threadCpuTimeNs", Long.toString(resourceTracker.getCpuTimeNs()));
+    instanceResponse.getMetadata().put("allocatedBytes", Long.toString(resourceTracker.getAllocatedBytes()));
+  }
+
   private List<SegmentDataManager> getPrunedQueryableSegments(final InstanceRequest instanceRequest) {
     LOGGER.debug("InstanceRequest contains {} segments", instanceRequest.getSearchSegments().size());
 
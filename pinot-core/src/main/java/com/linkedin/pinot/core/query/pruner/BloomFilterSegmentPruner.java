@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.common.predicate.EqPredicate;
+import com.linkedin.pinot.core.common.predicate.InPredicate;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * An implementation of SegmentPruner.
+ * Pruner will prune segment if the bloom filter of a column shows that none of the values of an EQ or IN
+ * predicate on it can be in the segment, and the filter tree cannot match without that predicate.
+ * Columns without a bloom filter never cause a segment to be pruned.
+ */
+public class BloomFilterSegmentPruner implements SegmentPruner {
+
+  @Override
+  public boolean prune(IndexSegment segment, BrokerRequest brokerRequest) {
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree == null) {
+      return false;
+    }
+    return cannotMatch(segment, filterQueryTree);
+  }
+
+  /**
+   * Returns true only if no document of the segment can match the filter tree.
+   */
+  private boolean cannotMatch(IndexSegment segment, FilterQueryTree filterQueryTree) {
+    switch (filterQueryTree.getOperator()) {
+      case AND:
+        for (FilterQueryTree child : filterQueryTree.getChildren()) {
+          if (cannotMatch(segment, child)) {
+            return true;
+          }
+        }
+        return false;
+      case OR:
+        for (FilterQueryTree child : filterQueryTree.getChildren()) {
+          if (!cannotMatch(segment, child)) {
+            return false;
+          }
+        }
+        return true;
+      case EQUALITY:
+        return cannotMatchAny(segment, filterQueryTree.getColumn(),
+            new String[]{((EqPredicate) Predicate.newPredicate(filterQueryTree)).getEqualsValue()});
+      case IN:
+        return cannotMatchAny(segment, filterQueryTree.getColumn(),
+            ((InPredicate) Predicate.newPredicate(filterQueryTree)).getInRange());
+      default:
+        return false;
+    }
+  }
+
+  private boolean cannotMatchAny(IndexSegment segment, String column, String[] values) {
+    Schema schema = segment.getSegmentMetadata().getSchema();
+    if (schema == null || !schema.hasColumn(column)) {
+      return false;
+    }
+    DataSource dataSource = segment.getDataSource(column);
+    BloomFilterReader bloomFilter = dataSource.getBloomFilter();
+    if (bloomFilter == null) {
+      return false;
+    }
+    FieldSpec.DataType dataType = dataSource.getDataSourceMetadata().getDataType();
+    for (String value : values) {
+      String bloomFilterValue;
+      try {
+        bloomFilterValue = toBloomFilterValue(value, dataType);
+      } catch (NumberFormatException e) {
+        // Leave it to the filter operators to deal with values that do not match the column type
+        return false;
+      }
+      if (bloomFilter.mightContain(bloomFilterValue)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Converts a value from the query into the string form it was added to the bloom filter with, see
+   * {@link BloomFilterCreator#toBloomFilterValue(Object)}.
+   */
+  private static String toBloomFilterValue(String value, FieldSpec.DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return BloomFilterCreator.toBloomFilterValue(Integer.parseInt(value));
+      case LONG:
+        return BloomFilterCreator.toBloomFilterValue(Long.parseLong(value));
+      case FLOAT:
+        return BloomFilterCreator.toBloomFilterValue(Float.parseFloat(value));
+      case DOUBLE:
+        return BloomFilterCreator.toBloomFilterValue(Double.parseDouble(value));
+      default:
+        return value;
+    }
+  }
+
+  @Override
+  public void init(Configuration config) {
+
+  }
+
+  @Override
+  public String toString() {
+    return "BloomFilterSegmentPruner";
+  }
+}
@@ -30,6 +30,7 @@ import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyTuple;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
 import java.io.Serializable;
@@ -79,38 +80,69 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
         continue;
       }
 
-      // reduceOnTraceInfo (put it here so that trace info can show up even exception happens)
-      if (brokerRequest.isEnableTrace() && instanceResponse.getMetadata() != null) {
-        brokerResponseNative.getTraceInfo()
-            .put(serverInstance.getHostname(), instanceResponse.getMetadata().get("traceInfo"));
+      if (!reduceOnMetadata(brokerRequest, serverInstance, instanceResponse, brokerResponseNative)) {
+        instanceResponseMap.remove(serverInstance);
       }
+    }
 
-      if (instanceResponse.getDataSchema() == null && instanceResponse.getMetadata() != null) {
-        for (String key : instanceResponse.getMetadata().keySet()) {
-          if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
-            QueryProcessingException processingException = new QueryProcessingException();
-            processingException.setErrorCode(Integer.parseInt(key.substring(9)));
-            processingException.setMessage(instanceResponse.getMetadata().get(key));
-            brokerResponseNative.getProcessingExceptions().add(processingException);
-          }
+    return reduceOnResults(brokerRequest, instanceResponseMap, brokerResponseNative);
+  }
+
+  /**
+   * Reduce the metadata of the DataTable from one server (trace info, exceptions, number of docs
+   * scanned, total docs and time used) into the broker response.
+   *
+   * @param brokerRequest
+   * @param serverInstance
+   * @param instanceResponse
+   * @param brokerResponseNative
+   * @return false if the DataTable only holds exceptions, and has no results to reduce.
+   */
+  protected boolean reduceOnMetadata(BrokerRequest brokerRequest, ServerInstance serverInstance,
+      DataTable instanceResponse, BrokerResponseNative brokerResponseNative) {
+    // reduceOnTraceInfo (put it here so that trace info can show up even exception happens)
+    if (brokerRequest.isEnableTrace() && instanceResponse.getMetadata() != null) {
+      brokerResponseNative.getTraceInfo()
+          .put(serverInstance.getHostname(), instanceResponse.getMetadata().get("traceInfo"));
+    }
+
+    if (instanceResponse.getDataSchema() == null && instanceResponse.getMetadata() != null) {
+      for (String key : instanceResponse.getMetadata().keySet()) {
+        if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
+          QueryProcessingException processingException = new QueryProcessingException();
+          processingException.setErrorCode(Integer.parseInt(key.substring(9)));
+          processingException.setMessage(instanceResponse.getMetadata().get(key));
+          brokerResponseNative.getProcessingExceptions().add(processingException);
         }
-        instanceResponseMap.remove(serverInstance);
-        continue;
       }
+      return false;
+    }
 
-      // Reduce on numDocsScanned
-      brokerResponseNative.setNumDocsScanned(brokerResponseNative.getNumDocsScanned() + Long
-          .parseLong(instanceResponse.getMetadata().get(NUM_DOCS_SCANNED)));
+    // Reduce on numDocsScanned
+    brokerResponseNative.setNumDocsScanned(brokerResponseNative.getNumDocsScanned() + Long
+        .parseLong(instanceResponse.getMetadata().get(NUM_DOCS_SCANNED)));
 
-      // Reduce on totaDocs
-      brokerResponseNative.setTotalDocs(
-          brokerResponseNative.getTotalDocs() + Long.parseLong(instanceResponse.getMetadata().get(TOTAL_DOCS)));
+    // Reduce on totaDocs
+    brokerResponseNative.setTotalDocs(
+        brokerResponseNative.getTotalDocs() + Long.parseLong(instanceResponse.getMetadata().get(TOTAL_DOCS)));
 
-      if (Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)) > brokerResponseNative.getTimeUsedMs()) {
-        brokerResponseNative.setTimeUsedMs(Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)));
-      }
+    if (Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)) > brokerResponseNative.getTimeUsedMs()) {
+      brokerResponseNative.setTimeUsedMs(Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)));
     }
+    return true;
+  }
 
+  /**
+   * Reduce the results of the DataTables (that hold results) into the broker response, whose
+   * metadata has already been reduced.
+   *
+   * @param brokerRequest
+   * @param instanceResponseMap
+   * @param brokerResponseNative
+   * @return
+   */
+  protected BrokerResponseNative reduceOnResults(BrokerRequest brokerRequest,
+      Map<ServerInstance, DataTable> instanceResponseMap, BrokerResponseNative brokerResponseNative) {
     try {
       if (brokerRequest.isSetSelections() && (brokerRequest.getSelections().getSelectionColumns() != null) && (
           brokerRequest.getSelections().getSelectionColumns().size() >= 0)) {
@@ -129,16 +161,15 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
         } else {
           AggregationGroupByOperatorService aggregationGroupByOperatorService =
               new AggregationGroupByOperatorService(brokerRequest.getAggregationsInfo(), brokerRequest.getGroupBy());
-          brokerResponseNative.setAggregationResults(
-              reduceOnAggregationGroupByOperatorResults(aggregationGroupByOperatorService, instanceResponseMap));
+          boolean approximateTopN =
+              AggregationGroupByOperatorService.getNumApproximateTopNCandidates(brokerRequest) > 0;
+          brokerResponseNative.setAggregationResults(reduceOnAggregationGroupByOperatorResults(
+              aggregationGroupByOperatorService, instanceResponseMap, approximateTopN));
         }
         return brokerResponseNative;
       }
     } catch (Exception e) {
-      QueryProcessingException processingException = new QueryProcessingException();
-      processingException.setMessage(e.getMessage());
-      processingException.setErrorCode(QueryException.BROKER_GATHER_ERROR_CODE);
-      brokerResponseNative.getProcessingExceptions().add(processingException);
+      addReduceException(brokerResponseNative, e);
       return brokerResponseNative;
     }
 
@@ -146,6 +177,19 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
         "Should not reach here, the query has no attributes of selection or aggregation!");
   }
 
+  /**
+   * Add the exception thrown while reducing the results to the broker response.
+   *
+   * @param brokerResponseNative
+   * @param e
+   */
+  protected static void addReduceException(BrokerResponseNative brokerResponseNative, Exception e) {
+    QueryProcessingException processingException = new QueryProcessingException();
+    processingException.setMessage(e.getMessage());
+    processingException.setErrorCode(QueryException.BROKER_GATHER_ERROR_CODE);
+    brokerResponseNative.getProcessingExceptions().add(processingException);
+  }
+
   /**
    * Reduce selection results from various servers into SelectionResults object, that goes
    * into BrokerResponseNative.
@@ -234,16 +278,46 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
    *
    * @param aggregationGroupByOperatorService
    * @param instanceResponseMap
+   * @param approximateTopN True if the query asks for the approximate TOP N group-by, in which case the error bound
+   *                        of the results is reported.
    * @return
    */
   private List<AggregationResult> reduceOnAggregationGroupByOperatorResults(
       AggregationGroupByOperatorService aggregationGroupByOperatorService,
-      Map<ServerInstance, DataTable> instanceResponseMap) {
+      Map<ServerInstance, DataTable> instanceResponseMap, boolean approximateTopN) {
+
+    // Keep group-by keys typed until rendering if all servers sent typed group-by keys.
+    if (AggregationGroupByOperatorService.canReduceTypedGroupByOperators(instanceResponseMap)) {
+      List<Map<GroupKeyTuple, Serializable>> reducedGroupByResults =
+          aggregationGroupByOperatorService.reduceTypedGroupByOperators(instanceResponseMap);
+      List<AggregationResult> aggregationResults =
+          aggregationGroupByOperatorService.renderAggregationGroupByResult(reducedGroupByResults);
+      if (approximateTopN) {
+        setMaxErrors(aggregationResults,
+            aggregationGroupByOperatorService.getApproximateTopNErrors(instanceResponseMap, reducedGroupByResults));
+      }
+      return aggregationResults;
+    }
 
     List<Map<String, Serializable>> reducedGroupByResults =
         aggregationGroupByOperatorService.reduceGroupByOperators(instanceResponseMap);
 
-    return aggregationGroupByOperatorService.renderAggregationGroupByResult(reducedGroupByResults);
+    List<AggregationResult> aggregationResults =
+        aggregationGroupByOperatorService.renderAggregationGroupByResult(reducedGroupByResults);
+    if (approximateTopN) {
+      setMaxErrors(aggregationResults,
+          aggregationGroupByOperatorService.getApproximateTopNErrors(instanceResponseMap, reducedGroupByResults));
+    }
+    return aggregationResults;
+  }
+
+  private static void setMaxErrors(List<AggregationResult> aggregationResults, List<Double> maxErrors) {
+    if (aggregationResults == null || maxErrors == null) {
+      return;
+    }
+    for (int i = 0; i < aggregationResults.size(); i++) {
+      aggregationResults.get(i).setMaxError(maxErrors.get(i));
+    }
   }
 
   /**
@@ -0,0 +1,274 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.reduce;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.query.DataTableReducer;
+import com.linkedin.pinot.common.query.StreamingReduceService;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+
+/**
+ * BrokerReduceService that reduces the DataTables of a query as they arrive from the servers.
+ *
+ * For aggregation group by queries, the group by results are partitioned on the hash of the group key.
+ * The entries of each DataTable are bucketed by partition on the calling thread, and each bucket is merged into
+ * its partition by a task on the reduce executor, so the merge of one DataTable is spread across cores and
+ * overlaps with waiting for the other servers. Once all the
+ * DataTables are merged, each partition is reduced and trimmed to the TOP N in parallel, and the final TOP N
+ * is picked from the union of the trimmed partitions.
+ *
+ * Selection and aggregation only queries are cheap to reduce, the DataTables are buffered and reduced at the end.
+ * So are the approximate TOP N group by queries, whose error bound needs the trim thresholds and group keys of all
+ * the servers.
+ */
+public class StreamingBrokerReduceService extends BrokerReduceService
+    implements StreamingReduceService<BrokerResponseNative> {
+  private final ExecutorService _reduceExecutor;
+  private final int _numPartitions;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param reduceExecutor Executor to run the partitioned group by merge on, shared across queries
+   * @param numPartitions Number of partitions of the group by results (typically the number of cores)
+   */
+  public StreamingBrokerReduceService(ExecutorService reduceExecutor, int numPartitions) {
+    Preconditions.checkNotNull(reduceExecutor);
+    Preconditions.checkArgument(numPartitions > 0);
+    _reduceExecutor = reduceExecutor;
+    _numPartitions = numPartitions;
+  }
+
+  @Override
+  public DataTableReducer<BrokerResponseNative> getDataTableReducer(BrokerRequest brokerRequest) {
+    if (brokerRequest.isSetAggregationsInfo() && brokerRequest.isSetGroupBy() && !brokerRequest.isSetSelections()
+        && AggregationGroupByOperatorService.getNumApproximateTopNCandidates(brokerRequest) == 0) {
+      return new GroupByDataTableReducer(brokerRequest);
+    }
+    return new BufferedDataTableReducer(brokerRequest);
+  }
+
+  /**
+   * Reducer that buffers the DataTables, and reduces them once all of them have arrived.
+   */
+  private class BufferedDataTableReducer implements DataTableReducer<BrokerResponseNative> {
+    private final BrokerRequest _brokerRequest;
+    private final Map<ServerInstance, DataTable> _instanceResponseMap = new HashMap<>();
+
+    BufferedDataTableReducer(BrokerRequest brokerRequest) {
+      _brokerRequest = brokerRequest;
+    }
+
+    @Override
+    public void reduce(ServerInstance serverInstance, DataTable dataTable) {
+      _instanceResponseMap.put(serverInstance, dataTable);
+    }
+
+    @Override
+    public BrokerResponseNative getBrokerResponse() {
+      return reduceOnDataTable(_brokerRequest, _instanceResponseMap);
+    }
+  }
+
+  /**
+   * Reducer that merges the group by results of each DataTable into the partitions as it arrives.
+   */
+  private class GroupByDataTableReducer implements DataTableReducer<BrokerResponseNative> {
+    private final BrokerRequest _brokerRequest;
+    private final BrokerResponseNative _brokerResponseNative = new BrokerResponseNative();
+    private final AggregationGroupByOperatorService _aggregationGroupByOperatorService;
+    private final List<AggregationFunction> _aggregationFunctions;
+
+    // Group by results indexed by [partition][aggregation function], each partition is only accessed while
+    // holding the lock on its list.
+    private final List<List<Map<String, Serializable>>> _partitions;
+    private final List<Future<?>> _pendingMerges = new ArrayList<>();
+    private int _numDataTables = 0;
+    private boolean _hasResults = false;
+
+    GroupByDataTableReducer(BrokerRequest brokerRequest) {
+      _brokerRequest = brokerRequest;
+      _aggregationGroupByOperatorService =
+          new AggregationGroupByOperatorService(brokerRequest.getAggregationsInfo(), brokerRequest.getGroupBy());
+      _aggregationFunctions = _aggregationGroupByOperatorService.getAggregationFunctionList();
+
+      int numAggregationFunctions = _aggregationFunctions.size();
+      _partitions = new ArrayList<>(_numPartitions);
+      for (int i = 0; i < _numPartitions; i++) {
+        List<Map<String, Serializable>> partition = new ArrayList<>(numAggregationFunctions);
+        for (int j = 0; j < numAggregationFunctions; j++) {
+          partition.add(new HashMap<String, Serializable>());
+        }
+        _partitions.add(partition);
+      }
+    }
+
+    @Override
+    public void reduce(ServerInstance serverInstance, DataTable dataTable) {
+      if (dataTable == null) {
+        return;
+      }
+      _numDataTables++;
+      if (!reduceOnMetadata(_brokerRequest, serverInstance, dataTable, _brokerResponseNative)) {
+        return;
+      }
+      _hasResults = true;
+
+      // Deserialize the group by result maps on the calling thread, DataTable is not thread safe.
+      List<Map<String, Serializable>> groupByResults =
+          AggregationGroupByOperatorService.transformDataTableToGroupByResult(dataTable);
+      int numAggregationFunctions = Math.min(groupByResults.size(), _aggregationFunctions.size());
+
+      // Bucket the entries by partition once, so that each merge task only visits the entries of its partition.
+      List<List<List<Map.Entry<String, Serializable>>>> buckets = new ArrayList<>(_numPartitions);
+      for (int i = 0; i < _numPartitions; i++) {
+        List<List<Map.Entry<String, Serializable>>> bucket = new ArrayList<>(numAggregationFunctions);
+        for (int j = 0; j < numAggregationFunctions; j++) {
+          bucket.add(new ArrayList<Map.Entry<String, Serializable>>());
+        }
+        buckets.add(bucket);
+      }
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        for (Map.Entry<String, Serializable> entry : groupByResults.get(i).entrySet()) {
+          buckets.get(getPartitionId(entry.getKey())).get(i).add(entry);
+        }
+      }
+
+      for (int i = 0; i < _numPartitions; i++) {
+        final int partitionId = i;
+        final List<List<Map.Entry<String, Serializable>>> bucket = buckets.get(i);
+        _pendingMerges.add(_reduceExecutor.submit(new Runnable() {
+          @Override
+          public void run() {
+            mergeIntoPartition(partitionId, bucket);
+          }
+        }));
+      }
+    }
+
+    private void mergeIntoPartition(int partitionId, List<List<Map.Entry<String, Serializable>>> bucket) {
+      List<Map<String, Serializable>> partition = _partitions.get(partitionId);
+
+      synchronized (partition) {
+        for (int i = 0; i < bucket.size(); i++) {
+          AggregationFunction aggregationFunction = _aggregationFunctions.get(i);
+          Map<String, Serializable> reducedResult = partition.get(i);
+
+          for (Map.Entry<String, Serializable> entry : bucket.get(i)) {
+            String groupKey = entry.getKey();
+            Serializable reducedValue = reducedResult.get(groupKey);
+            if (reducedValue == null) {
+              reducedResult.put(groupKey, entry.getValue());
+            } else {
+              reducedResult.put(groupKey, aggregationFunction.combineTwoValues(reducedValue, entry.getValue()));
+            }
+          }
+        }
+      }
+    }
+
+    private void finishPartition(int partitionId) {
+      List<Map<String, Serializable>> partition = _partitions.get(partitionId);
+
+      synchronized (partition) {
+        for (int i = 0; i < partition.size(); i++) {
+          AggregationFunction aggregationFunction = _aggregationFunctions.get(i);
+          Map<String, Serializable> reducedResult = partition.get(i);
+
+          for (Map.Entry<String, Serializable> entry : reducedResult.entrySet()) {
+            if (entry.getValue() != null) {
+              entry.setValue(aggregationFunction.reduce(Arrays.asList(entry.getValue())));
+            }
+          }
+          partition.set(i, _aggregationGroupByOperatorService.trimToTopN(i, reducedResult));
+        }
+      }
+    }
+
+    private int getPartitionId(String groupKey) {
+      return (groupKey.hashCode() & Integer.MAX_VALUE) % _numPartitions;
+    }
+
+    @Override
+    public BrokerResponseNative getBrokerResponse() {
+      if (_numDataTables == 0) {
+        return BrokerResponseNative.EMPTY_RESULT;
+      }
+
+      try {
+        waitForPendingTasks();
+        if (!_hasResults) {
+          return _brokerResponseNative;
+        }
+
+        for (int i = 0; i < _numPartitions; i++) {
+          final int partitionId = i;
+          _pendingMerges.add(_reduceExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+              finishPartition(partitionId);
+            }
+          }));
+        }
+        waitForPendingTasks();
+
+        // Union of the TOP N of each partition, the final TOP N is picked from it.
+        List<Map<String, Serializable>> reducedGroupByResults = new ArrayList<>(_aggregationFunctions.size());
+        for (int i = 0; i < _aggregationFunctions.size(); i++) {
+          Map<String, Serializable> reducedGroupByResult = new HashMap<>();
+          for (List<Map<String, Serializable>> partition : _partitions) {
+            reducedGroupByResult.putAll(partition.get(i));
+          }
+          reducedGroupByResults.add(reducedGroupByResult);
+        }
+        _brokerResponseNative.setAggregationResults(
+            _aggregationGroupByOperatorService.renderAggregationGroupByResult(reducedGroupByResults));
+      } catch (Exception e) {
+        addReduceException(_brokerResponseNative, e);
+      }
+      return _brokerResponseNative;
+    }
+
+    private void waitForPendingTasks()
+        throws InterruptedException, ExecutionException {
+      try {
+        for (Future<?> future : _pendingMerges) {
+          future.get();
+        }
+      } finally {
+        for (Future<?> future : _pendingMerges) {
+          future.cancel(true);
+        }
+        _pendingMerges.clear();
+      }
+    }
+  }
+}
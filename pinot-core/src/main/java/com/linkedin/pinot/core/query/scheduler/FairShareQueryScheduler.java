@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Query scheduler sharing the worker threads fairly between tables. Each table has its own bounded queue, and
+ * the next query comes from the table with the fewest running queries, so that a burst of queries on one table
+ * does not hold back the queries of the other tables. Ties go to the table with the oldest pending query.
+ */
+public class FairShareQueryScheduler extends QueryScheduler {
+
+  public FairShareQueryScheduler(int numThreads, int maxPendingQueriesPerTable, ServerMetrics serverMetrics) {
+    super(numThreads, maxPendingQueriesPerTable, serverMetrics);
+  }
+
+  @Override
+  protected SchedulerGroup selectGroup(List<SchedulerGroup> groups) {
+    List<SchedulerGroup> leastRunningGroups = new ArrayList<>();
+    int minNumRunningQueries = Integer.MAX_VALUE;
+    for (SchedulerGroup group : groups) {
+      int numRunningQueries = group.getNumRunningQueries();
+      if (numRunningQueries < minNumRunningQueries) {
+        minNumRunningQueries = numRunningQueries;
+        leastRunningGroups.clear();
+      }
+      if (numRunningQueries == minNumRunningQueries) {
+        leastRunningGroups.add(group);
+      }
+    }
+    return selectOldestGroup(leastRunningGroups);
+  }
+
+  @Override
+  public String toString() {
+    return "FairShareQueryScheduler";
+  }
+}
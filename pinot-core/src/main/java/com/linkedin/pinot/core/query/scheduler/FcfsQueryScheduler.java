@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import java.util.List;
+
+
+/**
+ * Query scheduler running all the queries in the order they arrive, from a single bounded queue.
+ */
+public class FcfsQueryScheduler extends QueryScheduler {
+  private static final String GROUP_NAME = "all";
+
+  public FcfsQueryScheduler(int numThreads, int maxPendingQueries, ServerMetrics serverMetrics) {
+    super(numThreads, maxPendingQueries, serverMetrics);
+  }
+
+  @Override
+  protected String getGroupName(BrokerRequest brokerRequest) {
+    return GROUP_NAME;
+  }
+
+  @Override
+  protected SchedulerGroup selectGroup(List<SchedulerGroup> groups) {
+    return groups.get(0);
+  }
+
+  @Override
+  public String toString() {
+    return "FcfsQueryScheduler";
+  }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerQueryPhase;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Runs the queries of a server on its own worker threads, so that query execution does not block the netty
+ * I/O threads. Submitted queries wait in bounded per group queues, queries submitted to a full queue are
+ * rejected right away with a {@link ServerBusyException}. Each time a worker thread is free, the policy of the
+ * implementation picks the group whose oldest query runs next.
+ */
+public abstract class QueryScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryScheduler.class);
+
+  private final int _numThreads;
+  private final int _maxPendingQueriesPerGroup;
+  private final ServerMetrics _serverMetrics;
+  private final Map<String, SchedulerGroup> _groups = new HashMap<>();
+  private final List<Thread> _workerThreads = new ArrayList<>();
+  private final Object _lock = new Object();
+  private int _numPendingQueries = 0;
+  private volatile boolean _stopped = false;
+
+  protected QueryScheduler(int numThreads, int maxPendingQueriesPerGroup, ServerMetrics serverMetrics) {
+    _numThreads = numThreads;
+    _maxPendingQueriesPerGroup = maxPendingQueriesPerGroup;
+    _serverMetrics = serverMetrics;
+  }
+
+  public synchronized void start() {
+    for (int i = 0; i < _numThreads; i++) {
+      Thread workerThread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          runQueries();
+        }
+      }, toString() + "-worker-" + i);
+      workerThread.setDaemon(true);
+      workerThread.start();
+      _workerThreads.add(workerThread);
+    }
+    LOGGER.info("Started {} with {} worker threads", this, _numThreads);
+  }
+
+  /**
+   * Stops the worker threads, and fails the queries still waiting in the queues.
+   */
+  public synchronized void stop() {
+    List<SchedulerGroup.PendingQuery<?>> pendingQueries = new ArrayList<>();
+    synchronized (_lock) {
+      _stopped = true;
+      for (SchedulerGroup group : _groups.values()) {
+        SchedulerGroup.PendingQuery<?> pendingQuery;
+        while ((pendingQuery = group.pollPendingQuery()) != null) {
+          pendingQueries.add(pendingQuery);
+        }
+      }
+      _numPendingQueries = 0;
+      _lock.notifyAll();
+    }
+    for (SchedulerGroup.PendingQuery<?> pendingQuery : pendingQueries) {
+      pendingQuery.setException(new ServerBusyException("Query scheduler is stopped"));
+    }
+    for (Thread workerThread : _workerThreads) {
+      workerThread.interrupt();
+    }
+    _workerThreads.clear();
+    LOGGER.info("Stopped {}", this);
+  }
+
+  /**
+   * Queues the query, returning a future for its result. The future fails with a
+   * {@link ServerBusyException} if the queue of the group of the query is full.
+   */
+  public <T> ListenableFuture<T> submit(BrokerRequest brokerRequest, Callable<T> query) {
+    SettableFuture<T> future = SettableFuture.create();
+    String groupName = getGroupName(brokerRequest);
+    synchronized (_lock) {
+      if (_stopped) {
+        future.setException(new ServerBusyException("Query scheduler is stopped"));
+        return future;
+      }
+      SchedulerGroup group = _groups.get(groupName);
+      if (group == null) {
+        group = createGroup(groupName);
+        _groups.put(groupName, group);
+      }
+      if (group.getNumPendingQueries() < _maxPendingQueriesPerGroup) {
+        group.addPendingQuery(new SchedulerGroup.PendingQuery<>(brokerRequest, query, future, System.nanoTime()));
+        _numPendingQueries++;
+        _lock.notify();
+        return future;
+      }
+    }
+    _serverMetrics.addMeteredQueryValue(brokerRequest, ServerMeter.QUERIES_REJECTED, 1);
+    future.setException(new ServerBusyException(
+        "Too many pending queries (" + _maxPendingQueriesPerGroup + ") for " + groupName));
+    return future;
+  }
+
+  private void runQueries() {
+    while (true) {
+      SchedulerGroup group;
+      SchedulerGroup.PendingQuery<?> pendingQuery;
+      synchronized (_lock) {
+        while (!_stopped && _numPendingQueries == 0) {
+          try {
+            _lock.wait();
+          } catch (InterruptedException e) {
+            // Only interrupted when stopped
+          }
+        }
+        if (_stopped) {
+          return;
+        }
+        List<SchedulerGroup> candidates = new ArrayList<>();
+        for (SchedulerGroup schedulerGroup : _groups.values()) {
+          if (schedulerGroup.getNumPendingQueries() > 0) {
+            candidates.add(schedulerGroup);
+          }
+        }
+        group = selectGroup(candidates);
+        pendingQuery = group.startNextQuery();
+        _numPendingQueries--;
+      }
+
+      BrokerRequest brokerRequest = pendingQuery.getBrokerRequest();
+      _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.SCHEDULER_WAIT,
+          System.nanoTime() - pendingQuery.getSubmitTimeNs());
+      try {
+        pendingQuery.run();
+      } catch (Throwable t) {
+        LOGGER.error("Caught exception while running query", t);
+        pendingQuery.setException(t);
+      } finally {
+        synchronized (_lock) {
+          group.endQuery();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the name of the group of the query, the table name by default.
+   */
+  protected String getGroupName(BrokerRequest brokerRequest) {
+    if (brokerRequest == null || brokerRequest.getQuerySource() == null) {
+      return "";
+    }
+    return brokerRequest.getQuerySource().getTableName();
+  }
+
+  /**
+   * Creates the group of the given name, called the first time a query of the group is submitted.
+   */
+  protected SchedulerGroup createGroup(String groupName) {
+    return new SchedulerGroup(groupName);
+  }
+
+  /**
+   * Picks the group whose oldest pending query runs next among the groups with pending queries, which is never
+   * empty. Called while holding the lock of the scheduler.
+   */
+  protected abstract SchedulerGroup selectGroup(List<SchedulerGroup> groups);
+
+  /**
+   * Returns the group with the oldest pending query among the given groups.
+   */
+  protected static SchedulerGroup selectOldestGroup(List<SchedulerGroup> groups) {
+    SchedulerGroup oldestGroup = null;
+    for (SchedulerGroup group : groups) {
+      if (oldestGroup == null || group.getOldestPendingQueryTimeNs() - oldestGroup.getOldestPendingQueryTimeNs() < 0) {
+        oldestGroup = group;
+      }
+    }
+    return oldestGroup;
+  }
+}
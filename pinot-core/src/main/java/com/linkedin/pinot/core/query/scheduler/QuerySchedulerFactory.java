@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Factory for the query scheduler of a server, configured under <code>pinot.server.query.scheduler</code>.
+ */
+public class QuerySchedulerFactory {
+  private static final Logger LOGGER = LoggerFactory.getLogger(QuerySchedulerFactory.class);
+
+  public static final String FCFS_SCHEDULER = "fcfs";
+  public static final String FAIR_SHARE_SCHEDULER = "fairshare";
+  public static final String TOKEN_PRIORITY_SCHEDULER = "tokenpriority";
+
+  public static final String SCHEDULER_NAME = "name";
+  public static final String NUM_THREADS = "threads";
+  public static final String MAX_PENDING_QUERIES = "max.pending.queries";
+  public static final String TOKENS_PER_SECOND = "tokens.per.second";
+
+  // Same number of queries running at once as when the queries were run by the netty worker threads
+  public static final int DEFAULT_NUM_THREADS = 20;
+  public static final int DEFAULT_MAX_PENDING_QUERIES = 1000;
+  public static final int DEFAULT_TOKENS_PER_SECOND = 100;
+
+  private QuerySchedulerFactory() {
+  }
+
+  /**
+   * Creates the configured query scheduler, FCFS if none is configured. The scheduler still needs to be started.
+   */
+  public static QueryScheduler create(Configuration schedulerConfig, ServerMetrics serverMetrics) {
+    String schedulerName = schedulerConfig.getString(SCHEDULER_NAME, FCFS_SCHEDULER).toLowerCase();
+    int numThreads = schedulerConfig.getInt(NUM_THREADS, DEFAULT_NUM_THREADS);
+    int maxPendingQueries = schedulerConfig.getInt(MAX_PENDING_QUERIES, DEFAULT_MAX_PENDING_QUERIES);
+    LOGGER.info("Creating query scheduler {} with {} threads and up to {} pending queries", schedulerName,
+        numThreads, maxPendingQueries);
+
+    switch (schedulerName) {
+      case FCFS_SCHEDULER:
+        return new FcfsQueryScheduler(numThreads, maxPendingQueries, serverMetrics);
+      case FAIR_SHARE_SCHEDULER:
+        return new FairShareQueryScheduler(numThreads, maxPendingQueries, serverMetrics);
+      case TOKEN_PRIORITY_SCHEDULER:
+        int tokensPerSecond = schedulerConfig.getInt(TOKENS_PER_SECOND, DEFAULT_TOKENS_PER_SECOND);
+        return new TokenPriorityQueryScheduler(numThreads, maxPendingQueries, tokensPerSecond, serverMetrics);
+      default:
+        throw new IllegalArgumentException("Unsupported query scheduler: " + schedulerName);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.google.common.util.concurrent.SettableFuture;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+
+
+/**
+ * Group of queries scheduled together by the {@link QueryScheduler}, e.g. all the queries of a table.
+ * Not thread-safe, only accessed while holding the lock of the scheduler.
+ */
+public class SchedulerGroup {
+  private final String _name;
+  private final ArrayDeque<PendingQuery<?>> _pendingQueries = new ArrayDeque<>();
+  private int _numRunningQueries = 0;
+
+  public SchedulerGroup(String name) {
+    _name = name;
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  public int getNumPendingQueries() {
+    return _pendingQueries.size();
+  }
+
+  public int getNumRunningQueries() {
+    return _numRunningQueries;
+  }
+
+  /**
+   * Returns the time in nanoseconds at which the oldest pending query of the group was submitted.
+   */
+  public long getOldestPendingQueryTimeNs() {
+    return _pendingQueries.peek().getSubmitTimeNs();
+  }
+
+  void addPendingQuery(PendingQuery<?> query) {
+    _pendingQueries.add(query);
+  }
+
+  PendingQuery<?> startNextQuery() {
+    _numRunningQueries++;
+    return _pendingQueries.poll();
+  }
+
+  void endQuery() {
+    _numRunningQueries--;
+  }
+
+  PendingQuery<?> pollPendingQuery() {
+    return _pendingQueries.poll();
+  }
+
+  /**
+   * A query waiting in the group, with the future to complete once it has run.
+   */
+  static class PendingQuery<T> {
+    private final BrokerRequest _brokerRequest;
+    private final Callable<T> _query;
+    private final SettableFuture<T> _future;
+    private final long _submitTimeNs;
+
+    PendingQuery(BrokerRequest brokerRequest, Callable<T> query, SettableFuture<T> future, long submitTimeNs) {
+      _brokerRequest = brokerRequest;
+      _query = query;
+      _future = future;
+      _submitTimeNs = submitTimeNs;
+    }
+
+    BrokerRequest getBrokerRequest() {
+      return _brokerRequest;
+    }
+
+    /**
+     * Runs the query and completes the future with its result.
+     */
+    void run() throws Exception {
+      _future.set(_query.call());
+    }
+
+    void setException(Throwable t) {
+      _future.setException(t);
+    }
+
+    long getSubmitTimeNs() {
+      return _submitTimeNs;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import java.util.List;
+
+
+/**
+ * Query scheduler giving priority to the tables with the most tokens. Each table has a token bucket holding up to
+ * <code>tokensPerSecond</code> tokens, refilled at that rate, and running a query takes one token. Tables running
+ * more queries than their rate are served after the other tables, but still run when no other table is waiting.
+ * Ties go to the table with the oldest pending query.
+ */
+public class TokenPriorityQueryScheduler extends QueryScheduler {
+  private final double _tokensPerSecond;
+
+  public TokenPriorityQueryScheduler(int numThreads, int maxPendingQueriesPerTable, int tokensPerSecond,
+      ServerMetrics serverMetrics) {
+    super(numThreads, maxPendingQueriesPerTable, serverMetrics);
+    _tokensPerSecond = tokensPerSecond;
+  }
+
+  @Override
+  protected SchedulerGroup createGroup(String groupName) {
+    return new TokenSchedulerGroup(groupName, _tokensPerSecond);
+  }
+
+  @Override
+  protected SchedulerGroup selectGroup(List<SchedulerGroup> groups) {
+    long now = System.nanoTime();
+    TokenSchedulerGroup selectedGroup = null;
+    for (SchedulerGroup group : groups) {
+      TokenSchedulerGroup tokenGroup = (TokenSchedulerGroup) group;
+      tokenGroup.refill(now);
+      if (selectedGroup == null || tokenGroup.getNumTokens() > selectedGroup.getNumTokens() || (
+          tokenGroup.getNumTokens() == selectedGroup.getNumTokens()
+              && tokenGroup.getOldestPendingQueryTimeNs() - selectedGroup.getOldestPendingQueryTimeNs() < 0)) {
+        selectedGroup = tokenGroup;
+      }
+    }
+    selectedGroup.consumeToken();
+    return selectedGroup;
+  }
+
+  @Override
+  public String toString() {
+    return "TokenPriorityQueryScheduler";
+  }
+
+  private static class TokenSchedulerGroup extends SchedulerGroup {
+    private final double _tokensPerSecond;
+    // Whole number of tokens, so that tables with the same number of tokens are served in arrival order
+    private long _numTokens;
+    private double _partialToken = 0;
+    private long _lastRefillTimeNs;
+
+    TokenSchedulerGroup(String name, double tokensPerSecond) {
+      super(name);
+      _tokensPerSecond = tokensPerSecond;
+      _numTokens = (long) tokensPerSecond;
+      _lastRefillTimeNs = System.nanoTime();
+    }
+
+    long getNumTokens() {
+      return _numTokens;
+    }
+
+    void refill(long now) {
+      _partialToken += (now - _lastRefillTimeNs) * _tokensPerSecond / 1e9;
+      _lastRefillTimeNs = now;
+      long newTokens = (long) _partialToken;
+      _partialToken -= newTokens;
+      _numTokens = Math.min(_numTokens + newTokens, (long) _tokensPerSecond);
+    }
+
+    void consumeToken() {
+      // Can go below zero, the debt is paid back before the table gets priority again
+      _numTokens--;
+    }
+  }
+}
@@ -15,7 +15,9 @@
  */
 package com.linkedin.pinot.core.query.utils;
 
+import com.linkedin.pinot.common.segment.ColumnValueRange;
 import com.linkedin.pinot.common.segment.StarTreeMetadata;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -173,6 +175,11 @@ public class SimpleSegmentMetadata implements SegmentMetadata {
     return null;
   }
 
+  @Override
+  public Map<String, ColumnValueRange> getColumnValueRanges() {
+    return Collections.emptyMap();
+  }
+
   @Override
   public String getForwardIndexFileName(String column, String segmentVersion) {
     // TODO Auto-generated method stub
@@ -38,9 +38,11 @@ public class RealtimeSegmentConverter {
   private String segmentName;
   private String sortedColumn;
   private List<String> invertedIndexColumns;
+  private List<String> noDictionaryColumns;
 
   public RealtimeSegmentConverter(RealtimeSegmentImpl realtimeSegment, String outputPath, Schema schema,
-      String tableName, String segmentName, String sortedColumn, List<String> invertedIndexColumns) {
+      String tableName, String segmentName, String sortedColumn, List<String> invertedIndexColumns,
+      List<String> noDictionaryColumns) {
     if (new File(outputPath).exists()) {
       throw new IllegalAccessError("path already exists:" + outputPath);
     }
@@ -62,12 +64,19 @@ public class RealtimeSegmentConverter {
     this.realtimeSegmentImpl = realtimeSegment;
     this.outputPath = outputPath;
     this.invertedIndexColumns = invertedIndexColumns;
+    this.noDictionaryColumns = noDictionaryColumns;
     this.dataSchema = newSchema;
     this.sortedColumn = sortedColumn;
     this.tableName = tableName;
     this.segmentName = segmentName;
   }
 
+  public RealtimeSegmentConverter(RealtimeSegmentImpl realtimeSegment, String outputPath, Schema schema,
+      String tableName, String segmentName, String sortedColumn, List<String> invertedIndexColumns) {
+    this(realtimeSegment, outputPath, schema, tableName, segmentName, sortedColumn, invertedIndexColumns,
+        new ArrayList<String>());
+  }
+
   public RealtimeSegmentConverter(RealtimeSegmentImpl realtimeSegment, String outputPath, Schema schema,
       String tableName, String segmentName, String sortedColumn) {
     this(realtimeSegment, outputPath, schema, tableName, segmentName, sortedColumn, new ArrayList<String>());
@@ -88,6 +97,9 @@ public class RealtimeSegmentConverter {
         genConfig.createInvertedIndexForColumn(column);
       }
     }
+    if (noDictionaryColumns != null) {
+      genConfig.setRawIndexCreationColumns(noDictionaryColumns);
+    }
     genConfig.setTimeColumnName(dataSchema.getTimeFieldSpec().getOutGoingTimeColumnName());
     genConfig.setSegmentTimeUnit(dataSchema.getTimeFieldSpec().getOutgoingGranularitySpec().getTimeType());
     genConfig.setSegmentVersion(SegmentVersion.v1);
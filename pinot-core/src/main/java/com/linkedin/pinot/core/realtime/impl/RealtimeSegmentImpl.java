@@ -57,7 +57,7 @@ import com.linkedin.pinot.core.realtime.impl.invertedIndex.RealtimeInvertedIndex
 import com.linkedin.pinot.core.realtime.impl.invertedIndex.TimeInvertedIndex;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
-import com.linkedin.pinot.core.startree.StarTree;
+import com.linkedin.pinot.core.startree.OffHeapStarTree;
 
 public class RealtimeSegmentImpl implements RealtimeSegment {
   private final Logger LOGGER;
@@ -96,6 +96,14 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
 
   public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
       ServerMetrics serverMetrics) throws IOException {
+    this(schema, capacity, tableName, segmentName, streamName, serverMetrics, false);
+  }
+
+  /**
+   * @param offHeapDictionary Store the dictionary values of numeric columns in direct memory instead of the heap
+   */
+  public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
+      ServerMetrics serverMetrics, boolean offHeapDictionary) throws IOException {
     // initial variable setup
     this.segmentName = segmentName;
     this.serverMetrics = serverMetrics;
@@ -111,14 +119,17 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     }
     // dictionary assignment for dimensions and time column
     for (String column : dataSchema.getDimensionNames()) {
-      dictionaryMap.put(column, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(column)));
+      dictionaryMap.put(column, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(column),
+          offHeapDictionary));
     }
 
     dictionaryMap.put(outgoingTimeColumnName,
-        RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(outgoingTimeColumnName)));
+        RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(outgoingTimeColumnName),
+            offHeapDictionary));
 
     for (String metric : dataSchema.getMetricNames()) {
-      dictionaryMap.put(metric, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(metric)));
+      dictionaryMap.put(metric, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(metric),
+          offHeapDictionary));
     }
 
     // docId generator and time granularity converter
@@ -415,6 +426,11 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
       }
     }
     invertedIndexMap.clear();
+
+    for (MutableDictionaryReader dictionary : dictionaryMap.values()) {
+      dictionary.close();
+    }
+    dictionaryMap.clear();
     _segmentMetadata.close();
   }
 
@@ -664,7 +680,7 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
   }
 
   @Override
-  public StarTree getStarTree() {
+  public OffHeapStarTree getStarTree() {
     return null;
   }
 
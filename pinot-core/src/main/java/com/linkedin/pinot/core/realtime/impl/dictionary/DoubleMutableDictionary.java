@@ -20,11 +20,17 @@ import com.linkedin.pinot.common.data.FieldSpec;
 
 public class DoubleMutableDictionary extends MutableDictionaryReader {
 
-  private Double min = Double.MAX_VALUE;
-  private Double max = Double.MIN_VALUE;
+  private final FixedWidthValueToIdMap valueToIdMap;
+  private double min = Double.MAX_VALUE;
+  private double max = Double.MIN_VALUE;
 
   public DoubleMutableDictionary(FieldSpec spec) {
+    this(spec, false);
+  }
+
+  public DoubleMutableDictionary(FieldSpec spec, boolean offHeap) {
     super(spec);
+    valueToIdMap = new FixedWidthValueToIdMap(Double.SIZE / Byte.SIZE, offHeap, "dictionary for " + spec.getName());
   }
 
   @Override
@@ -35,36 +41,32 @@ public class DoubleMutableDictionary extends MutableDictionaryReader {
     }
 
     if (rawValue instanceof String) {
-      Double entry = new Double(Double.parseDouble(rawValue.toString()));
-      addToDictionaryBiMap(entry);
-      updateMinMax(entry);
+      indexValue(Double.parseDouble(rawValue.toString()));
       return;
     }
 
     if (rawValue instanceof Double) {
-      addToDictionaryBiMap(rawValue);
-      updateMinMax((Double) rawValue);
+      indexValue((Double) rawValue);
       return;
     }
 
     if (rawValue instanceof Object[]) {
       for (Object o : (Object[]) rawValue) {
         if (o instanceof String) {
-          addToDictionaryBiMap(new Double(Double.parseDouble(o.toString())));
-          updateMinMax(new Double(Double.parseDouble(o.toString())));
+          indexValue(Double.parseDouble(o.toString()));
           continue;
         }
 
         if (o instanceof Double) {
-          addToDictionaryBiMap(o);
-          updateMinMax((Double) o);
+          indexValue((Double) o);
           continue;
         }
       }
     }
   }
 
-  private void updateMinMax(Double entry) {
+  private void indexValue(double entry) {
+    valueToIdMap.index(Double.doubleToLongBits(entry));
     if (entry < min) {
       min = entry;
     }
@@ -78,33 +80,40 @@ public class DoubleMutableDictionary extends MutableDictionaryReader {
     if (rawValue == null) {
       return hasNull;
     }
-    if (rawValue instanceof String) {
-      return dictionaryIdBiMap.inverse().containsKey(new Double(Double.parseDouble(rawValue.toString())));
-    }
-    return dictionaryIdBiMap.inverse().containsKey(rawValue);
+    return indexOf(rawValue) != FixedWidthValueToIdMap.INVALID_ID;
   }
 
   @Override
   public int indexOf(Object rawValue) {
+    double entry;
     if (rawValue instanceof String) {
-      return getIndexOfFromBiMap(new Double(Double.parseDouble(rawValue.toString())));
+      entry = Double.parseDouble(rawValue.toString());
+    } else if (rawValue instanceof Double) {
+      entry = (Double) rawValue;
+    } else {
+      return FixedWidthValueToIdMap.INVALID_ID;
     }
-    return getIndexOfFromBiMap(rawValue);
+    return valueToIdMap.indexOf(Double.doubleToLongBits(entry));
+  }
+
+  @Override
+  public int length() {
+    return valueToIdMap.size();
   }
 
   @Override
   public Object get(int dictionaryId) {
-    return getRawValueFromBiMap(dictionaryId);
+    return getDouble(dictionaryId);
   }
 
   @Override
   public long getLongValue(int dictionaryId) {
-    return ((Double) getRawValueFromBiMap(dictionaryId)).longValue();
+    return (long) getDouble(dictionaryId);
   }
 
   @Override
   public double getDoubleValue(int dictionaryId) {
-    return ((Double) getRawValueFromBiMap(dictionaryId)).doubleValue();
+    return getDouble(dictionaryId);
   }
 
   @Override
@@ -119,7 +128,16 @@ public class DoubleMutableDictionary extends MutableDictionaryReader {
 
   @Override
   public String toString(int dictionaryId) {
-    return ((Double) getRawValueFromBiMap(dictionaryId)).toString();
+    return Double.toString(getDouble(dictionaryId));
+  }
+
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      int dictId = dictionaryIds[iter];
+      outValues[outStartPos++] = getDouble(dictId);
+    }
   }
 
   @Override
@@ -158,11 +176,11 @@ public class DoubleMutableDictionary extends MutableDictionaryReader {
 
   @Override
   public String getStringValue(int dictionaryId) {
-    return ((Double) getRawValueFromBiMap(dictionaryId)).toString();
+    return Double.toString(getDouble(dictionaryId));
   }
 
   private double getDouble(int dictionaryId) {
-    return ((Double) dictionaryIdBiMap.get(new Integer(dictionaryId))).doubleValue();
+    return Double.longBitsToDouble(valueToIdMap.getLong(dictionaryId));
   }
 
   @Override
@@ -174,4 +192,9 @@ public class DoubleMutableDictionary extends MutableDictionaryReader {
   public Object getMaxVal() {
     return max;
   }
+
+  @Override
+  public void close() {
+    valueToIdMap.close();
+  }
 }
@@ -0,0 +1,248 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.common.utils.MmapUtils;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+
+/**
+ * Append-only map from fixed width (4 or 8 byte) primitive values to contiguous dictionary id's, for mutable
+ * dictionaries of realtime segments.
+ *
+ * Values are stored by dictionary id in fixed size chunks, either on heap or in direct memory, so no objects are
+ * allocated per value. The hash index is an int[] of (id + 1) with linear probing.
+ *
+ * There must be only one writer thread (the indexing thread), while any number of reader threads may call
+ * {@link #indexOf(long)}, {@link #getInt(int)} and {@link #getLong(int)} without locking:
+ * <ul>
+ *   <li>A new value is written before its id is put into the hash index, and the size is published (volatile
+ *   write) last. Readers ignore id's that are not below the size they read, so they never see a partially written
+ *   value. A reader might miss a value that is being added concurrently, same as with any concurrent map.</li>
+ *   <li>Rehashing builds a new hash index and publishes it with a volatile write, readers holding the old one still
+ *   see a consistent (possibly stale) index.</li>
+ *   <li>New chunks are published (volatile write) before any id that lives in them.</li>
+ * </ul>
+ */
+public class FixedWidthValueToIdMap implements Closeable {
+  public static final int INVALID_ID = -1;
+
+  private static final int CHUNK_SHIFT = 12;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private static final int EMPTY_SLOT = 0;
+  private static final int INITIAL_NUM_SLOTS = 1 << 8;
+  private static final int MAX_NUM_SLOTS = 1 << 30;
+
+  private final int _valueSizeInBytes;
+  private final boolean _offHeap;
+  private final String _context;
+
+  private volatile ByteBuffer[] _chunks = new ByteBuffer[0];
+  private volatile int[] _slots = new int[INITIAL_NUM_SLOTS];
+  private volatile int _size = 0;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param valueSizeInBytes Size of each value, must be 4 or 8
+   * @param offHeap Store the values in direct memory instead of the heap
+   * @param context Description of the owner of the memory, for direct memory tracking
+   */
+  public FixedWidthValueToIdMap(int valueSizeInBytes, boolean offHeap, String context) {
+    if (valueSizeInBytes != Integer.SIZE / Byte.SIZE && valueSizeInBytes != Long.SIZE / Byte.SIZE) {
+      throw new IllegalArgumentException("Unsupported value size: " + valueSizeInBytes);
+    }
+    _valueSizeInBytes = valueSizeInBytes;
+    _offHeap = offHeap;
+    _context = context;
+  }
+
+  /**
+   * Returns the id for the given value, or INVALID_ID if the value does not exist in the map.
+   * 4 byte values are passed in as (long) intValue.
+   *
+   * @param value
+   * @return
+   */
+  public int indexOf(long value) {
+    int[] slots = _slots;
+    int slotMask = slots.length - 1;
+    int slot = hash(value) & slotMask;
+    while (true) {
+      int slotValue = slots[slot];
+      if (slotValue == EMPTY_SLOT) {
+        return INVALID_ID;
+      }
+      int id = slotValue - 1;
+      if (id < _size && getValue(id) == value) {
+        return id;
+      }
+      slot = (slot + 1) & slotMask;
+    }
+  }
+
+  /**
+   * Returns the id for the given value. If the value does not exist in the map, it is added and assigned the next
+   * available id (which is the size of the map before insertion). Must only be called by the writer thread.
+   *
+   * @param value
+   * @return
+   */
+  public int index(long value) {
+    int[] slots = _slots;
+    int slotMask = slots.length - 1;
+    int slot = hash(value) & slotMask;
+    while (true) {
+      int slotValue = slots[slot];
+      if (slotValue == EMPTY_SLOT) {
+        break;
+      }
+      if (getValue(slotValue - 1) == value) {
+        return slotValue - 1;
+      }
+      slot = (slot + 1) & slotMask;
+    }
+
+    int id = _size;
+    putValue(id, value);
+    slots[slot] = id + 1;
+    _size = id + 1;
+
+    // Keep the load factor at or below 0.5
+    if (id + 1 > (slots.length >>> 1)) {
+      rehash(slots.length << 1);
+    }
+    return id;
+  }
+
+  /**
+   * Returns the 4 byte value for the given id.
+   *
+   * @param id
+   * @return
+   */
+  public int getInt(int id) {
+    return _chunks[id >>> CHUNK_SHIFT].getInt((id & CHUNK_MASK) * _valueSizeInBytes);
+  }
+
+  /**
+   * Returns the 8 byte value for the given id.
+   *
+   * @param id
+   * @return
+   */
+  public long getLong(int id) {
+    return _chunks[id >>> CHUNK_SHIFT].getLong((id & CHUNK_MASK) * _valueSizeInBytes);
+  }
+
+  /**
+   * Returns the number of values in the map.
+   *
+   * @return
+   */
+  public int size() {
+    return _size;
+  }
+
+  /**
+   * Returns the number of bytes used by the values (excluding the hash index).
+   *
+   * @return
+   */
+  public long getValueBufferSizeInBytes() {
+    return (long) _chunks.length * CHUNK_SIZE * _valueSizeInBytes;
+  }
+
+  @Override
+  public void close() {
+    ByteBuffer[] chunks = _chunks;
+    _chunks = new ByteBuffer[0];
+    if (_offHeap) {
+      for (ByteBuffer chunk : chunks) {
+        MmapUtils.unloadByteBuffer(chunk);
+      }
+    }
+  }
+
+  private long getValue(int id) {
+    if (_valueSizeInBytes == Integer.SIZE / Byte.SIZE) {
+      return getInt(id);
+    }
+    return getLong(id);
+  }
+
+  private void putValue(int id, long value) {
+    int chunkId = id >>> CHUNK_SHIFT;
+    ByteBuffer[] chunks = _chunks;
+    if (chunkId == chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunkId + 1);
+      chunks[chunkId] = allocateChunk();
+      _chunks = chunks;
+    }
+    int offset = (id & CHUNK_MASK) * _valueSizeInBytes;
+    if (_valueSizeInBytes == Integer.SIZE / Byte.SIZE) {
+      chunks[chunkId].putInt(offset, (int) value);
+    } else {
+      chunks[chunkId].putLong(offset, value);
+    }
+  }
+
+  private ByteBuffer allocateChunk() {
+    int chunkSizeInBytes = CHUNK_SIZE * _valueSizeInBytes;
+    ByteBuffer chunk;
+    if (_offHeap) {
+      chunk = MmapUtils.allocateDirectByteBuffer(chunkSizeInBytes, null, _context);
+    } else {
+      chunk = ByteBuffer.allocate(chunkSizeInBytes);
+    }
+    chunk.order(ByteOrder.nativeOrder());
+    return chunk;
+  }
+
+  private void rehash(int numSlots) {
+    if (numSlots > MAX_NUM_SLOTS) {
+      throw new IllegalStateException("Too many values in dictionary: " + _size);
+    }
+    int[] slots = new int[numSlots];
+    int slotMask = numSlots - 1;
+    int size = _size;
+    for (int id = 0; id < size; id++) {
+      int slot = hash(getValue(id)) & slotMask;
+      while (slots[slot] != EMPTY_SLOT) {
+        slot = (slot + 1) & slotMask;
+      }
+      slots[slot] = id + 1;
+    }
+    _slots = slots;
+  }
+
+  /**
+   * 64 bit finalizer from MurmurHash3, folded into an int.
+   */
+  private static int hash(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return (int) (value ^ (value >>> 32));
+  }
+}
@@ -20,11 +20,17 @@ import com.linkedin.pinot.common.data.FieldSpec;
 
 public class FloatMutableDictionary extends MutableDictionaryReader {
 
-  private Float min = Float.MAX_VALUE;
-  private Float max = Float.MIN_VALUE;
+  private final FixedWidthValueToIdMap valueToIdMap;
+  private float min = Float.MAX_VALUE;
+  private float max = Float.MIN_VALUE;
 
   public FloatMutableDictionary(FieldSpec spec) {
+    this(spec, false);
+  }
+
+  public FloatMutableDictionary(FieldSpec spec, boolean offHeap) {
     super(spec);
+    valueToIdMap = new FixedWidthValueToIdMap(Float.SIZE / Byte.SIZE, offHeap, "dictionary for " + spec.getName());
   }
 
   @Override
@@ -33,38 +39,34 @@ public class FloatMutableDictionary extends MutableDictionaryReader {
       hasNull = true;
       return;
     }
+
     if (rawValue instanceof String) {
-      Float e = new Float(Float.parseFloat(rawValue.toString()));
-      addToDictionaryBiMap(e);
-      updateMinMax(e);
+      indexValue(Float.parseFloat(rawValue.toString()));
       return;
     }
 
     if (rawValue instanceof Float) {
-      addToDictionaryBiMap(rawValue);
-      updateMinMax((Float) rawValue);
+      indexValue((Float) rawValue);
       return;
     }
 
     if (rawValue instanceof Object[]) {
-
       for (Object o : (Object[]) rawValue) {
         if (o instanceof String) {
-          addToDictionaryBiMap(new Float(Float.parseFloat(o.toString())));
-          updateMinMax(new Float(Float.parseFloat(o.toString())));
+          indexValue(Float.parseFloat(o.toString()));
           continue;
         }
 
         if (o instanceof Float) {
-          addToDictionaryBiMap(o);
-          updateMinMax((Float) o);
+          indexValue((Float) o);
           continue;
         }
       }
     }
   }
 
-  private void updateMinMax(Float entry) {
+  private void indexValue(float entry) {
+    valueToIdMap.index(Float.floatToIntBits(entry));
     if (entry < min) {
       min = entry;
     }
@@ -78,48 +80,64 @@ public class FloatMutableDictionary extends MutableDictionaryReader {
     if (rawValue == null) {
       return hasNull;
     }
-    if (rawValue instanceof String) {
-      return dictionaryIdBiMap.inverse().containsKey(new Float(Float.parseFloat(rawValue.toString())));
-    }
-    return dictionaryIdBiMap.inverse().containsKey(rawValue);
+    return indexOf(rawValue) != FixedWidthValueToIdMap.INVALID_ID;
   }
 
   @Override
   public int indexOf(Object rawValue) {
+    float entry;
     if (rawValue instanceof String) {
-      return getIndexOfFromBiMap(new Float(Float.parseFloat(rawValue.toString())));
+      entry = Float.parseFloat(rawValue.toString());
+    } else if (rawValue instanceof Float) {
+      entry = (Float) rawValue;
+    } else {
+      return FixedWidthValueToIdMap.INVALID_ID;
     }
-    return getIndexOfFromBiMap(rawValue);
+    return valueToIdMap.indexOf(Float.floatToIntBits(entry));
+  }
+
+  @Override
+  public int length() {
+    return valueToIdMap.size();
   }
 
   @Override
   public Object get(int dictionaryId) {
-    return getRawValueFromBiMap(dictionaryId);
+    return getFloat(dictionaryId);
   }
 
   @Override
   public long getLongValue(int dictionaryId) {
-    return ((Float) getRawValueFromBiMap(dictionaryId)).longValue();
+    return (long) getFloat(dictionaryId);
   }
 
   @Override
   public double getDoubleValue(int dictionaryId) {
-    return ((Float) getRawValueFromBiMap(dictionaryId)).doubleValue();
+    return getFloat(dictionaryId);
   }
 
   @Override
   public int getIntValue(int dictionaryId) {
-    return ((Float) getRawValueFromBiMap(dictionaryId)).intValue();
+    return (int) getFloat(dictionaryId);
   }
 
   @Override
   public float getFloatValue(int dictionaryId) {
-    return ((Float) getRawValueFromBiMap(dictionaryId));
+    return getFloat(dictionaryId);
   }
 
   @Override
   public String toString(int dictionaryId) {
-    return ((Float) getRawValueFromBiMap(dictionaryId)).toString();
+    return Float.toString(getFloat(dictionaryId));
+  }
+
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      int dictId = dictionaryIds[iter];
+      outValues[outStartPos++] = getFloat(dictId);
+    }
   }
 
   @Override
@@ -158,11 +176,11 @@ public class FloatMutableDictionary extends MutableDictionaryReader {
 
   @Override
   public String getStringValue(int dictionaryId) {
-    return ((Double) getRawValueFromBiMap(dictionaryId)).toString();
+    return Float.toString(getFloat(dictionaryId));
   }
 
   private float getFloat(int dictionaryId) {
-    return ((Float) dictionaryIdBiMap.get(new Integer(dictionaryId))).floatValue();
+    return Float.intBitsToFloat(valueToIdMap.getInt(dictionaryId));
   }
 
   @Override
@@ -174,4 +192,9 @@ public class FloatMutableDictionary extends MutableDictionaryReader {
   public Object getMaxVal() {
     return max;
   }
+
+  @Override
+  public void close() {
+    valueToIdMap.close();
+  }
 }
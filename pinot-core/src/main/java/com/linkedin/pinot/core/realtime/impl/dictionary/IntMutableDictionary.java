@@ -20,11 +20,17 @@ import com.linkedin.pinot.common.data.FieldSpec;
 
 public class IntMutableDictionary extends MutableDictionaryReader {
 
-  private Integer min = Integer.MAX_VALUE;
-  private Integer max = Integer.MIN_VALUE;
+  private final FixedWidthValueToIdMap valueToIdMap;
+  private int min = Integer.MAX_VALUE;
+  private int max = Integer.MIN_VALUE;
 
   public IntMutableDictionary(FieldSpec spec) {
+    this(spec, false);
+  }
+
+  public IntMutableDictionary(FieldSpec spec, boolean offHeap) {
     super(spec);
+    valueToIdMap = new FixedWidthValueToIdMap(Integer.SIZE / Byte.SIZE, offHeap, "dictionary for " + spec.getName());
   }
 
   @Override
@@ -35,15 +41,12 @@ public class IntMutableDictionary extends MutableDictionaryReader {
     }
 
     if (rawValue instanceof String) {
-      Integer entry = new Integer(Integer.parseInt(rawValue.toString()));
-      addToDictionaryBiMap(entry);
-      updateMinMax(entry);
+      indexValue(Integer.parseInt(rawValue.toString()));
       return;
     }
 
     if (rawValue instanceof Integer) {
-      addToDictionaryBiMap(rawValue);
-      updateMinMax((Integer) rawValue);
+      indexValue((Integer) rawValue);
       return;
     }
 
@@ -53,21 +56,20 @@ public class IntMutableDictionary extends MutableDictionaryReader {
       for (int i = 0; i < multivalues.length; i++) {
 
         if (multivalues[i] instanceof String) {
-          addToDictionaryBiMap(new Integer(Integer.parseInt(multivalues[i].toString())));
-          updateMinMax(Integer.parseInt(multivalues[i].toString()));
+          indexValue(Integer.parseInt(multivalues[i].toString()));
           continue;
         }
 
         if (multivalues[i] instanceof Integer) {
-          addToDictionaryBiMap(multivalues[i]);
-          updateMinMax((Integer) multivalues[i]);
+          indexValue((Integer) multivalues[i]);
           continue;
         }
       }
     }
   }
 
-  private void updateMinMax(Integer entry) {
+  private void indexValue(int entry) {
+    valueToIdMap.index(entry);
     if (entry < min) {
       min = entry;
     }
@@ -81,33 +83,38 @@ public class IntMutableDictionary extends MutableDictionaryReader {
     if (rawValue == null) {
       return hasNull;
     }
-    if (rawValue instanceof String) {
-      return dictionaryIdBiMap.inverse().containsKey(new Integer(Integer.parseInt(rawValue.toString())));
-    }
-    return dictionaryIdBiMap.inverse().containsKey(rawValue);
+    return indexOf(rawValue) != FixedWidthValueToIdMap.INVALID_ID;
   }
 
   @Override
   public int indexOf(Object rawValue) {
     if (rawValue instanceof String) {
-      return getIndexOfFromBiMap(new Integer(Integer.parseInt(rawValue.toString())));
+      return valueToIdMap.indexOf(Integer.parseInt(rawValue.toString()));
+    }
+    if (rawValue instanceof Integer) {
+      return valueToIdMap.indexOf((Integer) rawValue);
     }
-    return getIndexOfFromBiMap(rawValue);
+    return FixedWidthValueToIdMap.INVALID_ID;
+  }
+
+  @Override
+  public int length() {
+    return valueToIdMap.size();
   }
 
   @Override
   public Object get(int dictionaryId) {
-    return getRawValueFromBiMap(dictionaryId);
+    return getInt(dictionaryId);
   }
 
   @Override
   public long getLongValue(int dictionaryId) {
-    return ((Integer) getRawValueFromBiMap(dictionaryId)).longValue();
+    return getInt(dictionaryId);
   }
 
   @Override
   public double getDoubleValue(int dictionaryId) {
-    return ((Integer) getRawValueFromBiMap(dictionaryId)).doubleValue();
+    return getInt(dictionaryId);
   }
 
   @Override
@@ -122,7 +129,7 @@ public class IntMutableDictionary extends MutableDictionaryReader {
 
   @Override
   public String toString(int dictionaryId) {
-    return ((Integer) getRawValueFromBiMap(dictionaryId)).toString();
+    return Integer.toString(getInt(dictionaryId));
   }
 
   @Override
@@ -134,9 +141,18 @@ public class IntMutableDictionary extends MutableDictionaryReader {
     }
   }
 
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      int dictId = dictionaryIds[iter];
+      outValues[outStartPos++] = getInt(dictId);
+    }
+  }
+
   @Override
   public String getStringValue(int dictionaryId) {
-    return ((Integer) getRawValueFromBiMap(dictionaryId)).toString();
+    return Integer.toString(getInt(dictionaryId));
   }
 
   @Override
@@ -174,7 +190,7 @@ public class IntMutableDictionary extends MutableDictionaryReader {
   }
 
   public int getInt(int dictionaryId) {
-    return ((Integer) dictionaryIdBiMap.get(new Integer(dictionaryId))).intValue();
+    return valueToIdMap.getInt(dictionaryId);
   }
 
   @Override
@@ -187,4 +203,8 @@ public class IntMutableDictionary extends MutableDictionaryReader {
     return max;
   }
 
+  @Override
+  public void close() {
+    valueToIdMap.close();
+  }
 }
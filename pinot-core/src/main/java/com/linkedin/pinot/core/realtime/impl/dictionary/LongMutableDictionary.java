@@ -20,11 +20,17 @@ import com.linkedin.pinot.common.data.FieldSpec;
 
 public class LongMutableDictionary extends MutableDictionaryReader {
 
-  private Long min = Long.MAX_VALUE;
-  private Long max = Long.MIN_VALUE;
+  private final FixedWidthValueToIdMap valueToIdMap;
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
 
   public LongMutableDictionary(FieldSpec spec) {
+    this(spec, false);
+  }
+
+  public LongMutableDictionary(FieldSpec spec, boolean offHeap) {
     super(spec);
+    valueToIdMap = new FixedWidthValueToIdMap(Long.SIZE / Byte.SIZE, offHeap, "dictionary for " + spec.getName());
   }
 
   @Override
@@ -35,36 +41,32 @@ public class LongMutableDictionary extends MutableDictionaryReader {
     }
 
     if (rawValue instanceof String) {
-      Long e = new Long(Long.parseLong(rawValue.toString()));
-      addToDictionaryBiMap(e);
-      updateMinMax(e);
+      indexValue(Long.parseLong(rawValue.toString()));
       return;
     }
 
     if (rawValue instanceof Long) {
-      addToDictionaryBiMap(rawValue);
-      updateMinMax((Long) rawValue);
+      indexValue((Long) rawValue);
       return;
     }
 
     if (rawValue instanceof Object[]) {
       for (Object o : (Object[]) rawValue) {
         if (o instanceof String) {
-          addToDictionaryBiMap(new Long(Long.parseLong(o.toString())));
-          updateMinMax(new Long(Long.parseLong(o.toString())));
+          indexValue(Long.parseLong(o.toString()));
           continue;
         }
 
         if (o instanceof Long) {
-          addToDictionaryBiMap(o);
-          updateMinMax((Long) o);
+          indexValue((Long) o);
           continue;
         }
       }
     }
   }
 
-  private void updateMinMax(Long entry) {
+  private void indexValue(long entry) {
+    valueToIdMap.index(entry);
     if (entry < min) {
       min = entry;
     }
@@ -78,50 +80,65 @@ public class LongMutableDictionary extends MutableDictionaryReader {
     if (rawValue == null) {
       return hasNull;
     }
-    if (rawValue instanceof String) {
-      return dictionaryIdBiMap.inverse().containsKey(new Long(Long.parseLong(rawValue.toString())));
-    }
-    return dictionaryIdBiMap.inverse().containsKey(rawValue);
+    return indexOf(rawValue) != FixedWidthValueToIdMap.INVALID_ID;
   }
 
   @Override
   public int indexOf(Object rawValue) {
+    long entry;
     if (rawValue instanceof String) {
-      return getIndexOfFromBiMap(new Long(Long.parseLong(rawValue.toString())));
+      entry = Long.parseLong(rawValue.toString());
+    } else if (rawValue instanceof Long) {
+      entry = (Long) rawValue;
+    } else {
+      return FixedWidthValueToIdMap.INVALID_ID;
     }
-    return getIndexOfFromBiMap(rawValue);
+    return valueToIdMap.indexOf(entry);
+  }
+
+  @Override
+  public int length() {
+    return valueToIdMap.size();
   }
 
   @Override
   public Object get(int dictionaryId) {
-    return getRawValueFromBiMap(dictionaryId);
+    return getLong(dictionaryId);
   }
 
   @Override
   public long getLongValue(int dictionaryId) {
-    return ((Long) getRawValueFromBiMap(dictionaryId)).longValue();
+    return getLong(dictionaryId);
   }
 
   @Override
   public double getDoubleValue(int dictionaryId) {
-    return ((Long) getRawValueFromBiMap(dictionaryId)).doubleValue();
+    return getLong(dictionaryId);
   }
 
   @Override
   public int getIntValue(int dictionaryId) {
-    return ((Long) getRawValueFromBiMap(dictionaryId)).intValue();
+    return (int) getLong(dictionaryId);
   }
 
   @Override
   public float getFloatValue(int dictionaryId) {
-    return ((Long) getRawValueFromBiMap(dictionaryId)).floatValue();
+    return getLong(dictionaryId);
   }
 
   @Override
   public String toString(int dictionaryId) {
-    return ((Long) getRawValueFromBiMap(dictionaryId)).toString();
+    return Long.toString(getLong(dictionaryId));
   }
 
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      int dictId = dictionaryIds[iter];
+      outValues[outStartPos++] = getLong(dictId);
+    }
+  }
 
   @Override
   public boolean inRange(String lower, String upper, int indexOfValueToCompare, boolean includeLower,
@@ -159,11 +176,11 @@ public class LongMutableDictionary extends MutableDictionaryReader {
 
   @Override
   public String getStringValue(int dictionaryId) {
-    return ((Long) getRawValueFromBiMap(dictionaryId)).toString();
+    return Long.toString(getLong(dictionaryId));
   }
 
   private long getLong(int dictionaryId) {
-    return ((Long) dictionaryIdBiMap.get(new Integer(dictionaryId))).longValue();
+    return valueToIdMap.getLong(dictionaryId);
   }
 
   @Override
@@ -175,4 +192,9 @@ public class LongMutableDictionary extends MutableDictionaryReader {
   public Object getMaxVal() {
     return max;
   }
+
+  @Override
+  public void close() {
+    valueToIdMap.close();
+  }
 }
@@ -15,35 +15,22 @@
  */
 package com.linkedin.pinot.core.realtime.impl.dictionary;
 
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
-import java.util.concurrent.atomic.AtomicInteger;
 
 
+/**
+ * Base class for the dictionaries of realtime segments, which grow while the segment is consuming.
+ *
+ * Values are added by a single indexing thread through {@link #index(Object)}, while query threads read the
+ * dictionary concurrently without locking. Dictionary id's are assigned in insertion order.
+ */
 public abstract class MutableDictionaryReader implements Dictionary {
-  protected BiMap<Integer, Object> dictionaryIdBiMap;
   protected FieldSpec spec;
   protected boolean hasNull = false;
-  private final AtomicInteger dictionaryIdGenerator;
 
   public MutableDictionaryReader(FieldSpec spec) {
     this.spec = spec;
-    this.dictionaryIdBiMap = HashBiMap.<Integer, Object> create();
-    dictionaryIdGenerator = new AtomicInteger(-1);
-  }
-
-  protected void addToDictionaryBiMap(Object val) {
-    if (!dictionaryIdBiMap.inverse().containsKey(val)) {
-      dictionaryIdBiMap.put(new Integer(dictionaryIdGenerator.incrementAndGet()), val);
-      return;
-    }
-  }
-
-  @Override
-  public int length() {
-    return dictionaryIdGenerator.get() + 1;
   }
 
   @Override
@@ -122,18 +109,6 @@ public abstract class MutableDictionaryReader implements Dictionary {
 
   }
 
-  protected Integer getIndexOfFromBiMap(Object val) {
-    Integer ret = dictionaryIdBiMap.inverse().get(val);
-    if (ret == null) {
-      ret = -1;
-    }
-    return ret;
-  }
-
-  protected Object getRawValueFromBiMap(int dictionaryId) {
-    return dictionaryIdBiMap.get(new Integer(dictionaryId));
-  }
-
   public boolean hasNull() {
     return hasNull;
   }
@@ -176,13 +151,20 @@ public abstract class MutableDictionaryReader implements Dictionary {
 
   public void print() {
     System.out.println("************* printing dictionary for column : " + spec.getName() + " ***************");
-    for (Integer key : dictionaryIdBiMap.keySet()) {
-      System.out.println(key + "," + dictionaryIdBiMap.get(key));
+    int length = length();
+    for (int dictionaryId = 0; dictionaryId < length; dictionaryId++) {
+      System.out.println(dictionaryId + "," + get(dictionaryId));
     }
     System.out.println("************************************");
   }
 
   public boolean isEmpty() {
-    return dictionaryIdBiMap.isEmpty();
+    return length() == 0;
+  }
+
+  /**
+   * Releases the memory held by the dictionary, must not be called while the dictionary is still in use.
+   */
+  public void close() {
   }
 }
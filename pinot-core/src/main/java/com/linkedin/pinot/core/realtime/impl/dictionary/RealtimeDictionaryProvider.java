@@ -16,20 +16,27 @@
 package com.linkedin.pinot.core.realtime.impl.dictionary;
 
 import com.linkedin.pinot.common.data.FieldSpec;
-import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 public class RealtimeDictionaryProvider {
 
   public static MutableDictionaryReader getDictionaryFor(FieldSpec spec) {
+    return getDictionaryFor(spec, false);
+  }
+
+  /**
+   * Returns a new mutable dictionary for the given column. When offHeap is true, the values of numeric columns are
+   * stored in direct memory, String values are always kept on heap.
+   */
+  public static MutableDictionaryReader getDictionaryFor(FieldSpec spec, boolean offHeap) {
     switch (spec.getDataType()) {
       case INT:
-        return new IntMutableDictionary(spec);
+        return new IntMutableDictionary(spec, offHeap);
       case LONG:
-        return new LongMutableDictionary(spec);
+        return new LongMutableDictionary(spec, offHeap);
       case FLOAT:
-        return new FloatMutableDictionary(spec);
+        return new FloatMutableDictionary(spec, offHeap);
       case DOUBLE:
-        return new DoubleMutableDictionary(spec);
+        return new DoubleMutableDictionary(spec, offHeap);
       case BOOLEAN:
       case STRING:
         return new StringMutableDictionary(spec);
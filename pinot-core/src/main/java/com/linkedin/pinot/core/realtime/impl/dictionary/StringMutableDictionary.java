@@ -20,6 +20,7 @@ import com.linkedin.pinot.common.data.FieldSpec;
 
 public class StringMutableDictionary extends MutableDictionaryReader {
 
+  private final StringValueToIdMap valueToIdMap = new StringValueToIdMap();
   private String min = null;
   private String max = null;
 
@@ -31,17 +32,17 @@ public class StringMutableDictionary extends MutableDictionaryReader {
   public void index(Object rawValue) {
     if (rawValue instanceof Object[]) {
       for (Object o : (Object[]) rawValue) {
-        addToDictionaryBiMap(o.toString());
-        updateMinMax(o.toString());
+        indexValue(o.toString());
       }
       return;
     }
 
-    addToDictionaryBiMap(rawValue.toString());
-    updateMinMax(rawValue.toString());
+    indexValue(rawValue.toString());
   }
 
-  private void updateMinMax(String entry) {
+  private void indexValue(String entry) {
+    valueToIdMap.index(entry);
+
     if (min == null && max == null) {
       min = entry;
       max = entry;
@@ -62,17 +63,22 @@ public class StringMutableDictionary extends MutableDictionaryReader {
     if (rawValue == null) {
       return hasNull;
     }
-    return dictionaryIdBiMap.inverse().containsKey(rawValue.toString());
+    return valueToIdMap.indexOf(rawValue.toString()) != StringValueToIdMap.INVALID_ID;
   }
 
   @Override
   public int indexOf(Object rawValue) {
-    return getIndexOfFromBiMap(rawValue.toString());
+    return valueToIdMap.indexOf(rawValue.toString());
+  }
+
+  @Override
+  public int length() {
+    return valueToIdMap.size();
   }
 
   @Override
   public Object get(int dictionaryId) {
-    return getRawValueFromBiMap(dictionaryId);
+    return valueToIdMap.get(dictionaryId);
   }
 
   @Override
@@ -97,12 +103,12 @@ public class StringMutableDictionary extends MutableDictionaryReader {
 
   @Override
   public String toString(int dictionaryId) {
-    return (String) getRawValueFromBiMap(dictionaryId);
+    return valueToIdMap.get(dictionaryId);
   }
 
   @Override
   public String getStringValue(int dictionaryId) {
-    return (String) getRawValueFromBiMap(dictionaryId);
+    return valueToIdMap.get(dictionaryId);
   }
 
   @Override
@@ -136,7 +142,7 @@ public class StringMutableDictionary extends MutableDictionaryReader {
   }
 
   private String getString(int dictionaryId) {
-    return dictionaryIdBiMap.get(new Integer(dictionaryId)).toString();
+    return valueToIdMap.get(dictionaryId);
   }
 
   @Override
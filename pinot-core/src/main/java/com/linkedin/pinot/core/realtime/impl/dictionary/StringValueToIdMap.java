@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.util.Arrays;
+
+
+/**
+ * Append-only map from String values to contiguous dictionary id's, for mutable dictionaries of realtime segments.
+ *
+ * Same layout and threading model as {@link FixedWidthValueToIdMap}: one writer thread, lock-free readers. The
+ * values are kept on heap in fixed size chunks of String references, which is enough to avoid the per entry
+ * objects of a general purpose map.
+ */
+public class StringValueToIdMap {
+  public static final int INVALID_ID = -1;
+
+  private static final int CHUNK_SHIFT = 12;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private static final int EMPTY_SLOT = 0;
+  private static final int INITIAL_NUM_SLOTS = 1 << 8;
+  private static final int MAX_NUM_SLOTS = 1 << 30;
+
+  private volatile String[][] _chunks = new String[0][];
+  private volatile int[] _slots = new int[INITIAL_NUM_SLOTS];
+  private volatile int _size = 0;
+
+  /**
+   * Returns the id for the given value, or INVALID_ID if the value does not exist in the map.
+   *
+   * @param value
+   * @return
+   */
+  public int indexOf(String value) {
+    int[] slots = _slots;
+    int slotMask = slots.length - 1;
+    int slot = hash(value) & slotMask;
+    while (true) {
+      int slotValue = slots[slot];
+      if (slotValue == EMPTY_SLOT) {
+        return INVALID_ID;
+      }
+      int id = slotValue - 1;
+      if (id < _size && get(id).equals(value)) {
+        return id;
+      }
+      slot = (slot + 1) & slotMask;
+    }
+  }
+
+  /**
+   * Returns the id for the given value. If the value does not exist in the map, it is added and assigned the next
+   * available id (which is the size of the map before insertion). Must only be called by the writer thread.
+   *
+   * @param value
+   * @return
+   */
+  public int index(String value) {
+    int[] slots = _slots;
+    int slotMask = slots.length - 1;
+    int slot = hash(value) & slotMask;
+    while (true) {
+      int slotValue = slots[slot];
+      if (slotValue == EMPTY_SLOT) {
+        break;
+      }
+      if (get(slotValue - 1).equals(value)) {
+        return slotValue - 1;
+      }
+      slot = (slot + 1) & slotMask;
+    }
+
+    int id = _size;
+    int chunkId = id >>> CHUNK_SHIFT;
+    String[][] chunks = _chunks;
+    if (chunkId == chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunkId + 1);
+      chunks[chunkId] = new String[CHUNK_SIZE];
+      _chunks = chunks;
+    }
+    chunks[chunkId][id & CHUNK_MASK] = value;
+    slots[slot] = id + 1;
+    _size = id + 1;
+
+    // Keep the load factor at or below 0.5
+    if (id + 1 > (slots.length >>> 1)) {
+      rehash(slots.length << 1);
+    }
+    return id;
+  }
+
+  /**
+   * Returns the value for the given id.
+   *
+   * @param id
+   * @return
+   */
+  public String get(int id) {
+    return _chunks[id >>> CHUNK_SHIFT][id & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the number of values in the map.
+   *
+   * @return
+   */
+  public int size() {
+    return _size;
+  }
+
+  private void rehash(int numSlots) {
+    if (numSlots > MAX_NUM_SLOTS) {
+      throw new IllegalStateException("Too many values in dictionary: " + _size);
+    }
+    int[] slots = new int[numSlots];
+    int slotMask = numSlots - 1;
+    int size = _size;
+    for (int id = 0; id < size; id++) {
+      int slot = hash(get(id)) & slotMask;
+      while (slots[slot] != EMPTY_SLOT) {
+        slot = (slot + 1) & slotMask;
+      }
+      slots[slot] = id + 1;
+    }
+    _slots = slots;
+  }
+
+  /**
+   * Spreads the String hash code, so that similar strings do not end up in adjacent slots.
+   */
+  private static int hash(String value) {
+    int hash = value.hashCode() * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -19,6 +19,7 @@ import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.io.writer.impl.v1.VarByteChunkSingleValueWriter;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
@@ -28,14 +29,20 @@ import com.linkedin.pinot.core.segment.creator.SegmentCreator;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.SingleValueForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.MultiValueUnsortedForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueRawForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueSortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueUnsortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OffHeapBitmapInvertedIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
+import com.linkedin.pinot.core.segment.creator.impl.range.BitmapRangeIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.stats.StringColumnPreIndexStatsCollector;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Array;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.slf4j.Logger;
@@ -61,6 +68,9 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   private Map<String, SegmentDictionaryCreator> dictionaryCreatorMap;
   private Map<String, ForwardIndexCreator> forwardIndexCreatorMap;
   private Map<String, InvertedIndexCreator> invertedIndexCreatorMap;
+  private Map<String, SingleValueRawForwardIndexCreator> rawIndexCreatorMap;
+  private Map<String, BitmapRangeIndexCreator> rangeIndexCreatorMap;
+  private Set<String> blockMinMaxColumns;
   private String segmentName;
 
   private Schema schema;
@@ -85,6 +95,9 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     forwardIndexCreatorMap = new HashMap<String, ForwardIndexCreator>();
     this.indexCreationInfoMap = indexCreationInfoMap;
     invertedIndexCreatorMap = new HashMap<String, InvertedIndexCreator>();
+    rawIndexCreatorMap = new HashMap<String, SingleValueRawForwardIndexCreator>();
+    rangeIndexCreatorMap = new HashMap<String, BitmapRangeIndexCreator>();
+    blockMinMaxColumns = new HashSet<String>();
     file = outDir;
 
     // Check that the output directory does not exist
@@ -111,7 +124,12 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
         dictionaryCreatorMap.put(spec.getName(),
             new SegmentDictionaryCreator(info.hasNulls(), info.getSortedUniqueElementsArray(), spec, file));
       } else {
-        throw new RuntimeException("Creation of indices without dictionaries is not implemented!");
+        // Raw values are written directly into the forward index, which is never stored sorted
+        info.setSorted(false);
+        SingleValueRawForwardIndexCreator rawIndexCreator =
+            new SingleValueRawForwardIndexCreator(spec, file, totalDocs, getLengthOfLongestEntry(info, spec));
+        rawIndexCreatorMap.put(spec.getName(), rawIndexCreator);
+        forwardIndexCreatorMap.put(spec.getName(), rawIndexCreator);
       }
     }
 
@@ -129,9 +147,14 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
           forwardIndexCreatorMap.put(column,
               new SingleValueSortedForwardIndexCreator(file, uniqueValueCount, schema.getFieldSpecFor(column)));
         } else {
+          boolean withBlockMinMax = config.getBlockMinMaxColumns().contains(column);
           forwardIndexCreatorMap.put(column,
               new SingleValueUnsortedForwardIndexCreator(schema.getFieldSpecFor(column), file, uniqueValueCount,
-                  totalDocs, indexCreationInfo.getTotalNumberOfEntries(), indexCreationInfo.hasNulls()));
+                  totalDocs, indexCreationInfo.getTotalNumberOfEntries(), indexCreationInfo.hasNulls(),
+                  withBlockMinMax));
+          if (withBlockMinMax) {
+            blockMinMaxColumns.add(column);
+          }
         }
       } else {
         forwardIndexCreatorMap.put(column,
@@ -145,12 +168,47 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
         LOGGER.warn("Skipping enabling index on column:{} since its missing in schema", column);
         continue;
       }
+      if (rawIndexCreatorMap.containsKey(column)) {
+        LOGGER.warn("Skipping enabling index on column:{} since it has no dictionary", column);
+        continue;
+      }
       ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
       int uniqueValueCount = indexCreationInfo.getDistinctValueCount();
       OffHeapBitmapInvertedIndexCreator invertedIndexCreator = new OffHeapBitmapInvertedIndexCreator(file,
           uniqueValueCount, totalDocs, indexCreationInfo.getTotalNumberOfEntries(), schema.getFieldSpecFor(column));
       invertedIndexCreatorMap.put(column, invertedIndexCreator);
     }
+
+    for (String column : config.getRangeIndexCreationColumns()) {
+      if (!schema.hasColumn(column)) {
+        LOGGER.warn("Skipping range index on column:{} since its missing in schema", column);
+        continue;
+      }
+      FieldSpec spec = schema.getFieldSpecFor(column);
+      ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
+      if (rawIndexCreatorMap.containsKey(column) || !spec.isSingleValueField() || indexCreationInfo.isSorted()) {
+        // Sorted columns already answer ranges from their sorted forward index
+        LOGGER.warn("Skipping range index on column:{} since it is not an unsorted single value column with dictionary",
+            column);
+        continue;
+      }
+      rangeIndexCreatorMap.put(column,
+          new BitmapRangeIndexCreator(file, spec, indexCreationInfo.getDistinctValueCount(), totalDocs));
+    }
+  }
+
+  /**
+   * Returns the length in bytes of the longest value of a string column, 0 for other columns.
+   */
+  private static int getLengthOfLongestEntry(ColumnIndexCreationInfo info, FieldSpec spec) {
+    if (spec.getDataType() != FieldSpec.DataType.STRING) {
+      return 0;
+    }
+    int lengthOfLongestEntry = 0;
+    for (Object value : (Object[]) info.getSortedUniqueElementsArray()) {
+      lengthOfLongestEntry = Math.max(lengthOfLongestEntry, value.toString().getBytes(VarByteChunkSingleValueWriter.UTF_8).length);
+    }
+    return lengthOfLongestEntry;
   }
 
   @Override
@@ -169,6 +227,9 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
           if (invertedIndexCreatorMap.containsKey(column)) {
             invertedIndexCreatorMap.get(column).add(docIdCounter, dictionaryIndex);
           }
+          if (rangeIndexCreatorMap.containsKey(column)) {
+            rangeIndexCreatorMap.get(column).add(docIdCounter, dictionaryIndex);
+          }
         } else {
           int[] dictionaryIndex = dictionaryCreatorMap.get(column).indexOfMV(columnValueToIndex);
           ((MultiValueForwardIndexCreator) forwardIndexCreatorMap.get(column)).index(docIdCounter, dictionaryIndex);
@@ -182,6 +243,17 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
         throw new RuntimeException("Exception while indexing column:"+ column, e);
       }
     }
+    for (final String column : rawIndexCreatorMap.keySet()) {
+      Object columnValueToIndex = row.getValue(column);
+      if (columnValueToIndex == null) {
+        throw new RuntimeException("Null value for column:" + column);
+      }
+      try {
+        rawIndexCreatorMap.get(column).index(docIdCounter, columnValueToIndex);
+      } catch (Exception e) {
+        throw new RuntimeException("Exception while indexing column:" + column, e);
+      }
+    }
     docIdCounter++;
   }
 
@@ -194,16 +266,42 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   public void seal() throws ConfigurationException, IOException {
     for (final String column : forwardIndexCreatorMap.keySet()) {
       forwardIndexCreatorMap.get(column).close();
-      dictionaryCreatorMap.get(column).close();
+      if (dictionaryCreatorMap.containsKey(column)) {
+        dictionaryCreatorMap.get(column).close();
+      }
     }
 
     // The map is only initialized for columns that have inverted index creation enabled.
     for (final String invertedColumn : invertedIndexCreatorMap.keySet()) {
       invertedIndexCreatorMap.get(invertedColumn).seal();
     }
+    for (final String rangeColumn : rangeIndexCreatorMap.keySet()) {
+      rangeIndexCreatorMap.get(rangeColumn).seal();
+    }
+    createBloomFilters();
     writeMetadata();
   }
 
+  /**
+   * Bloom filters only need the distinct values of a column, which the stats collectors already hold.
+   */
+  private void createBloomFilters() throws IOException {
+    for (String column : config.getBloomFilterCreationColumns()) {
+      if (!schema.hasColumn(column)) {
+        LOGGER.warn("Skipping bloom filter on column:{} since its missing in schema", column);
+        continue;
+      }
+      ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
+      Object sortedUniqueElements = indexCreationInfo.getSortedUniqueElementsArray();
+      int numValues = Array.getLength(sortedUniqueElements);
+      BloomFilterCreator bloomFilterCreator = new BloomFilterCreator(file, column, numValues);
+      for (int i = 0; i < numValues; i++) {
+        bloomFilterCreator.add(Array.get(sortedUniqueElements, i));
+      }
+      bloomFilterCreator.seal();
+    }
+  }
+
   void writeMetadata() throws ConfigurationException {
     final PropertiesConfiguration properties =
         new PropertiesConfiguration(new File(file, V1Constants.MetadataKeys.METADATA_FILE_NAME));
@@ -271,8 +369,13 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, BITS_PER_ELEMENT),
           String.valueOf(SingleValueUnsortedForwardIndexCreator.getNumOfBits(uniqueValueCount)));
 
-      properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, DICTIONARY_ELEMENT_SIZE),
-          String.valueOf(dictionaryCreatorMap.get(column).getStringColumnMaxLength()));
+      if (dictionaryCreatorMap.containsKey(column)) {
+        properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, DICTIONARY_ELEMENT_SIZE),
+            String.valueOf(dictionaryCreatorMap.get(column).getStringColumnMaxLength()));
+      } else {
+        properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, DICTIONARY_ELEMENT_SIZE),
+            String.valueOf(0));
+      }
 
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, COLUMN_TYPE),
           String.valueOf(schema.getFieldSpecFor(column).getFieldType().toString()));
@@ -285,6 +388,11 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       properties.setProperty(
           V1Constants.MetadataKeys.Column.getKeyFor(column, V1Constants.MetadataKeys.Column.HAS_DICTIONARY),
           String.valueOf(columnIndexCreationInfo.isCreateDictionary()));
+      if (blockMinMaxColumns.contains(column)) {
+        properties.setProperty(
+            V1Constants.MetadataKeys.Column.getKeyFor(column, V1Constants.MetadataKeys.Column.HAS_BLOCK_MIN_MAX),
+            String.valueOf(true));
+      }
 
 // TODO: after fixing the server-side dependency on HAS_INVERTED_INDEX and deployed, set HAS_INVERTED_INDEX properly
 // The hasInvertedIndex flag in segment metadata is picked up in ColumnMetadata, and will be used during the query
@@ -307,9 +415,31 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, TOTAL_NUMBER_OF_ENTRIES),
           String.valueOf(columnIndexCreationInfo.getTotalNumberOfEntries()));
 
+      addColumnMinMaxValue(properties, column, columnIndexCreationInfo.getMin(), columnIndexCreationInfo.getMax());
     }
 
     properties.save();
   }
 
+  /**
+   * Persists the min and max value of a column, used to prune segments. String values that would not read back
+   * the same from the properties file (list delimiter, leading or trailing whitespace) are left out.
+   */
+  static void addColumnMinMaxValue(PropertiesConfiguration properties, String column, Object min, Object max) {
+    if (min == null || max == null) {
+      return;
+    }
+    String minValue = min.toString();
+    String maxValue = max.toString();
+    if (!isValidPropertyValue(properties, minValue) || !isValidPropertyValue(properties, maxValue)) {
+      return;
+    }
+    properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, MIN_VALUE), minValue);
+    properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, MAX_VALUE), maxValue);
+  }
+
+  private static boolean isValidPropertyValue(PropertiesConfiguration properties, String value) {
+    return value.indexOf(properties.getListDelimiter()) == -1 && value.trim().equals(value);
+  }
+
 }
@@ -51,6 +51,7 @@ import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.SegmentPreIndexStatsCollector;
 import com.linkedin.pinot.core.segment.creator.impl.stats.SegmentPreIndexStatsCollectorImpl;
+import com.linkedin.pinot.core.startree.OffHeapStarTree;
 import com.linkedin.pinot.core.startree.OffHeapStarTreeBuilder;
 import com.linkedin.pinot.core.startree.StarTree;
 import com.linkedin.pinot.core.startree.StarTreeBuilder;
@@ -231,7 +232,10 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     HashBiMap<String, Integer> dimensionNameToIndexMap = starTreeBuilder.getDimensionNameToIndexMap();
     StarTreeIndexNode node = tree.getRoot();
     updateTree(node, dictionaryMap, dimensionNameToIndexMap);
-    tree.writeTree(new FileOutputStream(new File(tempIndexDir, V1Constants.STAR_TREE_INDEX_FILE)));
+    File starTreeFile = new File(tempIndexDir, V1Constants.STAR_TREE_INDEX_FILE);
+    try (FileOutputStream outputStream = new FileOutputStream(starTreeFile)) {
+      OffHeapStarTree.write(tree, outputStream);
+    }
   }
 
   /**
@@ -428,7 +432,7 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     for (final FieldSpec spec : dataSchema.getAllFieldSpecs()) {
       final String column = spec.getName();
       indexCreationInfoMap.put(column,
-          new ColumnIndexCreationInfo(true, // Use dictionary encoding
+          new ColumnIndexCreationInfo(!createRawIndex(spec),
               statsCollector.getColumnProfileFor(column).getMinValue(),
               statsCollector.getColumnProfileFor(column).getMaxValue(),
               statsCollector.getColumnProfileFor(column).getUniqueValuesSet(), ForwardIndexType.FIXED_BIT_COMPRESSED,
@@ -447,6 +451,33 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     segmentIndexCreationInfo.setTotalNulls(extractor.getTotalNulls());
   }
 
+  /**
+   * Returns true if the column is configured to be stored raw, without a dictionary. Only single value numeric and
+   * string columns can be stored raw, other columns fall back to dictionary encoding.
+   */
+  private boolean createRawIndex(FieldSpec spec) {
+    if (!config.getRawIndexCreationColumns().contains(spec.getName())) {
+      return false;
+    }
+    if (!spec.isSingleValueField()) {
+      LOGGER.warn("Creating dictionary for multi-value column {}, raw index only supports single-value columns",
+          spec.getName());
+      return false;
+    }
+    switch (spec.getDataType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+        return true;
+      default:
+        LOGGER.warn("Creating dictionary for column {}, raw index does not support data type {}", spec.getName(),
+            spec.getDataType());
+        return false;
+    }
+  }
+
   @Override
   /**
    * Returns the name of the segment associated with this index creation driver.
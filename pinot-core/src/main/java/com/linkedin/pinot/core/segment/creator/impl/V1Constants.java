@@ -79,9 +79,12 @@ public class V1Constants {
     public static final String UN_SORTED_SV_FWD_IDX_FILE_EXTENTION = ".sv.unsorted.fwd";
     public static final String SORTED_FWD_IDX_FILE_EXTENTION = ".sv.sorted.fwd";
     public static final String UN_SORTED_MV_FWD_IDX_FILE_EXTENTION = ".mv.fwd";
+    public static final String RAW_SV_FWD_IDX_FILE_EXTENTION = ".sv.raw.fwd";
     public static final String BITMAP_INVERTED_INDEX_FILE_EXTENSION = ".bitmap.inv";
     public static final String SORTED_INVERTED_INDEX_FILE_EXTENSION = ".sorted.inv";
     public static final String INTARRAY_INVERTED_INDEX_FILE_EXTENSION = ".intArray.inv";
+    public static final String BITMAP_RANGE_INDEX_FILE_EXTENSION = ".bitmap.range";
+    public static final String BLOOM_FILTER_FILE_EXTENSION = ".bloom";
   }
 
   public static class MetadataKeys {
@@ -139,12 +142,15 @@ public class V1Constants {
       public static final String HAS_INVERTED_INDEX = "hasInvertedIndex";
       public static final String HAS_NULL_VALUE = "hasNullValue";
       public static final String HAS_DICTIONARY = "hasDictionary";
+      public static final String HAS_BLOCK_MIN_MAX = "hasBlockMinMax";
 
       public static final String IS_SORTED = "isSorted";
       public static final String IS_SINGLE_VALUED = "isSingleValues";
       public static final String MAX_MULTI_VALUE_ELEMTS = "maxNumberOfMultiValues";
 
       public static final String TOTAL_NUMBER_OF_ENTRIES = "totalNumberOfEntries";
+      public static final String MIN_VALUE = "minValue";
+      public static final String MAX_VALUE = "maxValue";
       public static final String COLUMN_PROPS_KEY_PREFIX = "column.";
 
       public static String getKeyFor(String column, String key) {
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.bloom;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.apache.commons.io.IOUtils;
+
+
+/**
+ * Creates a bloom filter over the distinct values of a column, used to prune segments for EQ and IN predicates.
+ * Values are added through their string representation, see {@link #toBloomFilterValue(Object)}.
+ * <p>
+ * OUTPUT FILE FORMAT
+ * </p>
+ * <code>
+ * [VERSION] -- INT
+ * [NUM HASH FUNCTIONS] -- INT
+ * [NUM LONGS] -- INT
+ * [BITS] -- numLongs LONGs
+ * </code>
+ * This file can be read using BloomFilterReader.
+ */
+public class BloomFilterCreator {
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 3 * (Integer.SIZE / Byte.SIZE);
+  public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final File bloomFilterFile;
+  private final int numHashFunctions;
+  private final long numBits;
+  private final long[] bits;
+
+  public BloomFilterCreator(File indexDir, String column, int numValues) {
+    this(indexDir, column, numValues, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+  }
+
+  public BloomFilterCreator(File indexDir, String column, int numValues, double falsePositiveProbability) {
+    Preconditions.checkArgument(falsePositiveProbability > 0 && falsePositiveProbability < 1,
+        "False positive probability:%s must be in (0, 1)", falsePositiveProbability);
+    numValues = Math.max(numValues, 1);
+    // Optimal number of bits and hash functions for the expected number of values
+    long optimalNumBits =
+        (long) (-numValues * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+    int numLongs = (int) Math.max(1, (optimalNumBits + Long.SIZE - 1) / Long.SIZE);
+    this.numBits = (long) numLongs * Long.SIZE;
+    this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / numValues * Math.log(2)));
+    this.bits = new long[numLongs];
+    this.bloomFilterFile = new File(indexDir, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+  }
+
+  public void add(Object value) {
+    long[] hashes = hash(toBloomFilterValue(value));
+    long combinedHash = hashes[0];
+    for (int i = 0; i < numHashFunctions; i++) {
+      long bitIndex = (combinedHash & Long.MAX_VALUE) % numBits;
+      bits[(int) (bitIndex >>> 6)] |= 1L << bitIndex;
+      combinedHash += hashes[1];
+    }
+  }
+
+  public void seal()
+      throws IOException {
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bloomFilterFile)));
+      out.writeInt(VERSION);
+      out.writeInt(numHashFunctions);
+      out.writeInt(bits.length);
+      for (long word : bits) {
+        out.writeLong(word);
+      }
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  public File getBloomFilterFile() {
+    return bloomFilterFile;
+  }
+
+  /**
+   * Values are hashed through their string form, so that a typed value at creation and the same value parsed
+   * from a query into the column data type hash the same way.
+   */
+  public static String toBloomFilterValue(Object value) {
+    return value.toString();
+  }
+
+  /**
+   * Returns the two 64 bit halves of the murmur3 hash of the value, combined as h1 + i * h2 to get the
+   * i-th hash function.
+   */
+  public static long[] hash(String value) {
+    ByteBuffer hash = ByteBuffer.wrap(HASH_FUNCTION.hashString(value, Charsets.UTF_8).asBytes())
+        .order(ByteOrder.LITTLE_ENDIAN);
+    return new long[]{hash.getLong(0), hash.getLong(8)};
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.fwd;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.writer.impl.FixedByteSingleValueMultiColWriter;
+import com.linkedin.pinot.core.io.writer.impl.v1.VarByteChunkSingleValueWriter;
+import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+
+/**
+ * Forward index creator for single value columns without a dictionary.
+ * - Numeric values are stored in fixed width (4 bytes for INT and FLOAT, 8 bytes for LONG and DOUBLE).
+ * - String values are stored in snappy compressed chunks of about {@link #TARGET_CHUNK_SIZE} bytes.
+ */
+public class SingleValueRawForwardIndexCreator implements ForwardIndexCreator, Closeable {
+  public static final int TARGET_CHUNK_SIZE = 64 * 1024;
+
+  private final FieldSpec.DataType dataType;
+  private FixedByteSingleValueMultiColWriter indexWriter;
+  private VarByteChunkSingleValueWriter chunkWriter;
+
+  public SingleValueRawForwardIndexCreator(FieldSpec spec, File baseIndexDir, int numDocs, int lengthOfLongestEntry)
+      throws Exception {
+    File indexFile = new File(baseIndexDir, spec.getName() + V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION);
+    dataType = spec.getDataType();
+    if (dataType == FieldSpec.DataType.STRING) {
+      // Each row also takes 4 bytes for its value offset in the chunk.
+      int numRowsPerChunk = Math.max(1, TARGET_CHUNK_SIZE / (lengthOfLongestEntry + 4));
+      chunkWriter = new VarByteChunkSingleValueWriter(indexFile, ChunkCompressorFactory.CompressionType.SNAPPY,
+          numDocs, numRowsPerChunk);
+    } else {
+      indexWriter = new FixedByteSingleValueMultiColWriter(indexFile, numDocs, 1, new int[] { dataType.size() });
+    }
+  }
+
+  public void index(int docId, Object value) throws IOException {
+    switch (dataType) {
+      case INT:
+        indexWriter.setInt(docId, 0, ((Number) value).intValue());
+        break;
+      case LONG:
+        indexWriter.setLong(docId, 0, ((Number) value).longValue());
+        break;
+      case FLOAT:
+        indexWriter.setFloat(docId, 0, ((Number) value).floatValue());
+        break;
+      case DOUBLE:
+        indexWriter.setDouble(docId, 0, ((Number) value).doubleValue());
+        break;
+      case STRING:
+        chunkWriter.setString(docId, value.toString());
+        break;
+      default:
+        throw new UnsupportedOperationException("Raw index is not supported for data type: " + dataType);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (chunkWriter != null) {
+      chunkWriter.close();
+    } else {
+      indexWriter.close();
+    }
+  }
+}
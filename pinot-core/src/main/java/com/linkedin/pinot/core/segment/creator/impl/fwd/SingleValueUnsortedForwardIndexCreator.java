@@ -37,12 +37,25 @@ public class SingleValueUnsortedForwardIndexCreator
 
   public SingleValueUnsortedForwardIndexCreator(FieldSpec spec, File baseIndexDir, int cardinality,
       int numDocs, int totalNumberOfValues, boolean hasNulls) throws Exception {
+    this(spec, baseIndexDir, cardinality, numDocs, totalNumberOfValues, hasNulls, false);
+  }
+
+  /**
+   * @param withBlockMinMax Write the v3 format, with the min and max dictionary id of each block of rows
+   */
+  public SingleValueUnsortedForwardIndexCreator(FieldSpec spec, File baseIndexDir, int cardinality,
+      int numDocs, int totalNumberOfValues, boolean hasNulls, boolean withBlockMinMax) throws Exception {
     forwardIndexFile = new File(baseIndexDir,
         spec.getName() + V1Constants.Indexes.UN_SORTED_SV_FWD_IDX_FILE_EXTENTION);
     this.spec = spec;
     FileUtils.touch(forwardIndexFile);
     maxNumberOfBits = getNumOfBits(cardinality);
-    sVWriter = new FixedBitSingleValueWriter(forwardIndexFile, numDocs, maxNumberOfBits);
+    if (withBlockMinMax) {
+      sVWriter = new com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter(forwardIndexFile, numDocs,
+          maxNumberOfBits);
+    } else {
+      sVWriter = new FixedBitSingleValueWriter(forwardIndexFile, numDocs, maxNumberOfBits);
+    }
   }
 
   public static int getNumOfBits(int dictionarySize) {
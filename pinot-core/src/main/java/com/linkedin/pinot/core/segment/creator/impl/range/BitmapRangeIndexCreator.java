@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.range;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.commons.io.IOUtils;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Creates a range index for a single value column with a dictionary.
+ * <p>
+ * The sorted dictionary ids are split into contiguous buckets holding roughly the same number of documents,
+ * and one bitmap is stored per bucket. A range predicate then ORs the few buckets it fully covers and only
+ * checks the documents of the (at most two) buckets at its edges, instead of OR-ing one bitmap per matching
+ * dictionary id.
+ * </p>
+ * Typical usage
+ * <code>
+ * creator = new BitmapRangeIndexCreator(.....);
+ * creator.add(int docId, int dictId)
+ * creator.seal() //generates the actual file
+ * </code>
+ * <p>
+ * OUTPUT FILE FORMAT
+ * </p>
+ * <code>
+ * [NUM BUCKETS] -- INT
+ * [BUCKET START DICTIONARY IDS] -- numBuckets + 1 INTs, the last one is the cardinality
+ * [BITMAP OFFSETS] -- numBuckets + 1 INTs, the last one is the size of the file
+ * [BITMAP SERIALIZED DATA] -- numBuckets serialized roaring bitmaps
+ * </code>
+ * This file can be read using BitmapRangeIndexReader.
+ */
+public class BitmapRangeIndexCreator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BitmapRangeIndexCreator.class);
+  private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+  public static final int DEFAULT_NUM_BUCKETS = 64;
+
+  private final File rangeIndexFile;
+  private final FieldSpec spec;
+  private final int cardinality;
+  private final int numDocs;
+  private final int numBuckets;
+  private final int[] docDictIds;
+  private final int[] dictIdCounts;
+  private final long start;
+
+  public BitmapRangeIndexCreator(File indexDir, FieldSpec spec, int cardinality, int numDocs) {
+    this(indexDir, spec, cardinality, numDocs, DEFAULT_NUM_BUCKETS);
+  }
+
+  public BitmapRangeIndexCreator(File indexDir, FieldSpec spec, int cardinality, int numDocs, int numBuckets) {
+    Preconditions.checkArgument(spec.isSingleValueField(), "Range index is only supported for single value columns");
+    Preconditions.checkArgument(cardinality > 0, "Cardinality:%s must > 0", cardinality);
+    Preconditions.checkArgument(numDocs > 0, "numDocs:%s must > 0", numDocs);
+    Preconditions.checkArgument(numBuckets > 0, "numBuckets:%s must > 0", numBuckets);
+    this.rangeIndexFile = new File(indexDir, spec.getName() + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+    this.spec = spec;
+    this.cardinality = cardinality;
+    this.numDocs = numDocs;
+    this.numBuckets = numBuckets;
+    this.docDictIds = new int[numDocs];
+    this.dictIdCounts = new int[cardinality];
+    this.start = System.currentTimeMillis();
+  }
+
+  public void add(int docId, int dictionaryId) {
+    docDictIds[docId] = dictionaryId;
+    dictIdCounts[dictionaryId]++;
+  }
+
+  public void seal()
+      throws IOException {
+    int[] bucketStarts = computeBucketStarts(dictIdCounts, numDocs, numBuckets);
+    int actualNumBuckets = bucketStarts.length - 1;
+
+    int[] dictIdToBucket = new int[cardinality];
+    for (int bucket = 0; bucket < actualNumBuckets; bucket++) {
+      Arrays.fill(dictIdToBucket, bucketStarts[bucket], bucketStarts[bucket + 1], bucket);
+    }
+    MutableRoaringBitmap[] bitmaps = new MutableRoaringBitmap[actualNumBuckets];
+    for (int bucket = 0; bucket < actualNumBuckets; bucket++) {
+      bitmaps[bucket] = new MutableRoaringBitmap();
+    }
+    for (int docId = 0; docId < numDocs; docId++) {
+      bitmaps[dictIdToBucket[docDictIds[docId]]].add(docId);
+    }
+
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(rangeIndexFile)));
+      out.writeInt(actualNumBuckets);
+      for (int bucketStart : bucketStarts) {
+        out.writeInt(bucketStart);
+      }
+      int offset = INT_SIZE * (1 + 2 * (actualNumBuckets + 1));
+      out.writeInt(offset);
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        offset += bitmap.serializedSizeInBytes();
+        out.writeInt(offset);
+      }
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        bitmap.serialize(out);
+      }
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+    LOGGER.debug("persisted range index with {} buckets for column: {} in {} ms", actualNumBuckets, spec.getName(),
+        System.currentTimeMillis() - start);
+  }
+
+  public File getRangeIndexFile() {
+    return rangeIndexFile;
+  }
+
+  /**
+   * Splits the dictionary ids into at most numBuckets contiguous buckets of roughly numDocs / numBuckets
+   * documents each. A single dictionary id is never split, so heavy hitters get a bucket of their own.
+   *
+   * @return start dictionary id of each bucket, followed by the cardinality
+   */
+  static int[] computeBucketStarts(int[] dictIdCounts, int numDocs, int numBuckets) {
+    int cardinality = dictIdCounts.length;
+    int targetDocsPerBucket = (numDocs + numBuckets - 1) / numBuckets;
+    int[] bucketStarts = new int[Math.min(numBuckets, cardinality) + 1];
+    int numBucketStarts = 1;
+    int docsInBucket = 0;
+    for (int dictId = 0; dictId < cardinality - 1 && numBucketStarts < bucketStarts.length - 1; dictId++) {
+      docsInBucket += dictIdCounts[dictId];
+      if (docsInBucket >= targetDocsPerBucket) {
+        bucketStarts[numBucketStarts++] = dictId + 1;
+        docsInBucket = 0;
+      }
+    }
+    bucketStarts[numBucketStarts++] = cardinality;
+    return Arrays.copyOf(bucketStarts, numBucketStarts);
+  }
+}
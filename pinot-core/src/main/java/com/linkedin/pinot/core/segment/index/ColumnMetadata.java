@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.segment.index;
 
+import com.linkedin.pinot.common.segment.ColumnValueRange;
 import com.linkedin.pinot.common.utils.time.TimeUtils;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import java.lang.reflect.Field;
@@ -52,7 +53,9 @@ public class ColumnMetadata {
   private final boolean containsNulls;
   private final TimeUnit timeunit;
   private final boolean hasDictionary;
+  private final boolean hasBlockMinMax;
   private final int totalNumberOfEntries;
+  private final ColumnValueRange valueRange;
 
   public static ColumnMetadata fromPropertiesConfiguration(String column, PropertiesConfiguration config) {
     Builder builder = new Builder();
@@ -133,11 +136,25 @@ public class ColumnMetadata {
             .getKeyFor(column, V1Constants.MetadataKeys.Column.HAS_DICTIONARY), true);
     builder.setHasDictionary(hasDictionary);
 
+    final boolean hasBlockMinMax =
+        config.getBoolean(V1Constants.MetadataKeys.Column
+            .getKeyFor(column, V1Constants.MetadataKeys.Column.HAS_BLOCK_MIN_MAX), false);
+    builder.setHasBlockMinMax(hasBlockMinMax);
+
     final int totalNumberOfEntries =
         config.getInt(V1Constants.MetadataKeys.Column
             .getKeyFor(column, V1Constants.MetadataKeys.Column.TOTAL_NUMBER_OF_ENTRIES));
     builder.setTotalNumberOfEntries(totalNumberOfEntries);
 
+    // Older segments do not have min and max values
+    Object minValue =
+        config.getProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, V1Constants.MetadataKeys.Column.MIN_VALUE));
+    Object maxValue =
+        config.getProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, V1Constants.MetadataKeys.Column.MAX_VALUE));
+    if (minValue instanceof String && maxValue instanceof String) {
+      builder.setValueRange(ColumnValueRange.fromStrings(dataType, (String) minValue, (String) maxValue));
+    }
+
     return builder.build();
   }
 
@@ -156,9 +173,11 @@ public class ColumnMetadata {
     private boolean containsNulls;
     private TimeUnit timeunit;
     private boolean hasDictionary;
+    private boolean hasBlockMinMax;
     private int totalNumberOfEntries;
     private int totalRawDocs;
     private int totalAggDocs;
+    private ColumnValueRange valueRange;
 
     public Builder setColumnName(String columnName) {
       this.columnName = columnName;
@@ -230,6 +249,11 @@ public class ColumnMetadata {
       return this;
     }
 
+    public Builder setHasBlockMinMax(boolean hasBlockMinMax) {
+      this.hasBlockMinMax = hasBlockMinMax;
+      return this;
+    }
+
     public Builder setTotalNumberOfEntries(int totalNumberOfEntries) {
       this.totalNumberOfEntries = totalNumberOfEntries;
       return this;
@@ -245,11 +269,16 @@ public class ColumnMetadata {
       return this;
     }
 
+    public Builder setValueRange(ColumnValueRange valueRange) {
+      this.valueRange = valueRange;
+      return this;
+    }
+
     public ColumnMetadata build() {
       return new ColumnMetadata(columnName, cardinality, totalRawDocs, totalAggDocs,totalDocs, dataType, bitsPerElement,
       stringColumnMaxLength, fieldType, isSorted, hasInvertedIndex,
-      inSingleValue, maxNumberOfMultiValues, containsNulls, hasDictionary, timeunit,
-      totalNumberOfEntries);
+      inSingleValue, maxNumberOfMultiValues, containsNulls, hasDictionary, hasBlockMinMax, timeunit,
+      totalNumberOfEntries, valueRange);
     }
 
 
@@ -261,8 +290,8 @@ public class ColumnMetadata {
 
   private ColumnMetadata(String columnName, int cardinality, int totalRawDocs, int totalAggDocs, int totalDocs, DataType dataType, int bitsPerElement,
       int stringColumnMaxLength, FieldType fieldType, boolean isSorted, boolean hasInvertedIndex,
-      boolean insSingleValue, int maxNumberOfMultiValues, boolean hasNulls, boolean hasDictionary, TimeUnit timeunit,
-      int totalNumberOfEntries) {
+      boolean insSingleValue, int maxNumberOfMultiValues, boolean hasNulls, boolean hasDictionary,
+      boolean hasBlockMinMax, TimeUnit timeunit, int totalNumberOfEntries, ColumnValueRange valueRange) {
 
     this.columnName = columnName;
     this.cardinality = cardinality;
@@ -280,7 +309,9 @@ public class ColumnMetadata {
     this.containsNulls = hasNulls;
     this.timeunit = timeunit;
     this.hasDictionary = hasDictionary;
+    this.hasBlockMinMax = hasBlockMinMax;
     this.totalNumberOfEntries = totalNumberOfEntries;
+    this.valueRange = valueRange;
   }
 
   public String getColumnName() {
@@ -392,4 +423,18 @@ public class ColumnMetadata {
   public boolean hasDictionary() {
     return hasDictionary;
   }
+
+  /**
+   * @return true if the forward index is in the v3 format, with the min and max dictionary id of each block of rows
+   */
+  public boolean hasBlockMinMax() {
+    return hasBlockMinMax;
+  }
+
+  /**
+   * @return min and max value of the column, null if they are not in the segment metadata
+   */
+  public ColumnValueRange getValueRange() {
+    return valueRange;
+  }
 }
@@ -31,7 +31,7 @@ import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
-import com.linkedin.pinot.core.startree.StarTree;
+import com.linkedin.pinot.core.startree.OffHeapStarTree;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -44,10 +44,10 @@ public class IndexSegmentImpl implements IndexSegment {
   private SegmentDirectory segmentDirectory;
   private final SegmentMetadataImpl segmentMetadata;
   private final Map<String, ColumnIndexContainer> indexContainerMap;
-  private final StarTree starTree;
+  private final OffHeapStarTree starTree;
 
   public IndexSegmentImpl(SegmentDirectory segmentDirectory, SegmentMetadataImpl segmentMetadata,
-      Map<String, ColumnIndexContainer> columnIndexContainerMap, StarTree starTree) throws Exception {
+      Map<String, ColumnIndexContainer> columnIndexContainerMap, OffHeapStarTree starTree) throws Exception {
     this.segmentDirectory = segmentDirectory;
     this.segmentMetadata = segmentMetadata;
     this.indexContainerMap = columnIndexContainerMap;
@@ -106,7 +106,9 @@ public class IndexSegmentImpl implements IndexSegment {
     LOGGER.info("Trying to destroy segment : {}", this.getSegmentName());
     for (String column : indexContainerMap.keySet()) {
       try {
-        indexContainerMap.get(column).getDictionary().close();
+        if (indexContainerMap.get(column).getDictionary() != null) {
+          indexContainerMap.get(column).getDictionary().close();
+        }
       } catch (Exception e) {
         LOGGER.error("Error when close dictionary index for column : " + column, e);
       }
@@ -123,6 +125,13 @@ public class IndexSegmentImpl implements IndexSegment {
         LOGGER.error("Error when close inverted index for column : " + column, e);
       }
     }
+    if (starTree != null) {
+      try {
+        starTree.close();
+      } catch (Exception e) {
+        LOGGER.error("Error when close star tree for segment : " + getSegmentName(), e);
+      }
+    }
     try {
       segmentDirectory.close();
     } catch (Exception e) {
@@ -132,7 +141,7 @@ public class IndexSegmentImpl implements IndexSegment {
   }
 
   @Override
-  public StarTree getStarTree() {
+  public OffHeapStarTree getStarTree() {
     return starTree;
   }
 
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.segment.index;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import com.linkedin.pinot.common.segment.ColumnValueRange;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.segment.StarTreeMetadata;
 import com.linkedin.pinot.common.utils.time.TimeUtils;
@@ -69,6 +70,7 @@ public class SegmentMetadataImpl implements SegmentMetadata {
   private SegmentVersion _segmentVersion;
   private boolean _hasStarTree;
   private StarTreeMetadata _starTreeMetadata = null;
+  private final Map<String, ColumnValueRange> _columnValueRanges = new HashMap<>();
 
   public SegmentMetadataImpl(File indexDir) throws ConfigurationException, IOException {
     LOGGER.debug("SegmentMetadata location: {}", indexDir);
@@ -113,6 +115,7 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     _creationTime = offlineSegmentZKMetadata.getCreationTime();
     _pushTime = offlineSegmentZKMetadata.getPushTime();
     _refreshTime = offlineSegmentZKMetadata.getRefreshTime();
+    _columnValueRanges.putAll(offlineSegmentZKMetadata.getColumnValueRanges());
     setTimeIntervalAndGranularity();
     _columnMetadataMap = null;
     _segmentName = offlineSegmentZKMetadata.getSegmentName();
@@ -251,7 +254,11 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     _segmentName = _segmentMetadataPropertiesConfiguration.getString(V1Constants.MetadataKeys.Segment.SEGMENT_NAME);
 
     for (final String column : _allColumns) {
-      _columnMetadataMap.put(column, extractColumnMetadataFor(column));
+      ColumnMetadata columnMetadata = extractColumnMetadataFor(column);
+      _columnMetadataMap.put(column, columnMetadata);
+      if (columnMetadata.getValueRange() != null) {
+        _columnValueRanges.put(column, columnMetadata.getValueRange());
+      }
     }
 
     for (final String column : _columnMetadataMap.keySet()) {
@@ -474,6 +481,11 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     return _starTreeMetadata;
   }
 
+  @Override
+  public Map<String, ColumnValueRange> getColumnValueRanges() {
+    return _columnValueRanges;
+  }
+
   @Override
   public String getForwardIndexFileName(String column, String segmentVersion) {
     ColumnMetadata columnMetadata = getColumnMetadataFor(column);
@@ -483,7 +495,9 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     // fileNameBuilder.append("_").append(segmentVersion);
     // }
     if (columnMetadata.isSingleValue()) {
-      if (columnMetadata.isSorted()) {
+      if (!columnMetadata.hasDictionary()) {
+        fileNameBuilder.append(V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION);
+      } else if (columnMetadata.isSorted()) {
         fileNameBuilder.append(V1Constants.Indexes.SORTED_FWD_IDX_FILE_EXTENTION);
       } else {
         fileNameBuilder.append(V1Constants.Indexes.UN_SORTED_SV_FWD_IDX_FILE_EXTENTION);
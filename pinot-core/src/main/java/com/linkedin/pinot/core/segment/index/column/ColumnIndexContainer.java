@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.segment.index.column;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
 import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.io.reader.ReaderContext;
@@ -23,8 +24,12 @@ import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.FixedByteSingleValueMultiColReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitMultiValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.FixedByteSingleValueReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.VarByteChunkSingleValueReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
@@ -42,6 +47,8 @@ import org.slf4j.LoggerFactory;
 public abstract class ColumnIndexContainer {
   private static final Logger LOGGER = LoggerFactory.getLogger(ColumnIndexContainer.class);
 
+  private BloomFilterReader bloomFilter;
+
   public static ColumnIndexContainer init(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
       IndexLoadingConfigMetadata indexLoadingConfigMetadata)
       throws IOException {
@@ -52,8 +59,23 @@ public abstract class ColumnIndexContainer {
         loadInverted = indexLoadingConfigMetadata.getLoadingInvertedIndexColumns().contains(metadata.getColumnName());
       }
     }
+    ColumnIndexContainer container = load(column, segmentReader, metadata, loadInverted);
+    // Bloom filter is independent of the column encoding, attach it whenever present
+    if (segmentReader.hasIndexFor(column, ColumnIndexType.BLOOM_FILTER)) {
+      container.bloomFilter = new BloomFilterReader(segmentReader.getIndexFor(column, ColumnIndexType.BLOOM_FILTER));
+    }
+    return container;
+  }
+
+  private static ColumnIndexContainer load(String column, SegmentDirectory.Reader segmentReader,
+      ColumnMetadata metadata, boolean loadInverted)
+      throws IOException {
+    if (!metadata.hasDictionary()) {
+      return loadRaw(column, segmentReader, metadata);
+    }
+
     PinotDataBuffer dictionaryBuffer = segmentReader.getIndexFor(column, ColumnIndexType.DICTIONARY);
-    ImmutableDictionaryReader dictionary = load(metadata, dictionaryBuffer);
+    ImmutableDictionaryReader dictionary = loadDictionary(metadata, dictionaryBuffer);
 
     if (metadata.isSorted() && metadata.isSingleValue()) {
       return loadSorted(column, segmentReader, metadata, dictionary);
@@ -94,9 +116,7 @@ public abstract class ColumnIndexContainer {
       throws IOException {
 
     PinotDataBuffer fwdIndexBuffer = segmentReader.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
-    SingleColumnSingleValueReader fwdIndexReader =
-        new FixedBitSingleValueReader(fwdIndexBuffer, metadata.getTotalDocs(),
-            metadata.getBitsPerElement(), metadata.hasNulls());
+    SingleColumnSingleValueReader fwdIndexReader = loadUnsortedForwardIndex(metadata, fwdIndexBuffer);
 
     BitmapInvertedIndexReader invertedIndex = null;
 
@@ -105,8 +125,43 @@ public abstract class ColumnIndexContainer {
       invertedIndex = new BitmapInvertedIndexReader(invertedIndexBuffer, metadata.getCardinality());
     }
 
+    // Range index is built either at segment creation or by the SegmentPreProcessor, load it whenever present
+    BitmapRangeIndexReader rangeIndex = null;
+    if (segmentReader.hasIndexFor(column, ColumnIndexType.RANGE_INDEX)) {
+      rangeIndex = new BitmapRangeIndexReader(segmentReader.getIndexFor(column, ColumnIndexType.RANGE_INDEX));
+    }
+
     return new UnsortedSVColumnIndexContainer(column, metadata, fwdIndexReader, dictionary,
-        invertedIndex);
+        invertedIndex, rangeIndex);
+  }
+
+  /**
+   * Returns the reader of the forward index of an unsorted single value column with a dictionary, in the format
+   * given by the column metadata.
+   */
+  public static SingleColumnSingleValueReader loadUnsortedForwardIndex(ColumnMetadata metadata,
+      PinotDataBuffer fwdIndexBuffer) {
+    if (metadata.hasBlockMinMax()) {
+      return new com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader(fwdIndexBuffer,
+          metadata.getTotalDocs(), metadata.getBitsPerElement());
+    }
+    return new FixedBitSingleValueReader(fwdIndexBuffer, metadata.getTotalDocs(), metadata.getBitsPerElement(),
+        metadata.hasNulls());
+  }
+
+  private static ColumnIndexContainer loadRaw(String column, SegmentDirectory.Reader segmentReader,
+      ColumnMetadata metadata)
+      throws IOException {
+    PinotDataBuffer fwdIndexBuffer = segmentReader.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
+    SingleColumnSingleValueReader fwdIndexReader;
+    if (metadata.getDataType() == FieldSpec.DataType.STRING) {
+      fwdIndexReader = new VarByteChunkSingleValueReader(fwdIndexBuffer);
+    } else {
+      fwdIndexReader =
+          new FixedByteSingleValueReader(fwdIndexBuffer, metadata.getTotalDocs(), metadata.getDataType().size(),
+              metadata.hasNulls());
+    }
+    return new UnsortedSVColumnIndexContainer(column, metadata, fwdIndexReader, null);
   }
 
   private static ColumnIndexContainer loadSorted(String column, SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
@@ -120,7 +175,7 @@ public abstract class ColumnIndexContainer {
     return new SortedSVColumnIndexContainer(column, metadata, indexReader, dictionary);
   }
 
-  private static ImmutableDictionaryReader load(ColumnMetadata metadata, PinotDataBuffer dictionaryBuffer) {
+  public static ImmutableDictionaryReader loadDictionary(ColumnMetadata metadata, PinotDataBuffer dictionaryBuffer) {
     switch (metadata.getDataType()) {
       case INT:
         return new IntDictionary(dictionaryBuffer, metadata);
@@ -143,6 +198,31 @@ public abstract class ColumnIndexContainer {
    */
   public abstract InvertedIndexReader getInvertedIndex();
 
+  /**
+   * @return range index of the column, null if it does not have one
+   */
+  public BitmapRangeIndexReader getRangeIndex() {
+    return null;
+  }
+
+  /**
+   * @return bloom filter of the column, null if it does not have one
+   */
+  public BloomFilterReader getBloomFilter() {
+    return bloomFilter;
+  }
+
+  /**
+   * Closes the bloom filter if the column has one, called from {@link #unload()}.
+   * @throws IOException
+   */
+  protected void unloadBloomFilter()
+      throws IOException {
+    if (bloomFilter != null) {
+      bloomFilter.close();
+    }
+  }
+
   /**
    * @return
    */
@@ -68,6 +68,7 @@ public class SortedSVColumnIndexContainer extends ColumnIndexContainer {
     indexFileReader.close();
     dictionaryReader.close();
     forwardIndexReader.close();
+    unloadBloomFilter();
     return true;
   }
 
@@ -73,6 +73,7 @@ public class UnSortedMVColumnIndexContainer extends ColumnIndexContainer {
     if (invertedIndexReader != null) {
       invertedIndexReader.close();
     }
+    unloadBloomFilter();
     return true;
   }
 
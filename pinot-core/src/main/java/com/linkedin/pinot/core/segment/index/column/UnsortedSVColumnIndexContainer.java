@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.segment.index.column;
 
 import com.linkedin.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
@@ -30,6 +31,7 @@ public class UnsortedSVColumnIndexContainer extends ColumnIndexContainer {
   private final SingleColumnSingleValueReader indexReader;
   private final ImmutableDictionaryReader dictionary;
   private final BitmapInvertedIndexReader invertedIndexReader;
+  private final BitmapRangeIndexReader rangeIndexReader;
 
   public UnsortedSVColumnIndexContainer(String column, ColumnMetadata columnMetadata,
       SingleColumnSingleValueReader indexReader, ImmutableDictionaryReader dictionary) {
@@ -39,11 +41,18 @@ public class UnsortedSVColumnIndexContainer extends ColumnIndexContainer {
   public UnsortedSVColumnIndexContainer(String column, ColumnMetadata columnMetadata,
       SingleColumnSingleValueReader indexReader, ImmutableDictionaryReader dictionary,
       BitmapInvertedIndexReader invertedIndex) {
+    this(column, columnMetadata, indexReader, dictionary, invertedIndex, null);
+  }
+
+  public UnsortedSVColumnIndexContainer(String column, ColumnMetadata columnMetadata,
+      SingleColumnSingleValueReader indexReader, ImmutableDictionaryReader dictionary,
+      BitmapInvertedIndexReader invertedIndex, BitmapRangeIndexReader rangeIndex) {
     this.column = column;
     this.columnMetadata = columnMetadata;
     this.indexReader = indexReader;
     this.dictionary = dictionary;
     this.invertedIndexReader = invertedIndex;
+    this.rangeIndexReader = rangeIndex;
   }
 
   @Override
@@ -51,6 +60,11 @@ public class UnsortedSVColumnIndexContainer extends ColumnIndexContainer {
     return invertedIndexReader;
   }
 
+  @Override
+  public BitmapRangeIndexReader getRangeIndex() {
+    return rangeIndexReader;
+  }
+
   @Override
   public DataFileReader getForwardIndex() {
     return indexReader;
@@ -69,10 +83,17 @@ public class UnsortedSVColumnIndexContainer extends ColumnIndexContainer {
   @Override
   public boolean unload() throws Exception {
     indexReader.close();
-    dictionary.close();
+    // Columns stored raw have no dictionary
+    if (dictionary != null) {
+      dictionary.close();
+    }
     if (invertedIndexReader != null) {
       invertedIndexReader.close();
     }
+    if (rangeIndexReader != null) {
+      rangeIndexReader.close();
+    }
+    unloadBloomFilter();
     return true;
   }
 }
@@ -53,8 +53,8 @@ public class SegmentFormatConverterV1ToV2 implements SegmentFormatConverter {
     SegmentDirectory.Writer segmentWriter = segmentDirectory.createWriter();
     for (String column : columns) {
       ColumnMetadata columnMetadata = segmentMetadataImpl.getColumnMetadataFor(column);
-      if (columnMetadata.isSorted()) {
-        // no need to change sorted forward index
+      if (columnMetadata.isSorted() || columnMetadata.hasBlockMinMax()) {
+        // no need to change sorted forward index, or the v3 forward index
         continue;
       }
       PinotDataBuffer fwdIndexBuffer = segmentWriter.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
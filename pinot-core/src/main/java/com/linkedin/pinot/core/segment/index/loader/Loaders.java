@@ -27,7 +27,7 @@ import com.linkedin.pinot.core.segment.index.converter.SegmentFormatConverter;
 import com.linkedin.pinot.core.segment.index.converter.SegmentFormatConverterFactory;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
 import com.linkedin.pinot.core.segment.store.SegmentDirectoryPaths;
-import com.linkedin.pinot.core.startree.StarTree;
+import com.linkedin.pinot.core.startree.OffHeapStarTree;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
@@ -83,10 +83,10 @@ public class Loaders {
       }
 
       // load star tree index if it exists
-      StarTree starTree = null;
+      OffHeapStarTree starTree = null;
       if (segmentReader.hasStarTree()) {
         LOGGER.debug("Loading star tree for segment: {}", segmentDirectory);
-        starTree = StarTree.fromBytes(segmentReader.getStarTreeStream());
+        starTree = OffHeapStarTree.fromBuffer(segmentReader.getStarTreeBuffer());
       }
       return new IndexSegmentImpl(segmentDirectory, metadata, indexContainerMap, starTree);
     }
@@ -25,10 +25,13 @@ import com.linkedin.pinot.core.io.reader.ReaderContext;
 import com.linkedin.pinot.core.io.reader.SingleColumnMultiValueReader;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitMultiValueReader;
-import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OffHeapBitmapInvertedIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.range.BitmapRangeIndexCreator;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import com.linkedin.pinot.core.segment.store.ColumnIndexType;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
@@ -41,7 +44,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * mmap()'s the segment and performs any pre-processing to generate inverted index
+ * mmap()'s the segment and performs any pre-processing to generate inverted and range indexes, and bloom filters
  * This can be slow
  */
 public class SegmentPreProcessor implements AutoCloseable {
@@ -75,6 +78,8 @@ public class SegmentPreProcessor implements AutoCloseable {
     try {
       segmentWriter = segmentDirectory.createWriter();
       addRemoveInvertedIndices(segmentWriter);
+      addRangeIndices(segmentWriter);
+      addBloomFilters(segmentWriter);
     } finally {
       if (segmentWriter != null) {
         try {
@@ -96,14 +101,27 @@ public class SegmentPreProcessor implements AutoCloseable {
     }
   }
 
+  private void addRangeIndices(SegmentDirectory.Writer segmentWriter)
+      throws IOException {
+    for (String column : getRangeIndexColumnList()) {
+      createRangeIndex(segmentWriter, metadata.getColumnMetadataFor(column));
+    }
+  }
+
+  private void addBloomFilters(SegmentDirectory.Writer segmentWriter)
+      throws IOException {
+    for (String column : getBloomFilterColumnList()) {
+      createBloomFilter(segmentWriter, metadata.getColumnMetadataFor(column));
+    }
+  }
+
   private DataFileReader getForwardIndexReader(ColumnMetadata columnMetadata, SegmentDirectory.Writer segmentWriter)
       throws IOException {
     PinotDataBuffer indexBuffer = segmentWriter.getIndexFor(columnMetadata.getColumnName(), ColumnIndexType.FORWARD_INDEX);
     DataFileReader reader;
     if (columnMetadata.isSingleValue()) {
       SingleColumnSingleValueReader fwdIndexReader =
-        new FixedBitSingleValueReader(indexBuffer, columnMetadata.getTotalDocs(),
-            columnMetadata.getBitsPerElement(), columnMetadata.hasNulls());
+          ColumnIndexContainer.loadUnsortedForwardIndex(columnMetadata, indexBuffer);
       reader = fwdIndexReader;
     } else {
       SingleColumnMultiValueReader<? extends ReaderContext> fwdIndexReader =
@@ -150,27 +168,112 @@ public class SegmentPreProcessor implements AutoCloseable {
         creator.add(i, dictIds, len);
       }
     } else {
-      FixedBitSingleValueReader svFwdIndex = (FixedBitSingleValueReader) fwdIndex;
+      SingleColumnSingleValueReader svFwdIndex = (SingleColumnSingleValueReader) fwdIndex;
       for (int i = 0; i < columnMetadata.getTotalDocs(); i++) {
         creator.add(i, svFwdIndex.getInt(i));
       }
     }
     creator.seal();
-    File invertedIndexFile = creator.getInvertedIndexFile();
-    // Inverted index creation does not know the size upfront so
+    writeIndexToSegment(segmentWriter, column, ColumnIndexType.INVERTED_INDEX, creator.getInvertedIndexFile());
+
+    // delete the marker file
+    FileUtils.deleteQuietly(inProgress);
+
+    LOGGER.info("Created inverted index for segment: {}, colummn {}", segmentName, column);
+  }
+
+  private void createRangeIndex(SegmentDirectory.Writer segmentWriter, ColumnMetadata columnMetadata)
+      throws IOException {
+    String segmentName = segmentWriter.toString();
+    String column = columnMetadata.getColumnName();
+    File inProgress = new File(segmentWriter.toSegmentDirectory().getPath().toFile(),
+        column + "_range.inprogress");
+
+    if (!inProgress.exists() && segmentWriter.hasIndexFor(column, ColumnIndexType.RANGE_INDEX)) {
+      LOGGER.info("Found range index for segment: {}, column {}, loading it", segmentName, column);
+      return;
+    }
+
+    FileUtils.touch(inProgress);
+    if (segmentWriter.hasIndexFor(column, ColumnIndexType.RANGE_INDEX)) {
+      LOGGER.info("Deleting stale range index for segment: {}, column: {}", segmentName, column);
+      segmentWriter.removeIndex(column, ColumnIndexType.RANGE_INDEX);
+    }
+
+    LOGGER.info("Creating new range index for segment: {}, column: {}", segmentName, column);
+
+    BitmapRangeIndexCreator creator =
+        new BitmapRangeIndexCreator(indexDir, columnMetadata.toFieldSpec(), columnMetadata.getCardinality(),
+            columnMetadata.getTotalDocs());
+    SingleColumnSingleValueReader svFwdIndex =
+        (SingleColumnSingleValueReader) getForwardIndexReader(columnMetadata, segmentWriter);
+    for (int i = 0; i < columnMetadata.getTotalDocs(); i++) {
+      creator.add(i, svFwdIndex.getInt(i));
+    }
+    creator.seal();
+    writeIndexToSegment(segmentWriter, column, ColumnIndexType.RANGE_INDEX, creator.getRangeIndexFile());
+
+    FileUtils.deleteQuietly(inProgress);
+
+    LOGGER.info("Created range index for segment: {}, column {}", segmentName, column);
+  }
+
+  private void createBloomFilter(SegmentDirectory.Writer segmentWriter, ColumnMetadata columnMetadata)
+      throws IOException {
+    String segmentName = segmentWriter.toString();
+    String column = columnMetadata.getColumnName();
+    File inProgress = new File(segmentWriter.toSegmentDirectory().getPath().toFile(),
+        column + "_bloom.inprogress");
+
+    if (!inProgress.exists() && segmentWriter.hasIndexFor(column, ColumnIndexType.BLOOM_FILTER)) {
+      LOGGER.info("Found bloom filter for segment: {}, column {}, loading it", segmentName, column);
+      return;
+    }
+
+    FileUtils.touch(inProgress);
+    if (segmentWriter.hasIndexFor(column, ColumnIndexType.BLOOM_FILTER)) {
+      LOGGER.info("Deleting stale bloom filter for segment: {}, column: {}", segmentName, column);
+      segmentWriter.removeIndex(column, ColumnIndexType.BLOOM_FILTER);
+    }
+
+    LOGGER.info("Creating new bloom filter for segment: {}, column: {}", segmentName, column);
+
+    // The dictionary holds exactly the distinct values the filter needs
+    ImmutableDictionaryReader dictionary = ColumnIndexContainer.loadDictionary(columnMetadata,
+        segmentWriter.getIndexFor(column, ColumnIndexType.DICTIONARY));
+    BloomFilterCreator creator = new BloomFilterCreator(indexDir, column, dictionary.length());
+    for (int i = 0; i < dictionary.length(); i++) {
+      creator.add(dictionary.get(i));
+    }
+    creator.seal();
+    writeIndexToSegment(segmentWriter, column, ColumnIndexType.BLOOM_FILTER, creator.getBloomFilterFile());
+
+    FileUtils.deleteQuietly(inProgress);
+
+    LOGGER.info("Created bloom filter for segment: {}, column {}", segmentName, column);
+  }
+
+  /**
+   * Copies an index file created outside the segment directory into the segment, replacing any existing index
+   * of the same type.
+   */
+  private void writeIndexToSegment(SegmentDirectory.Writer segmentWriter, String column, ColumnIndexType indexType,
+      File indexFile)
+      throws IOException {
+    // Index creation does not know the size upfront so
     // we create it in a temporary file and then move to the main
     // file. For v1/v2 format, this is an overkill but it's required
     // to avoid corruption of v3 format
-    File tempFile = new File(invertedIndexFile + ".temp");
+    File tempFile = new File(indexFile + ".temp");
     if (tempFile.exists()) {
       FileUtils.deleteQuietly(tempFile);
     }
-    FileUtils.moveFile(invertedIndexFile, tempFile);
+    FileUtils.moveFile(indexFile, tempFile);
     PinotDataBuffer newIndexBuffer = null;
 
     try {
-      if (segmentWriter.hasIndexFor(column, ColumnIndexType.INVERTED_INDEX)) {
-        PinotDataBuffer tempBuffer = segmentWriter.getIndexFor(column, ColumnIndexType.INVERTED_INDEX);
+      if (segmentWriter.hasIndexFor(column, indexType)) {
+        PinotDataBuffer tempBuffer = segmentWriter.getIndexFor(column, indexType);
 
         // almost always we will have matching size since segment data is immutable
         // but it's good to double check
@@ -178,19 +281,18 @@ public class SegmentPreProcessor implements AutoCloseable {
           newIndexBuffer = tempBuffer;
         } else {
           if (segmentWriter.isIndexRemovalSupported()) {
-            segmentWriter.removeIndex(column, ColumnIndexType.INVERTED_INDEX);
-            newIndexBuffer = segmentWriter.newIndexFor(column, ColumnIndexType.INVERTED_INDEX, (int) tempFile.length());
+            segmentWriter.removeIndex(column, indexType);
+            newIndexBuffer = segmentWriter.newIndexFor(column, indexType, (int) tempFile.length());
           } else {
-            LOGGER.error("Segment: {} already has inverted index that can not be removed. Throwing exception to discard and download segment",
-                segmentWriter);
-            throw new IllegalStateException("Inverted Index exists and can not be removed for segment: " +
+            LOGGER.error("Segment: {} already has {} that can not be removed. Throwing exception to discard and download segment",
+                segmentWriter, indexType);
+            throw new IllegalStateException(indexType + " exists and can not be removed for segment: " +
                 segmentWriter +
                 ". Throwing exception to download fresh segment");
           }
         }
       } else { // there was no index earlier
-        newIndexBuffer = segmentWriter.newIndexFor(column,
-            ColumnIndexType.INVERTED_INDEX, (int) tempFile.length());
+        newIndexBuffer = segmentWriter.newIndexFor(column, indexType, (int) tempFile.length());
       }
       newIndexBuffer.readFrom(tempFile);
     } finally {
@@ -198,12 +300,46 @@ public class SegmentPreProcessor implements AutoCloseable {
         newIndexBuffer.close();
       }
     }
-
-    // delete the marker file
-    FileUtils.deleteQuietly(inProgress);
     FileUtils.deleteQuietly(tempFile);
+  }
 
-    LOGGER.info("Created inverted index for segment: {}, colummn {}", segmentName, column);
+  private Set<String> getRangeIndexColumnList() {
+    Set<String> rangeIndexColumns = new HashSet<>();
+    if (!indexConfig.isPresent()) {
+      return rangeIndexColumns;
+    }
+    for (String column : indexConfig.get().getLoadingRangeIndexColumns()) {
+      ColumnMetadata columnMetadata = metadata.getColumnMetadataFor(column);
+      if (columnMetadata == null) {
+        continue;
+      }
+      if (!columnMetadata.hasDictionary() || !columnMetadata.isSingleValue() || columnMetadata.isSorted()) {
+        LOGGER.warn("Skipping range index for column: {} since it is not an unsorted single value column with dictionary",
+            column);
+        continue;
+      }
+      rangeIndexColumns.add(column);
+    }
+    return rangeIndexColumns;
+  }
+
+  private Set<String> getBloomFilterColumnList() {
+    Set<String> bloomFilterColumns = new HashSet<>();
+    if (!indexConfig.isPresent()) {
+      return bloomFilterColumns;
+    }
+    for (String column : indexConfig.get().getLoadingBloomFilterColumns()) {
+      ColumnMetadata columnMetadata = metadata.getColumnMetadataFor(column);
+      if (columnMetadata == null) {
+        continue;
+      }
+      if (!columnMetadata.hasDictionary()) {
+        LOGGER.warn("Skipping bloom filter for column: {} since it has no dictionary", column);
+        continue;
+      }
+      bloomFilterColumns.add(column);
+    }
+    return bloomFilterColumns;
   }
 
   private Set<String> getInvertedIndexColumnList() {
@@ -220,6 +356,10 @@ public class SegmentPreProcessor implements AutoCloseable {
       if (columnMetadata == null) {
         continue;
       }
+      if (!columnMetadata.hasDictionary()) {
+        LOGGER.warn("Skipping inverted index for column: {} since it has no dictionary", column);
+        continue;
+      }
       if (! columnMetadata.isSorted()) {
         invertedIndexColumnConfig.add(column);
       }
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.IOException;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Reader for the bucketed bitmap range index written by BitmapRangeIndexCreator.
+ * Bucket i holds all documents whose dictionary id is in [getBucketStartDictId(i), getBucketEndDictId(i)].
+ */
+public class BitmapRangeIndexReader {
+  private static final int INT_SIZE_IN_BYTES = Integer.SIZE / Byte.SIZE;
+
+  private final PinotDataBuffer buffer;
+  private final int numBuckets;
+  private final int[] bucketStarts;
+  private final ImmutableRoaringBitmap[] bitmaps;
+
+  public BitmapRangeIndexReader(PinotDataBuffer indexDataBuffer) {
+    buffer = indexDataBuffer;
+    numBuckets = buffer.getInt(0);
+
+    bucketStarts = new int[numBuckets + 1];
+    int bucketStartsOffset = INT_SIZE_IN_BYTES;
+    for (int i = 0; i <= numBuckets; i++) {
+      bucketStarts[i] = buffer.getInt(bucketStartsOffset + i * INT_SIZE_IN_BYTES);
+    }
+
+    // The number of buckets is small, so map all of them up front
+    bitmaps = new ImmutableRoaringBitmap[numBuckets];
+    int bitmapOffsetsOffset = bucketStartsOffset + (numBuckets + 1) * INT_SIZE_IN_BYTES;
+    for (int i = 0; i < numBuckets; i++) {
+      int currentOffset = buffer.getInt(bitmapOffsetsOffset + i * INT_SIZE_IN_BYTES);
+      int nextOffset = buffer.getInt(bitmapOffsetsOffset + (i + 1) * INT_SIZE_IN_BYTES);
+      bitmaps[i] = new ImmutableRoaringBitmap(buffer.toDirectByteBuffer(currentOffset, nextOffset - currentOffset));
+    }
+  }
+
+  public int getNumBuckets() {
+    return numBuckets;
+  }
+
+  /**
+   * @return first dictionary id in the bucket (inclusive)
+   */
+  public int getBucketStartDictId(int bucket) {
+    return bucketStarts[bucket];
+  }
+
+  /**
+   * @return last dictionary id in the bucket (inclusive)
+   */
+  public int getBucketEndDictId(int bucket) {
+    return bucketStarts[bucket + 1] - 1;
+  }
+
+  public ImmutableRoaringBitmap getBitmap(int bucket) {
+    return bitmaps[bucket];
+  }
+
+  public void close()
+      throws IOException {
+    buffer.close();
+  }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.IOException;
+
+
+/**
+ * Reader for the bloom filter written by BloomFilterCreator. Bits are read directly from the data buffer.
+ */
+public class BloomFilterReader {
+  private static final int LONG_SIZE_IN_BYTES = Long.SIZE / Byte.SIZE;
+
+  private final PinotDataBuffer buffer;
+  private final int numHashFunctions;
+  private final long numBits;
+
+  public BloomFilterReader(PinotDataBuffer bloomFilterBuffer) {
+    buffer = bloomFilterBuffer;
+    int version = buffer.getInt(0);
+    Preconditions.checkState(version == BloomFilterCreator.VERSION, "Unsupported bloom filter version: %s", version);
+    numHashFunctions = buffer.getInt(4);
+    numBits = (long) buffer.getInt(8) * Long.SIZE;
+  }
+
+  /**
+   * Returns false if the value is definitely not in the column, true if it might be.
+   * @param value string form of the value, see {@link BloomFilterCreator#toBloomFilterValue(Object)}
+   */
+  public boolean mightContain(String value) {
+    long[] hashes = BloomFilterCreator.hash(value);
+    long combinedHash = hashes[0];
+    for (int i = 0; i < numHashFunctions; i++) {
+      long bitIndex = (combinedHash & Long.MAX_VALUE) % numBits;
+      long word = buffer.getLong(BloomFilterCreator.HEADER_SIZE + (int) (bitIndex >>> 6) * LONG_SIZE_IN_BYTES);
+      if ((word & (1L << bitIndex)) == 0) {
+        return false;
+      }
+      combinedHash += hashes[1];
+    }
+    return true;
+  }
+
+  public void close()
+      throws IOException {
+    buffer.close();
+  }
+}
@@ -51,6 +51,11 @@ public class DoubleDictionary extends ImmutableDictionaryReader  {
     return dataFileReader.getDouble(dictionaryId, 0);
   }
 
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    dataFileReader.readDoubleValues(dictionaryIds, 0 /*column*/, startPos, limit, outValues, outStartPos);
+  }
+
   @Override
   public String toString(int dictionaryId) {
     return Double.toString(getDoubleValue(dictionaryId));
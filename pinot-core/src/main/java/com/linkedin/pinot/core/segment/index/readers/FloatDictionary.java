@@ -71,6 +71,14 @@ public class FloatDictionary extends ImmutableDictionaryReader {
     return (int) getFloat(dictionaryId);
   }
 
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      outValues[outStartPos++] = getFloat(dictionaryIds[iter]);
+    }
+  }
+
   public float getFloat(int dictionaryId) {
     return dataFileReader.getFloat(dictionaryId, 0);
   }
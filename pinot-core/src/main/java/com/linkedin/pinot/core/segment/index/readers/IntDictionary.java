@@ -76,6 +76,22 @@ public class IntDictionary extends ImmutableDictionaryReader {
     dataFileReader.readIntValues(dictionaryIds, 0 /*column*/, startPos, limit, outValues, outStartPos);
   }
 
+  @Override
+  public void readLongValues(int[] dictionaryIds, int startPos, int limit, long[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      outValues[outStartPos++] = getInt(dictionaryIds[iter]);
+    }
+  }
+
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      outValues[outStartPos++] = getInt(dictionaryIds[iter]);
+    }
+  }
+
   private int getInt(int dictionaryId) {
     return dataFileReader.getInt(dictionaryId, 0);
   }
@@ -70,6 +70,19 @@ public class LongDictionary extends ImmutableDictionaryReader {
     return Long.toString(getLong(dictionaryId));
   }
 
+  @Override
+  public void readLongValues(int[] dictionaryIds, int startPos, int limit, long[] outValues, int outStartPos) {
+    dataFileReader.readLongValues(dictionaryIds, 0 /*column*/, startPos, limit, outValues, outStartPos);
+  }
+
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      outValues[outStartPos++] = getLong(dictionaryIds[iter]);
+    }
+  }
+
   private long getLong(int dictionaryId) {
     return dataFileReader.getLong(dictionaryId, 0);
   }
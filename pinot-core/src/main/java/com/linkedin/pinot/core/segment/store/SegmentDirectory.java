@@ -137,6 +137,13 @@ public abstract class SegmentDirectory implements AutoCloseable {
      */
     public abstract InputStream getStarTreeStream();
 
+    /**
+     * Get StarTree index as a data buffer, memory mapped or loaded on heap as per the read mode of the segment.
+     * The caller owns the returned buffer.
+     */
+    public abstract PinotDataBuffer getStarTreeBuffer()
+        throws IOException;
+
     /**
      * Check if the segment has star tree
      */
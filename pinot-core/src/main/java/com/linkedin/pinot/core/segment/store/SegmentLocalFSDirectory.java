@@ -29,6 +29,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.io.FileUtils;
@@ -162,6 +163,10 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
         return columnIndexDirectory.getForwardIndexBufferFor(column);
       case INVERTED_INDEX:
         return columnIndexDirectory.getInvertedIndexBufferFor(column);
+      case RANGE_INDEX:
+        return columnIndexDirectory.getRangeIndexBufferFor(column);
+      case BLOOM_FILTER:
+        return columnIndexDirectory.getBloomFilterBufferFor(column);
       default:
         throw new RuntimeException("Unknown index type: " + type.name());
     }
@@ -186,6 +191,14 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
     }
   }
 
+  private PinotDataBuffer getStarTreeBuffer()
+      throws IOException {
+    File starTreeFile = starTreeIndexFile();
+    Preconditions.checkState(starTreeFile.exists(), "Star tree file for segment: {} does not exist");
+    return PinotDataBuffer.fromFile(starTreeFile, readMode, FileChannel.MapMode.READ_ONLY,
+        "star tree for segment: " + segmentDirectory);
+  }
+
   public boolean hasStarTree() {
     return starTreeIndexFile().exists();
   }
@@ -204,6 +217,12 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
       return SegmentLocalFSDirectory.this.getStarTreeStream();
     }
 
+    @Override
+    public PinotDataBuffer getStarTreeBuffer()
+        throws IOException {
+      return SegmentLocalFSDirectory.this.getStarTreeBuffer();
+    }
+
     @Override
     public boolean hasStarTree() {
       return SegmentLocalFSDirectory.this.hasStarTree();
@@ -262,6 +281,12 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
       return SegmentLocalFSDirectory.this.getStarTreeStream();
     }
 
+    @Override
+    public PinotDataBuffer getStarTreeBuffer()
+        throws IOException {
+      return SegmentLocalFSDirectory.this.getStarTreeBuffer();
+    }
+
     @Override
     public boolean hasStarTree() {
       return SegmentLocalFSDirectory.this.hasStarTree();
@@ -288,6 +313,10 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
           return columnIndexDirectory.newForwardIndexBuffer(key.name, (int) sizeBytes);
         case INVERTED_INDEX:
           return columnIndexDirectory.newInvertedIndexBuffer(key.name, ((int) sizeBytes));
+        case RANGE_INDEX:
+          return columnIndexDirectory.newRangeIndexBuffer(key.name, ((int) sizeBytes));
+        case BLOOM_FILTER:
+          return columnIndexDirectory.newBloomFilterBuffer(key.name, ((int) sizeBytes));
         default:
           throw new RuntimeException("Unknown index type: " + indexType.name() +
               " for directory: " + segmentDirectory);
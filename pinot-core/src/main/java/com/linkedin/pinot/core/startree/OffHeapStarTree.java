@@ -0,0 +1,329 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashBiMap;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+
+/**
+ * Read only star tree, stored as flat fixed width node records in a {@link PinotDataBuffer} that can be memory
+ * mapped from the segment, instead of a graph of {@link StarTreeIndexNode} objects.
+ *
+ * Nodes are referenced by their id, which is their position in breadth first order, with the root as node 0. The
+ * children of a node are therefore contiguous, and they are sorted on their dimension value, so that the child for a
+ * value is found with a binary search. The star child, with value {@link StarTreeIndexNode#all()}, comes first.
+ *
+ * Format:
+ * <pre>
+ *   int magic, int version, int number of dimensions, int number of nodes, int offset of the first node
+ *   for each dimension: int dimension index, int name length, utf-8 name
+ *   for each node: int dimension name, int dimension value, int child dimension name, int start document id,
+ *                  int end document id, int aggregated document id, int first child id, int number of children
+ * </pre>
+ *
+ * Segments built before this format have a java serialized {@link StarTree}, which is converted when loaded.
+ */
+public class OffHeapStarTree implements AutoCloseable {
+  public static final int MAGIC = 0x53544152;
+  public static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 20;
+  private static final int NODE_SIZE = 32;
+
+  private static final int DIMENSION_NAME_OFFSET = 0;
+  private static final int DIMENSION_VALUE_OFFSET = 4;
+  private static final int CHILD_DIMENSION_NAME_OFFSET = 8;
+  private static final int START_DOCUMENT_ID_OFFSET = 12;
+  private static final int END_DOCUMENT_ID_OFFSET = 16;
+  private static final int AGGREGATED_DOCUMENT_ID_OFFSET = 20;
+  private static final int FIRST_CHILD_ID_OFFSET = 24;
+  private static final int NUM_CHILDREN_OFFSET = 28;
+
+  private final PinotDataBuffer _buffer;
+  private final int _numNodes;
+  private final int _nodesOffset;
+  private final HashBiMap<String, Integer> _dimensionNameToIndexMap;
+
+  /**
+   * Constructor for the class. The tree takes ownership of the buffer, which is closed with the tree.
+   */
+  public OffHeapStarTree(PinotDataBuffer buffer) {
+    Preconditions.checkArgument(buffer.getInt(0) == MAGIC, "Not a star tree buffer");
+    int version = buffer.getInt(4);
+    Preconditions.checkArgument(version == VERSION, "Unsupported star tree version: %s", version);
+    _buffer = buffer;
+    int numDimensions = buffer.getInt(8);
+    _numNodes = buffer.getInt(12);
+    _nodesOffset = buffer.getInt(16);
+
+    _dimensionNameToIndexMap = HashBiMap.create(numDimensions);
+    int offset = HEADER_SIZE;
+    for (int i = 0; i < numDimensions; i++) {
+      int dimensionIndex = buffer.getInt(offset);
+      int length = buffer.getInt(offset + 4);
+      byte[] nameBytes = new byte[length];
+      buffer.copyTo(offset + 8, nameBytes, 0, length);
+      _dimensionNameToIndexMap.put(new String(nameBytes, Charsets.UTF_8), dimensionIndex);
+      offset += 8 + length;
+    }
+  }
+
+  /**
+   * Loads the star tree from the given buffer, converting java serialized star trees to the flat format.
+   */
+  public static OffHeapStarTree fromBuffer(PinotDataBuffer buffer) throws IOException, ClassNotFoundException {
+    if (buffer.size() >= HEADER_SIZE && buffer.getInt(0) == MAGIC) {
+      return new OffHeapStarTree(buffer);
+    }
+    byte[] bytes = new byte[(int) buffer.size()];
+    buffer.copyTo(0, bytes, 0, bytes.length);
+    buffer.close();
+    return new OffHeapStarTree(toBuffer(StarTree.fromBytes(new ByteArrayInputStream(bytes))));
+  }
+
+  /**
+   * Loads the star tree from the given file, see {@link #fromBuffer(PinotDataBuffer)}.
+   */
+  public static OffHeapStarTree fromFile(File file, ReadMode readMode) throws IOException, ClassNotFoundException {
+    return fromBuffer(PinotDataBuffer.fromFile(file, readMode, FileChannel.MapMode.READ_ONLY, file.getPath()));
+  }
+
+  /**
+   * Writes the star tree in the flat format.
+   */
+  public static void write(StarTree starTree, OutputStream outputStream) throws IOException {
+    PinotDataBuffer buffer = toBuffer(starTree);
+    try {
+      byte[] bytes = new byte[(int) buffer.size()];
+      buffer.copyTo(0, bytes, 0, bytes.length);
+      outputStream.write(bytes);
+      outputStream.flush();
+    } finally {
+      buffer.close();
+    }
+  }
+
+  /**
+   * Returns a direct buffer holding the star tree in the flat format.
+   */
+  public static PinotDataBuffer toBuffer(StarTree starTree) {
+    // Number the nodes in breadth first order, with the children of each node sorted on their value
+    List<StarTreeIndexNode> nodes = new ArrayList<>();
+    List<Integer> firstChildIds = new ArrayList<>();
+    Queue<StarTreeIndexNode> queue = new LinkedList<>();
+    queue.add(starTree.getRoot());
+    int nextNodeId = 1;
+    while (!queue.isEmpty()) {
+      StarTreeIndexNode node = queue.remove();
+      nodes.add(node);
+      firstChildIds.add(nextNodeId);
+      if (!node.isLeaf()) {
+        List<StarTreeIndexNode> children = new ArrayList<>(node.getChildren().values());
+        Collections.sort(children, new Comparator<StarTreeIndexNode>() {
+          @Override
+          public int compare(StarTreeIndexNode o1, StarTreeIndexNode o2) {
+            return Integer.compare(o1.getDimensionValue(), o2.getDimensionValue());
+          }
+        });
+        nextNodeId += children.size();
+        queue.addAll(children);
+      }
+    }
+
+    Map<String, Integer> dimensionNameToIndexMap = starTree.getDimensionNameToIndexMap();
+    List<byte[]> dimensionNames = new ArrayList<>();
+    List<Integer> dimensionIndexes = new ArrayList<>();
+    int nodesOffset = HEADER_SIZE;
+    for (Map.Entry<String, Integer> entry : dimensionNameToIndexMap.entrySet()) {
+      byte[] nameBytes = entry.getKey().getBytes(Charsets.UTF_8);
+      dimensionNames.add(nameBytes);
+      dimensionIndexes.add(entry.getValue());
+      nodesOffset += 8 + nameBytes.length;
+    }
+
+    PinotDataBuffer buffer = PinotDataBuffer.allocateDirect(nodesOffset + nodes.size() * NODE_SIZE);
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putInt(8, dimensionNames.size());
+    buffer.putInt(12, nodes.size());
+    buffer.putInt(16, nodesOffset);
+    int offset = HEADER_SIZE;
+    for (int i = 0; i < dimensionNames.size(); i++) {
+      byte[] nameBytes = dimensionNames.get(i);
+      buffer.putInt(offset, dimensionIndexes.get(i));
+      buffer.putInt(offset + 4, nameBytes.length);
+      buffer.readFrom(nameBytes, offset + 8);
+      offset += 8 + nameBytes.length;
+    }
+
+    for (int i = 0; i < nodes.size(); i++) {
+      StarTreeIndexNode node = nodes.get(i);
+      buffer.putInt(offset + DIMENSION_NAME_OFFSET, node.getDimensionName());
+      buffer.putInt(offset + DIMENSION_VALUE_OFFSET, node.getDimensionValue());
+      buffer.putInt(offset + CHILD_DIMENSION_NAME_OFFSET, node.getChildDimensionName());
+      buffer.putInt(offset + START_DOCUMENT_ID_OFFSET, node.getStartDocumentId());
+      buffer.putInt(offset + END_DOCUMENT_ID_OFFSET, node.getEndDocumentId());
+      buffer.putInt(offset + AGGREGATED_DOCUMENT_ID_OFFSET, node.getAggregatedDocumentId());
+      if (node.isLeaf()) {
+        buffer.putInt(offset + FIRST_CHILD_ID_OFFSET, -1);
+        buffer.putInt(offset + NUM_CHILDREN_OFFSET, 0);
+      } else {
+        buffer.putInt(offset + FIRST_CHILD_ID_OFFSET, firstChildIds.get(i));
+        buffer.putInt(offset + NUM_CHILDREN_OFFSET, node.getChildren().size());
+      }
+      offset += NODE_SIZE;
+    }
+    return buffer;
+  }
+
+  /**
+   * Returns the star tree as a graph of {@link StarTreeIndexNode}, e.g. for tools that walk the tree.
+   */
+  public StarTree toStarTree() {
+    StarTreeIndexNode root = toStarTreeIndexNode(0, null);
+    return new StarTree(root, HashBiMap.create(_dimensionNameToIndexMap));
+  }
+
+  private StarTreeIndexNode toStarTreeIndexNode(int nodeId, StarTreeIndexNode parent) {
+    StarTreeIndexNode node = new StarTreeIndexNode();
+    node.setNodeId(nodeId);
+    node.setLevel(parent == null ? 0 : parent.getLevel() + 1);
+    node.setParent(parent);
+    node.setDimensionName(getDimensionName(nodeId));
+    node.setDimensionValue(getDimensionValue(nodeId));
+    node.setChildDimensionName(getChildDimensionName(nodeId));
+    node.setStartDocumentId(getStartDocumentId(nodeId));
+    node.setEndDocumentId(getEndDocumentId(nodeId));
+    node.setAggregatedDocumentId(getAggregatedDocumentId(nodeId));
+    if (!isLeaf(nodeId)) {
+      Map<Integer, StarTreeIndexNode> children = new HashMap<>();
+      int firstChildId = getFirstChildId(nodeId);
+      int endChildId = firstChildId + getNumChildren(nodeId);
+      for (int childId = firstChildId; childId < endChildId; childId++) {
+        children.put(getDimensionValue(childId), toStarTreeIndexNode(childId, node));
+      }
+      node.setChildren(children);
+    }
+    return node;
+  }
+
+  public HashBiMap<String, Integer> getDimensionNameToIndexMap() {
+    return _dimensionNameToIndexMap;
+  }
+
+  public int getNumNodes() {
+    return _numNodes;
+  }
+
+  public int getRootId() {
+    return 0;
+  }
+
+  public int getDimensionName(int nodeId) {
+    return getNodeField(nodeId, DIMENSION_NAME_OFFSET);
+  }
+
+  public int getDimensionValue(int nodeId) {
+    return getNodeField(nodeId, DIMENSION_VALUE_OFFSET);
+  }
+
+  public int getChildDimensionName(int nodeId) {
+    return getNodeField(nodeId, CHILD_DIMENSION_NAME_OFFSET);
+  }
+
+  public int getStartDocumentId(int nodeId) {
+    return getNodeField(nodeId, START_DOCUMENT_ID_OFFSET);
+  }
+
+  public int getEndDocumentId(int nodeId) {
+    return getNodeField(nodeId, END_DOCUMENT_ID_OFFSET);
+  }
+
+  public int getAggregatedDocumentId(int nodeId) {
+    return getNodeField(nodeId, AGGREGATED_DOCUMENT_ID_OFFSET);
+  }
+
+  public boolean isLeaf(int nodeId) {
+    return getNumChildren(nodeId) == 0;
+  }
+
+  /**
+   * Returns the id of the first child of the node. The children have consecutive ids.
+   */
+  public int getFirstChildId(int nodeId) {
+    return getNodeField(nodeId, FIRST_CHILD_ID_OFFSET);
+  }
+
+  public int getNumChildren(int nodeId) {
+    return getNodeField(nodeId, NUM_CHILDREN_OFFSET);
+  }
+
+  /**
+   * Returns the id of the child of the node with the given dimension value, or -1 if there is none.
+   */
+  public int getChildId(int nodeId, int dimensionValue) {
+    int low = getFirstChildId(nodeId);
+    int high = low + getNumChildren(nodeId) - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midValue = getDimensionValue(mid);
+      if (midValue < dimensionValue) {
+        low = mid + 1;
+      } else if (midValue > dimensionValue) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private int getNodeField(int nodeId, int fieldOffset) {
+    return _buffer.getInt(_nodesOffset + nodeId * NODE_SIZE + fieldOffset);
+  }
+
+  /**
+   * Returns a description of the node for logging.
+   */
+  public String toString(int nodeId) {
+    return "node " + nodeId + " [dimensionName=" + getDimensionName(nodeId) + ", dimensionValue="
+        + getDimensionValue(nodeId) + ", childDimensionName=" + getChildDimensionName(nodeId) + ", startDocumentId="
+        + getStartDocumentId(nodeId) + ", endDocumentId=" + getEndDocumentId(nodeId) + ", aggregatedDocumentId="
+        + getAggregatedDocumentId(nodeId) + ", childCount=" + getNumChildren(nodeId) + "]";
+  }
+
+  @Override
+  public void close() {
+    _buffer.close();
+  }
+}
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.util.trace;
 
 import com.linkedin.pinot.common.request.InstanceRequest;
+import com.linkedin.pinot.core.query.executor.QueryResourceTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +33,7 @@ public abstract class TraceCallable<V> implements Callable<V> {
 
   private final InstanceRequest request;
   private final Trace parent;
+  private final QueryResourceTracker resourceTracker = QueryResourceTracker.getTrackerForCurrentThread();
 
   public TraceCallable(InstanceRequest request, Trace parent) {
     if (request == null) {
@@ -51,9 +53,11 @@ public abstract class TraceCallable<V> implements Callable<V> {
   @Override
   public V call() throws Exception {
     if (request != null) TraceContext.registerThreadToRequest(request, parent);
+    QueryResourceTracker.register(resourceTracker);
     try {
       return callJob();
     } finally {
+      QueryResourceTracker.unregister();
       if (request != null) TraceContext.unregisterThreadFromRequest();
     }
   }
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.util.trace;
 
 import com.linkedin.pinot.common.request.InstanceRequest;
+import com.linkedin.pinot.core.query.executor.QueryResourceTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +31,7 @@ public abstract class TraceRunnable implements Runnable {
 
   private final InstanceRequest request;
   private final Trace parent;
+  private final QueryResourceTracker resourceTracker = QueryResourceTracker.getTrackerForCurrentThread();
 
   private TraceRunnable(InstanceRequest request, Trace parent) {
     if (request == null) {
@@ -49,9 +51,11 @@ public abstract class TraceRunnable implements Runnable {
   @Override
   public void run() {
     if (request != null) TraceContext.registerThreadToRequest(request, parent);
+    QueryResourceTracker.register(resourceTracker);
     try {
       runJob();
     } finally {
+      QueryResourceTracker.unregister();
       if (request != null) TraceContext.unregisterThreadFromRequest();
     }
   }
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common.datatable;
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.DataTableBuilder;
+import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
+import com.linkedin.pinot.common.utils.DataTableJavaSerDe;
+import com.linkedin.pinot.common.utils.DataTableSerDeRegistry;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction.AvgPair;
+import com.linkedin.pinot.core.query.aggregation.function.MinMaxRangeAggregationFunction.MinMaxRangePair;
+import com.linkedin.pinot.core.query.aggregation.function.quantile.digest.QuantileDigest;
+import com.linkedin.pinot.core.query.utils.Pair;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for the binary encoding of intermediate results in DataTable.
+ */
+public class DataTableCustomSerDeTest {
+  private static final DataTableCustomSerDe SER_DE = DataTableCustomSerDe.INSTANCE;
+
+  private final Random _random = new Random();
+
+  @BeforeClass
+  public void setUp() {
+    DataTableSerDeRegistry.getInstance().register(DataTableCustomSerDe.INSTANCE);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    DataTableSerDeRegistry.getInstance().register(DataTableJavaSerDe.INSTANCE);
+  }
+
+  @Test
+  public void testPrimitives() {
+    Assert.assertEquals(roundTrip("foo\tbar"), "foo\tbar");
+    Assert.assertEquals(roundTrip(_random.nextInt()).getClass(), Integer.class);
+    Assert.assertEquals(roundTrip(Long.MIN_VALUE), Long.MIN_VALUE);
+    Assert.assertEquals(roundTrip(Double.NEGATIVE_INFINITY), Double.NEGATIVE_INFINITY);
+    Assert.assertNull(roundTrip(null));
+  }
+
+  @Test
+  public void testPairs() {
+    AvgPair avgPair = roundTrip(new AvgPair(12.5, 3L));
+    Assert.assertEquals(avgPair.getFirst(), 12.5);
+    Assert.assertEquals(avgPair.getSecond().longValue(), 3L);
+
+    MinMaxRangePair minMaxRangePair = roundTrip(new MinMaxRangePair(-1.0, 2.0));
+    Assert.assertEquals(minMaxRangePair.getFirst(), -1.0);
+    Assert.assertEquals(minMaxRangePair.getSecond(), 2.0);
+
+    Pair<Double, Long> doubleLongPair = roundTrip(new Pair<>(1.5, 10L));
+    Assert.assertEquals(doubleLongPair.getClass(), Pair.class);
+    Assert.assertEquals(doubleLongPair.getFirst(), 1.5);
+    Assert.assertEquals(doubleLongPair.getSecond().longValue(), 10L);
+
+    Pair<Double, Double> doubleDoublePair = roundTrip(new Pair<>(1.5, 2.5));
+    Assert.assertEquals(doubleDoublePair.getSecond(), 2.5);
+
+    // Pairs of other types fall back to java serialization.
+    Pair<String, Integer> otherPair = roundTrip(new Pair<>("a", 1));
+    Assert.assertEquals(otherPair.getFirst(), "a");
+    Assert.assertEquals(otherPair.getSecond().intValue(), 1);
+  }
+
+  @Test
+  public void testSketches() {
+    HyperLogLog hll = new HyperLogLog(12);
+    IntOpenHashSet intSet = new IntOpenHashSet();
+    QuantileDigest digest = new QuantileDigest(0.05);
+    DoubleArrayList doubleList = new DoubleArrayList();
+    for (int i = 0; i < 1000; i++) {
+      int value = _random.nextInt(500);
+      hll.offer(value);
+      intSet.add(value);
+      digest.add(value);
+      doubleList.add(value);
+    }
+
+    HyperLogLog actualHll = roundTrip(hll);
+    Assert.assertEquals(actualHll.cardinality(), hll.cardinality());
+
+    IntOpenHashSet actualIntSet = roundTrip(intSet);
+    Assert.assertEquals(actualIntSet, intSet);
+
+    QuantileDigest actualDigest = roundTrip(digest);
+    Assert.assertEquals(actualDigest.getQuantile(0.5), digest.getQuantile(0.5));
+    Assert.assertEquals(actualDigest.getCount(), digest.getCount());
+
+    DoubleArrayList actualDoubleList = roundTrip(doubleList);
+    Assert.assertEquals(actualDoubleList, doubleList);
+  }
+
+  @Test
+  public void testGroupByResultMap()
+      throws Exception {
+    HashMap<String, Serializable> map = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      map.put("group\t" + i, new AvgPair(_random.nextDouble(), (long) _random.nextInt(100)));
+    }
+    map.put("nullValue", null);
+
+    DataSchema schema = new DataSchema(new String[]{"functionName", "GroupByResultMap"},
+        new DataType[]{DataType.STRING, DataType.OBJECT});
+    DataTableBuilder builder = new DataTableBuilder(schema);
+    builder.open();
+    builder.startRow();
+    builder.setColumn(0, "avg_met");
+    builder.setColumn(1, map);
+    builder.finishRow();
+    builder.seal();
+
+    DataTable dataTable = new DataTable(builder.build().toBytes());
+    HashMap<String, Serializable> actual = dataTable.getObject(0, 1);
+    Assert.assertEquals(actual.size(), map.size());
+    Assert.assertNull(actual.get("nullValue"));
+    for (int i = 0; i < 100; i++) {
+      AvgPair expected = (AvgPair) map.get("group\t" + i);
+      AvgPair actualPair = (AvgPair) actual.get("group\t" + i);
+      Assert.assertEquals(actualPair.getFirst(), expected.getFirst());
+      Assert.assertEquals(actualPair.getSecond(), expected.getSecond());
+    }
+  }
+
+  /**
+   * The reader must decode objects with the serde recorded in the data table, not the one it has registered.
+   */
+  @Test
+  public void testSerDeIdInHeader()
+      throws Exception {
+    DataSchema schema = new DataSchema(new String[]{"functionName", "result"},
+        new DataType[]{DataType.STRING, DataType.OBJECT});
+    DataTableBuilder builder = new DataTableBuilder(schema);
+    builder.open();
+    builder.startRow();
+    builder.setColumn(0, "avg_met");
+    builder.setColumn(1, new AvgPair(2.5, 4L));
+    builder.finishRow();
+    builder.seal();
+    byte[] bytes = builder.build().toBytes();
+
+    DataTableSerDeRegistry.getInstance().register(DataTableJavaSerDe.INSTANCE);
+    try {
+      AvgPair avgPair = new DataTable(bytes).getObject(0, 1);
+      Assert.assertEquals(avgPair.getFirst(), 2.5);
+      Assert.assertEquals(avgPair.getSecond().longValue(), 4L);
+    } finally {
+      DataTableSerDeRegistry.getInstance().register(DataTableCustomSerDe.INSTANCE);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T roundTrip(Object object) {
+    return (T) SER_DE.<Serializable>deserialize(SER_DE.serialize(object));
+  }
+}
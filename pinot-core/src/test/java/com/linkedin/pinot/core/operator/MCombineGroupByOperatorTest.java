@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.response.ProcessingException;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for the timeout handling of {@link MCombineGroupByOperator}.
+ */
+public class MCombineGroupByOperatorTest {
+  private ExecutorService _executorService;
+
+  @BeforeClass
+  public void setUp() {
+    _executorService = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _executorService.shutdownNow();
+  }
+
+  /**
+   * The timeout is in milliseconds, and a timed out combine reports the timeout in the result block.
+   */
+  @Test
+  public void testTimeout() {
+    AggregationInfo aggregationInfo = new AggregationInfo();
+    aggregationInfo.setAggregationType("sum");
+    Map<String, String> params = new HashMap<>();
+    params.put("column", "metric");
+    aggregationInfo.setAggregationParams(params);
+
+    GroupBy groupBy = new GroupBy();
+    groupBy.setColumns(Collections.singletonList("dimension"));
+    groupBy.setTopN(10);
+
+    BrokerRequest brokerRequest = new BrokerRequest();
+    brokerRequest.setAggregationsInfo(Collections.singletonList(aggregationInfo));
+    brokerRequest.setGroupBy(groupBy);
+
+    List<Operator> operators = Collections.<Operator>singletonList(new SlowOperator(5000L));
+    long startTime = System.currentTimeMillis();
+    IntermediateResultsBlock block = (IntermediateResultsBlock) new MCombineGroupByOperator(operators,
+        _executorService, 100L, brokerRequest).nextBlock();
+    Assert.assertTrue(System.currentTimeMillis() - startTime < 5000L);
+
+    List<ProcessingException> exceptions = block.getExceptions();
+    Assert.assertNotNull(exceptions);
+    Assert.assertEquals(exceptions.size(), 1);
+    Assert.assertEquals(exceptions.get(0).getErrorCode(), QueryException.EXECUTION_TIMEOUT_ERROR_CODE);
+  }
+
+  /**
+   * Segment level operator that does not return within the timeout.
+   */
+  private static class SlowOperator extends BaseOperator {
+    private final long _sleepMs;
+
+    SlowOperator(long sleepMs) {
+      _sleepMs = sleepMs;
+    }
+
+    @Override
+    public Block getNextBlock() {
+      try {
+        Thread.sleep(_sleepMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    }
+
+    @Override
+    public Block getNextBlock(BlockId BlockId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getOperatorName() {
+      return "SlowOperator";
+    }
+
+    @Override
+    public boolean open() {
+      return true;
+    }
+
+    @Override
+    public boolean close() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.RecordReader;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader;
+import com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter;
+import com.linkedin.pinot.core.operator.blocks.UnSortedSingleValueBlock;
+import com.linkedin.pinot.core.operator.dociditerators.SVScanDocIdIterator;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for scans on the v3 forward index, which skip the blocks of docs whose min/max dictionary ids cannot
+ * match the predicate.
+ * - Builds a segment with the v3 forward index on an unsorted int column, where each value only appears in a couple
+ *   of blocks, and the same segment with the default forward index.
+ * - Asserts that the predicates match the expected docs on both segments, and that only the v3 scans skip blocks.
+ */
+public class BlockMinMaxScanFilterTest {
+  private static final File INDEX_DIR =
+      new File(FileUtils.getTempDirectory() + File.separator + "BlockMinMaxScanFilterTest");
+  private static final String COLUMN = "intColumn";
+  private static final int BLOCK_SIZE = FixedBitSingleValueWriter.BLOCK_SIZE;
+  private static final int NUM_BLOCKS = 20;
+  private static final int NUM_ROWS = NUM_BLOCKS * BLOCK_SIZE;
+
+  private int[] _values;
+  private IndexSegment _segmentWithBlockMinMax;
+  private IndexSegment _segmentWithoutBlockMinMax;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    Schema schema = new Schema();
+    schema.addField(COLUMN, new DimensionFieldSpec(COLUMN, FieldSpec.DataType.INT, true));
+
+    // Values of each pair of blocks are in [10 * k, 10 * k + 6], unsorted within the blocks
+    _values = new int[NUM_ROWS];
+    List<GenericRow> data = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      _values[i] = (i / (2 * BLOCK_SIZE)) * 10 + (i % 7);
+      Map<String, Object> map = new HashMap<>();
+      map.put(COLUMN, _values[i]);
+      GenericRow row = new GenericRow();
+      row.init(map);
+      data.add(row);
+    }
+
+    _segmentWithBlockMinMax = buildSegment(schema, data, "withBlockMinMax", Collections.singletonList(COLUMN));
+    _segmentWithoutBlockMinMax = buildSegment(schema, data, "withoutBlockMinMax", Collections.<String>emptyList());
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _segmentWithBlockMinMax.destroy();
+    _segmentWithoutBlockMinMax.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testLoading() {
+    Assert.assertTrue(getColumnMetadata(_segmentWithBlockMinMax).hasBlockMinMax());
+    Assert.assertTrue(getForwardIndex(_segmentWithBlockMinMax) instanceof FixedBitSingleValueReader);
+    Assert.assertFalse(getColumnMetadata(_segmentWithoutBlockMinMax).hasBlockMinMax());
+    Assert.assertFalse(getForwardIndex(_segmentWithoutBlockMinMax) instanceof FixedBitSingleValueReader);
+  }
+
+  @Test
+  public void testScan() {
+    // Only blocks 6 and 7 hold 30
+    testScan(COLUMN + " = 30", new int[]{30, 30}, NUM_BLOCKS - 2);
+    // Blocks 0, 1, 12 and 13
+    testScan(COLUMN + " in (5, 62)", new int[]{5, 5, 62, 62}, NUM_BLOCKS - 4);
+    // Blocks 8 and 9
+    testScan(COLUMN + " between 41 and 43", new int[]{41, 43}, NUM_BLOCKS - 2);
+    // Values in the first or last blocks only
+    testScan(COLUMN + " < 3", new int[]{Integer.MIN_VALUE, 2}, NUM_BLOCKS - 2);
+    testScan(COLUMN + " > 94", new int[]{95, Integer.MAX_VALUE}, NUM_BLOCKS - 2);
+    // Every block may match
+    testScan(COLUMN + " between 4 and 95", new int[]{4, 95}, 0);
+    // Blocks are not skipped for negative predicates
+    testScan(COLUMN + " <> 30", null, 0);
+  }
+
+  /**
+   * @param matchingRanges Pairs of inclusive bounds of the matching values, or null for the values other than 30
+   */
+  private void testScan(String predicate, int[] matchingRanges, int expectedNumSkippedBlocks) {
+    List<Integer> expected = new ArrayList<>();
+    for (int docId = 0; docId < NUM_ROWS; docId++) {
+      if (matches(predicate, _values[docId], matchingRanges)) {
+        expected.add(docId);
+      }
+    }
+
+    Assert.assertEquals(scan(_segmentWithBlockMinMax, predicate, expectedNumSkippedBlocks), expected, predicate);
+    Assert.assertEquals(scan(_segmentWithoutBlockMinMax, predicate, 0), expected, predicate);
+  }
+
+  private static boolean matches(String predicate, int value, int[] matchingRanges) {
+    if (matchingRanges == null) {
+      return value != 30;
+    }
+    for (int i = 0; i < matchingRanges.length; i += 2) {
+      if (value >= matchingRanges[i] && value <= matchingRanges[i + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<Integer> scan(IndexSegment segment, String predicate, int expectedNumSkippedBlocks) {
+    BrokerRequest brokerRequest =
+        new Pql2Compiler().compileToBrokerRequest("select count(*) from T where " + predicate);
+    Operator filterOperator = new FilterPlanNode(segment, brokerRequest).run();
+    Assert.assertTrue(filterOperator instanceof ScanBasedFilterOperator, predicate);
+
+    SVScanDocIdIterator iterator =
+        (SVScanDocIdIterator) filterOperator.nextBlock().getBlockDocIdSet().iterator();
+    List<Integer> docIds = new ArrayList<>();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      docIds.add(docId);
+    }
+    Assert.assertEquals(iterator.getNumSkippedBlocks(), expectedNumSkippedBlocks, predicate);
+    return docIds;
+  }
+
+  private static ColumnMetadata getColumnMetadata(IndexSegment segment) {
+    return ((SegmentMetadataImpl) segment.getSegmentMetadata()).getColumnMetadataFor(COLUMN);
+  }
+
+  private static Object getForwardIndex(IndexSegment segment) {
+    return ((UnSortedSingleValueBlock) segment.getDataSource(COLUMN).nextBlock()).getSVReader();
+  }
+
+  private static IndexSegment buildSegment(Schema schema, List<GenericRow> data, String segmentName,
+      List<String> blockMinMaxColumns)
+      throws Exception {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig();
+    config.setSegmentName(segmentName);
+    config.setOutDir(new File(INDEX_DIR, segmentName).getAbsolutePath());
+    config.setSchema(schema);
+    config.setBlockMinMaxColumns(blockMinMaxColumns);
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, createReader(schema, data));
+    driver.build();
+    return Loaders.IndexSegment.load(new File(new File(INDEX_DIR, segmentName), driver.getSegmentName()),
+        ReadMode.mmap);
+  }
+
+  private static RecordReader createReader(final Schema schema, final List<GenericRow> data) {
+    return new RecordReader() {
+      int counter = 0;
+
+      @Override
+      public void rewind()
+          throws Exception {
+        counter = 0;
+      }
+
+      @Override
+      public GenericRow next() {
+        return data.get(counter++);
+      }
+
+      @Override
+      public void init()
+          throws Exception {
+      }
+
+      @Override
+      public boolean hasNext() {
+        return counter < data.size();
+      }
+
+      @Override
+      public Schema getSchema() {
+        return schema;
+      }
+
+      @Override
+      public Map<String, MutableLong> getNullCountMap() {
+        return null;
+      }
+
+      @Override
+      public void close()
+          throws Exception {
+      }
+    };
+  }
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.RecordReader;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for range predicates evaluated with the bucketed bitmap range index.
+ * - Builds a segment with a range index on an unsorted int column, and a segment without one.
+ * - Loads the second segment with the column configured for range index in v1 and v3 format,
+ *   so that the range index gets created on load.
+ * - Asserts that range predicates are planned on the range index, and match the expected documents.
+ */
+@Test
+public class RangeIndexBasedFilterOperatorTest {
+  private static final File INDEX_DIR =
+      new File(FileUtils.getTempDirectory() + File.separator + "RangeIndexBasedFilterOperatorTest");
+  private static final String COLUMN = "intColumn";
+  private static final int NUM_ROWS = 20000;
+  private static final int MAX_VALUE = 5000;
+  // Frequent value to get a bucket with a single dictionary id
+  private static final int HEAVY_HITTER = 1234;
+
+  private int[] _values;
+  private File _segmentWithRangeIndexDir;
+  private File _segmentWithoutRangeIndexDir;
+  private List<IndexSegment> _segments = new ArrayList<>();
+
+  @BeforeClass
+  void init()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    Random random = new Random(System.currentTimeMillis());
+    Schema schema = new Schema();
+    schema.addField(COLUMN, new DimensionFieldSpec(COLUMN, FieldSpec.DataType.INT, true));
+
+    _values = new int[NUM_ROWS];
+    List<GenericRow> data = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      _values[i] = (random.nextInt(4) == 0) ? HEAVY_HITTER : random.nextInt(MAX_VALUE);
+      Map<String, Object> map = new HashMap<>();
+      map.put(COLUMN, _values[i]);
+      GenericRow row = new GenericRow();
+      row.init(map);
+      data.add(row);
+    }
+
+    _segmentWithRangeIndexDir = buildSegment(schema, data, "withRangeIndex", Collections.singletonList(COLUMN));
+    _segmentWithoutRangeIndexDir = buildSegment(schema, data, "withoutRangeIndex", Collections.<String>emptyList());
+  }
+
+  @AfterClass
+  void tearDown() {
+    for (IndexSegment segment : _segments) {
+      segment.destroy();
+    }
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  /**
+   * Asserts that the range index is written at segment creation, and that buckets are contiguous and
+   * cover all dictionary ids.
+   */
+  @Test
+  void testIndexCreation()
+      throws Exception {
+    Assert.assertTrue(
+        new File(_segmentWithRangeIndexDir, COLUMN + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION).exists());
+    Assert.assertFalse(
+        new File(_segmentWithoutRangeIndexDir, COLUMN + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION).exists());
+
+    IndexSegment segment = load(_segmentWithRangeIndexDir, null);
+    BitmapRangeIndexReader rangeIndex = segment.getDataSource(COLUMN).getRangeIndex();
+    Assert.assertNotNull(rangeIndex);
+    Assert.assertTrue(rangeIndex.getNumBuckets() > 1);
+    Assert.assertEquals(rangeIndex.getBucketStartDictId(0), 0);
+    int numDocs = 0;
+    for (int bucket = 0; bucket < rangeIndex.getNumBuckets(); bucket++) {
+      if (bucket > 0) {
+        Assert.assertEquals(rangeIndex.getBucketStartDictId(bucket), rangeIndex.getBucketEndDictId(bucket - 1) + 1);
+      }
+      numDocs += rangeIndex.getBitmap(bucket).getCardinality();
+    }
+    Assert.assertEquals(rangeIndex.getBucketEndDictId(rangeIndex.getNumBuckets() - 1),
+        segment.getDataSource(COLUMN).getDictionary().length() - 1);
+    Assert.assertEquals(numDocs, NUM_ROWS);
+
+    Assert.assertNull(load(_segmentWithoutRangeIndexDir, null).getDataSource(COLUMN).getRangeIndex());
+  }
+
+  @Test
+  void testRangeIndexFromCreation()
+      throws Exception {
+    testRangeQueries(load(_segmentWithRangeIndexDir, null));
+  }
+
+  @Test(dependsOnMethods = "testIndexCreation")
+  void testRangeIndexFromPreProcessor()
+      throws Exception {
+    testRangeQueries(load(_segmentWithoutRangeIndexDir, "v1"));
+  }
+
+  @Test(dependsOnMethods = "testRangeIndexFromPreProcessor")
+  void testRangeIndexFromPreProcessorV3()
+      throws Exception {
+    testRangeQueries(load(_segmentWithoutRangeIndexDir, "v3"));
+  }
+
+  private void testRangeQueries(IndexSegment segment) {
+    String[] predicates = {
+        COLUMN + " between 100 and 2000",
+        COLUMN + " between " + HEAVY_HITTER + " and " + HEAVY_HITTER,
+        COLUMN + " between " + (HEAVY_HITTER - 10) + " and " + (HEAVY_HITTER + 10),
+        COLUMN + " > 4000",
+        COLUMN + " >= 0",
+        COLUMN + " < 17",
+        COLUMN + " <= 3333",
+        COLUMN + " > " + MAX_VALUE,
+        COLUMN + " between 10 and 5"
+    };
+    int[][] bounds = {
+        {100, 2000}, {HEAVY_HITTER, HEAVY_HITTER}, {HEAVY_HITTER - 10, HEAVY_HITTER + 10}, {4001, Integer.MAX_VALUE},
+        {0, Integer.MAX_VALUE}, {Integer.MIN_VALUE, 16}, {Integer.MIN_VALUE, 3333}, {MAX_VALUE + 1, Integer.MAX_VALUE},
+        {10, 5}
+    };
+
+    Pql2Compiler compiler = new Pql2Compiler();
+    for (int i = 0; i < predicates.length; i++) {
+      BrokerRequest brokerRequest = compiler.compileToBrokerRequest("select count(*) from T where " + predicates[i]);
+      Operator filterOperator = new FilterPlanNode(segment, brokerRequest).run();
+      Assert.assertTrue(filterOperator instanceof RangeIndexBasedFilterOperator, predicates[i]);
+
+      List<Integer> expected = new ArrayList<>();
+      for (int docId = 0; docId < NUM_ROWS; docId++) {
+        if (_values[docId] >= bounds[i][0] && _values[docId] <= bounds[i][1]) {
+          expected.add(docId);
+        }
+      }
+      List<Integer> actual = new ArrayList<>();
+      BlockDocIdIterator iterator = filterOperator.nextBlock().getBlockDocIdSet().iterator();
+      int docId;
+      while ((docId = iterator.next()) != Constants.EOF) {
+        actual.add(docId);
+      }
+      Assert.assertEquals(actual, expected, predicates[i]);
+    }
+  }
+
+  private IndexSegment load(File segmentDir, String rangeIndexLoadingVersion)
+      throws Exception {
+    IndexLoadingConfigMetadata indexLoadingConfig = null;
+    if (rangeIndexLoadingVersion != null) {
+      PropertiesConfiguration tableConfig = new PropertiesConfiguration();
+      tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_RANGE_INDEX, COLUMN);
+      tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_SEGMENT_FORMAT_VERSION, rangeIndexLoadingVersion);
+      indexLoadingConfig = new IndexLoadingConfigMetadata(tableConfig);
+    }
+    IndexSegment segment = Loaders.IndexSegment.load(segmentDir, ReadMode.mmap, indexLoadingConfig);
+    _segments.add(segment);
+    return segment;
+  }
+
+  private File buildSegment(Schema schema, List<GenericRow> data, String segmentName, List<String> rangeIndexColumns)
+      throws Exception {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig();
+    config.setSegmentName(segmentName);
+    config.setOutDir(new File(INDEX_DIR, segmentName).getAbsolutePath());
+    config.setSchema(schema);
+    config.setRangeIndexCreationColumns(rangeIndexColumns);
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, createReader(schema, data));
+    driver.build();
+    return new File(new File(INDEX_DIR, segmentName), driver.getSegmentName());
+  }
+
+  private RecordReader createReader(final Schema schema, final List<GenericRow> data) {
+    return new RecordReader() {
+      int counter = 0;
+
+      @Override
+      public void rewind()
+          throws Exception {
+        counter = 0;
+      }
+
+      @Override
+      public GenericRow next() {
+        return data.get(counter++);
+      }
+
+      @Override
+      public void init()
+          throws Exception {
+      }
+
+      @Override
+      public boolean hasNext() {
+        return counter < data.size();
+      }
+
+      @Override
+      public Schema getSchema() {
+        return schema;
+      }
+
+      @Override
+      public Map<String, MutableLong> getNullCountMap() {
+        return null;
+      }
+
+      @Override
+      public void close()
+          throws Exception {
+      }
+    };
+  }
+}
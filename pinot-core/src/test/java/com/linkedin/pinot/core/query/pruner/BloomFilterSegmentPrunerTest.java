@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.RecordReader;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for {@link BloomFilterSegmentPruner}.
+ * - Builds a segment with bloom filters on a long and a string column, and a segment without them.
+ * - Loads the second segment with the columns configured for bloom filters, so that they get created on load.
+ * - Asserts that values in the segment never prune it, that absent values mostly do, and that AND/OR
+ *   are combined correctly.
+ */
+@Test
+public class BloomFilterSegmentPrunerTest {
+  private static final File INDEX_DIR =
+      new File(FileUtils.getTempDirectory() + File.separator + "BloomFilterSegmentPrunerTest");
+  private static final String MEMBER_ID_COLUMN = "memberId";
+  private static final String NAME_COLUMN = "name";
+  private static final String COUNTRY_COLUMN = "country";
+  private static final int NUM_ROWS = 10000;
+  private static final int NUM_ABSENT_VALUES = 1000;
+  private static final String[] COUNTRIES = {"us", "ca", "in", "fr"};
+
+  private final Pql2Compiler _compiler = new Pql2Compiler();
+  private final BloomFilterSegmentPruner _pruner = new BloomFilterSegmentPruner();
+
+  // Member ids in the segment are even, odd ones are absent
+  private long[] _memberIds;
+  private File _segmentWithBloomFilterDir;
+  private File _segmentWithoutBloomFilterDir;
+  private List<IndexSegment> _segments = new ArrayList<>();
+
+  @BeforeClass
+  void init()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    Random random = new Random(System.currentTimeMillis());
+    Schema schema = new Schema();
+    schema.addField(MEMBER_ID_COLUMN, new DimensionFieldSpec(MEMBER_ID_COLUMN, FieldSpec.DataType.LONG, true));
+    schema.addField(NAME_COLUMN, new DimensionFieldSpec(NAME_COLUMN, FieldSpec.DataType.STRING, true));
+    schema.addField(COUNTRY_COLUMN, new DimensionFieldSpec(COUNTRY_COLUMN, FieldSpec.DataType.STRING, true));
+
+    _memberIds = new long[NUM_ROWS];
+    List<GenericRow> data = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      _memberIds[i] = (random.nextLong() & (Long.MAX_VALUE >> 1)) * 2;
+      Map<String, Object> map = new HashMap<>();
+      map.put(MEMBER_ID_COLUMN, _memberIds[i]);
+      map.put(NAME_COLUMN, "name_" + _memberIds[i]);
+      map.put(COUNTRY_COLUMN, COUNTRIES[i % COUNTRIES.length]);
+      GenericRow row = new GenericRow();
+      row.init(map);
+      data.add(row);
+    }
+
+    _segmentWithBloomFilterDir =
+        buildSegment(schema, data, "withBloomFilter", Arrays.asList(MEMBER_ID_COLUMN, NAME_COLUMN));
+    _segmentWithoutBloomFilterDir =
+        buildSegment(schema, data, "withoutBloomFilter", Collections.<String>emptyList());
+  }
+
+  @AfterClass
+  void tearDown() {
+    for (IndexSegment segment : _segments) {
+      segment.destroy();
+    }
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  void testBloomFilterCreation()
+      throws Exception {
+    Assert.assertTrue(
+        new File(_segmentWithBloomFilterDir, MEMBER_ID_COLUMN + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION).exists());
+    Assert.assertFalse(
+        new File(_segmentWithBloomFilterDir, COUNTRY_COLUMN + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION).exists());
+
+    IndexSegment segment = load(_segmentWithoutBloomFilterDir, null);
+    Assert.assertNull(segment.getDataSource(MEMBER_ID_COLUMN).getBloomFilter());
+    // Nothing to prune on without a bloom filter
+    Assert.assertFalse(prune(segment, MEMBER_ID_COLUMN + " = 1"));
+  }
+
+  @Test
+  void testPruneFromCreation()
+      throws Exception {
+    testPrune(load(_segmentWithBloomFilterDir, null));
+  }
+
+  @Test(dependsOnMethods = "testBloomFilterCreation")
+  void testPruneFromPreProcessor()
+      throws Exception {
+    testPrune(load(_segmentWithoutBloomFilterDir, "v1"));
+  }
+
+  @Test(dependsOnMethods = "testPruneFromPreProcessor")
+  void testPruneFromPreProcessorV3()
+      throws Exception {
+    testPrune(load(_segmentWithoutBloomFilterDir, "v3"));
+  }
+
+  private void testPrune(IndexSegment segment) {
+    Assert.assertNotNull(segment.getDataSource(MEMBER_ID_COLUMN).getBloomFilter());
+
+    // No false negatives
+    for (int i = 0; i < NUM_ROWS; i += 97) {
+      Assert.assertFalse(prune(segment, MEMBER_ID_COLUMN + " = " + _memberIds[i]));
+      Assert.assertFalse(prune(segment, NAME_COLUMN + " = 'name_" + _memberIds[i] + "'"));
+    }
+    Assert.assertFalse(prune(segment, MEMBER_ID_COLUMN + " in (1, 3, " + _memberIds[0] + ")"));
+
+    // Absent values are pruned, up to the false positive probability
+    int numPruned = 0;
+    long absentMemberId = -1;
+    for (int i = 0; i < NUM_ABSENT_VALUES; i++) {
+      long memberId = 2 * i + 1;
+      if (prune(segment, MEMBER_ID_COLUMN + " = " + memberId)) {
+        numPruned++;
+        absentMemberId = memberId;
+      }
+    }
+    Assert.assertTrue(numPruned > NUM_ABSENT_VALUES * 0.95, "Pruned " + numPruned + " of " + NUM_ABSENT_VALUES);
+
+    String absent = MEMBER_ID_COLUMN + " = " + absentMemberId;
+    String present = MEMBER_ID_COLUMN + " = " + _memberIds[0];
+    Assert.assertTrue(prune(segment, MEMBER_ID_COLUMN + " in (" + absentMemberId + ")"));
+    Assert.assertTrue(prune(segment, absent + " and " + COUNTRY_COLUMN + " = 'us'"));
+    Assert.assertFalse(prune(segment, absent + " or " + COUNTRY_COLUMN + " = 'us'"));
+    Assert.assertFalse(prune(segment, absent + " or " + present));
+    Assert.assertTrue(prune(segment, "(" + absent + " or " + absent + ") and " + present));
+    // Not a number, leave it to the filter
+    Assert.assertFalse(prune(segment, MEMBER_ID_COLUMN + " = 'abc'"));
+  }
+
+  private boolean prune(IndexSegment segment, String filter) {
+    BrokerRequest brokerRequest = _compiler.compileToBrokerRequest("select count(*) from T where " + filter);
+    return _pruner.prune(segment, brokerRequest);
+  }
+
+  private IndexSegment load(File segmentDir, String bloomFilterLoadingVersion)
+      throws Exception {
+    IndexLoadingConfigMetadata indexLoadingConfig = null;
+    if (bloomFilterLoadingVersion != null) {
+      PropertiesConfiguration tableConfig = new PropertiesConfiguration();
+      tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_BLOOM_FILTER, MEMBER_ID_COLUMN);
+      tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_BLOOM_FILTER, NAME_COLUMN);
+      tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_SEGMENT_FORMAT_VERSION, bloomFilterLoadingVersion);
+      indexLoadingConfig = new IndexLoadingConfigMetadata(tableConfig);
+    }
+    IndexSegment segment = Loaders.IndexSegment.load(segmentDir, ReadMode.mmap, indexLoadingConfig);
+    _segments.add(segment);
+    return segment;
+  }
+
+  private File buildSegment(Schema schema, List<GenericRow> data, String segmentName, List<String> bloomFilterColumns)
+      throws Exception {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig();
+    config.setSegmentName(segmentName);
+    config.setOutDir(new File(INDEX_DIR, segmentName).getAbsolutePath());
+    config.setSchema(schema);
+    config.setBloomFilterCreationColumns(bloomFilterColumns);
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, createReader(schema, data));
+    driver.build();
+    return new File(new File(INDEX_DIR, segmentName), driver.getSegmentName());
+  }
+
+  private RecordReader createReader(final Schema schema, final List<GenericRow> data) {
+    return new RecordReader() {
+      int counter = 0;
+
+      @Override
+      public void rewind()
+          throws Exception {
+        counter = 0;
+      }
+
+      @Override
+      public GenericRow next() {
+        return data.get(counter++);
+      }
+
+      @Override
+      public void init()
+          throws Exception {
+      }
+
+      @Override
+      public boolean hasNext() {
+        return counter < data.size();
+      }
+
+      @Override
+      public Schema getSchema() {
+        return schema;
+      }
+
+      @Override
+      public Map<String, MutableLong> getNullCountMap() {
+        return null;
+      }
+
+      @Override
+      public void close()
+          throws Exception {
+      }
+    };
+  }
+}
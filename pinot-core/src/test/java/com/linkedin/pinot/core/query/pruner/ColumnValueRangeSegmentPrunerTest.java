@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.ColumnValueRange;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.RecordReader;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for {@link ColumnValueRangeSegmentPruner}.
+ * - Builds a segment with int, long, double and string columns of known value ranges.
+ * - Asserts that the min and max values are persisted in the segment metadata.
+ * - Asserts that EQ, IN and RANGE predicates combined with AND/OR prune the segment only when no value
+ *   within the ranges can match.
+ */
+@Test
+public class ColumnValueRangeSegmentPrunerTest {
+  private static final File INDEX_DIR =
+      new File(FileUtils.getTempDirectory() + File.separator + "ColumnValueRangeSegmentPrunerTest");
+  private static final String INT_COLUMN = "intColumn";
+  private static final String LONG_COLUMN = "longColumn";
+  private static final String DOUBLE_COLUMN = "doubleColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  // Values with the list delimiter do not read back from the metadata properties, so are not persisted
+  private static final String DELIMITER_COLUMN = "delimiterColumn";
+  private static final int NUM_ROWS = 1000;
+
+  private final Pql2Compiler _compiler = new Pql2Compiler();
+  private final ColumnValueRangeSegmentPruner _pruner = new ColumnValueRangeSegmentPruner();
+  private IndexSegment _segment;
+
+  @BeforeClass
+  void init()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    Schema schema = new Schema();
+    schema.addField(INT_COLUMN, new DimensionFieldSpec(INT_COLUMN, FieldSpec.DataType.INT, true));
+    schema.addField(LONG_COLUMN, new DimensionFieldSpec(LONG_COLUMN, FieldSpec.DataType.LONG, true));
+    schema.addField(STRING_COLUMN, new DimensionFieldSpec(STRING_COLUMN, FieldSpec.DataType.STRING, true));
+    schema.addField(DELIMITER_COLUMN, new DimensionFieldSpec(DELIMITER_COLUMN, FieldSpec.DataType.STRING, true));
+    schema.addField(DOUBLE_COLUMN, new MetricFieldSpec(DOUBLE_COLUMN, FieldSpec.DataType.DOUBLE));
+
+    // intColumn in [100, 1099], longColumn in [10000000000, 10000000999], doubleColumn in [-0.5, 998.5],
+    // stringColumn in ["m000", "m999"]
+    List<GenericRow> data = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Map<String, Object> map = new HashMap<>();
+      map.put(INT_COLUMN, 100 + i);
+      map.put(LONG_COLUMN, 10000000000L + i);
+      map.put(DOUBLE_COLUMN, i - 0.5);
+      map.put(STRING_COLUMN, String.format("m%03d", i));
+      map.put(DELIMITER_COLUMN, "a,b" + i);
+      GenericRow row = new GenericRow();
+      row.init(map);
+      data.add(row);
+    }
+
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig();
+    config.setSegmentName("valueRangeSegment");
+    config.setOutDir(INDEX_DIR.getAbsolutePath());
+    config.setSchema(schema);
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, createReader(schema, data));
+    driver.build();
+    _segment = Loaders.IndexSegment.load(new File(INDEX_DIR, driver.getSegmentName()), ReadMode.mmap);
+  }
+
+  @AfterClass
+  void tearDown() {
+    _segment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  void testValueRangesInMetadata() {
+    SegmentMetadataImpl segmentMetadata = (SegmentMetadataImpl) _segment.getSegmentMetadata();
+    Map<String, ColumnValueRange> columnValueRanges = segmentMetadata.getColumnValueRanges();
+    Assert.assertEquals(columnValueRanges.get(INT_COLUMN),
+        ColumnValueRange.fromStrings(FieldSpec.DataType.INT, "100", "1099"));
+    Assert.assertEquals(columnValueRanges.get(LONG_COLUMN),
+        ColumnValueRange.fromStrings(FieldSpec.DataType.LONG, "10000000000", "10000000999"));
+    Assert.assertEquals(columnValueRanges.get(DOUBLE_COLUMN),
+        ColumnValueRange.fromStrings(FieldSpec.DataType.DOUBLE, "-0.5", "998.5"));
+    Assert.assertEquals(columnValueRanges.get(STRING_COLUMN),
+        ColumnValueRange.fromStrings(FieldSpec.DataType.STRING, "m000", "m999"));
+    Assert.assertFalse(columnValueRanges.containsKey(DELIMITER_COLUMN));
+    Assert.assertEquals(segmentMetadata.getColumnMetadataFor(INT_COLUMN).getValueRange(),
+        columnValueRanges.get(INT_COLUMN));
+  }
+
+  @Test
+  void testPrune() {
+    // EQ
+    Assert.assertFalse(prune(INT_COLUMN + " = 100"));
+    Assert.assertFalse(prune(INT_COLUMN + " = 1099"));
+    Assert.assertTrue(prune(INT_COLUMN + " = 99"));
+    Assert.assertTrue(prune(INT_COLUMN + " = 1100"));
+    Assert.assertTrue(prune(LONG_COLUMN + " = 9999999999"));
+    Assert.assertFalse(prune(LONG_COLUMN + " = 10000000500"));
+    Assert.assertTrue(prune(DOUBLE_COLUMN + " = -0.6"));
+    Assert.assertFalse(prune(DOUBLE_COLUMN + " = -0.5"));
+    Assert.assertTrue(prune(STRING_COLUMN + " = 'z'"));
+    Assert.assertFalse(prune(STRING_COLUMN + " = 'm500'"));
+    Assert.assertFalse(prune(DELIMITER_COLUMN + " = 'z'"));
+    // Values that do not parse into the column type are left to the query
+    Assert.assertFalse(prune(INT_COLUMN + " = 'abc'"));
+
+    // IN
+    Assert.assertTrue(prune(INT_COLUMN + " in (1, 2, 5000)"));
+    Assert.assertFalse(prune(INT_COLUMN + " in (1, 2, 500)"));
+
+    // RANGE
+    Assert.assertTrue(prune(INT_COLUMN + " > 1099"));
+    Assert.assertFalse(prune(INT_COLUMN + " >= 1099"));
+    Assert.assertTrue(prune(INT_COLUMN + " < 100"));
+    Assert.assertFalse(prune(INT_COLUMN + " <= 100"));
+    Assert.assertTrue(prune(INT_COLUMN + " between 2000 and 3000"));
+    Assert.assertFalse(prune(INT_COLUMN + " between 0 and 3000"));
+    Assert.assertTrue(prune(DOUBLE_COLUMN + " > 998.5"));
+    Assert.assertFalse(prune(DOUBLE_COLUMN + " > 998.4"));
+    // String ranges are never pruned
+    Assert.assertFalse(prune(STRING_COLUMN + " > 'z'"));
+
+    // AND/OR
+    Assert.assertTrue(prune(INT_COLUMN + " = 500 and " + LONG_COLUMN + " = 5"));
+    Assert.assertFalse(prune(INT_COLUMN + " = 500 or " + LONG_COLUMN + " = 5"));
+    Assert.assertTrue(prune(INT_COLUMN + " = 5 or " + LONG_COLUMN + " = 5"));
+    Assert.assertTrue(prune("(" + INT_COLUMN + " = 5 or " + INT_COLUMN + " > 2000) and " + STRING_COLUMN + " = 'm001'"));
+    // Column not in the segment
+    Assert.assertFalse(prune("unknownColumn = 5"));
+  }
+
+  private boolean prune(String filter) {
+    BrokerRequest brokerRequest = _compiler.compileToBrokerRequest("select count(*) from T where " + filter);
+    return _pruner.prune(_segment, brokerRequest);
+  }
+
+  private RecordReader createReader(final Schema schema, final List<GenericRow> data) {
+    return new RecordReader() {
+      int counter = 0;
+
+      @Override
+      public void rewind()
+          throws Exception {
+        counter = 0;
+      }
+
+      @Override
+      public GenericRow next() {
+        return data.get(counter++);
+      }
+
+      @Override
+      public void init()
+          throws Exception {
+      }
+
+      @Override
+      public boolean hasNext() {
+        return counter < data.size();
+      }
+
+      @Override
+      public Schema getSchema() {
+        return schema;
+      }
+
+      @Override
+      public Map<String, MutableLong> getNullCountMap() {
+        return null;
+      }
+
+      @Override
+      public void close()
+          throws Exception {
+      }
+    };
+  }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.QuerySource;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class QuerySchedulerTest {
+  private static final ServerMetrics SERVER_METRICS = new ServerMetrics(new MetricsRegistry());
+
+  private List<String> _runQueries;
+
+  @BeforeMethod
+  public void setUp() {
+    // Queries still running from the previous test add to their own list
+    _runQueries = Collections.synchronizedList(new ArrayList<String>());
+  }
+
+  @Test
+  public void testRejectWhenQueueFull() throws Exception {
+    QueryScheduler scheduler = new FcfsQueryScheduler(1, 1, SERVER_METRICS);
+    scheduler.start();
+    try {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      ListenableFuture<byte[]> blocking = scheduler.submit(brokerRequest("t1"), blockingQuery("a", started, release));
+      Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+      ListenableFuture<byte[]> queued = scheduler.submit(brokerRequest("t2"), query("b"));
+      ListenableFuture<byte[]> rejected = scheduler.submit(brokerRequest("t3"), query("c"));
+
+      Assert.assertTrue(rejected.isDone());
+      try {
+        rejected.get();
+        Assert.fail("Query should have been rejected");
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof ServerBusyException);
+      }
+
+      release.countDown();
+      Assert.assertEquals(new String(blocking.get(10, TimeUnit.SECONDS)), "a");
+      Assert.assertEquals(new String(queued.get(10, TimeUnit.SECONDS)), "b");
+      Assert.assertEquals(_runQueries, Arrays.asList("a", "b"));
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  public void testFairShare() throws Exception {
+    QueryScheduler scheduler = new FairShareQueryScheduler(2, 10, SERVER_METRICS);
+    scheduler.start();
+    try {
+      // Occupy both threads, one with a query of each table
+      CountDownLatch started = new CountDownLatch(2);
+      CountDownLatch release1 = new CountDownLatch(1);
+      CountDownLatch release2 = new CountDownLatch(1);
+      scheduler.submit(brokerRequest("t1"), blockingQuery("blocking1", started, release1));
+      scheduler.submit(brokerRequest("t2"), blockingQuery("blocking2", started, release2));
+      Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      scheduler.submit(brokerRequest("t1"), query("t1q1"));
+      scheduler.submit(brokerRequest("t1"), query("t1q2"));
+      ListenableFuture<byte[]> last = scheduler.submit(brokerRequest("t2"), query("t2q1"));
+
+      // Table t1 still has a running query, so the free thread picks the query of t2 although it is newer
+      release2.countDown();
+      last.get(10, TimeUnit.SECONDS);
+      Assert.assertEquals(_runQueries.get(2), "t2q1");
+      release1.countDown();
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  public void testTokenPriority() throws Exception {
+    QueryScheduler scheduler = new TokenPriorityQueryScheduler(1, 10, 1, SERVER_METRICS);
+    scheduler.start();
+    try {
+      // Use the only token of t1
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      scheduler.submit(brokerRequest("t1"), blockingQuery("blocking", started, release));
+      Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      scheduler.submit(brokerRequest("t1"), query("t1q1"));
+      ListenableFuture<byte[]> t2Query = scheduler.submit(brokerRequest("t2"), query("t2q1"));
+      ListenableFuture<byte[]> t1Query = scheduler.submit(brokerRequest("t1"), query("t1q2"));
+
+      release.countDown();
+      t1Query.get(10, TimeUnit.SECONDS);
+      Assert.assertTrue(t2Query.isDone());
+      Assert.assertEquals(_runQueries.get(1), "t2q1");
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  private BrokerRequest brokerRequest(String tableName) {
+    BrokerRequest brokerRequest = new BrokerRequest();
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName(tableName);
+    brokerRequest.setQuerySource(querySource);
+    return brokerRequest;
+  }
+
+  private Callable<byte[]> query(final String name) {
+    final List<String> runQueries = _runQueries;
+    return new Callable<byte[]>() {
+      @Override
+      public byte[] call() {
+        runQueries.add(name);
+        return name.getBytes();
+      }
+    };
+  }
+
+  private Callable<byte[]> blockingQuery(final String name, final CountDownLatch started,
+      final CountDownLatch release) {
+    final List<String> runQueries = _runQueries;
+    return new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws Exception {
+        runQueries.add(name);
+        started.countDown();
+        release.await();
+        return name.getBytes();
+      }
+    };
+  }
+}
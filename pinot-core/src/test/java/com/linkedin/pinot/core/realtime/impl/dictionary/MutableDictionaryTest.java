@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class MutableDictionaryTest {
+  private static final int NUM_VALUES = 100000;
+  private static final int NUM_READERS = 4;
+  private static final long RANDOM_SEED = System.nanoTime();
+
+  @Test
+  public void testOnHeap()
+      throws Exception {
+    for (FieldSpec.DataType dataType : new FieldSpec.DataType[]{FieldSpec.DataType.INT, FieldSpec.DataType.LONG,
+        FieldSpec.DataType.FLOAT, FieldSpec.DataType.DOUBLE, FieldSpec.DataType.STRING}) {
+      testDictionary(dataType, false);
+    }
+  }
+
+  @Test
+  public void testOffHeap()
+      throws Exception {
+    for (FieldSpec.DataType dataType : new FieldSpec.DataType[]{FieldSpec.DataType.INT, FieldSpec.DataType.LONG,
+        FieldSpec.DataType.FLOAT, FieldSpec.DataType.DOUBLE}) {
+      testDictionary(dataType, true);
+    }
+  }
+
+  @Test
+  public void testMinMaxAndRange() {
+    FieldSpec fieldSpec = new MetricFieldSpec("metric", FieldSpec.DataType.INT);
+    MutableDictionaryReader dictionary = RealtimeDictionaryProvider.getDictionaryFor(fieldSpec, true);
+    Assert.assertTrue(dictionary.isEmpty());
+
+    dictionary.index(5);
+    dictionary.index("-3");
+    dictionary.index(new Object[]{12, "5"});
+    dictionary.index(null);
+
+    Assert.assertEquals(dictionary.length(), 3);
+    Assert.assertEquals(dictionary.getMinVal(), -3);
+    Assert.assertEquals(dictionary.getMaxVal(), 12);
+    Assert.assertTrue(dictionary.hasNull());
+    Assert.assertTrue(dictionary.contains(null));
+    Assert.assertTrue(dictionary.contains("12"));
+    Assert.assertFalse(dictionary.contains(7));
+    // Values of a different type are not matched, same as with the boxed values
+    Assert.assertEquals(dictionary.indexOf(5L), -1);
+
+    Assert.assertEquals(dictionary.indexOf(5), 0);
+    Assert.assertEquals(dictionary.indexOf("-3"), 1);
+    Assert.assertTrue(dictionary.inRange("0", "5", 0));
+    Assert.assertFalse(dictionary.inRange("0", "5", 0, true, false));
+    Assert.assertFalse(dictionary.inRange("0", "5", 1));
+    dictionary.close();
+  }
+
+  /**
+   * Index random values on the current thread while reader threads look up the values that have already been
+   * indexed, and check that every value gets a unique contiguous id that maps back to the value.
+   */
+  private void testDictionary(FieldSpec.DataType dataType, boolean offHeap)
+      throws Exception {
+    FieldSpec fieldSpec = new DimensionFieldSpec("column", dataType, true);
+    final MutableDictionaryReader dictionary = RealtimeDictionaryProvider.getDictionaryFor(fieldSpec, offHeap);
+    final Object[] values = new Object[NUM_VALUES];
+    Random random = new Random(RANDOM_SEED);
+    for (int i = 0; i < NUM_VALUES; i++) {
+      // Restrict the range of the values so that there are duplicates
+      int value = random.nextInt(NUM_VALUES);
+      switch (dataType) {
+        case INT:
+          values[i] = value;
+          break;
+        case LONG:
+          values[i] = (long) value << 32;
+          break;
+        case FLOAT:
+          values[i] = value + 0.5f;
+          break;
+        case DOUBLE:
+          values[i] = value / 3.0;
+          break;
+        default:
+          values[i] = "value_" + value;
+          break;
+      }
+    }
+
+    final AtomicBoolean done = new AtomicBoolean(false);
+    final int[] numIndexed = new int[1];
+    final Object lock = new Object();
+    ExecutorService executorService = Executors.newFixedThreadPool(NUM_READERS);
+    Future[] futures = new Future[NUM_READERS];
+    for (int i = 0; i < NUM_READERS; i++) {
+      futures[i] = executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          Random random = new Random();
+          while (!done.get()) {
+            int bound;
+            synchronized (lock) {
+              bound = numIndexed[0];
+            }
+            if (bound == 0) {
+              continue;
+            }
+            Object value = values[random.nextInt(bound)];
+            int dictId = dictionary.indexOf(value);
+            Assert.assertTrue(dictId >= 0 && dictId < dictionary.length());
+            Assert.assertEquals(dictionary.get(dictId), value);
+          }
+        }
+      });
+    }
+
+    Map<Object, Integer> expectedIds = new HashMap<>();
+    for (int i = 0; i < NUM_VALUES; i++) {
+      dictionary.index(values[i]);
+      synchronized (lock) {
+        numIndexed[0] = i + 1;
+      }
+      if (!expectedIds.containsKey(values[i])) {
+        expectedIds.put(values[i], expectedIds.size());
+      }
+    }
+    done.set(true);
+    for (Future future : futures) {
+      future.get();
+    }
+    executorService.shutdown();
+
+    String message = "Data type: " + dataType + ", random seed is: " + RANDOM_SEED;
+    Assert.assertEquals(dictionary.length(), expectedIds.size(), message);
+    for (Map.Entry<Object, Integer> entry : expectedIds.entrySet()) {
+      int dictId = entry.getValue();
+      Assert.assertEquals(dictionary.indexOf(entry.getKey()), dictId, message);
+      Assert.assertEquals(dictionary.get(dictId), entry.getKey(), message);
+      if (dataType != FieldSpec.DataType.STRING) {
+        Assert.assertEquals(dictionary.getDoubleValue(dictId), ((Number) entry.getKey()).doubleValue(), message);
+      }
+    }
+    dictionary.close();
+  }
+}
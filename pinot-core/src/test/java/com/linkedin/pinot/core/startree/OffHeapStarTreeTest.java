@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.google.common.collect.HashBiMap;
+import com.linkedin.pinot.common.segment.ReadMode;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class OffHeapStarTreeTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "OffHeapStarTreeTest");
+
+  @Test
+  public void testFlatFormat() throws Exception {
+    StarTree starTree = buildStarTree();
+    OffHeapStarTree offHeapStarTree = new OffHeapStarTree(OffHeapStarTree.toBuffer(starTree));
+    try {
+      assertSameTree(offHeapStarTree, starTree);
+    } finally {
+      offHeapStarTree.close();
+    }
+  }
+
+  @Test
+  public void testFiles() throws Exception {
+    StarTree starTree = buildStarTree();
+    FileUtils.deleteQuietly(TEMP_DIR);
+    TEMP_DIR.mkdirs();
+    try {
+      File flatFile = new File(TEMP_DIR, "flat.bin");
+      try (FileOutputStream outputStream = new FileOutputStream(flatFile)) {
+        OffHeapStarTree.write(starTree, outputStream);
+      }
+      // Segments built before the flat format have a java serialized star tree
+      File legacyFile = new File(TEMP_DIR, "legacy.bin");
+      try (FileOutputStream outputStream = new FileOutputStream(legacyFile)) {
+        starTree.writeTree(outputStream);
+      }
+
+      for (File file : new File[]{flatFile, legacyFile}) {
+        for (ReadMode readMode : ReadMode.values()) {
+          OffHeapStarTree offHeapStarTree = OffHeapStarTree.fromFile(file, readMode);
+          try {
+            assertSameTree(offHeapStarTree, starTree);
+            assertSameNode(offHeapStarTree.toStarTree().getRoot(), starTree.getRoot());
+          } finally {
+            offHeapStarTree.close();
+          }
+        }
+      }
+    } finally {
+      FileUtils.deleteQuietly(TEMP_DIR);
+    }
+  }
+
+  /**
+   * Root split on dimension 0 with a star child, and the child for value 5 split on dimension 1.
+   */
+  private static StarTree buildStarTree() {
+    StarTreeIndexNode root = buildNode(StarTreeIndexNode.all(), StarTreeIndexNode.all(), 0, 100);
+    root.setChildDimensionName(0);
+    Map<Integer, StarTreeIndexNode> children = new HashMap<>();
+    for (int value : new int[]{7, StarTreeIndexNode.all(), 5, 1}) {
+      children.put(value, buildNode(0, value, value * 10 + 10, value * 10 + 20));
+    }
+    root.setChildren(children);
+
+    StarTreeIndexNode node = children.get(5);
+    node.setChildDimensionName(1);
+    Map<Integer, StarTreeIndexNode> grandChildren = new HashMap<>();
+    for (int value = 0; value < 3; value++) {
+      StarTreeIndexNode grandChild = buildNode(1, value, 60 + 3 * value, 63 + 3 * value);
+      grandChild.setAggregatedDocumentId(200 + value);
+      grandChildren.put(value, grandChild);
+    }
+    node.setChildren(grandChildren);
+
+    HashBiMap<String, Integer> dimensionNameToIndexMap = HashBiMap.create();
+    dimensionNameToIndexMap.put("d1", 0);
+    dimensionNameToIndexMap.put("d2", 1);
+    return new StarTree(root, dimensionNameToIndexMap);
+  }
+
+  private static StarTreeIndexNode buildNode(int dimensionName, int dimensionValue, int startDocId, int endDocId) {
+    StarTreeIndexNode node = new StarTreeIndexNode();
+    node.setDimensionName(dimensionName);
+    node.setDimensionValue(dimensionValue);
+    node.setStartDocumentId(startDocId);
+    node.setEndDocumentId(endDocId);
+    return node;
+  }
+
+  private static void assertSameTree(OffHeapStarTree offHeapStarTree, StarTree starTree) {
+    Assert.assertEquals(offHeapStarTree.getNumNodes(), 8);
+    Assert.assertEquals(offHeapStarTree.getDimensionNameToIndexMap(), starTree.getDimensionNameToIndexMap());
+    int rootId = offHeapStarTree.getRootId();
+    Assert.assertEquals(offHeapStarTree.getNumChildren(rootId), 4);
+    // Star child comes first
+    Assert.assertEquals(offHeapStarTree.getChildId(rootId, StarTreeIndexNode.all()),
+        offHeapStarTree.getFirstChildId(rootId));
+    Assert.assertEquals(offHeapStarTree.getChildId(rootId, 3), -1);
+    Assert.assertEquals(offHeapStarTree.getChildId(rootId, 8), -1);
+
+    int nodeId = offHeapStarTree.getChildId(rootId, 5);
+    Assert.assertEquals(offHeapStarTree.getDimensionValue(nodeId), 5);
+    Assert.assertEquals(offHeapStarTree.getChildDimensionName(nodeId), 1);
+    int leafId = offHeapStarTree.getChildId(nodeId, 2);
+    Assert.assertTrue(offHeapStarTree.isLeaf(leafId));
+    Assert.assertEquals(offHeapStarTree.getStartDocumentId(leafId), 66);
+    Assert.assertEquals(offHeapStarTree.getEndDocumentId(leafId), 69);
+    Assert.assertEquals(offHeapStarTree.getAggregatedDocumentId(leafId), 202);
+    Assert.assertTrue(offHeapStarTree.isLeaf(offHeapStarTree.getChildId(rootId, 7)));
+  }
+
+  private static void assertSameNode(StarTreeIndexNode actual, StarTreeIndexNode expected) {
+    Assert.assertEquals(actual.getDimensionName(), expected.getDimensionName());
+    Assert.assertEquals(actual.getDimensionValue(), expected.getDimensionValue());
+    Assert.assertEquals(actual.getChildDimensionName(), expected.getChildDimensionName());
+    Assert.assertEquals(actual.getStartDocumentId(), expected.getStartDocumentId());
+    Assert.assertEquals(actual.getEndDocumentId(), expected.getEndDocumentId());
+    Assert.assertEquals(actual.getAggregatedDocumentId(), expected.getAggregatedDocumentId());
+    Assert.assertEquals(actual.isLeaf(), expected.isLeaf());
+    if (!expected.isLeaf()) {
+      Assert.assertEquals(actual.getChildren().keySet(), expected.getChildren().keySet());
+      for (Map.Entry<Integer, StarTreeIndexNode> entry : expected.getChildren().entrySet()) {
+        assertSameNode(actual.getChildren().get(entry.getKey()), entry.getValue());
+      }
+    }
+  }
+}
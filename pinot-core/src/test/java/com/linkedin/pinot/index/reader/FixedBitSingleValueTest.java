@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Random;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 public class FixedBitSingleValueTest {
@@ -58,4 +59,73 @@ public class FixedBitSingleValueTest {
       file.delete();
     }
   }
+  @Test
+  public void testV3() throws Exception {
+    int ROWS = 5000;
+    Random random = new Random(0);
+    for (int numBits = 1; numBits < 32; numBits++) {
+      PinotDataBuffer buffer = PinotDataBuffer.allocateDirect(
+          com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter.getBufferSize(ROWS, numBits));
+      com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter writer =
+          new com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter(buffer.duplicate(), ROWS, numBits);
+      int data[] = new int[ROWS];
+      for (int i = 0; i < ROWS; i++) {
+        data[i] = random.nextInt((int) Math.min(1L << numBits, Integer.MAX_VALUE));
+        writer.setInt(i, data[i]);
+      }
+      writer.close();
+
+      com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader reader =
+          new com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader(buffer, ROWS, numBits);
+      for (int i = 0; i < ROWS; i++) {
+        Assert.assertEquals(reader.getInt(i), data[i], "Failed for bit:" + numBits + " at " + i);
+      }
+
+      // Unaligned batches exercise the head, full group and tail paths
+      int[] read = new int[ROWS + 7];
+      int startRow = 0;
+      while (startRow < ROWS) {
+        int length = Math.min(random.nextInt(200), ROWS - startRow);
+        reader.getIntBatch(startRow, length, read, 7);
+        for (int i = 0; i < length; i++) {
+          Assert.assertEquals(read[7 + i], data[startRow + i], "Failed for bit:" + numBits + " at " + (startRow + i));
+        }
+        startRow += length;
+      }
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testV3BlockSkipping() throws Exception {
+    int ROWS = 10000;
+    int numBits = 10;
+    int blockSize = com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter.BLOCK_SIZE;
+    PinotDataBuffer buffer = PinotDataBuffer.allocateDirect(
+        com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter.getBufferSize(ROWS, numBits));
+    com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter writer =
+        new com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter(buffer.duplicate(), ROWS, numBits);
+    // Values of block 'b' are in [10 * b, 10 * b + 10)
+    Random random = new Random(0);
+    for (int i = 0; i < ROWS; i++) {
+      writer.setInt(i, (i / blockSize) * 10 + random.nextInt(10));
+    }
+    writer.close();
+
+    com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader reader =
+        new com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader(buffer, ROWS, numBits);
+    Assert.assertEquals(reader.getNumBlocks(), (ROWS + blockSize - 1) / blockSize);
+    for (int block = 0; block < reader.getNumBlocks(); block++) {
+      Assert.assertTrue(reader.getBlockMinDictId(block) >= block * 10);
+      Assert.assertTrue(reader.getBlockMaxDictId(block) < block * 10 + 10);
+    }
+
+    int[] dictIds = new int[]{35, 72, 500};
+    Assert.assertEquals(reader.skipToCandidateRow(0, dictIds), 3 * blockSize);
+    Assert.assertEquals(reader.skipToCandidateRow(3 * blockSize + 5, dictIds), 3 * blockSize + 5);
+    Assert.assertEquals(reader.skipToCandidateRow(4 * blockSize, dictIds), 7 * blockSize);
+    Assert.assertEquals(reader.skipToCandidateRow(8 * blockSize, dictIds), ROWS);
+    Assert.assertEquals(reader.skipToCandidateRow(0, new int[0]), ROWS);
+    reader.close();
+  }
 }
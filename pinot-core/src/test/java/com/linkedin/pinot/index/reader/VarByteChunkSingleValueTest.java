@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.index.reader;
+
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkReaderContext;
+import com.linkedin.pinot.core.io.reader.impl.v1.VarByteChunkSingleValueReader;
+import com.linkedin.pinot.core.io.writer.impl.v1.VarByteChunkSingleValueWriter;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import org.apache.commons.lang.RandomStringUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for the chunked, compressed string forward index.
+ */
+public class VarByteChunkSingleValueTest {
+  private static final int NUM_ROWS = 10009;
+
+  @Test
+  public void testSnappy()
+      throws Exception {
+    test(ChunkCompressorFactory.CompressionType.SNAPPY);
+  }
+
+  @Test
+  public void testPassThrough()
+      throws Exception {
+    test(ChunkCompressorFactory.CompressionType.PASS_THROUGH);
+  }
+
+  private void test(ChunkCompressorFactory.CompressionType compressionType)
+      throws Exception {
+    Random random = new Random();
+    String[] data = new String[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      // Include empty and non ASCII values.
+      int length = random.nextInt(100);
+      data[i] = (i % 10 == 0) ? RandomStringUtils.random(length) : RandomStringUtils.randomAlphanumeric(length);
+    }
+
+    // Test chunks with a single row, chunks that do not divide the number of rows, and a single chunk.
+    for (int numRowsPerChunk : new int[]{1, 1000, NUM_ROWS}) {
+      File file = new File(getClass().getName() + "_" + compressionType + "_" + numRowsPerChunk + ".test");
+      VarByteChunkSingleValueWriter writer =
+          new VarByteChunkSingleValueWriter(file, compressionType, NUM_ROWS, numRowsPerChunk);
+      for (int i = 0; i < NUM_ROWS; i++) {
+        writer.setString(i, data[i]);
+      }
+      writer.close();
+
+      PinotDataBuffer buffer =
+          PinotDataBuffer.fromFile(file, ReadMode.mmap, FileChannel.MapMode.READ_ONLY, "testing");
+      VarByteChunkSingleValueReader reader = new VarByteChunkSingleValueReader(buffer);
+
+      // Sequential reads through one context.
+      ChunkReaderContext context = reader.createContext();
+      for (int i = 0; i < NUM_ROWS; i++) {
+        Assert.assertEquals(reader.getString(i, context), data[i]);
+      }
+
+      // Random reads, with and without context.
+      for (int i = 0; i < 1000; i++) {
+        int row = random.nextInt(NUM_ROWS);
+        Assert.assertEquals(reader.getString(row, context), data[row]);
+        Assert.assertEquals(reader.getString(row), data[row]);
+      }
+
+      reader.close();
+      file.delete();
+    }
+  }
+}
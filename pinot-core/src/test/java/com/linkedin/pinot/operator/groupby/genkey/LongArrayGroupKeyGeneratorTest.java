@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.operator.groupby.genkey;
+
+import com.linkedin.pinot.core.operator.aggregation.groupby.LongArrayGroupKeyGenerator;
+import com.linkedin.pinot.core.operator.aggregation.groupby.LongArrayKeyToIdMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Test for group-by key generator that packs keys into multiple longs.
+ */
+@Test
+public class LongArrayGroupKeyGeneratorTest {
+  private static final int[] CARDINALITIES = new int[]{9, 1000000, 234, 3456789, 56789, 2000000000, 1};
+
+  private final Random _random = new Random();
+
+  /**
+   * Assert that columns never straddle two longs, and that the layout needs more than one long
+   * for cardinalities whose product overflows a long.
+   */
+  @Test
+  void keyLayoutTest() {
+    int numColumns = CARDINALITIES.length;
+    int[] longIndexes = new int[numColumns];
+    int[] bitOffsets = new int[numColumns];
+
+    int numLongsPerKey = LongArrayGroupKeyGenerator.computeKeyLayout(CARDINALITIES, longIndexes, bitOffsets);
+    Assert.assertTrue(numLongsPerKey > 1);
+
+    for (int i = 0; i < numColumns; i++) {
+      int numBits = LongArrayGroupKeyGenerator.getNumBitsForCardinality(CARDINALITIES[i]);
+      Assert.assertTrue((1L << numBits) >= CARDINALITIES[i]);
+      Assert.assertTrue(bitOffsets[i] + numBits <= Long.SIZE);
+      Assert.assertTrue(longIndexes[i] < numLongsPerKey);
+    }
+  }
+
+  /**
+   * Pack random dictionary id's into keys, and assert that the key to id map assigns
+   * contiguous id's, returns the same id for the same key, and round-trips the keys.
+   */
+  @Test
+  void keyToIdMapTest() {
+    int numColumns = CARDINALITIES.length;
+    int[] longIndexes = new int[numColumns];
+    int[] bitOffsets = new int[numColumns];
+    int numLongsPerKey = LongArrayGroupKeyGenerator.computeKeyLayout(CARDINALITIES, longIndexes, bitOffsets);
+
+    // Small initial capacity to exercise rehashing.
+    LongArrayKeyToIdMap keyToIdMap = new LongArrayKeyToIdMap(numLongsPerKey, 1);
+    Map<List<Long>, Integer> expected = new HashMap<>();
+
+    for (int i = 0; i < 100000; i++) {
+      long[] key = new long[numLongsPerKey];
+      for (int j = 0; j < numColumns; j++) {
+        // Restrict the values for some columns so that there are duplicate keys.
+        int value = _random.nextInt(Math.min(CARDINALITIES[j], 16));
+        key[longIndexes[j]] |= ((long) value) << bitOffsets[j];
+      }
+
+      List<Long> keyAsList = toList(key);
+      Integer expectedId = expected.get(keyAsList);
+      int id = keyToIdMap.getOrCreateId(key);
+      if (expectedId == null) {
+        Assert.assertEquals(id, expected.size());
+        expected.put(keyAsList, id);
+      } else {
+        Assert.assertEquals(id, expectedId.intValue());
+      }
+    }
+
+    Assert.assertEquals(keyToIdMap.size(), expected.size());
+    long[] decoded = new long[numLongsPerKey];
+    for (Map.Entry<List<Long>, Integer> entry : expected.entrySet()) {
+      keyToIdMap.getKey(entry.getValue(), decoded);
+      Assert.assertEquals(toList(decoded), entry.getKey());
+    }
+
+    long[] missingKey = new long[numLongsPerKey];
+    Arrays.fill(missingKey, -1L);
+    Assert.assertEquals(keyToIdMap.get(missingKey), LongArrayKeyToIdMap.INVALID_ID);
+  }
+
+  private static List<Long> toList(long[] key) {
+    List<Long> list = new ArrayList<>(key.length);
+    for (long value : key) {
+      list.add(value);
+    }
+    return list;
+  }
+}
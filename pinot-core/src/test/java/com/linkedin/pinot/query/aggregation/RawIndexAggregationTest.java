@@ -0,0 +1,378 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.RecordReader;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.aggregation.AggregationExecutor;
+import com.linkedin.pinot.core.operator.aggregation.DefaultAggregationExecutor;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
+import com.linkedin.pinot.core.query.selection.SelectionFetcher;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.RandomStringUtils;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for columns stored in the raw (no dictionary) forward index.
+ * - Builds two segments with the same random data, one with dictionary encoded columns
+ *   and one with the metric columns and a string dimension configured as raw index columns.
+ * - Asserts that the raw columns have no dictionary, that aggregations and value
+ *   iteration return the same results on both segments, and that selection returns the
+ *   raw string values.
+ */
+@Test
+public class RawIndexAggregationTest {
+  private static final File INDEX_DIR =
+      new File(FileUtils.getTempDirectory() + File.separator + "RawIndexAggregationTest");
+  private static final String DICTIONARY_SEGMENT_NAME = "dictionarySegment";
+  private static final String RAW_SEGMENT_NAME = "rawSegment";
+
+  private static final String[] COLUMNS = {"intMetric", "longMetric", "floatMetric", "doubleMetric"};
+  private static final FieldSpec.DataType[] DATA_TYPES =
+      {FieldSpec.DataType.INT, FieldSpec.DataType.LONG, FieldSpec.DataType.FLOAT, FieldSpec.DataType.DOUBLE};
+  private static final String STRING_COLUMN = "stringDimension";
+  private static final String[] AGGREGATION_FUNCTIONS = {"sum", "max", "min", "distinctcount"};
+  private static final int NUM_ROWS = 10000;
+
+  private IndexSegment _dictionarySegment;
+  private IndexSegment _rawSegment;
+  private File _dictionarySegmentDir;
+  private File _rawSegmentDir;
+  private double[][] _inputData;
+  private String[] _stringData;
+  private int[] _docIdSet;
+
+  @BeforeClass
+  void init()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    Random random = new Random(System.currentTimeMillis());
+    Schema schema = new Schema();
+    for (int i = 0; i < COLUMNS.length; i++) {
+      schema.addField(COLUMNS[i], new MetricFieldSpec(COLUMNS[i], DATA_TYPES[i]));
+    }
+    schema.addField(STRING_COLUMN, new DimensionFieldSpec(STRING_COLUMN, FieldSpec.DataType.STRING, true));
+
+    _inputData = new double[COLUMNS.length][NUM_ROWS];
+    _stringData = new String[NUM_ROWS];
+    _docIdSet = new int[NUM_ROWS];
+    List<GenericRow> data = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Map<String, Object> map = new HashMap<>();
+      for (int j = 0; j < COLUMNS.length; j++) {
+        Object value;
+        switch (DATA_TYPES[j]) {
+          case INT:
+            value = random.nextInt();
+            break;
+          case LONG:
+            // Keep longs within the range that can be represented exactly as a double.
+            value = random.nextLong() >> 12;
+            break;
+          case FLOAT:
+            value = random.nextFloat() * Integer.MAX_VALUE;
+            break;
+          case DOUBLE:
+            value = random.nextDouble() * Integer.MAX_VALUE;
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+        map.put(COLUMNS[j], value);
+        _inputData[j][i] = ((Number) value).doubleValue();
+      }
+      _stringData[i] = RandomStringUtils.randomAlphanumeric(10 + random.nextInt(50));
+      map.put(STRING_COLUMN, _stringData[i]);
+      GenericRow row = new GenericRow();
+      row.init(map);
+      data.add(row);
+      _docIdSet[i] = i;
+    }
+
+    _dictionarySegmentDir = buildSegment(schema, data, DICTIONARY_SEGMENT_NAME, null);
+    List<String> rawIndexColumns = new ArrayList<>(Arrays.asList(COLUMNS));
+    rawIndexColumns.add(STRING_COLUMN);
+    _rawSegmentDir = buildSegment(schema, data, RAW_SEGMENT_NAME, rawIndexColumns);
+    _dictionarySegment = Loaders.IndexSegment.load(_dictionarySegmentDir, ReadMode.heap);
+    _rawSegment = Loaders.IndexSegment.load(_rawSegmentDir, ReadMode.heap);
+  }
+
+  @AfterClass
+  void tearDown() {
+    if (_dictionarySegment != null) {
+      _dictionarySegment.destroy();
+    }
+    if (_rawSegment != null) {
+      _rawSegment.destroy();
+    }
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  /**
+   * Asserts that the raw columns are written without dictionary, and that for high cardinality
+   * columns the raw segment is smaller than the dictionary encoded one.
+   */
+  @Test
+  void testSegmentFormat() {
+    SegmentMetadataImpl metadata = (SegmentMetadataImpl) _rawSegment.getSegmentMetadata();
+    List<String> columns = new ArrayList<>(Arrays.asList(COLUMNS));
+    columns.add(STRING_COLUMN);
+    for (String column : columns) {
+      Assert.assertFalse(metadata.getColumnMetadataFor(column).hasDictionary());
+      Assert.assertNull(_rawSegment.getDataSource(column).getDictionary());
+      Assert.assertTrue(new File(_rawSegmentDir, column + V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION).exists());
+      Assert.assertFalse(new File(_rawSegmentDir, column + V1Constants.Dict.FILE_EXTENTION).exists());
+      Assert.assertTrue(((SegmentMetadataImpl) _dictionarySegment.getSegmentMetadata()).hasDictionary(column));
+    }
+    Assert.assertTrue(FileUtils.sizeOfDirectory(_rawSegmentDir) < FileUtils.sizeOfDirectory(_dictionarySegmentDir));
+  }
+
+  /**
+   * Runs aggregation functions on all columns of both segments, and asserts that the results
+   * match with each other and with the locally computed ones.
+   */
+  @Test
+  void testAggregation() {
+    List<AggregationInfo> aggregationInfoList = new ArrayList<>();
+    for (String column : COLUMNS) {
+      for (String function : AGGREGATION_FUNCTIONS) {
+        AggregationInfo aggregationInfo = new AggregationInfo();
+        aggregationInfo.setAggregationType(function);
+        Map<String, String> params = new HashMap<>();
+        params.put("column", column);
+        aggregationInfo.setAggregationParams(params);
+        aggregationInfoList.add(aggregationInfo);
+      }
+    }
+
+    List<Serializable> dictionaryResult = aggregate(_dictionarySegment, aggregationInfoList);
+    List<Serializable> rawResult = aggregate(_rawSegment, aggregationInfoList);
+    Assert.assertEquals(rawResult, dictionaryResult);
+
+    for (int i = 0; i < COLUMNS.length; i++) {
+      double[] values = _inputData[i];
+      double sum = 0;
+      double max = Double.NEGATIVE_INFINITY;
+      double min = Double.POSITIVE_INFINITY;
+      for (double value : values) {
+        sum += value;
+        max = Math.max(max, value);
+        min = Math.min(min, value);
+      }
+      int resultIndex = i * AGGREGATION_FUNCTIONS.length;
+      Assert.assertEquals((double) rawResult.get(resultIndex), sum, Math.abs(sum) * 1e-10, COLUMNS[i]);
+      Assert.assertEquals((double) rawResult.get(resultIndex + 1), max, COLUMNS[i]);
+      Assert.assertEquals((double) rawResult.get(resultIndex + 2), min, COLUMNS[i]);
+    }
+  }
+
+  /**
+   * Asserts that the values read through the block value iterator of the raw segment (as done
+   * by selection queries) are the same as the input data.
+   */
+  @Test
+  void testValueIterator() {
+    for (int i = 0; i < COLUMNS.length; i++) {
+      DataSource dataSource = _rawSegment.getDataSource(COLUMNS[i]);
+      BlockSingleValIterator iterator =
+          (BlockSingleValIterator) dataSource.getNextBlock().getBlockValueSet().iterator();
+      int docId = 0;
+      while (iterator.hasNext()) {
+        double value;
+        switch (DATA_TYPES[i]) {
+          case INT:
+            value = iterator.nextIntVal();
+            break;
+          case LONG:
+            value = iterator.nextLongVal();
+            break;
+          case FLOAT:
+            value = iterator.nextFloatVal();
+            break;
+          default:
+            value = iterator.nextDoubleVal();
+            break;
+        }
+        Assert.assertEquals(value, _inputData[i][docId], COLUMNS[i]);
+        docId++;
+      }
+      Assert.assertEquals(docId, NUM_ROWS);
+    }
+  }
+
+  /**
+   * Asserts that readDoubleValues returns the input data for both segments, reading through the
+   * dictionary for the dictionary segment.
+   */
+  @Test
+  void testReadDoubleValues() {
+    int[] docIds = new int[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      docIds[i] = NUM_ROWS - 1 - i;
+    }
+    for (IndexSegment segment : new IndexSegment[]{_rawSegment, _dictionarySegment}) {
+      for (int i = 0; i < COLUMNS.length; i++) {
+        BlockValSet blockValSet = segment.getDataSource(COLUMNS[i]).getNextBlock().getBlockValueSet();
+        double[] values = new double[NUM_ROWS + 1];
+        blockValSet.readDoubleValues(docIds, 1, NUM_ROWS - 1, values, 2);
+        for (int j = 1; j < NUM_ROWS; j++) {
+          Assert.assertEquals(values[j + 1], _inputData[i][docIds[j]], COLUMNS[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Asserts that a filter on a raw column fails with a clear error instead of a failure inside the
+   * filter operator.
+   */
+  @Test
+  void testFilterOnRawColumn() {
+    BrokerRequest brokerRequest = new Pql2Compiler().compileToBrokerRequest(
+        "select count(*) from testTable where " + COLUMNS[3] + " > 10");
+    try {
+      new FilterPlanNode(_rawSegment, brokerRequest).run();
+      Assert.fail("Filter on raw column should fail");
+    } catch (UnsupportedOperationException e) {
+      Assert.assertEquals(e.getMessage(), "Filtering on no-dictionary column " + COLUMNS[3] + " is not supported");
+    }
+    Assert.assertNotNull(new FilterPlanNode(_dictionarySegment, brokerRequest).run());
+  }
+
+  /**
+   * Runs the selection fetcher on the raw string column and a raw metric column, reading rows in
+   * order and at random, and asserts that the rows are the same as the input data.
+   */
+  @Test
+  void testSelection() {
+    Block[] blocks = new Block[]{_rawSegment.getDataSource(STRING_COLUMN).getNextBlock(),
+        _rawSegment.getDataSource(COLUMNS[3]).getNextBlock()};
+    DataSchema dataSchema = new DataSchema(new String[]{STRING_COLUMN, COLUMNS[3]},
+        new FieldSpec.DataType[]{FieldSpec.DataType.STRING, FieldSpec.DataType.DOUBLE});
+    SelectionFetcher selectionFetcher = new SelectionFetcher(blocks, dataSchema);
+
+    for (int docId = 0; docId < NUM_ROWS; docId++) {
+      Serializable[] row = selectionFetcher.getRow(docId);
+      Assert.assertEquals(row[0], _stringData[docId]);
+      Assert.assertEquals(row[1], _inputData[3][docId]);
+    }
+
+    Random random = new Random();
+    for (int i = 0; i < 1000; i++) {
+      int docId = random.nextInt(NUM_ROWS);
+      Assert.assertEquals(selectionFetcher.getRow(docId)[0], _stringData[docId]);
+    }
+  }
+
+  private List<Serializable> aggregate(IndexSegment indexSegment, List<AggregationInfo> aggregationInfoList) {
+    AggregationExecutor aggregationExecutor = new DefaultAggregationExecutor(indexSegment, aggregationInfoList);
+    aggregationExecutor.init();
+    aggregationExecutor.aggregate(_docIdSet, 0, NUM_ROWS);
+    aggregationExecutor.finish();
+    return aggregationExecutor.getResult();
+  }
+
+  private File buildSegment(Schema schema, List<GenericRow> data, String segmentName, List<String> rawIndexColumns)
+      throws Exception {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig();
+    config.setSegmentName(segmentName);
+    config.setOutDir(new File(INDEX_DIR, segmentName).getAbsolutePath());
+    config.setSchema(schema);
+    if (rawIndexColumns != null) {
+      config.setRawIndexCreationColumns(rawIndexColumns);
+    }
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, createReader(schema, data));
+    driver.build();
+    return new File(new File(INDEX_DIR, segmentName), driver.getSegmentName());
+  }
+
+  private RecordReader createReader(final Schema schema, final List<GenericRow> data) {
+    return new RecordReader() {
+      int counter = 0;
+
+      @Override
+      public void rewind()
+          throws Exception {
+        counter = 0;
+      }
+
+      @Override
+      public GenericRow next() {
+        return data.get(counter++);
+      }
+
+      @Override
+      public void init()
+          throws Exception {
+      }
+
+      @Override
+      public boolean hasNext() {
+        return counter < data.size();
+      }
+
+      @Override
+      public Schema getSchema() {
+        return schema;
+      }
+
+      @Override
+      public Map<String, MutableLong> getNullCountMap() {
+        return null;
+      }
+
+      @Override
+      public void close()
+          throws Exception {
+      }
+    };
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.executor;
+
+import com.linkedin.pinot.core.query.executor.QueryResourceLimitExceededException;
+import com.linkedin.pinot.core.query.executor.QueryResourceTracker;
+import com.linkedin.pinot.core.util.trace.TraceRunnable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for per query resource accounting and limits.
+ */
+public class QueryResourceTrackerTest {
+  private static final int NUM_ALLOCATIONS = 1000;
+
+  private volatile Object _sink;
+
+  @AfterMethod
+  public void tearDown() {
+    while (QueryResourceTracker.getTrackerForCurrentThread() != null) {
+      QueryResourceTracker.unregister();
+    }
+  }
+
+  @Test
+  public void testAccounting() {
+    QueryResourceTracker tracker = new QueryResourceTracker(-1, -1);
+    QueryResourceTracker.register(tracker);
+    Assert.assertSame(QueryResourceTracker.getTrackerForCurrentThread(), tracker);
+    doWork();
+    QueryResourceTracker.checkResourceUsage();
+    QueryResourceTracker.unregister();
+    Assert.assertNull(QueryResourceTracker.getTrackerForCurrentThread());
+
+    Assert.assertTrue(tracker.getCpuTimeNs() >= 0);
+    Assert.assertTrue(tracker.getAllocatedBytes() > 0);
+    Assert.assertFalse(tracker.isLimitExceeded());
+
+    // Nothing is accounted once the thread is unregistered
+    long allocatedBytes = tracker.getAllocatedBytes();
+    doWork();
+    QueryResourceTracker.checkResourceUsage();
+    Assert.assertEquals(tracker.getAllocatedBytes(), allocatedBytes);
+  }
+
+  @Test
+  public void testAllocationLimit() {
+    QueryResourceTracker tracker = new QueryResourceTracker(-1, 1024);
+    QueryResourceTracker.register(tracker);
+    doWork();
+    try {
+      QueryResourceTracker.checkResourceUsage();
+      Assert.fail("Query should have been killed");
+    } catch (QueryResourceLimitExceededException e) {
+      // Expected
+    }
+    Assert.assertTrue(tracker.isLimitExceeded());
+  }
+
+  @Test
+  public void testWorkerThreads() throws Exception {
+    final QueryResourceTracker tracker = new QueryResourceTracker(-1, -1);
+    QueryResourceTracker.register(tracker);
+    QueryResourceTracker.updateResourceUsage();
+    long allocatedBytesBeforeWorkers = tracker.getAllocatedBytes();
+
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      final long[] workerAllocatedBytes = new long[4];
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        final int index = i;
+        futures.add(executorService.submit(new TraceRunnable() {
+          @Override
+          public void runJob() {
+            Assert.assertSame(QueryResourceTracker.getTrackerForCurrentThread(), tracker);
+            QueryResourceTracker workerTracker = new QueryResourceTracker(-1, -1);
+
+            // Nested registration is accounted to the inner tracker only
+            QueryResourceTracker.register(workerTracker);
+            doWork();
+            QueryResourceTracker.unregister();
+            workerAllocatedBytes[index] = workerTracker.getAllocatedBytes();
+            Assert.assertSame(QueryResourceTracker.getTrackerForCurrentThread(), tracker);
+
+            doWork();
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      for (long allocatedBytes : workerAllocatedBytes) {
+        Assert.assertTrue(allocatedBytes > 0);
+      }
+    } finally {
+      executorService.shutdown();
+    }
+
+    // The current thread was not sampled again, so the increase comes from the worker threads
+    Assert.assertTrue(tracker.getAllocatedBytes() > allocatedBytesBeforeWorkers);
+  }
+
+  private void doWork() {
+    for (int i = 0; i < NUM_ALLOCATIONS; i++) {
+      _sink = new long[16];
+    }
+  }
+}
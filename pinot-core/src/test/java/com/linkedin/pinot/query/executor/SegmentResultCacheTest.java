@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.executor;
+
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.executor.SegmentResultCache;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Tests for the server side segment result cache.
+ */
+public class SegmentResultCacheTest {
+  private static final byte[] REQUEST_BYTES = new byte[]{1, 2, 3};
+
+  private final SegmentResultCache _cache = SegmentResultCache.getInstance();
+  private List<AggregationInfo> _aggregationsInfo;
+
+  @BeforeMethod
+  public void setUp() {
+    _cache.configure(10, 1024 * 1024);
+    AggregationInfo aggregationInfo = new AggregationInfo();
+    aggregationInfo.setAggregationType("sum");
+    aggregationInfo.setAggregationParams(Collections.singletonMap("column", "met"));
+    _aggregationsInfo = Collections.singletonList(aggregationInfo);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    for (int i = 0; i < 20; i++) {
+      _cache.invalidate("segment" + i);
+    }
+  }
+
+  @Test
+  public void testAggregationResults() {
+    SegmentResultCache.Key key = _cache.getKey(mockSegment("segment0", "crc0"), REQUEST_BYTES);
+    Assert.assertNull(_cache.get(key, _aggregationsInfo));
+
+    List<Serializable> results = new ArrayList<>();
+    results.add(10.0);
+    IntermediateResultsBlock block = new IntermediateResultsBlock(
+        AggregationFunctionFactory.getAggregationFunction(_aggregationsInfo), results);
+    block.setNumDocsScanned(5);
+    block.setTotalRawDocs(100);
+    _cache.put(key, block);
+    Assert.assertEquals(_cache.size(), 1);
+
+    // Hits return copies, modifying one does not modify the cached results
+    IntermediateResultsBlock cachedBlock =
+        _cache.get(_cache.getKey(mockSegment("segment0", "crc0"), REQUEST_BYTES.clone()), _aggregationsInfo);
+    Assert.assertNotNull(cachedBlock);
+    Assert.assertEquals(cachedBlock.getAggregationResult().get(0), 10.0);
+    Assert.assertEquals(cachedBlock.getNumDocsScanned(), 5);
+    Assert.assertEquals(cachedBlock.getTotalRawDocs(), 100);
+    cachedBlock.getAggregationResult().set(0, 20.0);
+    Assert.assertEquals(_cache.get(key, _aggregationsInfo).getAggregationResult().get(0), 10.0);
+
+    // Different CRC or request does not hit
+    Assert.assertNull(_cache.get(_cache.getKey(mockSegment("segment0", "crc1"), REQUEST_BYTES), _aggregationsInfo));
+    Assert.assertNull(
+        _cache.get(_cache.getKey(mockSegment("segment0", "crc0"), new byte[]{1, 2}), _aggregationsInfo));
+  }
+
+  @Test
+  public void testGroupByResults() {
+    SegmentResultCache.Key key = _cache.getKey(mockSegment("segment1", "crc"), REQUEST_BYTES);
+    Map<String, Serializable> groups = new HashMap<>();
+    groups.put("a", 1.0);
+    groups.put("b", 2.0);
+    List<Map<String, Serializable>> results = new ArrayList<>();
+    results.add(groups);
+    _cache.put(key, new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(_aggregationsInfo),
+        results, true));
+
+    IntermediateResultsBlock cachedBlock = _cache.get(key, _aggregationsInfo);
+    Assert.assertNotNull(cachedBlock);
+    Assert.assertEquals(cachedBlock.getAggregationGroupByOperatorResult(), results);
+  }
+
+  @Test
+  public void testNonCacheableResults() {
+    SegmentResultCache.Key key = _cache.getKey(mockSegment("segment2", "crc"), REQUEST_BYTES);
+    _cache.put(key, new IntermediateResultsBlock(new RuntimeException()));
+    Assert.assertEquals(_cache.size(), 0);
+
+    Assert.assertNull(_cache.getKey(mockSegment("segment2", null), REQUEST_BYTES));
+  }
+
+  @Test
+  public void testInvalidateAndEviction() {
+    for (int i = 0; i < 15; i++) {
+      List<Serializable> results = new ArrayList<>();
+      results.add((double) i);
+      _cache.put(_cache.getKey(mockSegment("segment" + i, "crc"), REQUEST_BYTES),
+          new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(_aggregationsInfo), results));
+    }
+    Assert.assertEquals(_cache.size(), 10);
+    // Least recently used entries are evicted first
+    Assert.assertNull(_cache.get(_cache.getKey(mockSegment("segment0", "crc"), REQUEST_BYTES), _aggregationsInfo));
+    Assert.assertNotNull(
+        _cache.get(_cache.getKey(mockSegment("segment14", "crc"), REQUEST_BYTES), _aggregationsInfo));
+
+    _cache.invalidate("segment14");
+    Assert.assertEquals(_cache.size(), 9);
+    Assert.assertNull(_cache.get(_cache.getKey(mockSegment("segment14", "crc"), REQUEST_BYTES), _aggregationsInfo));
+
+    long sizeInBytes = _cache.getSizeInBytes();
+    _cache.configure(10, sizeInBytes / 2);
+    Assert.assertTrue(_cache.getSizeInBytes() <= sizeInBytes / 2);
+    Assert.assertTrue(_cache.size() < 9);
+  }
+
+  private static IndexSegment mockSegment(String segmentName, String crc) {
+    SegmentMetadata segmentMetadata = mock(SegmentMetadata.class);
+    when(segmentMetadata.getCrc()).thenReturn(crc);
+    IndexSegment indexSegment = mock(IndexSegment.class);
+    when(indexSegment.getSegmentName()).thenReturn(segmentName);
+    when(indexSegment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    return indexSegment;
+  }
+}
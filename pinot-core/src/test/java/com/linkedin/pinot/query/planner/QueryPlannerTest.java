@@ -26,7 +26,7 @@ import com.linkedin.pinot.core.query.planner.ParallelQueryPlannerImpl;
 import com.linkedin.pinot.core.query.planner.QueryPlan;
 import com.linkedin.pinot.core.query.planner.QueryPlanner;
 import com.linkedin.pinot.core.query.planner.SequentialQueryPlannerImpl;
-import com.linkedin.pinot.core.startree.StarTree;
+import com.linkedin.pinot.core.startree.OffHeapStarTree;
 import java.util.ArrayList;
 import java.util.List;
 import org.testng.annotations.BeforeMethod;
@@ -88,7 +88,7 @@ public class QueryPlannerTest {
         }
 
         @Override
-        public StarTree getStarTree() {
+        public OffHeapStarTree getStarTree() {
           return null;
         }
 
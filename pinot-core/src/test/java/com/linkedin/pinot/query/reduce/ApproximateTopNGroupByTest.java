@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.reduce;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.AggregationResult;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.primitive.MutableLongValue;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.reduce.BrokerReduceService;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Asserts that the approximate TOP N group-by sends only the top candidates from each server, and that the error
+ * bound reported by the broker holds for the returned values and the returned TOP N groups.
+ */
+public class ApproximateTopNGroupByTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final int NUM_SERVERS = 8;
+  private static final int NUM_GROUPS = 1000;
+  private static final int TOP_N = 10;
+  private static final double DELTA = 1e-3;
+
+  private final Random _random = new Random();
+
+  @Test
+  public void testApproximateTopN()
+      throws Exception {
+    testApproximateTopN(2 * TOP_N, false);
+  }
+
+  @Test
+  public void testExactTopN()
+      throws Exception {
+    testApproximateTopN(NUM_GROUPS, true);
+  }
+
+  @Test
+  public void testNegativeSum()
+      throws Exception {
+    BrokerRequest brokerRequest =
+        COMPILER.compileToBrokerRequest("select sum(met), count(*) from testTable group by dimString top " + TOP_N);
+    brokerRequest.putToQueryOptions(AggregationGroupByOperatorService.APPROXIMATE_TOP_N_QUERY_OPTION, "true");
+    List<AggregationFunction> aggregationFunctions = AggregationFunctionFactory.getAggregationFunction(brokerRequest);
+    int numAggregationFunctions = aggregationFunctions.size();
+    AggregationGroupByOperatorService aggregationGroupByOperatorService =
+        new AggregationGroupByOperatorService(brokerRequest.getAggregationsInfo(), brokerRequest.getGroupBy());
+    int numCandidates = 2 * TOP_N;
+
+    Map<ServerInstance, DataTable> instanceResponseMap = new LinkedHashMap<>();
+    for (int server = 0; server < NUM_SERVERS; server++) {
+      Map<String, Serializable[]> serverResults = new HashMap<>();
+      for (int group = 0; group < NUM_GROUPS; group++) {
+        // A group trimmed with a large negative value would make the sum of the returned groups an over-estimate.
+        double sum = (group == server) ? -1000000.0 : (double) _random.nextInt(1000);
+        serverResults.put("group" + group, new Serializable[]{sum, new MutableLongValue(1L)});
+      }
+
+      double[] trimThresholds = new double[numAggregationFunctions];
+      List<Map<String, Serializable>> trimmedResults = aggregationGroupByOperatorService.trimToApproximateTopN(
+          serverResults, numAggregationFunctions, numCandidates, trimThresholds);
+      Assert.assertTrue(Double.isNaN(trimThresholds[0]));
+      Assert.assertEquals(trimmedResults.get(1).size(), numCandidates);
+      Assert.assertFalse(Double.isNaN(trimThresholds[1]));
+
+      IntermediateResultsBlock resultsBlock = new IntermediateResultsBlock(aggregationFunctions, trimmedResults, true);
+      resultsBlock.setGroupByTrimThresholds(trimThresholds);
+      instanceResponseMap.put(new ServerInstance("localhost", 1000 + server),
+          new DataTable(resultsBlock.getDataTable().toBytes()));
+    }
+
+    BrokerResponseNative brokerResponse =
+        new BrokerReduceService().reduceOnDataTable(brokerRequest, instanceResponseMap);
+    List<AggregationResult> aggregationResults = brokerResponse.getAggregationResults();
+    Assert.assertNull(aggregationResults.get(0).getMaxError());
+    Assert.assertNotNull(aggregationResults.get(1).getMaxError());
+  }
+
+  private void testApproximateTopN(int numCandidates, boolean expectExact)
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(
+        "select sum(met), count(*), max(met) from testTable group by dimString top " + TOP_N);
+    brokerRequest.putToQueryOptions(AggregationGroupByOperatorService.APPROXIMATE_TOP_N_QUERY_OPTION, "true");
+    brokerRequest.putToQueryOptions(AggregationGroupByOperatorService.APPROXIMATE_TOP_N_CANDIDATES_QUERY_OPTION,
+        Integer.toString(numCandidates));
+    Assert.assertEquals(AggregationGroupByOperatorService.getNumApproximateTopNCandidates(brokerRequest),
+        numCandidates);
+
+    List<AggregationFunction> aggregationFunctions = AggregationFunctionFactory.getAggregationFunction(brokerRequest);
+    int numAggregationFunctions = aggregationFunctions.size();
+    AggregationGroupByOperatorService aggregationGroupByOperatorService =
+        new AggregationGroupByOperatorService(brokerRequest.getAggregationsInfo(), brokerRequest.getGroupBy());
+
+    Map<String, double[]> expectedResults = new HashMap<>();
+    Map<ServerInstance, DataTable> instanceResponseMap = new LinkedHashMap<>();
+    for (int server = 0; server < NUM_SERVERS; server++) {
+      Map<String, Serializable[]> serverResults = new HashMap<>();
+      for (int group = 0; group < NUM_GROUPS; group++) {
+        // Skewed values, so that the TOP N groups are mostly, but not always, the top candidates of each server.
+        double sum = (double) _random.nextInt(1000000 / (group + 1) + 1);
+        long count = _random.nextInt(10000 / (group + 1) + 1);
+        String groupKey = "group" + group;
+        serverResults.put(groupKey, new Serializable[]{sum, new MutableLongValue(count), sum});
+
+        double[] expected = expectedResults.get(groupKey);
+        if (expected == null) {
+          expected = new double[numAggregationFunctions];
+          expectedResults.put(groupKey, expected);
+        }
+        expected[0] += sum;
+        expected[1] += count;
+        expected[2] = Math.max(expected[2], sum);
+      }
+
+      double[] trimThresholds = new double[numAggregationFunctions];
+      List<Map<String, Serializable>> trimmedResults = aggregationGroupByOperatorService.trimToApproximateTopN(
+          serverResults, numAggregationFunctions, numCandidates, trimThresholds);
+      Assert.assertEquals(trimmedResults.get(0).size(), Math.min(numCandidates, NUM_GROUPS));
+      Assert.assertEquals(trimmedResults.get(1).size(), Math.min(numCandidates, NUM_GROUPS));
+      Assert.assertEquals(trimmedResults.get(2).size(), NUM_GROUPS);
+      Assert.assertTrue(Double.isNaN(trimThresholds[2]));
+
+      IntermediateResultsBlock resultsBlock = new IntermediateResultsBlock(aggregationFunctions, trimmedResults, true);
+      resultsBlock.setGroupByTrimThresholds(trimThresholds);
+      instanceResponseMap.put(new ServerInstance("localhost", 1000 + server),
+          new DataTable(resultsBlock.getDataTable().toBytes()));
+    }
+
+    BrokerResponseNative brokerResponse =
+        new BrokerReduceService().reduceOnDataTable(brokerRequest, instanceResponseMap);
+    List<AggregationResult> aggregationResults = brokerResponse.getAggregationResults();
+    Assert.assertEquals(aggregationResults.size(), numAggregationFunctions);
+    Assert.assertNull(aggregationResults.get(2).getMaxError());
+
+    for (int i = 0; i < 2; i++) {
+      Double maxError = aggregationResults.get(i).getMaxError();
+      Assert.assertNotNull(maxError);
+      if (expectExact) {
+        Assert.assertEquals(maxError, 0.0, DELTA);
+      }
+
+      List<GroupByResult> groupByResults = aggregationResults.get(i).getGroupByResult();
+      Assert.assertEquals(groupByResults.size(), TOP_N);
+      Set<String> returnedGroups = new HashSet<>();
+      double nthValue = Double.MAX_VALUE;
+      for (GroupByResult groupByResult : groupByResults) {
+        String groupKey = groupByResult.getGroup().get(0);
+        double value = Double.parseDouble(groupByResult.getValue().toString());
+        double expectedValue = expectedResults.get(groupKey)[i];
+        Assert.assertTrue(value <= expectedValue + DELTA);
+        Assert.assertTrue(expectedValue - value <= maxError + DELTA);
+        returnedGroups.add(groupKey);
+        nthValue = Math.min(nthValue, value);
+      }
+
+      // No group that was not returned may exceed the N-th returned value by more than the error bound.
+      for (Map.Entry<String, double[]> entry : expectedResults.entrySet()) {
+        if (!returnedGroups.contains(entry.getKey())) {
+          Assert.assertTrue(entry.getValue()[i] - nthValue <= maxError + DELTA);
+        }
+      }
+    }
+  }
+}
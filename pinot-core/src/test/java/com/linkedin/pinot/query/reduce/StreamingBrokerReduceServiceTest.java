@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.reduce;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.query.DataTableReducer;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ProcessingException;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.AggregationResult;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.DataTableBuilder;
+import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.reduce.BrokerReduceService;
+import com.linkedin.pinot.core.query.reduce.StreamingBrokerReduceService;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Asserts that the streaming reduce returns the same results as the reduce on all the DataTables at once.
+ */
+public class StreamingBrokerReduceServiceTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final int NUM_SERVERS = 12;
+  private static final int NUM_GROUPS = 5000;
+
+  private final Random _random = new Random();
+  private ExecutorService _executorService;
+  private StreamingBrokerReduceService _streamingReduceService;
+
+  @BeforeClass
+  public void setUp() {
+    _executorService = Executors.newFixedThreadPool(4);
+    _streamingReduceService = new StreamingBrokerReduceService(_executorService, 4);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _executorService.shutdown();
+  }
+
+  @Test
+  public void testGroupBy()
+      throws Exception {
+    BrokerRequest brokerRequest =
+        COMPILER.compileToBrokerRequest("select sum(met), max(met) from testTable group by dim top 20");
+
+    // Sum of each group is unique (see getValue), so that the TOP N has no ties.
+    Map<ServerInstance, DataTable> instanceResponseMap = new LinkedHashMap<>();
+    for (int server = 0; server < NUM_SERVERS; server++) {
+      Map<String, Serializable> sumResults = new HashMap<>();
+      Map<String, Serializable> maxResults = new HashMap<>();
+      for (int group = 0; group < NUM_GROUPS; group++) {
+        if (_random.nextBoolean()) {
+          sumResults.put("group" + group, getValue(group, server));
+          maxResults.put("group" + group, getValue(group, server));
+        }
+      }
+      instanceResponseMap.put(new ServerInstance("localhost", 1000 + server),
+          buildGroupByDataTable(new String[]{"sum_met", "max_met"}, sumResults, maxResults));
+    }
+    instanceResponseMap.put(new ServerInstance("localhost", 999), buildExceptionDataTable());
+
+    BrokerResponseNative expected =
+        new BrokerReduceService().reduceOnDataTable(brokerRequest, new HashMap<>(instanceResponseMap));
+
+    DataTableReducer<BrokerResponseNative> reducer = _streamingReduceService.getDataTableReducer(brokerRequest);
+    for (Map.Entry<ServerInstance, DataTable> entry : instanceResponseMap.entrySet()) {
+      reducer.reduce(entry.getKey(), entry.getValue());
+    }
+    BrokerResponseNative actual = reducer.getBrokerResponse();
+
+    Assert.assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned());
+    Assert.assertEquals(actual.getTotalDocs(), expected.getTotalDocs());
+    Assert.assertEquals(actual.getProcessingExceptions().size(), 1);
+
+    List<AggregationResult> expectedResults = expected.getAggregationResults();
+    List<AggregationResult> actualResults = actual.getAggregationResults();
+    Assert.assertEquals(actualResults.size(), expectedResults.size());
+    for (int i = 0; i < expectedResults.size(); i++) {
+      List<GroupByResult> expectedGroups = expectedResults.get(i).getGroupByResult();
+      List<GroupByResult> actualGroups = actualResults.get(i).getGroupByResult();
+      Assert.assertEquals(actualGroups.size(), 20);
+      Assert.assertEquals(actualGroups.size(), expectedGroups.size());
+      for (int j = 0; j < expectedGroups.size(); j++) {
+        Assert.assertEquals(actualGroups.get(j).getGroup(), expectedGroups.get(j).getGroup());
+        Assert.assertEquals(actualGroups.get(j).getValue(), expectedGroups.get(j).getValue());
+      }
+    }
+  }
+
+  @Test
+  public void testApproximateTopNGroupBy()
+      throws Exception {
+    BrokerRequest brokerRequest =
+        COMPILER.compileToBrokerRequest("select sum(met) from testTable group by dim top 5");
+    brokerRequest.putToQueryOptions(AggregationGroupByOperatorService.APPROXIMATE_TOP_N_QUERY_OPTION, "true");
+
+    Map<ServerInstance, DataTable> instanceResponseMap = new LinkedHashMap<>();
+    for (int server = 0; server < NUM_SERVERS; server++) {
+      Map<String, Serializable> sumResults = new HashMap<>();
+      for (int group = server; group < server + 10; group++) {
+        sumResults.put("group" + group, 100.0 - group);
+      }
+      DataTable dataTable = buildGroupByDataTable(new String[]{"sum_met"}, sumResults);
+      dataTable.getMetadata().put(AggregationGroupByOperatorService.GROUP_BY_TRIM_THRESHOLDS_METADATA_KEY, "50.0");
+      instanceResponseMap.put(new ServerInstance("localhost", 1000 + server), dataTable);
+    }
+
+    BrokerResponseNative expected =
+        new BrokerReduceService().reduceOnDataTable(brokerRequest, new HashMap<>(instanceResponseMap));
+    Double expectedMaxError = expected.getAggregationResults().get(0).getMaxError();
+    Assert.assertNotNull(expectedMaxError);
+
+    // The approximate results carry the same error bound as with the non streaming reduce
+    DataTableReducer<BrokerResponseNative> reducer = _streamingReduceService.getDataTableReducer(brokerRequest);
+    for (Map.Entry<ServerInstance, DataTable> entry : instanceResponseMap.entrySet()) {
+      reducer.reduce(entry.getKey(), entry.getValue());
+    }
+    AggregationResult actual = reducer.getBrokerResponse().getAggregationResults().get(0);
+    Assert.assertEquals(actual.getMaxError(), expectedMaxError);
+    Assert.assertEquals(actual.getGroupByResult().size(), 5);
+  }
+
+  @Test
+  public void testSelection()
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("select * from testTable");
+    DataTableReducer<BrokerResponseNative> reducer = _streamingReduceService.getDataTableReducer(brokerRequest);
+    reducer.reduce(new ServerInstance("localhost", 999), buildExceptionDataTable());
+    BrokerResponseNative actual = reducer.getBrokerResponse();
+    Assert.assertEquals(actual.getProcessingExceptions().size(), 1);
+
+    reducer = _streamingReduceService.getDataTableReducer(brokerRequest);
+    Assert.assertSame(reducer.getBrokerResponse(), BrokerResponseNative.EMPTY_RESULT);
+  }
+
+  /**
+   * Group 'g' on server 's' has value g * 10^6 + 2^s. As there are less than 20 servers, the sum
+   * of the values of a group identifies both the set of servers it is on and the group.
+   */
+  private static double getValue(int group, int server) {
+    return group * 1000000.0 + (1 << server);
+  }
+
+  private static DataTable buildGroupByDataTable(String[] functionNames, Map<String, Serializable>... results)
+      throws Exception {
+    DataSchema dataSchema = new DataSchema(new String[]{"functionName", "GroupByResultMap"},
+        new DataType[]{DataType.STRING, DataType.OBJECT});
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    dataTableBuilder.open();
+    for (int i = 0; i < functionNames.length; i++) {
+      dataTableBuilder.startRow();
+      dataTableBuilder.setColumn(0, functionNames[i]);
+      dataTableBuilder.setColumn(1, results[i]);
+      dataTableBuilder.finishRow();
+    }
+    dataTableBuilder.addMetaData("numDocsScanned", "100");
+    dataTableBuilder.addMetaData("totalDocs", "1000");
+    dataTableBuilder.addMetaData("timeUsedMs", "10");
+    dataTableBuilder.seal();
+    return dataTableBuilder.build();
+  }
+
+  private static DataTable buildExceptionDataTable() {
+    ProcessingException processingException = QueryException.QUERY_EXECUTION_ERROR.deepCopy();
+    processingException.setMessage("Query execution failed");
+    DataTable dataTable = new DataTable();
+    dataTable.addException(processingException);
+    return dataTable;
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.reduce;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.AggregationResult;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.primitive.MutableLongValue;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyTuple;
+import com.linkedin.pinot.core.query.reduce.BrokerReduceService;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Asserts that group-by results sent with typed group-by keys reduce to the same results as string group-by keys,
+ * both when all servers send typed keys and when some servers still send string keys.
+ */
+public class TypedGroupKeyReduceTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final int NUM_SERVERS = 8;
+  private static final int NUM_GROUPS = 2000;
+
+  private final Random _random = new Random();
+
+  @Test
+  public void testTypedGroupKeys()
+      throws Exception {
+    testReduce(NUM_SERVERS, true);
+  }
+
+  @Test
+  public void testMixedGroupKeys()
+      throws Exception {
+    testReduce(NUM_SERVERS / 2, false);
+  }
+
+  private void testReduce(int numTypedServers, boolean expectTypedReduce)
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(
+        "select sum(met), count(*) from testTable group by dimInt, dimString top 20");
+    List<AggregationFunction> aggregationFunctions = AggregationFunctionFactory.getAggregationFunction(brokerRequest);
+    List<String> groupByColumns = brokerRequest.getGroupBy().getColumns();
+
+    Map<ServerInstance, DataTable> instanceResponseMap = new LinkedHashMap<>();
+    Map<ServerInstance, DataTable> expectedResponseMap = new LinkedHashMap<>();
+    for (int server = 0; server < NUM_SERVERS; server++) {
+      Map<GroupKeyTuple, Serializable[]> typedResults = new HashMap<>();
+      List<Map<String, Serializable>> stringResults = new ArrayList<>();
+      stringResults.add(new HashMap<String, Serializable>());
+      stringResults.add(new HashMap<String, Serializable>());
+
+      for (int group = 0; group < NUM_GROUPS; group++) {
+        if (_random.nextBoolean()) {
+          GroupKeyTuple groupKey = new GroupKeyTuple(new Object[]{group, "group" + group});
+          Serializable sum = group * 1000000.0 + (1 << server);
+          Serializable count = new MutableLongValue(group * 1000000L + (1 << server));
+          typedResults.put(groupKey, new Serializable[]{sum, count});
+          stringResults.get(0).put(groupKey.getStringKey(), sum);
+          stringResults.get(1).put(groupKey.getStringKey(), count);
+        }
+      }
+
+      ServerInstance serverInstance = new ServerInstance("localhost", 1000 + server);
+      DataTable stringDataTable =
+          new IntermediateResultsBlock(aggregationFunctions, stringResults, true).getDataTable();
+      DataTable typedDataTable =
+          new IntermediateResultsBlock(aggregationFunctions, groupByColumns, typedResults).getDataTable();
+      expectedResponseMap.put(serverInstance, new DataTable(stringDataTable.toBytes()));
+      instanceResponseMap.put(serverInstance,
+          new DataTable((server < numTypedServers ? typedDataTable : stringDataTable).toBytes()));
+    }
+
+    Assert.assertEquals(AggregationGroupByOperatorService.canReduceTypedGroupByOperators(instanceResponseMap),
+        expectTypedReduce);
+
+    BrokerResponseNative expected = new BrokerReduceService().reduceOnDataTable(brokerRequest, expectedResponseMap);
+    BrokerResponseNative actual = new BrokerReduceService().reduceOnDataTable(brokerRequest, instanceResponseMap);
+
+    List<AggregationResult> expectedResults = expected.getAggregationResults();
+    List<AggregationResult> actualResults = actual.getAggregationResults();
+    Assert.assertEquals(actualResults.size(), expectedResults.size());
+    for (int i = 0; i < expectedResults.size(); i++) {
+      List<GroupByResult> expectedGroups = expectedResults.get(i).getGroupByResult();
+      List<GroupByResult> actualGroups = actualResults.get(i).getGroupByResult();
+      Assert.assertEquals(actualGroups.size(), 20);
+      Assert.assertEquals(actualGroups.size(), expectedGroups.size());
+      for (int j = 0; j < expectedGroups.size(); j++) {
+        Assert.assertEquals(actualGroups.get(j).getGroup(), expectedGroups.get(j).getGroup());
+        Assert.assertEquals(actualGroups.get(j).getValue(), expectedGroups.get(j).getValue());
+      }
+    }
+  }
+}
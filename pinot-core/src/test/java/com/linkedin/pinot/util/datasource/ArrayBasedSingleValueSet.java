@@ -47,4 +47,13 @@ public final class ArrayBasedSingleValueSet implements BlockValSet {
       outDictionaryIds[outStartPos++] = values[row];
     }
   }
+
+  @Override
+  public void readDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
+    // The values are their own dictionary
+    int endPos = inStartPos + inDocIdsSize;
+    for (int iter = inStartPos; iter < endPos; ++iter) {
+      outValues[outStartPos++] = values[inDocIds[iter]];
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.operator.aggregation.AggregationResultHolder;
+import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
+import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunction;
+import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunctionFactory;
+import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Measures the per-row cost of aggregating one block of {@link DocIdSetPlanNode#MAX_DOC_PER_CALL} rows,
+ * the way DefaultAggregationExecutor does it.
+ *
+ * The 'baseline' benchmarks reproduce the executor's previous reads: the block of dictionary ids is
+ * converted through the generic {@link ImmutableDictionaryReader} readValues switch, and the value array is
+ * wrapped into a new varargs array on each call. The 'batch' benchmarks use the type specialized batch
+ * dictionary reads and the value arrays cached once per query. Both run the current aggregation functions,
+ * so the loop hoisting inside the functions is not part of the comparison.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkAggregation {
+  // Same as DocIdSetPlanNode.MAX_DOC_PER_CALL, which is not a compile time constant.
+  private static final int NUM_ROWS = 10000;
+
+  @Param({"sum", "max", "min"})
+  public String _functionName;
+
+  @Param({"1000", "100000"})
+  public int _cardinality;
+
+  private PinotDataBuffer _intDictionaryBuffer;
+  private PinotDataBuffer _doubleDictionaryBuffer;
+  private BaselineIntDictionary _intDictionary;
+  private BaselineDoubleDictionary _doubleDictionary;
+
+  private AggregationFunction _function;
+  private AggregationFunction _countFunction;
+  private AggregationResultHolder _resultHolder;
+  private AggregationResultHolder _countResultHolder;
+
+  private int[] _dictIds;
+  private double[] _values;
+  private double[][] _valueArrays;
+  private double[][] _emptyValueArrays;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+
+    _intDictionaryBuffer = PinotDataBuffer.allocateDirect(_cardinality * (Integer.SIZE / 8));
+    _doubleDictionaryBuffer = PinotDataBuffer.allocateDirect(_cardinality * (Double.SIZE / 8));
+    for (int i = 0; i < _cardinality; i++) {
+      _intDictionaryBuffer.putInt(i * (Integer.SIZE / 8), i * 3);
+      _doubleDictionaryBuffer.putDouble(i * (Double.SIZE / 8), i * 1.5);
+    }
+
+    _intDictionary = new BaselineIntDictionary(_intDictionaryBuffer, buildColumnMetadata(FieldSpec.DataType.INT));
+    _doubleDictionary =
+        new BaselineDoubleDictionary(_doubleDictionaryBuffer, buildColumnMetadata(FieldSpec.DataType.DOUBLE));
+
+    _function = AggregationFunctionFactory.getAggregationFunction(_functionName);
+    _countFunction = AggregationFunctionFactory.getAggregationFunction(
+        AggregationFunctionFactory.COUNT_AGGREGATION_FUNCTION);
+    _resultHolder = ResultHolderFactory.getAggregationResultHolder(_function);
+    _countResultHolder = ResultHolderFactory.getAggregationResultHolder(_countFunction);
+
+    _dictIds = new int[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      _dictIds[i] = random.nextInt(_cardinality);
+    }
+    _values = new double[NUM_ROWS];
+    _valueArrays = new double[][]{_values};
+    _emptyValueArrays = new double[0][];
+  }
+
+  @TearDown
+  public void tearDown() {
+    _intDictionaryBuffer.close();
+    _doubleDictionaryBuffer.close();
+  }
+
+  private ColumnMetadata buildColumnMetadata(FieldSpec.DataType dataType) {
+    return new ColumnMetadata.Builder().setColumnName("metric")
+        .setCardinality(_cardinality)
+        .setTotalDocs(NUM_ROWS)
+        .setDataType(dataType)
+        .setFieldType(FieldSpec.FieldType.METRIC)
+        .build();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @OperationsPerInvocation(NUM_ROWS)
+  public double intColumnBaseline() {
+    _intDictionary.readDoubleValuesGeneric(_dictIds, 0, NUM_ROWS, _values, 0);
+    _function.aggregate(NUM_ROWS, _resultHolder, _values);
+    return _resultHolder.getDoubleResult();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @OperationsPerInvocation(NUM_ROWS)
+  public double intColumnBatch() {
+    _intDictionary.readDoubleValues(_dictIds, 0, NUM_ROWS, _values, 0);
+    _function.aggregate(NUM_ROWS, _resultHolder, _valueArrays);
+    return _resultHolder.getDoubleResult();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @OperationsPerInvocation(NUM_ROWS)
+  public double doubleColumnBaseline() {
+    _doubleDictionary.readDoubleValuesGeneric(_dictIds, 0, NUM_ROWS, _values, 0);
+    _function.aggregate(NUM_ROWS, _resultHolder, _values);
+    return _resultHolder.getDoubleResult();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @OperationsPerInvocation(NUM_ROWS)
+  public double doubleColumnBatch() {
+    _doubleDictionary.readDoubleValues(_dictIds, 0, NUM_ROWS, _values, 0);
+    _function.aggregate(NUM_ROWS, _resultHolder, _valueArrays);
+    return _resultHolder.getDoubleResult();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @OperationsPerInvocation(NUM_ROWS)
+  public double countBaseline() {
+    _countFunction.aggregate(NUM_ROWS, _countResultHolder);
+    return _countResultHolder.getDoubleResult();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @OperationsPerInvocation(NUM_ROWS)
+  public double countBatch() {
+    _countFunction.aggregate(NUM_ROWS, _countResultHolder, _emptyValueArrays);
+    return _countResultHolder.getDoubleResult();
+  }
+
+  /**
+   * Int dictionary that can still read values through the generic {@link ImmutableDictionaryReader} path.
+   */
+  private static class BaselineIntDictionary extends IntDictionary {
+    BaselineIntDictionary(PinotDataBuffer dataBuffer, ColumnMetadata metadata) {
+      super(dataBuffer, metadata);
+    }
+
+    void readDoubleValuesGeneric(int[] dictIds, int startPos, int limit, double[] values, int outStartPos) {
+      readValues(dictIds, startPos, limit, values, outStartPos, FieldSpec.DataType.DOUBLE);
+    }
+  }
+
+  /**
+   * Double dictionary that can still read values through the generic {@link ImmutableDictionaryReader} path.
+   */
+  private static class BaselineDoubleDictionary extends DoubleDictionary {
+    BaselineDoubleDictionary(PinotDataBuffer dataBuffer, ColumnMetadata metadata) {
+      super(dataBuffer, metadata);
+    }
+
+    void readDoubleValuesGeneric(int[] dictIds, int startPos, int limit, double[] values, int outStartPos) {
+      readValues(dictIds, startPos, limit, values, outStartPos, FieldSpec.DataType.DOUBLE);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options opt = new OptionsBuilder()
+        .include(BenchmarkAggregation.class.getSimpleName())
+        .warmupIterations(5)
+        .measurementIterations(5)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.operator.MCombineGroupByOperator;
+import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunction;
+import com.linkedin.pinot.core.operator.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.operator.aggregation.groupby.DoubleGroupByResultHolder;
+import com.linkedin.pinot.core.operator.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.operator.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Measures the cost of merging the group-by results of many segments in {@link MCombineGroupByOperator}.
+ *
+ * Each segment holds a random subset of '_numGroupsPerSegment' out of '_numGroups' group keys, with a 'sum'
+ * aggregation. The segment operators return precomputed results, so the benchmark mostly measures the merge.
+ * Run it on a machine with at least as many cores as '_numThreads'.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkCombineGroupBy {
+  private static final long TIMEOUT_MS = 600000L;
+
+  @Param({"64"})
+  public int _numSegments;
+
+  @Param({"1000000"})
+  public int _numGroups;
+
+  @Param({"100000"})
+  public int _numGroupsPerSegment;
+
+  @Param({"16", "32"})
+  public int _numThreads;
+
+  private BrokerRequest _brokerRequest;
+  private List<Operator> _operators;
+  private ExecutorService _executorService;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+
+    AggregationInfo aggregationInfo = new AggregationInfo();
+    aggregationInfo.setAggregationType("sum");
+    Map<String, String> params = new HashMap<>();
+    params.put("column", "metric");
+    aggregationInfo.setAggregationParams(params);
+
+    GroupBy groupBy = new GroupBy();
+    groupBy.setColumns(Collections.singletonList("dimension"));
+    groupBy.setTopN(10);
+
+    _brokerRequest = new BrokerRequest();
+    _brokerRequest.setAggregationsInfo(Collections.singletonList(aggregationInfo));
+    _brokerRequest.setGroupBy(groupBy);
+
+    String[] groupKeyStrings = new String[_numGroups];
+    for (int i = 0; i < _numGroups; i++) {
+      groupKeyStrings[i] = Integer.toString(i);
+    }
+
+    _operators = new ArrayList<>(_numSegments);
+    for (int i = 0; i < _numSegments; i++) {
+      List<GroupKeyGenerator.GroupKey> groupKeys = new ArrayList<>(_numGroupsPerSegment);
+      DoubleGroupByResultHolder resultHolder =
+          new DoubleGroupByResultHolder(_numGroupsPerSegment, _numGroupsPerSegment, 0.0);
+      resultHolder.ensureCapacity(_numGroupsPerSegment);
+
+      int start = random.nextInt(_numGroups);
+      for (int groupId = 0; groupId < _numGroupsPerSegment; groupId++) {
+        groupKeys.add(new GroupKeyGenerator.GroupKey(groupId, groupKeyStrings[(start + groupId) % _numGroups]));
+        resultHolder.setValueForKey(groupId, random.nextInt(1000));
+      }
+      _operators.add(new SegmentGroupByOperator(groupKeys, resultHolder));
+    }
+
+    _executorService = Executors.newFixedThreadPool(_numThreads);
+  }
+
+  @TearDown
+  public void tearDown() {
+    _executorService.shutdownNow();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Block combineGroupBy() {
+    return new MCombineGroupByOperator(_operators, _executorService, TIMEOUT_MS, _brokerRequest).nextBlock();
+  }
+
+  /**
+   * Segment level operator returning a precomputed group-by result.
+   */
+  private static class SegmentGroupByOperator extends BaseOperator {
+    private final List<GroupKeyGenerator.GroupKey> _groupKeys;
+    private final GroupByResultHolder[] _resultHolders;
+
+    SegmentGroupByOperator(List<GroupKeyGenerator.GroupKey> groupKeys, GroupByResultHolder resultHolder) {
+      _groupKeys = groupKeys;
+      _resultHolders = new GroupByResultHolder[]{resultHolder};
+    }
+
+    @Override
+    public Block getNextBlock() {
+      GroupKeyGenerator groupKeyGenerator = new GroupKeyGenerator() {
+        @Override
+        public void generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[] docIdToGroupKey) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[][] docIdToGroupKeys) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Iterator<GroupKey> getUniqueGroupKeys() {
+          return _groupKeys.iterator();
+        }
+
+        @Override
+        public Iterator<GroupKey> getUniqueTypedGroupKeys() {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getNumGroupKeys() {
+          return _groupKeys.size();
+        }
+      };
+
+      AggregationGroupByResult groupByResult = new AggregationGroupByResult(groupKeyGenerator, _resultHolders,
+          new AggregationFunction.ResultDataType[]{AggregationFunction.ResultDataType.DOUBLE});
+      IntermediateResultsBlock block = new IntermediateResultsBlock(null, groupByResult);
+      block.setNumDocsScanned(_groupKeys.size());
+      block.setTotalRawDocs(_groupKeys.size());
+      return block;
+    }
+
+    @Override
+    public Block getNextBlock(BlockId BlockId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getOperatorName() {
+      return "SegmentGroupByOperator";
+    }
+
+    @Override
+    public boolean open() {
+      return true;
+    }
+
+    @Override
+    public boolean close() {
+      return true;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options opt = new OptionsBuilder()
+        .include(BenchmarkCombineGroupBy.class.getSimpleName())
+        .warmupIterations(5)
+        .measurementIterations(5)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
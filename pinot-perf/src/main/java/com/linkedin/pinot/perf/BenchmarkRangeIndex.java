@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.RecordReader;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
+import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator;
+import com.linkedin.pinot.core.operator.filter.RangeIndexBasedFilterOperator;
+import com.linkedin.pinot.core.operator.filter.ScanBasedFilterOperator;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Compares the latency of a range predicate on an unsorted, high cardinality column when evaluated with a
+ * full scan of the forward index, an OR over the inverted index bitmaps of all matching values, and the
+ * range index.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkRangeIndex {
+  private static final int NUM_ROWS = 1000000;
+  private static final int MAX_VALUE = 100000;
+  private static final String COLUMN = "intColumn";
+
+  @Param({"scan", "invertedIndex", "rangeIndex"})
+  public String _filterOperator;
+
+  @Param({"1", "30"})
+  public int _rangePercent;
+
+  private File _indexDir;
+  private IndexSegment _indexSegment;
+  private Predicate _predicate;
+
+  @Setup
+  public void setUp()
+      throws Exception {
+    _indexDir = new File(FileUtils.getTempDirectory(), getClass().getSimpleName());
+    FileUtils.deleteQuietly(_indexDir);
+
+    Schema schema = new Schema();
+    schema.addField(COLUMN, new DimensionFieldSpec(COLUMN, FieldSpec.DataType.INT, true));
+
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig();
+    config.setSegmentName(getClass().getSimpleName());
+    config.setOutDir(_indexDir.getAbsolutePath());
+    config.setSchema(schema);
+    config.setInvertedIndexCreationColumns(Collections.singletonList(COLUMN));
+    config.setRangeIndexCreationColumns(Collections.singletonList(COLUMN));
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, createReader(schema));
+    driver.build();
+
+    PropertiesConfiguration tableConfig = new PropertiesConfiguration();
+    tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_INVERTED_INDEX, COLUMN);
+    _indexSegment = Loaders.IndexSegment.load(new File(_indexDir, driver.getSegmentName()), ReadMode.mmap,
+        new IndexLoadingConfigMetadata(tableConfig));
+
+    int lower = MAX_VALUE / 4;
+    int upper = lower + MAX_VALUE * _rangePercent / 100;
+    String query = "select count(*) from T where " + COLUMN + " between " + lower + " and " + upper;
+    _predicate = Predicate.newPredicate(
+        RequestUtils.generateFilterQueryTree(new Pql2Compiler().compileToBrokerRequest(query)));
+  }
+
+  @TearDown
+  public void tearDown() {
+    _indexSegment.destroy();
+    FileUtils.deleteQuietly(_indexDir);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int filter() {
+    DataSource dataSource = _indexSegment.getDataSource(COLUMN);
+    int endDocId = NUM_ROWS - 1;
+    BaseFilterOperator filterOperator;
+    switch (_filterOperator) {
+      case "scan":
+        filterOperator = new ScanBasedFilterOperator(dataSource, 0, endDocId);
+        break;
+      case "invertedIndex":
+        filterOperator = new BitmapBasedFilterOperator(dataSource, 0, endDocId);
+        break;
+      case "rangeIndex":
+        filterOperator = new RangeIndexBasedFilterOperator(dataSource, 0, endDocId);
+        break;
+      default:
+        throw new IllegalStateException();
+    }
+    filterOperator.setPredicate(_predicate);
+
+    BlockDocIdIterator iterator = filterOperator.nextBlock().getBlockDocIdSet().iterator();
+    int numMatchingDocs = 0;
+    while (iterator.next() != Constants.EOF) {
+      numMatchingDocs++;
+    }
+    return numMatchingDocs;
+  }
+
+  private static RecordReader createReader(final Schema schema) {
+    return new RecordReader() {
+      private Random _random;
+      private int _counter;
+
+      @Override
+      public void init() {
+        rewind();
+      }
+
+      @Override
+      public void rewind() {
+        _random = new Random(0);
+        _counter = 0;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return _counter < NUM_ROWS;
+      }
+
+      @Override
+      public GenericRow next() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(COLUMN, _random.nextInt(MAX_VALUE));
+        GenericRow row = new GenericRow();
+        row.init(fields);
+        _counter++;
+        return row;
+      }
+
+      @Override
+      public Schema getSchema() {
+        return schema;
+      }
+
+      @Override
+      public Map<String, MutableLong> getNullCountMap() {
+        return null;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    Options opt = new OptionsBuilder()
+        .include(BenchmarkRangeIndex.class.getSimpleName())
+        .warmupIterations(3)
+        .measurementIterations(5)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.RecordReader;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.aggregation.AggregationExecutor;
+import com.linkedin.pinot.core.operator.aggregation.DefaultAggregationExecutor;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Compares segment size and aggregation latency of high cardinality metric columns stored with
+ * dictionary encoding against the same columns stored in the raw (no dictionary) forward index.
+ *
+ * The segment size of each encoding is printed during setup.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkRawIndex {
+  private static final int NUM_ROWS = 1000000;
+  // Same as DocIdSetPlanNode.MAX_DOC_PER_CALL, which is not a compile time constant.
+  private static final int BLOCK_SIZE = 10000;
+  private static final String[] COLUMNS = {"longMetric", "doubleMetric"};
+  private static final FieldSpec.DataType[] DATA_TYPES = {FieldSpec.DataType.LONG, FieldSpec.DataType.DOUBLE};
+  private static final String[] AGGREGATION_FUNCTIONS = {"sum", "max"};
+
+  @Param({"dictionary", "raw"})
+  public String _encoding;
+
+  private File _indexDir;
+  private IndexSegment _indexSegment;
+  private List<AggregationInfo> _aggregationInfoList;
+  private int[][] _docIdBlocks;
+  private int[] _blockLengths;
+
+  @Setup
+  public void setUp()
+      throws Exception {
+    _indexDir = new File(FileUtils.getTempDirectory(), getClass().getSimpleName() + "_" + _encoding);
+    FileUtils.deleteQuietly(_indexDir);
+
+    Schema schema = new Schema();
+    for (int i = 0; i < COLUMNS.length; i++) {
+      schema.addField(COLUMNS[i], new MetricFieldSpec(COLUMNS[i], DATA_TYPES[i]));
+    }
+
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig();
+    config.setSegmentName(_encoding);
+    config.setOutDir(_indexDir.getAbsolutePath());
+    config.setSchema(schema);
+    if (_encoding.equals("raw")) {
+      config.setRawIndexCreationColumns(Arrays.asList(COLUMNS));
+    }
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, createReader(schema));
+    driver.build();
+
+    File segmentDir = new File(_indexDir, driver.getSegmentName());
+    System.out.println("Segment size for " + _encoding + " encoding: " + FileUtils.sizeOfDirectory(segmentDir));
+    _indexSegment = Loaders.IndexSegment.load(segmentDir, ReadMode.mmap);
+
+    _aggregationInfoList = new ArrayList<>();
+    for (String column : COLUMNS) {
+      for (String function : AGGREGATION_FUNCTIONS) {
+        AggregationInfo aggregationInfo = new AggregationInfo();
+        aggregationInfo.setAggregationType(function);
+        Map<String, String> params = new HashMap<>();
+        params.put("column", column);
+        aggregationInfo.setAggregationParams(params);
+        _aggregationInfoList.add(aggregationInfo);
+      }
+    }
+
+    // Random filter output split into blocks, as the doc id set operator would produce.
+    Random random = new Random(0);
+    int numBlocks = (NUM_ROWS / 4 + BLOCK_SIZE - 1) / BLOCK_SIZE + 1;
+    _docIdBlocks = new int[numBlocks][BLOCK_SIZE];
+    _blockLengths = new int[numBlocks];
+    int blockId = 0;
+    for (int i = 0; i < NUM_ROWS; i++) {
+      if (random.nextInt(4) == 0) {
+        if (_blockLengths[blockId] == BLOCK_SIZE) {
+          blockId++;
+        }
+        _docIdBlocks[blockId][_blockLengths[blockId]++] = i;
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    _indexSegment.destroy();
+    FileUtils.deleteQuietly(_indexDir);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public List<Serializable> aggregate() {
+    AggregationExecutor aggregationExecutor = new DefaultAggregationExecutor(_indexSegment, _aggregationInfoList);
+    aggregationExecutor.init();
+    for (int i = 0; i < _docIdBlocks.length; i++) {
+      aggregationExecutor.aggregate(_docIdBlocks[i], 0, _blockLengths[i]);
+    }
+    aggregationExecutor.finish();
+    return aggregationExecutor.getResult();
+  }
+
+  private static RecordReader createReader(final Schema schema) {
+    return new RecordReader() {
+      private Random _random;
+      private int _counter;
+
+      @Override
+      public void init() {
+        rewind();
+      }
+
+      @Override
+      public void rewind() {
+        _random = new Random(0);
+        _counter = 0;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return _counter < NUM_ROWS;
+      }
+
+      @Override
+      public GenericRow next() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(COLUMNS[0], _random.nextLong() >> 12);
+        fields.put(COLUMNS[1], _random.nextDouble() * Integer.MAX_VALUE);
+        GenericRow row = new GenericRow();
+        row.init(fields);
+        _counter++;
+        return row;
+      }
+
+      @Override
+      public Schema getSchema() {
+        return schema;
+      }
+
+      @Override
+      public Map<String, MutableLong> getNullCountMap() {
+        return null;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    Options opt = new OptionsBuilder()
+        .include(BenchmarkRawIndex.class.getSimpleName())
+        .warmupIterations(3)
+        .measurementIterations(5)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -17,14 +17,24 @@ package com.linkedin.pinot.perf;
 
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.linkedin.pinot.common.TestUtils;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.request.helper.ControllerRequestBuilder;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.DataSource;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.DataSource.Realtime.Kafka;
 import com.linkedin.pinot.common.utils.KafkaStarterUtils;
+import com.linkedin.pinot.common.utils.MmapUtils;
 import com.linkedin.pinot.common.utils.TarGzCompressionUtils;
+import com.linkedin.pinot.controller.helix.ControllerRequestURLBuilder;
 import com.linkedin.pinot.integration.tests.BaseClusterIntegrationTest;
+import com.linkedin.pinot.integration.tests.ClusterTest.AvroFileSchemaKafkaAvroMessageDecoder;
 import com.linkedin.pinot.integration.tests.OfflineClusterIntegrationTest;
 import com.linkedin.pinot.integration.tests.RealtimeClusterIntegrationTest;
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
@@ -35,7 +45,10 @@ import org.json.JSONObject;
 
 /**
  * Benchmark that writes a configurable amount of rows in Kafka and checks how much time it takes to consume all of
- * them.
+ * them, along with the heap, GC and direct memory used while consuming.
+ *
+ * Pass "true" as the first argument to store the realtime dictionaries off heap, run it once with and once without
+ * to compare.
  */
 public class BenchmarkRealtimeConsumptionSpeed extends RealtimeClusterIntegrationTest {
   private static final int ROW_COUNT = 100_000;
@@ -46,9 +59,16 @@ public class BenchmarkRealtimeConsumptionSpeed extends RealtimeClusterIntegratio
   private static final int SEGMENT_COUNT = 1;
   private static final Random RANDOM = new Random(123456L);
 
+  private final boolean _offHeapDictionary;
+
+  public BenchmarkRealtimeConsumptionSpeed(boolean offHeapDictionary) {
+    _offHeapDictionary = offHeapDictionary;
+  }
+
   public static void main(String[] args) {
+    boolean offHeapDictionary = args.length > 0 && Boolean.parseBoolean(args[0]);
     try {
-      new BenchmarkRealtimeConsumptionSpeed().runBenchmark();
+      new BenchmarkRealtimeConsumptionSpeed(offHeapDictionary).runBenchmark();
     } catch (Exception e) {
       System.exit(-1);
     }
@@ -103,6 +123,8 @@ public class BenchmarkRealtimeConsumptionSpeed extends RealtimeClusterIntegratio
 
     // Count how many seconds it takes for select count(*) to match with ROW_COUNT
     long startTime = System.currentTimeMillis();
+    long startGcCount = getGcCount();
+    long startGcTimeMillis = getGcTimeMillis();
 
     int pinotRecordCount = -1;
     long timeAfterTimeout = System.currentTimeMillis() + TIMEOUT_MILLIS;
@@ -128,8 +150,66 @@ public class BenchmarkRealtimeConsumptionSpeed extends RealtimeClusterIntegratio
     } while (ROW_COUNT != pinotRecordCount);
 
     long endTime = System.currentTimeMillis();
+    long gcCount = getGcCount() - startGcCount;
+    long gcTimeMillis = getGcTimeMillis() - startGcTimeMillis;
+
+    // Heap still in use by the consuming segment
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    long usedHeapBytes = runtime.totalMemory() - runtime.freeMemory();
+
+    System.out.println("Off heap dictionary: " + _offHeapDictionary);
+    System.out.println("Consumed " + ROW_COUNT + " rows in " + (endTime - startTime) / 1000.0 + " seconds ("
+        + ROW_COUNT * 1000L / Math.max(endTime - startTime, 1L) + " rows/s)");
+    System.out.println("GC: " + gcCount + " collections, " + gcTimeMillis + " ms");
+    System.out.println("Used heap after GC: " + usedHeapBytes / (1024 * 1024) + " MB, direct memory: "
+        + MmapUtils.getDirectByteBufferUsage() / (1024 * 1024) + " MB");
+  }
+
+  /**
+   * Same as the base class, except for the off heap dictionary setting in the indexing config.
+   */
+  @Override
+  protected void setUpTable(String tableName, String timeColumnName, String timeColumnType, String kafkaZkUrl,
+      String kafkaTopic, File schemaFile, File avroFile) throws Exception {
+    Schema schema = Schema.fromFile(schemaFile);
+    addSchema(schemaFile, schema.getSchemaName());
+
+    JSONObject metadata = new JSONObject();
+    metadata.put("streamType", "kafka");
+    metadata.put(DataSource.STREAM_PREFIX + "." + Kafka.CONSUMER_TYPE, Kafka.ConsumerType.highLevel.toString());
+    metadata.put(DataSource.STREAM_PREFIX + "." + Kafka.TOPIC_NAME, kafkaTopic);
+    metadata.put(DataSource.STREAM_PREFIX + "." + Kafka.DECODER_CLASS,
+        AvroFileSchemaKafkaAvroMessageDecoder.class.getName());
+    metadata.put(DataSource.STREAM_PREFIX + "." + Kafka.ZK_BROKER_URL, kafkaZkUrl);
+    metadata.put(DataSource.STREAM_PREFIX + "." + Kafka.HighLevelConsumer.ZK_CONNECTION_STRING, kafkaZkUrl);
+    metadata.put(DataSource.Realtime.REALTIME_SEGMENT_FLUSH_SIZE, Integer.toString(ROW_COUNT_FOR_REALTIME_SEGMENT_FLUSH));
+    metadata.put(DataSource.STREAM_PREFIX + "." + Kafka.KAFKA_CONSUMER_PROPS_PREFIX + "." + "auto.offset.reset",
+        "smallest");
+
+    JSONObject request = ControllerRequestBuilder.buildCreateRealtimeTableJSON(tableName, null, null, timeColumnName,
+        timeColumnType, "Days", "900", 1, "BalanceNumSegmentAssignmentStrategy", metadata, schema.getSchemaName(),
+        "Carrier", Collections.<String>emptyList(), null);
+    request.getJSONObject("tableIndexConfig").put("offHeapRealtimeDictionary", _offHeapDictionary);
+    sendPostRequest(ControllerRequestURLBuilder.baseUrl(CONTROLLER_BASE_API_URL).forTableCreate(), request.toString());
+
+    AvroFileSchemaKafkaAvroMessageDecoder.avroFile = avroFile;
+  }
+
+  private static long getGcCount() {
+    long gcCount = 0;
+    for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcCount += Math.max(gcBean.getCollectionCount(), 0);
+    }
+    return gcCount;
+  }
 
-    System.out.println("Consumed " + ROW_COUNT + " rows in " + (endTime - startTime) / 1000.0 + " seconds");
+  private static long getGcTimeMillis() {
+    long gcTimeMillis = 0;
+    for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcTimeMillis += Math.max(gcBean.getCollectionTime(), 0);
+    }
+    return gcTimeMillis;
   }
 
   @Override
@@ -151,6 +151,103 @@ public class ForwardIndexReaderBenchmark {
 
   }
 
+  /**
+   * Re-encodes the given v1/v2 forward index in the v3 format, and benchmarks single, batch and block skipping reads
+   * on it. Numbers are comparable with the v1/v2 sequential read stats.
+   */
+  public static void singleValuedReadBenchMarkV3(String segmentVersion, File file, int numDocs, int numBits)
+      throws Exception {
+    long start, end;
+
+    PinotDataBuffer heapBuffer = PinotDataBuffer.fromFile(file, ReadMode.heap, FileChannel.MapMode.READ_ONLY, "benchmarking");
+    BaseSingleColumnSingleValueReader sourceReader;
+    if (SegmentVersion.v1.name().equals(segmentVersion)) {
+      sourceReader = new com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader(heapBuffer, numDocs,
+          numBits, false);
+    } else {
+      sourceReader = new com.linkedin.pinot.core.io.reader.impl.v2.FixedBitSingleValueReader(heapBuffer, numDocs,
+          numBits, false);
+    }
+    File v3File = new File("/tmp/" + file.getName() + ".v3");
+    com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter writer =
+        new com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter(v3File, numDocs, numBits);
+    int maxDictId = 0;
+    for (int i = 0; i < numDocs; i++) {
+      int dictId = sourceReader.getInt(i);
+      maxDictId = Math.max(maxDictId, dictId);
+      writer.setInt(i, dictId);
+    }
+    writer.close();
+    sourceReader.close();
+
+    PinotDataBuffer v3Buffer = PinotDataBuffer.fromFile(v3File, ReadMode.heap, FileChannel.MapMode.READ_ONLY, "benchmarking");
+    com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader reader =
+        new com.linkedin.pinot.core.io.reader.impl.v3.FixedBitSingleValueReader(v3Buffer, numDocs, numBits);
+
+    // sequential single read
+    DescriptiveStatistics stats = new DescriptiveStatistics();
+    for (int run = 0; run < MAX_RUNS; run++) {
+      start = System.currentTimeMillis();
+      for (int i = 0; i < numDocs; i++) {
+        int value = reader.getInt(i);
+      }
+      end = System.currentTimeMillis();
+      stats.addValue(end - start);
+    }
+    System.out.println(" v3 sequential single read for " + file.getName());
+    System.out.println(
+        stats.toString().replaceAll("\n", ", ") + " raw:" + Arrays.toString(stats.getValues()));
+
+    // sequential batch read, same batch size as v2
+    stats = new DescriptiveStatistics();
+    int batchSize = Math.min(5000, numDocs);
+    int[] output = new int[batchSize];
+    for (int run = 0; run < MAX_RUNS; run++) {
+      start = System.currentTimeMillis();
+      int rowId = 0;
+      while (rowId < numDocs) {
+        int length = Math.min(batchSize, numDocs - rowId);
+        reader.getIntBatch(rowId, length, output, 0);
+        rowId = rowId + length;
+      }
+      end = System.currentTimeMillis();
+      stats.addValue(end - start);
+    }
+    System.out.println(" v3 sequential batch read stats for " + file.getName());
+    System.out.println(
+        stats.toString().replaceAll("\n", ", ") + " raw:" + Arrays.toString(stats.getValues()));
+
+    // equality scan on the max dictionary id, skipping the blocks that cannot match
+    stats = new DescriptiveStatistics();
+    int[] matchingDictIds = new int[]{maxDictId};
+    int blockSize = com.linkedin.pinot.core.io.writer.impl.v3.FixedBitSingleValueWriter.BLOCK_SIZE;
+    int[] blockOutput = new int[blockSize];
+    int numMatches = 0;
+    for (int run = 0; run < MAX_RUNS; run++) {
+      start = System.currentTimeMillis();
+      numMatches = 0;
+      int rowId = reader.skipToCandidateRow(0, matchingDictIds);
+      while (rowId < numDocs) {
+        int length = Math.min(blockSize - rowId % blockSize, numDocs - rowId);
+        reader.getIntBatch(rowId, length, blockOutput, 0);
+        for (int i = 0; i < length; i++) {
+          if (blockOutput[i] == maxDictId) {
+            numMatches++;
+          }
+        }
+        rowId = reader.skipToCandidateRow(rowId + length, matchingDictIds);
+      }
+      end = System.currentTimeMillis();
+      stats.addValue(end - start);
+    }
+    System.out.println(" v3 block skipping scan stats for " + file.getName() + " matches:" + numMatches);
+    System.out.println(
+        stats.toString().replaceAll("\n", ", ") + " raw:" + Arrays.toString(stats.getValues()));
+
+    reader.close();
+    v3File.delete();
+  }
+
   public static void multiValuedReadBenchMarkV1(File file, int numDocs, int totalNumValues,
       int maxEntriesPerDoc, int columnSizeInBits) throws Exception {
     System.out.println("******************************************************************");
@@ -333,6 +430,7 @@ public class ForwardIndexReaderBenchmark {
     } else if (SegmentVersion.v2.name().equals(segmentVersion)) {
       singleValuedReadBenchMarkV2(fwdIndexFile, totalDocs, bitsPerElement);
     }
+    singleValuedReadBenchMarkV3(segmentVersion, fwdIndexFile, totalDocs, bitsPerElement);
   }
 
   /**
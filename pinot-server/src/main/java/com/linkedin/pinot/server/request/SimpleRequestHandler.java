@@ -15,8 +15,13 @@
  */
 package com.linkedin.pinot.server.request;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import org.apache.thrift.protocol.TCompactProtocol;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,65 +35,148 @@ import com.linkedin.pinot.common.request.InstanceRequest;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.common.utils.DataTableBuilder;
+import com.linkedin.pinot.core.query.scheduler.QueryScheduler;
+import com.linkedin.pinot.core.query.scheduler.ServerBusyException;
 import com.linkedin.pinot.serde.SerDe;
-import com.linkedin.pinot.transport.netty.NettyServer.RequestHandler;
+import com.linkedin.pinot.transport.netty.CompressedFrame;
+import com.linkedin.pinot.transport.netty.CompressionCodec;
+import com.linkedin.pinot.transport.netty.NettyServer.AsyncRequestHandler;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 
 
 /**
  * A simple implementation of RequestHandler.
+ * When given a query scheduler, the queries are run by the scheduler instead of the netty worker thread.
  *
  *
  */
-public class SimpleRequestHandler implements RequestHandler {
+public class SimpleRequestHandler implements AsyncRequestHandler {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SimpleRequestHandler.class);
 
   private ServerMetrics _serverMetrics;
   QueryExecutor _queryExecutor = null;
+  private final QueryScheduler _queryScheduler;
 
   public SimpleRequestHandler(QueryExecutor queryExecutor, ServerMetrics serverMetrics) {
+    this(queryExecutor, null, serverMetrics);
+  }
+
+  public SimpleRequestHandler(QueryExecutor queryExecutor, QueryScheduler queryScheduler,
+      ServerMetrics serverMetrics) {
     _queryExecutor = queryExecutor;
+    _queryScheduler = queryScheduler;
     _serverMetrics = serverMetrics;
   }
 
   @Override
   public byte[] processRequest(ByteBuf request) {
-
     long queryStartTime = System.nanoTime();
+    InstanceRequest queryRequest;
+    try {
+      queryRequest = deserializeRequest(request, queryStartTime);
+    } catch (Exception e) {
+      return serializeResponse(null, buildErrorResponse(QueryException.INTERNAL_ERROR, e), queryStartTime);
+    }
+    return serializeResponse(queryRequest.getQuery(), processQuery(queryRequest), queryStartTime);
+  }
+
+  /**
+   * Serializes the response straight into a pooled direct buffer, which netty writes to the socket
+   * without any further copy. Responses larger than the threshold requested by the broker are compressed
+   * with the requested codec instead, see {@link CompressedFrame}.
+   */
+  @Override
+  public ListenableFuture<ByteBuf> processRequestAsync(ByteBuf request) {
+    final long queryStartTime = System.nanoTime();
+    final InstanceRequest queryRequest;
+    try {
+      queryRequest = deserializeRequest(request, queryStartTime);
+    } catch (Exception e) {
+      return Futures.immediateFuture(
+          serializeResponseToByteBuf(null, buildErrorResponse(QueryException.INTERNAL_ERROR, e), queryStartTime));
+    }
+    final BrokerRequest brokerRequest = queryRequest.getQuery();
+    if (_queryScheduler == null) {
+      return Futures.immediateFuture(
+          serializeResponseToByteBuf(brokerRequest, processQuery(queryRequest), queryStartTime));
+    }
+
+    final SettableFuture<ByteBuf> response = SettableFuture.create();
+    ListenableFuture<DataTable> scheduledResponse = _queryScheduler.submit(brokerRequest, new Callable<DataTable>() {
+      @Override
+      public DataTable call() {
+        return processQuery(queryRequest);
+      }
+    });
+    Futures.addCallback(scheduledResponse, new FutureCallback<DataTable>() {
+      @Override
+      public void onSuccess(DataTable result) {
+        response.set(serializeResponseToByteBuf(brokerRequest, result, queryStartTime));
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        DataTable errorResponse;
+        if (t instanceof ServerBusyException) {
+          LOGGER.warn("Rejected requestId:{}, {}", queryRequest.getRequestId(), t.getMessage());
+          errorResponse = buildErrorResponse(QueryException.SERVER_BUSY_ERROR, t);
+        } else {
+          errorResponse = buildErrorResponse(QueryException.INTERNAL_ERROR, t);
+        }
+        response.set(serializeResponseToByteBuf(brokerRequest, errorResponse, queryStartTime));
+      }
+    });
+    return response;
+  }
+
+  private InstanceRequest deserializeRequest(ByteBuf request, long queryStartTime) throws Exception {
     _serverMetrics.addMeteredGlobalValue(ServerMeter.QUERIES, 1);
 
     LOGGER.debug("processing request : {}", request);
 
-    DataTable instanceResponse = null;
-
     byte[] byteArray = new byte[request.readableBytes()];
     request.readBytes(byteArray);
     SerDe serDe = new SerDe(new TCompactProtocol.Factory());
-    BrokerRequest brokerRequest = null;
-    try {
-      final InstanceRequest queryRequest = new InstanceRequest();
-      serDe.deserialize(queryRequest, byteArray);
-      long deserRequestTime = System.nanoTime();
-      _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.REQUEST_DESERIALIZATION, deserRequestTime - queryStartTime);
-      LOGGER.debug("Processing requestId:{},request={}", queryRequest.getRequestId(), queryRequest);
-      brokerRequest = queryRequest.getQuery();
+    final InstanceRequest queryRequest = new InstanceRequest();
+    serDe.deserialize(queryRequest, byteArray);
+    long deserRequestTime = System.nanoTime();
+    _serverMetrics.addPhaseTiming(queryRequest.getQuery(), ServerQueryPhase.REQUEST_DESERIALIZATION,
+        deserRequestTime - queryStartTime);
+    LOGGER.debug("Processing requestId:{},request={}", queryRequest.getRequestId(), queryRequest);
+    return queryRequest;
+  }
 
+  private DataTable processQuery(InstanceRequest queryRequest) {
+    BrokerRequest brokerRequest = queryRequest.getQuery();
+    DataTable instanceResponse;
+    try {
       long startTime = System.nanoTime();
       instanceResponse = _queryExecutor.processQuery(queryRequest);
       long totalNanos = System.nanoTime() - startTime;
       _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.QUERY_PROCESSING, totalNanos);
     } catch (Exception e) {
-      LOGGER.error("Got exception while processing request. Returning error response", e);
+      return buildErrorResponse(QueryException.INTERNAL_ERROR, e);
+    }
+    return instanceResponse;
+  }
+
+  private DataTable buildErrorResponse(ProcessingException processingException, Throwable t) {
+    if (processingException == QueryException.INTERNAL_ERROR) {
+      LOGGER.error("Got exception while processing request. Returning error response", t);
       _serverMetrics.addMeteredGlobalValue(ServerMeter.UNCAUGHT_EXCEPTIONS, 1);
-      DataTableBuilder dataTableBuilder = new DataTableBuilder(null);
-      List<ProcessingException> exceptions = new ArrayList<ProcessingException>();
-      ProcessingException exception = QueryException.INTERNAL_ERROR.deepCopy();
-      exception.setMessage(e.getMessage());
-      exceptions.add(exception);
-      instanceResponse = dataTableBuilder.buildExceptions();
     }
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(null);
+    DataTable instanceResponse = dataTableBuilder.buildExceptions();
+    ProcessingException exception = processingException.deepCopy();
+    exception.setMessage(t.getMessage());
+    instanceResponse.addException(exception);
+    return instanceResponse;
+  }
 
+  private byte[] serializeResponse(BrokerRequest brokerRequest, DataTable instanceResponse, long queryStartTime) {
     byte[] responseByte;
     long serializationStartTime = System.nanoTime();
     try {
@@ -103,10 +191,74 @@ public class SimpleRequestHandler implements RequestHandler {
       LOGGER.error("Got exception while serializing response.", e);
       responseByte = null;
     }
+    addSerializationTimings(brokerRequest, serializationStartTime, queryStartTime);
+    return responseByte;
+  }
+
+  private ByteBuf serializeResponseToByteBuf(BrokerRequest brokerRequest, DataTable instanceResponse,
+      long queryStartTime) {
+    ByteBuf responseBuf = Unpooled.EMPTY_BUFFER;
+    long serializationStartTime = System.nanoTime();
+    if (instanceResponse == null) {
+      LOGGER.warn("Instance response is null.");
+    } else {
+      try {
+        ByteBuffer[] buffers = instanceResponse.toByteBuffers();
+        int size = 0;
+        for (ByteBuffer buffer : buffers) {
+          size += buffer.remaining();
+        }
+        CompressionCodec codec = getCompressionCodec(brokerRequest, size);
+        if (codec == null) {
+          responseBuf = PooledByteBufAllocator.DEFAULT.directBuffer(size, size);
+        } else {
+          // The codecs work on arrays.
+          responseBuf = PooledByteBufAllocator.DEFAULT.heapBuffer(size, size);
+        }
+        for (ByteBuffer buffer : buffers) {
+          responseBuf.writeBytes(buffer);
+        }
+        if (codec != null) {
+          responseBuf = CompressedFrame.compress(responseBuf, codec, PooledByteBufAllocator.DEFAULT);
+        }
+      } catch (Exception e) {
+        _serverMetrics.addMeteredGlobalValue(ServerMeter.RESPONSE_SERIALIZATION_EXCEPTIONS, 1);
+        LOGGER.error("Got exception while serializing response.", e);
+        responseBuf.release();
+        responseBuf = Unpooled.EMPTY_BUFFER;
+      }
+    }
+    addSerializationTimings(brokerRequest, serializationStartTime, queryStartTime);
+    return responseBuf;
+  }
+
+  /**
+   * Returns the codec the broker asked to compress the response with, or null if the response should
+   * not be compressed.
+   */
+  private static CompressionCodec getCompressionCodec(BrokerRequest brokerRequest, int responseSize) {
+    if (brokerRequest == null || brokerRequest.getQueryOptions() == null) {
+      return null;
+    }
+    Map<String, String> queryOptions = brokerRequest.getQueryOptions();
+    CompressionCodec codec = CompressionCodec.fromName(queryOptions.get(CompressedFrame.CODEC_OPTION));
+    String thresholdBytes = queryOptions.get(CompressedFrame.THRESHOLD_BYTES_OPTION);
+    if (codec == null || thresholdBytes == null) {
+      return codec;
+    }
+    try {
+      return responseSize >= Integer.parseInt(thresholdBytes) ? codec : null;
+    } catch (NumberFormatException e) {
+      LOGGER.warn("Invalid response compression threshold: {}", thresholdBytes);
+      return null;
+    }
+  }
+
+  private void addSerializationTimings(BrokerRequest brokerRequest, long serializationStartTime,
+      long queryStartTime) {
     long serializationEndTime = System.nanoTime();
     _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.RESPONSE_SERIALIZATION, serializationEndTime - serializationStartTime);
     _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.TOTAL_QUERY_TIME, serializationEndTime - queryStartTime);
-    return responseByte;
   }
 
 }
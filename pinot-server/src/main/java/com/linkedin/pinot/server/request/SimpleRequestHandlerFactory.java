@@ -17,6 +17,7 @@ package com.linkedin.pinot.server.request;
 
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.core.query.scheduler.QueryScheduler;
 import com.linkedin.pinot.transport.netty.NettyServer.RequestHandler;
 import com.linkedin.pinot.transport.netty.NettyServer.RequestHandlerFactory;
 
@@ -33,12 +34,20 @@ public class SimpleRequestHandlerFactory implements RequestHandlerFactory {
 
   private ServerMetrics _serverMetrics;
 
+  private QueryScheduler _queryScheduler;
+
   public SimpleRequestHandlerFactory() {
 
   }
 
   public SimpleRequestHandlerFactory(QueryExecutor queryExecutor, ServerMetrics serverMetrics) {
+    this(queryExecutor, null, serverMetrics);
+  }
+
+  public SimpleRequestHandlerFactory(QueryExecutor queryExecutor, QueryScheduler queryScheduler,
+      ServerMetrics serverMetrics) {
     _queryExecutor = queryExecutor;
+    _queryScheduler = queryScheduler;
     _serverMetrics = serverMetrics;
   }
 
@@ -48,7 +57,7 @@ public class SimpleRequestHandlerFactory implements RequestHandlerFactory {
 
   @Override
   public RequestHandler createNewRequestHandler() {
-    return new SimpleRequestHandler(_queryExecutor, _serverMetrics);
+    return new SimpleRequestHandler(_queryExecutor, _queryScheduler, _serverMetrics);
   }
 
 }
@@ -29,6 +29,8 @@ import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.data.DataManager;
 import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.core.query.scheduler.QueryScheduler;
+import com.linkedin.pinot.core.query.scheduler.QuerySchedulerFactory;
 import com.linkedin.pinot.server.conf.NettyServerConfig;
 import com.linkedin.pinot.server.conf.ServerConf;
 import com.linkedin.pinot.server.request.SimpleRequestHandlerFactory;
@@ -155,6 +157,14 @@ public class ServerBuilder {
     return queryExecutor;
   }
 
+  /**
+   * Build QueryScheduler
+   * @return
+   */
+  public QueryScheduler buildQueryScheduler() {
+    return QuerySchedulerFactory.create(_serverConf.getQuerySchedulerConfig(), _serverMetrics);
+  }
+
   /**
    * Build RequestHandlerFactory
    * @param queryExecutor
@@ -165,9 +175,24 @@ public class ServerBuilder {
    */
   public RequestHandlerFactory buildRequestHandlerFactory(QueryExecutor queryExecutor) throws InstantiationException,
       IllegalAccessException, ClassNotFoundException {
+    return buildRequestHandlerFactory(queryExecutor, null);
+  }
+
+  /**
+   * Build RequestHandlerFactory running the queries with the given scheduler
+   * @param queryExecutor
+   * @param queryScheduler
+   * @return
+   * @throws InstantiationException
+   * @throws IllegalAccessException
+   * @throws ClassNotFoundException
+   */
+  public RequestHandlerFactory buildRequestHandlerFactory(QueryExecutor queryExecutor, QueryScheduler queryScheduler)
+      throws InstantiationException, IllegalAccessException, ClassNotFoundException {
     String className = _serverConf.getRequestHandlerFactoryClassName();
     LOGGER.info("Trying to Load Request Handler Factory by Class : " + className);
-    RequestHandlerFactory requestHandlerFactory = new SimpleRequestHandlerFactory(queryExecutor, _serverMetrics);
+    RequestHandlerFactory requestHandlerFactory =
+        new SimpleRequestHandlerFactory(queryExecutor, queryScheduler, _serverMetrics);
     return requestHandlerFactory;
   }
 
@@ -23,6 +23,9 @@ import org.slf4j.LoggerFactory;
 import com.linkedin.pinot.common.data.DataManager;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.utils.DataTableSerDeRegistry;
+import com.linkedin.pinot.core.common.datatable.DataTableCustomSerDe;
+import com.linkedin.pinot.core.query.scheduler.QueryScheduler;
 import com.linkedin.pinot.server.conf.ServerConf;
 import com.linkedin.pinot.transport.netty.NettyServer;
 import com.linkedin.pinot.transport.netty.NettyServer.RequestHandlerFactory;
@@ -42,6 +45,7 @@ public class ServerInstance {
   private ServerConf _serverConf;
   private DataManager _instanceDataManager;
   private QueryExecutor _queryExecutor;
+  private QueryScheduler _queryScheduler;
   private RequestHandlerFactory _requestHandlerFactory;
   private NettyServer _nettyServer;
   private ServerMetrics _serverMetrics;
@@ -65,14 +69,17 @@ public class ServerInstance {
   public void init(ServerConf serverConf, MetricsRegistry metricsRegistry) throws InstantiationException, IllegalAccessException,
       ClassNotFoundException, ConfigurationException {
     _serverConf = serverConf;
+    DataTableSerDeRegistry.getInstance().register(DataTableCustomSerDe.INSTANCE);
     LOGGER.info("Trying to build server config");
     ServerBuilder serverBuilder = new ServerBuilder(_serverConf, metricsRegistry);
     LOGGER.info("Trying to build InstanceDataManager");
     _instanceDataManager = serverBuilder.buildInstanceDataManager();
     LOGGER.info("Trying to build QueryExecutor");
     _queryExecutor = serverBuilder.buildQueryExecutor(_instanceDataManager);
+    LOGGER.info("Trying to build QueryScheduler");
+    _queryScheduler = serverBuilder.buildQueryScheduler();
     LOGGER.info("Trying to build RequestHandlerFactory");
-    setRequestHandlerFactory(serverBuilder.buildRequestHandlerFactory(_queryExecutor));
+    setRequestHandlerFactory(serverBuilder.buildRequestHandlerFactory(_queryExecutor, _queryScheduler));
     LOGGER.info("Trying to build NettyServer");
     _nettyServer = serverBuilder.buildNettyServer(_serverConf.getNettyConfig(), _requestHandlerFactory);
     setServerThread(new Thread(_nettyServer));
@@ -88,6 +95,8 @@ public class ServerInstance {
     _instanceDataManager.start();
     LOGGER.info("Trying to start QueryExecutor");
     _queryExecutor.start();
+    LOGGER.info("Trying to start QueryScheduler");
+    _queryScheduler.start();
     LOGGER.info("Trying to start ServerThread");
     _serverThread.start();
     _istarted = true;
@@ -99,6 +108,7 @@ public class ServerInstance {
    */
   public void shutDown() {
     if (isStarted()) {
+      _queryScheduler.stop();
       _queryExecutor.shutDown();
       _instanceDataManager.shutDown();
       _nettyServer.shutdownGracefully();
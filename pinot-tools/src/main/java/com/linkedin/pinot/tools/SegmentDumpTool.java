@@ -30,6 +30,7 @@ import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.segment.index.loader.Loaders;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.startree.OffHeapStarTree;
 import com.linkedin.pinot.core.startree.StarTree;
 import com.linkedin.pinot.core.startree.StarTreeIndexNode;
 import org.kohsuke.args4j.Argument;
@@ -37,7 +38,6 @@ import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -109,7 +109,9 @@ public class SegmentDumpTool {
     if (dumpStarTree) {
       System.out.println();
       File starTreeFile = new File(segmentDir, V1Constants.STAR_TREE_INDEX_FILE);
-      StarTree tree = StarTree.fromBytes(new FileInputStream(starTreeFile));
+      OffHeapStarTree offHeapStarTree = OffHeapStarTree.fromFile(starTreeFile, ReadMode.heap);
+      StarTree tree = offHeapStarTree.toStarTree();
+      offHeapStarTree.close();
       StarTreeIndexNode.printTree(tree.getRoot(), 0);
     }
   }
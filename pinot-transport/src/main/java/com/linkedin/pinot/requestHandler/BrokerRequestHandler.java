@@ -17,6 +17,7 @@ package com.linkedin.pinot.requestHandler;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,8 +39,10 @@ import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.metrics.BrokerMeter;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.metrics.BrokerQueryPhase;
+import com.linkedin.pinot.common.query.DataTableReducer;
 import com.linkedin.pinot.common.query.ReduceService;
 import com.linkedin.pinot.common.query.ReduceServiceRegistry;
+import com.linkedin.pinot.common.query.StreamingReduceService;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.request.FilterQuery;
@@ -82,6 +85,8 @@ public class BrokerRequestHandler {
   private static final Logger LOGGER = LoggerFactory.getLogger(BrokerRequestHandler.class);
   private static final Pql2Compiler REQUEST_COMPILER = new Pql2Compiler();
   private static final String BROKER_RESPONSE_TYPE = "responseType";
+  private static final String BYPASS_RESULT_CACHE = "bypassResultCache";
+  private static final String QUERY_OPTIONS = "queryOptions";
   private final RoutingTable _routingTable;
   private final ScatterGather _scatterGatherer;
   private final ReduceServiceRegistry _reduceServiceRegistry;
@@ -89,23 +94,83 @@ public class BrokerRequestHandler {
   private final TimeBoundaryService _timeBoundaryService;
   private final long _brokerTimeOutMs;
   private final BrokerRequestOptimizer _optimizer;
+  private final BrokerResultCache _resultCache;
   private AtomicLong _requestIdGenerator;
 
-  //TODO: Currently only using RoundRobin selection. But, this can be allowed to be configured.
-  private RoundRobinReplicaSelection _replicaSelection;
+  private final ReplicaSelection _replicaSelection;
+  private final HedgingPolicy _hedgingPolicy;
+  private final ResponseCompressionPolicy _compressionPolicy;
 
   public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
       ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
       long brokerTimeOutMs) {
+    this(table, timeBoundaryService, scatterGatherer, reduceServiceRegistry, brokerMetrics, brokerTimeOutMs, null);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param resultCache Cache of broker responses, or null to process every query
+   */
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
+      long brokerTimeOutMs, BrokerResultCache resultCache) {
+    this(table, timeBoundaryService, scatterGatherer, reduceServiceRegistry, brokerMetrics, brokerTimeOutMs,
+        resultCache, new RoundRobinReplicaSelection());
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param resultCache Cache of broker responses, or null to process every query
+   * @param replicaSelection Policy for selecting the server among the replicas of a segment
+   */
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
+      long brokerTimeOutMs, BrokerResultCache resultCache, ReplicaSelection replicaSelection) {
+    this(table, timeBoundaryService, scatterGatherer, reduceServiceRegistry, brokerMetrics, brokerTimeOutMs,
+        resultCache, replicaSelection, null);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param resultCache Cache of broker responses, or null to process every query
+   * @param replicaSelection Policy for selecting the server among the replicas of a segment
+   * @param hedgingPolicy Policy for hedging slow server requests to other replicas, or null to not hedge requests
+   */
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
+      long brokerTimeOutMs, BrokerResultCache resultCache, ReplicaSelection replicaSelection,
+      HedgingPolicy hedgingPolicy) {
+    this(table, timeBoundaryService, scatterGatherer, reduceServiceRegistry, brokerMetrics, brokerTimeOutMs,
+        resultCache, replicaSelection, hedgingPolicy, null);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param resultCache Cache of broker responses, or null to process every query
+   * @param replicaSelection Policy for selecting the server among the replicas of a segment
+   * @param hedgingPolicy Policy for hedging slow server requests to other replicas, or null to not hedge requests
+   * @param compressionPolicy Policy for compressing server responses, or null to never ask for compressed responses
+   */
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
+      long brokerTimeOutMs, BrokerResultCache resultCache, ReplicaSelection replicaSelection,
+      HedgingPolicy hedgingPolicy, ResponseCompressionPolicy compressionPolicy) {
     _routingTable = table;
     _timeBoundaryService = timeBoundaryService;
     _reduceServiceRegistry = reduceServiceRegistry;
     _scatterGatherer = scatterGatherer;
-    _replicaSelection = new RoundRobinReplicaSelection();
+    _replicaSelection = replicaSelection;
     _brokerMetrics = brokerMetrics;
     _brokerTimeOutMs = brokerTimeOutMs;
     _optimizer = new BrokerRequestOptimizer();
     _requestIdGenerator = new AtomicLong(0);
+    _resultCache = resultCache;
+    _hedgingPolicy = hedgingPolicy;
+    _compressionPolicy = compressionPolicy;
   }
 
   public BrokerResponse handleRequest(JSONObject request) throws Exception {
@@ -125,6 +190,11 @@ public class BrokerRequestHandler {
       // ignore, trace is disabled by default
     }
 
+    boolean bypassResultCache = false;
+    if (request.has(BYPASS_RESULT_CACHE)) {
+      bypassResultCache = Boolean.parseBoolean(request.getString(BYPASS_RESULT_CACHE));
+    }
+
     final long startTime = System.nanoTime();
     final BrokerRequest brokerRequest;
     try {
@@ -132,6 +202,9 @@ public class BrokerRequestHandler {
       if (isTraceEnabled) {
         brokerRequest.setEnableTrace(true);
       }
+      if (request.has(QUERY_OPTIONS)) {
+        brokerRequest.setQueryOptions(getQueryOptions(request.getString(QUERY_OPTIONS)));
+      }
       brokerRequest.setResponseFormat(ResponseType.BROKER_RESPONSE_TYPE_NATIVE.name());
     } catch (Exception e) {
       BrokerResponse brokerResponse = new BrokerResponseNative();
@@ -147,6 +220,27 @@ public class BrokerRequestHandler {
     _brokerMetrics.addPhaseTiming(brokerRequest, BrokerQueryPhase.REQUEST_COMPILATION, requestCompilationTime);
     final ScatterGatherStats scatterGatherStats = new ScatterGatherStats();
 
+    // Traced queries are always processed, as the trace info is what the caller is after
+    BrokerResultCache.Key resultCacheKey = null;
+    long resultCacheTableVersion = 0L;
+    if (_resultCache != null && !isTraceEnabled && !bypassResultCache) {
+      resultCacheKey = _resultCache.getKey(brokerRequest);
+      if (resultCacheKey != null) {
+        BrokerResponse cachedResponse = _resultCache.get(resultCacheKey);
+        if (cachedResponse != null) {
+          _brokerMetrics.addMeteredQueryValue(brokerRequest, BrokerMeter.RESULT_CACHE_HITS, 1);
+          long queryProcessingTimeInMillis =
+              TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+          cachedResponse.setTimeUsedMs(queryProcessingTimeInMillis);
+          LOGGER.info("Served requestId:{}, table:{} from result cache, total time:{}, query: {}", requestId,
+              brokerRequest.getQuerySource().getTableName(), queryProcessingTimeInMillis, pql);
+          return cachedResponse;
+        }
+        _brokerMetrics.addMeteredQueryValue(brokerRequest, BrokerMeter.RESULT_CACHE_MISSES, 1);
+        resultCacheTableVersion = _resultCache.getTableVersion(resultCacheKey);
+      }
+    }
+
     final BrokerResponse resp =
         _brokerMetrics.timeQueryPhase(brokerRequest, BrokerQueryPhase.QUERY_EXECUTION, new Callable<BrokerResponse>() {
           @Override
@@ -162,6 +256,11 @@ public class BrokerRequestHandler {
     long queryProcessingTimeInMillis = TimeUnit.MILLISECONDS.convert(queryProcessingTimeInNanos, TimeUnit.NANOSECONDS);
     resp.setTimeUsedMs(queryProcessingTimeInMillis);
 
+    // Partial results, e.g. with a server that failed or timed out, are not cached.
+    if (resultCacheKey != null && scatterGatherStats.getNumFailedServers() == 0) {
+      _resultCache.put(resultCacheKey, resultCacheTableVersion, resp);
+    }
+
     LOGGER.debug("Broker Response : {}", resp);
     LOGGER.info("ResponseTimes for requestId:{}, table:{}, total time:{}, scanned docs:{}, total docs:{}, scatterGatherStats: {} query: {}", requestId,
         brokerRequest.getQuerySource().getTableName(), queryProcessingTimeInMillis, resp.getNumDocsScanned(), resp.getTotalDocs(), scatterGatherStats, pql);
@@ -169,6 +268,23 @@ public class BrokerRequestHandler {
     return resp;
   }
 
+  /**
+   * Parses the query options of the request, given as 'key1=value1;key2=value2'.
+   *
+   * @param queryOptionsString
+   * @return Map from query option to value
+   */
+  static Map<String, String> getQueryOptions(String queryOptionsString) {
+    Map<String, String> queryOptions = new HashMap<String, String>();
+    for (String queryOption : queryOptionsString.split(";")) {
+      String[] keyValue = queryOption.split("=", 2);
+      if (keyValue.length == 2 && !keyValue[0].trim().isEmpty()) {
+        queryOptions.put(keyValue[0].trim(), keyValue[1].trim());
+      }
+    }
+    return queryOptions;
+  }
+
   private BucketingSelection getBucketingSelection(BrokerRequest brokerRequest) {
     final Map<SegmentId, ServerInstance> bucketMap = new HashMap<>();
     return new BucketingSelection(bucketMap);
@@ -321,12 +437,42 @@ public class BrokerRequestHandler {
     }
   }
 
+  /**
+   * Scatter the request to the servers. If hedging is enabled, the response times of the original (not hedged)
+   * requests are recorded once all the responses have arrived, and slow requests are hedged to other replicas. If compression is enabled for the table,
+   * the servers are asked to compress large responses.
+   */
+  private CompositeFuture<ServerInstance, ByteBuf> scatterGather(BrokerRequest request,
+      Map<ServerInstance, SegmentIdSet> segmentServices, BucketingSelection overriddenSelection,
+      ScatterGatherStats scatterGatherStats, long requestId) throws InterruptedException {
+    final String tableName = request.getQuerySource().getTableName();
+    long hedgeDelayMs = (_hedgingPolicy != null) ? _hedgingPolicy.getHedgeDelayMs(tableName) : -1L;
+    if (_compressionPolicy != null) {
+      _compressionPolicy.setQueryOptions(request);
+    }
+    ScatterGatherRequestImpl scatterRequest = new ScatterGatherRequestImpl(request, segmentServices, _replicaSelection,
+        ReplicaSelectionGranularity.SEGMENT_ID_SET, request.getBucketHashKey(), (hedgeDelayMs >= 0) ? 1 : 0,
+        overriddenSelection, requestId, _brokerTimeOutMs, hedgeDelayMs, _routingTable);
+    final CompositeFuture<ServerInstance, ByteBuf> response =
+        _scatterGatherer.scatterGather(scatterRequest, scatterGatherStats, _brokerMetrics);
+    if (_hedgingPolicy != null) {
+      response.addListener(new Runnable() {
+        @Override
+        public void run() {
+          _hedgingPolicy.recordResponseTimes(tableName, response.getOriginalResponseTimes());
+        }
+      }, null);
+    }
+    return response;
+  }
+
   private Object getDataTableFromBrokerRequest(final BrokerRequest request, final ReduceService reduceService,
       BucketingSelection overriddenSelection, final ScatterGatherStats scatterGatherStats, final long requestId)
       throws InterruptedException {
     // Step1
     final long routingStartTime = System.nanoTime();
-    RoutingTableLookupRequest rtRequest = new RoutingTableLookupRequest(request.getQuerySource().getTableName());
+    RoutingTableLookupRequest rtRequest =
+        new RoutingTableLookupRequest(request.getQuerySource().getTableName(), request);
     Map<ServerInstance, SegmentIdSet> segmentServices = _routingTable.findServers(rtRequest);
     if (segmentServices == null || segmentServices.isEmpty()) {
       LOGGER.warn("Not found ServerInstances to Segments Mapping:");
@@ -339,12 +485,14 @@ public class BrokerRequestHandler {
 
     // Step 2-4
     final long scatterGatherStartTime = System.nanoTime();
-    ScatterGatherRequestImpl scatterRequest = new ScatterGatherRequestImpl(request, segmentServices, _replicaSelection,
-        ReplicaSelectionGranularity.SEGMENT_ID_SET, request.getBucketHashKey(), 0,
-        //TODO: Speculative Requests not yet supported
-        overriddenSelection, requestId, _brokerTimeOutMs);
     CompositeFuture<ServerInstance, ByteBuf> response =
-        _scatterGatherer.scatterGather(scatterRequest, scatterGatherStats, _brokerMetrics);
+        scatterGather(request, segmentServices, overriddenSelection, scatterGatherStats, requestId);
+
+    if (reduceService instanceof StreamingReduceService) {
+      return reduceResponsesAsTheyArrive(request, (StreamingReduceService) reduceService,
+          Collections.singletonList(Pair.of(response, scatterGatherStats)), scatterGatherStats, null,
+          scatterGatherStartTime);
+    }
 
     //Step 5 - Deserialize Responses and build instance response map
     final Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<ServerInstance, DataTable>();
@@ -364,33 +512,7 @@ public class BrokerRequestHandler {
       _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.SCATTER_GATHER, scatterGatherTime);
 
       final long deserializationStartTime = System.nanoTime();
-
-      Map<ServerInstance, Throwable> errors = response.getError();
-
-      if (null != responses) {
-        for (Entry<ServerInstance, ByteBuf> e : responses.entrySet()) {
-          try {
-            ByteBuf b = e.getValue();
-            byte[] b2 = new byte[b.readableBytes()];
-            if (b2 == null || b2.length == 0) {
-              continue;
-            }
-            b.readBytes(b2);
-            DataTable r2 = new DataTable(b2);
-            if (errors != null && errors.containsKey(e.getKey())) {
-              Throwable throwable = errors.get(e.getKey());
-              r2.getMetadata().put(DataTable.EXCEPTION_METADATA_KEY, new RequestProcessingException(throwable).toString());
-              _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
-            }
-            instanceResponseMap.put(e.getKey(), r2);
-          } catch (Exception ex) {
-            LOGGER.error(
-                "Got exceptions in collect query result for instance " + e.getKey() + ", error: " + ex.getMessage(),
-                ex);
-            _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
-          }
-        }
-      }
+      collectDataTables(request, response, responses, null, scatterGatherStats, instanceResponseMap);
       final long deserializationTime = System.nanoTime() - deserializationStartTime;
       _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.DESERIALIZATION, deserializationTime);
     }
@@ -424,7 +546,8 @@ public class BrokerRequestHandler {
         new HashMap<BrokerRequest, Pair<CompositeFuture<ServerInstance, ByteBuf>, ScatterGatherStats>>();
     for (BrokerRequest request : requests) {
       final long routingStartTime = System.nanoTime();
-      RoutingTableLookupRequest rtRequest = new RoutingTableLookupRequest(request.getQuerySource().getTableName());
+      RoutingTableLookupRequest rtRequest =
+        new RoutingTableLookupRequest(request.getQuerySource().getTableName(), request);
       Map<ServerInstance, SegmentIdSet> segmentServices = _routingTable.findServers(rtRequest);
       if (segmentServices == null || segmentServices.isEmpty()) {
         LOGGER.info("Not found ServerInstances to Segments Mapping for Table - {}", rtRequest.getTableName());
@@ -439,16 +562,19 @@ public class BrokerRequestHandler {
 
       // Step 2-4
       scatterGatherStartTime = System.nanoTime();
-      ScatterGatherRequestImpl scatterRequest =
-          new ScatterGatherRequestImpl(request, segmentServices, _replicaSelection,
-              ReplicaSelectionGranularity.SEGMENT_ID_SET, request.getBucketHashKey(), 0,
-              //TODO: Speculative Requests not yet supported
-              overriddenSelection, requestId, _brokerTimeOutMs);
       responseFuturesList.put(request,
-          Pair.of(_scatterGatherer.scatterGather(scatterRequest, scatterGatherStats, _brokerMetrics), respStats));
+          Pair.of(scatterGather(request, segmentServices, overriddenSelection, scatterGatherStats, requestId),
+              respStats));
     }
     _brokerMetrics.addPhaseTiming(federatedBrokerRequest, BrokerQueryPhase.QUERY_ROUTING, queryRoutingTime);
 
+    if (reduceService instanceof StreamingReduceService) {
+      // Hybrid requests may get response from same instance, so we need to distinguish them.
+      return reduceResponsesAsTheyArrive(federatedBrokerRequest, (StreamingReduceService) reduceService,
+          new ArrayList<>(responseFuturesList.values()), scatterGatherStats, new AtomicInteger(-1),
+          scatterGatherStartTime);
+    }
+
     long scatterGatherTime = 0;
     long deserializationTime = 0;
     //Step 5 - Deserialize Responses and build instance response map
@@ -476,38 +602,9 @@ public class BrokerRequestHandler {
         scatterGatherTime += System.nanoTime() - scatterGatherStartTime;
 
         final long deserializationStartTime = System.nanoTime();
-
-        Map<ServerInstance, Throwable> errors = compositeFuture.getError();
-
-        if (null != responseMap) {
-          for (Entry<ServerInstance, ByteBuf> responseEntry : responseMap.entrySet()) {
-            try {
-              ByteBuf b = responseEntry.getValue();
-              byte[] b2 = new byte[b.readableBytes()];
-              if (b2 == null || b2.length == 0) {
-                continue;
-              }
-              b.readBytes(b2);
-              DataTable r2 = new DataTable(b2);
-              // Hybrid requests may get response from same instance, so we need to distinguish them.
-              ServerInstance decoratedServerInstance = new ServerInstance(responseEntry.getKey().getHostname(),
-                  responseEntry.getKey().getPort(), responseSeq.incrementAndGet());
-              if (errors != null && errors.containsKey(responseEntry.getKey())) {
-                Throwable throwable = errors.get(responseEntry.getKey());
-                if (throwable != null) {
-                  r2.getMetadata().put("exception", new RequestProcessingException(throwable).toString());
-                  _brokerMetrics.addMeteredQueryValue(federatedBrokerRequest, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
-                }
-              }
-              instanceResponseMap.put(decoratedServerInstance, r2);
-            } catch (Exception ex) {
-              LOGGER.error(
-                  "Got exceptions in collect query result for instance " + responseEntry.getKey() + ", error: " + ex
-                      .getMessage(), ex);
-              _brokerMetrics.addMeteredQueryValue(federatedBrokerRequest, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
-            }
-          }
-        }
+        // Hybrid requests may get response from same instance, so we need to distinguish them.
+        collectDataTables(federatedBrokerRequest, compositeFuture, responseMap, responseSeq, scatterGatherStats,
+            instanceResponseMap);
         deserializationTime += System.nanoTime() - deserializationStartTime;
       }
     }
@@ -533,6 +630,204 @@ public class BrokerRequestHandler {
     }
   }
 
+  /**
+   * Deserializes each server response as soon as it arrives, and hands it to the reducer of the streaming
+   * reduce service, so that the reduce overlaps with waiting for the slower servers.
+   *
+   * The phase timings for deserialization and reduce are the time spent in them, summed across the responses.
+   * Servers that fail, send back an empty response or do not respond in time are reported as processing
+   * exceptions in the broker response, and the requests still pending at the timeout are cancelled.
+   *
+   * @param request Broker request
+   * @param reduceService Streaming reduce service
+   * @param responseFutures Response futures of the scatter gather requests, along with their stats
+   * @param scatterGatherStats Stats of the broker request, the stats of each scatter gather request are merged into it
+   * @param responseSeq If not null, used to distinguish the responses of the same server across requests
+   * @param scatterGatherStartTime Start time of the scatter gather in nanos
+   * @return Broker response
+   * @throws InterruptedException
+   */
+  private BrokerResponse reduceResponsesAsTheyArrive(BrokerRequest request, StreamingReduceService reduceService,
+      List<Pair<CompositeFuture<ServerInstance, ByteBuf>, ScatterGatherStats>> responseFutures,
+      ScatterGatherStats scatterGatherStats, AtomicInteger responseSeq, long scatterGatherStartTime)
+      throws InterruptedException {
+    DataTableReducer<? extends BrokerResponse> reducer = reduceService.getDataTableReducer(request);
+    long deserializationTime = 0;
+    long reduceTime = 0;
+    long deadlineMs = System.currentTimeMillis() + _brokerTimeOutMs;
+
+    for (Pair<CompositeFuture<ServerInstance, ByteBuf>, ScatterGatherStats> responseFuture : responseFutures) {
+      CompositeFuture<ServerInstance, ByteBuf> compositeFuture = responseFuture.getKey();
+      Map<ServerInstance, Throwable> errors = compositeFuture.getError();
+
+      ServerInstance serverInstance;
+      while ((serverInstance = compositeFuture.takeNextCompletedKey(
+          Math.max(deadlineMs - System.currentTimeMillis(), 0L), TimeUnit.MILLISECONDS)) != null) {
+        ByteBuf byteBuf = compositeFuture.getResponse(serverInstance);
+        Throwable throwable = errors.get(serverInstance);
+
+        DataTable dataTable;
+        final long deserializationStartTime = System.nanoTime();
+        try {
+          if (byteBuf == null || byteBuf.readableBytes() == 0) {
+            // The request to the server failed, or it sent back nothing.
+            String message = (throwable != null) ? new RequestProcessingException(throwable).toString()
+                : "Empty response from server " + serverInstance;
+            dataTable = buildExceptionDataTable(QueryException.BROKER_GATHER_ERROR, message);
+            _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
+            scatterGatherStats.addFailedServer();
+          } else {
+            dataTable = new DataTable(byteBuf.nioBuffer());
+            if (throwable != null) {
+              dataTable.getMetadata()
+                  .put(DataTable.EXCEPTION_METADATA_KEY, new RequestProcessingException(throwable).toString());
+              _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
+              scatterGatherStats.addFailedServer();
+            }
+          }
+        } catch (Exception e) {
+          LOGGER.error("Got exceptions in collect query result for instance " + serverInstance + ", error: " + e
+              .getMessage(), e);
+          _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
+          scatterGatherStats.addFailedServer();
+          dataTable = buildExceptionDataTable(QueryException.BROKER_GATHER_ERROR,
+              "Failed to deserialize response from server " + serverInstance + ": " + e.getMessage());
+        } finally {
+          deserializationTime += System.nanoTime() - deserializationStartTime;
+        }
+
+        final long reduceStartTime = System.nanoTime();
+        reducer.reduce(decorateServerInstance(serverInstance, responseSeq), dataTable);
+        reduceTime += System.nanoTime() - reduceStartTime;
+      }
+
+      // Servers that have not responded by now either timed out, or were given up on after another server failed.
+      List<String> pendingServers = compositeFuture.getPendingFutureNames();
+      if (!pendingServers.isEmpty()) {
+        boolean timedOut = System.currentTimeMillis() >= deadlineMs;
+        LOGGER.warn("No response from servers {} of request {}, timed out: {}", pendingServers, request, timedOut);
+        compositeFuture.cancel(true);
+        for (String pendingServer : pendingServers) {
+          _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
+          scatterGatherStats.addFailedServer();
+          DataTable dataTable = timedOut
+              ? buildExceptionDataTable(QueryException.BROKER_TIMEOUT_ERROR,
+                  "Timed out waiting for response from server " + pendingServer)
+              : buildExceptionDataTable(QueryException.BROKER_GATHER_ERROR,
+                  "Request to server " + pendingServer + " was cancelled after another server failed");
+          final long reduceStartTime = System.nanoTime();
+          reducer.reduce(decorateServerInstance(getServerInstance(pendingServer), responseSeq), dataTable);
+          reduceTime += System.nanoTime() - reduceStartTime;
+        }
+      }
+      ScatterGatherStats responseStats = responseFuture.getValue();
+      responseStats.setResponseTimeMillis(compositeFuture.getResponseTimes());
+      if (responseStats != scatterGatherStats) {
+        scatterGatherStats.merge(responseStats);
+      }
+    }
+    _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.SCATTER_GATHER, System.nanoTime() - scatterGatherStartTime);
+    _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.DESERIALIZATION, deserializationTime);
+
+    final long reduceStartTime = System.nanoTime();
+    BrokerResponse brokerResponse = reducer.getBrokerResponse();
+    reduceTime += System.nanoTime() - reduceStartTime;
+    _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.REDUCE, reduceTime);
+    _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.DOCUMENTS_SCANNED, brokerResponse.getNumDocsScanned());
+    return brokerResponse;
+  }
+
+  /**
+   * Deserializes the responses of a scatter gather request into the instance response map. The servers that fail,
+   * send back an empty or corrupt response, or do not respond at all get a DataTable that only holds the exception,
+   * so that they show up in the broker response, and are counted as failed in the scatter gather stats.
+   *
+   * @param request Broker request, for the metrics
+   * @param compositeFuture Response future of the scatter gather request
+   * @param responses Responses of the scatter gather request, may be null if it failed
+   * @param responseSeq If not null, used to distinguish the responses of the same server across requests
+   * @param scatterGatherStats Stats of the broker request
+   * @param instanceResponseMap Map to put the DataTables into
+   */
+  private void collectDataTables(BrokerRequest request, CompositeFuture<ServerInstance, ByteBuf> compositeFuture,
+      Map<ServerInstance, ByteBuf> responses, AtomicInteger responseSeq, ScatterGatherStats scatterGatherStats,
+      Map<ServerInstance, DataTable> instanceResponseMap) {
+    Map<ServerInstance, Throwable> errors = compositeFuture.getError();
+
+    if (null != responses) {
+      for (Entry<ServerInstance, ByteBuf> e : responses.entrySet()) {
+        ServerInstance serverInstance = e.getKey();
+        Throwable throwable = (errors != null) ? errors.get(serverInstance) : null;
+        DataTable dataTable;
+        try {
+          ByteBuf b = e.getValue();
+          if (b.readableBytes() == 0) {
+            dataTable = buildExceptionDataTable(QueryException.BROKER_GATHER_ERROR,
+                "Empty response from server " + serverInstance);
+            _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
+            scatterGatherStats.addFailedServer();
+          } else {
+            dataTable = new DataTable(b.nioBuffer());
+            if (throwable != null) {
+              dataTable.getMetadata()
+                  .put(DataTable.EXCEPTION_METADATA_KEY, new RequestProcessingException(throwable).toString());
+              _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
+              scatterGatherStats.addFailedServer();
+            }
+          }
+        } catch (Exception ex) {
+          LOGGER.error(
+              "Got exceptions in collect query result for instance " + serverInstance + ", error: " + ex.getMessage(),
+              ex);
+          _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
+          scatterGatherStats.addFailedServer();
+          dataTable = buildExceptionDataTable(QueryException.BROKER_GATHER_ERROR,
+              "Failed to deserialize response from server " + serverInstance + ": " + ex.getMessage());
+        }
+        instanceResponseMap.put(decorateServerInstance(serverInstance, responseSeq), dataTable);
+      }
+    }
+
+    // The requests that failed, were cancelled or are still pending.
+    for (String futureName : compositeFuture.getFutureNamesWithoutResponse()) {
+      ServerInstance serverInstance = getServerInstance(futureName);
+      Throwable throwable = (errors != null) ? errors.get(serverInstance) : null;
+      String message = (throwable != null) ? new RequestProcessingException(throwable).toString()
+          : "No response from server " + serverInstance;
+      _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
+      scatterGatherStats.addFailedServer();
+      instanceResponseMap.put(decorateServerInstance(serverInstance, responseSeq),
+          buildExceptionDataTable(QueryException.BROKER_GATHER_ERROR, message));
+    }
+  }
+
+  /**
+   * Returns the server instance of a server request future, from its name ('host_port').
+   */
+  private static ServerInstance getServerInstance(String futureName) {
+    int index = futureName.lastIndexOf('_');
+    return new ServerInstance(futureName.substring(0, index), Integer.parseInt(futureName.substring(index + 1)));
+  }
+
+  private ServerInstance decorateServerInstance(ServerInstance serverInstance, AtomicInteger responseSeq) {
+    if (responseSeq == null) {
+      return serverInstance;
+    }
+    return new ServerInstance(serverInstance.getHostname(), serverInstance.getPort(), responseSeq.incrementAndGet());
+  }
+
+  /**
+   * Builds a DataTable that only holds the given exception, so that the reducer reports it in the broker response
+   * the same way as the exceptions returned by the servers.
+   */
+  private static DataTable buildExceptionDataTable(ProcessingException processingException, String message) {
+    ProcessingException exception = processingException.deepCopy();
+    exception.setMessage(message);
+    DataTable dataTable = new DataTable(new HashMap<String, String>());
+    dataTable.addException(exception);
+    return dataTable;
+  }
+
   public static class ScatterGatherRequestImpl implements ScatterGatherRequest {
     private final BrokerRequest _brokerRequest;
     private final Map<ServerInstance, SegmentIdSet> _segmentServices;
@@ -543,10 +838,26 @@ public class BrokerRequestHandler {
     private final BucketingSelection _bucketingSelection;
     private final long _requestId;
     private final long _requestTimeoutMs;
+    private final long _hedgeDelayMs;
+    private final RoutingTable _routingTable;
 
     public ScatterGatherRequestImpl(BrokerRequest request, Map<ServerInstance, SegmentIdSet> segmentServices,
         ReplicaSelection replicaSelection, ReplicaSelectionGranularity replicaSelectionGranularity, Object hashKey,
         int numSpeculativeRequests, BucketingSelection bucketingSelection, long requestId, long requestTimeoutMs) {
+      this(request, segmentServices, replicaSelection, replicaSelectionGranularity, hashKey, numSpeculativeRequests,
+          bucketingSelection, requestId, requestTimeoutMs, -1L, null);
+    }
+
+    /**
+     * Constructor for the class.
+     *
+     * @param hedgeDelayMs Delay after which slow requests are hedged, negative to not hedge requests
+     * @param routingTable Routing table to find the replicas to send hedged requests to
+     */
+    public ScatterGatherRequestImpl(BrokerRequest request, Map<ServerInstance, SegmentIdSet> segmentServices,
+        ReplicaSelection replicaSelection, ReplicaSelectionGranularity replicaSelectionGranularity, Object hashKey,
+        int numSpeculativeRequests, BucketingSelection bucketingSelection, long requestId, long requestTimeoutMs,
+        long hedgeDelayMs, RoutingTable routingTable) {
       _brokerRequest = request;
       _segmentServices = segmentServices;
       _replicaSelection = replicaSelection;
@@ -556,6 +867,8 @@ public class BrokerRequestHandler {
       _bucketingSelection = bucketingSelection;
       _requestId = requestId;
       _requestTimeoutMs = requestTimeoutMs;
+      _hedgeDelayMs = hedgeDelayMs;
+      _routingTable = routingTable;
     }
 
     @Override
@@ -611,6 +924,19 @@ public class BrokerRequestHandler {
       return _requestTimeoutMs;
     }
 
+    @Override
+    public long getHedgeDelayMs() {
+      return _hedgeDelayMs;
+    }
+
+    @Override
+    public ServerInstance getHedgeService(ServerInstance service, SegmentIdSet querySegments) {
+      if (_routingTable == null) {
+        return null;
+      }
+      return _routingTable.findReplicaServer(_brokerRequest.getQuerySource().getTableName(), service, querySegments);
+    }
+
     public SerDe getSerde() {
       return new SerDe(new TCompactProtocol.Factory());
     }
@@ -0,0 +1,263 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.routing.RoutingTableChangeListener;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Bounded LRU cache of broker responses, keyed on the normalized broker request
+ * (see {@link RequestUtils#getNormalizedRequest(BrokerRequest)}).
+ *
+ * The cache is bounded both on the number of entries and on the (estimated) size of the cached responses. Entries
+ * expire after the TTL configured for their table, and all the entries of a table are dropped when its routing table
+ * or time boundary changes. Responses are stored serialized, so each hit returns a new response object.
+ *
+ * A per table version is bumped on every invalidation, and responses computed against an older version are not
+ * cached, so that a query racing with a routing change cannot put a stale response back in.
+ */
+public class BrokerResultCache implements RoutingTableChangeListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerResultCache.class);
+
+  // Rough per entry overhead of the map entry, key and value objects
+  private static final long ENTRY_OVERHEAD_BYTES = 128L;
+
+  private final int _maxEntries;
+  private final long _maxBytes;
+  private final long _defaultTtlMs;
+  private final Map<String, Long> _tableTtlMsMap;
+
+  // Access ordered for LRU eviction, guarded by 'this'
+  private final LinkedHashMap<Key, Entry> _entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, Long> _tableVersions = new HashMap<>();
+  private long _sizeInBytes = 0L;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param maxEntries Maximum number of cached responses
+   * @param maxBytes Maximum total size of the cached responses
+   * @param defaultTtlMs TTL of the cached responses, non-positive to not cache responses by default
+   * @param tableTtlMsMap Map from raw table name to the TTL of its cached responses, overriding the default one
+   */
+  public BrokerResultCache(int maxEntries, long maxBytes, long defaultTtlMs, Map<String, Long> tableTtlMsMap) {
+    Preconditions.checkArgument(maxEntries > 0);
+    Preconditions.checkArgument(maxBytes > 0);
+    _maxEntries = maxEntries;
+    _maxBytes = maxBytes;
+    _defaultTtlMs = defaultTtlMs;
+    _tableTtlMsMap = new HashMap<>(tableTtlMsMap);
+  }
+
+  /**
+   * Returns the cache key for the given broker request, or null if responses of the request should not be cached.
+   * Must be called before the request is processed, as processing rewrites the table name.
+   */
+  public Key getKey(BrokerRequest brokerRequest) {
+    if (brokerRequest.getQuerySource() == null || brokerRequest.getQuerySource().getTableName() == null) {
+      return null;
+    }
+    String rawTableName = TableNameBuilder.extractRawTableName(brokerRequest.getQuerySource().getTableName());
+    if (getTtlMs(rawTableName) <= 0) {
+      return null;
+    }
+
+    try {
+      byte[] bytes = RequestUtils.getNormalizedRequestBytes(brokerRequest);
+      return new Key(rawTableName, bytes);
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while serializing broker request {}", brokerRequest, e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns a copy of the cached response for the given key, or null if there is none or it expired.
+   */
+  public BrokerResponse get(Key key) {
+    String responseJson;
+    synchronized (this) {
+      Entry entry = _entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry._expirationTimeMs <= System.currentTimeMillis()) {
+        removeEntry(key);
+        return null;
+      }
+      responseJson = entry._responseJson;
+    }
+    try {
+      return new BrokerResponseNative().fromJsonString(responseJson);
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while deserializing cached response", e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the current version of the table of the given key, to be passed to {@link #put(Key, long, BrokerResponse)}
+   * once the response is computed.
+   */
+  public synchronized long getTableVersion(Key key) {
+    return getTableVersionForRawTableName(key._rawTableName);
+  }
+
+  /**
+   * Caches the given response if it has no exceptions, and the table was not invalidated since the given version.
+   */
+  public void put(Key key, long tableVersion, BrokerResponse response) {
+    if (!(response instanceof BrokerResponseNative) || response.getExceptionsSize() > 0) {
+      return;
+    }
+    String responseJson;
+    try {
+      responseJson = response.toJsonString();
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while serializing response", e);
+      return;
+    }
+    long sizeInBytes = ENTRY_OVERHEAD_BYTES + key._bytes.length + 2L * responseJson.length();
+    if (sizeInBytes > _maxBytes) {
+      return;
+    }
+    long expirationTimeMs = System.currentTimeMillis() + getTtlMs(key._rawTableName);
+
+    synchronized (this) {
+      if (getTableVersion(key) != tableVersion) {
+        return;
+      }
+      removeEntry(key);
+      _entries.put(key, new Entry(responseJson, expirationTimeMs, sizeInBytes));
+      _sizeInBytes += sizeInBytes;
+
+      Iterator<Map.Entry<Key, Entry>> iterator = _entries.entrySet().iterator();
+      while (_entries.size() > _maxEntries || _sizeInBytes > _maxBytes) {
+        Map.Entry<Key, Entry> eldest = iterator.next();
+        _sizeInBytes -= eldest.getValue()._sizeInBytes;
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Drops all the cached responses for the given table (with or without type suffix).
+   */
+  public synchronized void invalidate(String tableName) {
+    String rawTableName = TableNameBuilder.extractRawTableName(tableName);
+    _tableVersions.put(rawTableName, getTableVersionForRawTableName(rawTableName) + 1);
+
+    int numRemoved = 0;
+    Iterator<Map.Entry<Key, Entry>> iterator = _entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Key, Entry> entry = iterator.next();
+      if (entry.getKey()._rawTableName.equals(rawTableName)) {
+        _sizeInBytes -= entry.getValue()._sizeInBytes;
+        iterator.remove();
+        numRemoved++;
+      }
+    }
+    LOGGER.debug("Invalidated {} cached responses for table {}", numRemoved, rawTableName);
+  }
+
+  @Override
+  public void onRoutingTableChange(String tableName) {
+    invalidate(tableName);
+  }
+
+  public synchronized int size() {
+    return _entries.size();
+  }
+
+  public synchronized long getSizeInBytes() {
+    return _sizeInBytes;
+  }
+
+  private long getTtlMs(String rawTableName) {
+    Long ttlMs = _tableTtlMsMap.get(rawTableName);
+    return ttlMs != null ? ttlMs : _defaultTtlMs;
+  }
+
+  private long getTableVersionForRawTableName(String rawTableName) {
+    Long version = _tableVersions.get(rawTableName);
+    return version != null ? version : 0L;
+  }
+
+  private void removeEntry(Key key) {
+    Entry entry = _entries.remove(key);
+    if (entry != null) {
+      _sizeInBytes -= entry._sizeInBytes;
+    }
+  }
+
+  /**
+   * Cache key: the raw table name along with the serialized normalized broker request.
+   */
+  public static final class Key {
+    private final String _rawTableName;
+    private final byte[] _bytes;
+    private final int _hashCode;
+
+    private Key(String rawTableName, byte[] bytes) {
+      _rawTableName = rawTableName;
+      _bytes = bytes;
+      _hashCode = 31 * rawTableName.hashCode() + Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _hashCode == that._hashCode && _rawTableName.equals(that._rawTableName) && Arrays.equals(_bytes,
+          that._bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  private static final class Entry {
+    private final String _responseJson;
+    private final long _expirationTimeMs;
+    private final long _sizeInBytes;
+
+    private Entry(String responseJson, long expirationTimeMs, long sizeInBytes) {
+      _responseJson = responseJson;
+      _expirationTimeMs = expirationTimeMs;
+      _sizeInBytes = sizeInBytes;
+    }
+  }
+}
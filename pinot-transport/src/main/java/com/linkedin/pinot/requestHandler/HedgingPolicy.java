@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Decides the delay after which a request to a server is hedged to another replica, for each table.
+ *
+ * The delay is a percentile of the recent server response times of the table, so that only the slowest requests
+ * (e.g. the slowest 5% for the 95th percentile) get hedged. No request is hedged until enough response times of the
+ * table have been recorded. The percentile can be overridden per raw table name, and a non-positive percentile turns
+ * hedging off for the table.
+ */
+public class HedgingPolicy {
+  // The percentile is recomputed every this many response times
+  private static final int RECOMPUTE_INTERVAL = 64;
+
+  private final double _defaultPercentile;
+  private final Map<String, Double> _tablePercentileMap;
+  private final long _minDelayMs;
+  private final int _numSamples;
+  private final ConcurrentMap<String, ResponseTimes> _responseTimesMap = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor for the class.
+   *
+   * @param defaultPercentile Percentile of the response times used as hedge delay, in (0, 100]
+   * @param tablePercentileMap Map from raw table name to the percentile overriding the default one
+   * @param minDelayMs Minimum hedge delay
+   * @param numSamples Number of recent response times kept for each table
+   */
+  public HedgingPolicy(double defaultPercentile, Map<String, Double> tablePercentileMap, long minDelayMs,
+      int numSamples) {
+    Preconditions.checkArgument(defaultPercentile <= 100, "Invalid percentile: %s", defaultPercentile);
+    Preconditions.checkArgument(minDelayMs >= 0, "Invalid min delay: %s", minDelayMs);
+    Preconditions.checkArgument(numSamples >= RECOMPUTE_INTERVAL, "Invalid number of samples: %s", numSamples);
+    _defaultPercentile = defaultPercentile;
+    _tablePercentileMap = new HashMap<>(tablePercentileMap);
+    _minDelayMs = minDelayMs;
+    _numSamples = numSamples;
+  }
+
+  /**
+   * Returns the hedge delay for the given table, or -1 if requests to the table should not be hedged.
+   *
+   * @param tableName Table name with type suffix
+   */
+  public long getHedgeDelayMs(String tableName) {
+    if (getPercentile(tableName) <= 0) {
+      return -1L;
+    }
+    ResponseTimes responseTimes = _responseTimesMap.get(tableName);
+    if (responseTimes == null) {
+      return -1L;
+    }
+    long percentileMs = responseTimes._percentileMs;
+    if (percentileMs < 0) {
+      return -1L;
+    }
+    return Math.max(percentileMs, _minDelayMs);
+  }
+
+  /**
+   * Records server response times for the given table.
+   *
+   * @param tableName Table name with type suffix
+   * @param responseTimesMs Response times of the servers
+   */
+  public void recordResponseTimes(String tableName, Collection<Long> responseTimesMs) {
+    double percentile = getPercentile(tableName);
+    if (percentile <= 0 || responseTimesMs.isEmpty()) {
+      return;
+    }
+    ResponseTimes responseTimes = _responseTimesMap.get(tableName);
+    if (responseTimes == null) {
+      responseTimes = new ResponseTimes(_numSamples, percentile);
+      ResponseTimes existing = _responseTimesMap.putIfAbsent(tableName, responseTimes);
+      if (existing != null) {
+        responseTimes = existing;
+      }
+    }
+    for (Long responseTimeMs : responseTimesMs) {
+      if (responseTimeMs != null && responseTimeMs >= 0) {
+        responseTimes.add(responseTimeMs);
+      }
+    }
+  }
+
+  private double getPercentile(String tableName) {
+    Double percentile = _tablePercentileMap.get(TableNameBuilder.extractRawTableName(tableName));
+    return percentile != null ? percentile : _defaultPercentile;
+  }
+
+  /**
+   * Ring buffer of the recent response times of a table, along with their cached percentile.
+   */
+  private static class ResponseTimes {
+    private final long[] _samples;
+    private final double _percentile;
+    private long _numAdded = 0;
+    // -1 until the buffer has been filled once
+    private volatile long _percentileMs = -1L;
+
+    private ResponseTimes(int numSamples, double percentile) {
+      _samples = new long[numSamples];
+      _percentile = percentile;
+    }
+
+    private synchronized void add(long responseTimeMs) {
+      _samples[(int) (_numAdded % _samples.length)] = responseTimeMs;
+      _numAdded++;
+      if (_numAdded >= _samples.length && _numAdded % RECOMPUTE_INTERVAL == 0) {
+        long[] sorted = Arrays.copyOf(_samples, _samples.length);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(_percentile / 100 * sorted.length) - 1;
+        _percentileMs = sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+      }
+    }
+  }
+}
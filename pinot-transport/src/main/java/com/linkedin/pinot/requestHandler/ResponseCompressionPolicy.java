@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.transport.netty.CompressedFrame;
+import com.linkedin.pinot.transport.netty.CompressionCodec;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Decides, for each table, whether the servers should compress their responses to the broker.
+ *
+ * The broker asks for compression through the query options of the request sent to the servers, so servers that
+ * don't know about compression simply ignore it and send uncompressed responses. Servers only compress responses
+ * larger than the threshold, as small responses are cheaper to send as is. The codec can be overridden per raw table
+ * name, where a null codec turns compression off for the table.
+ */
+public class ResponseCompressionPolicy {
+  private final CompressionCodec _defaultCodec;
+  private final Map<String, CompressionCodec> _tableCodecMap;
+  private final int _thresholdBytes;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param defaultCodec Codec used for the tables without override, or null to not compress their responses
+   * @param tableCodecMap Map from raw table name to the codec overriding the default one
+   * @param thresholdBytes Size above which the servers compress their responses
+   */
+  public ResponseCompressionPolicy(CompressionCodec defaultCodec, Map<String, CompressionCodec> tableCodecMap,
+      int thresholdBytes) {
+    Preconditions.checkArgument(thresholdBytes >= 0, "Invalid threshold: %s", thresholdBytes);
+    _defaultCodec = defaultCodec;
+    _tableCodecMap = new HashMap<>(tableCodecMap);
+    _thresholdBytes = thresholdBytes;
+  }
+
+  /**
+   * Returns the codec for the responses of the given table, or null if they should not be compressed.
+   *
+   * @param tableName Table name with type suffix
+   */
+  public CompressionCodec getCodec(String tableName) {
+    String rawTableName = TableNameBuilder.extractRawTableName(tableName);
+    if (_tableCodecMap.containsKey(rawTableName)) {
+      return _tableCodecMap.get(rawTableName);
+    }
+    return _defaultCodec;
+  }
+
+  /**
+   * Adds the query options asking the servers to compress their responses, if compression is on for the table of
+   * the request.
+   */
+  public void setQueryOptions(BrokerRequest request) {
+    CompressionCodec codec = getCodec(request.getQuerySource().getTableName());
+    if (codec == null) {
+      return;
+    }
+    if (!request.isSetQueryOptions()) {
+      request.setQueryOptions(new HashMap<String, String>());
+    }
+    request.getQueryOptions().put(CompressedFrame.CODEC_OPTION, codec.name());
+    request.getQueryOptions().put(CompressedFrame.THRESHOLD_BYTES_OPTION, Integer.toString(_thresholdBytes));
+  }
+}
@@ -50,6 +50,12 @@ public class CfgBasedRouting implements RoutingTable {
     return cfg.buildRequestRoutingMap();
   }
 
+  @Override
+  public ServerInstance findReplicaServer(String tableName, ServerInstance server, SegmentIdSet segments) {
+    // Config based routing has a single server for each segment
+    return null;
+  }
+
   @Override
   public void start() {
     // Nothing to be done here
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.routing;
 
 import com.linkedin.pinot.common.utils.NetUtil;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -23,22 +24,36 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.I0Itec.zkclient.IZkDataListener;
+import org.apache.helix.AccessOption;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.model.ExternalView;
 import org.apache.helix.model.InstanceConfig;
 import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.apache.zookeeper.data.Stat;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.pinot.common.config.AbstractTableConfig;
 import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.metadata.ZKMetadataProvider;
+import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
+import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.segment.ColumnValueRange;
+import com.linkedin.pinot.common.segment.SegmentPruningUtils;
 import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.routing.builder.BalancedRandomRoutingTableBuilder;
 import com.linkedin.pinot.routing.builder.KafkaHighLevelConsumerBasedRoutingTableBuilder;
 import com.linkedin.pinot.routing.builder.RoutingTableBuilder;
+import com.linkedin.pinot.transport.common.SegmentId;
 import com.linkedin.pinot.transport.common.SegmentIdSet;
 
 
@@ -57,13 +72,27 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
 
   private final Map<String, List<ServerToSegmentSetMap>> _brokerRoutingTable =
       new ConcurrentHashMap<String, List<ServerToSegmentSetMap>>();
+  // Servers hosting each segment across all the routing tables of a table, used to find replicas for hedged requests
+  private final Map<String, Map<SegmentId, List<ServerInstance>>> _segmentReplicaMap = new ConcurrentHashMap<>();
   private final Map<String, Integer> _routingTableLastKnownZkVersionMap = new ConcurrentHashMap<>();
+  // Column value ranges of each segment of the offline tables, from the segment ZK metadata, used to prune the
+  // segments that cannot match a query before scattering it
+  private final Map<String, Map<String, Map<String, ColumnValueRange>>> _segmentColumnValueRangeMap =
+      new ConcurrentHashMap<>();
+  // ZK versions of the segment ZK metadata the cached column value ranges were read from, guarded by
+  // _segmentColumnValueRangeMap
+  private final Map<String, Map<String, Integer>> _segmentZKMetadataVersionMap = new ConcurrentHashMap<>();
+  // One watch per offline table on its segments path, which the controller touches when it refreshes a segment
+  private final Map<String, SegmentRefreshListener> _segmentRefreshListenerMap = new ConcurrentHashMap<>();
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
   private final Random _random = new Random(System.currentTimeMillis());
   private final HelixExternalViewBasedTimeBoundaryService _timeBoundaryService;
+  private final List<RoutingTableChangeListener> _routingTableChangeListeners = new CopyOnWriteArrayList<>();
 
   public HelixExternalViewBasedRouting(RoutingTableBuilder defaultOfflineRoutingTableBuilder,
       RoutingTableBuilder defaultRealtimeRoutingTableBuilder, Map<String, RoutingTableBuilder> routingTableBuilderMap,
       ZkHelixPropertyStore<ZNRecord> propertyStore) {
+    _propertyStore = propertyStore;
     _timeBoundaryService = new HelixExternalViewBasedTimeBoundaryService(propertyStore);
     if (defaultOfflineRoutingTableBuilder != null) {
       _defaultOfflineRoutingTableBuilder = defaultOfflineRoutingTableBuilder;
@@ -95,7 +124,270 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     if (serverToSegmentSetMaps.isEmpty()) {
       return Collections.emptyMap();
     }
-    return serverToSegmentSetMaps.get(_random.nextInt(serverToSegmentSetMaps.size())).getRouting();
+    Map<ServerInstance, SegmentIdSet> routing =
+        serverToSegmentSetMaps.get(_random.nextInt(serverToSegmentSetMaps.size())).getRouting();
+    return pruneSegments(tableName, request.getBrokerRequest(), routing);
+  }
+
+  /**
+   * Drops the segments whose column value ranges cannot match the filter of the broker request, and the servers
+   * left without any segment. If all segments get pruned, one is kept so that the query still gets a properly
+   * shaped (empty) response from the server.
+   */
+  private Map<ServerInstance, SegmentIdSet> pruneSegments(String tableName, BrokerRequest brokerRequest,
+      Map<ServerInstance, SegmentIdSet> routing) {
+    if (brokerRequest == null) {
+      return routing;
+    }
+    Map<String, Map<String, ColumnValueRange>> segmentColumnValueRanges = _segmentColumnValueRangeMap.get(tableName);
+    if (segmentColumnValueRanges == null || segmentColumnValueRanges.isEmpty()) {
+      return routing;
+    }
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree == null) {
+      return routing;
+    }
+
+    Map<ServerInstance, SegmentIdSet> prunedRouting = new HashMap<>();
+    boolean pruned = false;
+    for (Map.Entry<ServerInstance, SegmentIdSet> entry : routing.entrySet()) {
+      SegmentIdSet segments = new SegmentIdSet();
+      for (SegmentId segment : entry.getValue().getSegments()) {
+        Map<String, ColumnValueRange> columnValueRanges = segmentColumnValueRanges.get(segment.getSegmentId());
+        if (columnValueRanges != null && SegmentPruningUtils.cannotMatch(filterQueryTree, columnValueRanges)) {
+          pruned = true;
+        } else {
+          segments.addSegment(segment);
+        }
+      }
+      if (!segments.getSegments().isEmpty()) {
+        prunedRouting.put(entry.getKey(), segments);
+      }
+    }
+    if (!pruned) {
+      return routing;
+    }
+
+    if (prunedRouting.isEmpty()) {
+      for (Map.Entry<ServerInstance, SegmentIdSet> entry : routing.entrySet()) {
+        SegmentId segment = entry.getValue().getOneSegment();
+        if (segment != null) {
+          SegmentIdSet segments = new SegmentIdSet();
+          segments.addSegment(segment);
+          prunedRouting.put(entry.getKey(), segments);
+          break;
+        }
+      }
+    }
+    return prunedRouting;
+  }
+
+  /**
+   * Cache the column value ranges of all the segments of the offline table, and watch the segments path of the table
+   * so that the ranges of the refreshed segments get reloaded. The table is watched, and the versions of the segment ZK
+   * metadata are read, before the metadata itself, so no change is missed.
+   */
+  private List<OfflineSegmentZKMetadata> cacheSegmentColumnValueRanges(String tableName) {
+    SegmentRefreshListener listener = _segmentRefreshListenerMap.get(tableName);
+    if (listener == null) {
+      listener = new SegmentRefreshListener(tableName);
+      _segmentRefreshListenerMap.put(tableName, listener);
+      _propertyStore.subscribeDataChanges(getSegmentsPath(tableName), listener);
+    }
+
+    synchronized (_segmentColumnValueRangeMap) {
+      Map<String, Integer> segmentZKMetadataVersions = readSegmentZKMetadataVersions(tableName);
+      List<OfflineSegmentZKMetadata> segmentZKMetadataList =
+          ZKMetadataProvider.getOfflineSegmentZKMetadataListForTable(_propertyStore, tableName);
+      String timeColumn = getTimeColumn(tableName);
+      Map<String, Map<String, ColumnValueRange>> segmentColumnValueRanges = new HashMap<>();
+      for (OfflineSegmentZKMetadata segmentZKMetadata : segmentZKMetadataList) {
+        Map<String, ColumnValueRange> columnValueRanges = getColumnValueRanges(segmentZKMetadata, timeColumn);
+        if (!columnValueRanges.isEmpty()) {
+          segmentColumnValueRanges.put(segmentZKMetadata.getSegmentName(), columnValueRanges);
+        }
+      }
+      _segmentColumnValueRangeMap.put(tableName, segmentColumnValueRanges);
+      _segmentZKMetadataVersionMap.put(tableName, segmentZKMetadataVersions);
+      return segmentZKMetadataList;
+    }
+  }
+
+  /**
+   * Reload the cached column value ranges of the segments of the offline table whose ZK metadata changed since it was
+   * last read, and drop the segments whose metadata is gone. The table is no longer pruned if the metadata cannot be
+   * read.
+   */
+  private void reloadChangedSegmentColumnValueRanges(String tableName) {
+    synchronized (_segmentColumnValueRangeMap) {
+      Map<String, Map<String, ColumnValueRange>> segmentColumnValueRanges = _segmentColumnValueRangeMap.get(tableName);
+      Map<String, Integer> cachedVersions = _segmentZKMetadataVersionMap.get(tableName);
+      if (segmentColumnValueRanges == null || cachedVersions == null) {
+        return;
+      }
+      try {
+        Map<String, Integer> segmentZKMetadataVersions = readSegmentZKMetadataVersions(tableName);
+        // Copy on write, the current map may be read by queries being routed
+        segmentColumnValueRanges = new HashMap<>(segmentColumnValueRanges);
+        segmentColumnValueRanges.keySet().retainAll(segmentZKMetadataVersions.keySet());
+        String offlineTableName = TableNameBuilder.OFFLINE_TABLE_NAME_BUILDER.forTable(tableName);
+        String timeColumn = null;
+        for (Map.Entry<String, Integer> entry : segmentZKMetadataVersions.entrySet()) {
+          String segmentName = entry.getKey();
+          if (entry.getValue().equals(cachedVersions.get(segmentName))) {
+            continue;
+          }
+          LOGGER.info("Reloading value ranges of segment {} of table {} on ZK metadata change", segmentName, tableName);
+          segmentColumnValueRanges.remove(segmentName);
+          ZNRecord znRecord = _propertyStore.get(
+              ZKMetadataProvider.constructPropertyStorePathForSegment(offlineTableName, segmentName), null,
+              AccessOption.PERSISTENT);
+          if (znRecord != null) {
+            if (timeColumn == null) {
+              timeColumn = getTimeColumn(tableName);
+            }
+            Map<String, ColumnValueRange> columnValueRanges =
+                getColumnValueRanges(new OfflineSegmentZKMetadata(znRecord), timeColumn);
+            if (!columnValueRanges.isEmpty()) {
+              segmentColumnValueRanges.put(segmentName, columnValueRanges);
+            }
+          }
+        }
+        _segmentColumnValueRangeMap.put(tableName, segmentColumnValueRanges);
+        _segmentZKMetadataVersionMap.put(tableName, segmentZKMetadataVersions);
+      } catch (Exception e) {
+        LOGGER.error("Failed to reload the segment value ranges, disabling segment pruning for table " + tableName, e);
+        _segmentColumnValueRangeMap.remove(tableName);
+        _segmentZKMetadataVersionMap.remove(tableName);
+      }
+    }
+  }
+
+  /**
+   * Read the ZK versions of the segment ZK metadata of the offline table, without reading the metadata itself.
+   */
+  private Map<String, Integer> readSegmentZKMetadataVersions(String tableName) {
+    Map<String, Integer> segmentZKMetadataVersions = new HashMap<>();
+    String segmentsPath = getSegmentsPath(tableName);
+    List<String> segmentNames = _propertyStore.getChildNames(segmentsPath, AccessOption.PERSISTENT);
+    if (segmentNames == null || segmentNames.isEmpty()) {
+      return segmentZKMetadataVersions;
+    }
+    List<String> segmentPaths = new ArrayList<>(segmentNames.size());
+    for (String segmentName : segmentNames) {
+      segmentPaths.add(segmentsPath + "/" + segmentName);
+    }
+    Stat[] stats = _propertyStore.getStats(segmentPaths, AccessOption.PERSISTENT);
+    for (int i = 0; i < segmentNames.size(); i++) {
+      if (stats[i] != null) {
+        segmentZKMetadataVersions.put(segmentNames.get(i), stats[i].getVersion());
+      }
+    }
+    return segmentZKMetadataVersions;
+  }
+
+  private static String getSegmentsPath(String tableName) {
+    return ZKMetadataProvider.constructPropertyStorePathForResource(
+        TableNameBuilder.OFFLINE_TABLE_NAME_BUILDER.forTable(tableName));
+  }
+
+  private String getTimeColumn(String tableName) {
+    AbstractTableConfig offlineTableConfig = ZKMetadataProvider.getOfflineTableConfig(_propertyStore, tableName);
+    if (offlineTableConfig != null && offlineTableConfig.getValidationConfig() != null) {
+      return offlineTableConfig.getValidationConfig().getTimeColumnName();
+    }
+    return null;
+  }
+
+  /**
+   * Get the column value ranges of the segment from its ZK metadata. A segment without value range for the time
+   * column gets one from its start and end time.
+   */
+  private static Map<String, ColumnValueRange> getColumnValueRanges(OfflineSegmentZKMetadata segmentZKMetadata,
+      String timeColumn) {
+    Map<String, ColumnValueRange> columnValueRanges = segmentZKMetadata.getColumnValueRanges();
+    long startTime = segmentZKMetadata.getStartTime();
+    long endTime = segmentZKMetadata.getEndTime();
+    if (timeColumn != null && !columnValueRanges.containsKey(timeColumn) && startTime >= 0 && endTime >= 0) {
+      ColumnValueRange timeRange =
+          ColumnValueRange.fromStrings(DataType.LONG, Long.toString(startTime), Long.toString(endTime));
+      if (timeRange != null) {
+        columnValueRanges = new HashMap<>(columnValueRanges);
+        columnValueRanges.put(timeColumn, timeRange);
+      }
+    }
+    return columnValueRanges;
+  }
+
+  /**
+   * Reloads the column value ranges of the segments of an offline table whose ZK metadata changed, when the controller
+   * touches the segments path of the table after refreshing a segment.
+   */
+  private class SegmentRefreshListener implements IZkDataListener {
+    private final String _tableName;
+
+    SegmentRefreshListener(String tableName) {
+      _tableName = tableName;
+    }
+
+    @Override
+    public void handleDataChange(String dataPath, Object data) {
+      reloadChangedSegmentColumnValueRanges(_tableName);
+    }
+
+    @Override
+    public void handleDataDeleted(String dataPath) {
+    }
+  }
+
+
+  @Override
+  public ServerInstance findReplicaServer(String tableName, ServerInstance server, SegmentIdSet segments) {
+    Map<SegmentId, List<ServerInstance>> segmentReplicaMap = _segmentReplicaMap.get(tableName);
+    if (segmentReplicaMap == null || segments.getSegments().isEmpty()) {
+      return null;
+    }
+
+    List<ServerInstance> candidates = null;
+    for (SegmentId segment : segments.getSegments()) {
+      List<ServerInstance> replicas = segmentReplicaMap.get(segment);
+      if (replicas == null) {
+        return null;
+      }
+      if (candidates == null) {
+        candidates = new ArrayList<>(replicas);
+        candidates.remove(server);
+      } else {
+        candidates.retainAll(replicas);
+      }
+      if (candidates.isEmpty()) {
+        return null;
+      }
+    }
+    return candidates.get(_random.nextInt(candidates.size()));
+  }
+
+  /**
+   * Build the map from segment to the servers hosting it across all the given routing tables.
+   */
+  private static Map<SegmentId, List<ServerInstance>> buildSegmentReplicaMap(
+      List<ServerToSegmentSetMap> serverToSegmentSetMaps) {
+    Map<SegmentId, List<ServerInstance>> segmentReplicaMap = new HashMap<>();
+    for (ServerToSegmentSetMap serverToSegmentSetMap : serverToSegmentSetMaps) {
+      for (Map.Entry<ServerInstance, SegmentIdSet> entry : serverToSegmentSetMap.getRouting().entrySet()) {
+        for (SegmentId segment : entry.getValue().getSegments()) {
+          List<ServerInstance> replicas = segmentReplicaMap.get(segment);
+          if (replicas == null) {
+            replicas = new ArrayList<>();
+            segmentReplicaMap.put(segment, replicas);
+          }
+          if (!replicas.contains(entry.getKey())) {
+            replicas.add(entry.getKey());
+          }
+        }
+      }
+    }
+    return segmentReplicaMap;
   }
 
   @Override
@@ -160,12 +452,27 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
           routingTableBuilder.computeRoutingTableFromExternalView(tableName, externalView, instanceConfigList);
 
       _brokerRoutingTable.put(tableName, serverToSegmentSetMap);
+      _segmentReplicaMap.put(tableName, buildSegmentReplicaMap(serverToSegmentSetMap));
+      notifyRoutingTableChange(tableName);
     } catch (Exception e) {
       LOGGER.error("Failed to compute/update the routing table" + e.getCause(), e);
     }
+    List<OfflineSegmentZKMetadata> segmentZKMetadataList = null;
+    if (tableType != TableType.REALTIME && _propertyStore != null) {
+      try {
+        LOGGER.info("Trying to cache segment value ranges for table : " + tableName);
+        segmentZKMetadataList = cacheSegmentColumnValueRanges(tableName);
+      } catch (Exception e) {
+        LOGGER.error("Failed to cache the segment value ranges, disabling segment pruning for table " + tableName, e);
+        synchronized (_segmentColumnValueRangeMap) {
+          _segmentColumnValueRangeMap.remove(tableName);
+          _segmentZKMetadataVersionMap.remove(tableName);
+        }
+      }
+    }
     try {
       LOGGER.info("Trying to compute time boundary service for table : " + tableName);
-      _timeBoundaryService.updateTimeBoundaryService(externalView);
+      _timeBoundaryService.updateTimeBoundaryService(externalView, segmentZKMetadataList);
     } catch (Exception e) {
       LOGGER.error("Failed to update the TimeBoundaryService : " + e.getCause(), e);
     }
@@ -177,8 +484,36 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     if (_dataTableSet.contains(tableName)) {
       _dataTableSet.remove(tableName);
       _brokerRoutingTable.remove(tableName);
+      _segmentReplicaMap.remove(tableName);
+      synchronized (_segmentColumnValueRangeMap) {
+        _segmentColumnValueRangeMap.remove(tableName);
+        _segmentZKMetadataVersionMap.remove(tableName);
+      }
+      SegmentRefreshListener listener = _segmentRefreshListenerMap.remove(tableName);
+      if (listener != null) {
+        _propertyStore.unsubscribeDataChanges(getSegmentsPath(tableName), listener);
+      }
       _routingTableLastKnownZkVersionMap.remove(tableName);
       _timeBoundaryService.remove(tableName);
+      notifyRoutingTableChange(tableName);
+    }
+  }
+
+  /**
+   * Registers a listener to be notified when the routing table or the time boundary of a table changes.
+   */
+  public void addRoutingTableChangeListener(RoutingTableChangeListener listener) {
+    _routingTableChangeListeners.add(listener);
+    _timeBoundaryService.addRoutingTableChangeListener(listener);
+  }
+
+  private void notifyRoutingTableChange(String tableName) {
+    for (RoutingTableChangeListener listener : _routingTableChangeListeners) {
+      try {
+        listener.onRoutingTableChange(tableName);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while notifying routing table change for table {}", tableName, e);
+      }
     }
   }
 
@@ -24,7 +24,9 @@ import com.linkedin.pinot.common.utils.time.TimeUtils;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.model.ExternalView;
@@ -44,12 +46,22 @@ public class HelixExternalViewBasedTimeBoundaryService implements TimeBoundarySe
 
   private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
   private final Map<String, TimeBoundaryInfo> _timeBoundaryInfoMap = new HashMap<String, TimeBoundaryInfo>();
+  private final List<RoutingTableChangeListener> _routingTableChangeListeners = new CopyOnWriteArrayList<>();
 
   public HelixExternalViewBasedTimeBoundaryService(ZkHelixPropertyStore<ZNRecord> propertyStore) {
     _propertyStore = propertyStore;
   }
 
   public synchronized void updateTimeBoundaryService(ExternalView externalView) {
+    updateTimeBoundaryService(externalView, null);
+  }
+
+  /**
+   * Same as {@link #updateTimeBoundaryService(ExternalView)}, reusing the segment zk-metadata of the table if
+   * the caller already read it, or reading it from the property store if null.
+   */
+  public synchronized void updateTimeBoundaryService(ExternalView externalView,
+      List<OfflineSegmentZKMetadata> segmentZKMetadataList) {
     if (_propertyStore == null) {
       return;
     }
@@ -75,15 +87,21 @@ public class HelixExternalViewBasedTimeBoundaryService implements TimeBoundarySe
     }
 
     // Bulk reading all segment zk-metadata at once is more efficient than reading one at a time.
-    List<OfflineSegmentZKMetadata> segmentZKMetadataList =
-        ZKMetadataProvider.getOfflineSegmentZKMetadataListForTable(_propertyStore, tableName);
+    if (segmentZKMetadataList == null) {
+      segmentZKMetadataList = ZKMetadataProvider.getOfflineSegmentZKMetadataListForTable(_propertyStore, tableName);
+    }
 
     long maxTimeValue = computeMaxSegmentEndTimeForTable(segmentZKMetadataList, tableTimeUnit);
     TimeBoundaryInfo timeBoundaryInfo = new TimeBoundaryInfo();
     timeBoundaryInfo.setTimeColumn(offlineTableConfig.getValidationConfig().getTimeColumnName());
 
     timeBoundaryInfo.setTimeValue(Long.toString(maxTimeValue));
-    _timeBoundaryInfoMap.put(tableName, timeBoundaryInfo);
+    TimeBoundaryInfo previousTimeBoundaryInfo = _timeBoundaryInfoMap.put(tableName, timeBoundaryInfo);
+    if (previousTimeBoundaryInfo == null
+        || !Objects.equals(timeBoundaryInfo.getTimeValue(), previousTimeBoundaryInfo.getTimeValue())
+        || !Objects.equals(timeBoundaryInfo.getTimeColumn(), previousTimeBoundaryInfo.getTimeColumn())) {
+      notifyTimeBoundaryChange(tableName);
+    }
 
     LOGGER.info("Updated time boundary service for table '{}', maxTime: {}", tableName, maxTimeValue);
   }
@@ -147,7 +165,26 @@ public class HelixExternalViewBasedTimeBoundaryService implements TimeBoundarySe
 
   @Override
   public void remove(String tableName) {
-    _timeBoundaryInfoMap.remove(tableName);
+    if (_timeBoundaryInfoMap.remove(tableName) != null) {
+      notifyTimeBoundaryChange(tableName);
+    }
+  }
+
+  /**
+   * Registers a listener to be notified when the time boundary of a table changes.
+   */
+  public void addRoutingTableChangeListener(RoutingTableChangeListener listener) {
+    _routingTableChangeListeners.add(listener);
+  }
+
+  private void notifyTimeBoundaryChange(String tableName) {
+    for (RoutingTableChangeListener listener : _routingTableChangeListeners) {
+      try {
+        listener.onRoutingTableChange(tableName);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while notifying time boundary change for table {}", tableName, e);
+      }
+    }
   }
 
   @Override
@@ -31,6 +31,14 @@ public interface RoutingTable {
    */
   Map<ServerInstance, SegmentIdSet> findServers(RoutingTableLookupRequest request);
 
+  /**
+   * Return a server other than the given one which hosts all the given segments of the table, to send a hedged
+   * request to.
+   *
+   * @return A replica server, or null if there is none.
+   */
+  ServerInstance findReplicaServer(String tableName, ServerInstance server, SegmentIdSet segments);
+
   /**
    * Initialize and start the Routing table population
    */
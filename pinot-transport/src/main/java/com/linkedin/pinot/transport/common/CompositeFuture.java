@@ -18,13 +18,17 @@ package com.linkedin.pinot.transport.common;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,9 +67,18 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
 
   private final ConcurrentMap<String, Long> _responseTimeMap = new ConcurrentHashMap<>(10);
 
+  // Names of the underlying futures that completed with a response
+  private final Set<String> _respondedFutureNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
   // Exception in case of error
   private final ConcurrentMap<K, Throwable> _errorMap;
 
+  // Keys of the responses and errors in the order in which they arrived, followed by END_OF_KEYS
+  // once all the underlying futures are processed. Used by callers that process the responses as they arrive.
+  private final LinkedBlockingQueue<Object> _completedKeys = new LinkedBlockingQueue<Object>();
+  private final AtomicInteger _numProcessedFutures = new AtomicInteger(0);
+  private static final Object END_OF_KEYS = new Object();
+
   private final GatherModeOnError _gatherMode;
 
   // Descriptive name of the future
@@ -104,6 +117,31 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
         addResponseFutureListener(entry);
       }
     }
+    if (_futures.isEmpty()) {
+      _completedKeys.offer(END_OF_KEYS);
+    }
+  }
+
+  /**
+   * Waits for the next underlying response or error to arrive, and returns its key. The value can then be
+   * looked up in {@link #get()} or {@link #getError()}. Each key is returned only once.
+   *
+   * Returns null once this future is done and all the keys have been returned, or if the timeout elapses.
+   *
+   * @param timeout
+   * @param unit
+   * @return Key of the next response or error, or null if there are no more
+   * @throws InterruptedException
+   */
+  @SuppressWarnings("unchecked")
+  public K takeNextCompletedKey(long timeout, TimeUnit unit) throws InterruptedException {
+    Object key = _completedKeys.poll(timeout, unit);
+    if (key == END_OF_KEYS) {
+      // Leave the marker in the queue, so that subsequent calls return immediately.
+      _completedKeys.offer(END_OF_KEYS);
+      return null;
+    }
+    return (K) key;
   }
 
   /**
@@ -174,6 +212,75 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     return _delayedResponseMap;
   }
 
+  /**
+   * Returns the response that has already arrived for the given key, without waiting for the other responses.
+   *
+   * @param key
+   * @return Response for the key, or null if it has not arrived (yet)
+   */
+  public V getResponse(K key) {
+    return _delayedResponseMap.get(key);
+  }
+
+  /**
+   * Returns the names of the underlying futures that are not done yet (for server requests, the name of the
+   * server), e.g. to report the servers that did not respond when the caller stops waiting.
+   *
+   * @return Names of the pending underlying futures
+   */
+  public List<String> getPendingFutureNames() {
+    List<String> pendingFutureNames = new ArrayList<String>();
+    for (KeyedFuture<K, V> future : _futures) {
+      if (future != null && !future.isDone()) {
+        pendingFutureNames.add(future.getName());
+      }
+    }
+    return pendingFutureNames;
+  }
+
+  /**
+   * Returns the names of the underlying futures that did not complete with a response (for server requests, the name
+   * of the server), because they failed, were cancelled or are still pending. This method should be called once the
+   * caller is done waiting for the responses.
+   *
+   * @return Names of the underlying futures without response
+   */
+  public List<String> getFutureNamesWithoutResponse() {
+    List<String> futureNames = new ArrayList<String>();
+    for (KeyedFuture<K, V> future : _futures) {
+      if (future != null && !_respondedFutureNames.contains(future.getName())) {
+        futureNames.add(future.getName());
+      }
+    }
+    return futureNames;
+  }
+
+  /**
+   * Returns the response times of the requests as originally sent, to measure the server latencies without the
+   * effect of hedging. For hedged requests, the response time of the original request is returned, or its lower bound
+   * if it got cancelled because the hedged request responded first.
+   *
+   * @return Response times of the completed original requests
+   */
+  public List<Long> getOriginalResponseTimes() {
+    List<Long> responseTimes = new ArrayList<Long>(_futures.size());
+    for (KeyedFuture<K, V> future : _futures) {
+      if (future == null) {
+        continue;
+      }
+      long durationMillis;
+      if (future instanceof HedgedFuture) {
+        durationMillis = ((HedgedFuture<K, V>) future).getOriginalDurationMillis();
+      } else {
+        durationMillis = future.getDurationMillis();
+      }
+      if (durationMillis >= 0) {
+        responseTimes.add(durationMillis);
+      }
+    }
+    return responseTimes;
+  }
+
   /**
    * This method must be called after the 'get' is called, so that all response times are recorded.
    * For now, this method has not been added to the interface.
@@ -189,9 +296,12 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     if (null != response) {
       LOGGER.debug("Response from {} is {}", name, response);
       _delayedResponseMap.putAll(response);
+      _completedKeys.addAll(response.keySet());
+      _respondedFutureNames.add(name);
     } else if (null != error) {
       LOGGER.debug("Error from {} is : {}", name, error);
       _errorMap.putAll(error);
+      _completedKeys.addAll(error.keySet());
 
       if (_gatherMode == GatherModeOnError.SHORTCIRCUIT_AND) {
         ret = true; // We are done as we got an error
@@ -199,6 +309,9 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     }
     // TODO May be limit the number of entries here to 10? We don't want to create too much garbage on the broker.
     _responseTimeMap.put(name, durationMillis);
+    if (ret || _numProcessedFutures.incrementAndGet() == _futures.size()) {
+      _completedKeys.offer(END_OF_KEYS);
+    }
     return ret;
   }
 
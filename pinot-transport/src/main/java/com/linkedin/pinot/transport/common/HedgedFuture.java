@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.common;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Response future for a request which may be hedged, i.e. sent again to another replica when the response is slow.
+ *
+ * Completes with the first successful response of either the original or the hedged request, and cancels the other
+ * one. Completes with an error only once all the requests sent have failed. The future is keyed on the server of
+ * the original request regardless of which request wins, so that the hedge does not show up as an extra server
+ * response to the caller.
+ *
+ * @param <K> Key type of the underlying futures
+ * @param <T> Response type
+ */
+public class HedgedFuture<K, T> extends AsyncResponseFuture<K, T> {
+  private final KeyedFuture<K, T> _original;
+  private final long _hedgeDelayMs;
+  private final long _startTimeMillis = System.currentTimeMillis();
+  private volatile KeyedFuture<K, T> _hedge;
+  private final AtomicBoolean _isCancelling = new AtomicBoolean(false);
+
+  // Number of underlying futures that have not completed yet, guarded by 'this'
+  private int _numPending = 1;
+  private volatile boolean _isHedgeWinner = false;
+  private volatile long _originalDurationMillis = -1L;
+
+  public HedgedFuture(K key, KeyedFuture<K, T> original, String ctxt) {
+    this(key, original, 0L, ctxt);
+  }
+
+  /**
+   * @param hedgeDelayMs Delay after which the hedged request is sent, lower bound of the original response time when
+   *                     the hedged request wins
+   */
+  public HedgedFuture(K key, KeyedFuture<K, T> original, long hedgeDelayMs, String ctxt) {
+    super(key, ctxt);
+    _original = original;
+    _hedgeDelayMs = hedgeDelayMs;
+    setCancellable(new Cancellable() {
+      @Override
+      public boolean cancel() {
+        _isCancelling.set(true);
+        cancelUnderlyingFutures(null);
+        return true;
+      }
+    });
+    original.addListener(new UnderlyingFutureListener(original, false), null);
+  }
+
+  /**
+   * Adds the hedged request to this future.
+   *
+   * @param hedge Response future of the hedged request
+   * @return false if this future has already completed, in which case the caller should cancel the hedged request
+   */
+  public boolean hedge(KeyedFuture<K, T> hedge) {
+    synchronized (this) {
+      if (isDone() || _hedge != null) {
+        return false;
+      }
+      _hedge = hedge;
+      _numPending++;
+    }
+    hedge.addListener(new UnderlyingFutureListener(hedge, true), null);
+    return true;
+  }
+
+  /**
+   * Returns whether the hedged request has been sent.
+   */
+  public boolean isHedged() {
+    return _hedge != null;
+  }
+
+  /**
+   * Returns whether the response of the hedged request arrived first.
+   */
+  public boolean isHedgeWinner() {
+    return _isHedgeWinner;
+  }
+
+  /**
+   * Returns the response time of the original request, or -1 if it has not succeeded. Unlike
+   * {@link #getDurationMillis()}, this is not shortened by the hedge: when the hedged request responds first, this is
+   * the time elapsed until the original request got cancelled, and at least the hedge delay.
+   */
+  public long getOriginalDurationMillis() {
+    return _originalDurationMillis;
+  }
+
+  private void cancelUnderlyingFutures(KeyedFuture<K, T> winner) {
+    if (_original != winner) {
+      _original.cancel(true);
+    }
+    KeyedFuture<K, T> hedge = _hedge;
+    if (hedge != null && hedge != winner) {
+      hedge.cancel(true);
+    }
+  }
+
+  private class UnderlyingFutureListener implements Runnable {
+    private final KeyedFuture<K, T> _future;
+    private final boolean _isHedge;
+
+    private UnderlyingFutureListener(KeyedFuture<K, T> future, boolean isHedge) {
+      _future = future;
+      _isHedge = isHedge;
+    }
+
+    @Override
+    public void run() {
+      if (_isCancelling.get()) {
+        return;
+      }
+
+      T response = null;
+      Throwable error = null;
+      Map<K, Throwable> errorMap = _future.getError();
+      if (errorMap != null && !errorMap.isEmpty()) {
+        error = errorMap.values().iterator().next();
+      } else if (!_future.isCancelled()) {
+        try {
+          response = _future.getOne();
+        } catch (Exception e) {
+          error = e;
+        }
+      }
+
+      if (response != null && !_isHedge) {
+        _originalDurationMillis = _future.getDurationMillis();
+      }
+
+      // Complete while holding the lock, so that no hedge gets added to a completed future
+      synchronized (HedgedFuture.this) {
+        if (response != null) {
+          if (isDone()) {
+            return;
+          }
+          _isHedgeWinner = _isHedge;
+          if (_isHedge && !_original.isDone()) {
+            // Lower bound of the original response time, so that the slow responses are not dropped from the samples
+            _originalDurationMillis = Math.max(System.currentTimeMillis() - _startTimeMillis, _hedgeDelayMs);
+          }
+          onSuccess(response);
+        } else {
+          if (--_numPending > 0) {
+            return;
+          }
+          onError(error != null ? error : new IllegalStateException("Request cancelled for " + getName()));
+          return;
+        }
+      }
+      cancelUnderlyingFutures(_future);
+    }
+  }
+}
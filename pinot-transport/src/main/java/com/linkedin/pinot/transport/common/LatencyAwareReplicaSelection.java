@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.common;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.response.ServerInstance;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.annotation.ThreadSafe;
+
+
+/**
+ * Latency aware replica selection. Keeps an exponentially weighted moving average of the response latency and the
+ * number of in-flight requests for each server, and picks the less loaded of two randomly chosen replicas (power of
+ * two choices), so that a slow server gets less traffic without all brokers herding onto the same fastest replica.
+ *
+ * The load of a server is (latency EWMA + 1) * (in-flight requests + 1). Errors and cancelled requests are recorded
+ * with a latency penalty. The latency EWMA decays while a server gets no responses, so that a server which was slow
+ * once keeps getting probed and can recover.
+ */
+@ThreadSafe
+public class LatencyAwareReplicaSelection extends ReplicaSelection {
+  public static final double DEFAULT_EWMA_ALPHA = 0.3;
+  public static final long DEFAULT_ERROR_PENALTY_MS = 1000L;
+  public static final long DEFAULT_DECAY_TIME_MS = 10000L;
+
+  private final ConcurrentMap<ServerInstance, ServerStats> _serverStatsMap = new ConcurrentHashMap<>();
+  private final double _ewmaAlpha;
+  private final long _errorPenaltyMs;
+  private final long _decayTimeMs;
+
+  public LatencyAwareReplicaSelection() {
+    this(DEFAULT_EWMA_ALPHA, DEFAULT_ERROR_PENALTY_MS, DEFAULT_DECAY_TIME_MS);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param ewmaAlpha Weight of a new latency sample in the moving average, in (0, 1]
+   * @param errorPenaltyMs Latency recorded for errors and cancelled requests
+   * @param decayTimeMs Time constant of the decay of the latency average of a server with no responses
+   */
+  public LatencyAwareReplicaSelection(double ewmaAlpha, long errorPenaltyMs, long decayTimeMs) {
+    Preconditions.checkArgument(ewmaAlpha > 0 && ewmaAlpha <= 1, "Invalid EWMA alpha: %s", ewmaAlpha);
+    Preconditions.checkArgument(errorPenaltyMs >= 0, "Invalid error penalty: %s", errorPenaltyMs);
+    Preconditions.checkArgument(decayTimeMs > 0, "Invalid decay time: %s", decayTimeMs);
+    _ewmaAlpha = ewmaAlpha;
+    _errorPenaltyMs = errorPenaltyMs;
+    _decayTimeMs = decayTimeMs;
+  }
+
+  @Override
+  public void reset(SegmentId p) {
+    // Stats are kept per server, nothing to be done here
+  }
+
+  @Override
+  public void reset(SegmentIdSet p) {
+    // Stats are kept per server, nothing to be done here
+  }
+
+  @Override
+  public ServerInstance selectServer(SegmentId p, List<ServerInstance> orderedServers, Object hashKey) {
+    int size = orderedServers.size();
+    if (size <= 0) {
+      return null;
+    }
+    if (size == 1) {
+      return orderedServers.get(0);
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(size);
+    int second = random.nextInt(size - 1);
+    if (second >= first) {
+      second++;
+    }
+    ServerInstance firstServer = orderedServers.get(first);
+    ServerInstance secondServer = orderedServers.get(second);
+    long now = System.currentTimeMillis();
+    return getLoad(firstServer, now) <= getLoad(secondServer, now) ? firstServer : secondServer;
+  }
+
+  @Override
+  public void onRequestSent(ServerInstance server) {
+    getServerStats(server)._numInFlightRequests.incrementAndGet();
+  }
+
+  @Override
+  public void onRequestCompleted(ServerInstance server, long latencyMs, boolean isError) {
+    ServerStats serverStats = getServerStats(server);
+    serverStats._numInFlightRequests.decrementAndGet();
+    serverStats.addLatency(isError ? Math.max(latencyMs, _errorPenaltyMs) : Math.max(latencyMs, 0L),
+        System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the current latency moving average of the given server in milliseconds, 0 if it has no samples.
+   */
+  public double getLatencyEwmaMs(ServerInstance server) {
+    ServerStats serverStats = _serverStatsMap.get(server);
+    return serverStats == null ? 0.0 : serverStats.getLatencyEwma(System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the number of requests to the given server that have been sent and not completed.
+   */
+  public int getNumInFlightRequests(ServerInstance server) {
+    ServerStats serverStats = _serverStatsMap.get(server);
+    return serverStats == null ? 0 : serverStats._numInFlightRequests.get();
+  }
+
+  private double getLoad(ServerInstance server, long now) {
+    ServerStats serverStats = _serverStatsMap.get(server);
+    if (serverStats == null) {
+      return 1.0;
+    }
+    return (serverStats.getLatencyEwma(now) + 1) * (Math.max(serverStats._numInFlightRequests.get(), 0) + 1);
+  }
+
+  private ServerStats getServerStats(ServerInstance server) {
+    ServerStats serverStats = _serverStatsMap.get(server);
+    if (serverStats == null) {
+      serverStats = new ServerStats();
+      ServerStats existing = _serverStatsMap.putIfAbsent(server, serverStats);
+      if (existing != null) {
+        serverStats = existing;
+      }
+    }
+    return serverStats;
+  }
+
+  private class ServerStats {
+    private final AtomicInteger _numInFlightRequests = new AtomicInteger();
+    // Guarded by 'this' for writes, read without locking
+    private volatile double _latencyEwma = 0.0;
+    private volatile long _lastUpdateTimeMs = 0L;
+
+    private synchronized void addLatency(long latencyMs, long now) {
+      if (_lastUpdateTimeMs == 0L) {
+        _latencyEwma = latencyMs;
+      } else {
+        _latencyEwma = _ewmaAlpha * latencyMs + (1 - _ewmaAlpha) * getLatencyEwma(now);
+      }
+      _lastUpdateTimeMs = now;
+    }
+
+    private double getLatencyEwma(long now) {
+      long lastUpdateTimeMs = _lastUpdateTimeMs;
+      double latencyEwma = _latencyEwma;
+      long elapsedMs = now - lastUpdateTimeMs;
+      if (lastUpdateTimeMs == 0L || elapsedMs <= 0) {
+        return latencyEwma;
+      }
+      return latencyEwma * Math.exp(-(double) elapsedMs / _decayTimeMs);
+    }
+  }
+}
@@ -51,7 +51,11 @@ public abstract class ReplicaSelection {
           (ascending) order. A key ( in the request) is hashed
           to determine the replica
     **/
-
+    LATENCY_AWARE
+    /**
+          The less loaded of two randomly picked replicas is selected,
+          based on observed response latency and in-flight requests
+    **/
   };
 
   /**
@@ -85,4 +89,22 @@ public abstract class ReplicaSelection {
    */
   public abstract ServerInstance selectServer(SegmentId p, List<ServerInstance> orderedServers, Object hashKey);
 
+  /**
+   * This is a notification by the scatter-gather layer that a request is being dispatched to the server.
+   * Policies which do not track server load can ignore it.
+   * @param server Server the request is dispatched to
+   */
+  public void onRequestSent(ServerInstance server) {
+  }
+
+  /**
+   * This is a notification by the scatter-gather layer that a request dispatched to the server has completed,
+   * either with a response, an error or a cancellation. Called exactly once for each {@link #onRequestSent}.
+   * @param server Server the request was dispatched to
+   * @param latencyMs Time between dispatching the request and its completion
+   * @param isError Whether the request failed or was cancelled
+   */
+  public void onRequestCompleted(ServerInstance server, long latencyMs, boolean isError) {
+  }
+
 }
@@ -33,6 +33,8 @@ public class NettyClientMetrics implements TransportClientMetrics {
   public static final String ERRORS = "errors";
   public static final String SEND_REQUEST_MS = "Send-Request-MS";
   public static final String RESPONSE_LATENCY_MS = "Latency-MS";
+  public static final String COMPRESSED_BYTES_RECEIVED = "compressed-bytes-received";
+  public static final String UNCOMPRESSED_BYTES_RECEIVED = "uncompressed-bytes-received";
 
   // Number of Requests Sent
   private final Counter _requestsSent;
@@ -46,6 +48,10 @@ public class NettyClientMetrics implements TransportClientMetrics {
   // Number of Errors
   private final Counter _errors;
 
+  // Wire and uncompressed sizes of the compressed responses received
+  private final Counter _compressedBytesReceived;
+  private final Counter _uncompressedBytesReceived;
+
   // Send Request Latency Ms
   private final Histogram _sendRequestMsHistogram;
 
@@ -61,6 +67,9 @@ public class NettyClientMetrics implements TransportClientMetrics {
     _bytesSent = MetricsHelper.newCounter(registry, new MetricName(group, "", BYTES_SENT));
     _bytesReceived = MetricsHelper.newCounter(registry, new MetricName(group, "", BYTES_RECEIVED));
     _errors = MetricsHelper.newCounter(registry, new MetricName(group, "", ERRORS));
+    _compressedBytesReceived = MetricsHelper.newCounter(registry, new MetricName(group, "", COMPRESSED_BYTES_RECEIVED));
+    _uncompressedBytesReceived =
+        MetricsHelper.newCounter(registry, new MetricName(group, "", UNCOMPRESSED_BYTES_RECEIVED));
     _sendRequestMsHistogram = MetricsHelper.newHistogram(registry, new MetricName(group, "", SEND_REQUEST_MS), false);
     _responseLatencyMsHistogram =
         MetricsHelper.newHistogram(registry, new MetricName(group, "", RESPONSE_LATENCY_MS), false);
@@ -84,6 +93,11 @@ public class NettyClientMetrics implements TransportClientMetrics {
     _connectMs = connectMs;
   }
 
+  public void addCompressionStats(long compressedBytes, long uncompressedBytes) {
+    _compressedBytesReceived.inc(compressedBytes);
+    _uncompressedBytesReceived.inc(uncompressedBytes);
+  }
+
   public Counter getRequestsSent() {
     return _requestsSent;
   }
@@ -100,6 +114,14 @@ public class NettyClientMetrics implements TransportClientMetrics {
     return _errors;
   }
 
+  public Counter getCompressedBytesReceived() {
+    return _compressedBytesReceived;
+  }
+
+  public Counter getUncompressedBytesReceived() {
+    return _uncompressedBytesReceived;
+  }
+
   public Histogram getSendRequestMsHistogram() {
     return _sendRequestMsHistogram;
   }
@@ -111,7 +133,9 @@ public class NettyClientMetrics implements TransportClientMetrics {
   @Override
   public String toString() {
     return "NettyClientMetric [_requestsSent=" + _requestsSent.count() + ", _bytesSent=" + _bytesSent.count()
-        + ", _bytesReceived=" + _bytesReceived.count() + ", _errors=" + _errors.count() + ", _sendRequestMsGauge="
+        + ", _bytesReceived=" + _bytesReceived.count() + ", _errors=" + _errors.count() + ", _compressedBytesReceived="
+        + _compressedBytesReceived.count() + ", _uncompressedBytesReceived=" + _uncompressedBytesReceived.count()
+        + ", _sendRequestMsGauge="
         + _sendRequestMsHistogram.count() + ", _responseLatencyMsGauge=" + _responseLatencyMsHistogram.count()
         + ", _connectMsGauge=" + _connectMsGauge.value() + "]";
   }
@@ -30,6 +30,8 @@ public class NettyServerMetrics implements TransportServerMetrics {
   public static final String SEND_RESPONSE_MS = "Send-Response-MS";
   public static final String PROCESSING_LATENCY_MS = "Processing-Latency-MS";
   public static final String ERRORS = "errors";
+  public static final String COMPRESSED_BYTES_SENT = "compressed-bytes-Sent";
+  public static final String UNCOMPRESSED_BYTES_SENT = "uncompressed-bytes-Sent";
 
   // Num Requests
   private final Counter _requestsReceived;
@@ -43,6 +45,10 @@ public class NettyServerMetrics implements TransportServerMetrics {
   // Errors
   private final Counter _errors;
 
+  // Wire and uncompressed sizes of the compressed responses sent
+  private final Counter _compressedBytesSent;
+  private final Counter _uncompressedBytesSent;
+
   // Latency for sending response
   private final Histogram _sendResponseMsHistogram;
 
@@ -54,6 +60,8 @@ public class NettyServerMetrics implements TransportServerMetrics {
     _bytesSent = MetricsHelper.newCounter(registry, new MetricName(group, "", BYTES_SENT));
     _bytesReceived = MetricsHelper.newCounter(registry, new MetricName(group, "", BYTES_RECEIVED));
     _errors = MetricsHelper.newCounter(registry, new MetricName(group, "", ERRORS));
+    _compressedBytesSent = MetricsHelper.newCounter(registry, new MetricName(group, "", COMPRESSED_BYTES_SENT));
+    _uncompressedBytesSent = MetricsHelper.newCounter(registry, new MetricName(group, "", UNCOMPRESSED_BYTES_SENT));
     _sendResponseMsHistogram = MetricsHelper.newHistogram(registry, new MetricName(group, "", SEND_RESPONSE_MS), false);
     _processingLatencyMsHistogram =
         MetricsHelper.newHistogram(registry, new MetricName(group, "", PROCESSING_LATENCY_MS), false);
@@ -70,6 +78,11 @@ public class NettyServerMetrics implements TransportServerMetrics {
     _processingLatencyMsHistogram.update(processingLatencyMs);
   }
 
+  public void addCompressionStats(long compressedBytes, long uncompressedBytes) {
+    _compressedBytesSent.inc(compressedBytes);
+    _uncompressedBytesSent.inc(uncompressedBytes);
+  }
+
   public Counter getRequestsReceived() {
     return _requestsReceived;
   }
@@ -86,6 +99,14 @@ public class NettyServerMetrics implements TransportServerMetrics {
     return _errors;
   }
 
+  public Counter getCompressedBytesSent() {
+    return _compressedBytesSent;
+  }
+
+  public Counter getUncompressedBytesSent() {
+    return _uncompressedBytesSent;
+  }
+
   public Histogram getSendResponseMsHistogram() {
     return _sendResponseMsHistogram;
   }
@@ -97,7 +118,9 @@ public class NettyServerMetrics implements TransportServerMetrics {
   @Override
   public String toString() {
     return "NettyServerMetric [_requestsReceived=" + _requestsReceived.count() + ", _bytesSent=" + _bytesSent.count()
-        + ", _bytesReceived=" + _bytesReceived.count() + ", _errors=" + _errors.count() + ", _sendResponseMsGauge="
+        + ", _bytesReceived=" + _bytesReceived.count() + ", _errors=" + _errors.count() + ", _compressedBytesSent="
+        + _compressedBytesSent.count() + ", _uncompressedBytesSent=" + _uncompressedBytesSent.count()
+        + ", _sendResponseMsGauge="
         + _sendResponseMsHistogram.count() + ", _processingLatencyMsGauge=" + _processingLatencyMsHistogram.count()
         + "]";
   }
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.io.IOException;
+
+
+/**
+ * Format of a compressed response payload. Servers only send it to clients that asked for a codec, see
+ * {@link #CODEC_OPTION} and {@link #THRESHOLD_BYTES_OPTION}, so clients that don't know about compression
+ * never get one.
+ *
+ * 0                                                         31
+ * ------------------------------------------------------------
+ * |                  Magic ( 32 bits)                        |
+ * |  Codec ( 8 bits) |                                       |
+ * |                  Raw Length ( 32 bits)                   |
+ * |                                                          |
+ * |                 Compressed Payload                       |
+ * |                    ...............                       |
+ * ------------------------------------------------------------
+ *
+ * The compressed payload comes after the {@link MultiplexedFrame} header, if any. The magic can never be
+ * the start of a serialized data table, which starts with its version.
+ */
+public final class CompressedFrame {
+  public static final int MAGIC = 0x504E5A43;
+  public static final int HEADER_SIZE = 9;
+
+  // Query options used by the broker to ask the server for compressed responses.
+  public static final String CODEC_OPTION = "responseCompressionCodec";
+  public static final String THRESHOLD_BYTES_OPTION = "responseCompressionThresholdBytes";
+
+  private CompressedFrame() {
+  }
+
+  /**
+   * Returns true if the bytes at the given index of the buffer are a compressed frame.
+   */
+  public static boolean isCompressed(ByteBuf buffer, int index) {
+    return buffer.writerIndex() - index >= HEADER_SIZE && buffer.getInt(index) == MAGIC;
+  }
+
+  /**
+   * Returns the size of the uncompressed payload of the compressed frame at the given index.
+   */
+  public static int getRawLength(ByteBuf buffer, int index) {
+    return buffer.getInt(index + 5);
+  }
+
+  /**
+   * Compresses the readable bytes of the payload into a new compressed frame, and releases the payload.
+   * The payload is returned as is if compressing it does not make it smaller.
+   */
+  public static ByteBuf compress(ByteBuf payload, CompressionCodec codec, ByteBufAllocator allocator)
+      throws IOException {
+    int rawLength = payload.readableBytes();
+    byte[] src;
+    int srcOffset;
+    if (payload.hasArray()) {
+      src = payload.array();
+      srcOffset = payload.arrayOffset() + payload.readerIndex();
+    } else {
+      src = new byte[rawLength];
+      srcOffset = 0;
+      payload.getBytes(payload.readerIndex(), src);
+    }
+
+    ByteBuf frame = allocator.heapBuffer(HEADER_SIZE + codec.maxCompressedLength(rawLength));
+    boolean success = false;
+    try {
+      int compressedLength =
+          codec.compress(src, srcOffset, rawLength, frame.array(), frame.arrayOffset() + HEADER_SIZE);
+      if (HEADER_SIZE + compressedLength >= rawLength) {
+        return payload;
+      }
+      frame.writeInt(MAGIC);
+      frame.writeByte(codec.getId());
+      frame.writeInt(rawLength);
+      frame.writerIndex(HEADER_SIZE + compressedLength);
+      success = true;
+      payload.release();
+      return frame;
+    } finally {
+      if (!success) {
+        frame.release();
+      }
+    }
+  }
+
+  /**
+   * Decompresses the compressed frame that starts offset bytes past the reader index of the buffer. The
+   * bytes before it, such as a {@link MultiplexedFrame} header, are copied as is to the returned buffer.
+   * The input buffer is not released.
+   */
+  public static ByteBuf decompress(ByteBuf buffer, int offset, ByteBufAllocator allocator) throws IOException {
+    int index = buffer.readerIndex() + offset;
+    CompressionCodec codec = CompressionCodec.fromId(buffer.getByte(index + 4));
+    if (codec == null) {
+      throw new IOException("Unknown compression codec id: " + buffer.getByte(index + 4));
+    }
+    int rawLength = getRawLength(buffer, index);
+    int compressedLength = buffer.writerIndex() - index - HEADER_SIZE;
+
+    byte[] src;
+    int srcOffset;
+    if (buffer.hasArray()) {
+      src = buffer.array();
+      srcOffset = buffer.arrayOffset() + index + HEADER_SIZE;
+    } else {
+      src = new byte[compressedLength];
+      srcOffset = 0;
+      buffer.getBytes(index + HEADER_SIZE, src);
+    }
+
+    ByteBuf result = allocator.heapBuffer(offset + rawLength);
+    boolean success = false;
+    try {
+      result.writeBytes(buffer, buffer.readerIndex(), offset);
+      codec.decompress(src, srcOffset, compressedLength, result.array(), result.arrayOffset() + offset, rawLength);
+      result.writerIndex(offset + rawLength);
+      success = true;
+      return result;
+    } finally {
+      if (!success) {
+        result.release();
+      }
+    }
+  }
+}
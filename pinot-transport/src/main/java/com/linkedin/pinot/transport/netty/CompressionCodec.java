@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import java.io.IOException;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.xerial.snappy.Snappy;
+
+
+/**
+ * Block compression codecs that can be used to compress responses sent over the wire. The id of the
+ * codec is written in the {@link CompressedFrame} header, so ids must never be reused.
+ */
+public enum CompressionCodec {
+  LZ4((byte) 1) {
+    private final LZ4Compressor _compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor _decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    @Override
+    public int maxCompressedLength(int length) {
+      return _compressor.maxCompressedLength(length);
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) {
+      return _compressor.compress(src, srcOffset, length, dest, destOffset, maxCompressedLength(length));
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int rawLength) {
+      _decompressor.decompress(src, srcOffset, dest, destOffset, rawLength);
+    }
+  },
+
+  SNAPPY((byte) 2) {
+    @Override
+    public int maxCompressedLength(int length) {
+      return Snappy.maxCompressedLength(length);
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) throws IOException {
+      return Snappy.compress(src, srcOffset, length, dest, destOffset);
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int rawLength)
+        throws IOException {
+      Snappy.uncompress(src, srcOffset, length, dest, destOffset);
+    }
+  };
+
+  private final byte _id;
+
+  CompressionCodec(byte id) {
+    _id = id;
+  }
+
+  public byte getId() {
+    return _id;
+  }
+
+  /**
+   * Returns the codec with the given id, or null if the id is unknown.
+   */
+  public static CompressionCodec fromId(byte id) {
+    for (CompressionCodec codec : values()) {
+      if (codec._id == id) {
+        return codec;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the codec with the given (case insensitive) name, or null if the name is null, 'none' or
+   * unknown.
+   */
+  public static CompressionCodec fromName(String name) {
+    if (name == null) {
+      return null;
+    }
+    for (CompressionCodec codec : values()) {
+      if (codec.name().equalsIgnoreCase(name)) {
+        return codec;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the maximum size of the compressed form of length bytes.
+   */
+  public abstract int maxCompressedLength(int length);
+
+  /**
+   * Compresses length bytes of src into dest and returns the compressed size. dest must have at least
+   * {@link #maxCompressedLength(int)} bytes available from destOffset.
+   */
+  public abstract int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset)
+      throws IOException;
+
+  /**
+   * Decompresses length bytes of src into rawLength bytes of dest.
+   */
+  public abstract void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int rawLength)
+      throws IOException;
+}
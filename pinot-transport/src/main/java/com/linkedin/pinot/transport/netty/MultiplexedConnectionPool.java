@@ -0,0 +1,299 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.common.AsyncResponseFuture;
+import com.linkedin.pinot.transport.common.CompositeFuture;
+import com.linkedin.pinot.transport.common.CompositeFuture.GatherModeOnError;
+import com.linkedin.pinot.transport.common.KeyedFuture;
+import com.linkedin.pinot.transport.common.NoneType;
+import com.linkedin.pinot.transport.metrics.AggregatedPoolStats;
+import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
+import com.linkedin.pinot.transport.metrics.PoolStats;
+import com.linkedin.pinot.transport.pool.KeyedPool;
+import com.yammer.metrics.core.Histogram;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.Timer;
+
+
+/**
+ * Keyed pool of {@link NettyMultiplexedClientConnection}s, with a small fixed number of connections per server.
+ *
+ * As a multiplexed connection can have many requests in flight, checkout does not hand out the connection
+ * exclusively. It returns one of the connections to the server in round-robin order, (re)connecting it if
+ * needed, and checkin is a no-op. Destroying a connection makes the next checkout of its slot reconnect.
+ *
+ * Connecting does not block the checkout: the returned future completes once the connection is established, or
+ * fails if it cannot be. After failed connects, the slot is not reconnected until an exponentially growing backoff
+ * has elapsed, and its checkouts fail right away.
+ */
+public class MultiplexedConnectionPool implements KeyedPool<ServerInstance, NettyClientConnection> {
+  protected static Logger LOGGER = LoggerFactory.getLogger(MultiplexedConnectionPool.class);
+
+  private static final long INITIAL_RECONNECT_BACKOFF_MS = 100L;
+  private static final long MAX_RECONNECT_BACKOFF_MS = 10000L;
+
+  private final int _connectionsPerServer;
+  private final int _connectTimeoutMs;
+  private final EventLoopGroup _eventLoop;
+  private final Timer _timer;
+  private final NettyClientMetrics _metrics;
+
+  private final ConcurrentMap<ServerInstance, Slot[]> _connections = new ConcurrentHashMap<ServerInstance, Slot[]>();
+  private final AtomicInteger _nextSlot = new AtomicInteger(0);
+  private final AggregatedPoolStats<Histogram> _poolStats = new AggregatedPoolStats<Histogram>();
+  private volatile boolean _isShutdown = false;
+
+  /**
+   * @param connectionsPerServer Number of connections to each server.
+   * @param connectTimeoutMs Timeout of a connect, which should not exceed the request timeout.
+   */
+  public MultiplexedConnectionPool(int connectionsPerServer, int connectTimeoutMs, EventLoopGroup eventLoop,
+      Timer timer, NettyClientMetrics metrics) {
+    if (connectionsPerServer <= 0) {
+      throw new IllegalArgumentException("Invalid number of connections per server: " + connectionsPerServer);
+    }
+    if (connectTimeoutMs <= 0) {
+      throw new IllegalArgumentException("Invalid connect timeout: " + connectTimeoutMs);
+    }
+    _connectionsPerServer = connectionsPerServer;
+    _connectTimeoutMs = connectTimeoutMs;
+    _eventLoop = eventLoop;
+    _timer = timer;
+    _metrics = metrics;
+  }
+
+  @Override
+  public void start() {
+  }
+
+  @Override
+  public KeyedFuture<ServerInstance, NettyClientConnection> checkoutObject(ServerInstance key) {
+    final AsyncResponseFuture<ServerInstance, NettyClientConnection> future =
+        new AsyncResponseFuture<ServerInstance, NettyClientConnection>(key, "Checkout future for key " + key);
+    if (_isShutdown) {
+      future.onError(new IllegalStateException("Pool is shutting down !!"));
+      return future;
+    }
+
+    Slot[] slots = getSlots(key);
+    Slot slot = slots[(_nextSlot.getAndIncrement() & Integer.MAX_VALUE) % slots.length];
+    NettyMultiplexedClientConnection invalidConn = null;
+    NettyMultiplexedClientConnection conn;
+    synchronized (slots) {
+      conn = slot._conn;
+      if (null != conn && conn.getConnectFuture().isDone() && !conn.validate()) {
+        invalidConn = conn;
+        conn = null;
+        slot._conn = null;
+      }
+      if (null == conn) {
+        long backoffMs = slot._nextConnectTimeMs - System.currentTimeMillis();
+        if (backoffMs > 0) {
+          future.onError(new ConnectException(
+              "Not reconnecting to server " + key + " for " + backoffMs + "ms after failing to connect"));
+        } else {
+          conn = new NettyMultiplexedClientConnection(key, _eventLoop, _timer, _metrics);
+          slot._conn = conn;
+          addConnectListener(slots, slot, conn);
+        }
+      }
+    }
+
+    if (null != invalidConn) {
+      LOGGER.info("Destroying invalid connection {}", invalidConn);
+      closeQuietly(invalidConn);
+    }
+    if (null != conn) {
+      // Connects outside the lock, only the first checkout of a new connection starts connecting
+      conn.connectAsync(_connectTimeoutMs);
+      forwardConnectResult(conn, future);
+    }
+    return future;
+  }
+
+  @Override
+  public boolean validatePool(ServerInstance key, boolean recreate) {
+    Slot[] slots = _connections.get(key);
+    if (null == slots) {
+      return true;
+    }
+    List<NettyMultiplexedClientConnection> invalidConns = new ArrayList<NettyMultiplexedClientConnection>();
+    List<NettyMultiplexedClientConnection> newConns = new ArrayList<NettyMultiplexedClientConnection>();
+    synchronized (slots) {
+      for (Slot slot : slots) {
+        NettyMultiplexedClientConnection conn = slot._conn;
+        if (null != conn && conn.getConnectFuture().isDone() && !conn.validate()) {
+          invalidConns.add(conn);
+          slot._conn = null;
+          if (recreate && slot._nextConnectTimeMs <= System.currentTimeMillis()) {
+            conn = new NettyMultiplexedClientConnection(key, _eventLoop, _timer, _metrics);
+            slot._conn = conn;
+            addConnectListener(slots, slot, conn);
+            newConns.add(conn);
+          }
+        }
+      }
+    }
+    for (NettyMultiplexedClientConnection conn : invalidConns) {
+      LOGGER.info("Destroying invalid connection {}", conn);
+      closeQuietly(conn);
+    }
+    for (NettyMultiplexedClientConnection conn : newConns) {
+      conn.connectAsync(_connectTimeoutMs);
+    }
+    return true;
+  }
+
+  @Override
+  public void checkinObject(ServerInstance key, NettyClientConnection object) {
+    // Connections are shared by all requests, there is nothing to give back.
+  }
+
+  @Override
+  public void destroyObject(ServerInstance key, NettyClientConnection object) {
+    Slot[] slots = _connections.get(key);
+    if (null != slots) {
+      synchronized (slots) {
+        for (Slot slot : slots) {
+          if (slot._conn == object) {
+            slot._conn = null;
+          }
+        }
+      }
+    }
+    LOGGER.info("Destroying connection {}", object);
+    closeQuietly(object);
+  }
+
+  @Override
+  public KeyedFuture<ServerInstance, NoneType> shutdown() {
+    _isShutdown = true;
+    List<KeyedFuture<ServerInstance, NoneType>> futureList = new ArrayList<KeyedFuture<ServerInstance, NoneType>>();
+    for (Entry<ServerInstance, Slot[]> entry : _connections.entrySet()) {
+      Slot[] slots = entry.getValue();
+      List<NettyMultiplexedClientConnection> conns = new ArrayList<NettyMultiplexedClientConnection>();
+      synchronized (slots) {
+        for (Slot slot : slots) {
+          if (null != slot._conn) {
+            conns.add(slot._conn);
+            slot._conn = null;
+          }
+        }
+      }
+      for (NettyMultiplexedClientConnection conn : conns) {
+        closeQuietly(conn);
+      }
+      AsyncResponseFuture<ServerInstance, NoneType> shutdownFuture = new AsyncResponseFuture<ServerInstance, NoneType>(
+          entry.getKey(), "Shutdown future for pool entry " + entry.getKey());
+      shutdownFuture.onSuccess(NoneType.NONE);
+      futureList.add(shutdownFuture);
+    }
+    CompositeFuture<ServerInstance, NoneType> shutdownFuture =
+        new CompositeFuture<ServerInstance, NoneType>("Shutdown For Pool", GatherModeOnError.AND);
+    shutdownFuture.start(futureList);
+    return shutdownFuture;
+  }
+
+  @Override
+  public PoolStats<Histogram> getStats() {
+    return _poolStats;
+  }
+
+  /**
+   * Updates the reconnect backoff of the slot once the new connection of the slot connected or failed to.
+   */
+  private void addConnectListener(final Slot[] slots, final Slot slot, final NettyMultiplexedClientConnection conn) {
+    conn.getConnectFuture().addListener(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (slots) {
+          if (conn.validate()) {
+            slot._numConnectFailures = 0;
+            slot._nextConnectTimeMs = 0L;
+          } else {
+            int shift = Math.min(slot._numConnectFailures, 16);
+            long backoffMs = Math.min(INITIAL_RECONNECT_BACKOFF_MS << shift, MAX_RECONNECT_BACKOFF_MS);
+            slot._numConnectFailures++;
+            slot._nextConnectTimeMs = System.currentTimeMillis() + backoffMs;
+          }
+        }
+      }
+    }, null);
+  }
+
+  /**
+   * Completes the checkout future with the connection once it is connected, or with the connect error.
+   */
+  private static void forwardConnectResult(final NettyMultiplexedClientConnection conn,
+      final AsyncResponseFuture<ServerInstance, NettyClientConnection> future) {
+    final KeyedFuture<ServerInstance, NettyClientConnection> connectFuture = conn.getConnectFuture();
+    connectFuture.addListener(new Runnable() {
+      @Override
+      public void run() {
+        Map<ServerInstance, Throwable> errorMap = connectFuture.getError();
+        if (null != errorMap && !errorMap.isEmpty()) {
+          future.onError(errorMap.values().iterator().next());
+        } else {
+          future.onSuccess(conn);
+        }
+      }
+    }, null);
+  }
+
+  private Slot[] getSlots(ServerInstance key) {
+    Slot[] slots = _connections.get(key);
+    if (null == slots) {
+      Slot[] newSlots = new Slot[_connectionsPerServer];
+      for (int i = 0; i < newSlots.length; i++) {
+        newSlots[i] = new Slot();
+      }
+      slots = _connections.putIfAbsent(key, newSlots);
+      if (null == slots) {
+        slots = newSlots;
+      }
+    }
+    return slots;
+  }
+
+  private static void closeQuietly(NettyClientConnection conn) {
+    try {
+      conn.close();
+    } catch (Exception e) {
+      LOGGER.error("Got exception when closing connection {}", conn, e);
+    }
+  }
+
+  /**
+   * Connection of one of the slots to a server, guarded by the lock on the array of slots.
+   */
+  private static class Slot {
+    private NettyMultiplexedClientConnection _conn;
+    private int _numConnectFailures;
+    private long _nextConnectTimeMs;
+  }
+}
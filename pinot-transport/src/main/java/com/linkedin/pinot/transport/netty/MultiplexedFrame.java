@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+
+/**
+ * Header of the frames sent over a multiplexed connection, where many requests are in flight on the
+ * same channel and responses are matched to requests by the request id. The server echoes the header
+ * back on the response.
+ *
+ * 0                                                         31
+ * ------------------------------------------------------------
+ * |                  Length ( 32 bits)                       |
+ * |                  Magic ( 32 bits)                        |
+ * |                  Request Id ( 64 bits)                   |
+ * |                                                          |
+ * |                 Payload (Request/Response)               |
+ * |                    ...............                       |
+ * ------------------------------------------------------------
+ *
+ * The magic can never be the start of a thrift compact serialized request, so the server can tell
+ * multiplexed frames apart from the frames sent by the single request connections.
+ */
+public final class MultiplexedFrame {
+  public static final int MAGIC = 0x504D5558;
+  public static final int HEADER_SIZE = 12;
+
+  private MultiplexedFrame() {
+  }
+
+  /**
+   * Returns true if the frame starts with the multiplexed frame header.
+   */
+  public static boolean isMultiplexed(ByteBuf frame) {
+    return frame.readableBytes() >= HEADER_SIZE && frame.getInt(frame.readerIndex()) == MAGIC;
+  }
+
+  /**
+   * Reads the header of a multiplexed frame and returns the request id. The reader index is left at
+   * the start of the payload.
+   */
+  public static long readRequestId(ByteBuf frame) {
+    int magic = frame.readInt();
+    if (magic != MAGIC) {
+      throw new IllegalArgumentException("Not a multiplexed frame, magic: " + magic);
+    }
+    return frame.readLong();
+  }
+
+  /**
+   * Returns the payload prepended with the multiplexed frame header, without copying the payload.
+   */
+  public static ByteBuf wrap(long requestId, ByteBuf payload) {
+    ByteBuf header = Unpooled.buffer(HEADER_SIZE);
+    header.writeInt(MAGIC);
+    header.writeLong(requestId);
+    return Unpooled.wrappedBuffer(header, payload);
+  }
+}
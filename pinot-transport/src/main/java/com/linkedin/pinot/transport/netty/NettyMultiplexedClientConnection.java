@@ -0,0 +1,399 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import java.net.ConnectException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import com.linkedin.pinot.common.metrics.MetricsHelper;
+import com.linkedin.pinot.common.metrics.MetricsHelper.TimerContext;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.common.AsyncResponseFuture;
+import com.linkedin.pinot.transport.common.Cancellable;
+import com.linkedin.pinot.transport.common.KeyedFuture;
+import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+
+/**
+ * TCP based Netty Client Connection which allows many outstanding requests at the same time.
+ *
+ * Each request is framed with a connection local request id (see {@link MultiplexedFrame}), which the
+ * server echoes back on the response, so responses can arrive in any order. Unlike
+ * {@link NettyTCPClientConnection}, a request timing out does not close the channel, the late response
+ * is simply discarded. The connection is not checked in/out of a pool per request. It stays usable until
+ * the channel fails, at which point all the outstanding requests are failed.
+ *
+ * The connection can be opened without blocking with {@link #connectAsync(int)}.
+ */
+public class NettyMultiplexedClientConnection extends NettyClientConnection {
+  private final NettyClientMetrics _clientMetric;
+
+  // Outstanding requests, keyed by the request id sent on the wire
+  private final Map<Long, PendingRequest> _pendingRequests = new ConcurrentHashMap<Long, PendingRequest>();
+  private final AtomicLong _requestIdGen = new AtomicLong(0);
+
+  private volatile Throwable _error;
+
+  // Connection Id generator
+  private static final AtomicLong _connIdGen = new AtomicLong(0);
+
+  // Same as the Netty default
+  private static final int DEFAULT_CONNECT_TIMEOUT_MS = 30000;
+
+  private final AtomicBoolean _connectStarted = new AtomicBoolean(false);
+  private final AsyncResponseFuture<ServerInstance, NettyClientConnection> _connectFuture;
+
+  public NettyMultiplexedClientConnection(ServerInstance server, EventLoopGroup eventGroup, Timer timer,
+      NettyClientMetrics metric) {
+    super(server, eventGroup, timer, _connIdGen.incrementAndGet());
+    _clientMetric = metric;
+    _connectFuture = new AsyncResponseFuture<ServerInstance, NettyClientConnection>(server,
+        "Connect future for server " + server + " connId " + getConnId());
+    _bootstrap = new Bootstrap();
+    _bootstrap.group(_eventGroup).channel(NioSocketChannel.class)
+        .handler(new ChannelHandlerInitializer(new MultiplexedClientConnectionHandler(), _clientMetric));
+  }
+
+  /**
+   * Open a connection
+   */
+  @Override
+  public boolean connect() {
+    try {
+      return connectAsync(DEFAULT_CONNECT_TIMEOUT_MS).getOne() != null;
+    } catch (Exception e) {
+      LOGGER.error("Got exception when connecting to server {} connId {}", _server, getConnId(), e);
+      return false;
+    }
+  }
+
+  /**
+   * Open the connection without blocking. Only the first call starts connecting, the others return the same future,
+   * which completes with this connection once connected, or with the error if the connect fails or times out.
+   */
+  public KeyedFuture<ServerInstance, NettyClientConnection> connectAsync(int connectTimeoutMs) {
+    if (!_connectStarted.compareAndSet(false, true)) {
+      return _connectFuture;
+    }
+    if (!_connState.isValidTransition(State.CONNECTED)) {
+      onConnectError(new IllegalStateException(
+          "Wrong transition :" + _connState + " -> " + State.CONNECTED + ", connId:" + getConnId()));
+      return _connectFuture;
+    }
+
+    final TimerContext t = MetricsHelper.startTimer();
+    try {
+      _bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs);
+      _bootstrap.connect(_server.getHostname(), _server.getPort()).addListener(new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+          if (!future.isSuccess()) {
+            onConnectError(future.cause());
+            return;
+          }
+          t.stop();
+          // The connect future completes before the channelActive() callback runs
+          _channel = future.channel();
+          _connState = State.CONNECTED;
+          _clientMetric.addConnectStats(t.getLatencyMs());
+          _connectFuture.onSuccess(NettyMultiplexedClientConnection.this);
+        }
+      });
+    } catch (Exception e) {
+      onConnectError(e);
+    }
+    return _connectFuture;
+  }
+
+  /**
+   * Future completed by {@link #connectAsync(int)}.
+   */
+  public KeyedFuture<ServerInstance, NettyClientConnection> getConnectFuture() {
+    return _connectFuture;
+  }
+
+  private void onConnectError(Throwable cause) {
+    if (cause instanceof ConnectException && cause.getMessage() != null
+        && cause.getMessage().startsWith("Connection refused")) {
+      // Most common case when a server is down. Don't print the entire stack and fill the logs.
+      LOGGER.error("Could not connect to server {}:{} connId:{}", _server, cause.getMessage(), getConnId());
+    } else {
+      LOGGER.error("Got exception when connecting to server {} connId {}", _server, getConnId(), cause);
+    }
+    _error = cause;
+    _connState = State.ERROR;
+    _connectFuture.onError(cause);
+  }
+
+  @Override
+  public boolean validate() {
+    return _connState == State.CONNECTED && super.validate();
+  }
+
+  /**
+   * Sends the request on the shared channel. The request id passed in is only used for logging, the
+   * request is matched to its response by an id generated by this connection, as the same request
+   * may be sent more than once to a server.
+   */
+  @Override
+  public ResponseFuture sendRequest(ByteBuf serializedRequest, long requestId, long timeoutMs) {
+    final long wireRequestId = _requestIdGen.incrementAndGet();
+    final PendingRequest pending = new PendingRequest(requestId, serializedRequest.readableBytes(),
+        new ResponseFuture(_server, "Response Future for request " + requestId + " to server " + _server + " connId "
+            + getConnId()));
+    // Cancelling forgets the request, so that its late response is discarded. It fails if the request already completed.
+    pending._future.setCancellable(new Cancellable() {
+      @Override
+      public boolean cancel() {
+        PendingRequest cancelled = _pendingRequests.remove(wireRequestId);
+        if (null == cancelled) {
+          return false;
+        }
+        if (null != cancelled._timeout) {
+          cancelled._timeout.cancel();
+        }
+        return true;
+      }
+    });
+
+    if (_connState != State.CONNECTED) {
+      serializedRequest.release();
+      pending._future.onError(new IllegalStateException(
+          "Connection to server " + _server + " connId " + getConnId() + " is in state " + _connState));
+      return pending._future;
+    }
+
+    _pendingRequests.put(wireRequestId, pending);
+    pending._timeout = _timer.newTimeout(new RequestTimeoutHandler(wireRequestId), timeoutMs, TimeUnit.MILLISECONDS);
+
+    // The channel may have failed after the state check, in which case this request was not failed with the others
+    if (_connState == State.ERROR) {
+      completeWithError(wireRequestId, _error);
+      serializedRequest.release();
+      return pending._future;
+    }
+
+    try {
+      ChannelFuture f = _channel.writeAndFlush(MultiplexedFrame.wrap(wireRequestId, serializedRequest));
+      f.addListener(new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+          pending._sendRequestLatency.stop();
+          if (!future.isSuccess()) {
+            completeWithError(wireRequestId, future.cause());
+          }
+        }
+      });
+    } catch (Exception e) {
+      LOGGER.error("Got exception sending the request to server ({}) id {}", _server, getConnId(), e);
+      completeWithError(wireRequestId, e);
+    }
+    return pending._future;
+  }
+
+  /**
+   * Number of requests sent on this connection which are waiting for a response.
+   */
+  public int getNumPendingRequests() {
+    return _pendingRequests.size();
+  }
+
+  private void completeWithError(long wireRequestId, Throwable cause) {
+    PendingRequest pending = _pendingRequests.remove(wireRequestId);
+    if (null == pending) {
+      // Already completed
+      return;
+    }
+    if (null != pending._timeout) {
+      pending._timeout.cancel();
+    }
+    pending._responseLatency.stop();
+    _clientMetric.addRequestResponseStats(pending._requestSizeInBytes, 1, 0, true,
+        pending._sendRequestLatency.getLatencyMs(), pending._responseLatency.getLatencyMs());
+    pending._future.onError(cause);
+  }
+
+  private void failAllPendingRequests(Throwable cause) {
+    for (Long wireRequestId : _pendingRequests.keySet()) {
+      completeWithError(wireRequestId, cause);
+    }
+  }
+
+  /**
+   * Called by the channel initializer to set the underlying channel reference.
+   * @param channel
+   */
+  private void setChannel(Channel channel) {
+    _channel = channel;
+    LOGGER.info("Setting channel for multiplexed connection id ({}) to server {}", _connId, _server);
+  }
+
+  @Override
+  public String toString() {
+    return "Server:" + _server + ",State:" + _connState + ",connId:" + getConnId() + ",pendingRequests:"
+        + _pendingRequests.size();
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    LOGGER.info("Closing multiplexed client channel to {} connId {}", _server, getConnId());
+    if (null != _channel) {
+      _channel.close().sync();
+    }
+  }
+
+  private static class PendingRequest {
+    private final long _requestId;
+    private final long _requestSizeInBytes;
+    private final ResponseFuture _future;
+    private final TimerContext _sendRequestLatency = MetricsHelper.startTimer();
+    private final TimerContext _responseLatency = MetricsHelper.startTimer();
+    private volatile Timeout _timeout;
+
+    private PendingRequest(long requestId, long requestSizeInBytes, ResponseFuture future) {
+      _requestId = requestId;
+      _requestSizeInBytes = requestSizeInBytes;
+      _future = future;
+    }
+  }
+
+  /**
+   * Channel Handler for incoming responses.
+   */
+  public class MultiplexedClientConnectionHandler extends ChannelInboundHandlerAdapter {
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+      LOGGER.info("Multiplexed client channel to server ({}) (id = {}) is active.", _server, _connId);
+      setChannel(ctx.channel());
+      super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+      LOGGER.info("Multiplexed client channel to server ({}) (id = {}) in inactive state (closed).", _server, _connId);
+      closeOnError(ctx, new Exception("Client Channel to server (" + _server + ") is in inactive state (closed) !!"));
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      ByteBuf result = (ByteBuf) msg;
+      if (!MultiplexedFrame.isMultiplexed(result)) {
+        result.release();
+        closeOnError(ctx, new IllegalStateException("Got a response without a request id from server " + _server
+            + ". Is multiplexing supported by the server ?"));
+        return;
+      }
+
+      long wireRequestId = MultiplexedFrame.readRequestId(result);
+      PendingRequest pending = _pendingRequests.remove(wireRequestId);
+      if (null == pending || pending._future.isDone()) {
+        // The request has already timed out or been cancelled
+        LOGGER.debug("Discarding late response for request id {} from server {} connId {}", wireRequestId, _server,
+            getConnId());
+        result.release();
+        return;
+      }
+
+      if (null != pending._timeout) {
+        pending._timeout.cancel();
+      }
+      pending._responseLatency.stop();
+      _clientMetric.addRequestResponseStats(pending._requestSizeInBytes, 1, result.readableBytes(), false,
+          pending._sendRequestLatency.getLatencyMs(), pending._responseLatency.getLatencyMs());
+      pending._future.onSuccess(result);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+      LOGGER.error("Got exception in the multiplexed channel to {}, connId {}", _server, getConnId(), cause);
+      closeOnError(ctx, cause);
+    }
+
+    private void closeOnError(ChannelHandlerContext ctx, Throwable cause) {
+      _error = cause;
+      _connState = State.ERROR;
+      failAllPendingRequests(cause);
+      ctx.close();
+    }
+  }
+
+  /**
+   * Netty Client Channel Initializer responsible for setting the pipeline
+   */
+  public static class ChannelHandlerInitializer extends ChannelInitializer<SocketChannel> {
+    private final MultiplexedClientConnectionHandler _handler;
+    private final NettyClientMetrics _clientMetric;
+
+    public ChannelHandlerInitializer(MultiplexedClientConnectionHandler handler, NettyClientMetrics clientMetric) {
+      _handler = handler;
+      _clientMetric = clientMetric;
+    }
+
+    @Override
+    protected void initChannel(SocketChannel ch) throws Exception {
+      ChannelPipeline pipeline = ch.pipeline();
+      pipeline.addLast("decoder", new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4));
+      pipeline.addLast("encoder", new LengthFieldPrepender(4));
+      pipeline.addLast("decompressor", new ResponseDecompressionHandler(_clientMetric));
+      pipeline.addLast("handler", _handler);
+    }
+  }
+
+  /**
+   * Timer task responsible for failing a single request on timeout. The channel is left open for the
+   * other requests.
+   */
+  private class RequestTimeoutHandler implements TimerTask {
+    private final long _wireRequestId;
+
+    private RequestTimeoutHandler(long wireRequestId) {
+      _wireRequestId = wireRequestId;
+    }
+
+    @Override
+    public void run(Timeout timeout) throws Exception {
+      PendingRequest pending = _pendingRequests.get(_wireRequestId);
+      if (null == pending) {
+        return;
+      }
+      String message = "Request (" + pending._requestId + ") to server " + _server + " connId " + getConnId()
+          + " timed-out waiting for response";
+      LOGGER.error(message);
+      completeWithError(_wireRequestId, new Exception(message));
+    }
+  }
+}
@@ -15,6 +15,9 @@
  */
 package com.linkedin.pinot.transport.netty;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -74,6 +77,28 @@ public abstract class NettyServer implements Runnable {
     public byte[] processRequest(ByteBuf request);
   }
 
+  /**
+   * A request handler which processes the request outside of the Netty worker thread, so that processing
+   * does not block the I/O of the other channels handled by the thread. The response is sent once the
+   * returned future completes.
+   */
+  public static interface AsyncRequestHandler extends RequestHandler {
+    /**
+     * Same contract as {@link #processRequest(ByteBuf)}, but returns a future for the response.
+     * The implementation must read what it needs from the request before returning, as the caller
+     * releases the request once this method returns. The future must not fail, in case of errors
+     * it is expected to complete with an error response.
+     *
+     * The response is written to the channel as is, so the implementation can serialize it straight
+     * into a pooled direct buffer. The ownership of the response buffer passes to the caller, which
+     * releases it once written.
+     *
+     * @param request Serialized request
+     * @return Future for the serialized response
+     */
+    public ListenableFuture<ByteBuf> processRequestAsync(ByteBuf request);
+  }
+
   public static interface RequestHandlerFactory {
 
     /**
@@ -169,19 +194,16 @@ public abstract class NettyServer implements Runnable {
    * |                    ...............                       |
    * |                    ...............                       |
    * ------------------------------------------------------------
+   *
+   * Requests sent over a multiplexed connection carry a {@link MultiplexedFrame} header before the payload,
+   * which is echoed back on the response. Such requests may be processed concurrently and answered out of
+   * order when the request handler is an {@link AsyncRequestHandler}.
    */
-  public static class NettyChannelInboundHandler extends ChannelInboundHandlerAdapter implements ChannelFutureListener {
+  public static class NettyChannelInboundHandler extends ChannelInboundHandlerAdapter {
     private final long _defaultLargeQueryLatencyMs;
     private final RequestHandler _handler;
     private final NettyServerMetrics _metric;
 
-    //Metrics Related
-    private long _lastRequsetSizeInBytes;
-    private long _lastResponseSizeInBytes;
-    private TimerContext _lastSendResponseLatency;
-    private TimerContext _lastProcessingLatency;
-    private long _requestStartTime;
-
     public NettyChannelInboundHandler(RequestHandler handler, NettyServerMetrics metric, long defaultLargeQueryLatencyMs) {
       _handler = handler;
       _metric = metric;
@@ -203,28 +225,58 @@ public abstract class NettyServer implements Runnable {
     /**
      * Server Channel Handler State
      */
-    private State _state = State.INIT;
+    private volatile State _state = State.INIT;
 
     @Override
-    public void channelRead(ChannelHandlerContext ctx, Object msg) {
-      _requestStartTime = System.currentTimeMillis();
+    public void channelRead(final ChannelHandlerContext ctx, Object msg) {
       LOGGER.debug("Request received by server !!");
       _state = State.REQUEST_RECEIVED;
       ByteBuf request = (ByteBuf) msg;
-      _lastRequsetSizeInBytes = request.readableBytes();
+      final RequestContext requestContext = new RequestContext(request);
 
       //Call processing handler
-      _lastProcessingLatency = MetricsHelper.startTimer();
+      if (_handler instanceof AsyncRequestHandler) {
+        ListenableFuture<ByteBuf> response;
+        try {
+          response = ((AsyncRequestHandler) _handler).processRequestAsync(request);
+        } finally {
+          request.release();
+        }
+        Futures.addCallback(response, new FutureCallback<ByteBuf>() {
+          @Override
+          public void onSuccess(ByteBuf result) {
+            sendResponse(ctx, requestContext, result);
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            exceptionCaught(ctx, t);
+          }
+        });
+        return;
+      }
       byte[] response = _handler.processRequest(request);
-      _lastProcessingLatency.stop();
+      sendResponse(ctx, requestContext, Unpooled.wrappedBuffer(response));
+      request.release();
+    }
+
+    private void sendResponse(ChannelHandlerContext ctx, RequestContext requestContext, ByteBuf response) {
+      requestContext._processingLatency.stop();
 
       // Send Response
-      ByteBuf responseBuf = Unpooled.wrappedBuffer(response);
-      _lastSendResponseLatency = MetricsHelper.startTimer();
+      requestContext._responseSizeInBytes = response.readableBytes();
+      if (CompressedFrame.isCompressed(response, response.readerIndex())) {
+        _metric.addCompressionStats(response.readableBytes(),
+            CompressedFrame.getRawLength(response, response.readerIndex()));
+      }
+      ByteBuf responseBuf = response;
+      if (requestContext._isMultiplexed) {
+        responseBuf = MultiplexedFrame.wrap(requestContext._requestId, responseBuf);
+      }
+      requestContext._sendResponseLatency = MetricsHelper.startTimer();
       ChannelFuture f = ctx.writeAndFlush(responseBuf);
       _state = State.RESPONSE_WRITTEN;
-      f.addListener(this);
-      request.release();
+      f.addListener(requestContext);
     }
 
     @Override
@@ -235,26 +287,44 @@ public abstract class NettyServer implements Runnable {
       ctx.close();
     }
 
-    @Override
-    public void operationComplete(ChannelFuture future) throws Exception {
-      LOGGER.debug("Response has been sent !!");
-      _lastSendResponseLatency.stop();
-      _metric.addServingStats(_lastRequsetSizeInBytes, _lastResponseSizeInBytes, 1L, false,
-          _lastProcessingLatency.getLatencyMs(), _lastSendResponseLatency.getLatencyMs());
-      long totalQueryTime = System.currentTimeMillis() - _requestStartTime;
-      if (totalQueryTime > _defaultLargeQueryLatencyMs) {
-        LOGGER.info("Trace Info: request handler processing time : {}, send response latency: {}, total time to handle request: {}", _lastProcessingLatency.getLatencyMs(),
-            _lastSendResponseLatency.getLatencyMs(), totalQueryTime);
+    /**
+     * Per request state, as requests on a multiplexed connection can be processed concurrently.
+     * Reading the request strips the multiplexed frame header, if any, off the request.
+     */
+    private class RequestContext implements ChannelFutureListener {
+      private final long _requestStartTime = System.currentTimeMillis();
+      private final TimerContext _processingLatency;
+      private final long _requestSizeInBytes;
+      private final boolean _isMultiplexed;
+      private final long _requestId;
+      private long _responseSizeInBytes;
+      private TimerContext _sendResponseLatency;
+
+      private RequestContext(ByteBuf request) {
+        _isMultiplexed = MultiplexedFrame.isMultiplexed(request);
+        _requestId = _isMultiplexed ? MultiplexedFrame.readRequestId(request) : 0;
+        _requestSizeInBytes = request.readableBytes();
+        _processingLatency = MetricsHelper.startTimer();
+      }
+
+      @Override
+      public void operationComplete(ChannelFuture future) throws Exception {
+        LOGGER.debug("Response has been sent !!");
+        _sendResponseLatency.stop();
+        _metric.addServingStats(_requestSizeInBytes, _responseSizeInBytes, 1L, false,
+            _processingLatency.getLatencyMs(), _sendResponseLatency.getLatencyMs());
+        long totalQueryTime = System.currentTimeMillis() - _requestStartTime;
+        if (totalQueryTime > _defaultLargeQueryLatencyMs) {
+          LOGGER.info("Trace Info: request handler processing time : {}, send response latency: {}, total time to handle request: {}", _processingLatency.getLatencyMs(),
+              _sendResponseLatency.getLatencyMs(), totalQueryTime);
+        }
+        _state = State.RESPONSE_SENT;
       }
-      _state = State.RESPONSE_SENT;
     }
 
     @Override
     public String toString() {
-      return "NettyChannelInboundHandler [_handler=" + _handler + ", _metric=" + _metric + ", _lastRequsetSizeInBytes="
-          + _lastRequsetSizeInBytes + ", _lastResponseSizeInBytes=" + _lastResponseSizeInBytes
-          + ", _lastSendResponseLatency=" + _lastSendResponseLatency + ", _lastProcessingLatency="
-          + _lastProcessingLatency + ", _state=" + _state + "]";
+      return "NettyChannelInboundHandler [_handler=" + _handler + ", _metric=" + _metric + ", _state=" + _state + "]";
     }
   }
 
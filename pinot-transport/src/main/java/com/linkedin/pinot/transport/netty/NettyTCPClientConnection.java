@@ -381,6 +381,8 @@ public class NettyTCPClientConnection extends NettyClientConnection  {
        */
       pipeline.addLast("decoder", new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4));
       pipeline.addLast("encoder", new LengthFieldPrepender(4));
+      // Compressed responses are only sent when the request asked for them, see CompressedFrame.
+      pipeline.addLast("decompressor", new ResponseDecompressionHandler(_clientMetric));
       //pipeline.addLast("logger", new LoggingHandler());
       pipeline.addLast("handler", _handler);
       LOGGER.info("Server Channel pipeline setup. Pipeline:" + ch.pipeline().names());
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import java.util.List;
+
+
+/**
+ * Client pipeline handler that decompresses {@link CompressedFrame} responses, keeping the
+ * {@link MultiplexedFrame} header if any. Responses that are not compressed are passed on as is.
+ */
+public class ResponseDecompressionHandler extends MessageToMessageDecoder<ByteBuf> {
+  private final NettyClientMetrics _clientMetric;
+
+  public ResponseDecompressionHandler(NettyClientMetrics clientMetric) {
+    _clientMetric = clientMetric;
+  }
+
+  @Override
+  protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+    int offset = MultiplexedFrame.isMultiplexed(msg) ? MultiplexedFrame.HEADER_SIZE : 0;
+    if (!CompressedFrame.isCompressed(msg, msg.readerIndex() + offset)) {
+      out.add(msg.retain());
+      return;
+    }
+    ByteBuf response = CompressedFrame.decompress(msg, offset, ctx.alloc());
+    _clientMetric.addCompressionStats(msg.readableBytes() - offset, response.readableBytes() - offset);
+    out.add(response);
+  }
+}
@@ -23,6 +23,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -38,6 +41,7 @@ import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.transport.common.BucketingSelection;
 import com.linkedin.pinot.transport.common.CompositeFuture;
 import com.linkedin.pinot.transport.common.CompositeFuture.GatherModeOnError;
+import com.linkedin.pinot.transport.common.HedgedFuture;
 import com.linkedin.pinot.transport.common.KeyedFuture;
 import com.linkedin.pinot.transport.common.ReplicaSelection;
 import com.linkedin.pinot.transport.common.ReplicaSelectionGranularity;
@@ -63,6 +67,20 @@ public class ScatterGatherImpl implements ScatterGather {
 
   private final ExecutorService _executorService;
 
+  // Fires hedged requests once their delay elapses, the requests themselves are sent on the executor service. Shared
+  // by all the instances which are not given a scheduler, so that none of them leaves a thread behind.
+  private static final ScheduledExecutorService DEFAULT_HEDGE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "scatter-gather-hedge-scheduler");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  private final ScheduledExecutorService _hedgeScheduler;
+
   private final Histogram _latency = MetricsHelper.newHistogram(null, new MetricName(ScatterGatherImpl.class,
       "ScatterGatherLatency"), false);
 
@@ -72,8 +90,17 @@ public class ScatterGatherImpl implements ScatterGather {
   private final KeyedPool<ServerInstance, NettyClientConnection> _connPool;
 
   public ScatterGatherImpl(KeyedPool<ServerInstance, NettyClientConnection> pool, ExecutorService service) {
+    this(pool, service, DEFAULT_HEDGE_SCHEDULER);
+  }
+
+  /**
+   * @param hedgeScheduler Scheduler for the hedged requests, owned (and shut down) by the caller
+   */
+  public ScatterGatherImpl(KeyedPool<ServerInstance, NettyClientConnection> pool, ExecutorService service,
+      ScheduledExecutorService hedgeScheduler) {
     _connPool = pool;
     _executorService = service;
+    _hedgeScheduler = hedgeScheduler;
   }
 
   @Override
@@ -139,10 +166,21 @@ public class ScatterGatherImpl implements ScatterGather {
     boolean sentSuccessfully = requestDispatchLatch.await(timeRemaining, TimeUnit.MILLISECONDS);
 
     if (sentSuccessfully) {
+      ScatterGatherRequest request = ctxt.getRequest();
+      long hedgeDelayMs = request.getNumSpeculativeRequests() > 0 ? request.getHedgeDelayMs() : -1L;
       List<KeyedFuture<ServerInstance, ByteBuf>> responseFutures =
           new ArrayList<KeyedFuture<ServerInstance, ByteBuf>>();
       for (SingleRequestHandler h : handlers) {
-        responseFutures.add(h.getResponseFuture());
+        if (hedgeDelayMs >= 0 && h.isSent()) {
+          HedgedFuture<ServerInstance, ByteBuf> hedgedFuture =
+              new HedgedFuture<ServerInstance, ByteBuf>(h.getServer(), h.getResponseFuture(), hedgeDelayMs,
+                  "Hedged Future for request " + request.getRequestId() + " to server " + h.getServer());
+          _hedgeScheduler.schedule(new HedgedRequestSender(ctxt, h, hedgedFuture, brokerMetrics), hedgeDelayMs,
+              TimeUnit.MILLISECONDS);
+          responseFutures.add(hedgedFuture);
+        } else {
+          responseFutures.add(h.getResponseFuture());
+        }
         final String server = h.getServer().toString();
         scatterGatherStats.setSendStartTimeMillis(server, h.getConnStartTimeMillis());
         scatterGatherStats.setConnStartTimeMillis(server, h.getStartDelayMillis());
@@ -152,20 +190,88 @@ public class ScatterGatherImpl implements ScatterGather {
     } else {
       LOGGER.error("Request (" + ctxt.getRequest().getRequestId() + ") not sent completely within time ("
           + timeRemaining + " ms) !! Cancelling !!. NumSentFailed:" + requestDispatchLatch.getCount());
-      response.start(null);
 
       // Some requests were not event sent (possibly because of checkout !!)
-      // and so we cancel all of them here
+      // and so we cancel all of them here, and fail their responses so that the caller sees the servers as failed
+      List<KeyedFuture<ServerInstance, ByteBuf>> responseFutures =
+          new ArrayList<KeyedFuture<ServerInstance, ByteBuf>>(handlers.size());
       for (SingleRequestHandler h : handlers) {
         LOGGER.info("Request to {} was sent successfully:{}, cancelling.", h.getServer(), h.isSent());
         h.cancel();
+        responseFutures.add(new ResponseFuture(h.getServer(),
+            new TimeoutException("Request not sent to server " + h.getServer() + " within " + timeRemaining + " ms"),
+            "Error Future for request " + ctxt.getRequest().getRequestId()));
       }
+      response.start(responseFutures);
     }
     t.stop();
     _latency.update(t.getLatencyMs());
     return response;
   }
 
+  /**
+   * Sends the hedged request for a server which has not responded within the hedge delay, to a replica hosting
+   * the same segments.
+   */
+  private class HedgedRequestSender implements Runnable {
+    private final ScatterGatherRequestContext _ctxt;
+    private final SingleRequestHandler _handler;
+    private final HedgedFuture<ServerInstance, ByteBuf> _hedgedFuture;
+    private final BrokerMetrics _brokerMetrics;
+
+    private HedgedRequestSender(ScatterGatherRequestContext ctxt, SingleRequestHandler handler,
+        HedgedFuture<ServerInstance, ByteBuf> hedgedFuture, BrokerMetrics brokerMetrics) {
+      _ctxt = ctxt;
+      _handler = handler;
+      _hedgedFuture = hedgedFuture;
+      _brokerMetrics = brokerMetrics;
+    }
+
+    @Override
+    public void run() {
+      if (_hedgedFuture.isDone()) {
+        return;
+      }
+      long timeRemaining = _ctxt.getTimeRemaining();
+      if (timeRemaining <= 0) {
+        return;
+      }
+      ScatterGatherRequest request = _ctxt.getRequest();
+      ServerInstance hedgeServer = request.getHedgeService(_handler.getServer(), _handler.getSegmentIds());
+      if (hedgeServer == null) {
+        LOGGER.debug("No replica to send hedged request {} for server {}", request.getRequestId(),
+            _handler.getServer());
+        return;
+      }
+
+      LOGGER.debug("Sending hedged request {} to server {} for server {}", request.getRequestId(), hedgeServer,
+          _handler.getServer());
+      final SingleRequestHandler hedgeHandler =
+          new SingleRequestHandler(_connPool, hedgeServer, request, _handler.getSegmentIds(), timeRemaining,
+              new CountDownLatch(1), _brokerMetrics);
+      final BrokerRequest brokerRequest = (BrokerRequest) request.getBrokerRequest();
+      _executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          hedgeHandler.run();
+          if (!_hedgedFuture.hedge(hedgeHandler.getResponseFuture())) {
+            hedgeHandler.cancel();
+            return;
+          }
+          _brokerMetrics.addMeteredQueryValue(brokerRequest, BrokerMeter.HEDGED_REQUESTS_SENT, 1);
+          _hedgedFuture.addListener(new Runnable() {
+            @Override
+            public void run() {
+              if (_hedgedFuture.isHedgeWinner()) {
+                _brokerMetrics.addMeteredQueryValue(brokerRequest, BrokerMeter.HEDGED_REQUESTS_WON, 1);
+              }
+            }
+          }, null);
+        }
+      });
+    }
+  }
+
   /**
    * Merge segment-sets which have the same set of servers. If 2 segmentIds have overlapping
    * set of servers, they are not merged. If there is predefined-selection for a segmentId,
@@ -422,6 +528,13 @@ public class ScatterGatherImpl implements ScatterGather {
         return;
       }
 
+      // Let the replica selection track the load of the server, from checking out the connection to the response
+      final ReplicaSelection replicaSelection = _request.getReplicaSelection();
+      final long dispatchTime = System.currentTimeMillis();
+      if (replicaSelection != null) {
+        replicaSelection.onRequestSent(_server);
+      }
+
       NettyClientConnection conn = null;
       KeyedFuture<ServerInstance, NettyClientConnection> keyedFuture = null;
       boolean gotConnection = false;
@@ -465,8 +578,18 @@ public class ScatterGatherImpl implements ScatterGather {
           timeRemaining = _timeoutMS - (System.currentTimeMillis() - _startTime);
         }
         ByteBuf req = Unpooled.wrappedBuffer(serializedRequest);
-        _responseFuture = conn.sendRequest(req, _request.getRequestId(), timeRemaining);
+        final ResponseFuture responseFuture = conn.sendRequest(req, _request.getRequestId(), timeRemaining);
+        _responseFuture = responseFuture;
         _isSent.set(true);
+        if (replicaSelection != null) {
+          responseFuture.addListener(new Runnable() {
+            @Override
+            public void run() {
+              boolean isError = responseFuture.isCancelled() || responseFuture.getError() != null;
+              replicaSelection.onRequestCompleted(_server, System.currentTimeMillis() - dispatchTime, isError);
+            }
+          }, MoreExecutors.sameThreadExecutor());
+        }
         LOGGER.debug("Response Future is : {}", _responseFuture);
         error = false;
       } catch (TimeoutException e1) {
@@ -480,6 +603,9 @@ public class ScatterGatherImpl implements ScatterGather {
       } finally {
         _requestDispatchLatch.countDown();
         BrokerRequest brokerRequest = (BrokerRequest) _request.getBrokerRequest();
+        if (error && replicaSelection != null) {
+          replicaSelection.onRequestCompleted(_server, System.currentTimeMillis() - dispatchTime, true);
+        }
         if (error) {
           if (gotConnection) {
             // We must have failed sometime when sending the request
@@ -520,6 +646,10 @@ public class ScatterGatherImpl implements ScatterGather {
       return _server;
     }
 
+    public SegmentIdSet getSegmentIds() {
+      return _segmentIds;
+    }
+
     public ResponseFuture getResponseFuture() {
       return _responseFuture;
     }
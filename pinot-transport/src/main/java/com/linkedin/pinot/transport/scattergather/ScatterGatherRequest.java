@@ -74,10 +74,24 @@ public interface ScatterGatherRequest {
    * to be sent foe each scattered request. To turn off speculative requests, this method should
    * return 0.
    *
-   * TODO: Currently Not implemented
+   * Speculative requests are sent as hedged requests, see {@link #getHedgeDelayMs()}. At most one
+   * hedged request is sent for each scattered request.
    */
   public int getNumSpeculativeRequests();
 
+  /**
+   * Return the delay in MS after which a hedged request is sent to another replica if the server has not
+   * responded yet. The first response of the two is used, and the other request is cancelled.
+   * Negative values turn off hedged requests.
+   */
+  public long getHedgeDelayMs();
+
+  /**
+   * Return a replica other than the given service hosting all the given segments, to send the hedged
+   * request to, or null if there is none.
+   */
+  public ServerInstance getHedgeService(ServerInstance service, SegmentIdSet querySegments);
+
   /**
    * Used for diagnostics, A predefined selection of service can be chosen for each segments
    * and sent to the Scatter-Gather. Scatter-Gather will honor such selection and do not override them.
@@ -18,6 +18,7 @@ package com.linkedin.pinot.transport.scattergather;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -26,6 +27,8 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class ScatterGatherStats {
   private ConcurrentMap<String, PerServerStats> _perServerStatsMap;
+  // Number of servers that failed, or did not return a usable response
+  private final AtomicInteger _numFailedServers = new AtomicInteger();
 
   public void setSendStartTimeMillis(String server, long millis) {
     PerServerStats perServerStats = _perServerStatsMap.get(server);
@@ -66,6 +69,18 @@ public class ScatterGatherStats {
     _perServerStatsMap.put(server, perServerStats);
   }
 
+  public void addFailedServer() {
+    _numFailedServers.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of servers that failed, timed out or sent back a response that could not be used, i.e. the
+   * result of the request only covers part of the routed servers if this is not 0.
+   */
+  public int getNumFailedServers() {
+    return _numFailedServers.get();
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
@@ -81,6 +96,7 @@ public class ScatterGatherStats {
     for (Map.Entry<String, PerServerStats> entry : perServerStatsMap.entrySet()) {
       _perServerStatsMap.putIfAbsent(entry.getKey(), entry.getValue());
     }
+    _numFailedServers.addAndGet(other.getNumFailedServers());
   }
 
   private Map<String, PerServerStats> getPerServerStatMap() {
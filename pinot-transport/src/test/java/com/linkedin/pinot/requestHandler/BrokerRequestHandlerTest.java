@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.query.ReduceService;
+import com.linkedin.pinot.common.query.ReduceServiceRegistry;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.InstanceResponse;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.routing.RoutingTable;
+import com.linkedin.pinot.routing.RoutingTableLookupRequest;
+import com.linkedin.pinot.transport.common.CompositeFuture;
+import com.linkedin.pinot.transport.common.CompositeFuture.GatherModeOnError;
+import com.linkedin.pinot.transport.common.KeyedFuture;
+import com.linkedin.pinot.transport.common.SegmentId;
+import com.linkedin.pinot.transport.common.SegmentIdSet;
+import com.linkedin.pinot.transport.netty.NettyClientConnection.ResponseFuture;
+import com.linkedin.pinot.transport.scattergather.ScatterGather;
+import com.linkedin.pinot.transport.scattergather.ScatterGatherRequest;
+import com.linkedin.pinot.transport.scattergather.ScatterGatherStats;
+import com.yammer.metrics.core.MetricsRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class BrokerRequestHandlerTest {
+  private static final ServerInstance SERVER_1 = new ServerInstance("localhost", 9000);
+  private static final ServerInstance SERVER_2 = new ServerInstance("localhost", 9001);
+
+  @Test
+  public void testResultCache() throws Exception {
+    BrokerResultCache cache = new BrokerResultCache(10, 1024 * 1024, 60000L, Collections.<String, Long>emptyMap());
+    StubReduceService reduceService = new StubReduceService();
+    BrokerRequestHandler handler = buildRequestHandler(new StubScatterGather(null), reduceService, cache);
+
+    handler.handleRequest(new JSONObject().put("pql", "select count(*) from myTable"));
+    Assert.assertEquals(reduceService._instanceResponseMap.size(), 2);
+    Assert.assertEquals(cache.size(), 1);
+  }
+
+  @Test
+  public void testPartialResultsNotCached() throws Exception {
+    BrokerResultCache cache = new BrokerResultCache(10, 1024 * 1024, 60000L, Collections.<String, Long>emptyMap());
+    StubReduceService reduceService = new StubReduceService();
+    BrokerRequestHandler handler = buildRequestHandler(new StubScatterGather(SERVER_2), reduceService, cache);
+
+    handler.handleRequest(new JSONObject().put("pql", "select count(*) from myTable"));
+
+    // The failed server is handed to the reducer as an exception, and the result is not cached even though the
+    // reducer does not report it.
+    Assert.assertEquals(reduceService._instanceResponseMap.size(), 2);
+    DataTable failedResponse = reduceService._instanceResponseMap.get(SERVER_2);
+    Assert.assertNull(failedResponse.getDataSchema());
+    boolean hasException = false;
+    for (String key : failedResponse.getMetadata().keySet()) {
+      hasException |= key.startsWith(DataTable.EXCEPTION_METADATA_KEY);
+    }
+    Assert.assertTrue(hasException);
+    Assert.assertEquals(cache.size(), 0);
+  }
+
+  private static BrokerRequestHandler buildRequestHandler(ScatterGather scatterGather,
+      ReduceService<BrokerResponseNative> reduceService, BrokerResultCache cache) {
+    ReduceServiceRegistry reduceServiceRegistry = new ReduceServiceRegistry();
+    reduceServiceRegistry.registerDefault(reduceService);
+    return new BrokerRequestHandler(new StubRoutingTable(), null, scatterGather, reduceServiceRegistry,
+        new BrokerMetrics(new MetricsRegistry()), 10000L, cache);
+  }
+
+  private static class StubRoutingTable implements RoutingTable {
+    @Override
+    public Map<ServerInstance, SegmentIdSet> findServers(RoutingTableLookupRequest request) {
+      if (!request.getTableName().equals("myTable_OFFLINE")) {
+        return null;
+      }
+      Map<ServerInstance, SegmentIdSet> segmentServices = new HashMap<ServerInstance, SegmentIdSet>();
+      segmentServices.put(SERVER_1, buildSegmentIdSet("segment1"));
+      segmentServices.put(SERVER_2, buildSegmentIdSet("segment2"));
+      return segmentServices;
+    }
+
+    @Override
+    public ServerInstance findReplicaServer(String tableName, ServerInstance server, SegmentIdSet segments) {
+      return null;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public String dumpSnapshot(String tableName) throws Exception {
+      return "";
+    }
+
+    private static SegmentIdSet buildSegmentIdSet(String segmentName) {
+      SegmentIdSet segmentIdSet = new SegmentIdSet();
+      segmentIdSet.addSegment(new SegmentId(segmentName));
+      return segmentIdSet;
+    }
+  }
+
+  /**
+   * Responds with an empty DataTable for every server, except for the failed server if any.
+   */
+  private static class StubScatterGather implements ScatterGather {
+    private final ServerInstance _failedServer;
+
+    private StubScatterGather(ServerInstance failedServer) {
+      _failedServer = failedServer;
+    }
+
+    @Override
+    public CompositeFuture<ServerInstance, ByteBuf> scatterGather(ScatterGatherRequest scatterRequest,
+        ScatterGatherStats scatterGatherStats, BrokerMetrics brokerMetrics) throws InterruptedException {
+      List<KeyedFuture<ServerInstance, ByteBuf>> responseFutures = new ArrayList<KeyedFuture<ServerInstance, ByteBuf>>();
+      for (ServerInstance server : scatterRequest.getSegmentsServicesMap().keySet()) {
+        if (server.equals(_failedServer)) {
+          responseFutures.add(new ResponseFuture(server, new RuntimeException("Server failure"), "test"));
+        } else {
+          ResponseFuture responseFuture = new ResponseFuture(server, "test");
+          try {
+            responseFuture.onSuccess(Unpooled.wrappedBuffer(new DataTable(new HashMap<String, String>()).toBytes()));
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+          responseFutures.add(responseFuture);
+        }
+      }
+      CompositeFuture<ServerInstance, ByteBuf> response =
+          new CompositeFuture<ServerInstance, ByteBuf>("test", GatherModeOnError.AND);
+      response.start(responseFutures);
+      return response;
+    }
+  }
+
+  /**
+   * Records the DataTables to reduce, and returns an empty response without any exception.
+   */
+  private static class StubReduceService implements ReduceService<BrokerResponseNative> {
+    private Map<ServerInstance, DataTable> _instanceResponseMap;
+
+    @Override
+    public BrokerResponseNative reduce(BrokerRequest brokerRequest,
+        Map<ServerInstance, InstanceResponse> instanceResponseMap) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BrokerResponseNative reduceOnDataTable(BrokerRequest brokerRequest,
+        Map<ServerInstance, DataTable> instanceResponseMap) {
+      _instanceResponseMap = new HashMap<ServerInstance, DataTable>(instanceResponseMap);
+      return new BrokerResponseNative();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class BrokerResultCacheTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+
+  @Test
+  public void testKeyNormalization() {
+    BrokerResultCache cache = new BrokerResultCache(10, 1024 * 1024, 60000L, Collections.<String, Long>emptyMap());
+
+    BrokerRequest request = COMPILER.compileToBrokerRequest("select count(*) from myTable where foo = 'bar'");
+    BrokerRequest sameRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*)   FROM myTable WHERE foo='bar'");
+    sameRequest.setEnableTrace(true);
+    BrokerRequest otherRequest = COMPILER.compileToBrokerRequest("select count(*) from myTable where foo = 'baz'");
+
+    Assert.assertEquals(cache.getKey(request), cache.getKey(sameRequest));
+    Assert.assertEquals(cache.getKey(request).hashCode(), cache.getKey(sameRequest).hashCode());
+    Assert.assertFalse(cache.getKey(request).equals(cache.getKey(otherRequest)));
+
+    String nestedFilterPql = "select sum(metric) from myTable where (a = 1 or b = 2) and c between 3 and 4";
+    Assert.assertEquals(getKey(cache, nestedFilterPql), getKey(cache, nestedFilterPql));
+  }
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    BrokerResultCache cache = new BrokerResultCache(10, 1024 * 1024, 60000L, Collections.<String, Long>emptyMap());
+    BrokerResultCache.Key key = cache.getKey(COMPILER.compileToBrokerRequest("select count(*) from myTable"));
+    Assert.assertNull(cache.get(key));
+
+    BrokerResponseNative response = buildResponse(123L);
+    cache.put(key, cache.getTableVersion(key), response);
+    BrokerResponse cachedResponse = cache.get(key);
+    Assert.assertNotNull(cachedResponse);
+    Assert.assertNotSame(cachedResponse, response);
+    Assert.assertEquals(cachedResponse.getNumDocsScanned(), 123L);
+
+    // Responses with exceptions are not cached
+    BrokerResultCache.Key otherKey = cache.getKey(COMPILER.compileToBrokerRequest("select count(*) from otherTable"));
+    BrokerResponseNative failedResponse = buildResponse(1L);
+    failedResponse.setExceptions(Collections.singletonList(QueryException.BROKER_TIMEOUT_ERROR));
+    cache.put(otherKey, cache.getTableVersion(otherKey), failedResponse);
+    Assert.assertNull(cache.get(otherKey));
+    Assert.assertEquals(cache.size(), 1);
+  }
+
+  @Test
+  public void testInvalidation() throws Exception {
+    BrokerResultCache cache = new BrokerResultCache(10, 1024 * 1024, 60000L, Collections.<String, Long>emptyMap());
+    BrokerResultCache.Key key = cache.getKey(COMPILER.compileToBrokerRequest("select count(*) from myTable"));
+    BrokerResultCache.Key otherKey = cache.getKey(COMPILER.compileToBrokerRequest("select count(*) from otherTable"));
+    cache.put(key, cache.getTableVersion(key), buildResponse(1L));
+    cache.put(otherKey, cache.getTableVersion(otherKey), buildResponse(2L));
+
+    long staleVersion = cache.getTableVersion(key);
+    cache.onRoutingTableChange("myTable_OFFLINE");
+    Assert.assertNull(cache.get(key));
+    Assert.assertNotNull(cache.get(otherKey));
+
+    // Responses computed before the routing change are not cached
+    cache.put(key, staleVersion, buildResponse(1L));
+    Assert.assertNull(cache.get(key));
+    cache.put(key, cache.getTableVersion(key), buildResponse(1L));
+    Assert.assertNotNull(cache.get(key));
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    BrokerResultCache cache = new BrokerResultCache(2, 1024 * 1024, 60000L, Collections.<String, Long>emptyMap());
+    BrokerResultCache.Key key1 = getKey(cache, "select count(*) from myTable where a = 1");
+    BrokerResultCache.Key key2 = getKey(cache, "select count(*) from myTable where a = 2");
+    BrokerResultCache.Key key3 = getKey(cache, "select count(*) from myTable where a = 3");
+    cache.put(key1, 0L, buildResponse(1L));
+    cache.put(key2, 0L, buildResponse(2L));
+    // Access key1 so that key2 is the least recently used
+    Assert.assertNotNull(cache.get(key1));
+    cache.put(key3, 0L, buildResponse(3L));
+    Assert.assertEquals(cache.size(), 2);
+    Assert.assertNotNull(cache.get(key1));
+    Assert.assertNull(cache.get(key2));
+    Assert.assertNotNull(cache.get(key3));
+
+    // Byte limit
+    long entrySize = cache.getSizeInBytes() / 2;
+    cache = new BrokerResultCache(10, entrySize * 2 + entrySize / 2, 60000L, Collections.<String, Long>emptyMap());
+    cache.put(key1, 0L, buildResponse(1L));
+    cache.put(key2, 0L, buildResponse(2L));
+    cache.put(key3, 0L, buildResponse(3L));
+    Assert.assertEquals(cache.size(), 2);
+    Assert.assertTrue(cache.getSizeInBytes() <= entrySize * 2 + entrySize / 2);
+    Assert.assertNull(cache.get(key1));
+  }
+
+  @Test
+  public void testTtl() throws Exception {
+    Map<String, Long> tableTtlMsMap = new HashMap<>();
+    tableTtlMsMap.put("uncachedTable", 0L);
+    tableTtlMsMap.put("shortTtlTable", 1L);
+    BrokerResultCache cache = new BrokerResultCache(10, 1024 * 1024, 60000L, tableTtlMsMap);
+
+    Assert.assertNull(cache.getKey(COMPILER.compileToBrokerRequest("select count(*) from uncachedTable")));
+
+    BrokerResultCache.Key key = cache.getKey(COMPILER.compileToBrokerRequest("select count(*) from shortTtlTable"));
+    cache.put(key, 0L, buildResponse(1L));
+    Thread.sleep(10L);
+    Assert.assertNull(cache.get(key));
+    Assert.assertEquals(cache.size(), 0);
+  }
+
+  private static BrokerResultCache.Key getKey(BrokerResultCache cache, String pql) {
+    return cache.getKey(COMPILER.compileToBrokerRequest(pql));
+  }
+
+  private static BrokerResponseNative buildResponse(long numDocsScanned) {
+    BrokerResponseNative response = new BrokerResponseNative();
+    response.setNumDocsScanned(numDocsScanned);
+    response.setTotalDocs(1000L);
+    return response;
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import com.linkedin.pinot.transport.common.AsyncResponseFuture;
+import com.linkedin.pinot.transport.common.HedgedFuture;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class HedgingPolicyTest {
+  private static final String TABLE_NAME = "myTable_OFFLINE";
+
+  @Test
+  public void testHedgeDelay() {
+    HedgingPolicy hedgingPolicy = new HedgingPolicy(90, Collections.<String, Double>emptyMap(), 5L, 100);
+
+    // No hedging until enough response times are recorded
+    List<Long> responseTimes = new ArrayList<>();
+    for (long i = 1; i <= 50; i++) {
+      responseTimes.add(i);
+    }
+    hedgingPolicy.recordResponseTimes(TABLE_NAME, responseTimes);
+    Assert.assertEquals(hedgingPolicy.getHedgeDelayMs(TABLE_NAME), -1L);
+
+    responseTimes.clear();
+    for (long i = 51; i <= 128; i++) {
+      responseTimes.add(i);
+    }
+    hedgingPolicy.recordResponseTimes(TABLE_NAME, responseTimes);
+    // Last 100 response times are 29 to 128, the 90th percentile is 118
+    Assert.assertEquals(hedgingPolicy.getHedgeDelayMs(TABLE_NAME), 118L);
+    Assert.assertEquals(hedgingPolicy.getHedgeDelayMs("otherTable_OFFLINE"), -1L);
+
+    // Min delay
+    responseTimes.clear();
+    for (int i = 0; i < 128; i++) {
+      responseTimes.add(1L);
+    }
+    hedgingPolicy.recordResponseTimes(TABLE_NAME, responseTimes);
+    Assert.assertEquals(hedgingPolicy.getHedgeDelayMs(TABLE_NAME), 5L);
+  }
+
+  @Test
+  public void testHedgeDelayWithHedgeWinners() {
+    HedgingPolicy hedgingPolicy = new HedgingPolicy(95, Collections.<String, Double>emptyMap(), 5L, 100);
+
+    // 95th percentile of the last 100 response times is 200
+    List<Long> responseTimes = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      responseTimes.add(10L);
+    }
+    for (int i = 0; i < 8; i++) {
+      responseTimes.add(200L);
+    }
+    hedgingPolicy.recordResponseTimes(TABLE_NAME, responseTimes);
+    Assert.assertEquals(hedgingPolicy.getHedgeDelayMs(TABLE_NAME), 200L);
+
+    // The slow requests keep getting hedged and the hedges respond first, their cancelled original requests still
+    // count at least the hedge delay so that the delay does not drift down
+    for (int round = 0; round < 10; round++) {
+      long hedgeDelayMs = hedgingPolicy.getHedgeDelayMs(TABLE_NAME);
+      responseTimes.clear();
+      for (int i = 0; i < 60; i++) {
+        responseTimes.add(10L);
+      }
+      for (int i = 0; i < 4; i++) {
+        AsyncResponseFuture<String, String> original = new AsyncResponseFuture<String, String>("server_0", "");
+        AsyncResponseFuture<String, String> hedge = new AsyncResponseFuture<String, String>("server_1", "");
+        HedgedFuture<String, String> hedgedFuture =
+            new HedgedFuture<String, String>("server_0", original, hedgeDelayMs, "");
+        Assert.assertTrue(hedgedFuture.hedge(hedge));
+        hedge.onSuccess("hedge");
+        Assert.assertTrue(hedgedFuture.isHedgeWinner());
+        responseTimes.add(hedgedFuture.getOriginalDurationMillis());
+      }
+      hedgingPolicy.recordResponseTimes(TABLE_NAME, responseTimes);
+      Assert.assertTrue(hedgingPolicy.getHedgeDelayMs(TABLE_NAME) >= 200L);
+    }
+  }
+
+  @Test
+  public void testTablePercentile() {
+    HedgingPolicy hedgingPolicy = new HedgingPolicy(90, Collections.singletonMap("myTable", 0.0), 5L, 64);
+    List<Long> responseTimes = new ArrayList<>();
+    for (long i = 1; i <= 128; i++) {
+      responseTimes.add(i);
+    }
+    hedgingPolicy.recordResponseTimes(TABLE_NAME, responseTimes);
+    hedgingPolicy.recordResponseTimes("otherTable_OFFLINE", responseTimes);
+    Assert.assertEquals(hedgingPolicy.getHedgeDelayMs(TABLE_NAME), -1L);
+    Assert.assertTrue(hedgingPolicy.getHedgeDelayMs("otherTable_OFFLINE") > 0);
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.QuerySource;
+import com.linkedin.pinot.transport.netty.CompressedFrame;
+import com.linkedin.pinot.transport.netty.CompressionCodec;
+import java.util.HashMap;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ResponseCompressionPolicyTest {
+
+  @Test
+  public void testTableCodec() {
+    Map<String, CompressionCodec> tableCodecMap = new HashMap<>();
+    tableCodecMap.put("snappyTable", CompressionCodec.SNAPPY);
+    tableCodecMap.put("uncompressedTable", null);
+    ResponseCompressionPolicy policy = new ResponseCompressionPolicy(CompressionCodec.LZ4, tableCodecMap, 1024);
+
+    Assert.assertEquals(policy.getCodec("myTable_OFFLINE"), CompressionCodec.LZ4);
+    Assert.assertEquals(policy.getCodec("snappyTable_REALTIME"), CompressionCodec.SNAPPY);
+    Assert.assertNull(policy.getCodec("uncompressedTable_OFFLINE"));
+
+    BrokerRequest request = buildRequest("snappyTable_OFFLINE");
+    policy.setQueryOptions(request);
+    Assert.assertEquals(request.getQueryOptions().get(CompressedFrame.CODEC_OPTION), "SNAPPY");
+    Assert.assertEquals(request.getQueryOptions().get(CompressedFrame.THRESHOLD_BYTES_OPTION), "1024");
+
+    request = buildRequest("uncompressedTable_OFFLINE");
+    policy.setQueryOptions(request);
+    Assert.assertFalse(request.isSetQueryOptions());
+  }
+
+  private static BrokerRequest buildRequest(String tableName) {
+    BrokerRequest request = new BrokerRequest();
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName(tableName);
+    request.setQuerySource(querySource);
+    return request;
+  }
+}
@@ -584,6 +584,49 @@ public class CompositeFutureTest {
     }
   }
 
+  @Test
+  /**
+   * Keys are handed out in the order in which their responses or errors arrived, followed by null once all the
+   * underlying futures are done.
+   */
+  public void testTakeNextCompletedKey() throws Exception {
+    int numFutures = 10;
+    Map<String, KeyedFuture<String, String>> futureMap = new HashMap<String, KeyedFuture<String, String>>();
+    for (int i = 0; i < numFutures; i++) {
+      String key = "key_" + i;
+      futureMap.put(key, new AsyncResponseFuture<String, String>(key, ""));
+    }
+    CompositeFuture<String, String> compositeFuture = new CompositeFuture<String, String>("test", GatherModeOnError.AND);
+    compositeFuture.start(futureMap.values());
+
+    // Nothing has arrived yet
+    Assert.assertNull(compositeFuture.takeNextCompletedKey(10, TimeUnit.MILLISECONDS));
+    Assert.assertEquals(compositeFuture.getPendingFutureNames().size(), numFutures);
+
+    for (int i = numFutures - 1; i >= 0; i--) {
+      String key = "key_" + i;
+      AsyncResponseFuture<String, String> future = (AsyncResponseFuture<String, String>) futureMap.get(key);
+      if (i % 2 == 0) {
+        future.onSuccess("message_" + i);
+      } else {
+        future.onError(new Exception("error_" + i));
+      }
+      Assert.assertEquals(compositeFuture.takeNextCompletedKey(1, TimeUnit.SECONDS), key);
+      if (i % 2 == 0) {
+        Assert.assertEquals(compositeFuture.getResponse(key), "message_" + i);
+      } else {
+        Assert.assertNull(compositeFuture.getResponse(key));
+        Assert.assertNotNull(compositeFuture.getError().get(key));
+      }
+    }
+
+    // All futures are done, so repeated calls return null without waiting
+    Assert.assertNull(compositeFuture.takeNextCompletedKey(1, TimeUnit.DAYS));
+    Assert.assertNull(compositeFuture.takeNextCompletedKey(1, TimeUnit.DAYS));
+    Assert.assertTrue(compositeFuture.getPendingFutureNames().isEmpty());
+    Assert.assertTrue(compositeFuture.isDone());
+  }
+
   /**
    * Same class used both as a listener and the one that blocks on get().
    */
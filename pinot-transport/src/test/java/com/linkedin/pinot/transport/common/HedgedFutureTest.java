@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class HedgedFutureTest {
+
+  @Test
+  public void testOriginalWins() throws Exception {
+    AsyncResponseFuture<String, String> original = new AsyncResponseFuture<String, String>("server_0", "");
+    AsyncResponseFuture<String, String> hedge = new AsyncResponseFuture<String, String>("server_1", "");
+    HedgedFuture<String, String> hedgedFuture = new HedgedFuture<String, String>("server_0", original, "");
+    Assert.assertTrue(hedgedFuture.hedge(hedge));
+    Assert.assertTrue(hedgedFuture.isHedged());
+
+    original.onSuccess("original");
+    Assert.assertTrue(hedgedFuture.isDone());
+    Assert.assertEquals(hedgedFuture.getOne(), "original");
+    Assert.assertFalse(hedgedFuture.isHedgeWinner());
+    Assert.assertTrue(hedge.isCancelled(), "Hedged request cancelled");
+    Assert.assertEquals(hedgedFuture.getOriginalDurationMillis(), original.getDurationMillis());
+    // Keyed on the original server
+    Assert.assertEquals(hedgedFuture.get().keySet().iterator().next(), "server_0");
+  }
+
+  @Test
+  public void testHedgeWins() throws Exception {
+    AsyncResponseFuture<String, String> original = new AsyncResponseFuture<String, String>("server_0", "");
+    AsyncResponseFuture<String, String> hedge = new AsyncResponseFuture<String, String>("server_1", "");
+    HedgedFuture<String, String> hedgedFuture = new HedgedFuture<String, String>("server_0", original, 50L, "");
+    Assert.assertTrue(hedgedFuture.hedge(hedge));
+
+    hedge.onSuccess("hedge");
+    Assert.assertEquals(hedgedFuture.getOne(), "hedge");
+    Assert.assertTrue(hedgedFuture.isHedgeWinner());
+    Assert.assertTrue(original.isCancelled(), "Original request cancelled");
+    // The original request did not complete, so its response time is at least the hedge delay
+    Assert.assertTrue(hedgedFuture.getOriginalDurationMillis() >= 50L);
+    Assert.assertEquals(hedgedFuture.get().keySet().iterator().next(), "server_0");
+  }
+
+  @Test
+  public void testErrors() throws Exception {
+    // Error of the original request is ignored while the hedged request is pending
+    AsyncResponseFuture<String, String> original = new AsyncResponseFuture<String, String>("server_0", "");
+    AsyncResponseFuture<String, String> hedge = new AsyncResponseFuture<String, String>("server_1", "");
+    HedgedFuture<String, String> hedgedFuture = new HedgedFuture<String, String>("server_0", original, "");
+    Assert.assertTrue(hedgedFuture.hedge(hedge));
+    original.onError(new Exception("original"));
+    Assert.assertFalse(hedgedFuture.isDone());
+    hedge.onSuccess("hedge");
+    Assert.assertEquals(hedgedFuture.getOne(), "hedge");
+    Assert.assertNull(hedgedFuture.getError());
+
+    // Fails once all requests fail
+    original = new AsyncResponseFuture<String, String>("server_0", "");
+    hedge = new AsyncResponseFuture<String, String>("server_1", "");
+    hedgedFuture = new HedgedFuture<String, String>("server_0", original, "");
+    Assert.assertTrue(hedgedFuture.hedge(hedge));
+    original.onError(new Exception("original"));
+    hedge.onError(new Exception("hedge"));
+    Assert.assertTrue(hedgedFuture.isDone());
+    Assert.assertNull(hedgedFuture.getOne());
+    Assert.assertEquals(hedgedFuture.getError().get("server_0").getMessage(), "hedge");
+
+    // No hedge once the future is done
+    original = new AsyncResponseFuture<String, String>("server_0", "");
+    hedgedFuture = new HedgedFuture<String, String>("server_0", original, "");
+    original.onError(new Exception("original"));
+    Assert.assertTrue(hedgedFuture.isDone());
+    Assert.assertFalse(hedgedFuture.hedge(new AsyncResponseFuture<String, String>("server_1", "")));
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    AsyncResponseFuture<String, String> original = new AsyncResponseFuture<String, String>("server_0", "");
+    AsyncResponseFuture<String, String> hedge = new AsyncResponseFuture<String, String>("server_1", "");
+    HedgedFuture<String, String> hedgedFuture = new HedgedFuture<String, String>("server_0", original, "");
+    Assert.assertTrue(hedgedFuture.hedge(hedge));
+
+    Assert.assertTrue(hedgedFuture.cancel(true));
+    Assert.assertTrue(hedgedFuture.isCancelled());
+    Assert.assertTrue(original.isCancelled());
+    Assert.assertTrue(hedge.isCancelled());
+  }
+}
@@ -61,6 +61,52 @@ public class ReplicaSelectionTest {
 
   }
 
+  @Test
+  public void testLatencyAwareSelection() {
+    LatencyAwareReplicaSelection sel1 = new LatencyAwareReplicaSelection(0.5, 1000L, 3600000L);
+
+    ServerInstance s1 = new ServerInstance("localhost", 8080);
+    ServerInstance s2 = new ServerInstance("localhost", 8081);
+    ServerInstance s3 = new ServerInstance("localhost", 8082);
+
+    // Verify for an empty list, selectServer returns null
+    List<ServerInstance> candidates = new ArrayList<ServerInstance>();
+    Assert.assertNull(sel1.selectServer(new SegmentId("1"), candidates, null));
+    candidates.add(s1);
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s1);
+
+    // With two replicas, the one with lower latency is always picked
+    candidates.add(s2);
+    sel1.onRequestSent(s1);
+    sel1.onRequestCompleted(s1, 500L, false);
+    sel1.onRequestSent(s2);
+    sel1.onRequestCompleted(s2, 10L, false);
+    Assert.assertEquals(sel1.getNumInFlightRequests(s1), 0);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s2);
+    }
+
+    // Errors are penalized
+    sel1.onRequestSent(s2);
+    sel1.onRequestCompleted(s2, 1L, true);
+    Assert.assertTrue(sel1.getLatencyEwmaMs(s2) > sel1.getLatencyEwmaMs(s1));
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s1);
+
+    // In-flight requests add to the load
+    sel1.onRequestSent(s1);
+    sel1.onRequestSent(s1);
+    Assert.assertEquals(sel1.getNumInFlightRequests(s1), 2);
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s2);
+
+    // The slowest of three replicas is never picked
+    candidates.add(s3);
+    sel1.onRequestSent(s3);
+    sel1.onRequestCompleted(s3, 100000L, false);
+    for (int i = 0; i < 100; i++) {
+      Assert.assertFalse(sel1.selectServer(new SegmentId("1"), candidates, null).equals(s3));
+    }
+  }
+
   @Test
   public void testHashBasedSelection() {
     ReplicaSelection sel1 = new HashReplicaSelection();
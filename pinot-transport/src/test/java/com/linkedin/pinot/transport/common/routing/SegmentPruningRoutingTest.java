@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.common.routing;
+
+import com.linkedin.pinot.common.config.AbstractTableConfig;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.metadata.ZKMetadataProvider;
+import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.segment.ColumnValueRange;
+import com.linkedin.pinot.common.utils.CommonConstants.Segment.SegmentType;
+import com.linkedin.pinot.common.utils.StringUtil;
+import com.linkedin.pinot.common.utils.ZkStarter;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import com.linkedin.pinot.routing.HelixExternalViewBasedRouting;
+import com.linkedin.pinot.routing.RoutingTableLookupRequest;
+import com.linkedin.pinot.transport.common.SegmentIdSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang.StringUtils;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.manager.zk.ZNRecordSerializer;
+import org.apache.helix.manager.zk.ZkBaseDataAccessor;
+import org.apache.helix.manager.zk.ZkClient;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Test for the broker side pruning of segments on their ZK metadata.
+ */
+public class SegmentPruningRoutingTest {
+  private static final String TABLE_NAME = "myTable_OFFLINE";
+  private static final String SERVER_0 = "Server_localhost_1000";
+  private static final String SERVER_1 = "Server_localhost_1001";
+
+  private final Pql2Compiler _compiler = new Pql2Compiler();
+  private ZkClient _zkClient;
+  private ZkHelixPropertyStore<ZNRecord> _propertyStore;
+  private ZkStarter.ZookeeperInstance _zookeeperInstance;
+  private HelixExternalViewBasedRouting _routingTable;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    _zookeeperInstance = ZkStarter.startLocalZkServer();
+    _zkClient = new ZkClient(StringUtil.join("/", StringUtils.chomp(ZkStarter.DEFAULT_ZK_STR, "/")),
+        ZkClient.DEFAULT_SESSION_TIMEOUT, ZkClient.DEFAULT_CONNECTION_TIMEOUT, new ZNRecordSerializer());
+    String helixClusterName = "TestSegmentPruningRouting";
+    _zkClient.deleteRecursive("/" + helixClusterName + "/PROPERTYSTORE");
+    _zkClient.createPersistent("/" + helixClusterName + "/PROPERTYSTORE", true);
+    _propertyStore = new ZkHelixPropertyStore<ZNRecord>(new ZkBaseDataAccessor<ZNRecord>(_zkClient),
+        "/" + helixClusterName + "/PROPERTYSTORE", null);
+
+    addTableToPropertyStore();
+    // Segments 0 and 1 on server 0, segments 2 and 3 on server 1, each covering 10 days
+    ExternalView externalView = new ExternalView(TABLE_NAME);
+    for (int i = 0; i < 4; i++) {
+      OfflineSegmentZKMetadata segmentZKMetadata = new OfflineSegmentZKMetadata();
+      segmentZKMetadata.setSegmentName("segment" + i);
+      segmentZKMetadata.setTableName(TABLE_NAME);
+      segmentZKMetadata.setSegmentType(SegmentType.OFFLINE);
+      segmentZKMetadata.setTimeUnit(TimeUnit.DAYS);
+      segmentZKMetadata.setStartTime(i * 10);
+      segmentZKMetadata.setEndTime(i * 10 + 9);
+      segmentZKMetadata.setIndexVersion("0");
+      if (i == 0) {
+        segmentZKMetadata.setColumnValueRanges(
+            Collections.singletonMap("column1", ColumnValueRange.fromStrings(DataType.INT, "0", "100")));
+      }
+      ZKMetadataProvider.setOfflineSegmentZKMetadata(_propertyStore, segmentZKMetadata);
+      externalView.setState("segment" + i, (i < 2) ? SERVER_0 : SERVER_1, "ONLINE");
+    }
+
+    List<InstanceConfig> instanceConfigs = new ArrayList<>();
+    instanceConfigs.add(new InstanceConfig(SERVER_0));
+    instanceConfigs.add(new InstanceConfig(SERVER_1));
+    _routingTable = new HelixExternalViewBasedRouting(null, null, null, _propertyStore);
+    _routingTable.markDataResourceOnline(TABLE_NAME, externalView, instanceConfigs);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _zkClient.close();
+    ZkStarter.stopLocalZkServer(_zookeeperInstance);
+  }
+
+  @Test
+  public void testPruneOnTime() {
+    Map<String, List<String>> routing = findServers("select count(*) from myTable where timestamp between 10 and 19");
+    Assert.assertEquals(routing.size(), 1);
+    Assert.assertEquals(routing.get("localhost_1000"), Collections.singletonList("segment1"));
+
+    routing = findServers("select count(*) from myTable where timestamp >= 20");
+    Assert.assertEquals(routing.size(), 1);
+    Assert.assertEquals(routing.get("localhost_1001").size(), 2);
+
+    routing = findServers("select count(*) from myTable where timestamp < 5 or timestamp = 35");
+    Assert.assertEquals(routing.size(), 2);
+    Assert.assertEquals(routing.get("localhost_1000"), Collections.singletonList("segment0"));
+    Assert.assertEquals(routing.get("localhost_1001"), Collections.singletonList("segment3"));
+  }
+
+  @Test
+  public void testPruneOnColumnValueRange() {
+    // Only segment 0 has a value range for column1, the other segments can not be pruned
+    Map<String, List<String>> routing = findServers("select count(*) from myTable where column1 = 500");
+    Assert.assertEquals(routing.get("localhost_1000"), Collections.singletonList("segment1"));
+    Assert.assertEquals(routing.get("localhost_1001").size(), 2);
+
+    routing = findServers("select count(*) from myTable where column1 in (50, 500)");
+    Assert.assertEquals(routing.get("localhost_1000").size(), 2);
+  }
+
+  @Test
+  public void testNoPruning() {
+    Map<String, List<String>> routing = findServers("select count(*) from myTable");
+    Assert.assertEquals(routing.get("localhost_1000").size(), 2);
+    Assert.assertEquals(routing.get("localhost_1001").size(), 2);
+
+    // One segment is kept when all of them are pruned
+    routing = findServers("select count(*) from myTable where timestamp > 1000");
+    Assert.assertEquals(routing.size(), 1);
+    Assert.assertEquals(routing.values().iterator().next().size(), 1);
+  }
+
+  @Test
+  public void testReloadOnSegmentRefresh() throws Exception {
+    String query = "select count(*) from myTable where column1 = 500";
+    Assert.assertEquals(findServers(query).get("localhost_1001").size(), 2);
+
+    // Refreshing segment 3 with a value range for column1 gets it pruned, without any external view change
+    OfflineSegmentZKMetadata segmentZKMetadata =
+        ZKMetadataProvider.getOfflineSegmentZKMetadata(_propertyStore, TABLE_NAME, "segment3");
+    segmentZKMetadata.setColumnValueRanges(
+        Collections.singletonMap("column1", ColumnValueRange.fromStrings(DataType.INT, "0", "100")));
+    ZKMetadataProvider.setOfflineSegmentZKMetadata(_propertyStore, segmentZKMetadata);
+    ZKMetadataProvider.notifyOfflineSegmentRefresh(_propertyStore, TABLE_NAME, "segment3");
+    Assert.assertTrue(waitForNumSegments(query, "localhost_1001", 1));
+    Assert.assertEquals(findServers(query).get("localhost_1001"), Collections.singletonList("segment2"));
+
+    // Refreshing it back without value range stops the pruning
+    segmentZKMetadata.setColumnValueRanges(Collections.<String, ColumnValueRange>emptyMap());
+    ZKMetadataProvider.setOfflineSegmentZKMetadata(_propertyStore, segmentZKMetadata);
+    ZKMetadataProvider.notifyOfflineSegmentRefresh(_propertyStore, TABLE_NAME, "segment3");
+    Assert.assertTrue(waitForNumSegments(query, "localhost_1001", 2));
+  }
+
+  private boolean waitForNumSegments(String query, String server, int numSegments) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000L;
+    while (System.currentTimeMillis() < deadline) {
+      List<String> segments = findServers(query).get(server);
+      if (segments != null && segments.size() == numSegments) {
+        return true;
+      }
+      Thread.sleep(50L);
+    }
+    return false;
+  }
+
+  private Map<String, List<String>> findServers(String query) {
+    RoutingTableLookupRequest request =
+        new RoutingTableLookupRequest(TABLE_NAME, _compiler.compileToBrokerRequest(query));
+    Map<String, List<String>> routing = new HashMap<>();
+    for (Map.Entry<ServerInstance, SegmentIdSet> entry : _routingTable.findServers(request).entrySet()) {
+      List<String> segments = entry.getValue().getSegmentsNameList();
+      Collections.sort(segments);
+      routing.put(entry.getKey().getHostname() + "_" + entry.getKey().getPort(), segments);
+    }
+    return routing;
+  }
+
+  private void addTableToPropertyStore() throws Exception {
+    JSONObject offlineTableConfigJson = new JSONObject();
+    offlineTableConfigJson.put("tableName", "myTable");
+    JSONObject segmentsConfig = new JSONObject();
+    segmentsConfig.put("retentionTimeUnit", "DAYS");
+    segmentsConfig.put("retentionTimeValue", -1);
+    segmentsConfig.put("segmentPushFrequency", "daily");
+    segmentsConfig.put("segmentPushType", "APPEND");
+    segmentsConfig.put("replication", 1);
+    segmentsConfig.put("schemaName", "tableSchema");
+    segmentsConfig.put("timeColumnName", "timestamp");
+    segmentsConfig.put("timeType", "daysSinceEpoch");
+    segmentsConfig.put("segmentAssignmentStrategy", "");
+    offlineTableConfigJson.put("segmentsConfig", segmentsConfig);
+    JSONObject tableIndexConfig = new JSONObject();
+    tableIndexConfig.put("loadMode", "HEAP");
+    tableIndexConfig.put("lazyLoad", "false");
+    offlineTableConfigJson.put("tableIndexConfig", tableIndexConfig);
+    JSONObject tenants = new JSONObject();
+    tenants.put("broker", "brokerTenant");
+    tenants.put("server", "serverTenant");
+    offlineTableConfigJson.put("tenants", tenants);
+    offlineTableConfigJson.put("tableType", "OFFLINE");
+    offlineTableConfigJson.put("metadata", new JSONObject());
+    AbstractTableConfig offlineTableConfig = AbstractTableConfig.init(offlineTableConfigJson.toString());
+    ZKMetadataProvider.setOfflineTableConfig(_propertyStore, TABLE_NAME,
+        AbstractTableConfig.toZnRecord(offlineTableConfig));
+  }
+}
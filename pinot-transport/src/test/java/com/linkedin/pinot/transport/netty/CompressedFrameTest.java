@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
+import com.yammer.metrics.core.MetricsRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class CompressedFrameTest {
+  private static final int PAYLOAD_SIZE = 100000;
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    byte[] payload = buildCompressiblePayload();
+    for (CompressionCodec codec : CompressionCodec.values()) {
+      Assert.assertEquals(CompressionCodec.fromId(codec.getId()), codec);
+      Assert.assertEquals(CompressionCodec.fromName(codec.name().toLowerCase()), codec);
+
+      // Direct buffer in, as sent by the server
+      ByteBuf raw = PooledByteBufAllocator.DEFAULT.directBuffer(PAYLOAD_SIZE);
+      raw.writeBytes(payload);
+      ByteBuf frame = CompressedFrame.compress(raw, codec, PooledByteBufAllocator.DEFAULT);
+      Assert.assertEquals(raw.refCnt(), 0);
+      Assert.assertTrue(CompressedFrame.isCompressed(frame, frame.readerIndex()));
+      Assert.assertEquals(CompressedFrame.getRawLength(frame, frame.readerIndex()), PAYLOAD_SIZE);
+      Assert.assertTrue(frame.readableBytes() < PAYLOAD_SIZE / 2);
+
+      ByteBuf decompressed = CompressedFrame.decompress(frame, 0, UnpooledByteBufAllocator.DEFAULT);
+      Assert.assertEquals(toBytes(decompressed), payload);
+      frame.release();
+    }
+    Assert.assertNull(CompressionCodec.fromName("none"));
+    Assert.assertNull(CompressionCodec.fromName(null));
+  }
+
+  @Test
+  public void testIncompressiblePayload() throws Exception {
+    byte[] payload = new byte[PAYLOAD_SIZE];
+    new Random(0).nextBytes(payload);
+    for (CompressionCodec codec : CompressionCodec.values()) {
+      ByteBuf raw = Unpooled.wrappedBuffer(payload);
+      ByteBuf frame = CompressedFrame.compress(raw, codec, PooledByteBufAllocator.DEFAULT);
+      // Sent as is
+      Assert.assertSame(frame, raw);
+      Assert.assertEquals(frame.refCnt(), 1);
+      Assert.assertFalse(CompressedFrame.isCompressed(frame, frame.readerIndex()));
+    }
+  }
+
+  @Test
+  public void testDecompressionHandler() throws Exception {
+    byte[] payload = buildCompressiblePayload();
+    NettyClientMetrics metrics = new NettyClientMetrics(new MetricsRegistry(), "compressionTest_");
+    EmbeddedChannel channel = new EmbeddedChannel(new ResponseDecompressionHandler(metrics));
+
+    // Compressed multiplexed response keeps its header
+    ByteBuf frame =
+        CompressedFrame.compress(Unpooled.copiedBuffer(payload), CompressionCodec.LZ4, UnpooledByteBufAllocator.DEFAULT);
+    int compressedLength = frame.readableBytes();
+    channel.writeInbound(Unpooled.copiedBuffer(MultiplexedFrame.wrap(7L, frame)));
+    ByteBuf response = (ByteBuf) channel.readInbound();
+    Assert.assertTrue(MultiplexedFrame.isMultiplexed(response));
+    Assert.assertEquals(MultiplexedFrame.readRequestId(response), 7L);
+    Assert.assertEquals(toBytes(response), payload);
+    Assert.assertEquals(metrics.getCompressedBytesReceived().count(), compressedLength);
+    Assert.assertEquals(metrics.getUncompressedBytesReceived().count(), PAYLOAD_SIZE);
+
+    // Uncompressed response is passed on as is
+    ByteBuf uncompressed = Unpooled.copiedBuffer(payload);
+    channel.writeInbound(uncompressed);
+    Assert.assertSame(channel.readInbound(), uncompressed);
+    Assert.assertEquals(uncompressed.refCnt(), 1);
+    uncompressed.release();
+    Assert.assertEquals(metrics.getUncompressedBytesReceived().count(), PAYLOAD_SIZE);
+    channel.finish();
+  }
+
+  private static byte[] buildCompressiblePayload() {
+    byte[] payload = new byte[PAYLOAD_SIZE];
+    for (int i = 0; i < PAYLOAD_SIZE; i++) {
+      payload[i] = (byte) (i % 64);
+    }
+    return payload;
+  }
+
+  private static byte[] toBytes(ByteBuf buffer) {
+    byte[] bytes = new byte[buffer.readableBytes()];
+    buffer.readBytes(bytes);
+    buffer.release();
+    return bytes;
+  }
+}
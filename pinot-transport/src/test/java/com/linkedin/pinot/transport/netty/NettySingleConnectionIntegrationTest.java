@@ -15,7 +15,10 @@
  */
 package com.linkedin.pinot.transport.netty;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import java.lang.reflect.Field;
+import java.net.ConnectException;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -38,6 +41,7 @@ import com.linkedin.pinot.transport.common.NoneType;
 import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
 import com.linkedin.pinot.transport.metrics.PoolStats;
 import com.linkedin.pinot.transport.netty.NettyClientConnection.ResponseFuture;
+import com.linkedin.pinot.transport.netty.NettyServer.AsyncRequestHandler;
 import com.linkedin.pinot.transport.netty.NettyServer.RequestHandler;
 import com.linkedin.pinot.transport.netty.NettyServer.RequestHandlerFactory;
 import com.linkedin.pinot.transport.pool.AsyncPool;
@@ -97,6 +101,132 @@ public class NettySingleConnectionIntegrationTest {
     }
   }
 
+  @Test
+  /**
+   * Test a request processed outside of the netty worker thread
+   * @throws Exception
+   */
+  public void testAsyncRequestResponse() throws Exception {
+    NettyClientMetrics metric = new NettyClientMetrics(null, "abc");
+    Timer timer = new HashedWheelTimer();
+
+    MyServer server = new MyServer("dummy response", true);
+    Thread.sleep(1000);
+    EventLoopGroup eventLoopGroup = new NioEventLoopGroup();
+    NettyTCPClientConnection clientConn = new NettyTCPClientConnection(server.getServerInstance(), eventLoopGroup, timer, metric);
+    try {
+      Assert.assertTrue(clientConn.connect(), "connected");
+      String request = "dummy request";
+      ResponseFuture serverRespFuture = clientConn.sendRequest(Unpooled.wrappedBuffer(request.getBytes()), 1L, 5000L);
+      ByteBuf serverResp = serverRespFuture.getOne();
+      byte[] b2 = new byte[serverResp.readableBytes()];
+      serverResp.readBytes(b2);
+      Assert.assertEquals(new String(b2), server.getResponseStr(), "Response Check at client");
+      Assert.assertEquals(server.getHandler().getRequest(), request, "Request Check at server");
+    } finally {
+      clientConn.close();
+      server.shutdown();
+    }
+  }
+
+  @Test
+  /**
+   * Test many outstanding requests sharing a multiplexed connection, with responses sent out of order
+   * @throws Exception
+   */
+  public void testMultiplexedRequestResponse() throws Exception {
+    NettyClientMetrics metric = new NettyClientMetrics(null, "abc");
+    Timer timer = new HashedWheelTimer();
+
+    MyServer server = new MyServer("dummy response", new MyEchoRequestHandler());
+    Thread.sleep(1000);
+    EventLoopGroup eventLoopGroup = new NioEventLoopGroup();
+    NettyMultiplexedClientConnection clientConn =
+        new NettyMultiplexedClientConnection(server.getServerInstance(), eventLoopGroup, timer, metric);
+    try {
+      Assert.assertTrue(clientConn.connect(), "connected");
+      int numRequests = 20;
+      ResponseFuture[] serverRespFutures = new ResponseFuture[numRequests];
+      for (int i = 0; i < numRequests; i++) {
+        // Earlier requests take longer, so that responses come back in the reverse order
+        String request = (200 + (numRequests - i) * 20) + ":request " + i;
+        serverRespFutures[i] = clientConn.sendRequest(Unpooled.wrappedBuffer(request.getBytes()), i, 5000L);
+      }
+      Assert.assertEquals(clientConn.getNumPendingRequests(), numRequests);
+      for (int i = 0; i < numRequests; i++) {
+        ByteBuf serverResp = serverRespFutures[i].getOne();
+        byte[] b2 = new byte[serverResp.readableBytes()];
+        serverResp.readBytes(b2);
+        serverResp.release();
+        Assert.assertEquals(new String(b2), "response to request " + i, "Response Check at client");
+      }
+      Assert.assertEquals(clientConn.getNumPendingRequests(), 0);
+
+      // A timed out request fails alone, and the connection can still be used
+      ResponseFuture timedOutFuture =
+          clientConn.sendRequest(Unpooled.wrappedBuffer("1000:request slow".getBytes()), 100L, 100L);
+      Assert.assertNull(timedOutFuture.getOne());
+      Assert.assertNotNull(timedOutFuture.getError());
+      Assert.assertTrue(clientConn.validate());
+      ResponseFuture serverRespFuture =
+          clientConn.sendRequest(Unpooled.wrappedBuffer("0:request fast".getBytes()), 101L, 5000L);
+      ByteBuf serverResp = serverRespFuture.getOne();
+      byte[] b2 = new byte[serverResp.readableBytes()];
+      serverResp.readBytes(b2);
+      serverResp.release();
+      Assert.assertEquals(new String(b2), "response to request fast", "Response Check at client");
+
+      // A cancelled request is forgotten, and cannot be cancelled again once completed
+      ResponseFuture cancelledFuture =
+          clientConn.sendRequest(Unpooled.wrappedBuffer("500:request cancelled".getBytes()), 102L, 5000L);
+      Assert.assertEquals(clientConn.getNumPendingRequests(), 1);
+      Assert.assertTrue(cancelledFuture.cancel(true));
+      Assert.assertTrue(cancelledFuture.isCancelled());
+      Assert.assertEquals(clientConn.getNumPendingRequests(), 0);
+      Assert.assertFalse(serverRespFuture.cancel(true));
+    } finally {
+      clientConn.close();
+      server.shutdown();
+    }
+  }
+
+  @Test
+  /**
+   * Test the checkout of multiplexed connections, with the connects done asynchronously and backed off on failure
+   * @throws Exception
+   */
+  public void testMultiplexedConnectionPool() throws Exception {
+    NettyClientMetrics metric = new NettyClientMetrics(null, "abc");
+    Timer timer = new HashedWheelTimer();
+    EventLoopGroup eventLoopGroup = new NioEventLoopGroup();
+    MultiplexedConnectionPool pool = new MultiplexedConnectionPool(1, 5000, eventLoopGroup, timer, metric);
+
+    // No server is listening yet, the connect fails and the next checkout fails right away during the backoff
+    MyServer server = null;
+    ServerInstance serverInstance = new ServerInstance("localhost", 9089);
+    try {
+      KeyedFuture<ServerInstance, NettyClientConnection> future = pool.checkoutObject(serverInstance);
+      Assert.assertNull(future.getOne(5000L, TimeUnit.MILLISECONDS));
+      Assert.assertNotNull(future.getError());
+      future = pool.checkoutObject(serverInstance);
+      Assert.assertTrue(future.isDone());
+      Assert.assertTrue(future.getError().get(serverInstance) instanceof ConnectException);
+
+      server = new MyServer("dummy response", new MyEchoRequestHandler());
+      Thread.sleep(1000);
+      NettyClientConnection conn = pool.checkoutObject(serverInstance).getOne(5000L, TimeUnit.MILLISECONDS);
+      Assert.assertNotNull(conn);
+      Assert.assertTrue(conn.validate());
+      // The single connection is shared
+      Assert.assertSame(pool.checkoutObject(serverInstance).getOne(5000L, TimeUnit.MILLISECONDS), conn);
+    } finally {
+      pool.shutdown().get();
+      if (server != null) {
+        server.shutdown();
+      }
+    }
+  }
+
   /*
    * WARNING: This test has potential failures due to timing.
    */
@@ -549,6 +679,58 @@ public class NettySingleConnectionIntegrationTest {
     }
   }
 
+  /**
+   * Request handler completing the response from another thread.
+   */
+  private static class MyAsyncRequestHandler extends MyRequestHandler implements AsyncRequestHandler {
+    private final ExecutorService _executorService = Executors.newSingleThreadExecutor();
+
+    public MyAsyncRequestHandler(String response) {
+      super(response, null);
+    }
+
+    @Override
+    public ListenableFuture<ByteBuf> processRequestAsync(ByteBuf request) {
+      final byte[] b = new byte[request.readableBytes()];
+      request.readBytes(b);
+      final SettableFuture<ByteBuf> response = SettableFuture.create();
+      _executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          response.set(Unpooled.wrappedBuffer(processRequest(Unpooled.wrappedBuffer(b))));
+        }
+      });
+      return response;
+    }
+  }
+
+  /**
+   * Echoes requests of the form 'delayMs:request' back as 'response to request', after the delay
+   */
+  private static class MyEchoRequestHandler extends MyRequestHandler implements AsyncRequestHandler {
+    private final ScheduledExecutorService _executorService = Executors.newScheduledThreadPool(4);
+
+    public MyEchoRequestHandler() {
+      super(null, null);
+    }
+
+    @Override
+    public ListenableFuture<ByteBuf> processRequestAsync(ByteBuf request) {
+      byte[] b = new byte[request.readableBytes()];
+      request.readBytes(b);
+      String[] parts = new String(b).split(":", 2);
+      final byte[] response = ("response to " + parts[1]).getBytes();
+      final SettableFuture<ByteBuf> responseFuture = SettableFuture.create();
+      _executorService.schedule(new Runnable() {
+        @Override
+        public void run() {
+          responseFuture.set(Unpooled.wrappedBuffer(response));
+        }
+      }, Long.parseLong(parts[0]), TimeUnit.MILLISECONDS);
+      return responseFuture;
+    }
+  }
+
   private static class MyServer {
     private final int _port = 9089;
     private final String _responseStr;
@@ -558,8 +740,16 @@ public class NettySingleConnectionIntegrationTest {
     private boolean _hasShutDown = false;
 
     public MyServer(String responseStr) {
+      this(responseStr, false);
+    }
+
+    public MyServer(String responseStr, boolean async) {
+      this(responseStr, async ? new MyAsyncRequestHandler(responseStr) : new MyRequestHandler(responseStr, null));
+    }
+
+    public MyServer(String responseStr, MyRequestHandler handler) {
       _responseStr = responseStr;
-      _handler = new MyRequestHandler(_responseStr, null);
+      _handler = handler;
       MyRequestHandlerFactory handlerFactory = new MyRequestHandlerFactory(_handler);
       _serverConn = new NettyTCPServer(_port, handlerFactory, null);
       Thread serverThread = new Thread(_serverConn, "ServerMain");
@@ -474,6 +474,16 @@ public class ScatterGatherPerfClient implements Runnable {
       return null;
     }
 
+    @Override
+    public long getHedgeDelayMs() {
+      return -1L;
+    }
+
+    @Override
+    public ServerInstance getHedgeService(ServerInstance service, SegmentIdSet querySegments) {
+      return null;
+    }
+
     @Override
     public int getNumSpeculativeRequests() {
       return 0;
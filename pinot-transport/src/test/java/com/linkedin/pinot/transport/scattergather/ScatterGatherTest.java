@@ -739,6 +739,16 @@ public class ScatterGatherTest {
       return _numSpeculativeRequests;
     }
 
+    @Override
+    public long getHedgeDelayMs() {
+      return -1L;
+    }
+
+    @Override
+    public ServerInstance getHedgeService(ServerInstance service, SegmentIdSet querySegments) {
+      return null;
+    }
+
     @Override
     public BucketingSelection getPredefinedSelection() {
       return null;